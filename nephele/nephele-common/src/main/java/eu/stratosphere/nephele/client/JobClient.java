@@ -32,6 +32,7 @@ import eu.stratosphere.nephele.jobgraph.JobStatus;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.protocols.JobManagementProtocol;
 import eu.stratosphere.nephele.types.IntegerRecord;
+import eu.stratosphere.nephele.types.LongRecord;
 import eu.stratosphere.nephele.util.StringUtils;
 
 /**
@@ -69,9 +70,9 @@ public class JobClient {
 	private final JobCleanUp jobCleanUp;
 
 	/**
-	 * The sequence number of the last processed event received from the job manager.
+	 * The sequence number of the next event to be fetched from the job manager.
 	 */
-	private long lastProcessedEventSequenceNumber = -1;
+	private long nextEventSequenceNumber = 0L;
 
 	/**
 	 * Inner class used to perform clean up tasks when the
@@ -248,6 +249,29 @@ public class JobClient {
 		}
 	}
 
+	/**
+	 * Retrieves the events of the job assigned to this job client which have not been fetched by a previous call of
+	 * this method.
+	 * 
+	 * @return a <code>JobProgressResult</code> object including the new events of the job
+	 * @throws IOException
+	 *         thrown if an error occurred while transmitting the request
+	 */
+	private JobProgressResult getIncrementalJobProgress() throws IOException {
+
+		final JobProgressResult jobProgressResult;
+		synchronized (this.jobSubmitClient) {
+			jobProgressResult = this.jobSubmitClient.getJobProgress(this.jobGraph.getJobID(), new LongRecord(
+				this.nextEventSequenceNumber));
+		}
+
+		if (jobProgressResult != null && jobProgressResult.getReturnCode() == AbstractJobResult.ReturnCode.SUCCESS) {
+			this.nextEventSequenceNumber = jobProgressResult.getNextSequenceNumber();
+		}
+
+		return jobProgressResult;
+	}
+
 	/**
 	 * Submits the job assigned to this job client to the job manager and queries the job manager
 	 * about the progress of the job until it is either finished or aborted.
@@ -299,7 +323,7 @@ public class JobClient {
 
 			JobProgressResult jobProgressResult = null;
 			try {
-				jobProgressResult = getJobProgress();
+				jobProgressResult = getIncrementalJobProgress();
 			} catch (IOException ioe) {
 				Runtime.getRuntime().removeShutdownHook(this.jobCleanUp);
 				// Rethrow error
@@ -319,15 +343,8 @@ public class JobClient {
 
 				final AbstractEvent event = it.next();
 
-				// Did we already process that event?
-				if (this.lastProcessedEventSequenceNumber >= event.getSequenceNumber()) {
-					continue;
-				}
-
 				System.out.println(event.toString());
 
-				this.lastProcessedEventSequenceNumber = event.getSequenceNumber();
-
 				// Check if we can exit the loop
 				if (event instanceof JobEvent) {
 					final JobEvent jobEvent = (JobEvent) event;
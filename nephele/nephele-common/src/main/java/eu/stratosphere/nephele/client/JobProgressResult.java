@@ -36,6 +36,11 @@ public class JobProgressResult extends AbstractJobResult {
 	 */
 	private final SerializableArrayList<AbstractEvent> events;
 
+	/**
+	 * The sequence number to pass to the next incremental progress request.
+	 */
+	private long nextSequenceNumber;
+
 	/**
 	 * Constructs a new job progress result object.
 	 * 
@@ -49,9 +54,28 @@ public class JobProgressResult extends AbstractJobResult {
 	public JobProgressResult(final ReturnCode returnCode, final String description,
 			final SerializableArrayList<AbstractEvent> events) {
 
+		this(returnCode, description, events, 0L);
+	}
+
+	/**
+	 * Constructs a new job progress result object for an incremental progress request.
+	 * 
+	 * @param returnCode
+	 *        the return code that shall be carried by this result object
+	 * @param description
+	 *        the description of the job status
+	 * @param events
+	 *        the job events to be transported within this object
+	 * @param nextSequenceNumber
+	 *        the sequence number to pass to the next incremental progress request
+	 */
+	public JobProgressResult(final ReturnCode returnCode, final String description,
+			final SerializableArrayList<AbstractEvent> events, final long nextSequenceNumber) {
+
 		super(returnCode, description);
 
 		this.events = events;
+		this.nextSequenceNumber = nextSequenceNumber;
 	}
 
 	/**
@@ -71,6 +95,7 @@ public class JobProgressResult extends AbstractJobResult {
 		super.read(in);
 
 		this.events.read(in);
+		this.nextSequenceNumber = in.readLong();
 	}
 
 	/**
@@ -81,6 +106,7 @@ public class JobProgressResult extends AbstractJobResult {
 		super.write(out);
 
 		this.events.write(out);
+		out.writeLong(this.nextSequenceNumber);
 	}
 
 	/**
@@ -93,6 +119,16 @@ public class JobProgressResult extends AbstractJobResult {
 		return this.events.iterator();
 	}
 
+	/**
+	 * Returns the sequence number to pass to the next incremental progress request.
+	 * 
+	 * @return the sequence number to pass to the next incremental progress request
+	 */
+	public long getNextSequenceNumber() {
+
+		return this.nextSequenceNumber;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -113,6 +149,10 @@ public class JobProgressResult extends AbstractJobResult {
 			return false;
 		}
 
+		if (this.nextSequenceNumber != jpr.nextSequenceNumber) {
+			return false;
+		}
+
 		return true;
 	}
 
@@ -56,6 +56,18 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_TMP_DIR_KEY = "taskmanager.tmp.dirs";
 	
+	/**
+	 * The key for the config parameter defining the number of I/O reader and writer threads for each
+	 * directory for temporary files.
+	 */
+	public static final String TASK_MANAGER_IO_THREADS_PER_DIR_KEY = "taskmanager.tmp.threadsperdir";
+	
+	/**
+	 * The key for the config parameter defining the class of the policy that selects the directory
+	 * for temporary files in which a new spill channel is created.
+	 */
+	public static final String TASK_MANAGER_TMP_PLACEMENT_POLICY_KEY = "taskmanager.tmp.placementpolicy";
+	
 	/**
 	 * The key for the config parameter defining the default number of retries for failed tasks.
 	 */
@@ -110,6 +122,17 @@ public final class ConfigConstants {
 	 * The default directory for temporary files of the task manager.
 	 */
 	public static final String DEFAULT_TASK_MANAGER_TMP_PATH = System.getProperty("java.io.tmpdir");
+	
+	/**
+	 * The default number of I/O reader and writer threads for each directory for temporary files.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_IO_THREADS_PER_DIR = 1;
+	
+	/**
+	 * The default class of the policy that selects the directory for temporary files of a new spill channel.
+	 */
+	public static final String DEFAULT_TASK_MANAGER_TMP_PLACEMENT_POLICY =
+		"eu.stratosphere.nephele.services.iomanager.LeastLoadedPlacementPolicy";
 
 	/**
 	 * The default value for the flag to terminate a job on job-client shutdown.
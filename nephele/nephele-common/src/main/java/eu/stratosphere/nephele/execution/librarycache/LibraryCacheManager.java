@@ -25,10 +25,18 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.fs.FSDataInputStream;
 import eu.stratosphere.nephele.fs.FSDataOutputStream;
 import eu.stratosphere.nephele.fs.FileStatus;
@@ -44,6 +52,12 @@ import eu.stratosphere.nephele.util.StringUtils;
  * caches library files in order to avoid unnecessary retransmission of data. It is based on a singleton
  * programming pattern, so there exists at most on library manager at a time.
  * <p>
+ * Libraries are stored under the hex representation of their checksum, so the cache is content-addressed: a library
+ * received from any source (the job manager or a peer task manager) is verified against its name before it is
+ * written, and files are only made visible by an atomic rename. The cache directory is kept across restarts and is
+ * trimmed to a configurable maximum size and age, evicting the least recently used libraries which are not required
+ * by a currently registered job.
+ * <p>
  * This class is thread-safe.
  * 
  * @author warneke
@@ -70,6 +84,46 @@ public final class LibraryCacheManager {
 	 */
 	private static final String HASHING_ALGORITHM = "SHA-1";
 
+	/**
+	 * The key to configure the directory the library cache is kept in.
+	 */
+	private static final String LIBRARYCACHE_DIR_KEY = "librarycache.dir";
+
+	/**
+	 * The key to configure the maximum size of the library cache in megabytes.
+	 */
+	private static final String LIBRARYCACHE_MAXSIZE_KEY = "librarycache.maxsize";
+
+	/**
+	 * The key to configure the number of hours an unused library is kept in the cache.
+	 */
+	private static final String LIBRARYCACHE_MAXAGE_KEY = "librarycache.maxage";
+
+	/**
+	 * The default maximum size of the library cache in megabytes.
+	 */
+	private static final long DEFAULT_LIBRARYCACHE_MAXSIZE = 1024L;
+
+	/**
+	 * The default number of hours an unused library is kept in the cache.
+	 */
+	private static final long DEFAULT_LIBRARYCACHE_MAXAGE = 168L;
+
+	/**
+	 * The suffix of cached library files.
+	 */
+	private static final String LIBRARY_SUFFIX = ".jar";
+
+	/**
+	 * The suffix of files which are still being written to the cache.
+	 */
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(LibraryCacheManager.class);
+
 	/**
 	 * Dummy object used in the lock map.
 	 */
@@ -81,9 +135,14 @@ public final class LibraryCacheManager {
 	private final FileSystem fs;
 
 	/**
-	 * The message digest object used to calculate the checksums of the libraries.
+	 * The maximum size of the library cache in bytes.
 	 */
-	private final MessageDigest md;
+	private final long maxCacheSize;
+
+	/**
+	 * The time in milliseconds after which a library which has not been used is removed from the cache.
+	 */
+	private final long maxCacheAge;
 
 	/**
 	 * Path pointing to the library cache directory.
@@ -145,22 +204,90 @@ public final class LibraryCacheManager {
 		}
 
 		// Use the File object to the convert the path to a proper URI
-		final File path = new File(tmp + File.separator + LIBRARYCACHENAME + "-" + userName);
+		final File path = new File(GlobalConfiguration.getString(LIBRARYCACHE_DIR_KEY, tmp + File.separator
+			+ LIBRARYCACHENAME + "-" + userName));
 		final URI uri = path.toURI();
 
 		this.libraryCachePath = new Path(uri);
 
 		this.fs.mkdirs(this.libraryCachePath);
 
-		// Create an MD5 message digest object we can use
+		this.maxCacheSize = GlobalConfiguration.getLong(LIBRARYCACHE_MAXSIZE_KEY, DEFAULT_LIBRARYCACHE_MAXSIZE)
+			* 1024L * 1024L;
+		this.maxCacheAge = GlobalConfiguration.getLong(LIBRARYCACHE_MAXAGE_KEY, DEFAULT_LIBRARYCACHE_MAXAGE)
+			* 60L * 60L * 1000L;
+
+		// Make sure the hashing algorithm is available
+		createMessageDigest();
+
+		// Remove stale libraries left over from previous runs
+		evictLibraries();
+	}
+
+	/**
+	 * Creates a new message digest object to calculate the checksums of libraries. Message digests are not
+	 * thread-safe, so every caller obtains its own object.
+	 * 
+	 * @return a new message digest object
+	 * @throws IOException
+	 *         thrown if the requested hashing algorithm does not exist
+	 */
+	private static MessageDigest createMessageDigest() throws IOException {
+
 		try {
-			this.md = MessageDigest.getInstance(HASHING_ALGORITHM);
+			return MessageDigest.getInstance(HASHING_ALGORITHM);
 		} catch (NoSuchAlgorithmException e) {
 			throw new IOException("Cannot find algorithm " + HASHING_ALGORITHM + ": "
 				+ StringUtils.stringifyException(e));
 		}
 	}
 
+	/**
+	 * Calculates the name under which the given library data is stored in the cache.
+	 * 
+	 * @param data
+	 *        the library data
+	 * @return the cache name of the library data
+	 * @throws IOException
+	 *         thrown if the requested hashing algorithm does not exist
+	 */
+	private static String calculateCacheName(final byte[] data) throws IOException {
+
+		final MessageDigest md = createMessageDigest();
+		md.update(data);
+
+		return StringUtils.byteToHexString(md.digest()) + LIBRARY_SUFFIX;
+	}
+
+	/**
+	 * Checks if the given string is a valid cache name, i.e. the hex representation of a checksum followed by the
+	 * library suffix. This prevents names received from remote hosts from referring to files outside the cache.
+	 * 
+	 * @param cacheName
+	 *        the cache name to check
+	 * @return <code>true</code> if the given string is a valid cache name, <code>false</code> otherwise
+	 */
+	private static boolean isValidCacheName(final String cacheName) {
+
+		if (cacheName == null || !cacheName.endsWith(LIBRARY_SUFFIX)) {
+			return false;
+		}
+
+		final int len = cacheName.length() - LIBRARY_SUFFIX.length();
+		if (len == 0) {
+			return false;
+		}
+
+		for (int i = 0; i < len; ++i) {
+			final char c = cacheName.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	/**
 	 * Increments the reference counter for the library manager entry with the given job ID.
 	 * 
@@ -400,11 +527,17 @@ public final class LibraryCacheManager {
 	 */
 	private Path containsInternal(final String cacheName) throws IOException {
 
+		if (!isValidCacheName(cacheName)) {
+			return null;
+		}
+
 		// Create a path object from the external name string
 		final Path p = new Path(this.libraryCachePath + File.separator + cacheName);
 
 		synchronized (this.fs) {
 			if (fs.exists(p)) {
+				// Record the access, eviction is based on the time a library has last been used
+				new File(p.toUri().getPath()).setLastModified(System.currentTimeMillis());
 				return p;
 			}
 		}
@@ -524,6 +657,10 @@ public final class LibraryCacheManager {
 			throw new IOException("libraryName is null!");
 		}
 
+		if (!isValidCacheName(libraryFileName)) {
+			throw new IOException(libraryFileName + " is not a valid library cache name");
+		}
+
 		final Path storePath = new Path(this.libraryCachePath + "/" + libraryFileName);
 
 		synchronized (this.fs) {
@@ -589,16 +726,130 @@ public final class LibraryCacheManager {
 		final byte[] buf = new byte[(int) length];
 		in.readFully(buf);
 
-		final Path storePath = new Path(this.libraryCachePath + "/" + libraryFileName);
+		// The cache is content-addressed, so make sure the data matches the name it was announced with
+		if (!libraryFileName.equals(calculateCacheName(buf))) {
+			throw new IOException("Checksum of received library does not match its name " + libraryFileName);
+		}
+
+		storeLibrary(libraryFileName, buf);
+	}
+
+	/**
+	 * Writes the given library data to the cache unless a library with the same name already exists. The data is
+	 * first written to a temporary file which is then renamed, so a partially written library never becomes visible,
+	 * even if the process is terminated during the write.
+	 * 
+	 * @param cacheName
+	 *        the cache name of the library
+	 * @param buf
+	 *        the library data
+	 * @throws IOException
+	 *         thrown if an error occurs while writing the library to the cache
+	 */
+	private void storeLibrary(final String cacheName, final byte[] buf) throws IOException {
+
+		final Path storePath = new Path(this.libraryCachePath + "/" + cacheName);
 
 		synchronized (this.fs) {
 
 			// Check if file already exists in our library cache, if not write it to the cache directory
-			if (!fs.exists(storePath)) {
-				final FSDataOutputStream fos = fs.create(storePath, false);
+			if (this.fs.exists(storePath)) {
+				return;
+			}
+
+			final Path tmpPath = new Path(this.libraryCachePath + "/" + cacheName + "." + new JobID()
+				+ TEMPORARY_SUFFIX);
+			final FSDataOutputStream fos = this.fs.create(tmpPath, false);
+			try {
 				fos.write(buf, 0, buf.length);
+			} finally {
 				fos.close();
 			}
+
+			if (!this.fs.rename(tmpPath, storePath)) {
+				this.fs.delete(tmpPath, false);
+				throw new IOException("Cannot move " + tmpPath + " to " + storePath);
+			}
+		}
+
+		evictLibraries();
+	}
+
+	/**
+	 * Removes libraries from the cache which exceed the configured maximum age or, starting with the least recently
+	 * used library, as long as the cache exceeds the configured maximum size. Libraries required by currently
+	 * registered jobs are never removed.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while accessing the cache directory
+	 */
+	private void evictLibraries() throws IOException {
+
+		final Set<String> librariesInUse = new HashSet<String>();
+		for (final LibraryManagerEntry entry : this.libraryManagerEntries.values()) {
+			librariesInUse.addAll(Arrays.asList(entry.getRequiredJarFiles()));
+		}
+
+		final long now = System.currentTimeMillis();
+
+		synchronized (this.fs) {
+
+			final FileStatus[] files = this.fs.listStatus(this.libraryCachePath);
+			if (files == null) {
+				return;
+			}
+
+			long cacheSize = 0L;
+			for (final FileStatus file : files) {
+				if (file.getPath().getName().endsWith(LIBRARY_SUFFIX)) {
+					cacheSize += file.getLen();
+				}
+			}
+
+			// Visit the least recently used files first
+			Arrays.sort(files, new Comparator<FileStatus>() {
+
+				@Override
+				public int compare(final FileStatus o1, final FileStatus o2) {
+
+					if (o1.getModificationTime() < o2.getModificationTime()) {
+						return -1;
+					}
+
+					if (o1.getModificationTime() > o2.getModificationTime()) {
+						return 1;
+					}
+
+					return 0;
+				}
+			});
+
+			for (final FileStatus file : files) {
+
+				final String name = file.getPath().getName();
+				final boolean expired = (now - file.getModificationTime()) > this.maxCacheAge;
+
+				if (name.endsWith(TEMPORARY_SUFFIX)) {
+					// Left over from an interrupted write, another process may still be writing recent ones
+					if (expired) {
+						this.fs.delete(file.getPath(), false);
+					}
+					continue;
+				}
+
+				if (!name.endsWith(LIBRARY_SUFFIX) || librariesInUse.contains(name)) {
+					continue;
+				}
+
+				if (!expired && cacheSize <= this.maxCacheSize) {
+					continue;
+				}
+
+				if (this.fs.delete(file.getPath(), false)) {
+					cacheSize -= file.getLen();
+					LOG.info("Evicted library " + name + " from library cache");
+				}
+			}
 		}
 	}
 
@@ -651,23 +902,10 @@ public final class LibraryCacheManager {
 		final byte[] buf = new byte[(int) size];
 		in.readFully(buf);
 
-		// Reset and calculate message digest from jar file
-		this.md.reset();
-		this.md.update(buf);
-
 		// Construct internal jar name from digest
-		final String cacheName = StringUtils.byteToHexString(md.digest()) + ".jar";
-		final Path storePath = new Path(this.libraryCachePath + "/" + cacheName);
-
-		synchronized (this.fs) {
+		final String cacheName = calculateCacheName(buf);
 
-			// Check if file already exists in our library cache, if not write it to the cache directory
-			if (!this.fs.exists(storePath)) {
-				final FSDataOutputStream fos = this.fs.create(storePath, false);
-				fos.write(buf, 0, buf.length);
-				fos.close();
-			}
-		}
+		storeLibrary(cacheName, buf);
 
 		// Create mapping for client path and cache name
 		final LibraryTranslationKey key = new LibraryTranslationKey(jobID, name);
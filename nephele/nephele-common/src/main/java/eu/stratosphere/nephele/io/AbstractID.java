@@ -39,6 +39,11 @@ public abstract class AbstractID implements IOReadableWritable {
 	 */
 	protected static final int SIZE = 2 * SIZE_OF_LONG;
 
+	/**
+	 * The odd constant the lower part is multiplied with to compute the hash code.
+	 */
+	private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
 	/**
 	 * The upper part of the actual ID.
 	 */
@@ -62,6 +67,20 @@ public abstract class AbstractID implements IOReadableWritable {
 		this.upperPart = byteArrayToLong(bytes, SIZE_OF_LONG);
 	}
 
+	/**
+	 * Constructs a new ID from the given lower and upper part.
+	 * 
+	 * @param lowerPart
+	 *        the lower 64 bits of the ID
+	 * @param upperPart
+	 *        the upper 64 bits of the ID
+	 */
+	protected AbstractID(final long lowerPart, final long upperPart) {
+
+		this.lowerPart = lowerPart;
+		this.upperPart = upperPart;
+	}
+
 	/**
 	 * Constructs a new random ID from a uniform distribution.
 	 */
@@ -149,7 +168,32 @@ public abstract class AbstractID implements IOReadableWritable {
 	@Override
 	public int hashCode() {
 
-		return (int) (this.lowerPart ^ (this.upperPart >>> 32));
+		// Derived IDs share their upper part and encode small numbers in both halves of their lower part. The
+		// multiplication spreads the upper half of the lower part over the whole hash code, so these IDs do not
+		// collide if their numbers merely swap halves.
+		final long l = this.lowerPart * HASH_MULTIPLIER + this.upperPart;
+
+		return (int) (l ^ (l >>> 32));
+	}
+
+	/**
+	 * Returns the lower 64 bits of the ID.
+	 * 
+	 * @return the lower 64 bits of the ID
+	 */
+	public long getLowerPart() {
+
+		return this.lowerPart;
+	}
+
+	/**
+	 * Returns the upper 64 bits of the ID.
+	 * 
+	 * @return the upper 64 bits of the ID
+	 */
+	public long getUpperPart() {
+
+		return this.upperPart;
 	}
 
 	/**
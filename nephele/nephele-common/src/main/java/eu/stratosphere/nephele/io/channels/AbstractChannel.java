@@ -45,6 +45,11 @@ public abstract class AbstractChannel {
 
 	private final int channelIndex;
 
+	/**
+	 * The transfer statistics of this channel.
+	 */
+	private final ChannelStatistics channelStatistics = new ChannelStatistics();
+
 	/**
 	 * Auxiliary constructor for channels
 	 * 
@@ -148,4 +153,14 @@ public abstract class AbstractChannel {
 	 * @return the number of bytes which have been transmitted through this channel since its instantiation
 	 */
 	public abstract long getAmountOfDataTransmitted();
+
+	/**
+	 * Returns the transfer statistics of this channel.
+	 * 
+	 * @return the transfer statistics of this channel
+	 */
+	public ChannelStatistics getChannelStatistics() {
+
+		return this.channelStatistics;
+	}
 }
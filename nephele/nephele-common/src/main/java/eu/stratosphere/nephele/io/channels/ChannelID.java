@@ -30,4 +30,16 @@ public class ChannelID extends AbstractID {
 	public ChannelID() {
 		super();
 	}
+
+	/**
+	 * Constructs a new channel ID from the given lower and upper part.
+	 * 
+	 * @param lowerPart
+	 *        the lower 64 bits of the ID
+	 * @param upperPart
+	 *        the upper 64 bits of the ID
+	 */
+	public ChannelID(final long lowerPart, final long upperPart) {
+		super(lowerPart, upperPart);
+	}
 }
@@ -0,0 +1,166 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.io.channels;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * This class collects the transfer statistics of a single channel, i.e. the number of records, bytes, and buffers
+ * which have passed the channel as well as the time the task spent waiting for an empty buffer or for input on this
+ * channel.
+ * <p>
+ * The counters are updated on the data path, so they are designed to be as cheap as possible: Each counter is only
+ * written by the thread executing the task the channel belongs to. The counters are therefore updated with ordered
+ * stores instead of atomic read-modify-write operations, while other threads may still read consistent values at any
+ * time. Wait times are measured per buffer request or when the task actually has to block, never per record.
+ * <p>
+ * This class is thread-safe as long as each update method is only called by a single thread.
+ */
+public final class ChannelStatistics {
+
+	private static final AtomicLongFieldUpdater<ChannelStatistics> RECORDS = AtomicLongFieldUpdater.newUpdater(
+		ChannelStatistics.class, "numberOfRecords");
+
+	private static final AtomicLongFieldUpdater<ChannelStatistics> BYTES = AtomicLongFieldUpdater.newUpdater(
+		ChannelStatistics.class, "numberOfBytes");
+
+	private static final AtomicLongFieldUpdater<ChannelStatistics> BUFFERS = AtomicLongFieldUpdater.newUpdater(
+		ChannelStatistics.class, "numberOfBuffers");
+
+	private static final AtomicLongFieldUpdater<ChannelStatistics> BUFFER_WAIT = AtomicLongFieldUpdater.newUpdater(
+		ChannelStatistics.class, "bufferWaitTime");
+
+	private static final AtomicLongFieldUpdater<ChannelStatistics> INPUT_WAIT = AtomicLongFieldUpdater.newUpdater(
+		ChannelStatistics.class, "inputWaitTime");
+
+	/**
+	 * The number of records transferred through the channel.
+	 */
+	private volatile long numberOfRecords = 0L;
+
+	/**
+	 * The number of bytes transferred through the channel.
+	 */
+	private volatile long numberOfBytes = 0L;
+
+	/**
+	 * The number of buffers transferred through the channel.
+	 */
+	private volatile long numberOfBuffers = 0L;
+
+	/**
+	 * The time in nanoseconds the task waited for an empty buffer to write to this channel.
+	 */
+	private volatile long bufferWaitTime = 0L;
+
+	/**
+	 * The time in nanoseconds the task waited for this channel to provide input.
+	 */
+	private volatile long inputWaitTime = 0L;
+
+	/**
+	 * Increases the number of records transferred through the channel by one.
+	 */
+	public void addRecord() {
+
+		RECORDS.lazySet(this, this.numberOfRecords + 1L);
+	}
+
+	/**
+	 * Increases the number of buffers transferred through the channel by one and the number of bytes by the given
+	 * value.
+	 * 
+	 * @param bufferSize
+	 *        the number of bytes contained in the transferred buffer
+	 */
+	public void addBuffer(final int bufferSize) {
+
+		BUFFERS.lazySet(this, this.numberOfBuffers + 1L);
+		BYTES.lazySet(this, this.numberOfBytes + bufferSize);
+	}
+
+	/**
+	 * Adds the given time to the time the task waited for an empty buffer.
+	 * 
+	 * @param nanos
+	 *        the time waited in nanoseconds
+	 */
+	public void addBufferWaitTime(final long nanos) {
+
+		BUFFER_WAIT.lazySet(this, this.bufferWaitTime + nanos);
+	}
+
+	/**
+	 * Adds the given time to the time the task waited for input from this channel.
+	 * 
+	 * @param nanos
+	 *        the time waited in nanoseconds
+	 */
+	public void addInputWaitTime(final long nanos) {
+
+		INPUT_WAIT.lazySet(this, this.inputWaitTime + nanos);
+	}
+
+	/**
+	 * Returns the number of records transferred through the channel.
+	 * 
+	 * @return the number of records transferred through the channel
+	 */
+	public long getNumberOfRecords() {
+
+		return this.numberOfRecords;
+	}
+
+	/**
+	 * Returns the number of bytes transferred through the channel.
+	 * 
+	 * @return the number of bytes transferred through the channel
+	 */
+	public long getNumberOfBytes() {
+
+		return this.numberOfBytes;
+	}
+
+	/**
+	 * Returns the number of buffers transferred through the channel.
+	 * 
+	 * @return the number of buffers transferred through the channel
+	 */
+	public long getNumberOfBuffers() {
+
+		return this.numberOfBuffers;
+	}
+
+	/**
+	 * Returns the time the task waited for an empty buffer to write to this channel.
+	 * 
+	 * @return the time the task waited for an empty buffer in nanoseconds
+	 */
+	public long getBufferWaitTime() {
+
+		return this.bufferWaitTime;
+	}
+
+	/**
+	 * Returns the time the task waited for this channel to provide input.
+	 * 
+	 * @return the time the task waited for input in nanoseconds
+	 */
+	public long getInputWaitTime() {
+
+		return this.inputWaitTime;
+	}
+}
@@ -133,6 +133,9 @@ public abstract class AbstractByteBufferedInputChannel<T extends Record> extends
 		}
 
 		final T nextRecord = this.deserializer.readData(target, this.dataBuffer);
+		if (nextRecord != null) {
+			getChannelStatistics().addRecord();
+		}
 
 		if (this.dataBuffer.remaining() == 0) {
 			releasedConsumedReadBuffer();
@@ -224,6 +227,7 @@ public abstract class AbstractByteBufferedInputChannel<T extends Record> extends
 
 		// Keep track of number of bytes transmitted through this channel
 		this.amountOfDataTransmitted += this.dataBuffer.size();
+		getChannelStatistics().addBuffer(this.dataBuffer.size());
 
 		this.inputChannelBroker.releaseConsumedReadBuffer(this.dataBuffer);
 		this.dataBuffer = null;
@@ -133,7 +133,9 @@ public abstract class AbstractByteBufferedOutputChannel<T extends Record> extend
 	 */
 	private void requestWriteBufferFromBroker() throws InterruptedException, IOException {
 
+		final long start = System.nanoTime();
 		this.dataBuffer = this.outputChannelBroker.requestEmptyWriteBuffer();
+		getChannelStatistics().addBufferWaitTime(System.nanoTime() - start);
 	}
 
 	/**
@@ -153,6 +155,7 @@ public abstract class AbstractByteBufferedOutputChannel<T extends Record> extend
 
 		// Keep track of number of bytes transmitted through this channel
 		this.amountOfDataTransmitted += this.dataBuffer.size();
+		getChannelStatistics().addBuffer(this.dataBuffer.size());
 
 		this.outputChannelBroker.releaseWriteBuffer(this.dataBuffer);
 		this.dataBuffer = null;
@@ -203,6 +206,7 @@ public abstract class AbstractByteBufferedOutputChannel<T extends Record> extend
 		}
 
 		this.serializationBuffer.serialize(record);
+		getChannelStatistics().addRecord();
 
 		if (this.compressor != null) {
 			this.serializationBuffer.read(this.dataBuffer);
@@ -38,6 +38,11 @@ import java.io.InputStream;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -51,6 +56,7 @@ import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.ClassUtils;
 import eu.stratosphere.nephele.util.IOUtils;
+import eu.stratosphere.nephele.util.StringUtils;
 
 /**
  * A client for an IPC service. IPC calls take a single {@link Writable} as a
@@ -189,6 +195,12 @@ public class Client {
 
 		private IOException closeException; // close reason
 
+		// serialized calls which have not been written to the socket yet
+		private final ConcurrentLinkedQueue<DataOutputBuffer> pendingFrames = new ConcurrentLinkedQueue<DataOutputBuffer>();
+
+		// indicates if a thread is currently writing the pending frames to the socket
+		private final AtomicBoolean flushInProgress = new AtomicBoolean(false);
+
 		public Connection(ConnectionId remoteId)
 												throws IOException {
 			this.remoteId = remoteId;
@@ -451,37 +463,70 @@ public class Client {
 		/**
 		 * Initiates a call by sending the parameter to the remote server.
 		 * Note: this is not called from the Connection thread, but by other
-		 * threads.
+		 * threads. The call is serialized by the calling thread; the resulting frame is then
+		 * written together with all other frames queued by concurrent callers, so that
+		 * many in-flight calls share a single flush of the socket stream.
 		 */
 		public void sendParam(Call call) {
 			if (shouldCloseConnection.get()) {
 				return;
 			}
 
-			DataOutputBuffer d = null;
+			// for serializing the data to be written
+			final DataOutputBuffer d = new DataOutputBuffer();
 			try {
-				synchronized (this.out) {
-
-					// for serializing the
-					// data to be written
-					d = new DataOutputBuffer();
-					// First, write call id to buffer d
-					d.writeInt(call.id);
-					// Then write RPC data (the actual call) to buffer d
-					call.param.write(d);
-
-					byte[] data = d.getData().array();
-					int dataLength = d.getLength();
-					out.writeInt(dataLength); // first put the data length
-					out.write(data, 0, dataLength);// write the data
-					out.flush();
-				}
+				// First, write call id to buffer d
+				d.writeInt(call.id);
+				// Then write RPC data (the actual call) to buffer d
+				call.param.write(d);
 			} catch (IOException e) {
-				markClosed(e);
-			} finally {
-				// the buffer is just an in-memory buffer, but it is still polite to
-				// close early
+				// the call could not be serialized, this does not affect the connection
 				IOUtils.closeStream(d);
+				this.calls.remove(call.id);
+				call.setException(e);
+				return;
+			}
+
+			this.pendingFrames.add(d);
+
+			try {
+				flushPendingFrames();
+			} catch (IOException e) {
+				markClosed(e);
+			}
+		}
+
+		/**
+		 * Writes all queued frames to the socket stream and flushes it. If another thread is already
+		 * writing, the frames are left to that thread which re-checks the queue before it gives up
+		 * the write permission.
+		 * 
+		 * @throws IOException
+		 *         thrown if an error occurs while writing to the socket stream
+		 */
+		private void flushPendingFrames() throws IOException {
+
+			while (!this.pendingFrames.isEmpty() && this.flushInProgress.compareAndSet(false, true)) {
+
+				try {
+					synchronized (this.out) {
+						DataOutputBuffer d;
+						while ((d = this.pendingFrames.poll()) != null) {
+							try {
+								final int dataLength = d.getLength();
+								this.out.writeInt(dataLength); // first put the data length
+								this.out.write(d.getData().array(), 0, dataLength);// write the data
+							} finally {
+								// the buffer is just an in-memory buffer, but it is still polite to
+								// close early
+								IOUtils.closeStream(d);
+							}
+						}
+						this.out.flush();
+					}
+				} finally {
+					this.flushInProgress.set(false);
+				}
 			}
 		}
 
@@ -586,6 +631,112 @@ public class Client {
 		}
 	}
 
+	/**
+	 * Call implementation used for asynchronous calls. The caller is not blocked until the response
+	 * arrives but may wait for it through the {@link Future} interface.
+	 */
+	private class AsyncCall extends Call implements Future<IOReadableWritable> {
+
+		private final InetSocketAddress address;
+
+		private final boolean logErrors;
+
+		public AsyncCall(final IOReadableWritable param, final InetSocketAddress address, final boolean logErrors) {
+			super(param);
+			this.address = address;
+			this.logErrors = logErrors;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected synchronized void callComplete() {
+
+			this.done = true;
+			notifyAll();
+
+			if (this.logErrors && this.error != null) {
+				LOG.error("Asynchronous call to " + this.address + " failed: "
+					+ StringUtils.stringifyException(this.error));
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+
+			// Calls which have already been sent cannot be revoked
+			return false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isCancelled() {
+
+			return false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized boolean isDone() {
+
+			return this.done;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized IOReadableWritable get() throws InterruptedException, ExecutionException {
+
+			while (!this.done) {
+				wait();
+			}
+
+			return getResult();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized IOReadableWritable get(final long timeout, final TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+
+			final long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+			while (!this.done) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0L) {
+					throw new TimeoutException("Call to " + this.address + " did not complete within " + timeout
+						+ " " + unit);
+				}
+				wait(remaining);
+			}
+
+			return getResult();
+		}
+
+		private IOReadableWritable getResult() throws ExecutionException {
+
+			if (this.error == null) {
+				return this.value;
+			}
+
+			if (this.error instanceof RemoteException) {
+				throw new ExecutionException(this.error);
+			}
+
+			throw new ExecutionException(wrapException(this.address, this.error));
+		}
+	}
+
 	/** Call implementation used for parallel calls. */
 	private class ParallelCall extends Call {
 
@@ -712,6 +863,34 @@ public class Client {
 		}
 	}
 
+	/**
+	 * Make an asynchronous call, passing <code>param</code>, to the IPC server running at <code>address</code> which
+	 * is servicing the <code>protocol</code> protocol. The method returns as soon as the call has been handed to the
+	 * connection; any number of asynchronous calls may be in flight on the same connection at a time.
+	 * 
+	 * @param param
+	 *        the parameter of the call
+	 * @param addr
+	 *        the address of the IPC server
+	 * @param protocol
+	 *        the protocol the call belongs to
+	 * @param logErrors
+	 *        <code>true</code> if errors shall be logged when the call completes, e.g. because nobody will ever ask
+	 *        the returned future for the result
+	 * @return a future which completes with the return value of the call or the exception it caused
+	 * @throws IOException
+	 *         thrown if no connection to the IPC server can be obtained
+	 */
+	public Future<IOReadableWritable> callAsync(final IOReadableWritable param, final InetSocketAddress addr,
+			final Class<?> protocol, final boolean logErrors) throws IOException {
+
+		final AsyncCall call = new AsyncCall(param, addr, logErrors);
+		final Connection connection = getConnection(addr, protocol, call);
+		connection.sendParam(call); // send the parameter
+
+		return call;
+	}
+
 	/**
 	 * Take an IOException and the address we were trying to connect to
 	 * and return an IOException with the input exception as the cause.
@@ -34,6 +34,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.Future;
 
 import javax.net.SocketFactory;
 
@@ -64,6 +65,11 @@ public class RPC {
 
 	private static final Log LOG = LogFactory.getLog(RPC.class);
 
+	/**
+	 * The future of the last call each thread has made through an asynchronous proxy.
+	 */
+	private static final ThreadLocal<Future<IOReadableWritable>> LAST_CALL_FUTURE = new ThreadLocal<Future<IOReadableWritable>>();
+
 	private RPC() {
 	} // no public ctor
 
@@ -225,11 +231,14 @@ public class RPC {
 
 		private Client client;
 
+		private final boolean asynchronous;
+
 		private boolean isClosed = false;
 
-		public Invoker(InetSocketAddress address, SocketFactory factory) {
+		public Invoker(InetSocketAddress address, SocketFactory factory, boolean asynchronous) {
 			this.address = address;
 			this.client = CLIENTS.getClient(factory);
+			this.asynchronous = asynchronous;
 		}
 
 		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
@@ -248,6 +257,15 @@ public class RPC {
 						castArgs[i] = (IOReadableWritable) args[i];
 				}
 			}
+
+			if (this.asynchronous) {
+				// Nobody will ever ask for the result of a void method, so its errors are logged
+				final Future<IOReadableWritable> future = this.client.callAsync(new Invocation(method, castArgs),
+					this.address, method.getDeclaringClass(), method.getReturnType() == void.class);
+				LAST_CALL_FUTURE.set(future);
+				return null;
+			}
+
 			final IOReadableWritable value = this.client.call(new Invocation(method, castArgs), this.address, method
 				.getDeclaringClass());
 
@@ -316,11 +334,73 @@ public class RPC {
 	public static <V extends VersionedProtocol> V getProxy(Class<V> protocol, InetSocketAddress addr,
 			SocketFactory factory) throws IOException {
 
-		V proxy = (V) Proxy.newProxyInstance(protocol.getClassLoader(), new Class[] { protocol }, new Invoker(addr, factory));
+		V proxy = (V) Proxy.newProxyInstance(protocol.getClassLoader(), new Class[] { protocol }, new Invoker(addr,
+			factory, false));
 
 		return proxy;
 	}
 
+	/**
+	 * Construct a client-side proxy object whose methods do not wait for the response of the remote server. Every
+	 * method of the proxy returns <code>null</code> immediately after the call has been handed to the connection, so
+	 * an arbitrary number of calls can be in flight at a time. The result of a call can be obtained by calling
+	 * {@link #getLastCallFuture()} from the invoking thread right after the call. Errors of methods without return
+	 * value are logged.
+	 * 
+	 * @param protocol
+	 *        the protocol the proxy shall implement
+	 * @param addr
+	 *        the address of the remote server
+	 * @param factory
+	 *        the socket factory to create the connections with
+	 * @return the asynchronous proxy
+	 * @throws IOException
+	 *         thrown if the proxy cannot be created
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V extends VersionedProtocol> V getAsyncProxy(final Class<V> protocol, final InetSocketAddress addr,
+			final SocketFactory factory) throws IOException {
+
+		for (final Method method : protocol.getMethods()) {
+			if (method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+				throw new IOException("Method " + method.getName() + " of protocol " + protocol.getName()
+					+ " has a primitive return type and cannot be called asynchronously");
+			}
+		}
+
+		return (V) Proxy.newProxyInstance(protocol.getClassLoader(), new Class[] { protocol }, new Invoker(addr,
+			factory, true));
+	}
+
+	/**
+	 * Construct an asynchronous client-side proxy object with the default SocketFactory.
+	 * 
+	 * @param protocol
+	 *        the protocol the proxy shall implement
+	 * @param addr
+	 *        the address of the remote server
+	 * @return the asynchronous proxy
+	 * @throws IOException
+	 *         thrown if the proxy cannot be created
+	 */
+	public static <V extends VersionedProtocol> V getAsyncProxy(final Class<V> protocol, final InetSocketAddress addr)
+			throws IOException {
+
+		return getAsyncProxy(protocol, addr, NetUtils.getDefaultSocketFactory());
+	}
+
+	/**
+	 * Returns the future of the last call the current thread has made through an asynchronous proxy.
+	 * 
+	 * @return the future of the last asynchronous call or <code>null</code> if the current thread has not made any
+	 *         asynchronous call yet
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends IOReadableWritable> Future<T> getLastCallFuture() {
+
+		return (Future<T>) LAST_CALL_FUTURE.get();
+	}
+
 	/**
 	 * Construct a client-side proxy object with the default SocketFactory
 	 * 
@@ -52,7 +52,10 @@ import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -61,6 +64,7 @@ import eu.stratosphere.nephele.io.IOReadableWritable;
 import eu.stratosphere.nephele.protocols.VersionedProtocol;
 import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.ClassUtils;
+import eu.stratosphere.nephele.util.StringUtils;
 
 /**
  * An abstract IPC service. IPC calls take a single {@link Writable} as a
@@ -525,24 +529,24 @@ public abstract class Server {
 					// If there were some calls that have not been sent out for a
 					// long time, discard them.
 					//
-					ArrayList<Call> calls;
+					ArrayList<Connection> connections;
 
 					// get the list of channels from list of keys.
 					synchronized (writeSelector.keys()) {
-						calls = new ArrayList<Call>(writeSelector.keys().size());
+						connections = new ArrayList<Connection>(writeSelector.keys().size());
 						iter = writeSelector.keys().iterator();
 						while (iter.hasNext()) {
 							SelectionKey key = iter.next();
-							Call call = (Call) key.attachment();
-							if (call != null && key.channel() == call.connection.channel) {
-								calls.add(call);
+							Connection connection = (Connection) key.attachment();
+							if (connection != null && key.channel() == connection.channel) {
+								connections.add(connection);
 							}
 						}
 					}
 
-					for (Call call : calls) {
+					for (Connection connection : connections) {
 						try {
-							doPurge(call, now);
+							doPurge(connection, now);
 						} catch (IOException e) {
 							LOG.warn("Error in purging old calls " + e);
 						}
@@ -572,133 +576,133 @@ public abstract class Server {
 		}
 
 		private void doAsyncWrite(SelectionKey key) throws IOException {
-			Call call = (Call) key.attachment();
-			if (call == null) {
+			Connection connection = (Connection) key.attachment();
+			if (connection == null) {
 				return;
 			}
-			if (key.channel() != call.connection.channel) {
+			if (key.channel() != connection.channel) {
 				throw new IOException("doAsyncWrite: bad channel");
 			}
 
-			synchronized (call.connection.responseQueue) {
-				if (processResponse(call.connection.responseQueue, false)) {
-					try {
-						key.interestOps(0);
-					} catch (CancelledKeyException e) {
-						/*
-						 * The Listener/reader might have closed the socket.
-						 * We don't explicitly cancel the key, so not sure if this will
-						 * ever fire.
-						 * This warning could be removed.
-						 */
-						LOG.warn("Exception while changing ops : " + e);
-					}
-				}
-			}
+			processResponses(connection, false);
 		}
 
 		//
 		// Remove calls that have been pending in the responseQueue
 		// for a long time.
 		//
-		private void doPurge(Call call, long now) throws IOException {
-			LinkedList<Call> responseQueue = call.connection.responseQueue;
-			synchronized (responseQueue) {
-				Iterator<Call> iter = responseQueue.listIterator(0);
-				while (iter.hasNext()) {
-					call = iter.next();
-					if (now > call.timestamp + PURGE_INTERVAL) {
-						closeConnection(call.connection);
-						break;
-					}
+		private void doPurge(Connection connection, long now) throws IOException {
+			Iterator<Call> iter = connection.responseQueue.iterator();
+			while (iter.hasNext()) {
+				Call call = iter.next();
+				if (now > call.timestamp + PURGE_INTERVAL) {
+					closeConnection(connection);
+					break;
 				}
 			}
 		}
 
-		// Processes one response. Returns true if there are no more pending
-		// data for this channel.
 		//
-		private boolean processResponse(LinkedList<Call> responseQueue, boolean inHandler) throws IOException {
+		// Writes the pending responses of the connection until either the queue
+		// is empty or the channel cannot take any more data. The caller must own
+		// the connection's write permission. The permission is released once the
+		// queue has been drained; if the channel is full, it is kept and passed on
+		// to the responder thread which continues when the channel becomes writable.
+		//
+		private void processResponses(Connection connection, boolean inHandler) throws IOException {
 			boolean error = true;
-			boolean done = false; // there is more data for this channel.
-			int numElements = 0;
-			Call call = null;
 			try {
-				synchronized (responseQueue) {
-					//
-					// If there are no items for this channel, then we are done
-					//
-					numElements = responseQueue.size();
-					if (numElements == 0) {
-						error = false;
-						return true; // no more data for this channel.
+				while (true) {
+					Call call = connection.responseQueue.peek();
+					if (call == null) {
+						if (!inHandler) {
+							disableAsyncWrite(connection);
+						}
+						connection.responding.set(false);
+						//
+						// A handler might have enqueued a response after we found the queue
+						// empty, but before the permission was released. That handler has
+						// not written its response, so we have to take over again.
+						//
+						if (connection.responseQueue.isEmpty() || !connection.responding.compareAndSet(false, true)) {
+							error = false;
+							return;
+						}
+						continue;
 					}
-					//
-					// Extract the first call
-					//
-					call = responseQueue.removeFirst();
-					SocketChannel channel = call.connection.channel;
-					
+
 					//
 					// Send as much data as we can in the non-blocking fashion
 					//
-					int numBytes = channelWrite(channel, call.response);
+					int numBytes = channelWrite(connection.channel, call.response);
 					if (numBytes < 0) {
-						return true;
+						return;
 					}
 					if (!call.response.hasRemaining()) {
-						call.connection.decRpcCount();
-						if (numElements == 1) { // last call fully processes.
-							done = true; // no more data for this channel.
-						} else {
-							done = false; // more calls pending to be sent.
-						}
-					} else {
-						//
-						// If we were unable to write the entire response out, then
-						// insert in Selector queue.
-						//
-						call.connection.responseQueue.addFirst(call);
-
-						if (inHandler) {
-							// set the serve time when the response has to be sent later
-							call.timestamp = System.currentTimeMillis();
-
-							incPending();
-							try {
-								// Wakeup the thread blocked on select, only then can the call
-								// to channel.register() complete.
-								writeSelector.wakeup();
-								channel.register(writeSelector, SelectionKey.OP_WRITE, call);
-							} catch (ClosedChannelException e) {
-								// Its ok. channel might be closed else where.
-								done = true;
-							} finally {
-								decPending();
-							}
+						connection.responseQueue.poll();
+						connection.decRpcCount();
+						continue;
+					}
+
+					//
+					// If we were unable to write the entire response out, then
+					// insert in Selector queue.
+					//
+					if (inHandler) {
+						// set the serve time when the response has to be sent later
+						call.timestamp = System.currentTimeMillis();
+
+						incPending();
+						try {
+							// Wakeup the thread blocked on select, only then can the call
+							// to channel.register() complete.
+							writeSelector.wakeup();
+							connection.channel.register(writeSelector, SelectionKey.OP_WRITE, connection);
+						} catch (ClosedChannelException e) {
+							// Its ok. channel might be closed else where.
+						} finally {
+							decPending();
 						}
 					}
 					error = false; // everything went off well
+					return;
 				}
 			} finally {
-				if (error && call != null) {
-					LOG.warn(getName() + ", call " + call + ": output error");
-					done = true; // error. no more data for this channel.
-					closeConnection(call.connection);
+				if (error) {
+					LOG.warn(getName() + ", connection " + connection + ": output error");
+					closeConnection(connection);
 				}
 			}
-			return done;
+		}
+
+		private void disableAsyncWrite(Connection connection) {
+			SelectionKey key = connection.channel.keyFor(writeSelector);
+			if (key == null) {
+				return;
+			}
+			try {
+				key.interestOps(0);
+			} catch (CancelledKeyException e) {
+				/*
+				 * The Listener/reader might have closed the socket.
+				 * We don't explicitly cancel the key, so not sure if this will
+				 * ever fire.
+				 * This warning could be removed.
+				 */
+				LOG.warn("Exception while changing ops : " + e);
+			}
 		}
 
 		//
-		// Enqueue a response from the application.
+		// Enqueue a response from the application. Only the thread which acquires
+		// the connection's write permission writes to the channel, all others just
+		// leave their response in the queue, so handlers never block each other.
 		//
 		void doRespond(Call call) throws IOException {
-			synchronized (call.connection.responseQueue) {
-				call.connection.responseQueue.addLast(call);
-				if (call.connection.responseQueue.size() == 1) {
-					processResponse(call.connection.responseQueue, true);
-				}
+			Connection connection = call.connection;
+			connection.responseQueue.add(call);
+			if (connection.responding.compareAndSet(false, true)) {
+				processResponses(connection, true);
 			}
 		}
 
@@ -731,9 +735,12 @@ public abstract class Server {
 
 		private ByteBuffer dataLengthBuffer;
 
-		private LinkedList<Call> responseQueue;
+		private final ConcurrentLinkedQueue<Call> responseQueue = new ConcurrentLinkedQueue<Call>();
+
+		// set while a thread is writing responses to the channel
+		private final AtomicBoolean responding = new AtomicBoolean(false);
 
-		private volatile int rpcCount = 0; // number of outstanding rpcs
+		private final AtomicInteger rpcCount = new AtomicInteger(0); // number of outstanding rpcs
 
 		private long lastContact;
 
@@ -764,7 +771,6 @@ public abstract class Server {
 				this.hostAddress = addr.getHostAddress();
 			}
 			this.remotePort = socket.getPort();
-			this.responseQueue = new LinkedList<Call>();
 			if (socketSendBufferSize != 0) {
 				try {
 					socket.setSendBufferSize(socketSendBufferSize);
@@ -789,17 +795,17 @@ public abstract class Server {
 
 		/* Return true if the connection has no outstanding rpc */
 		private boolean isIdle() {
-			return rpcCount == 0;
+			return rpcCount.get() == 0;
 		}
 
 		/* Decrement the outstanding RPC count */
 		private void decRpcCount() {
-			rpcCount--;
+			rpcCount.decrementAndGet();
 		}
 
 		/* Increment the outstanding RPC count */
 		private void incRpcCount() {
-			rpcCount++;
+			rpcCount.incrementAndGet();
 		}
 
 		private boolean timedOut(long currentTime) {
@@ -811,8 +817,10 @@ public abstract class Server {
 		public int readAndProcess() throws IOException, InterruptedException {
 			while (true) {
 				/*
-				 * Read at most one RPC. If the header is not read completely yet
-				 * then iterate until we read first RPC or until there is no data left.
+				 * Read as many RPCs as the channel provides without blocking, so a
+				 * batch of calls sent in one go is dispatched to the handlers at once.
+				 * If the header is not read completely yet then iterate until we read
+				 * first RPC or until there is no data left.
 				 */
 				int count = -1;
 				if (dataLengthBuffer.remaining() > 0) {
@@ -853,7 +861,10 @@ public abstract class Server {
 					if (protocolRead) {
 						processData();
 						data = null;
-						return count;
+						if (count < 0) {
+							return count;
+						}
+						continue;
 					} else {
 						processProtocol();
 						protocolRead = true;
@@ -943,7 +954,14 @@ public abstract class Server {
 
 					CurCall.set(call);
 
-					value = call(call.connection.protocol, call.param, call.timestamp);
+					try {
+						value = call(call.connection.protocol, call.param, call.timestamp);
+					} catch (IOException e) {
+						// Report the error back, otherwise the caller would wait for its response forever
+						LOG.info(getName() + ", call " + call + ": error: " + e);
+						errorClass = e.getClass().getName();
+						error = StringUtils.stringifyException(e);
+					}
 
 					CurCall.set(null);
 
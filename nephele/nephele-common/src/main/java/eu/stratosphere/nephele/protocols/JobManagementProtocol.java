@@ -23,6 +23,7 @@ import eu.stratosphere.nephele.client.JobSubmissionResult;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.types.IntegerRecord;
+import eu.stratosphere.nephele.types.LongRecord;
 
 /**
  * The JobManagementProtocol specifies methods required to manage
@@ -56,6 +57,21 @@ public interface JobManagementProtocol extends VersionedProtocol {
 	 */
 	JobProgressResult getJobProgress(JobID jobID) throws IOException;
 
+	/**
+	 * Retrieves the current status of the job specified by the given ID incrementally. The returned
+	 * {@link JobProgressResult} contains the events starting with the given sequence number as well as the
+	 * sequence number to pass to the next call, so consecutive calls do not result in duplicate events.
+	 * 
+	 * @param jobID
+	 *        the ID of the job
+	 * @param sequenceNumber
+	 *        the sequence number returned by the previous call or <code>0</code> to retrieve all available events
+	 * @return a {@link JobProgressResult} object including the current job progress
+	 * @throws IOException
+	 *         thrown if an error occurred while transmitting the request
+	 */
+	JobProgressResult getJobProgress(JobID jobID, LongRecord sequenceNumber) throws IOException;
+
 	/**
 	 * Requests to cancel the job specified by the given ID.
 	 * 
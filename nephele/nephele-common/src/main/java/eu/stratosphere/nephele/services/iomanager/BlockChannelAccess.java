@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
@@ -62,6 +63,11 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 	 * Flag marking this channel as closed;
 	 */
 	protected volatile boolean closed;
+	
+	/**
+	 * The file offset of the block for the next request.
+	 */
+	private long nextBlockPosition;
 
 	// --------------------------------------------------------------------------------------------
 	
@@ -102,6 +108,21 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 		return this.returnBuffers;
 	}
 	
+	/**
+	 * Gets the file offset for a request on the given segment and advances the offset for the next
+	 * request by the segment's size. The requests carry their offsets, such that they do not depend on
+	 * the position of the file channel.
+	 * 
+	 * @param segment The segment of the request.
+	 * @return The file offset for the request.
+	 */
+	protected final long nextBlockPosition(MemorySegment segment)
+	{
+		final long position = this.nextBlockPosition;
+		this.nextBlockPosition += segment.size();
+		return position;
+	}
+	
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.iomanager.ChannelAccess#isClosed()
 	 */
@@ -199,7 +220,8 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 //--------------------------------------------------------------------------------------------
 
 /**
- * Special read request that reads an entire memory segment from a block reader.
+ * Special read request that reads an entire memory segment from a block reader, at the file offset
+ * the request was issued for.
  */
 final class SegmentReadRequest implements ReadRequest
 {
@@ -207,10 +229,14 @@ final class SegmentReadRequest implements ReadRequest
 	
 	private final MemorySegment segment;
 	
-	protected SegmentReadRequest(BlockChannelAccess<ReadRequest, ?> targetChannel, MemorySegment segment)
+	private final long position;
+	
+	protected SegmentReadRequest(BlockChannelAccess<ReadRequest, ?> targetChannel, MemorySegment segment,
+			long position)
 	{
 		this.channel = targetChannel;
 		this.segment = segment;
+		this.position = position;
 	}
 
 	/* (non-Javadoc)
@@ -220,16 +246,72 @@ final class SegmentReadRequest implements ReadRequest
 	public void read() throws IOException
 	{
 		final FileChannel c = this.channel.fileChannel;
-		if (c.size() - c.position() > 0) {
+		if (c.size() - this.position > 0) {
 			try {
 				final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
-				this.channel.fileChannel.read(wrapper);
+				long pos = this.position;
+				int read;
+				while (wrapper.hasRemaining() && (read = c.read(wrapper, pos)) > 0) {
+					pos += read;
+				}
 			} catch (NullPointerException npex) {
 				// the memory has been cleared asynchronouosly through task failing or canceling
 				// ignore the request, since the result cannot be read
 			}
 		}
 	}
+	
+	/**
+	 * Gets the number of bytes this request reads.
+	 * 
+	 * @return The number of bytes transferred by this request.
+	 */
+	int getNumBytes() {
+		return this.segment.size();
+	}
+	
+	/**
+	 * Checks whether the given request reads the block that directly follows the block of this request,
+	 * such that both can be served with one I/O call.
+	 * 
+	 * @param next The request to check.
+	 * @return True, if the requests can be coalesced, false otherwise.
+	 */
+	boolean isFollowedBy(SegmentReadRequest next)
+	{
+		return next.channel == this.channel && next.position == this.position + this.segment.size();
+	}
+	
+	/**
+	 * Serves the given requests, which must read consecutive blocks of the same channel, with a single
+	 * scattering read. The channel's requests must all be served by the calling thread, because the
+	 * position of the file channel is changed.
+	 * 
+	 * @param requests The requests to serve.
+	 * @throws IOException Thrown, if the read failed.
+	 */
+	static void readAll(List<SegmentReadRequest> requests) throws IOException
+	{
+		final SegmentReadRequest first = requests.get(0);
+		final FileChannel c = first.channel.fileChannel;
+		if (c.size() - first.position <= 0) {
+			return;
+		}
+		
+		final ByteBuffer[] buffers = new ByteBuffer[requests.size()];
+		try {
+			for (int i = 0; i < buffers.length; i++) {
+				final MemorySegment seg = requests.get(i).segment;
+				buffers[i] = seg.wrap(0, seg.size());
+			}
+		} catch (NullPointerException npex) {
+			// the memory has been cleared asynchronouosly through task failing or canceling
+			return;
+		}
+		
+		c.position(first.position);
+		while (buffers[buffers.length - 1].hasRemaining() && c.read(buffers) > 0);
+	}
 
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.iomanager.IORequest#requestDone(java.io.IOException)
@@ -244,7 +326,8 @@ final class SegmentReadRequest implements ReadRequest
 //--------------------------------------------------------------------------------------------
 
 /**
- * Special write request that writes an entire memory segment to the block writer.
+ * Special write request that writes an entire memory segment to the block writer, at the file offset
+ * the request was issued for.
  */
 final class SegmentWriteRequest implements WriteRequest
 {
@@ -252,25 +335,82 @@ final class SegmentWriteRequest implements WriteRequest
 	
 	private final MemorySegment segment;
 	
-	protected SegmentWriteRequest(BlockChannelAccess<WriteRequest, ?> targetChannel, MemorySegment segment)
+	private final long position;
+	
+	protected SegmentWriteRequest(BlockChannelAccess<WriteRequest, ?> targetChannel, MemorySegment segment,
+			long position)
 	{
 		this.channel = targetChannel;
 		this.segment = segment;
+		this.position = position;
 	}
 
 	/* (non-Javadoc)
-	 * @see eu.stratosphere.nephele.services.iomanager.ReadRequest#read(java.nio.channels.FileChannel)
+	 * @see eu.stratosphere.nephele.services.iomanager.WriteRequest#write()
 	 */
 	@Override
 	public void write() throws IOException
 	{
 		try {
-			this.channel.fileChannel.write(this.segment.wrap(0, this.segment.size()));
+			final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
+			long pos = this.position;
+			while (wrapper.hasRemaining()) {
+				pos += this.channel.fileChannel.write(wrapper, pos);
+			}
 		} catch (NullPointerException npex) {
 			// the memory has been cleared asynchronouosly through task failing or canceling
 			// ignore the request, since there is nothing to write.
 		}
 	}
+	
+	/**
+	 * Gets the number of bytes this request writes.
+	 * 
+	 * @return The number of bytes transferred by this request.
+	 */
+	int getNumBytes() {
+		return this.segment.size();
+	}
+	
+	/**
+	 * Checks whether the given request writes the block that directly follows the block of this request,
+	 * such that both can be served with one I/O call.
+	 * 
+	 * @param next The request to check.
+	 * @return True, if the requests can be coalesced, false otherwise.
+	 */
+	boolean isFollowedBy(SegmentWriteRequest next)
+	{
+		return next.channel == this.channel && next.position == this.position + this.segment.size();
+	}
+	
+	/**
+	 * Serves the given requests, which must write consecutive blocks of the same channel, with a single
+	 * gathering write. The channel's requests must all be served by the calling thread, because the
+	 * position of the file channel is changed.
+	 * 
+	 * @param requests The requests to serve.
+	 * @throws IOException Thrown, if the write failed.
+	 */
+	static void writeAll(List<SegmentWriteRequest> requests) throws IOException
+	{
+		final ByteBuffer[] buffers = new ByteBuffer[requests.size()];
+		try {
+			for (int i = 0; i < buffers.length; i++) {
+				final MemorySegment seg = requests.get(i).segment;
+				buffers[i] = seg.wrap(0, seg.size());
+			}
+		} catch (NullPointerException npex) {
+			// the memory has been cleared asynchronouosly through task failing or canceling
+			return;
+		}
+		
+		final FileChannel c = requests.get(0).channel.fileChannel;
+		c.position(requests.get(0).position);
+		while (buffers[buffers.length - 1].hasRemaining()) {
+			c.write(buffers);
+		}
+	}
 
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.iomanager.IORequest#requestDone(java.io.IOException)
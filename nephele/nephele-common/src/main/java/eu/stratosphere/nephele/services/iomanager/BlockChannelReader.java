@@ -80,7 +80,7 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 			this.requestsNotReturned.decrementAndGet();
 			throw new IOException("The reader has been closed.");
 		}
-		this.requestQueue.add(new SegmentReadRequest(this, segment));
+		this.requestQueue.add(new SegmentReadRequest(this, segment, nextBlockPosition(segment)));
 	}
 	
 	/**
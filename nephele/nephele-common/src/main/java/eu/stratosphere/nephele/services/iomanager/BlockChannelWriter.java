@@ -76,7 +76,7 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 			this.requestsNotReturned.decrementAndGet();
 			throw new IOException("The writer has been closed.");
 		}
-		this.requestQueue.add(new SegmentWriteRequest(this, segment));
+		this.requestQueue.add(new SegmentWriteRequest(this, segment, nextBlockPosition(segment)));
 	}
 	
 	/**
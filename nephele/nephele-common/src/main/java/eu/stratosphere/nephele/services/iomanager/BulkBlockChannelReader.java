@@ -63,7 +63,7 @@ public class BulkBlockChannelReader extends BlockChannelAccess<ReadRequest, Arra
 			this.requestsNotReturned.decrementAndGet();
 			throw new IOException("The reader has been closed.");
 		}
-		this.requestQueue.add(new SegmentReadRequest(this, segment));
+		this.requestQueue.add(new SegmentReadRequest(this, segment, nextBlockPosition(segment)));
 	}
 	
 	public List<MemorySegment> getFullSegments()
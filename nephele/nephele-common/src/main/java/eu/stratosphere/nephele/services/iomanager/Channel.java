@@ -74,22 +74,30 @@ public final class Channel
 	{
 		private static final String FORMAT = "%s%s%s.%06d.channel";
 
+		private final IOManager ioManager;
+		
 		private final String[] paths;
 		
 		private final String namePrefix;
 
 		private int counter;
 
-		protected Enumerator(final String[] basePaths, final Random random)
+		protected Enumerator(final IOManager ioManager, final String[] basePaths, final Random random)
 		{
+			this.ioManager = ioManager;
 			this.paths = basePaths;
 			this.namePrefix = randomString(random);
 			this.counter = 0;
 		}
 
+		/**
+		 * Creates the next channel in the directory selected by the I/O manager's placement policy.
+		 * 
+		 * @return The ID of the next channel.
+		 */
 		public ID next()
 		{
-			final int threadNum = counter % paths.length;
+			final int threadNum = this.ioManager.getNextPathNum();
 			return new ID(String.format(FORMAT, this.paths[threadNum], File.separator, namePrefix, (counter++)), threadNum);
 		}
 	}
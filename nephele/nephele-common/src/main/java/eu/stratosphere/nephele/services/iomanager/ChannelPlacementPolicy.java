@@ -0,0 +1,37 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+
+/**
+ * A policy that decides in which of the I/O manager's directories for temporary files a new channel is created.
+ * The I/O manager consults the policy for every channel it creates, including the channels of a
+ * {@link Channel.Enumerator}, so consecutive channels of one spilling operation can be spread across devices.
+ * <p>
+ * Implementations must be thread-safe, because channels are created concurrently by different tasks. Policies
+ * that are configured by class name must have a public nullary constructor.
+ */
+public interface ChannelPlacementPolicy
+{
+	/**
+	 * Selects the directory in which the next channel is created.
+	 * 
+	 * @param directories The statistics of all directories, in the order in which the directories were
+	 *                    given to the I/O manager.
+	 * @return The index of the selected directory.
+	 */
+	int selectDirectory(TempDirectoryStatistics[] directories);
+}
@@ -17,6 +17,7 @@ package eu.stratosphere.nephele.services.iomanager;
 
 import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -38,6 +39,16 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * Logging.
 	 */
 	private static final Log LOG = LogFactory.getLog(IOManager.class);
+	
+	/**
+	 * The default number of reader and writer threads per temp path.
+	 */
+	public static final int DEFAULT_NUM_THREADS_PER_PATH = 1;
+	
+	/**
+	 * The maximum number of requests on consecutive blocks of a channel that are served with one I/O call.
+	 */
+	private static final int MAX_NUM_REQUESTS_TO_COALESCE = 16;
 
 	/**
 	 * The default temp paths for anonymous Channels.
@@ -50,19 +61,35 @@ public final class IOManager implements UncaughtExceptionHandler
 	private final Random random;
 
 	/**
-	 * The writer thread used for asynchronous block oriented channel writing.
+	 * The writer threads used for asynchronous block oriented channel writing. The threads of path
+	 * <i>i</i> are at positions <i>i * numThreadsPerPath</i> to <i>(i + 1) * numThreadsPerPath - 1</i>.
 	 */
 	private final WriterThread[] writers;
 
 	/**
-	 * The reader threads used for asynchronous block oriented channel reading.
+	 * The reader threads used for asynchronous block oriented channel reading, ordered like the writers.
 	 */
 	private final ReaderThread[] readers;
 	
 	/**
-	 * The number of the next path to use.
+	 * The number of reader and writer threads per temp path.
 	 */
-	private volatile int nextPath;
+	private final int numThreadsPerPath;
+	
+	/**
+	 * The statistics of the temp paths, used to decide where new channels are placed.
+	 */
+	private final TempDirectoryStatistics[] directoryStats;
+	
+	/**
+	 * The policy that decides in which temp path a new channel is created.
+	 */
+	private final ChannelPlacementPolicy placementPolicy;
+	
+	/**
+	 * Counter to spread the channels of a path across the path's threads.
+	 */
+	private volatile int nextThread;
 
 	/**
 	 * A boolean flag indicating whether the close() has already been invoked.
@@ -97,16 +124,53 @@ public final class IOManager implements UncaughtExceptionHandler
 	 *        the basic directory path for files underlying anonymous
 	 *        channels.
 	 */
-	public IOManager(String[] paths)
+	public IOManager(String[] paths) {
+		this(paths, DEFAULT_NUM_THREADS_PER_PATH);
+	}
+	
+	/**
+	 * Constructs a new IOManager that serves each path with multiple reader and writer threads. All requests
+	 * of a channel are served by the same thread, in the order in which they were issued. Multiple threads per
+	 * path are useful for devices that need multiple concurrent requests to reach their full bandwidth.
+	 * 
+	 * @param paths The basic directory paths for files underlying anonymous channels.
+	 * @param numThreadsPerPath The number of reader threads and writer threads for each path.
+	 */
+	public IOManager(String[] paths, int numThreadsPerPath) {
+		this(paths, numThreadsPerPath, new LeastLoadedPlacementPolicy());
+	}
+	
+	/**
+	 * Constructs a new IOManager that serves each path with multiple reader and writer threads and creates
+	 * new channels in the paths selected by the given placement policy.
+	 * 
+	 * @param paths The basic directory paths for files underlying anonymous channels.
+	 * @param numThreadsPerPath The number of reader threads and writer threads for each path.
+	 * @param placementPolicy The policy that selects the path for each new channel.
+	 */
+	public IOManager(String[] paths, int numThreadsPerPath, ChannelPlacementPolicy placementPolicy)
 	{
+		if (numThreadsPerPath < 1) {
+			throw new IllegalArgumentException("The number of I/O threads per path must be at least one.");
+		}
+		if (placementPolicy == null) {
+			throw new NullPointerException("The channel placement policy must not be null.");
+		}
+		
 		this.paths = paths;
 		this.random = new Random();
-		this.nextPath = 0;
+		this.numThreadsPerPath = numThreadsPerPath;
+		this.placementPolicy = placementPolicy;
 		
-		// start a write worker thread for each directory
-		this.writers = new WriterThread[paths.length];
+		this.directoryStats = new TempDirectoryStatistics[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			this.directoryStats[i] = new TempDirectoryStatistics(paths[i]);
+		}
+		
+		// start the write worker threads for each directory
+		this.writers = new WriterThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.writers.length; i++) {
-			final WriterThread t = new WriterThread();
+			final WriterThread t = new WriterThread(this.directoryStats[i / numThreadsPerPath]);
 			this.writers[i] = t;
 			t.setName("IOManager writer thread #" + (i + 1));
 			t.setDaemon(true);
@@ -114,10 +178,10 @@ public final class IOManager implements UncaughtExceptionHandler
 			t.start();
 		}
 
-		// start a reader worker thread for each directory
-		this.readers = new ReaderThread[paths.length];
+		// start the reader worker threads for each directory
+		this.readers = new ReaderThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.readers.length; i++) {
-			final ReaderThread t = new ReaderThread();
+			final ReaderThread t = new ReaderThread(this.directoryStats[i / numThreadsPerPath]);
 			this.readers[i] = t;
 			t.setName("IOManager reader thread #" + (i + 1));
 			t.setDaemon(true);
@@ -139,7 +203,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			// close writing and reading threads with best effort and log problems
 			
 			// --------------------------------- writer shutdown ----------------------------------			
-			for (int i = 0; i < this.readers.length; i++) {
+			for (int i = 0; i < this.writers.length; i++) {
 				try {
 					this.writers[i].shutdown();
 				}
@@ -160,7 +224,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			
 			// ------------------------ wait until shutdown is complete ---------------------------
 			try {
-				for (int i = 0; i < this.readers.length; i++) {
+				for (int i = 0; i < this.writers.length; i++) {
 					this.writers[i].join();
 				}
 				for (int i = 0; i < this.readers.length; i++) {
@@ -207,8 +271,8 @@ public final class IOManager implements UncaughtExceptionHandler
 	// ------------------------------------------------------------------------
 	
 	/**
-	 * Creates a new {@link Channel.ID} in one of the temp directories. Multiple
-	 * invocations of this method spread the channels evenly across the different directories.
+	 * Creates a new {@link Channel.ID} in one of the temp directories. The directory is selected by the
+	 * I/O manager's {@link ChannelPlacementPolicy}.
 	 * 
 	 * @return A channel to a temporary directory.
 	 */
@@ -219,14 +283,24 @@ public final class IOManager implements UncaughtExceptionHandler
 	}
 
 	/**
-	 * Creates a new {@link Channel.Enumerator}, spreading the channels in a round-robin fashion
-	 * across the temporary file directories.
+	 * Creates a new {@link Channel.Enumerator}, spreading the channels across the temporary file
+	 * directories as selected by the I/O manager's {@link ChannelPlacementPolicy}.
 	 * 
 	 * @return An enumerator for channels.
 	 */
 	public Channel.Enumerator createChannelEnumerator()
 	{
-		return new Channel.Enumerator(this.paths, this.random);
+		return new Channel.Enumerator(this, this.paths, this.random);
+	}
+	
+	/**
+	 * Gets the statistics of the temp directories, in the order in which the directories were given.
+	 * 
+	 * @return The statistics of the temp directories.
+	 */
+	public TempDirectoryStatistics[] getDirectoryStatistics()
+	{
+		return this.directoryStats.clone();
 	}
 
 	
@@ -252,7 +326,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelWriter(channelID, this.writers[getThreadNum(channelID)].requestQueue, returnQueue, 1);
 	}
 	
 	/**
@@ -282,7 +356,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelWriter(channelID, this.writers[getThreadNum(channelID)].requestQueue, returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -300,7 +374,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelWriter(channelID, this.writers[getThreadNum(channelID)].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -327,7 +401,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
+		return new BlockChannelWriter(channelID, this.writers[getThreadNum(channelID)].requestQueue, new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
 	/**
@@ -348,7 +422,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelReader(channelID, this.readers[getThreadNum(channelID)].requestQueue, returnQueue, 1);
 	}
 	
 	/**
@@ -378,7 +452,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelReader(channelID, this.readers[getThreadNum(channelID)].requestQueue, returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -397,7 +471,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelReader(channelID, this.readers[getThreadNum(channelID)].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -425,7 +499,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, 
+		return new BlockChannelReader(channelID, this.readers[getThreadNum(channelID)].requestQueue, 
 			new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
@@ -452,19 +526,38 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BulkBlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, targetSegments, numBlocks);
+		return new BulkBlockChannelReader(channelID, this.readers[getThreadNum(channelID)].requestQueue, targetSegments, numBlocks);
 	}
 	
 	// ========================================================================
 	//                             Utilities
 	// ========================================================================
 	
-	private final int getNextPathNum()
+	/**
+	 * Selects the path for a new channel through the placement policy.
+	 */
+	final int getNextPathNum()
+	{
+		final int num = this.placementPolicy.selectDirectory(this.directoryStats);
+		if (num < 0 || num >= this.paths.length) {
+			throw new IllegalStateException("The channel placement policy selected the invalid directory " + num + ".");
+		}
+		return num;
+	}
+	
+	/**
+	 * Picks the thread that serves all requests of a new reader or writer on the given channel. The
+	 * channels of a path are spread round-robin across the path's threads.
+	 */
+	private final int getThreadNum(Channel.ID channelID)
 	{
-		final int next = this.nextPath;
-		final int newNext = next + 1;
-		this.nextPath = newNext >= this.paths.length ? 0 : newNext;
-		return next;
+		if (this.numThreadsPerPath == 1) {
+			return channelID.getThreadNum();
+		}
+		
+		final int next = this.nextThread;
+		this.nextThread = next + 1 >= this.numThreadsPerPath ? 0 : next + 1;
+		return channelID.getThreadNum() * this.numThreadsPerPath + next;
 	}
 	
 	
@@ -481,6 +574,10 @@ public final class IOManager implements UncaughtExceptionHandler
 	private static final class ReaderThread extends Thread
 	{
 		protected final RequestQueue<ReadRequest> requestQueue;
+		
+		private final TempDirectoryStatistics statistics;
+		
+		private final List<SegmentReadRequest> batch = new ArrayList<SegmentReadRequest>(MAX_NUM_REQUESTS_TO_COALESCE);
 
 		private volatile boolean alive;
 
@@ -488,10 +585,13 @@ public final class IOManager implements UncaughtExceptionHandler
 		// Constructors / Destructors
 		// ---------------------------------------------------------------------
 		
-		protected ReaderThread()
+		protected ReaderThread(TempDirectoryStatistics statistics)
 		{
 			this.requestQueue = new RequestQueue<ReadRequest>();
+			this.statistics = statistics;
 			this.alive = true;
+			
+			statistics.addRequestQueue(this.requestQueue);
 		}
 		
 		/**
@@ -544,12 +644,34 @@ public final class IOManager implements UncaughtExceptionHandler
 					}
 				}
 				
+				// collect the waiting requests for the next blocks of the same channel, to read them in one call.
+				// this thread is the only consumer of the queue, so the peeked request is the polled one.
+				final List<SegmentReadRequest> batch = this.batch;
+				if (request instanceof SegmentReadRequest) {
+					SegmentReadRequest last = (SegmentReadRequest) request;
+					batch.add(last);
+					
+					ReadRequest next;
+					while (batch.size() < MAX_NUM_REQUESTS_TO_COALESCE && 
+							(next = this.requestQueue.peek()) instanceof SegmentReadRequest &&
+							last.isFollowedBy((SegmentReadRequest) next))
+					{
+						last = (SegmentReadRequest) this.requestQueue.poll();
+						batch.add(last);
+					}
+				}
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
+				final long startTime = System.nanoTime();
 
 				try {
 					// read buffer from the specified channel
-					request.read();
+					if (batch.size() > 1) {
+						SegmentReadRequest.readAll(batch);
+					} else {
+						request.read();
+					}
 				}
 				catch (IOException e) {
 					ioex = e;
@@ -560,8 +682,24 @@ public final class IOManager implements UncaughtExceptionHandler
 						t.getMessage() == null ? "." : ": ", t);
 				}
 
+				// record the observed bandwidth for the placement of new channels
+				if (ioex == null && !batch.isEmpty()) {
+					long numBytes = 0;
+					for (int i = 0; i < batch.size(); i++) {
+						numBytes += batch.get(i).getNumBytes();
+					}
+					this.statistics.recordTransfer(numBytes, System.nanoTime() - startTime);
+				}
+
 				// invoke the processed buffer handler of the request issuing reader object
-				request.requestDone(ioex);
+				if (batch.size() > 1) {
+					for (int i = 0; i < batch.size(); i++) {
+						batch.get(i).requestDone(ioex);
+					}
+				} else {
+					request.requestDone(ioex);
+				}
+				batch.clear();
 			} // end while alive
 		}
 		
@@ -573,6 +711,10 @@ public final class IOManager implements UncaughtExceptionHandler
 	private static final class WriterThread extends Thread
 	{
 		protected final RequestQueue<WriteRequest> requestQueue;
+		
+		private final TempDirectoryStatistics statistics;
+		
+		private final List<SegmentWriteRequest> batch = new ArrayList<SegmentWriteRequest>(MAX_NUM_REQUESTS_TO_COALESCE);
 
 		private volatile boolean alive;
 
@@ -580,10 +722,13 @@ public final class IOManager implements UncaughtExceptionHandler
 		// Constructors / Destructors
 		// ---------------------------------------------------------------------
 
-		protected WriterThread()
+		protected WriterThread(TempDirectoryStatistics statistics)
 		{
 			this.requestQueue = new RequestQueue<WriteRequest>();
+			this.statistics = statistics;
 			this.alive = true;
+			
+			statistics.addRequestQueue(this.requestQueue);
 		}
 
 		/**
@@ -637,12 +782,34 @@ public final class IOManager implements UncaughtExceptionHandler
 					}
 				}
 				
+				// collect the waiting requests for the next blocks of the same channel, to write them in one call.
+				// this thread is the only consumer of the queue, so the peeked request is the polled one.
+				final List<SegmentWriteRequest> batch = this.batch;
+				if (request instanceof SegmentWriteRequest) {
+					SegmentWriteRequest last = (SegmentWriteRequest) request;
+					batch.add(last);
+					
+					WriteRequest next;
+					while (batch.size() < MAX_NUM_REQUESTS_TO_COALESCE && 
+							(next = this.requestQueue.peek()) instanceof SegmentWriteRequest &&
+							last.isFollowedBy((SegmentWriteRequest) next))
+					{
+						last = (SegmentWriteRequest) this.requestQueue.poll();
+						batch.add(last);
+					}
+				}
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
+				final long startTime = System.nanoTime();
 				
 				try {
 					// write buffer to the specified channel
-					request.write();
+					if (batch.size() > 1) {
+						SegmentWriteRequest.writeAll(batch);
+					} else {
+						request.write();
+					}
 				}
 				catch (IOException e) {
 					ioex = e;
@@ -653,8 +820,24 @@ public final class IOManager implements UncaughtExceptionHandler
 						t.getMessage() == null ? "." : ": ", t);
 				}
 
+				// record the observed bandwidth for the placement of new channels
+				if (ioex == null && !batch.isEmpty()) {
+					long numBytes = 0;
+					for (int i = 0; i < batch.size(); i++) {
+						numBytes += batch.get(i).getNumBytes();
+					}
+					this.statistics.recordTransfer(numBytes, System.nanoTime() - startTime);
+				}
+
 				// invoke the processed buffer handler of the request issuing writer object
-				request.requestDone(ioex);
+				if (batch.size() > 1) {
+					for (int i = 0; i < batch.size(); i++) {
+						batch.get(i).requestDone(ioex);
+					}
+				} else {
+					request.requestDone(ioex);
+				}
+				batch.clear();
 			} // end while alive
 		}
 		
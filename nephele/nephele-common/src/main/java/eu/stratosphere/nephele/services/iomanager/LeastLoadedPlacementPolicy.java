@@ -0,0 +1,122 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+
+/**
+ * A placement policy that creates new channels in the directory whose device is expected to serve a new
+ * request first. The expected time is estimated from the number of requests that wait to be served in the
+ * directory and the bandwidth observed for the directory. Directories whose device has less than a minimal
+ * amount of usable space are skipped, unless all devices are that full.
+ * <p>
+ * Directories whose expected times differ by less than a small tolerance are considered equally loaded. Among
+ * those, the policy cycles through the directories, so that the channels of an operation are striped across
+ * devices that are equally fast and equally busy.
+ */
+public class LeastLoadedPlacementPolicy implements ChannelPlacementPolicy
+{
+	/**
+	 * The default minimal number of bytes that must be usable on a device to create new channels on it.
+	 */
+	public static final long DEFAULT_MIN_USABLE_SPACE = 256 * 1024 * 1024;
+	
+	/**
+	 * The relative difference below which the expected times of two directories are considered equal.
+	 */
+	private static final double TOLERANCE = 0.1;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final long minUsableSpace;		// the minimal usable space on a device to place channels on it
+	
+	private volatile int next;				// the directory to start the next search at
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a new policy that skips directories with less than {@link #DEFAULT_MIN_USABLE_SPACE}
+	 * usable bytes.
+	 */
+	public LeastLoadedPlacementPolicy() {
+		this(DEFAULT_MIN_USABLE_SPACE);
+	}
+	
+	/**
+	 * Creates a new policy that skips directories with less than the given number of usable bytes.
+	 * 
+	 * @param minUsableSpace The minimal number of usable bytes on a directory's device.
+	 */
+	public LeastLoadedPlacementPolicy(long minUsableSpace)
+	{
+		if (minUsableSpace < 0) {
+			throw new IllegalArgumentException("The minimal usable space must not be negative.");
+		}
+		this.minUsableSpace = minUsableSpace;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.iomanager.ChannelPlacementPolicy#selectDirectory(eu.stratosphere.nephele.services.iomanager.TempDirectoryStatistics[])
+	 */
+	@Override
+	public int selectDirectory(TempDirectoryStatistics[] directories)
+	{
+		final int num = directories.length;
+		if (num == 1) {
+			return 0;
+		}
+		
+		// check which devices have enough space left, and which bandwidth to assume for directories
+		// that have not served any request yet
+		final boolean[] hasSpace = new boolean[num];
+		boolean anyHasSpace = false;
+		double maxBandwidth = 0.0;
+		for (int i = 0; i < num; i++) {
+			hasSpace[i] = directories[i].getUsableSpace() >= this.minUsableSpace;
+			anyHasSpace |= hasSpace[i];
+			maxBandwidth = Math.max(maxBandwidth, directories[i].getBandwidth());
+		}
+		if (maxBandwidth == 0.0) {
+			maxBandwidth = 1.0;
+		}
+		
+		// find the directory with the lowest expected time to serve a new request, starting after the
+		// previously selected one to cycle through equally loaded directories
+		final int start = this.next < num ? this.next : 0;
+		int best = -1;
+		double bestTime = Double.MAX_VALUE;
+		
+		for (int k = 0; k < num; k++) {
+			final int i = (start + k) % num;
+			if (anyHasSpace && !hasSpace[i]) {
+				continue;
+			}
+			
+			final double bandwidth = directories[i].getBandwidth();
+			final double time = (directories[i].getNumOutstandingRequests() + 1) /
+				(bandwidth > 0.0 ? bandwidth : maxBandwidth);
+			
+			if (best == -1 || time < bestTime * (1.0 - TOLERANCE)) {
+				best = i;
+				bestTime = time;
+			}
+		}
+		
+		this.next = best + 1 >= num ? 0 : best + 1;
+		return best;
+	}
+}
@@ -0,0 +1,415 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import eu.stratosphere.nephele.services.memorymanager.DataInputView;
+
+
+/**
+ * A {@link DataInputView} that reads the contents of a channel through a read-only memory mapping of the
+ * channel's file. The view reads a headerless byte stream (as written by a sequence of blocks without
+ * headers, see {@link HeaderlessChannelReaderInputView}) directly from the operating system's page cache,
+ * without copying the data into memory segments first. That makes it well suited for data that is scanned
+ * multiple times, because every scan after the first one is served from the cached pages.
+ * <p>
+ * The file is mapped in regions of a fixed size, which are mapped lazily one after the other as the view
+ * advances. Because a mapping cannot be released explicitly, but only when it is garbage collected, every
+ * region is mapped only once and re-used by subsequent passes, which rewind the view via
+ * {@link #setReadPosition(long)}. The mapped pages are backed by the file and can be evicted by the operating
+ * system at any time.
+ * <p>
+ * The file must not be modified while the view is open.
+ */
+public class MappedFileInputView implements DataInputView
+{
+	/**
+	 * The default size of the regions in which the file is mapped.
+	 */
+	public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final RandomAccessFile file;		// the file that is mapped
+	
+	private final long length;					// the number of bytes readable from the file
+	
+	private final int regionSize;				// the size of the mapped regions
+	
+	private final ByteBuffer[] regions;			// the regions that have been mapped so far
+	
+	private ByteBuffer region;					// the region that is currently read
+	
+	private int regionIndex;					// the index of the region that is currently read
+	
+	private boolean closed;						// flag indicating whether the view is closed
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a new view that reads the first <code>length</code> bytes of the given channel, mapping
+	 * the file in regions of the default size.
+	 * 
+	 * @param channel The channel to read.
+	 * @param length The number of bytes to read from the channel.
+	 * 
+	 * @throws IOException Thrown, if the channel's file could not be opened or mapped.
+	 */
+	public MappedFileInputView(Channel.ID channel, long length) throws IOException
+	{
+		this(channel, length, DEFAULT_REGION_SIZE);
+	}
+	
+	/**
+	 * Creates a new view that reads the first <code>length</code> bytes of the given channel, mapping
+	 * the file in regions of the given size.
+	 * 
+	 * @param channel The channel to read.
+	 * @param length The number of bytes to read from the channel.
+	 * @param regionSize The size of the regions in which the file is mapped.
+	 * 
+	 * @throws IOException Thrown, if the channel's file could not be opened or mapped.
+	 */
+	public MappedFileInputView(Channel.ID channel, long length, int regionSize) throws IOException
+	{
+		if (channel == null)
+			throw new NullPointerException();
+		if (length < 0 || regionSize < 1)
+			throw new IllegalArgumentException();
+		
+		this.file = new RandomAccessFile(channel.getPath(), "r");
+		if (this.file.length() < length) {
+			this.file.close();
+			throw new IOException("The channel's file holds less than the requested " + length + " bytes.");
+		}
+		
+		this.length = length;
+		this.regionSize = regionSize;
+		this.regions = new ByteBuffer[Math.max(1, (int) ((length + regionSize - 1) / regionSize))];
+		switchToRegion(0);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the number of bytes that can be read through this view, counted from the beginning of the file.
+	 * 
+	 * @return The number of readable bytes.
+	 */
+	public long getLength() {
+		return this.length;
+	}
+	
+	/**
+	 * Gets the position in the file from which the next byte will be read.
+	 * 
+	 * @return The current read position.
+	 */
+	public long getReadPosition() {
+		return ((long) this.regionIndex) * this.regionSize + this.region.position();
+	}
+	
+	/**
+	 * Sets the position in the file from which the next byte will be read.
+	 * 
+	 * @param position The new read position.
+	 * 
+	 * @throws IOException Thrown, if the region containing the position could not be mapped.
+	 */
+	public void setReadPosition(long position) throws IOException
+	{
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException();
+		
+		// the end of the data is addressed as the end of the last region
+		final int index = position == this.length ? this.regions.length - 1 : (int) (position / this.regionSize);
+		if (index != this.regionIndex) {
+			switchToRegion(index);
+		}
+		this.region.position((int) (position - ((long) index) * this.regionSize));
+	}
+	
+	/**
+	 * Checks whether this view has been closed.
+	 * 
+	 * @return True, if the view has been closed, false otherwise.
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+	
+	/**
+	 * Closes the view and the underlying file. The mapped regions are not accessed any more after this call
+	 * and are unmapped once they are garbage collected. Until then, they stay mapped and keep the file's disk
+	 * space allocated, even if the file is deleted right after this call.
+	 * 
+	 * @throws IOException Thrown, if the file could not be closed.
+	 */
+	public void close() throws IOException
+	{
+		if (this.closed)
+			return;
+		
+		this.closed = true;
+		for (int i = 0; i < this.regions.length; i++) {
+			this.regions[i] = null;
+		}
+		this.region = ByteBuffer.allocate(0);
+		this.regionIndex = this.regions.length;
+		this.file.close();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                                        Utilities
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Makes the region with the given index the current region, mapping it if it has not been mapped before.
+	 * 
+	 * @param index The index of the region.
+	 * @throws IOException Thrown, if the region could not be mapped.
+	 */
+	private void switchToRegion(int index) throws IOException
+	{
+		if (this.closed) {
+			throw new IOException("The view has been closed.");
+		}
+		
+		ByteBuffer next = this.regions[index];
+		if (next == null) {
+			final long start = ((long) index) * this.regionSize;
+			final int size = (int) Math.min(this.regionSize, this.length - start);
+			next = this.file.getChannel().map(FileChannel.MapMode.READ_ONLY, start, size);
+			this.regions[index] = next;
+		}
+		next.position(0);
+		this.region = next;
+		this.regionIndex = index;
+	}
+	
+	/**
+	 * Moves the view to the next region, if the current one is exhausted.
+	 * 
+	 * @return The current region, with at least one byte remaining.
+	 * @throws EOFException Thrown, if the end of the readable part of the file has been reached.
+	 */
+	private ByteBuffer ensureRemaining() throws IOException
+	{
+		if (this.region.hasRemaining()) {
+			return this.region;
+		}
+		
+		if (this.regionIndex >= this.regions.length - 1) {
+			throw new EOFException();
+		}
+		switchToRegion(this.regionIndex + 1);
+		return this.region;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                               Data Input Specific methods
+	// --------------------------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readFully(byte[])
+	 */
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readFully(byte[], int, int)
+	 */
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException
+	{
+		if (off < 0 || len < 0 || off + len > b.length)
+			throw new IndexOutOfBoundsException();
+		
+		while (len > 0) {
+			final ByteBuffer buffer = ensureRemaining();
+			final int toRead = Math.min(buffer.remaining(), len);
+			buffer.get(b, off, toRead);
+			off += toRead;
+			len -= toRead;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readBoolean()
+	 */
+	@Override
+	public boolean readBoolean() throws IOException {
+		return readByte() == 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readByte()
+	 */
+	@Override
+	public byte readByte() throws IOException {
+		return ensureRemaining().get();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readUnsignedByte()
+	 */
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return readByte() & 0xff;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readShort()
+	 */
+	@Override
+	public short readShort() throws IOException
+	{
+		if (this.region.remaining() >= 2) {
+			return this.region.getShort();
+		} else {
+			return (short) ((readUnsignedByte() << 8) | readUnsignedByte());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readUnsignedShort()
+	 */
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xffff;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readChar()
+	 */
+	@Override
+	public char readChar() throws IOException {
+		return (char) readShort();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readInt()
+	 */
+	@Override
+	public int readInt() throws IOException
+	{
+		if (this.region.remaining() >= 4) {
+			return this.region.getInt();
+		} else {
+			return (readUnsignedByte() << 24) | (readUnsignedByte() << 16) |
+				(readUnsignedByte() << 8) | readUnsignedByte();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readLong()
+	 */
+	@Override
+	public long readLong() throws IOException
+	{
+		if (this.region.remaining() >= 8) {
+			return this.region.getLong();
+		} else {
+			return (((long) readInt()) << 32) | (readInt() & 0xffffffffL);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readFloat()
+	 */
+	@Override
+	public float readFloat() throws IOException {
+		return Float.intBitsToFloat(readInt());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readDouble()
+	 */
+	@Override
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readLine()
+	 */
+	@Override
+	public String readLine() throws IOException
+	{
+		final StringBuilder bld = new StringBuilder(32);
+		
+		try {
+			int b;
+			while ((b = readUnsignedByte()) != '\n') {
+				if (b != '\r')
+					bld.append((char) b);
+			}
+		}
+		catch (EOFException eofex) {}
+
+		if (bld.length() == 0)
+			return null;
+		
+		return bld.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#readUTF()
+	 */
+	@Override
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.DataInput#skipBytes(int)
+	 */
+	@Override
+	public int skipBytes(int n) throws IOException
+	{
+		if (n < 0)
+			throw new IllegalArgumentException();
+		
+		final long position = getReadPosition();
+		final int toSkip = (int) Math.min(n, this.length - position);
+		setReadPosition(position + toSkip);
+		return toSkip;
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.memorymanager.DataInputView#skipBytesToRead(int)
+	 */
+	@Override
+	public void skipBytesToRead(int numBytes) throws IOException
+	{
+		if (numBytes < 0)
+			throw new IllegalArgumentException();
+		
+		final long position = getReadPosition();
+		if (this.length - position < numBytes) {
+			throw new EOFException();
+		}
+		setReadPosition(position + numBytes);
+	}
+}
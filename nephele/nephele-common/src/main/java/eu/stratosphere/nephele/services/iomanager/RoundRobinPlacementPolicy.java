@@ -0,0 +1,36 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+
+/**
+ * A placement policy that cycles through the directories for temporary files, regardless of their load.
+ */
+public class RoundRobinPlacementPolicy implements ChannelPlacementPolicy
+{
+	private volatile int next;			// the index of the next directory to use
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.iomanager.ChannelPlacementPolicy#selectDirectory(eu.stratosphere.nephele.services.iomanager.TempDirectoryStatistics[])
+	 */
+	@Override
+	public int selectDirectory(TempDirectoryStatistics[] directories)
+	{
+		final int current = this.next;
+		this.next = current + 1 >= directories.length ? 0 : current + 1;
+		return current < directories.length ? current : 0;
+	}
+}
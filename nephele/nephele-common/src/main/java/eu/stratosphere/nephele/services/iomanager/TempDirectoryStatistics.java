@@ -0,0 +1,141 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Statistics about one of the I/O manager's directories for temporary files, used by the
+ * {@link ChannelPlacementPolicy} to decide where new channels are created. The statistics cover the requests
+ * that are waiting to be served by the directory's reader and writer threads, the bandwidth observed by these
+ * threads, and the space that is left on the directory's device.
+ */
+public final class TempDirectoryStatistics
+{
+	/**
+	 * The weight of a new bandwidth observation in the smoothed bandwidth.
+	 */
+	private static final double BANDWIDTH_SMOOTHING_FACTOR = 0.2;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final String path;							// the path of the directory
+	
+	private final File directory;						// the directory, to determine the free space
+	
+	private final List<RequestQueue<?>> queues;			// the request queues of the directory's threads
+	
+	private double bytesPerNano;						// the smoothed bandwidth, zero if not yet observed
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates the statistics for the given directory, initially without any request queues.
+	 * 
+	 * @param path The path of the directory.
+	 */
+	TempDirectoryStatistics(String path)
+	{
+		this.path = path;
+		this.directory = new File(path);
+		this.queues = new ArrayList<RequestQueue<?>>();
+	}
+	
+	/**
+	 * Adds the request queue of one of the threads that serve this directory.
+	 * 
+	 * @param queue The request queue.
+	 */
+	void addRequestQueue(RequestQueue<?> queue)
+	{
+		this.queues.add(queue);
+	}
+	
+	/**
+	 * Records a transfer that has been served by one of the threads of this directory.
+	 * 
+	 * @param numBytes The number of bytes that were read or written.
+	 * @param nanos The time that the transfer took, in nanoseconds.
+	 */
+	synchronized void recordTransfer(long numBytes, long nanos)
+	{
+		if (numBytes <= 0 || nanos <= 0) {
+			return;
+		}
+		
+		final double observed = numBytes / (double) nanos;
+		this.bytesPerNano = this.bytesPerNano == 0.0 ? observed :
+			(1.0 - BANDWIDTH_SMOOTHING_FACTOR) * this.bytesPerNano + BANDWIDTH_SMOOTHING_FACTOR * observed;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the path of the directory.
+	 * 
+	 * @return The path of the directory.
+	 */
+	public String getPath() {
+		return this.path;
+	}
+	
+	/**
+	 * Gets the number of read and write requests that are currently waiting to be served by the
+	 * threads of this directory.
+	 * 
+	 * @return The number of outstanding requests.
+	 */
+	public int getNumOutstandingRequests()
+	{
+		int num = 0;
+		for (int i = 0; i < this.queues.size(); i++) {
+			num += this.queues.get(i).size();
+		}
+		return num;
+	}
+	
+	/**
+	 * Gets the bandwidth observed for the requests served by the threads of this directory, smoothed
+	 * over the recent transfers.
+	 * 
+	 * @return The bandwidth in bytes per second, or <code>0</code>, if no transfer has been observed yet.
+	 */
+	public synchronized double getBandwidth() {
+		return this.bytesPerNano * 1000000000.0;
+	}
+	
+	/**
+	 * Gets the number of bytes that are available on the directory's device.
+	 * 
+	 * @return The number of usable bytes, or <code>0</code>, if the directory does not exist.
+	 */
+	public long getUsableSpace() {
+		return this.directory.getUsableSpace();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return this.path + " (" + getNumOutstandingRequests() + " outstanding requests, " +
+			(long) (getBandwidth() / (1024 * 1024)) + " MiBytes/s, " + (getUsableSpace() >>> 20) + " MiBytes free)";
+	}
+}
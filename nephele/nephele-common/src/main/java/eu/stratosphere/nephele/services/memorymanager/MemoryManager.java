@@ -42,6 +42,26 @@ public interface MemoryManager
 	
 	void allocatePages(AbstractInvokable owner, List<MemorySegment> target, long numBytes) throws MemoryAllocationException;
 	
+	/**
+	 * Allocates between <code>minPages</code> and <code>maxPages</code> pages for the given owner. The minimum is
+	 * allocated like in {@link #allocatePages(AbstractInvokable, List, int)} and causes an exception, if it cannot
+	 * be served. The pages beyond the minimum are only handed out from the memory that the owner gave back through
+	 * {@link #releaseToOwner(Collection)} and only as far as they are currently free. Because an owner can only
+	 * grow into memory it held before, it never exceeds the memory that was assigned to it.
+	 * <p>
+	 * Regular allocations draw from the reclaimable memory of their owner first, such that memory that is handed out
+	 * again in the regular way cannot be reclaimed a second time.
+	 * 
+	 * @param owner The owner to allocate the pages for.
+	 * @param target The list into which to put the allocated pages.
+	 * @param minPages The number of pages that must be allocated.
+	 * @param maxPages The number of pages that the consumer would like to have.
+	 * @return The number of pages that were allocated, between <code>minPages</code> and <code>maxPages</code>.
+	 * @throws MemoryAllocationException Thrown, if the minimum number of pages cannot be allocated.
+	 */
+	int allocatePages(AbstractInvokable owner, List<MemorySegment> target, int minPages, int maxPages)
+	throws MemoryAllocationException;
+	
 	/**
 	 * Tries to release the memory for the specified segment. If the <code>segment</code> has already been released or
 	 * is <code>null</code>, the request is simply ignored. If the segment is not from the expected
@@ -62,6 +82,29 @@ public interface MemoryManager
 	 */
 	<T extends MemorySegment> void release(Collection<T> segments);
 	
+	/**
+	 * Releases the given segments like {@link #release(Collection)}, but lets their owners take the same number
+	 * of pages back later through {@link #allocatePages(AbstractInvokable, List, int, int)}. Consumers call this
+	 * method when they are done with memory that belongs to the budget of their owner, such that other consumers
+	 * of the same owner can grow into it. The memory is free in the meantime, so this is no guarantee that it
+	 * can actually be reclaimed. The claims of an owner end with {@link #releaseAll(AbstractInvokable)}.
+	 * 
+	 * @param <T> The type of memory segment.
+	 * @param segments The segments to be released.
+	 * @throws NullPointerException Thrown, if the given collection is null.
+	 * @throws IllegalArgumentException Thrown, id the segments are of an incompatible type.
+	 */
+	<T extends MemorySegment> void releaseToOwner(Collection<T> segments);
+	
+	/**
+	 * Gets the number of pages that the given owner released through {@link #releaseToOwner(Collection)} and has
+	 * not yet taken back.
+	 * 
+	 * @param owner The owner whose reclaimable pages to count.
+	 * @return The number of pages the owner can reclaim, if they are free.
+	 */
+	int getNumberOfReclaimablePages(AbstractInvokable owner);
+	
 	/**
 	 * Releases all memory segments for the given task. 
 	 * 
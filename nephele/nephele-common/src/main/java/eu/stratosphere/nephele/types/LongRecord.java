@@ -0,0 +1,110 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.nephele.types;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This class represents record for long values.
+ */
+public class LongRecord implements Record {
+
+	/**
+	 * The long value represented by the record.
+	 */
+	private long value = 0L;
+
+	/**
+	 * Constructs a new long record with the given long value.
+	 * 
+	 * @param value
+	 *        the long value this record should wrap up
+	 */
+	public LongRecord(final long value) {
+		this.value = value;
+	}
+
+	/**
+	 * Constructs an empty long record (Mainly used for
+	 * serialization, do not call this constructor in your program).
+	 */
+	public LongRecord() {
+	}
+
+	/**
+	 * Returns the value of this long record.
+	 * 
+	 * @return the value of this long record
+	 */
+	public long getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Set the value of this long record.
+	 * 
+	 * @param value
+	 *        the new value for this long record
+	 */
+	public void setValue(final long value) {
+		this.value = value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		// Simply read the value from the stream
+		this.value = in.readLong();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		// Simply write the value to the stream
+		out.writeLong(this.value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+
+		if (!(obj instanceof LongRecord)) {
+			return false;
+		}
+
+		final LongRecord lr = (LongRecord) obj;
+
+		return (this.value == lr.value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		return (int) (this.value ^ (this.value >>> 32));
+	}
+}
@@ -16,8 +16,11 @@
 package eu.stratosphere.nephele.io;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -62,4 +65,39 @@ public class AbstractIDTest {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Tests that IDs which share their upper part and only differ in small numbers encoded in the two halves of their
+	 * lower part, like the channel IDs derived by the execution graph, have well distributed hash codes.
+	 */
+	@Test
+	public void testHashCodeOfDerivedIDs() {
+
+		final long upperPart = 0x0123456789abcdefL;
+		final int n = 64;
+
+		final Set<Integer> hashCodes = new HashSet<Integer>();
+		for (int i = 0; i < n; ++i) {
+			for (int j = 0; j < n; ++j) {
+				hashCodes.add(Integer.valueOf(new ChannelID((((long) i) << 32) | j, upperPart).hashCode()));
+			}
+		}
+
+		// Hashing only the XOR of the two halves would yield n distinct hash codes
+		assertTrue("Only " + hashCodes.size() + " distinct hash codes for " + (n * n) + " IDs",
+			hashCodes.size() > n * n * 99 / 100);
+	}
+
+	/**
+	 * Tests that equal IDs have equal hash codes and that the hash code depends on both parts of the ID.
+	 */
+	@Test
+	public void testHashCodeUsesBothParts() {
+
+		final ChannelID id = new ChannelID(17L, 42L);
+
+		assertEquals(id.hashCode(), new ChannelID(17L, 42L).hashCode());
+		assertTrue(id.hashCode() != new ChannelID(17L, 43L).hashCode());
+		assertTrue(id.hashCode() != new ChannelID(18L, 42L).hashCode());
+	}
 }
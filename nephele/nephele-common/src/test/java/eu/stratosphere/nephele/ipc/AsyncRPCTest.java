@@ -0,0 +1,215 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.protocols.VersionedProtocol;
+import eu.stratosphere.nephele.types.IntegerRecord;
+
+/**
+ * This class contains tests for the asynchronous mode of the {@link RPC} proxies.
+ */
+public class AsyncRPCTest {
+
+	/**
+	 * The number of calls the tests keep in flight at a time.
+	 */
+	private static final int NUMBER_OF_CALLS = 1000;
+
+	/**
+	 * The protocol used by the tests.
+	 */
+	public static interface AsyncTestProtocol extends VersionedProtocol {
+
+		IntegerRecord increment(IntegerRecord value) throws IOException;
+
+		void add(IntegerRecord value) throws IOException;
+
+		IntegerRecord fail(IntegerRecord value) throws IOException;
+	}
+
+	/**
+	 * The server-side implementation of the test protocol.
+	 */
+	public static class AsyncTestProtocolImpl implements AsyncTestProtocol {
+
+		private final AtomicInteger sum = new AtomicInteger(0);
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public IntegerRecord increment(final IntegerRecord value) {
+
+			return new IntegerRecord(value.getValue() + 1);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void add(final IntegerRecord value) {
+
+			this.sum.addAndGet(value.getValue());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public IntegerRecord fail(final IntegerRecord value) throws IOException {
+
+			throw new IOException("Failure " + value.getValue());
+		}
+	}
+
+	private static AsyncTestProtocolImpl impl;
+
+	private static RPC.Server server;
+
+	private static InetSocketAddress address;
+
+	/**
+	 * Starts the RPC server for the tests.
+	 * 
+	 * @throws IOException
+	 *         thrown if the server cannot be started
+	 */
+	@BeforeClass
+	public static void startServer() throws IOException {
+
+		impl = new AsyncTestProtocolImpl();
+		server = RPC.getServer(impl, "localhost", 0, 4);
+		server.start();
+		address = new InetSocketAddress("localhost", server.getListenerAddress().getPort());
+	}
+
+	/**
+	 * Stops the RPC server.
+	 */
+	@AfterClass
+	public static void stopServer() {
+
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	/**
+	 * Tests that many asynchronous calls can be in flight on one connection and that each future completes with the
+	 * return value of its own call.
+	 */
+	@Test
+	public void testInFlightCalls() throws Exception {
+
+		final AsyncTestProtocol proxy = RPC.getAsyncProxy(AsyncTestProtocol.class, address);
+		try {
+			final List<Future<IntegerRecord>> futures = new ArrayList<Future<IntegerRecord>>(NUMBER_OF_CALLS);
+			for (int i = 0; i < NUMBER_OF_CALLS; ++i) {
+				assertNull(proxy.increment(new IntegerRecord(i)));
+				final Future<IntegerRecord> future = RPC.getLastCallFuture();
+				futures.add(future);
+			}
+
+			for (int i = 0; i < NUMBER_OF_CALLS; ++i) {
+				assertEquals(i + 1, futures.get(i).get(10, TimeUnit.SECONDS).getValue());
+			}
+		} finally {
+			RPC.stopProxy(proxy);
+		}
+	}
+
+	/**
+	 * Tests that fire-and-forget calls are all delivered and interleave correctly with synchronous calls on the same
+	 * connection.
+	 */
+	@Test
+	public void testFireAndForgetCalls() throws Exception {
+
+		final AsyncTestProtocol asyncProxy = RPC.getAsyncProxy(AsyncTestProtocol.class, address);
+		final AsyncTestProtocol proxy = RPC.getProxy(AsyncTestProtocol.class, address);
+		try {
+			final int before = impl.sum.get();
+			Future<IntegerRecord> last = null;
+			for (int i = 0; i < NUMBER_OF_CALLS; ++i) {
+				asyncProxy.add(new IntegerRecord(1));
+				last = RPC.getLastCallFuture();
+			}
+
+			assertEquals(42, proxy.increment(new IntegerRecord(41)).getValue());
+
+			// The handlers run in parallel, so the last response does not imply that all calls have been processed
+			last.get(10, TimeUnit.SECONDS);
+			final long deadline = System.currentTimeMillis() + 10000L;
+			while (impl.sum.get() - before < NUMBER_OF_CALLS && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+
+			assertEquals(NUMBER_OF_CALLS, impl.sum.get() - before);
+		} finally {
+			RPC.stopProxy(asyncProxy);
+			RPC.stopProxy(proxy);
+		}
+	}
+
+	/**
+	 * Tests that an exception thrown by the remote method completes the future instead of leaving the caller waiting.
+	 */
+	@Test
+	public void testRemoteException() throws Exception {
+
+		final AsyncTestProtocol asyncProxy = RPC.getAsyncProxy(AsyncTestProtocol.class, address);
+		final AsyncTestProtocol proxy = RPC.getProxy(AsyncTestProtocol.class, address);
+		try {
+			asyncProxy.fail(new IntegerRecord(7));
+			final Future<IntegerRecord> future = RPC.getLastCallFuture();
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Future did not report the remote exception");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RemoteException);
+				assertTrue(e.getCause().getMessage().contains("Failure 7"));
+			}
+
+			try {
+				proxy.fail(new IntegerRecord(8));
+				fail("Synchronous call did not report the remote exception");
+			} catch (RemoteException e) {
+				assertTrue(e.getMessage().contains("Failure 8"));
+			}
+		} finally {
+			RPC.stopProxy(asyncProxy);
+			RPC.stopProxy(proxy);
+		}
+	}
+}
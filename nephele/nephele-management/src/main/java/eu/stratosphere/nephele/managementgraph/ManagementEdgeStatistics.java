@@ -0,0 +1,254 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.managementgraph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.nephele.io.IOReadableWritable;
+
+/**
+ * A management edge statistics object is a snapshot of the transfer statistics of one end of a {@link ManagementEdge},
+ * i.e. either of the output channel at the edge's source or of the input channel at the edge's target. The counters
+ * are cumulative since the start of the respective task, so throughput and backpressure can be derived by comparing
+ * two snapshots taken at different points in time.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class ManagementEdgeStatistics implements IOReadableWritable {
+
+	/**
+	 * The ID of the management edge the statistics belong to.
+	 */
+	private ManagementEdgeID edgeID;
+
+	/**
+	 * <code>true</code> if the statistics have been collected at the input channel, <code>false</code> if they have
+	 * been collected at the output channel.
+	 */
+	private boolean isInputChannel;
+
+	/**
+	 * The time stamp at which the statistics have been collected.
+	 */
+	private long timestamp;
+
+	/**
+	 * The number of records transferred through the channel.
+	 */
+	private long numberOfRecords;
+
+	/**
+	 * The number of bytes transferred through the channel.
+	 */
+	private long numberOfBytes;
+
+	/**
+	 * The number of buffers transferred through the channel.
+	 */
+	private long numberOfBuffers;
+
+	/**
+	 * The time in milliseconds the task waited for an empty buffer to write to the channel.
+	 */
+	private long bufferWaitTime;
+
+	/**
+	 * The time in milliseconds the task waited for the channel to provide input.
+	 */
+	private long inputWaitTime;
+
+	/**
+	 * The number of envelopes currently queued at the channel.
+	 */
+	private int numberOfQueuedEnvelopes;
+
+	/**
+	 * Constructs a new management edge statistics object.
+	 * 
+	 * @param edgeID
+	 *        the ID of the management edge the statistics belong to
+	 * @param isInputChannel
+	 *        <code>true</code> if the statistics have been collected at the input channel, <code>false</code> if they
+	 *        have been collected at the output channel
+	 * @param timestamp
+	 *        the time stamp at which the statistics have been collected
+	 * @param numberOfRecords
+	 *        the number of records transferred through the channel
+	 * @param numberOfBytes
+	 *        the number of bytes transferred through the channel
+	 * @param numberOfBuffers
+	 *        the number of buffers transferred through the channel
+	 * @param bufferWaitTime
+	 *        the time in milliseconds the task waited for an empty buffer to write to the channel
+	 * @param inputWaitTime
+	 *        the time in milliseconds the task waited for the channel to provide input
+	 * @param numberOfQueuedEnvelopes
+	 *        the number of envelopes currently queued at the channel
+	 */
+	public ManagementEdgeStatistics(final ManagementEdgeID edgeID, final boolean isInputChannel, final long timestamp,
+			final long numberOfRecords, final long numberOfBytes, final long numberOfBuffers,
+			final long bufferWaitTime, final long inputWaitTime, final int numberOfQueuedEnvelopes) {
+
+		if (edgeID == null) {
+			throw new IllegalArgumentException("Argument edgeID must not be null");
+		}
+
+		this.edgeID = edgeID;
+		this.isInputChannel = isInputChannel;
+		this.timestamp = timestamp;
+		this.numberOfRecords = numberOfRecords;
+		this.numberOfBytes = numberOfBytes;
+		this.numberOfBuffers = numberOfBuffers;
+		this.bufferWaitTime = bufferWaitTime;
+		this.inputWaitTime = inputWaitTime;
+		this.numberOfQueuedEnvelopes = numberOfQueuedEnvelopes;
+	}
+
+	/**
+	 * Default constructor required by the deserialization.
+	 */
+	public ManagementEdgeStatistics() {
+	}
+
+	/**
+	 * Returns the ID of the management edge the statistics belong to.
+	 * 
+	 * @return the ID of the management edge the statistics belong to
+	 */
+	public ManagementEdgeID getEdgeID() {
+
+		return this.edgeID;
+	}
+
+	/**
+	 * Checks whether the statistics have been collected at the input or at the output channel of the edge.
+	 * 
+	 * @return <code>true</code> if the statistics have been collected at the input channel, <code>false</code> if they
+	 *         have been collected at the output channel
+	 */
+	public boolean isInputChannel() {
+
+		return this.isInputChannel;
+	}
+
+	/**
+	 * Returns the time stamp at which the statistics have been collected.
+	 * 
+	 * @return the time stamp at which the statistics have been collected
+	 */
+	public long getTimestamp() {
+
+		return this.timestamp;
+	}
+
+	/**
+	 * Returns the number of records transferred through the channel.
+	 * 
+	 * @return the number of records transferred through the channel
+	 */
+	public long getNumberOfRecords() {
+
+		return this.numberOfRecords;
+	}
+
+	/**
+	 * Returns the number of bytes transferred through the channel.
+	 * 
+	 * @return the number of bytes transferred through the channel
+	 */
+	public long getNumberOfBytes() {
+
+		return this.numberOfBytes;
+	}
+
+	/**
+	 * Returns the number of buffers transferred through the channel.
+	 * 
+	 * @return the number of buffers transferred through the channel
+	 */
+	public long getNumberOfBuffers() {
+
+		return this.numberOfBuffers;
+	}
+
+	/**
+	 * Returns the time the task waited for an empty buffer to write to the channel. A high value indicates that the
+	 * consumers of the channel exert backpressure.
+	 * 
+	 * @return the time the task waited for an empty buffer in milliseconds
+	 */
+	public long getBufferWaitTime() {
+
+		return this.bufferWaitTime;
+	}
+
+	/**
+	 * Returns the time the task waited for the channel to provide input. A high value indicates a slow producer.
+	 * 
+	 * @return the time the task waited for input in milliseconds
+	 */
+	public long getInputWaitTime() {
+
+		return this.inputWaitTime;
+	}
+
+	/**
+	 * Returns the number of envelopes currently queued at the channel.
+	 * 
+	 * @return the number of envelopes currently queued at the channel
+	 */
+	public int getNumberOfQueuedEnvelopes() {
+
+		return this.numberOfQueuedEnvelopes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		this.edgeID.write(out);
+		out.writeBoolean(this.isInputChannel);
+		out.writeLong(this.timestamp);
+		out.writeLong(this.numberOfRecords);
+		out.writeLong(this.numberOfBytes);
+		out.writeLong(this.numberOfBuffers);
+		out.writeLong(this.bufferWaitTime);
+		out.writeLong(this.inputWaitTime);
+		out.writeInt(this.numberOfQueuedEnvelopes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.edgeID = new ManagementEdgeID();
+		this.edgeID.read(in);
+		this.isInputChannel = in.readBoolean();
+		this.timestamp = in.readLong();
+		this.numberOfRecords = in.readLong();
+		this.numberOfBytes = in.readLong();
+		this.numberOfBuffers = in.readLong();
+		this.bufferWaitTime = in.readLong();
+		this.inputWaitTime = in.readLong();
+		this.numberOfQueuedEnvelopes = in.readInt();
+	}
+}
@@ -0,0 +1,193 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.profiling.types;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
+import eu.stratosphere.nephele.types.StringRecord;
+
+/**
+ * Through this interface it is possible to access the stack samples which have been taken from the threads of the
+ * corresponding task during the profiling interval. The samples are provided in two aggregated forms: the number of
+ * samples attributed to each runtime component (for example the user code, the sorter or the network) and the number
+ * of samples per distinct call stack. Call stacks are given in the collapsed format used by flame graph tools, i.e. the
+ * frames from the outermost to the innermost one, separated by semicolons.
+ */
+public class StackSamplingProfilingEvent extends VertexProfilingEvent {
+
+	private int numberOfSamples;
+
+	private Map<String, Integer> componentSamples;
+
+	private Map<String, Integer> stackSamples;
+
+	public StackSamplingProfilingEvent(final int numberOfSamples, final Map<String, Integer> componentSamples,
+			final Map<String, Integer> stackSamples, final ManagementVertexID vertexID, final int profilingInterval,
+			final JobID jobID, final long timestamp, final long profilingTimestamp) {
+		super(vertexID, profilingInterval, jobID, timestamp, profilingTimestamp);
+
+		this.numberOfSamples = numberOfSamples;
+		this.componentSamples = componentSamples;
+		this.stackSamples = stackSamples;
+	}
+
+	public StackSamplingProfilingEvent() {
+		super();
+	}
+
+	/**
+	 * Returns the total number of stack samples taken from the task's threads in the given profiling interval.
+	 * 
+	 * @return the total number of stack samples
+	 */
+	public int getNumberOfSamples() {
+		return this.numberOfSamples;
+	}
+
+	/**
+	 * Returns the number of stack samples attributed to each runtime component in the given profiling interval.
+	 * 
+	 * @return an unmodifiable map from the name of the component to the number of samples attributed to it
+	 */
+	public Map<String, Integer> getComponentSamples() {
+		return Collections.unmodifiableMap(this.componentSamples);
+	}
+
+	/**
+	 * Returns the number of stack samples per distinct call stack in the given profiling interval. The call stacks are
+	 * given in the collapsed flame graph format.
+	 * 
+	 * @return an unmodifiable map from the collapsed call stack to the number of samples of this call stack
+	 */
+	public Map<String, Integer> getStackSamples() {
+		return Collections.unmodifiableMap(this.stackSamples);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void read(final DataInput in) throws IOException {
+		super.read(in);
+
+		this.numberOfSamples = in.readInt();
+		this.componentSamples = readSamples(in);
+		this.stackSamples = readSamples(in);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		super.write(out);
+
+		out.writeInt(this.numberOfSamples);
+		writeSamples(out, this.componentSamples);
+		writeSamples(out, this.stackSamples);
+	}
+
+	/**
+	 * Reads a map of sample counts from the given stream.
+	 * 
+	 * @param in
+	 *        the stream to read the map from
+	 * @return the map read from the stream
+	 * @throws IOException
+	 *         thrown if an error occurs while reading from the stream
+	 */
+	private static Map<String, Integer> readSamples(final DataInput in) throws IOException {
+
+		final int size = in.readInt();
+		final Map<String, Integer> samples = new HashMap<String, Integer>(size * 2);
+		for (int i = 0; i < size; ++i) {
+			final String key = StringRecord.readString(in);
+			samples.put(key, Integer.valueOf(in.readInt()));
+		}
+
+		return samples;
+	}
+
+	/**
+	 * Writes a map of sample counts to the given stream.
+	 * 
+	 * @param out
+	 *        the stream to write the map to
+	 * @param samples
+	 *        the map to write
+	 * @throws IOException
+	 *         thrown if an error occurs while writing to the stream
+	 */
+	private static void writeSamples(final DataOutput out, final Map<String, Integer> samples) throws IOException {
+
+		out.writeInt(samples.size());
+		final Iterator<Map.Entry<String, Integer>> it = samples.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<String, Integer> entry = it.next();
+			StringRecord.writeString(out, entry.getKey());
+			out.writeInt(entry.getValue().intValue());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+
+		if (!super.equals(obj)) {
+			return false;
+		}
+
+		if (!(obj instanceof StackSamplingProfilingEvent)) {
+			return false;
+		}
+
+		final StackSamplingProfilingEvent stackSamplingProfilingEvent = (StackSamplingProfilingEvent) obj;
+
+		if (this.numberOfSamples != stackSamplingProfilingEvent.getNumberOfSamples()) {
+			return false;
+		}
+
+		if (!this.componentSamples.equals(stackSamplingProfilingEvent.componentSamples)) {
+			return false;
+		}
+
+		if (!this.stackSamples.equals(stackSamplingProfilingEvent.stackSamples)) {
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		return super.hashCode();
+	}
+}
@@ -24,6 +24,7 @@ import eu.stratosphere.nephele.event.job.RecentJobEvent;
 import eu.stratosphere.nephele.instance.InstanceType;
 import eu.stratosphere.nephele.instance.InstanceTypeDescription;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.managementgraph.ManagementGraph;
 import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
 import eu.stratosphere.nephele.topology.NetworkTopology;
@@ -129,4 +130,18 @@ public interface ExtendedManagementProtocol extends JobManagementProtocol {
 	 *         throws if an error occurs while transmitting the request
 	 */
 	void logBufferUtilization(JobID jobID) throws IOException;
+
+	/**
+	 * Returns the current transfer statistics of all channels of the job with the given ID. For each channel the list
+	 * contains the cumulative number of records, bytes, and buffers transferred so far, the time the task spent
+	 * waiting for an empty buffer or for input, as well as the number of envelopes currently queued at the channel.
+	 * Each management edge may therefore be reported twice, once for its output and once for its input channel.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to return the channel statistics for
+	 * @return the current transfer statistics of the job's channels
+	 * @throws IOException
+	 *         thrown if an error occurs while collecting the statistics
+	 */
+	List<ManagementEdgeStatistics> getChannelStatistics(JobID jobID) throws IOException;
 }
@@ -21,6 +21,7 @@ import java.util.Iterator;
 
 import org.junit.Test;
 
+import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.compression.CompressionLevel;
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -362,6 +363,28 @@ public class ManagementGraphTest {
 		checkManagementVertexOrder(it, expectedOrder);
 	}
 
+	/**
+	 * Tests serialization/deserialization for {@link ManagementEdgeStatistics}.
+	 */
+	@Test
+	public void testManagementEdgeStatistics() {
+
+		final ManagementEdgeStatistics orig = new ManagementEdgeStatistics(new ManagementEdgeID(new ChannelID()), true,
+			1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7);
+
+		final ManagementEdgeStatistics copy = (ManagementEdgeStatistics) ManagementTestUtils.createCopy(orig);
+
+		assertEquals(orig.getEdgeID(), copy.getEdgeID());
+		assertEquals(orig.isInputChannel(), copy.isInputChannel());
+		assertEquals(orig.getTimestamp(), copy.getTimestamp());
+		assertEquals(orig.getNumberOfRecords(), copy.getNumberOfRecords());
+		assertEquals(orig.getNumberOfBytes(), copy.getNumberOfBytes());
+		assertEquals(orig.getNumberOfBuffers(), copy.getNumberOfBuffers());
+		assertEquals(orig.getBufferWaitTime(), copy.getBufferWaitTime());
+		assertEquals(orig.getInputWaitTime(), copy.getInputWaitTime());
+		assertEquals(orig.getNumberOfQueuedEnvelopes(), copy.getNumberOfQueuedEnvelopes());
+	}
+
 	/**
 	 * This test checks the correctness of the {@link ManagementGroupVertexIterator}. In particular it checks whether
 	 * the
@@ -18,6 +18,9 @@ package eu.stratosphere.nephele.profiling.types;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -79,6 +82,8 @@ public class ProfilingTypesTest {
 
 	private static final int WAITED_TIME = 20;
 
+	private static final int NUMBER_OF_SAMPLES = 21;
+
 	/**
 	 * Tests serialization/deserialization for {@link InstanceSummaryProfilingEvent}.
 	 */
@@ -216,4 +221,35 @@ public class ProfilingTypesTest {
 		assertEquals(orig.hashCode(), copy.hashCode());
 		assertTrue(orig.equals(copy));
 	}
+
+	/**
+	 * Tests serialization/deserialization for {@link StackSamplingProfilingEvent}.
+	 */
+	@Test
+	public void testStackSamplingProfilingEvent() {
+
+		final Map<String, Integer> componentSamples = new HashMap<String, Integer>();
+		componentSamples.put("user", Integer.valueOf(15));
+		componentSamples.put("sorter", Integer.valueOf(6));
+
+		final Map<String, Integer> stackSamples = new HashMap<String, Integer>();
+		stackSamples.put("java.lang.Thread.run;a.b.C.invoke", Integer.valueOf(15));
+		stackSamples.put("java.lang.Thread.run;a.b.D.sort", Integer.valueOf(6));
+
+		final StackSamplingProfilingEvent orig = new StackSamplingProfilingEvent(NUMBER_OF_SAMPLES, componentSamples,
+			stackSamples, new ManagementVertexID(), PROFILING_INTERVAL, new JobID(), TIMESTAMP, PROFILING_TIMESTAMP);
+
+		final StackSamplingProfilingEvent copy = (StackSamplingProfilingEvent) ManagementTestUtils.createCopy(orig);
+
+		assertEquals(orig.getNumberOfSamples(), copy.getNumberOfSamples());
+		assertEquals(orig.getComponentSamples(), copy.getComponentSamples());
+		assertEquals(orig.getStackSamples(), copy.getStackSamples());
+		assertEquals(orig.getVertexID(), copy.getVertexID());
+		assertEquals(orig.getProfilingInterval(), copy.getProfilingInterval());
+		assertEquals(orig.getJobID(), copy.getJobID());
+		assertEquals(orig.getTimestamp(), copy.getTimestamp());
+		assertEquals(orig.getProfilingTimestamp(), copy.getProfilingTimestamp());
+		assertEquals(orig.hashCode(), copy.hashCode());
+		assertTrue(orig.equals(copy));
+	}
 }
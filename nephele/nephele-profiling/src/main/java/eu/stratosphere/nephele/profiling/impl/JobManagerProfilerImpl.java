@@ -36,6 +36,7 @@ import eu.stratosphere.nephele.profiling.JobManagerProfiler;
 import eu.stratosphere.nephele.profiling.ProfilingException;
 import eu.stratosphere.nephele.profiling.ProfilingListener;
 import eu.stratosphere.nephele.profiling.ProfilingUtils;
+import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexStackSamplingData;
 import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexThreadProfilingData;
 import eu.stratosphere.nephele.profiling.impl.types.InternalInputGateProfilingData;
 import eu.stratosphere.nephele.profiling.impl.types.InternalInstanceProfilingData;
@@ -46,6 +47,7 @@ import eu.stratosphere.nephele.profiling.types.InputGateProfilingEvent;
 import eu.stratosphere.nephele.profiling.types.InstanceSummaryProfilingEvent;
 import eu.stratosphere.nephele.profiling.types.OutputGateProfilingEvent;
 import eu.stratosphere.nephele.profiling.types.SingleInstanceProfilingEvent;
+import eu.stratosphere.nephele.profiling.types.StackSamplingProfilingEvent;
 import eu.stratosphere.nephele.profiling.types.ThreadProfilingEvent;
 import eu.stratosphere.nephele.util.StringUtils;
 
@@ -146,6 +148,36 @@ public class JobManagerProfilerImpl implements JobManagerProfiler, ProfilerImplP
 		}
 	}
 
+	private void dispatchStackSamplingData(long timestamp, InternalExecutionVertexStackSamplingData profilingData) {
+
+		final long profilingStart = getProfilingStart(profilingData.getJobID());
+		if (profilingStart < 0) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Received profiling data for unregistered job " + profilingData.getJobID());
+			}
+			return;
+		}
+
+		synchronized (this.registeredListeners) {
+
+			final List<ProfilingListener> jobListeners = this.registeredListeners.get(profilingData.getJobID());
+			if (jobListeners == null) {
+				return;
+			}
+
+			final StackSamplingProfilingEvent stackSamplingProfilingEvent = new StackSamplingProfilingEvent(
+				profilingData.getNumberOfSamples(), profilingData.getComponentSamples(),
+				profilingData.getStackSamples(), profilingData.getExecutionVertexID().toManagementVertexID(),
+				profilingData.getProfilingInterval(), profilingData.getJobID(), timestamp,
+				(timestamp - profilingStart));
+
+			final Iterator<ProfilingListener> it = jobListeners.iterator();
+			while (it.hasNext()) {
+				it.next().processProfilingEvents(stackSamplingProfilingEvent);
+			}
+		}
+	}
+
 	private void dispatchInstanceData(long timestamp, InternalInstanceProfilingData profilingData) {
 
 		// Check which of the registered jobs are assigned to that instance
@@ -271,6 +303,8 @@ public class JobManagerProfilerImpl implements JobManagerProfiler, ProfilerImplP
 
 			if (internalProfilingData instanceof InternalExecutionVertexThreadProfilingData) {
 				dispatchThreadData(timestamp, (InternalExecutionVertexThreadProfilingData) internalProfilingData);
+			} else if (internalProfilingData instanceof InternalExecutionVertexStackSamplingData) {
+				dispatchStackSamplingData(timestamp, (InternalExecutionVertexStackSamplingData) internalProfilingData);
 			} else if (internalProfilingData instanceof InternalInstanceProfilingData) {
 				dispatchInstanceData(timestamp, (InternalInstanceProfilingData) internalProfilingData);
 			} else if (internalProfilingData instanceof InternalInputGateProfilingData) {
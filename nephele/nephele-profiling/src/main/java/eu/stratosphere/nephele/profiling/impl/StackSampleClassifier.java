@@ -0,0 +1,190 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.profiling.impl;
+
+import java.lang.management.ThreadInfo;
+
+/**
+ * The stack sample classifier attributes a stack sample to the runtime component the sampled thread is currently
+ * executing. The frames of the sample are inspected from the innermost to the outermost one. Frames of the Java class
+ * library and of general-purpose runtime classes (for example memory segments) are skipped, the first frame belonging
+ * to a known component determines the classification. Frames outside of the Nephele and PACT runtime are attributed
+ * to the user code.
+ */
+final class StackSampleClassifier {
+
+	/**
+	 * The component name for samples taken inside user code.
+	 */
+	static final String USER_CODE = "user code";
+
+	/**
+	 * The component name for samples taken inside a PACT driver.
+	 */
+	static final String DRIVER = "driver";
+
+	/**
+	 * The component name for samples taken inside the sorter.
+	 */
+	static final String SORTER = "sorter";
+
+	/**
+	 * The component name for samples taken inside the hash table.
+	 */
+	static final String HASH_TABLE = "hash table";
+
+	/**
+	 * The component name for samples taken while serializing or deserializing records.
+	 */
+	static final String SERIALIZATION = "serialization";
+
+	/**
+	 * The component name for samples taken while reading or writing spill files.
+	 */
+	static final String DISK_IO = "disk I/O";
+
+	/**
+	 * The component name for samples taken while the thread waits for the network.
+	 */
+	static final String NETWORK_WAIT = "network wait";
+
+	/**
+	 * The component name for samples taken inside the network stack while the thread is running.
+	 */
+	static final String NETWORK = "network";
+
+	/**
+	 * The component name for samples which cannot be attributed to any other component.
+	 */
+	static final String RUNTIME = "runtime";
+
+	/**
+	 * Class name prefixes of the known components. The prefixes are checked in order, so more specific prefixes must
+	 * precede more general ones.
+	 */
+	private static final String[][] COMPONENT_PREFIXES = {
+		{ "eu.stratosphere.nephele.io.channels.serialization.", SERIALIZATION },
+		{ "eu.stratosphere.pact.runtime.plugable.", SERIALIZATION },
+		{ "eu.stratosphere.pact.common.type.", SERIALIZATION },
+		{ "eu.stratosphere.pact.runtime.sort.", SORTER },
+		{ "eu.stratosphere.pact.runtime.hash.", HASH_TABLE },
+		{ "eu.stratosphere.pact.runtime.task.", DRIVER },
+		{ "eu.stratosphere.nephele.services.iomanager.", DISK_IO },
+		{ "eu.stratosphere.nephele.io.", NETWORK },
+		{ "eu.stratosphere.nephele.taskmanager.bytebuffered.", NETWORK },
+	};
+
+	/**
+	 * Class name prefixes of classes which do not determine the classification of a sample.
+	 */
+	private static final String[] NEUTRAL_PREFIXES = { "java.", "javax.", "sun.", "com.sun.", "jdk.",
+		"eu.stratosphere.nephele.services.memorymanager.", "eu.stratosphere.nephele.util.",
+		"eu.stratosphere.pact.runtime.util.", "eu.stratosphere.pact.common.util." };
+
+	/**
+	 * Class name prefixes of the runtime, frames of all other classes are considered user code.
+	 */
+	private static final String[] RUNTIME_PREFIXES = { "eu.stratosphere.nephele.", "eu.stratosphere.pact.runtime.",
+		"eu.stratosphere.pact.common." };
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private StackSampleClassifier() {
+	}
+
+	/**
+	 * Determines the runtime component the given stack sample is attributed to.
+	 * 
+	 * @param threadInfo
+	 *        the stack sample
+	 * @return the name of the component the sample is attributed to
+	 */
+	static String classify(final ThreadInfo threadInfo) {
+
+		final StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+
+		for (int i = 0; i < stackTrace.length; ++i) {
+
+			final String className = stackTrace[i].getClassName();
+			if (startsWithAny(className, NEUTRAL_PREFIXES)) {
+				continue;
+			}
+
+			for (int j = 0; j < COMPONENT_PREFIXES.length; ++j) {
+				if (className.startsWith(COMPONENT_PREFIXES[j][0])) {
+					final String component = COMPONENT_PREFIXES[j][1];
+					if (component == NETWORK && threadInfo.getThreadState() != Thread.State.RUNNABLE) {
+						return NETWORK_WAIT;
+					}
+					return component;
+				}
+			}
+
+			if (!startsWithAny(className, RUNTIME_PREFIXES)) {
+				return USER_CODE;
+			}
+		}
+
+		return RUNTIME;
+	}
+
+	/**
+	 * Converts the given stack sample into the collapsed format used by flame graph tools, i.e. the frames from the
+	 * outermost to the innermost one, separated by semicolons.
+	 * 
+	 * @param threadInfo
+	 *        the stack sample
+	 * @return the collapsed representation of the stack sample
+	 */
+	static String collapse(final ThreadInfo threadInfo) {
+
+		final StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+		final StringBuilder sb = new StringBuilder();
+
+		for (int i = stackTrace.length - 1; i >= 0; --i) {
+			if (sb.length() > 0) {
+				sb.append(';');
+			}
+			sb.append(stackTrace[i].getClassName());
+			sb.append('.');
+			sb.append(stackTrace[i].getMethodName());
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Checks if the given class name starts with any of the given prefixes.
+	 * 
+	 * @param className
+	 *        the class name to check
+	 * @param prefixes
+	 *        the prefixes to check for
+	 * @return <code>true</code> if the class name starts with one of the prefixes, <code>false</code> otherwise
+	 */
+	private static boolean startsWithAny(final String className, final String[] prefixes) {
+
+		for (int i = 0; i < prefixes.length; ++i) {
+			if (className.startsWith(prefixes[i])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,401 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.profiling.impl;
+
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexStackSamplingData;
+import eu.stratosphere.nephele.util.StringUtils;
+
+/**
+ * The stack sampler periodically takes stack samples of the threads of all running tasks. The samples of each task
+ * are classified by the {@link StackSampleClassifier} and aggregated until they are collected by the task manager
+ * profiler, which ships them to the job manager together with the other profiling data.
+ * <p>
+ * This class is thread-safe.
+ */
+final class StackSampler extends Thread {
+
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(StackSampler.class);
+
+	/**
+	 * The key used to report the samples of the stacks which are not reported individually.
+	 */
+	static final String TRUNCATED_STACKS = "[truncated]";
+
+	/**
+	 * The aggregated stack samples of a single task.
+	 */
+	private static final class TaskSamples {
+
+		/**
+		 * The ID of the task's execution vertex.
+		 */
+		private final ExecutionVertexID executionVertexID;
+
+		/**
+		 * The threads of the task.
+		 */
+		private final Set<Thread> threads = new CopyOnWriteArraySet<Thread>();
+
+		/**
+		 * The number of samples per component.
+		 */
+		private Map<String, Integer> componentSamples = new HashMap<String, Integer>();
+
+		/**
+		 * The number of samples per collapsed call stack.
+		 */
+		private Map<String, Integer> stackSamples = new HashMap<String, Integer>();
+
+		/**
+		 * The total number of samples.
+		 */
+		private int numberOfSamples = 0;
+
+		/**
+		 * The time stamp at which the samples have been collected last.
+		 */
+		private long lastCollection;
+
+		/**
+		 * Constructs a new object to aggregate the stack samples of a task.
+		 * 
+		 * @param executionVertexID
+		 *        the ID of the task's execution vertex
+		 */
+		private TaskSamples(final ExecutionVertexID executionVertexID) {
+			this.executionVertexID = executionVertexID;
+			this.lastCollection = System.currentTimeMillis();
+		}
+
+		/**
+		 * Adds a stack sample.
+		 * 
+		 * @param threadInfo
+		 *        the stack sample to add
+		 */
+		private synchronized void addSample(final ThreadInfo threadInfo) {
+
+			increment(this.componentSamples, StackSampleClassifier.classify(threadInfo), 1);
+			increment(this.stackSamples, StackSampleClassifier.collapse(threadInfo), 1);
+			++this.numberOfSamples;
+		}
+
+		/**
+		 * Returns the samples aggregated since the last collection and resets the aggregation.
+		 * 
+		 * @param environment
+		 *        the environment of the task
+		 * @param timestamp
+		 *        the time stamp of the collection
+		 * @param maxStacks
+		 *        the maximum number of distinct call stacks to report
+		 * @return the samples aggregated since the last collection or <code>null</code> if no samples have been taken
+		 */
+		private synchronized InternalExecutionVertexStackSamplingData collect(final Environment environment,
+				final long timestamp, final int maxStacks) {
+
+			if (this.numberOfSamples == 0) {
+				return null;
+			}
+
+			final InternalExecutionVertexStackSamplingData data = new InternalExecutionVertexStackSamplingData(
+				environment.getJobID(), this.executionVertexID, (int) (timestamp - this.lastCollection),
+				this.numberOfSamples, this.componentSamples, truncate(this.stackSamples, maxStacks));
+
+			this.componentSamples = new HashMap<String, Integer>();
+			this.stackSamples = new HashMap<String, Integer>();
+			this.numberOfSamples = 0;
+			this.lastCollection = timestamp;
+
+			return data;
+		}
+	}
+
+	/**
+	 * The thread management interface used to take the stack samples.
+	 */
+	private final ThreadMXBean tmx;
+
+	/**
+	 * The interval between two samples in milliseconds.
+	 */
+	private final long samplingInterval;
+
+	/**
+	 * The maximum number of frames to be included in a sample.
+	 */
+	private final int maxStackDepth;
+
+	/**
+	 * The maximum number of distinct call stacks to be reported per task and profiling interval.
+	 */
+	private final int maxStacks;
+
+	/**
+	 * The aggregated samples of the tasks currently running.
+	 */
+	private final ConcurrentMap<Environment, TaskSamples> tasks = new ConcurrentHashMap<Environment, TaskSamples>();
+
+	/**
+	 * Constructs a new stack sampler.
+	 * 
+	 * @param tmx
+	 *        the thread management interface used to take the stack samples
+	 * @param samplingInterval
+	 *        the interval between two samples in milliseconds
+	 * @param maxStackDepth
+	 *        the maximum number of frames to be included in a sample
+	 * @param maxStacks
+	 *        the maximum number of distinct call stacks to be reported per task and profiling interval
+	 */
+	StackSampler(final ThreadMXBean tmx, final long samplingInterval, final int maxStackDepth, final int maxStacks) {
+		super("Stack sampler");
+
+		this.tmx = tmx;
+		this.samplingInterval = samplingInterval;
+		this.maxStackDepth = maxStackDepth;
+		this.maxStacks = maxStacks;
+
+		setDaemon(true);
+	}
+
+	/**
+	 * Registers the main thread of a task for sampling.
+	 * 
+	 * @param environment
+	 *        the environment of the task
+	 * @param thread
+	 *        the main thread of the task
+	 * @param executionVertexID
+	 *        the ID of the task's execution vertex
+	 */
+	void registerMainThread(final Environment environment, final Thread thread,
+			final ExecutionVertexID executionVertexID) {
+
+		final TaskSamples taskSamples = new TaskSamples(executionVertexID);
+		taskSamples.threads.add(thread);
+		this.tasks.put(environment, taskSamples);
+	}
+
+	/**
+	 * Registers a user thread of a task for sampling.
+	 * 
+	 * @param environment
+	 *        the environment of the task
+	 * @param userThread
+	 *        the user thread
+	 */
+	void registerUserThread(final Environment environment, final Thread userThread) {
+
+		final TaskSamples taskSamples = this.tasks.get(environment);
+		if (taskSamples != null) {
+			taskSamples.threads.add(userThread);
+		}
+	}
+
+	/**
+	 * Unregisters a user thread of a task from sampling.
+	 * 
+	 * @param environment
+	 *        the environment of the task
+	 * @param userThread
+	 *        the user thread
+	 */
+	void unregisterUserThread(final Environment environment, final Thread userThread) {
+
+		final TaskSamples taskSamples = this.tasks.get(environment);
+		if (taskSamples != null) {
+			taskSamples.threads.remove(userThread);
+		}
+	}
+
+	/**
+	 * Unregisters a task from sampling.
+	 * 
+	 * @param environment
+	 *        the environment of the task
+	 * @param timestamp
+	 *        the current time stamp
+	 * @return the samples of the task which have not been collected yet or <code>null</code> if there are no such
+	 *         samples
+	 */
+	InternalExecutionVertexStackSamplingData unregisterMainThread(final Environment environment,
+			final long timestamp) {
+
+		final TaskSamples taskSamples = this.tasks.remove(environment);
+		if (taskSamples == null) {
+			return null;
+		}
+
+		return taskSamples.collect(environment, timestamp, this.maxStacks);
+	}
+
+	/**
+	 * Collects the samples of all tasks taken since the last collection.
+	 * 
+	 * @param timestamp
+	 *        the current time stamp
+	 * @param samples
+	 *        the list to add the samples of the individual tasks to
+	 */
+	void collect(final long timestamp, final List<InternalExecutionVertexStackSamplingData> samples) {
+
+		final Iterator<Map.Entry<Environment, TaskSamples>> it = this.tasks.entrySet().iterator();
+		while (it.hasNext()) {
+
+			final Map.Entry<Environment, TaskSamples> entry = it.next();
+			final InternalExecutionVertexStackSamplingData data = entry.getValue().collect(entry.getKey(), timestamp,
+				this.maxStacks);
+			if (data != null) {
+				samples.add(data);
+			}
+		}
+	}
+
+	/**
+	 * Stops the sampler.
+	 */
+	void shutdown() {
+
+		interrupt();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run() {
+
+		while (!isInterrupted()) {
+
+			try {
+				Thread.sleep(this.samplingInterval);
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			try {
+				sample();
+			} catch (Exception e) {
+				LOG.error(StringUtils.stringifyException(e));
+			}
+		}
+	}
+
+	/**
+	 * Takes a stack sample of every registered thread.
+	 */
+	void sample() {
+
+		final Iterator<TaskSamples> it = this.tasks.values().iterator();
+		while (it.hasNext()) {
+
+			final TaskSamples taskSamples = it.next();
+
+			final List<Thread> threads = new ArrayList<Thread>(taskSamples.threads);
+			final long[] threadIDs = new long[threads.size()];
+			for (int i = 0; i < threadIDs.length; ++i) {
+				threadIDs[i] = threads.get(i).getId();
+			}
+
+			final ThreadInfo[] threadInfos = this.tmx.getThreadInfo(threadIDs, this.maxStackDepth);
+			for (int i = 0; i < threadInfos.length; ++i) {
+				// Threads which have terminated in the meantime are reported as null
+				if (threadInfos[i] != null && threadInfos[i].getStackTrace().length > 0) {
+					taskSamples.addSample(threadInfos[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Increments the counter for the given key in the given map.
+	 * 
+	 * @param map
+	 *        the map storing the counters
+	 * @param key
+	 *        the key whose counter shall be incremented
+	 * @param value
+	 *        the value to add to the counter
+	 */
+	private static void increment(final Map<String, Integer> map, final String key, final int value) {
+
+		final Integer count = map.get(key);
+		map.put(key, Integer.valueOf((count == null) ? value : count.intValue() + value));
+	}
+
+	/**
+	 * Reduces the given call stack samples to the given number of most frequent call stacks. The samples of all other
+	 * call stacks are summed up under {@link #TRUNCATED_STACKS}.
+	 * 
+	 * @param stackSamples
+	 *        the call stack samples
+	 * @param maxStacks
+	 *        the maximum number of call stacks to keep
+	 * @return the reduced call stack samples
+	 */
+	static Map<String, Integer> truncate(final Map<String, Integer> stackSamples, final int maxStacks) {
+
+		if (stackSamples.size() <= maxStacks) {
+			return stackSamples;
+		}
+
+		final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(
+			stackSamples.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+
+			@Override
+			public int compare(final Map.Entry<String, Integer> o1, final Map.Entry<String, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+
+		final Map<String, Integer> truncated = new HashMap<String, Integer>();
+		for (int i = 0; i < entries.size(); ++i) {
+			final Map.Entry<String, Integer> entry = entries.get(i);
+			if (i < maxStacks) {
+				truncated.put(entry.getKey(), entry.getValue());
+			} else {
+				increment(truncated, TRUNCATED_STACKS, entry.getValue().intValue());
+			}
+		}
+
+		return truncated;
+	}
+}
@@ -20,8 +20,10 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -39,6 +41,7 @@ import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.profiling.ProfilingException;
 import eu.stratosphere.nephele.profiling.ProfilingUtils;
 import eu.stratosphere.nephele.profiling.TaskManagerProfiler;
+import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexStackSamplingData;
 import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexThreadProfilingData;
 import eu.stratosphere.nephele.profiling.impl.types.InternalInstanceProfilingData;
 import eu.stratosphere.nephele.profiling.impl.types.ProfilingDataContainer;
@@ -49,6 +52,32 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 
 	private static final Log LOG = LogFactory.getLog(TaskManagerProfilerImpl.class);
 
+	/**
+	 * The key to enable the sampling of the task threads' stacks.
+	 */
+	private static final String ENABLE_STACK_SAMPLING_KEY = "taskmanager.profiling.sampling.enable";
+
+	/**
+	 * The key to configure the interval between two stack samples in milliseconds.
+	 */
+	private static final String STACK_SAMPLING_INTERVAL_KEY = "taskmanager.profiling.sampling.interval";
+
+	/**
+	 * The key to configure the maximum number of frames included in a stack sample.
+	 */
+	private static final String STACK_SAMPLING_MAXDEPTH_KEY = "taskmanager.profiling.sampling.maxdepth";
+
+	/**
+	 * The key to configure the maximum number of distinct call stacks reported per task and interval.
+	 */
+	private static final String STACK_SAMPLING_MAXSTACKS_KEY = "taskmanager.profiling.sampling.maxstacks";
+
+	private static final int DEFAULT_STACK_SAMPLING_INTERVAL = 20;
+
+	private static final int DEFAULT_STACK_SAMPLING_MAXDEPTH = 64;
+
+	private static final int DEFAULT_STACK_SAMPLING_MAXSTACKS = 256;
+
 	private final ProfilerImplProtocol jobManagerProfiler;
 
 	private final Timer timer;
@@ -61,6 +90,11 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 
 	private final InstanceProfiler instanceProfiler;
 
+	/**
+	 * The stack sampler or <code>null</code> if stack sampling is disabled.
+	 */
+	private final StackSampler stackSampler;
+
 	private final Map<Environment, EnvironmentThreadSet> monitoredThreads = new HashMap<Environment, EnvironmentThreadSet>();
 
 	public TaskManagerProfilerImpl(InetAddress jobManagerAddress, InstanceConnectionInfo instanceConnectionInfo)
@@ -89,6 +123,17 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 		// Create instance profiler
 		this.instanceProfiler = new InstanceProfiler(instanceConnectionInfo);
 
+		// Create and start the stack sampler if requested
+		if (GlobalConfiguration.getBoolean(ENABLE_STACK_SAMPLING_KEY, false)) {
+			this.stackSampler = new StackSampler(this.tmx, GlobalConfiguration.getInteger(STACK_SAMPLING_INTERVAL_KEY,
+				DEFAULT_STACK_SAMPLING_INTERVAL), GlobalConfiguration.getInteger(STACK_SAMPLING_MAXDEPTH_KEY,
+				DEFAULT_STACK_SAMPLING_MAXDEPTH), GlobalConfiguration.getInteger(STACK_SAMPLING_MAXSTACKS_KEY,
+				DEFAULT_STACK_SAMPLING_MAXSTACKS));
+			this.stackSampler.start();
+		} else {
+			this.stackSampler = null;
+		}
+
 		// Set and trigger timer
 		this.timerInterval = (long) (GlobalConfiguration.getInteger(ProfilingUtils.TASKMANAGER_REPORTINTERVAL_KEY,
 			ProfilingUtils.DEFAULT_TASKMANAGER_REPORTINTERVAL) * 1000);
@@ -123,6 +168,10 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 
 		// Stop the timer task
 		this.timer.cancel();
+
+		if (this.stackSampler != null) {
+			this.stackSampler.shutdown();
+		}
 	}
 
 	@Override
@@ -155,6 +204,13 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 			}
 		}
 
+		// Collect the stack samples taken since the last report
+		List<InternalExecutionVertexStackSamplingData> stackSamplingData = null;
+		if (this.stackSampler != null) {
+			stackSamplingData = new ArrayList<InternalExecutionVertexStackSamplingData>();
+			this.stackSampler.collect(timestamp, stackSamplingData);
+		}
+
 		// Send all queued profiling records to the job manager and clear container
 		synchronized (this.profilingDataContainer) {
 
@@ -162,6 +218,12 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 				this.profilingDataContainer.addProfilingData(instanceProfilingData);
 			}
 
+			if (stackSamplingData != null) {
+				for (final InternalExecutionVertexStackSamplingData data : stackSamplingData) {
+					this.profilingDataContainer.addProfilingData(data);
+				}
+			}
+
 			if (!this.profilingDataContainer.isEmpty()) {
 				try {
 					this.jobManagerProfiler.reportProfilingData(this.profilingDataContainer);
@@ -185,6 +247,10 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 
 			this.monitoredThreads.put(environment, new EnvironmentThreadSet(this.tmx, thread, executionVertexID));
 		}
+
+		if (this.stackSampler != null) {
+			this.stackSampler.registerMainThread(environment, thread, executionVertexID);
+		}
 	}
 
 	public void registerUserThreadForCPUProfiling(Environment environment, Thread userThread) {
@@ -200,6 +266,9 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 			environmentThreadList.addUserThread(this.tmx, userThread);
 		}
 
+		if (this.stackSampler != null) {
+			this.stackSampler.registerUserThread(environment, userThread);
+		}
 	}
 
 	public void unregisterMainThreadFromCPUProfiling(Environment environment, Thread thread) {
@@ -219,6 +288,17 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 				}
 			}
 		}
+
+		if (this.stackSampler != null) {
+			// Make sure the samples taken since the last report are not lost
+			final InternalExecutionVertexStackSamplingData stackSamplingData = this.stackSampler.unregisterMainThread(
+				environment, System.currentTimeMillis());
+			if (stackSamplingData != null) {
+				synchronized (this.profilingDataContainer) {
+					this.profilingDataContainer.addProfilingData(stackSamplingData);
+				}
+			}
+		}
 	}
 
 	public void unregisterUserThreadFromCPUProfiling(Environment environment, Thread userThread) {
@@ -234,5 +314,8 @@ public class TaskManagerProfilerImpl extends TimerTask implements TaskManagerPro
 			environmentThreadSet.removeUserThread(userThread);
 		}
 
+		if (this.stackSampler != null) {
+			this.stackSampler.unregisterUserThread(environment, userThread);
+		}
 	}
 }
@@ -0,0 +1,119 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.profiling.impl.types;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.types.StringRecord;
+
+public class InternalExecutionVertexStackSamplingData extends InternalExecutionVertexProfilingData {
+
+	private int profilingInterval = 0;
+
+	private int numberOfSamples = 0;
+
+	private Map<String, Integer> componentSamples;
+
+	private Map<String, Integer> stackSamples;
+
+	public InternalExecutionVertexStackSamplingData(JobID jobID, ExecutionVertexID executionVertexID,
+			int profilingInterval, int numberOfSamples, Map<String, Integer> componentSamples,
+			Map<String, Integer> stackSamples) {
+
+		super(jobID, executionVertexID);
+
+		this.profilingInterval = profilingInterval;
+		this.numberOfSamples = numberOfSamples;
+		this.componentSamples = componentSamples;
+		this.stackSamples = stackSamples;
+	}
+
+	public InternalExecutionVertexStackSamplingData() {
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+
+		super.read(in);
+
+		this.profilingInterval = in.readInt();
+		this.numberOfSamples = in.readInt();
+		this.componentSamples = readSamples(in);
+		this.stackSamples = readSamples(in);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+
+		super.write(out);
+
+		out.writeInt(this.profilingInterval);
+		out.writeInt(this.numberOfSamples);
+		writeSamples(out, this.componentSamples);
+		writeSamples(out, this.stackSamples);
+	}
+
+	private static Map<String, Integer> readSamples(DataInput in) throws IOException {
+
+		final int size = in.readInt();
+		final Map<String, Integer> samples = new HashMap<String, Integer>(size * 2);
+		for (int i = 0; i < size; ++i) {
+			final String key = StringRecord.readString(in);
+			samples.put(key, Integer.valueOf(in.readInt()));
+		}
+
+		return samples;
+	}
+
+	private static void writeSamples(DataOutput out, Map<String, Integer> samples) throws IOException {
+
+		out.writeInt(samples.size());
+		final Iterator<Map.Entry<String, Integer>> it = samples.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<String, Integer> entry = it.next();
+			StringRecord.writeString(out, entry.getKey());
+			out.writeInt(entry.getValue().intValue());
+		}
+	}
+
+	public int getProfilingInterval() {
+
+		return this.profilingInterval;
+	}
+
+	public int getNumberOfSamples() {
+
+		return this.numberOfSamples;
+	}
+
+	public Map<String, Integer> getComponentSamples() {
+
+		return this.componentSamples;
+	}
+
+	public Map<String, Integer> getStackSamples() {
+
+		return this.stackSamples;
+	}
+}
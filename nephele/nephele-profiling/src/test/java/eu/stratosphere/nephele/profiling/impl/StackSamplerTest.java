@@ -0,0 +1,156 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.profiling.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.profiling.impl.types.InternalExecutionVertexStackSamplingData;
+
+/**
+ * This test checks the aggregation of stack samples by the {@link StackSampler}.
+ */
+public class StackSamplerTest {
+
+	/**
+	 * The number of samples to take in the sampling test.
+	 */
+	private static final int NUMBER_OF_SAMPLES = 20;
+
+	/**
+	 * A thread which waits until it is interrupted.
+	 */
+	private static final class WaitingThread extends Thread {
+
+		@Override
+		public void run() {
+
+			synchronized (this) {
+				try {
+					while (true) {
+						wait();
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the samples of a registered thread are aggregated and handed out exactly once.
+	 */
+	@Test
+	public void testSampling() throws Exception {
+
+		final JobID jobID = new JobID();
+		final ExecutionVertexID vertexID = new ExecutionVertexID();
+		final Environment environment = mock(Environment.class);
+		when(environment.getJobID()).thenReturn(jobID);
+
+		final WaitingThread thread = new WaitingThread();
+		thread.start();
+
+		try {
+			final StackSampler sampler = new StackSampler(ManagementFactory.getThreadMXBean(), 10L, 64, 16);
+			sampler.registerMainThread(environment, thread, vertexID);
+
+			for (int i = 0; i < NUMBER_OF_SAMPLES; ++i) {
+				sampler.sample();
+			}
+
+			final List<InternalExecutionVertexStackSamplingData> samples =
+				new ArrayList<InternalExecutionVertexStackSamplingData>();
+			sampler.collect(System.currentTimeMillis(), samples);
+			assertEquals(1, samples.size());
+
+			final InternalExecutionVertexStackSamplingData data = samples.get(0);
+			assertEquals(jobID, data.getJobID());
+			assertEquals(vertexID, data.getExecutionVertexID());
+			assertEquals(NUMBER_OF_SAMPLES, data.getNumberOfSamples());
+			assertEquals(NUMBER_OF_SAMPLES, sum(data.getComponentSamples()));
+			assertEquals(NUMBER_OF_SAMPLES, sum(data.getStackSamples()));
+
+			// The waiting thread belongs to the Nephele package but to none of the known components
+			assertEquals(Integer.valueOf(NUMBER_OF_SAMPLES),
+				data.getComponentSamples().get(StackSampleClassifier.RUNTIME));
+			final String stack = data.getStackSamples().keySet().iterator().next();
+			assertTrue(stack.contains(WaitingThread.class.getName() + ".run"));
+
+			// All samples have been collected already
+			assertNull(sampler.unregisterMainThread(environment, System.currentTimeMillis()));
+
+			// Unregistered tasks are no longer sampled
+			sampler.sample();
+			samples.clear();
+			sampler.collect(System.currentTimeMillis(), samples);
+			assertTrue(samples.isEmpty());
+
+		} finally {
+			thread.interrupt();
+			thread.join();
+		}
+	}
+
+	/**
+	 * Checks that only the most frequent call stacks are kept when the stack samples are truncated.
+	 */
+	@Test
+	public void testTruncate() {
+
+		final Map<String, Integer> stackSamples = new HashMap<String, Integer>();
+		stackSamples.put("a", Integer.valueOf(10));
+		stackSamples.put("b", Integer.valueOf(1));
+		stackSamples.put("c", Integer.valueOf(7));
+		stackSamples.put("d", Integer.valueOf(2));
+
+		assertEquals(stackSamples, StackSampler.truncate(stackSamples, 4));
+
+		final Map<String, Integer> truncated = StackSampler.truncate(stackSamples, 2);
+		assertEquals(3, truncated.size());
+		assertEquals(Integer.valueOf(10), truncated.get("a"));
+		assertEquals(Integer.valueOf(7), truncated.get("c"));
+		assertNotNull(truncated.get(StackSampler.TRUNCATED_STACKS));
+		assertEquals(3, truncated.get(StackSampler.TRUNCATED_STACKS).intValue());
+	}
+
+	private static int sum(final Map<String, Integer> samples) {
+
+		int sum = 0;
+		final Iterator<Integer> it = samples.values().iterator();
+		while (it.hasNext()) {
+			sum += it.next().intValue();
+		}
+
+		return sum;
+	}
+}
@@ -20,16 +20,21 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Test;
 
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.executiongraph.GraphConversionException;
 import eu.stratosphere.nephele.instance.InstanceManager;
+import eu.stratosphere.nephele.io.DistributionPattern;
 import eu.stratosphere.nephele.io.RecordReader;
 import eu.stratosphere.nephele.io.RecordWriter;
 import eu.stratosphere.nephele.io.channels.ChannelType;
@@ -38,9 +43,11 @@ import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobGraphDefinitionException;
 import eu.stratosphere.nephele.jobgraph.JobInputVertex;
 import eu.stratosphere.nephele.jobgraph.JobOutputVertex;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
 import eu.stratosphere.nephele.jobmanager.scheduler.SchedulingException;
 import eu.stratosphere.nephele.template.AbstractGenericInputTask;
 import eu.stratosphere.nephele.template.AbstractOutputTask;
+import eu.stratosphere.nephele.template.AbstractTask;
 import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.StringUtils;
 
@@ -75,6 +82,30 @@ public class QueueSchedulerTest {
 
 	}
 
+	/**
+	 * Test intermediate task.
+	 */
+	public static final class IntermediateTask extends AbstractTask {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void registerInputOutput() {
+			new RecordReader<StringRecord>(this, StringRecord.class);
+			new RecordWriter<StringRecord>(this, StringRecord.class);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void invoke() throws Exception {
+			// Nothing to do here
+		}
+
+	}
+
 	/**
 	 * Test output task.
 	 * 
@@ -140,6 +171,263 @@ public class QueueSchedulerTest {
 		return null;
 	}
 
+	/**
+	 * Constructs a sample execution graph consisting of an input, an intermediate and an output vertex. All vertices
+	 * share the same instance, so the test instance manager can assign them at once regardless of the channel types.
+	 * 
+	 * @param inputChannelType
+	 *        the channel type to connect the input vertex with the intermediate vertex
+	 * @param outputChannelType
+	 *        the channel type to connect the intermediate vertex with the output vertex
+	 * @param instanceManager
+	 *        the instance manager that shall be used during the creation of the execution graph
+	 * @return a sample execution graph
+	 */
+	private ExecutionGraph createExecutionGraph(final ChannelType inputChannelType,
+			final ChannelType outputChannelType, final InstanceManager instanceManager) {
+
+		return createExecutionGraph(inputChannelType, outputChannelType, 1, instanceManager);
+	}
+
+	/**
+	 * Constructs a sample execution graph consisting of an input, an intermediate and an output vertex with the given
+	 * number of subtasks each. The vertices are connected point-to-point and all subtasks share the same instance.
+	 * 
+	 * @param inputChannelType
+	 *        the channel type to connect the input vertex with the intermediate vertex
+	 * @param outputChannelType
+	 *        the channel type to connect the intermediate vertex with the output vertex
+	 * @param numberOfSubtasks
+	 *        the number of subtasks of each vertex
+	 * @param instanceManager
+	 *        the instance manager that shall be used during the creation of the execution graph
+	 * @return a sample execution graph
+	 */
+	private ExecutionGraph createExecutionGraph(final ChannelType inputChannelType,
+			final ChannelType outputChannelType, final int numberOfSubtasks, final InstanceManager instanceManager) {
+
+		final JobGraph jobGraph = new JobGraph("Job Graph");
+
+		final JobInputVertex inputVertex = new JobInputVertex("Input 1", jobGraph);
+		inputVertex.setInputClass(InputTask.class);
+		inputVertex.setNumberOfSubtasks(numberOfSubtasks);
+		inputVertex.setNumberOfSubtasksPerInstance(numberOfSubtasks);
+
+		final JobTaskVertex taskVertex = new JobTaskVertex("Task 1", jobGraph);
+		taskVertex.setTaskClass(IntermediateTask.class);
+		taskVertex.setNumberOfSubtasks(numberOfSubtasks);
+		taskVertex.setNumberOfSubtasksPerInstance(numberOfSubtasks);
+
+		final JobOutputVertex outputVertex = new JobOutputVertex("Output 1", jobGraph);
+		outputVertex.setOutputClass(OutputTask.class);
+		outputVertex.setNumberOfSubtasks(numberOfSubtasks);
+		outputVertex.setNumberOfSubtasksPerInstance(numberOfSubtasks);
+
+		taskVertex.setVertexToShareInstancesWith(inputVertex);
+		outputVertex.setVertexToShareInstancesWith(inputVertex);
+
+		try {
+			inputVertex.connectTo(taskVertex, inputChannelType, CompressionLevel.NO_COMPRESSION,
+				DistributionPattern.POINTWISE);
+			taskVertex.connectTo(outputVertex, outputChannelType, CompressionLevel.NO_COMPRESSION,
+				DistributionPattern.POINTWISE);
+		} catch (JobGraphDefinitionException e) {
+			fail(StringUtils.stringifyException(e));
+		}
+
+		try {
+			LibraryCacheManager.register(jobGraph.getJobID(), new String[0]);
+			return new ExecutionGraph(jobGraph, instanceManager);
+
+		} catch (GraphConversionException e) {
+			fail(StringUtils.stringifyException(e));
+		} catch (IOException e) {
+			fail(StringUtils.stringifyException(e));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Enables or disables the eager deployment of vertices connected through network channels. The setting is read
+	 * when the scheduler is constructed.
+	 * 
+	 * @param eagerDeployment
+	 *        <code>true</code> to enable eager deployment, <code>false</code> to disable it
+	 */
+	private static void setEagerDeployment(final boolean eagerDeployment) {
+
+		final Configuration conf = new Configuration();
+		conf.setBoolean("jobmanager.deployment.eager", eagerDeployment);
+		GlobalConfiguration.includeConfiguration(conf);
+	}
+
+	/**
+	 * Schedules the given execution graph and returns the names of the vertices of the first deployment in the order
+	 * in which they have been submitted.
+	 * 
+	 * @param executionGraph
+	 *        the execution graph to schedule
+	 * @param eagerDeployment
+	 *        <code>true</code> to enable eager deployment, <code>false</code> to disable it
+	 * @param tim
+	 *        the instance manager the execution graph has been created with
+	 * @return the names of the vertices of the first deployment
+	 */
+	private static String getNamesOfFirstDeployment(final ExecutionGraph executionGraph,
+			final boolean eagerDeployment, final TestInstanceManager tim) {
+
+		return getNamesOfFirstDeployment(executionGraph, eagerDeployment, tim, new TestDeploymentManager());
+	}
+
+	/**
+	 * Schedules the given execution graph using the given deployment manager and returns the names of the vertices of
+	 * the first deployment in the order in which they have been submitted.
+	 * 
+	 * @param executionGraph
+	 *        the execution graph to schedule
+	 * @param eagerDeployment
+	 *        <code>true</code> to enable eager deployment, <code>false</code> to disable it
+	 * @param tim
+	 *        the instance manager the execution graph has been created with
+	 * @param tdm
+	 *        the deployment manager to record the deployment with
+	 * @return the names of the vertices of the first deployment
+	 */
+	private static String getNamesOfFirstDeployment(final ExecutionGraph executionGraph,
+			final boolean eagerDeployment, final TestInstanceManager tim, final TestDeploymentManager tdm) {
+
+		final QueueScheduler scheduler;
+		setEagerDeployment(eagerDeployment);
+		try {
+			scheduler = new QueueScheduler(tdm, tim);
+		} finally {
+			setEagerDeployment(false);
+		}
+
+		try {
+			try {
+				scheduler.schedulJob(executionGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			// Wait for the deployment to complete
+			tdm.waitForDeployment();
+
+			assertEquals(executionGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+			final List<ExecutionVertex> listOfDeployedVertices = tdm.getListOfLastDeployedVertices();
+			assertNotNull(listOfDeployedVertices);
+
+			final StringBuilder names = new StringBuilder();
+			for (final ExecutionVertex vertex : listOfDeployedVertices) {
+				if (names.length() > 0) {
+					names.append(", ");
+				}
+				names.append(vertex.getName());
+			}
+
+			return names.toString();
+
+		} finally {
+			try {
+				LibraryCacheManager.unregister(executionGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that the receivers of network channels are deployed together with their senders only if eager deployment
+	 * is enabled.
+	 */
+	@Test
+	public void testDeploymentWithNetworkChannels() {
+
+		TestInstanceManager tim = new TestInstanceManager();
+		assertEquals("Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.NETWORK, ChannelType.NETWORK, tim), false, tim));
+
+		tim = new TestInstanceManager();
+		assertEquals("Output 1, Task 1, Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.NETWORK, ChannelType.NETWORK, tim), true, tim));
+	}
+
+	/**
+	 * Checks that the deployment along in-memory and file channels does not depend on eager deployment.
+	 */
+	@Test
+	public void testDeploymentWithNonNetworkChannels() {
+
+		for (final boolean eagerDeployment : new boolean[] { false, true }) {
+
+			TestInstanceManager tim = new TestInstanceManager();
+			assertEquals("Output 1, Input 1",
+				getNamesOfFirstDeployment(createExecutionGraph(ChannelType.INMEMORY, tim), eagerDeployment, tim));
+
+			tim = new TestInstanceManager();
+			assertEquals("Input 1",
+				getNamesOfFirstDeployment(createExecutionGraph(ChannelType.FILE, tim), eagerDeployment, tim));
+		}
+	}
+
+	/**
+	 * Checks that the vertices of an instance are submitted sink-first, so every receiver is deployed before its
+	 * senders, and that the traversal stops at network channels unless eager deployment is enabled.
+	 */
+	@Test
+	public void testSinkFirstDeploymentOrder() {
+
+		TestInstanceManager tim = new TestInstanceManager();
+		assertEquals("Output 1, Task 1, Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.INMEMORY, ChannelType.INMEMORY, tim), false, tim));
+
+		tim = new TestInstanceManager();
+		assertEquals("Task 1, Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.INMEMORY, ChannelType.NETWORK, tim), false, tim));
+
+		tim = new TestInstanceManager();
+		assertEquals("Output 1, Task 1, Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.INMEMORY, ChannelType.NETWORK, tim), true, tim));
+
+		tim = new TestInstanceManager();
+		assertEquals("Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.NETWORK, ChannelType.INMEMORY, tim), false, tim));
+
+		tim = new TestInstanceManager();
+		assertEquals("Output 1, Task 1, Input 1", getNamesOfFirstDeployment(
+			createExecutionGraph(ChannelType.NETWORK, ChannelType.INMEMORY, tim), true, tim));
+	}
+
+	/**
+	 * Checks that the in-memory chains of parallel subtasks are deployed one chain after the other without eager
+	 * deployment, each ordered from its sink to its source, and that all chains are submitted in a single wave.
+	 */
+	@Test
+	public void testSinkFirstDeploymentOrderOfParallelInMemoryChains() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final ExecutionGraph executionGraph = createExecutionGraph(ChannelType.INMEMORY, ChannelType.INMEMORY, 2, tim);
+		assertEquals("Output 1, Task 1, Input 1, Output 1, Task 1, Input 1",
+			getNamesOfFirstDeployment(executionGraph, false, tim, tdm));
+
+		final ExecutionGroupVertex inputVertex = executionGraph.getInputVertex(0).getGroupVertex();
+		final List<ExecutionVertex> deployedVertices = new ArrayList<ExecutionVertex>();
+		for (int i = 0; i < 2; ++i) {
+			final ExecutionVertex input = inputVertex.getGroupMember(i);
+			final ExecutionVertex task = input.getOutputGate(0).getEdge(0).getInputGate().getVertex();
+			final ExecutionVertex output = task.getOutputGate(0).getEdge(0).getInputGate().getVertex();
+			deployedVertices.add(output);
+			deployedVertices.add(task);
+			deployedVertices.add(input);
+		}
+
+		assertEquals(deployedVertices, tdm.getListOfLastDeployedVertices());
+		assertEquals(1, tdm.getWavesOfLastDeployment().size());
+	}
+
 	/**
 	 * Checks the behavior of the scheduleJob() method with a job consisting of two tasks connected via an in-memory
 	 * channel.
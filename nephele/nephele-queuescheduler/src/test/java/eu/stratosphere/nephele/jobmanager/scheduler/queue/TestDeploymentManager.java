@@ -15,7 +15,9 @@
 
 package eu.stratosphere.nephele.jobmanager.scheduler.queue;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.instance.AbstractInstance;
@@ -38,10 +40,15 @@ public class TestDeploymentManager implements DeploymentManager {
 	private volatile JobID jobID = null;
 
 	/**
-	 * The list of vertices to be deployed.
+	 * The list of vertices to be deployed in the order of their submission.
 	 */
 	private volatile List<ExecutionVertex> verticesToBeDeployed = null;
 
+	/**
+	 * The waves of vertices to be deployed.
+	 */
+	private volatile List<Map<AbstractInstance, List<ExecutionVertex>>> waves = null;
+
 	/**
 	 * Auxiliary object to synchronize on.
 	 */
@@ -51,11 +58,19 @@ public class TestDeploymentManager implements DeploymentManager {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void deploy(final JobID jobID, final AbstractInstance instance,
-			final List<ExecutionVertex> verticesToBeDeployed) {
+	public void deploy(final JobID jobID,
+			final List<Map<AbstractInstance, List<ExecutionVertex>>> verticesToBeDeployed) {
+
+		final List<ExecutionVertex> vertices = new ArrayList<ExecutionVertex>();
+		for (final Map<AbstractInstance, List<ExecutionVertex>> wave : verticesToBeDeployed) {
+			for (final List<ExecutionVertex> verticesOfInstance : wave.values()) {
+				vertices.addAll(verticesOfInstance);
+			}
+		}
 
+		this.waves = verticesToBeDeployed;
+		this.verticesToBeDeployed = vertices;
 		this.jobID = jobID;
-		this.verticesToBeDeployed = verticesToBeDeployed;
 
 		synchronized (this.synchronizationObject) {
 			this.synchronizationObject.notify();
@@ -80,6 +95,16 @@ public class TestDeploymentManager implements DeploymentManager {
 		return this.verticesToBeDeployed;
 	}
 
+	/**
+	 * Returns the waves of the last deployment.
+	 * 
+	 * @return the waves of the last deployment
+	 */
+	List<Map<AbstractInstance, List<ExecutionVertex>>> getWavesOfLastDeployment() {
+
+		return this.waves;
+	}
+
 	/**
 	 * Clears the internal state of the test deployment manager.
 	 */
@@ -87,6 +112,7 @@ public class TestDeploymentManager implements DeploymentManager {
 
 		this.jobID = null;
 		this.verticesToBeDeployed = null;
+		this.waves = null;
 	}
 
 	/**
@@ -15,10 +15,14 @@
 
 package eu.stratosphere.nephele.checkpointing;
 
+import java.io.File;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.execution.RuntimeEnvironment;
+import eu.stratosphere.nephele.fs.Path;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.taskmanager.runtime.RuntimeTask;
 
@@ -26,7 +30,41 @@ public final class CheckpointDecision {
 
 	private static final Log LOG = LogFactory.getLog(CheckpointDecision.class);
 
-	public static boolean getDecision(final RuntimeTask task) {
+	/**
+	 * The configuration key for the estimated cost in nanoseconds to write one byte to a checkpoint.
+	 */
+	public static final String WRITE_COST_KEY = "checkpoint.dynamic.writecost";
+
+	/**
+	 * The configuration key for the estimated cost in nanoseconds to transfer one byte of input data to a task again
+	 * when it is recomputed.
+	 */
+	public static final String TRANSFER_COST_KEY = "checkpoint.dynamic.transfercost";
+
+	/**
+	 * The configuration key for the number of bytes which must remain free on the volume of the local checkpoint path.
+	 */
+	public static final String DISK_RESERVE_KEY = "checkpoint.dynamic.diskreserve";
+
+	/**
+	 * The default write cost per byte, corresponds to roughly 100 MB/s.
+	 */
+	private static final int DEFAULT_WRITE_COST = 10;
+
+	/**
+	 * The default transfer cost per byte, corresponds to roughly 1 GBit/s.
+	 */
+	private static final int DEFAULT_TRANSFER_COST = 8;
+
+	/**
+	 * The default disk reserve (1 GB).
+	 */
+	private static final long DEFAULT_DISK_RESERVE = 1024L * 1024L * 1024L;
+
+	private CheckpointDecision() {
+	}
+
+	public static boolean getDecision(final RuntimeTask task, final TaskStatistics statistics) {
 
 		switch (CheckpointUtils.getCheckpointMode()) {
 		case NEVER:
@@ -35,6 +73,8 @@ public final class CheckpointDecision {
 			return true;
 		case NETWORK:
 			return isNetworkTask(task);
+		case DYNAMIC:
+			return getDynamicDecision(task, statistics);
 		}
 
 		return false;
@@ -54,4 +94,90 @@ public final class CheckpointDecision {
 
 		return false;
 	}
+
+	/**
+	 * Decides whether to create a checkpoint based on the statistics the task has collected at runtime.
+	 * 
+	 * @param task
+	 *        the task to decide on
+	 * @param statistics
+	 *        the statistics of the task
+	 * @return <code>true</code> if the checkpoint shall be created, <code>false</code> if it shall be discarded
+	 */
+	private static boolean getDynamicDecision(final RuntimeTask task, final TaskStatistics statistics) {
+
+		final long cpuTime = statistics.getCPUTime();
+		if (cpuTime < 0L) {
+			// Without the CPU time we cannot estimate the recomputation cost, so fall back to the static strategy
+			return isNetworkTask(task);
+		}
+
+		final long bytesIn = statistics.getBytesIn();
+		final long bytesOut = statistics.getBytesOut();
+
+		final boolean decision = decide(bytesIn, bytesOut, cpuTime, getRemainingDiskBudget(),
+			GlobalConfiguration.getInteger(WRITE_COST_KEY, DEFAULT_WRITE_COST),
+			GlobalConfiguration.getInteger(TRANSFER_COST_KEY, DEFAULT_TRANSFER_COST));
+
+		if (LOG.isInfoEnabled()) {
+			final double cpuTimePerByte = (bytesOut == 0L) ? 0.0 : (double) cpuTime / (double) bytesOut;
+			LOG.info("Checkpoint decision for " + task.getRuntimeEnvironment().getTaskNameWithIndex() + ": "
+				+ decision + " (" + bytesIn + " bytes in, " + bytesOut + " bytes out, " + cpuTimePerByte
+				+ " ns CPU time per output byte)");
+		}
+
+		return decision;
+	}
+
+	/**
+	 * Compares the cost of recomputing a task's output with the cost of writing the output to a checkpoint. The
+	 * recomputation cost consists of the task's CPU time and the cost to transfer its input again, the write cost is
+	 * proportional to the amount of output data. In addition, the checkpoint must be able to grow by at least the
+	 * amount of data written so far without exceeding the remaining disk budget.
+	 * 
+	 * @param bytesIn
+	 *        the number of bytes the task has received so far
+	 * @param bytesOut
+	 *        the number of bytes the task has emitted so far
+	 * @param cpuTime
+	 *        the CPU time the task has consumed so far in nanoseconds
+	 * @param remainingDiskBudget
+	 *        the number of bytes which can still be written to checkpoints
+	 * @param writeCostPerByte
+	 *        the cost to write one byte to a checkpoint in nanoseconds
+	 * @param transferCostPerByte
+	 *        the cost to transfer one byte of input data again in nanoseconds
+	 * @return <code>true</code> if the checkpoint shall be created, <code>false</code> otherwise
+	 */
+	static boolean decide(final long bytesIn, final long bytesOut, final long cpuTime,
+			final long remainingDiskBudget, final int writeCostPerByte, final int transferCostPerByte) {
+
+		if (remainingDiskBudget < 2L * bytesOut) {
+			return false;
+		}
+
+		final double writeCost = (double) bytesOut * (double) writeCostPerByte;
+		final double recomputationCost = (double) cpuTime + (double) bytesIn * (double) transferCostPerByte;
+
+		return (recomputationCost >= writeCost);
+	}
+
+	/**
+	 * Returns the number of bytes which can still be written to checkpoints on the volume of the local checkpoint
+	 * path.
+	 * 
+	 * @return the number of bytes which can still be written to checkpoints
+	 */
+	private static long getRemainingDiskBudget() {
+
+		final Path checkpointPath = CheckpointUtils.getLocalCheckpointPath();
+		final String scheme = checkpointPath.toUri().getScheme();
+		if (scheme != null && !"file".equals(scheme)) {
+			return Long.MAX_VALUE;
+		}
+
+		final long usableSpace = new File(checkpointPath.toUri().getPath()).getUsableSpace();
+
+		return usableSpace - GlobalConfiguration.getLong(DISK_RESERVE_KEY, DEFAULT_DISK_RESERVE);
+	}
 }
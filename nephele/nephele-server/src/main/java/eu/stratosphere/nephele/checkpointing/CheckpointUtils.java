@@ -224,6 +224,8 @@ public final class CheckpointUtils {
 				CHECKPOINT_MODE = CheckpointMode.ALWAYS;
 			} else if ("network".equals(mode)) {
 				CHECKPOINT_MODE = CheckpointMode.NETWORK;
+			} else if ("dynamic".equals(mode)) {
+				CHECKPOINT_MODE = CheckpointMode.DYNAMIC;
 			} else {
 				CHECKPOINT_MODE = CheckpointMode.NEVER;
 			}
@@ -58,6 +58,11 @@ public class EphemeralCheckpoint implements CheckpointDecisionRequester {
 	 */
 	private final RuntimeTask task;
 
+	/**
+	 * The runtime statistics of the task, used to make the checkpoint decision.
+	 */
+	private final TaskStatistics statistics;
+
 	/**
 	 * The total number of output channels connected to this checkpoint.
 	 */
@@ -98,15 +103,19 @@ public class EphemeralCheckpoint implements CheckpointDecisionRequester {
 	 * 
 	 * @param task
 	 *        the task this checkpoint belongs to
+	 * @param statistics
+	 *        the runtime statistics of the task
 	 * @param totalNumberOfOutputChannels
 	 *        the total number of output channels connected to this checkpoint
 	 * @param ephemeral
 	 *        <code>true</code> if the checkpoint is initially ephemeral, <code>false</code> if the checkpoint shall be
 	 *        persistent from the beginning
 	 */
-	public EphemeralCheckpoint(final RuntimeTask task, final int totalNumberOfOutputChannels, final boolean ephemeral) {
+	public EphemeralCheckpoint(final RuntimeTask task, final TaskStatistics statistics,
+			final int totalNumberOfOutputChannels, final boolean ephemeral) {
 
 		this.task = task;
+		this.statistics = statistics;
 		this.totalNumberOfOutputChannels = totalNumberOfOutputChannels;
 
 		this.checkpointingDecision = (ephemeral ? CheckpointingDecisionState.UNDECIDED
@@ -174,6 +183,24 @@ public class EphemeralCheckpoint implements CheckpointDecisionRequester {
 		}
 	}
 
+	/**
+	 * Makes the checkpoint decision based on the runtime statistics the task has collected so far. If the checkpoint
+	 * is already decided, this method has no effect.
+	 * 
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while writing the queued data to the checkpoint
+	 * @throws InterruptedException
+	 *         thrown if the thread is interrupted while writing the queued data to the checkpoint
+	 */
+	public void makeCheckpointDecision() throws IOException, InterruptedException {
+
+		if (!isUndecided()) {
+			return;
+		}
+
+		setCheckpointDecisionSynchronously(CheckpointDecision.getDecision(this.task, this.statistics));
+	}
+
 	public void forward(final TransferEnvelope transferEnvelope) throws IOException, InterruptedException {
 
 		if (this.checkpointingDecision == CheckpointingDecisionState.NO_CHECKPOINTING) {
@@ -185,9 +212,13 @@ public class EphemeralCheckpoint implements CheckpointDecisionRequester {
 		if (this.checkpointingDecision == CheckpointingDecisionState.UNDECIDED) {
 			this.queuedEnvelopes.add(dup);
 
+			final Buffer buffer = dup.getBuffer();
+			if (buffer != null) {
+				this.statistics.addBytesOut(buffer.size());
+			}
+
 			if (this.asyncronousCheckpointDecisionRequested) {
-				// TODO: Move decision logic here
-				setCheckpointDecisionSynchronously(true);
+				makeCheckpointDecision();
 			}
 
 		} else {
@@ -202,9 +233,7 @@ public class EphemeralCheckpoint implements CheckpointDecisionRequester {
 
 	public boolean hasDataLeft() throws IOException, InterruptedException {
 
-		if (isUndecided()) {
-			setCheckpointDecisionSynchronously(true);
-		}
+		makeCheckpointDecision();
 
 		if (this.writeThread == null) {
 			return false;
@@ -19,6 +19,7 @@ import java.io.IOException;
 
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityListener;
@@ -171,6 +172,32 @@ final class ReplayInputChannelContext implements InputChannelContext {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getNumberOfQueuedEnvelopes() {
+
+		if (this.encapsulatedContext != null) {
+			return this.encapsulatedContext.getNumberOfQueuedEnvelopes();
+		}
+
+		return 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChannelStatistics getChannelStatistics() {
+
+		if (this.encapsulatedContext != null) {
+			return this.encapsulatedContext.getChannelStatistics();
+		}
+
+		return null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
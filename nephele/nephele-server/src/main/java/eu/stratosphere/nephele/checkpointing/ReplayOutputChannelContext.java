@@ -16,6 +16,7 @@
 package eu.stratosphere.nephele.checkpointing;
 
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.taskmanager.bytebuffered.AbstractOutputChannelContext;
@@ -97,6 +98,19 @@ public final class ReplayOutputChannelContext extends AbstractOutputChannelConte
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChannelStatistics getChannelStatistics() {
+
+		if (this.encapsulatedContext != null) {
+			return this.encapsulatedContext.getChannelStatistics();
+		}
+
+		return null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
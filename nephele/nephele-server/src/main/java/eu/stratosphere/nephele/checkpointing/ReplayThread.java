@@ -15,12 +15,14 @@
 
 package eu.stratosphere.nephele.checkpointing;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.channels.FileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -51,6 +53,11 @@ final class ReplayThread extends Thread {
 	 */
 	private static final int BUFFER_SIZE = 4096;
 
+	/**
+	 * The size of the read-ahead buffer for the meta data in bytes.
+	 */
+	private static final int READ_AHEAD_SIZE = 64 * 1024;
+
 	private final ExecutionVertexID vertexID;
 
 	private final ExecutionObserver executionObserver;
@@ -193,7 +200,7 @@ final class ReplayThread extends Thread {
 		int metaDataIndex = 0;
 
 		Buffer firstDeserializedFileBuffer = null;
-		FileChannel fileChannel = null;
+		ReadableByteChannel fileChannel = null;
 
 		try {
 
@@ -297,13 +304,14 @@ final class ReplayThread extends Thread {
 		}
 	}
 
-	private FileChannel getFileChannel(final FileSystem fs, final Path p) throws IOException {
+	private ReadableByteChannel getFileChannel(final FileSystem fs, final Path p) throws IOException {
 
 		// Bypass FileSystem API for local checkpoints
 		if (this.isCheckpointLocal) {
 
 			final URI uri = p.toUri();
-			return new FileInputStream(uri.getPath()).getChannel();
+			// The deserializer reads the meta data in small portions, so read ahead through a buffered stream
+			return Channels.newChannel(new BufferedInputStream(new FileInputStream(uri.getPath()), READ_AHEAD_SIZE));
 		}
 
 		return new FileChannelWrapper(fs, p, BUFFER_SIZE, (short) -1);
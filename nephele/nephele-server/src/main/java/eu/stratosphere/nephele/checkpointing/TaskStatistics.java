@@ -0,0 +1,119 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.checkpointing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.stratosphere.nephele.execution.RuntimeEnvironment;
+
+/**
+ * This class collects the runtime statistics of a task which are fed into the dynamic checkpoint decision. The number
+ * of incoming bytes is updated by the threads which deliver data to the task's input channels, the number of outgoing
+ * bytes is updated by the task's ephemeral checkpoint.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class TaskStatistics {
+
+	/**
+	 * The thread MX bean used to determine the CPU time of the task thread.
+	 */
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The number of bytes the task has received through its input channels so far.
+	 */
+	private final AtomicLong bytesIn = new AtomicLong(0L);
+
+	/**
+	 * The number of bytes the task has emitted through its output channels so far.
+	 */
+	private final AtomicLong bytesOut = new AtomicLong(0L);
+
+	/**
+	 * The environment of the task the statistics are collected for.
+	 */
+	private final RuntimeEnvironment environment;
+
+	/**
+	 * Constructs a new statistics object.
+	 * 
+	 * @param environment
+	 *        the environment of the task the statistics are collected for
+	 */
+	public TaskStatistics(final RuntimeEnvironment environment) {
+
+		this.environment = environment;
+	}
+
+	/**
+	 * Adds the given number of bytes to the amount of data received by the task.
+	 * 
+	 * @param numberOfBytes
+	 *        the number of bytes received
+	 */
+	public void addBytesIn(final long numberOfBytes) {
+
+		this.bytesIn.addAndGet(numberOfBytes);
+	}
+
+	/**
+	 * Adds the given number of bytes to the amount of data emitted by the task.
+	 * 
+	 * @param numberOfBytes
+	 *        the number of bytes emitted
+	 */
+	public void addBytesOut(final long numberOfBytes) {
+
+		this.bytesOut.addAndGet(numberOfBytes);
+	}
+
+	/**
+	 * Returns the number of bytes the task has received through its input channels so far.
+	 * 
+	 * @return the number of bytes received so far
+	 */
+	public long getBytesIn() {
+
+		return this.bytesIn.get();
+	}
+
+	/**
+	 * Returns the number of bytes the task has emitted through its output channels so far.
+	 * 
+	 * @return the number of bytes emitted so far
+	 */
+	public long getBytesOut() {
+
+		return this.bytesOut.get();
+	}
+
+	/**
+	 * Returns the CPU time the thread executing the task has consumed so far.
+	 * 
+	 * @return the CPU time in nanoseconds or <code>-1</code> if the CPU time cannot be determined
+	 */
+	public long getCPUTime() {
+
+		if (!THREAD_MX_BEAN.isThreadCpuTimeSupported() || !THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+			return -1L;
+		}
+
+		return THREAD_MX_BEAN.getThreadCpuTime(this.environment.getExecutingThread().getId());
+	}
+}
@@ -15,13 +15,22 @@
 
 package eu.stratosphere.nephele.checkpointing;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,7 +43,10 @@ import eu.stratosphere.nephele.fs.FileSystem;
 import eu.stratosphere.nephele.fs.Path;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.CheckpointSegment;
+import eu.stratosphere.nephele.io.channels.FileBuffer;
 import eu.stratosphere.nephele.io.channels.FileBufferManager;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
 import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.CheckpointSerializer;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
@@ -51,8 +63,64 @@ final class WriteThread extends Thread {
 	 */
 	private static final int BUFFER_SIZE = 4096;
 
+	/**
+	 * The maximum number of envelopes which are taken from the queue and written to the checkpoint in one batch.
+	 */
+	private static final int MAX_BATCH_SIZE = 64;
+
+	/**
+	 * The number of buffers the segments are compressed into. While the segment writer writes one of them to the
+	 * checkpoint file, the next segment can already be compressed into another one.
+	 */
+	private static final int NUMBER_OF_SEGMENT_BUFFERS = 2;
+
 	private final BlockingQueue<TransferEnvelope> queuedEnvelopes;
 
+	/**
+	 * The envelopes which are currently written to the checkpoint as one batch.
+	 */
+	private final List<TransferEnvelope> batch = new ArrayList<TransferEnvelope>(MAX_BATCH_SIZE);
+
+	/**
+	 * The envelopes whose buffer data has been copied to the current segment.
+	 */
+	private final List<TransferEnvelope> envelopesInSegment = new ArrayList<TransferEnvelope>(MAX_BATCH_SIZE);
+
+	/**
+	 * The array to collect the uncompressed data of the current segment.
+	 */
+	private final byte[] segmentData = new byte[CheckpointSegment.MAXIMUM_DATA_SIZE];
+
+	/**
+	 * The number of bytes collected for the current segment so far.
+	 */
+	private int segmentDataLength = 0;
+
+	/**
+	 * The deflater to compress the segments with.
+	 */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * The thread which writes the compressed segments to the checkpoint file asynchronously.
+	 */
+	private final SegmentWriter segmentWriter;
+
+	/**
+	 * The buffer to collect the serialized meta data of a batch before it is written to the meta data file at once.
+	 */
+	private final ByteArrayOutputStream metaDataBuffer = new ByteArrayOutputStream(BUFFER_SIZE);
+
+	/**
+	 * The channel the serializer writes the meta data to.
+	 */
+	private final WritableByteChannel metaDataBufferChannel = Channels.newChannel(this.metaDataBuffer);
+
+	/**
+	 * The ends of the batches whose meta data is still in the meta data buffer, in the order of the batches.
+	 */
+	private final Queue<MetaDataMark> metaDataMarks = new ArrayDeque<MetaDataMark>();
+
 	/**
 	 * The serializer to convert a transfer envelope into a byte stream.
 	 */
@@ -124,6 +192,7 @@ final class WriteThread extends Thread {
 		this.vertexID = vertexID;
 		this.numberOfConnectedChannels = numberOfConnectedChannels;
 		this.queuedEnvelopes = new ArrayBlockingQueue<TransferEnvelope>(256);
+		this.segmentWriter = new SegmentWriter(vertexID);
 
 		final boolean dist = CheckpointUtils.allowDistributedCheckpoints();
 
@@ -149,14 +218,17 @@ final class WriteThread extends Thread {
 	@Override
 	public void run() {
 
-		while (!this.isCanceled) {
+		this.segmentWriter.start();
 
-			TransferEnvelope te = null;
+		while (!this.isCanceled) {
 
 			try {
-				te = this.queuedEnvelopes.take();
+				this.batch.add(this.queuedEnvelopes.take());
+				this.queuedEnvelopes.drainTo(this.batch, MAX_BATCH_SIZE - 1);
 
-				if (!writeToCheckpointAndRecycle(te)) {
+				final boolean moreEnvelopesExpected = writeBatchToCheckpointAndRecycle();
+				this.batch.clear();
+				if (!moreEnvelopesExpected) {
 					break;
 				}
 
@@ -173,6 +245,11 @@ final class WriteThread extends Thread {
 		}
 
 		// Clean up in case we were canceled
+		for (final TransferEnvelope te : this.batch) {
+			recycleTransferEnvelope(te);
+		}
+		this.batch.clear();
+
 		while (!this.queuedEnvelopes.isEmpty()) {
 			final TransferEnvelope te = this.queuedEnvelopes.poll();
 			final Buffer buffer = te.getBuffer();
@@ -181,6 +258,10 @@ final class WriteThread extends Thread {
 			}
 		}
 
+		// Wait for the outstanding segments, the segment writer recycles their file buffers
+		this.segmentWriter.shutdown();
+		this.deflater.end();
+
 		// No more data left to be processed in this write thread
 		this.hasDataLeft = false;
 	}
@@ -214,6 +295,199 @@ final class WriteThread extends Thread {
 		}
 	}
 
+	/**
+	 * Writes the current batch of transfer envelopes to the checkpoint and afterwards recycles their resources. The
+	 * data of all memory-backed buffers in the batch is first collected in segments of up to
+	 * {@link CheckpointSegment#MAXIMUM_DATA_SIZE} bytes. Each segment is compressed and handed to the segment writer,
+	 * which writes it to the checkpoint file while the next segment is compressed. Afterwards the meta data of the
+	 * envelopes is serialized into a memory buffer. The meta data is written to the meta data file as soon as all the
+	 * segments it refers to have been written, so the write thread only waits for the segment writer if no further
+	 * envelopes are queued. In case of an I/O error, the method will save the IOException to ioException, recycle all
+	 * resources and return <code>false</code>.
+	 * 
+	 * @return <code>true</code> if more transfer envelopes are expected to follow, <code>false</code> otherwise
+	 */
+	private boolean writeBatchToCheckpointAndRecycle() {
+
+		try {
+			for (final TransferEnvelope transferEnvelope : this.batch) {
+
+				final Buffer buffer = transferEnvelope.getBuffer();
+				if (buffer == null || !buffer.isBackedByMemory()) {
+					continue;
+				}
+
+				// Buffers which exceed the segment size are transfered to a file individually
+				final int size = buffer.size();
+				if (size > CheckpointSegment.MAXIMUM_DATA_SIZE) {
+					continue;
+				}
+
+				if (size > CheckpointSegment.MAXIMUM_DATA_SIZE - this.segmentDataLength) {
+					flushSegment();
+				}
+
+				final ByteBuffer src = ((MemoryBuffer) buffer).getByteBuffer().duplicate();
+				src.position(0);
+				src.limit(size);
+				src.get(this.segmentData, this.segmentDataLength, size);
+				this.segmentDataLength += size;
+				this.envelopesInSegment.add(transferEnvelope);
+			}
+
+			flushSegment();
+
+		} catch (IOException ioe) {
+			this.ioException = ioe;
+			for (final TransferEnvelope transferEnvelope : this.batch) {
+				recycleTransferEnvelope(transferEnvelope);
+			}
+			this.batch.clear();
+			return false;
+		}
+
+		for (int i = 0; i < this.batch.size(); ++i) {
+
+			if (!writeToCheckpointAndRecycle(this.batch.get(i))) {
+				// Either an error occurred or the checkpoint is complete, recycle what is left in any case
+				for (int j = i + 1; j < this.batch.size(); ++j) {
+					recycleTransferEnvelope(this.batch.get(j));
+				}
+				this.batch.clear();
+				return false;
+			}
+		}
+
+		this.metaDataMarks.add(new MetaDataMark(this.metaDataBuffer.size(),
+			this.segmentWriter.getNumberOfRequestedSegments()));
+
+		try {
+			if (this.queuedEnvelopes.isEmpty()) {
+				flushMetaData();
+			} else {
+				flushMetaDataOfWrittenSegments();
+			}
+		} catch (IOException ioe) {
+			this.ioException = ioe;
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compresses the collected segment, replaces the memory-backed buffers of the envelopes in the segment by file
+	 * buffers pointing into the segment and hands the segment to the segment writer.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while reserving space for the segment or a previous segment could not be
+	 *         written
+	 */
+	private void flushSegment() throws IOException {
+
+		if (this.envelopesInSegment.isEmpty()) {
+			return;
+		}
+
+		final ByteBuffer segment = this.segmentWriter.getFreeSegmentBuffer();
+		FileBuffer fileBuffer = null;
+		try {
+			CheckpointSegment.write(this.segmentData, this.segmentDataLength, this.deflater, segment);
+
+			fileBuffer = BufferFactory.createFromFile(segment.remaining(), this.vertexID, this.fileBufferManager,
+				this.distributed, false);
+
+			final long segmentOffset = fileBuffer.getOffset();
+			int offsetInSegment = 0;
+			for (final TransferEnvelope transferEnvelope : this.envelopesInSegment) {
+
+				final Buffer memoryBuffer = transferEnvelope.getBuffer();
+				final int size = memoryBuffer.size();
+				transferEnvelope.setBuffer(BufferFactory.createFromCheckpointSegment(size, segmentOffset,
+					offsetInSegment, this.vertexID, this.fileBufferManager, this.distributed));
+				memoryBuffer.recycleBuffer();
+				offsetInSegment += size;
+			}
+
+		} catch (IOException ioe) {
+			if (fileBuffer != null) {
+				fileBuffer.recycleBuffer();
+			}
+			this.segmentWriter.returnSegmentBuffer(segment);
+			throw ioe;
+		} finally {
+			this.segmentDataLength = 0;
+			this.envelopesInSegment.clear();
+		}
+
+		// The segment writer recycles the file buffer once the segment is written
+		this.segmentWriter.write(fileBuffer, segment);
+	}
+
+	/**
+	 * Writes the meta data collected so far to the meta data file. Before, the method waits for all segments to be
+	 * written, so the meta data never refers to data which is not yet in the checkpoint file.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while writing the meta data or one of the segments
+	 */
+	private void flushMetaData() throws IOException {
+
+		this.segmentWriter.waitForWrittenSegments(this.segmentWriter.getNumberOfRequestedSegments());
+		this.metaDataMarks.clear();
+
+		writeMetaData(this.metaDataBuffer.size());
+	}
+
+	/**
+	 * Writes the meta data of the batches whose segments have all been written to the meta data file. The meta data
+	 * of the other batches remains in the meta data buffer.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while writing the meta data or one of the segments
+	 */
+	private void flushMetaDataOfWrittenSegments() throws IOException {
+
+		final long numberOfWrittenSegments = this.segmentWriter.getNumberOfWrittenSegments();
+
+		int length = 0;
+		while (!this.metaDataMarks.isEmpty()
+			&& this.metaDataMarks.peek().numberOfSegments <= numberOfWrittenSegments) {
+			length = this.metaDataMarks.poll().length;
+		}
+
+		writeMetaData(length);
+
+		for (final MetaDataMark mark : this.metaDataMarks) {
+			mark.length -= length;
+		}
+	}
+
+	/**
+	 * Writes the given number of bytes from the start of the meta data buffer to the meta data file and removes them
+	 * from the buffer.
+	 * 
+	 * @param length
+	 *        the number of bytes to write
+	 * @throws IOException
+	 *         thrown if an error occurs while writing the meta data
+	 */
+	private void writeMetaData(final int length) throws IOException {
+
+		if (length == 0) {
+			return;
+		}
+
+		final byte[] metaData = this.metaDataBuffer.toByteArray();
+		final ByteBuffer bb = ByteBuffer.wrap(metaData, 0, length);
+		while (bb.hasRemaining()) {
+			this.metaDataFileChannel.write(bb);
+		}
+
+		this.metaDataBuffer.reset();
+		this.metaDataBuffer.write(metaData, length, metaData.length - length);
+	}
+
 	/**
 	 * Writes the given transfer envelope to the disk and afterwards recycles its resources. In case of an I/O error,
 	 * the method will save the IOException to ioException, recycle all resources all return <code>false</code>.
@@ -228,10 +502,11 @@ final class WriteThread extends Thread {
 		if (buffer != null) {
 			if (buffer.isBackedByMemory()) {
 
-				// Make sure we transfer the encapsulated buffer to a file and release the memory buffer again
+				// Make sure we transfer the encapsulated buffer to a file and release the memory buffer again. The
+				// reserved space is padded, so the following segments start at aligned offsets as well.
 				Buffer fileBuffer = null;
 				try {
-					fileBuffer = BufferFactory.createFromFile(buffer.size(), this.vertexID,
+					fileBuffer = BufferFactory.createFromFile(CheckpointSegment.align(buffer.size()), this.vertexID,
 						this.fileBufferManager, this.distributed, false);
 					buffer.copyToBuffer(fileBuffer);
 				} catch (IOException ioe) {
@@ -268,6 +543,7 @@ final class WriteThread extends Thread {
 			if (this.metaDataFileChannel != null) {
 
 				try {
+					flushMetaData();
 					this.metaDataFileChannel.close();
 					this.metaDataFileChannel = null;
 
@@ -299,7 +575,7 @@ final class WriteThread extends Thread {
 
 		this.transferEnvelopeSerializer.setTransferEnvelope(transferEnvelope);
 		try {
-			while (this.transferEnvelopeSerializer.write(this.metaDataFileChannel)) {
+			while (this.transferEnvelopeSerializer.write(this.metaDataBufferChannel)) {
 			}
 		} catch (IOException ioe) {
 			this.ioException = ioe;
@@ -343,6 +619,7 @@ final class WriteThread extends Thread {
 			// Finish meta data file
 			try {
 				if (this.metaDataFileChannel != null) {
+					flushMetaData();
 					this.metaDataFileChannel.close();
 
 					// Rename file
@@ -408,4 +685,270 @@ final class WriteThread extends Thread {
 
 		return this.hasDataLeft;
 	}
+
+	/**
+	 * The segment writer writes the compressed segments to the checkpoint file asynchronously, so the write thread can
+	 * compress the next segment in the meantime. Like the writer threads of the
+	 * {@link eu.stratosphere.nephele.services.iomanager.IOManager}, it takes its write requests from a queue and
+	 * returns the written segment buffers through a second queue.
+	 */
+	private static final class SegmentWriter extends Thread {
+
+		/**
+		 * The segment buffers which are currently not used by a pending write request.
+		 */
+		private final BlockingQueue<ByteBuffer> freeSegmentBuffers = new ArrayBlockingQueue<ByteBuffer>(
+			NUMBER_OF_SEGMENT_BUFFERS);
+
+		/**
+		 * The pending write requests.
+		 */
+		private final BlockingQueue<SegmentWriteRequest> requestQueue = new LinkedBlockingQueue<SegmentWriteRequest>();
+
+		/**
+		 * The first error which occurred while writing a segment or <code>null</code> if no error occurred so far.
+		 */
+		private volatile IOException ioException = null;
+
+		/**
+		 * The number of segments which have been handed to the segment writer, only accessed by the write thread.
+		 */
+		private long numberOfRequestedSegments = 0L;
+
+		/**
+		 * The number of segments whose write requests have completed. Protected by
+		 * <code>writtenSegmentsLock</code>.
+		 */
+		private long numberOfWrittenSegments = 0L;
+
+		/**
+		 * The lock to wait on for segments to be written.
+		 */
+		private final Object writtenSegmentsLock = new Object();
+
+		private SegmentWriter(final ExecutionVertexID vertexID) {
+
+			super("Segment writer for vertex " + vertexID);
+
+			for (int i = 0; i < NUMBER_OF_SEGMENT_BUFFERS; ++i) {
+				this.freeSegmentBuffers.add(ByteBuffer.allocate(CheckpointSegment.getMaximumSegmentSize()));
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+
+			while (true) {
+
+				SegmentWriteRequest request = null;
+				while (request == null) {
+					try {
+						request = this.requestQueue.take();
+					} catch (InterruptedException e) {
+						// Only a shutdown request terminates the segment writer
+					}
+				}
+
+				if (request.segment == null) {
+					break;
+				}
+
+				try {
+					// After an error, the remaining segments are only recycled
+					if (this.ioException == null) {
+						while (request.segment.hasRemaining()) {
+							request.fileBuffer.write(request.segment);
+						}
+					}
+				} catch (IOException ioe) {
+					this.ioException = ioe;
+				} finally {
+					request.fileBuffer.recycleBuffer();
+					returnSegmentBuffer(request.segment);
+				}
+
+				synchronized (this.writtenSegmentsLock) {
+					++this.numberOfWrittenSegments;
+					this.writtenSegmentsLock.notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Returns a segment buffer which is not used by any pending write request. If necessary, the method waits for
+		 * a pending write request to complete.
+		 * 
+		 * @return a cleared segment buffer
+		 * @throws IOException
+		 *         thrown if a previous segment could not be written
+		 */
+		private ByteBuffer getFreeSegmentBuffer() throws IOException {
+
+			checkForError();
+
+			boolean interrupted = false;
+			ByteBuffer segment = null;
+			while (segment == null) {
+				try {
+					segment = this.freeSegmentBuffers.take();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+
+			return segment;
+		}
+
+		/**
+		 * Returns a segment buffer which has not been handed to the segment writer.
+		 * 
+		 * @param segment
+		 *        the segment buffer to return
+		 */
+		private void returnSegmentBuffer(final ByteBuffer segment) {
+
+			segment.clear();
+			this.freeSegmentBuffers.add(segment);
+		}
+
+		/**
+		 * Asynchronously writes the given segment to the given file buffer and recycles the file buffer afterwards.
+		 * 
+		 * @param fileBuffer
+		 *        the file buffer reserved for the segment
+		 * @param segment
+		 *        the segment buffer holding the segment between its position and its limit
+		 */
+		private void write(final FileBuffer fileBuffer, final ByteBuffer segment) {
+
+			++this.numberOfRequestedSegments;
+			this.requestQueue.add(new SegmentWriteRequest(fileBuffer, segment));
+		}
+
+		/**
+		 * Returns the number of segments which have been handed to the segment writer so far.
+		 * 
+		 * @return the number of requested segments
+		 */
+		private long getNumberOfRequestedSegments() {
+
+			return this.numberOfRequestedSegments;
+		}
+
+		/**
+		 * Returns the number of segments whose write requests have completed so far.
+		 * 
+		 * @return the number of written segments
+		 * @throws IOException
+		 *         thrown if one of the segments could not be written
+		 */
+		private long getNumberOfWrittenSegments() throws IOException {
+
+			checkForError();
+
+			synchronized (this.writtenSegmentsLock) {
+				return this.numberOfWrittenSegments;
+			}
+		}
+
+		/**
+		 * Waits until the write requests of the given number of segments have completed.
+		 * 
+		 * @param numberOfSegments
+		 *        the number of segments to wait for
+		 * @throws IOException
+		 *         thrown if one of the segments could not be written
+		 */
+		private void waitForWrittenSegments(final long numberOfSegments) throws IOException {
+
+			boolean interrupted = false;
+			synchronized (this.writtenSegmentsLock) {
+				while (this.numberOfWrittenSegments < numberOfSegments) {
+					try {
+						this.writtenSegmentsLock.wait();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+
+			checkForError();
+		}
+
+		/**
+		 * Completes the pending write requests and stops the segment writer.
+		 */
+		private void shutdown() {
+
+			this.requestQueue.add(new SegmentWriteRequest(null, null));
+
+			boolean interrupted = false;
+			while (isAlive()) {
+				try {
+					join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void checkForError() throws IOException {
+
+			final IOException ioe = this.ioException;
+			if (ioe != null) {
+				throw ioe;
+			}
+		}
+	}
+
+	/**
+	 * Marks the end of a batch's meta data in the meta data buffer.
+	 */
+	private static final class MetaDataMark {
+
+		/**
+		 * The number of bytes in the meta data buffer up to the end of the batch.
+		 */
+		private int length;
+
+		/**
+		 * The number of segments which must be written before the batch's meta data.
+		 */
+		private final long numberOfSegments;
+
+		private MetaDataMark(final int length, final long numberOfSegments) {
+			this.length = length;
+			this.numberOfSegments = numberOfSegments;
+		}
+	}
+
+	/**
+	 * A request to write a segment to the checkpoint file. A request without a segment shuts the segment writer down.
+	 */
+	private static final class SegmentWriteRequest {
+
+		private final FileBuffer fileBuffer;
+
+		private final ByteBuffer segment;
+
+		private SegmentWriteRequest(final FileBuffer fileBuffer, final ByteBuffer segment) {
+			this.fileBuffer = fileBuffer;
+			this.segment = segment;
+		}
+	}
 }
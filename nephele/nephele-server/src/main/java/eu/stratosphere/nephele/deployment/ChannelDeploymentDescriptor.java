@@ -19,6 +19,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.io.IOReadableWritable;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 
@@ -26,6 +27,10 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
  * A channel deployment descriptor contains all the information necessary to deploy either an input or an output channel
  * as part of a task on a task manager.
  * <p>
+ * Optionally, the descriptor carries the location of the peer, i.e. the task at the other end of the channel, if the
+ * location is already known to the job manager at deployment time. This allows the task manager to route envelopes
+ * without looking up the receiver at the job manager.
+ * <p>
  * This class is not thread-safe in general.
  * 
  * @author warneke
@@ -42,6 +47,21 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 	 */
 	private final ChannelID inputChannelID;
 
+	/**
+	 * The connection info of the instance the peer is assigned to or <code>null</code> if the location is unknown.
+	 */
+	private InstanceConnectionInfo peerConnectionInfo;
+
+	/**
+	 * The connection ID to be used for network transfers to the peer.
+	 */
+	private int connectionID;
+
+	/**
+	 * Stores whether the peer has already been running when the descriptor was constructed.
+	 */
+	private boolean peerReady;
+
 	/**
 	 * Constructs a new channel deployment descriptor.
 	 * 
@@ -64,6 +84,34 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 		this.inputChannelID = inputChannelID;
 	}
 
+	/**
+	 * Constructs a new channel deployment descriptor which includes the location of the peer.
+	 * 
+	 * @param outputChannelID
+	 *        the ID of the output channel
+	 * @param inputChannelID
+	 *        the ID of the input channel
+	 * @param peerConnectionInfo
+	 *        the connection info of the instance the peer is assigned to
+	 * @param connectionID
+	 *        the connection ID to be used for network transfers to the peer
+	 * @param peerReady
+	 *        <code>true</code> if the peer is already running, <code>false</code> otherwise
+	 */
+	public ChannelDeploymentDescriptor(final ChannelID outputChannelID, final ChannelID inputChannelID,
+			final InstanceConnectionInfo peerConnectionInfo, final int connectionID, final boolean peerReady) {
+
+		this(outputChannelID, inputChannelID);
+
+		if (peerConnectionInfo == null) {
+			throw new IllegalArgumentException("Argument peerConnectionInfo must not be null");
+		}
+
+		this.peerConnectionInfo = peerConnectionInfo;
+		this.connectionID = connectionID;
+		this.peerReady = peerReady;
+	}
+
 	/**
 	 * Default constructor for serialization/deserialization.
 	 */
@@ -81,6 +129,15 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		this.outputChannelID.write(out);
 		this.inputChannelID.write(out);
+
+		if (this.peerConnectionInfo == null) {
+			out.writeBoolean(false);
+		} else {
+			out.writeBoolean(true);
+			this.peerConnectionInfo.write(out);
+			out.writeInt(this.connectionID);
+			out.writeBoolean(this.peerReady);
+		}
 	}
 
 	/**
@@ -91,6 +148,17 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		this.outputChannelID.read(in);
 		this.inputChannelID.read(in);
+
+		if (in.readBoolean()) {
+			this.peerConnectionInfo = new InstanceConnectionInfo();
+			this.peerConnectionInfo.read(in);
+			this.connectionID = in.readInt();
+			this.peerReady = in.readBoolean();
+		} else {
+			this.peerConnectionInfo = null;
+			this.connectionID = 0;
+			this.peerReady = false;
+		}
 	}
 
 	/**
@@ -112,4 +180,35 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		return this.inputChannelID;
 	}
+
+	/**
+	 * Returns the connection info of the instance the peer of this channel is assigned to.
+	 * 
+	 * @return the connection info of the peer's instance or <code>null</code> if the location of the peer has been
+	 *         unknown at deployment time
+	 */
+	public InstanceConnectionInfo getPeerConnectionInfo() {
+
+		return this.peerConnectionInfo;
+	}
+
+	/**
+	 * Returns the connection ID to be used for network transfers to the peer of this channel.
+	 * 
+	 * @return the connection ID to be used for network transfers to the peer
+	 */
+	public int getConnectionID() {
+
+		return this.connectionID;
+	}
+
+	/**
+	 * Checks whether the peer of this channel has already been running at deployment time.
+	 * 
+	 * @return <code>true</code> if the peer has already been running, <code>false</code> otherwise
+	 */
+	public boolean isPeerReady() {
+
+		return this.peerReady;
+	}
 }
@@ -0,0 +1,169 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.executiongraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The construction executor splits the work of building large parts of an {@link ExecutionGraph}, i.e. the execution
+ * vertices of a group vertex or the execution edges of a group edge, into ranges and processes these ranges in
+ * parallel. Small amounts of work are processed by the calling thread directly.
+ * <p>
+ * This class is thread-safe.
+ * 
+ */
+final class ConstructionExecutor {
+
+	/**
+	 * A range of work items which can be processed independently of all other ranges.
+	 * 
+	 */
+	interface RangeTask {
+
+		/**
+		 * Processes the work items from <code>start</code> (inclusive) to <code>end</code> (exclusive).
+		 * 
+		 * @param start
+		 *        the index of the first work item to process
+		 * @param end
+		 *        the index after the last work item to process
+		 * @throws GraphConversionException
+		 *         thrown if an error occurs while processing the work items
+		 */
+		void process(int start, int end) throws GraphConversionException;
+	}
+
+	/**
+	 * The number of threads used to construct execution graphs.
+	 */
+	private static final int NUMBER_OF_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The thread pool shared among all execution graphs.
+	 */
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(NUMBER_OF_THREADS,
+		new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+
+				final Thread thread = new Thread(r, "Execution graph construction thread");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ConstructionExecutor() {
+	}
+
+	/**
+	 * Processes the given number of work items, in parallel if each thread receives at least
+	 * <code>minimumItemsPerThread</code> items. The method returns after all work items have been processed.
+	 * 
+	 * @param numberOfItems
+	 *        the total number of work items
+	 * @param minimumItemsPerThread
+	 *        the minimum number of work items which justifies handing work to another thread
+	 * @param task
+	 *        the task to process the work items
+	 * @throws GraphConversionException
+	 *         thrown if the task reports an error for any of the ranges
+	 */
+	static void execute(final int numberOfItems, final int minimumItemsPerThread, final RangeTask task)
+			throws GraphConversionException {
+
+		final int numberOfRanges = Math.min(NUMBER_OF_THREADS, numberOfItems / Math.max(1, minimumItemsPerThread));
+		if (numberOfRanges <= 1) {
+			task.process(0, numberOfItems);
+			return;
+		}
+
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>(numberOfRanges - 1);
+		final int itemsPerRange = numberOfItems / numberOfRanges;
+
+		// The calling thread processes the last range itself
+		for (int i = 0; i < numberOfRanges - 1; ++i) {
+
+			final int start = i * itemsPerRange;
+			final int end = start + itemsPerRange;
+			futures.add(EXECUTOR.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+
+					task.process(start, end);
+					return null;
+				}
+			}));
+		}
+
+		Throwable failure = null;
+		try {
+			task.process((numberOfRanges - 1) * itemsPerRange, numberOfItems);
+		} catch (Throwable t) {
+			failure = t;
+		}
+
+		// Wait for all other ranges, even if one of them failed, so the graph is not modified afterwards
+		boolean interrupted = false;
+		for (final Future<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+					continue;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				}
+				break;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (failure == null) {
+			return;
+		}
+
+		if (failure instanceof GraphConversionException) {
+			throw (GraphConversionException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+
+		throw new IllegalStateException(failure);
+	}
+}
@@ -76,4 +76,127 @@ public final class DistributionPatternProvider {
 			throw new IllegalStateException("No Match for Distribution Pattern found.");
 		}
 	}
+
+	/**
+	 * Returns the number of wires which leave the given subtask of the producing task. Together with
+	 * {@link #getTargetOfWire(DistributionPattern, int, int, int, int)} this allows to enumerate the wires of a
+	 * subtask without checking every pair of subtasks.
+	 * 
+	 * @param pattern
+	 *        the distribution pattern that should be used
+	 * @param nodeLowerStage
+	 *        the index of the producing task's subtask
+	 * @param sizeSetLowerStage
+	 *        the number of subtasks of the producing task
+	 * @param sizeSetUpperStage
+	 *        the number of subtasks of the consuming task
+	 * @return the number of outgoing wires of the subtask
+	 */
+	public static int getNumberOfOutgoingWires(final DistributionPattern pattern, final int nodeLowerStage,
+			final int sizeSetLowerStage, final int sizeSetUpperStage) {
+
+		switch (pattern) {
+		case BIPARTITE:
+			return sizeSetUpperStage;
+		case POINTWISE:
+			if (sizeSetLowerStage < sizeSetUpperStage) {
+				return (sizeSetUpperStage - nodeLowerStage + sizeSetLowerStage - 1) / sizeSetLowerStage;
+			}
+			return 1;
+		default:
+			throw new IllegalStateException("No Match for Distribution Pattern found.");
+		}
+	}
+
+	/**
+	 * Returns the index of the consuming task's subtask the given outgoing wire leads to. Outgoing wires are ordered
+	 * by the index of the consuming subtask.
+	 * 
+	 * @param pattern
+	 *        the distribution pattern that should be used
+	 * @param nodeLowerStage
+	 *        the index of the producing task's subtask
+	 * @param wire
+	 *        the index of the outgoing wire of the producing subtask
+	 * @param sizeSetLowerStage
+	 *        the number of subtasks of the producing task
+	 * @param sizeSetUpperStage
+	 *        the number of subtasks of the consuming task
+	 * @return the index of the consuming subtask
+	 */
+	public static int getTargetOfWire(final DistributionPattern pattern, final int nodeLowerStage, final int wire,
+			final int sizeSetLowerStage, final int sizeSetUpperStage) {
+
+		switch (pattern) {
+		case BIPARTITE:
+			return wire;
+		case POINTWISE:
+			if (sizeSetLowerStage < sizeSetUpperStage) {
+				return nodeLowerStage + wire * sizeSetLowerStage;
+			}
+			return nodeLowerStage % sizeSetUpperStage;
+		default:
+			throw new IllegalStateException("No Match for Distribution Pattern found.");
+		}
+	}
+
+	/**
+	 * Returns the number of wires which arrive at the given subtask of the consuming task.
+	 * 
+	 * @param pattern
+	 *        the distribution pattern that should be used
+	 * @param nodeUpperStage
+	 *        the index of the consuming task's subtask
+	 * @param sizeSetLowerStage
+	 *        the number of subtasks of the producing task
+	 * @param sizeSetUpperStage
+	 *        the number of subtasks of the consuming task
+	 * @return the number of incoming wires of the subtask
+	 */
+	public static int getNumberOfIncomingWires(final DistributionPattern pattern, final int nodeUpperStage,
+			final int sizeSetLowerStage, final int sizeSetUpperStage) {
+
+		switch (pattern) {
+		case BIPARTITE:
+			return sizeSetLowerStage;
+		case POINTWISE:
+			if (sizeSetLowerStage < sizeSetUpperStage) {
+				return 1;
+			}
+			return (sizeSetLowerStage - nodeUpperStage + sizeSetUpperStage - 1) / sizeSetUpperStage;
+		default:
+			throw new IllegalStateException("No Match for Distribution Pattern found.");
+		}
+	}
+
+	/**
+	 * Returns the position of the wire between the two given subtasks among the incoming wires of the consuming
+	 * subtask. Incoming wires are ordered by the index of the producing subtask. The method assumes that
+	 * {@link #createWire(DistributionPattern, int, int, int, int)} returns <code>true</code> for the two subtasks.
+	 * 
+	 * @param pattern
+	 *        the distribution pattern that should be used
+	 * @param nodeLowerStage
+	 *        the index of the producing task's subtask
+	 * @param sizeSetLowerStage
+	 *        the number of subtasks of the producing task
+	 * @param sizeSetUpperStage
+	 *        the number of subtasks of the consuming task
+	 * @return the position of the wire among the incoming wires of the consuming subtask
+	 */
+	public static int getIndexOfIncomingWire(final DistributionPattern pattern, final int nodeLowerStage,
+			final int sizeSetLowerStage, final int sizeSetUpperStage) {
+
+		switch (pattern) {
+		case BIPARTITE:
+			return nodeLowerStage;
+		case POINTWISE:
+			if (sizeSetLowerStage < sizeSetUpperStage) {
+				return 0;
+			}
+			return nodeLowerStage / sizeSetUpperStage;
+		default:
+			throw new IllegalStateException("No Match for Distribution Pattern found.");
+		}
+	}
 }
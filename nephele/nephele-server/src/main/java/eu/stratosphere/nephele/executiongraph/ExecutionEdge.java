@@ -24,37 +24,101 @@ import eu.stratosphere.nephele.io.compression.CompressionLevel;
  * Objects of this class represent a pair of {@link AbstractInputChannel} and {@link AbstractOutputChannel} objects
  * within an {@link ExecutionGraph}, Nephele's internal scheduling representation for jobs.
  * 
+ * <p>
+ * The IDs of the two channels are not stored but derived from the ID prefix of the edge's group edge, the index of
+ * the source vertex within its group and the edge's index within the output gate. This keeps the memory footprint of
+ * all-to-all connections small and allows the execution graph to resolve a channel ID without a map entry per
+ * channel. The edges of all-to-all connections are created on demand by their gates, so two edge objects which
+ * represent the same pair of channels are equal, but not necessarily identical.
+ * 
  * @author warneke
  */
 public final class ExecutionEdge {
 
+	/**
+	 * The bit of an encoded channel ID which marks the input channel of an edge.
+	 */
+	private static final long INPUT_CHANNEL_FLAG = 0x8000000000000000L;
+
 	private final ExecutionGroupEdge groupEdge;
 
 	private final ExecutionGate outputGate;
 
 	private final ExecutionGate inputGate;
 
-	private final ChannelID outputChannelID;
+	private final long channelIDPrefix;
 
-	private final ChannelID inputChannelID;
+	private final int sourceIndex;
 
 	private final int outputGateIndex;
 
 	private final int inputGateIndex;
 
+	/**
+	 * The ID of the output channel, derived when it is first requested.
+	 */
+	private volatile ChannelID outputChannelID = null;
+
+	/**
+	 * The ID of the input channel, derived when it is first requested.
+	 */
+	private volatile ChannelID inputChannelID = null;
+
 	ExecutionEdge(final ExecutionGate outputGate, final ExecutionGate inputGate, final ExecutionGroupEdge groupEdge,
-			final ChannelID outputChannelID, final ChannelID inputChannelID, final int outputGateIndex,
-			final int inputGateIndex) {
+			final long channelIDPrefix, final int sourceIndex, final int outputGateIndex, final int inputGateIndex) {
 
 		this.outputGate = outputGate;
 		this.inputGate = inputGate;
 		this.groupEdge = groupEdge;
-		this.outputChannelID = outputChannelID;
-		this.inputChannelID = inputChannelID;
+		this.channelIDPrefix = channelIDPrefix;
+		this.sourceIndex = sourceIndex;
 		this.outputGateIndex = outputGateIndex;
 		this.inputGateIndex = inputGateIndex;
 	}
 
+	/**
+	 * Encodes the lower part of a channel ID.
+	 * 
+	 * @param isInputChannel
+	 *        <code>true</code> to encode the ID of the input channel, <code>false</code> for the output channel
+	 * @param sourceIndex
+	 *        the index of the source vertex within its group vertex
+	 * @param outputGateIndex
+	 *        the index of the edge within the output gate of the source vertex
+	 * @return the lower part of the channel ID
+	 */
+	private static long encodeLowerPart(final boolean isInputChannel, final int sourceIndex,
+			final int outputGateIndex) {
+
+		final long lowerPart = (((long) sourceIndex) << 32) | (outputGateIndex & 0xffffffffL);
+
+		return isInputChannel ? (lowerPart | INPUT_CHANNEL_FLAG) : lowerPart;
+	}
+
+	/**
+	 * Extracts the index of the source vertex from the lower part of a channel ID.
+	 * 
+	 * @param lowerPart
+	 *        the lower part of the channel ID
+	 * @return the index of the source vertex within its group vertex
+	 */
+	static int decodeSourceIndex(final long lowerPart) {
+
+		return (int) ((lowerPart & ~INPUT_CHANNEL_FLAG) >>> 32);
+	}
+
+	/**
+	 * Extracts the index of the edge within the output gate from the lower part of a channel ID.
+	 * 
+	 * @param lowerPart
+	 *        the lower part of the channel ID
+	 * @return the index of the edge within the output gate of the source vertex
+	 */
+	static int decodeOutputGateIndex(final long lowerPart) {
+
+		return (int) lowerPart;
+	}
+
 	public ExecutionGate getInputGate() {
 
 		return this.inputGate;
@@ -67,12 +131,24 @@ public final class ExecutionEdge {
 
 	public ChannelID getOutputChannelID() {
 
-		return this.outputChannelID;
+		ChannelID id = this.outputChannelID;
+		if (id == null) {
+			id = new ChannelID(encodeLowerPart(false, this.sourceIndex, this.outputGateIndex), this.channelIDPrefix);
+			this.outputChannelID = id;
+		}
+
+		return id;
 	}
 
 	public ChannelID getInputChannelID() {
 
-		return this.inputChannelID;
+		ChannelID id = this.inputChannelID;
+		if (id == null) {
+			id = new ChannelID(encodeLowerPart(true, this.sourceIndex, this.outputGateIndex), this.channelIDPrefix);
+			this.inputChannelID = id;
+		}
+
+		return id;
 	}
 
 	public int getOutputGateIndex() {
@@ -104,4 +180,35 @@ public final class ExecutionEdge {
 		
 		return this.groupEdge.getConnectionID();
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof ExecutionEdge)) {
+			return false;
+		}
+
+		final ExecutionEdge edge = (ExecutionEdge) obj;
+
+		return this.groupEdge == edge.groupEdge && this.channelIDPrefix == edge.channelIDPrefix
+			&& this.sourceIndex == edge.sourceIndex && this.outputGateIndex == edge.outputGateIndex;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		final long l = this.channelIDPrefix ^ encodeLowerPart(false, this.sourceIndex, this.outputGateIndex);
+
+		return (int) (l ^ (l >>> 32));
+	}
 }
@@ -26,6 +26,10 @@ import eu.stratosphere.nephele.io.compression.CompressionLevel;
  * Objects of this class represent either an {@link InputGate} or {@link OutputGate} within an {@link ExecutionGraph},
  * Nephele's internal scheduling representation for jobs.
  * <p>
+ * The edges of a gate which belongs to an all-to-all connection are not stored. Since every such gate is connected to
+ * every member of the opposite group vertex, its edges are created on demand from the index of the requested edge.
+ * This keeps the size of the execution graph linear in the number of vertices.
+ * <p>
  * This class is thread-safe.
  * 
  * @author warneke
@@ -42,6 +46,37 @@ public final class ExecutionGate {
 
 	private final CopyOnWriteArrayList<ExecutionEdge> edges = new CopyOnWriteArrayList<ExecutionEdge>();
 
+	/**
+	 * The all-to-all connection the edges of this gate are created from or <code>null</code> if the edges are stored.
+	 */
+	private volatile AllToAllConnection allToAllConnection = null;
+
+	/**
+	 * Describes the all-to-all connection of a gate whose edges are created on demand.
+	 * <p>
+	 * This class is immutable.
+	 * 
+	 */
+	private static final class AllToAllConnection {
+
+		private final ExecutionGroupEdge groupEdge;
+
+		private final long channelIDPrefix;
+
+		private final int indexInVertexGroup;
+
+		private final int numberOfEdges;
+
+		private AllToAllConnection(final ExecutionGroupEdge groupEdge, final long channelIDPrefix,
+				final int indexInVertexGroup, final int numberOfEdges) {
+
+			this.groupEdge = groupEdge;
+			this.channelIDPrefix = channelIDPrefix;
+			this.indexInVertexGroup = indexInVertexGroup;
+			this.numberOfEdges = numberOfEdges;
+		}
+	}
+
 	ExecutionGate(final GateID gateID, final ExecutionVertex vertex, final ExecutionGroupEdge groupEdge,
 			final boolean isInputGate) {
 
@@ -68,20 +103,71 @@ public final class ExecutionGate {
 
 	public int getNumberOfEdges() {
 
+		final AllToAllConnection connection = this.allToAllConnection;
+		if (connection != null) {
+			return connection.numberOfEdges;
+		}
+
 		return this.edges.size();
 	}
 
 	public ExecutionEdge getEdge(final int index) {
 
-		return this.edges.get(index);
+		final AllToAllConnection connection = this.allToAllConnection;
+		if (connection == null) {
+			return this.edges.get(index);
+		}
+
+		if (index < 0 || index >= connection.numberOfEdges) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + connection.numberOfEdges);
+		}
+
+		final ExecutionGroupEdge groupEdge = connection.groupEdge;
+		if (this.isInputGate) {
+			// The edge from the source vertex with the given index, which reaches this gate at its own position
+			final ExecutionGate outputGate = groupEdge.getSourceVertex().getGroupMember(index)
+				.getOutputGate(groupEdge.getIndexOfOutputGate());
+
+			return new ExecutionEdge(outputGate, this, groupEdge, connection.channelIDPrefix, index,
+				connection.indexInVertexGroup, index);
+		}
+
+		// The edge to the target vertex with the given index, which it reaches at this vertex' position
+		final ExecutionGate inputGate = groupEdge.getTargetVertex().getGroupMember(index)
+			.getInputGate(groupEdge.getIndexOfInputGate());
+
+		return new ExecutionEdge(this, inputGate, groupEdge, connection.channelIDPrefix,
+			connection.indexInVertexGroup, index, connection.indexInVertexGroup);
 	}
 
 	void replaceAllEdges(final Collection<ExecutionEdge> newEdges) {
-		
+
+		this.allToAllConnection = null;
 		this.edges.clear();
 		this.edges.addAll(newEdges);
 	}
 
+	/**
+	 * Connects this gate to all members of the opposite group vertex of the given all-to-all group edge. The edges
+	 * of the gate are no longer stored but created on demand.
+	 * 
+	 * @param groupEdge
+	 *        the group edge the gate belongs to
+	 * @param channelIDPrefix
+	 *        the upper part of the IDs of the channels represented by the edges
+	 * @param indexInVertexGroup
+	 *        the index of this gate's vertex within its group vertex
+	 * @param numberOfEdges
+	 *        the number of members of the opposite group vertex
+	 */
+	void connectAllToAll(final ExecutionGroupEdge groupEdge, final long channelIDPrefix, final int indexInVertexGroup,
+			final int numberOfEdges) {
+
+		this.edges.clear();
+		this.allToAllConnection = new AllToAllConnection(groupEdge, channelIDPrefix, indexInVertexGroup,
+			numberOfEdges);
+	}
+
 	public ChannelType getChannelType() {
 
 		return this.groupEdge.getChannelType();
@@ -16,6 +16,7 @@
 package eu.stratosphere.nephele.executiongraph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -74,6 +75,11 @@ public class ExecutionGraph implements ExecutionListener {
 	 */
 	private static final Log LOG = LogFactory.getLog(ExecutionGraph.class);
 
+	/**
+	 * The minimum number of execution edges a thread must create to split the creation among several threads.
+	 */
+	private static final int MINIMUM_EDGES_PER_THREAD = 4096;
+
 	/**
 	 * The ID of the job this graph has been built for.
 	 */
@@ -91,10 +97,9 @@ public class ExecutionGraph implements ExecutionListener {
 		1024);
 
 	/**
-	 * Mapping of channel IDs to edges.
+	 * Mapping of channel ID prefixes to the group edges whose execution edges use them.
 	 */
-	private final ConcurrentMap<ChannelID, ExecutionEdge> edgeMap = new ConcurrentHashMap<ChannelID, ExecutionEdge>(
-		1024 * 1024);
+	private final ConcurrentMap<Long, ExecutionGroupEdge> groupEdgeMap = new ConcurrentHashMap<Long, ExecutionGroupEdge>();
 
 	/**
 	 * List of stages in the graph.
@@ -302,17 +307,30 @@ public class ExecutionGraph implements ExecutionListener {
 		reconstructExecutionPipelines();
 	}
 
-	private void createExecutionEdgesForGroupEdge(final ExecutionGroupEdge groupEdge) {
+	/**
+	 * Creates the execution edges between the members of the source and the target vertex of the given group edge.
+	 * The gates of an all-to-all group edge do not store their edges but create them on demand, so the graph stays
+	 * linear in the number of vertices. For the other distribution patterns, the wires are derived per source vertex,
+	 * so the work can be split among several threads for large group vertices.
+	 * 
+	 * @param groupEdge
+	 *        the group edge to create the execution edges for
+	 * @throws GraphConversionException
+	 *         thrown if an error occurs while creating the execution edges
+	 */
+	private void createExecutionEdgesForGroupEdge(final ExecutionGroupEdge groupEdge) throws GraphConversionException {
 
 		final ExecutionGroupVertex source = groupEdge.getSourceVertex();
 		final int indexOfOutputGate = groupEdge.getIndexOfOutputGate();
 		final ExecutionGroupVertex target = groupEdge.getTargetVertex();
 		final int indexOfInputGate = groupEdge.getIndexOfInputGate();
+		final DistributionPattern distributionPattern = groupEdge.getDistributionPattern();
 
-		final Map<GateID, List<ExecutionEdge>> inputChannelMap = new HashMap<GateID, List<ExecutionEdge>>();
-
-		// Unwire the respective gate of the source vertices
 		final int currentNumberOfSourceNodes = source.getCurrentNumberOfGroupMembers();
+		final int currentNumberOfTargetNodes = target.getCurrentNumberOfGroupMembers();
+
+		// Collect and check the respective gates of the source vertices
+		final ExecutionGate[] outputGates = new ExecutionGate[currentNumberOfSourceNodes];
 		for (int i = 0; i < currentNumberOfSourceNodes; ++i) {
 
 			final ExecutionVertex sourceVertex = source.getGroupMember(i);
@@ -327,67 +345,92 @@ public class ExecutionGraph implements ExecutionListener {
 					+ "), but number of output channels is " + outputGate.getNumberOfEdges() + "!");
 			}
 
-			final int currentNumberOfTargetNodes = target.getCurrentNumberOfGroupMembers();
-			final List<ExecutionEdge> outputChannels = new ArrayList<ExecutionEdge>();
+			outputGates[i] = outputGate;
+		}
 
-			for (int j = 0; j < currentNumberOfTargetNodes; ++j) {
+		// Collect and check the respective gates of the target vertices
+		final ExecutionGate[] inputGates = new ExecutionGate[currentNumberOfTargetNodes];
+		for (int i = 0; i < currentNumberOfTargetNodes; ++i) {
 
-				final ExecutionVertex targetVertex = target.getGroupMember(j);
-				final ExecutionGate inputGate = targetVertex.getInputGate(indexOfInputGate);
-				if (inputGate == null) {
-					throw new IllegalStateException("wire: " + targetVertex.getName()
-						+ " has no input gate with index " + indexOfInputGate);
-				}
+			final ExecutionVertex targetVertex = target.getGroupMember(i);
+			final ExecutionGate inputGate = targetVertex.getInputGate(indexOfInputGate);
+			if (inputGate == null) {
+				throw new IllegalStateException("wire: " + targetVertex.getName()
+					+ " has no input gate with index " + indexOfInputGate);
+			}
 
-				if (inputGate.getNumberOfEdges() > 0 && i == 0) {
-					throw new IllegalStateException("wire: wire called on target " + targetVertex.getName() + " ("
-						+ j + "), but number of input channels is " + inputGate.getNumberOfEdges() + "!");
-				}
+			if (inputGate.getNumberOfEdges() > 0) {
+				throw new IllegalStateException("wire: wire called on target " + targetVertex.getName() + " (" + i
+					+ "), but number of input channels is " + inputGate.getNumberOfEdges() + "!");
+			}
 
-				// Check if a wire is supposed to be created
-				if (DistributionPatternProvider.createWire(groupEdge.getDistributionPattern(),
-					i, j, currentNumberOfSourceNodes, currentNumberOfTargetNodes)) {
+			inputGates[i] = inputGate;
+		}
 
-					final ChannelID outputChannelID = new ChannelID();
-					final ChannelID inputChannelID = new ChannelID();
+		// Reserve a channel ID prefix which is unique within this graph for the execution edges
+		this.groupEdgeMap.remove(Long.valueOf(groupEdge.getChannelIDPrefix()), groupEdge);
+		long prefix = new ChannelID().getUpperPart();
+		while (this.groupEdgeMap.putIfAbsent(Long.valueOf(prefix), groupEdge) != null) {
+			prefix = new ChannelID().getUpperPart();
+		}
+		final long channelIDPrefix = prefix;
+		groupEdge.setChannelIDPrefix(channelIDPrefix);
 
-					final ExecutionEdge edge = new ExecutionEdge(outputGate, inputGate, groupEdge, outputChannelID,
-						inputChannelID, outputGate.getNumberOfEdges(), inputGate.getNumberOfEdges());
+		if (distributionPattern == DistributionPattern.BIPARTITE) {
+			for (int i = 0; i < currentNumberOfSourceNodes; ++i) {
+				outputGates[i].connectAllToAll(groupEdge, channelIDPrefix, i, currentNumberOfTargetNodes);
+			}
+			for (int i = 0; i < currentNumberOfTargetNodes; ++i) {
+				inputGates[i].connectAllToAll(groupEdge, channelIDPrefix, i, currentNumberOfSourceNodes);
+			}
+			return;
+		}
 
-					this.edgeMap.put(outputChannelID, edge);
-					this.edgeMap.put(inputChannelID, edge);
+		final ExecutionEdge[][] inputChannels = new ExecutionEdge[currentNumberOfTargetNodes][];
+		for (int i = 0; i < currentNumberOfTargetNodes; ++i) {
+			inputChannels[i] = new ExecutionEdge[DistributionPatternProvider.getNumberOfIncomingWires(
+				distributionPattern, i, currentNumberOfSourceNodes, currentNumberOfTargetNodes)];
+		}
 
-					outputChannels.add(edge);
+		// Create the edges source by source. Every edge has a fixed slot in the input channel arrays, so the ranges
+		// of source vertices can be processed independently.
+		ConstructionExecutor.execute(currentNumberOfSourceNodes,
+			Math.max(1, MINIMUM_EDGES_PER_THREAD / Math.max(1, currentNumberOfTargetNodes)),
+			new ConstructionExecutor.RangeTask() {
 
-					List<ExecutionEdge> inputChannels = inputChannelMap.get(inputGate.getGateID());
-					if (inputChannels == null) {
-						inputChannels = new ArrayList<ExecutionEdge>();
-						inputChannelMap.put(inputGate.getGateID(), inputChannels);
-					}
+				@Override
+				public void process(final int start, final int end) {
 
-					inputChannels.add(edge);
-				}
-			}
+					for (int i = start; i < end; ++i) {
 
-			outputGate.replaceAllEdges(outputChannels);
-		}
+						final ExecutionGate outputGate = outputGates[i];
+						final int inputGateIndex = DistributionPatternProvider.getIndexOfIncomingWire(
+							distributionPattern, i, currentNumberOfSourceNodes, currentNumberOfTargetNodes);
+						final ExecutionEdge[] outputChannels = new ExecutionEdge[DistributionPatternProvider
+							.getNumberOfOutgoingWires(distributionPattern, i, currentNumberOfSourceNodes,
+								currentNumberOfTargetNodes)];
 
-		// Finally, set the channels for the input gates
-		final int currentNumberOfTargetNodes = target.getCurrentNumberOfGroupMembers();
-		for (int i = 0; i < currentNumberOfTargetNodes; ++i) {
+						for (int j = 0; j < outputChannels.length; ++j) {
 
-			final ExecutionVertex targetVertex = target.getGroupMember(i);
-			final ExecutionGate inputGate = targetVertex.getInputGate(indexOfInputGate);
+							final int targetIndex = DistributionPatternProvider.getTargetOfWire(distributionPattern,
+								i, j, currentNumberOfSourceNodes, currentNumberOfTargetNodes);
 
-			final List<ExecutionEdge> inputChannels = inputChannelMap.get(inputGate.getGateID());
-			if (inputChannels == null) {
-				LOG.error("Cannot find input channels for gate ID " + inputGate.getGateID());
-				continue;
-			}
+							final ExecutionEdge edge = new ExecutionEdge(outputGate, inputGates[targetIndex],
+								groupEdge, channelIDPrefix, i, j, inputGateIndex);
 
-			inputGate.replaceAllEdges(inputChannels);
-		}
+							outputChannels[j] = edge;
+							inputChannels[targetIndex][inputGateIndex] = edge;
+						}
+
+						outputGate.replaceAllEdges(Arrays.asList(outputChannels));
+					}
+				}
+			});
 
+		// Finally, set the channels for the input gates
+		for (int i = 0; i < currentNumberOfTargetNodes; ++i) {
+			inputGates[i].replaceAllEdges(Arrays.asList(inputChannels[i]));
+		}
 	}
 
 	/**
@@ -772,7 +815,7 @@ public class ExecutionGraph implements ExecutionListener {
 	 */
 	public ExecutionVertex getVertexByChannelID(final ChannelID id) {
 
-		final ExecutionEdge edge = this.edgeMap.get(id);
+		final ExecutionEdge edge = getEdgeByID(id);
 		if (edge == null) {
 			return null;
 		}
@@ -793,7 +836,32 @@ public class ExecutionGraph implements ExecutionListener {
 	 */
 	public ExecutionEdge getEdgeByID(final ChannelID id) {
 
-		return this.edgeMap.get(id);
+		final ExecutionGroupEdge groupEdge = this.groupEdgeMap.get(Long.valueOf(id.getUpperPart()));
+		if (groupEdge == null) {
+			return null;
+		}
+
+		final int sourceIndex = ExecutionEdge.decodeSourceIndex(id.getLowerPart());
+		final int outputGateIndex = ExecutionEdge.decodeOutputGateIndex(id.getLowerPart());
+
+		final ExecutionVertex sourceVertex = groupEdge.getSourceVertex().getGroupMember(sourceIndex);
+		if (sourceVertex == null) {
+			return null;
+		}
+
+		final ExecutionGate outputGate = sourceVertex.getOutputGate(groupEdge.getIndexOfOutputGate());
+		if (outputGate == null || outputGateIndex < 0 || outputGateIndex >= outputGate.getNumberOfEdges()) {
+			return null;
+		}
+
+		final ExecutionEdge edge = outputGate.getEdge(outputGateIndex);
+
+		// Make sure the ID actually belongs to the edge and is not just a random ID with a matching prefix
+		if (!id.equals(edge.getOutputChannelID()) && !id.equals(edge.getInputChannelID())) {
+			return null;
+		}
+
+		return edge;
 	}
 
 	/**
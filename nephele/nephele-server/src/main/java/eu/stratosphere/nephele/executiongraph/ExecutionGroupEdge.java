@@ -54,6 +54,11 @@ public class ExecutionGroupEdge {
 	 */
 	private volatile int connectionID;
 
+	/**
+	 * The upper part shared by the IDs of all channels represented by this edge.
+	 */
+	private volatile long channelIDPrefix;
+
 	/**
 	 * The group vertex connected to this edge.
 	 */
@@ -211,6 +216,25 @@ public class ExecutionGroupEdge {
 		return this.connectionID;
 	}
 
+	/**
+	 * Sets the upper part shared by the IDs of all channels represented by this edge.
+	 * 
+	 * @param channelIDPrefix
+	 *        the upper part of the channel IDs
+	 */
+	void setChannelIDPrefix(final long channelIDPrefix) {
+		this.channelIDPrefix = channelIDPrefix;
+	}
+
+	/**
+	 * Returns the upper part shared by the IDs of all channels represented by this edge.
+	 * 
+	 * @return the upper part of the channel IDs
+	 */
+	long getChannelIDPrefix() {
+		return this.channelIDPrefix;
+	}
+
 	/**
 	 * Returns if the edge's channel type is user defined.
 	 * 
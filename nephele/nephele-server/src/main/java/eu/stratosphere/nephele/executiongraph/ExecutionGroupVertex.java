@@ -16,6 +16,7 @@
 package eu.stratosphere.nephele.executiongraph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -59,6 +60,11 @@ public final class ExecutionGroupVertex {
 	private static final int DEFAULT_EXECUTION_RETRIES = GlobalConfiguration.getInteger(
 			ConfigConstants.JOB_EXECUTION_RETRIES_KEY, ConfigConstants.DEFAULT_JOB_EXECUTION_RETRIES);
 
+	/**
+	 * The minimum number of execution vertices a thread must create to split the creation among several threads.
+	 */
+	private static final int MINIMUM_VERTICES_PER_THREAD = 64;
+
 	/**
 	 * The name of the vertex.
 	 */
@@ -542,15 +548,28 @@ public final class ExecutionGroupVertex {
 		}
 
 		final ExecutionVertex originalVertex = this.getGroupMember(0);
-		int currentNumberOfExecutionVertices = this.getCurrentNumberOfGroupMembers();
-
-		while (currentNumberOfExecutionVertices++ < initalNumberOfVertices) {
+		final InstanceType type = this.instanceType;
+		final ExecutionVertex[] newVertices = new ExecutionVertex[initalNumberOfVertices
+			- this.getCurrentNumberOfGroupMembers()];
+
+		// Split the original vertex in parallel and add the new vertices in one step, so the copy-on-write list of
+		// group members is only copied once
+		ConstructionExecutor.execute(newVertices.length, MINIMUM_VERTICES_PER_THREAD,
+			new ConstructionExecutor.RangeTask() {
+
+				@Override
+				public void process(final int start, final int end) {
+
+					for (int i = start; i < end; ++i) {
+						final ExecutionVertex vertex = originalVertex.splitVertex();
+						vertex.setAllocatedResource(new AllocatedResource(DummyInstance
+							.createDummyInstance(type), type, null));
+						newVertices[i] = vertex;
+					}
+				}
+			});
 
-			final ExecutionVertex vertex = originalVertex.splitVertex();
-			vertex.setAllocatedResource(new AllocatedResource(DummyInstance
-				.createDummyInstance(this.instanceType), this.instanceType, null));
-			this.groupMembers.add(vertex);
-		}
+		this.groupMembers.addAll(Arrays.asList(newVertices));
 
 		// Update the index and size information attached to the vertices
 		int index = 0;
@@ -37,7 +37,9 @@ import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.execution.ExecutionStateTransition;
 import eu.stratosphere.nephele.instance.AllocatedResource;
 import eu.stratosphere.nephele.instance.AllocationID;
+import eu.stratosphere.nephele.instance.DummyInstance;
 import eu.stratosphere.nephele.io.GateID;
+import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.taskmanager.AbstractTaskResult;
 import eu.stratosphere.nephele.taskmanager.AbstractTaskResult.ReturnCode;
 import eu.stratosphere.nephele.taskmanager.TaskCancelResult;
@@ -1087,7 +1089,7 @@ public final class ExecutionVertex {
 			for (int j = 0; j < numberOfOutputChannels; ++j) {
 
 				final ExecutionEdge ee = eg.getEdge(j);
-				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
+				cdd.add(constructChannelDeploymentDescriptor(ee, ee.getInputGate().getVertex()));
 			}
 
 			ogd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionLevel(), cdd));
@@ -1104,7 +1106,7 @@ public final class ExecutionVertex {
 			for (int j = 0; j < numberOfInputChannels; ++j) {
 
 				final ExecutionEdge ee = eg.getEdge(j);
-				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
+				cdd.add(constructChannelDeploymentDescriptor(ee, ee.getOutputGate().getVertex()));
 			}
 
 			igd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionLevel(), cdd));
@@ -1118,4 +1120,41 @@ public final class ExecutionVertex {
 
 		return tdd;
 	}
+
+	/**
+	 * Constructs the channel deployment descriptor for the given edge. If the edge is a point-to-point network
+	 * connection and the peer vertex has already been assigned to an instance, the location of the peer is included in
+	 * the descriptor, so the task manager does not have to look it up at the job manager.
+	 * 
+	 * @param ee
+	 *        the edge to construct the descriptor for
+	 * @param peer
+	 *        the vertex at the other end of the edge
+	 * @return the channel deployment descriptor for the given edge
+	 */
+	private static ChannelDeploymentDescriptor constructChannelDeploymentDescriptor(final ExecutionEdge ee,
+			final ExecutionVertex peer) {
+
+		if (ee.getChannelType() != ChannelType.NETWORK || ee.isBroadcast()) {
+			return new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID());
+		}
+
+		final AllocatedResource allocatedResource = peer.getAllocatedResource();
+		if (allocatedResource == null || allocatedResource.getInstance() instanceof DummyInstance) {
+			return new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID());
+		}
+
+		final ExecutionState peerState = peer.getExecutionState();
+		final boolean peerIsConsumer = (peer == ee.getInputGate().getVertex());
+		if (peerState == ExecutionState.FINISHED && !peerIsConsumer) {
+			// Events for a finished producer are dropped by the job manager's lookup
+			return new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID());
+		}
+
+		final boolean peerReady = (peerState == ExecutionState.RUNNING || peerState == ExecutionState.REPLAYING
+			|| peerState == ExecutionState.FINISHING || peerState == ExecutionState.FINISHED);
+
+		return new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID(), allocatedResource
+			.getInstance().getInstanceConnectionInfo(), ee.getConnectionID(), peerReady);
+	}
 }
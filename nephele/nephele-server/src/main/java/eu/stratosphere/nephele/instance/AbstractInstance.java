@@ -20,6 +20,9 @@ import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheProfileRequest;
@@ -30,6 +33,7 @@ import eu.stratosphere.nephele.io.IOReadableWritable;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.ipc.RPC;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.plugins.PluginID;
 import eu.stratosphere.nephele.protocols.PluginCommunicationProtocol;
@@ -40,6 +44,8 @@ import eu.stratosphere.nephele.taskmanager.TaskKillResult;
 import eu.stratosphere.nephele.taskmanager.TaskSubmissionResult;
 import eu.stratosphere.nephele.topology.NetworkNode;
 import eu.stratosphere.nephele.topology.NetworkTopology;
+import eu.stratosphere.nephele.types.StringRecord;
+import eu.stratosphere.nephele.util.StringUtils;
 
 /**
  * An abstract instance represents a resource a {@link eu.stratosphere.nephele.taskmanager.TaskManager} runs on.
@@ -48,6 +54,11 @@ import eu.stratosphere.nephele.topology.NetworkTopology;
  */
 public abstract class AbstractInstance extends NetworkNode {
 
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(AbstractInstance.class);
+
 	/**
 	 * The type of the instance.
 	 */
@@ -186,7 +197,9 @@ public abstract class AbstractInstance extends NetworkNode {
 	/**
 	 * Checks if all the libraries required to run the job with the given
 	 * job ID are available on this instance. Any libary that is missing
-	 * is transferred to the instance as a result of this call.
+	 * is transferred to the instance as a result of this call. If another
+	 * instance already holds the library, the instance's task manager
+	 * fetches it from there, otherwise the job manager uploads it.
 	 * 
 	 * @param jobID
 	 *        the ID of the job whose libraries are to be checked for
@@ -208,12 +221,57 @@ public abstract class AbstractInstance extends NetworkNode {
 		LibraryCacheProfileResponse response = null;
 		response = getTaskManagerProxy().getLibraryCacheProfile(request);
 
+		final LibraryDistributionTracker tracker = LibraryDistributionTracker.get();
+
 		// Check response and transfer libraries if necessary
 		for (int k = 0; k < requiredLibraries.length; k++) {
-			if (!response.isCached(k)) {
-				LibraryCacheUpdate update = new LibraryCacheUpdate(requiredLibraries[k]);
-				getTaskManagerProxy().updateLibraryCache(update);
+			if (response.isCached(k)) {
+				tracker.addHolder(requiredLibraries[k], this.instanceConnectionInfo);
+			} else {
+				transferLibrary(tracker, requiredLibraries[k]);
+			}
+		}
+	}
+
+	/**
+	 * Transfers the given library to the instance, preferably from another instance which already holds it.
+	 * 
+	 * @param tracker
+	 *        the tracker which keeps track of the instances holding the library
+	 * @param libraryName
+	 *        the cache name of the library to transfer
+	 * @throws IOException
+	 *         thrown if an error occurs while transferring the library
+	 */
+	private void transferLibrary(final LibraryDistributionTracker tracker, final String libraryName)
+			throws IOException {
+
+		InstanceConnectionInfo source;
+		try {
+			source = tracker.acquireSource(libraryName, this.instanceConnectionInfo);
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while waiting to transfer library " + libraryName);
+		}
+
+		boolean success = false;
+		try {
+			if (source != null) {
+				try {
+					getTaskManagerProxy().fetchLibrary(new StringRecord(libraryName), source);
+					success = true;
+				} catch (IOException ioe) {
+					LOG.warn("Cannot fetch library " + libraryName + " from " + source
+						+ ", uploading it from job manager: " + StringUtils.stringifyException(ioe));
+					tracker.removeHolder(libraryName, source);
+				}
+			}
+
+			if (!success) {
+				getTaskManagerProxy().updateLibraryCache(new LibraryCacheUpdate(libraryName));
+				success = true;
 			}
+		} finally {
+			tracker.releaseSource(libraryName, source, this.instanceConnectionInfo, success);
 		}
 	}
 
@@ -326,6 +384,20 @@ public abstract class AbstractInstance extends NetworkNode {
 		getTaskManagerProxy().logBufferUtilization();
 	}
 
+	/**
+	 * Requests the current transfer statistics of all channels of the given job from the remote task manager.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to request the channel statistics for
+	 * @return the current transfer statistics of the job's channels on this instance
+	 * @throws IOException
+	 *         thrown if an error occurs while transmitting the request
+	 */
+	public synchronized List<ManagementEdgeStatistics> getChannelStatistics(final JobID jobID) throws IOException {
+
+		return getTaskManagerProxy().getChannelStatistics(jobID);
+	}
+
 	/**
 	 * Kills the task manager running on this instance. This method is mainly intended to test and debug Nephele's fault
 	 * tolerance mechanisms.
@@ -383,11 +455,26 @@ public abstract class AbstractInstance extends NetworkNode {
 		getTaskManagerProxy().invalidateLookupCacheEntries(channelIDs);
 	}
 
+	/**
+	 * Activates the entries identified by the given channel IDs in the remote task manager's receiver lookup cache.
+	 * 
+	 * @param channelIDs
+	 *        the channel IDs identifying the cache entries to activate
+	 * @throws IOException
+	 *         thrown if an error occurs during this remote procedure call
+	 */
+	public synchronized void activateLookupCacheEntries(final Set<ChannelID> channelIDs) throws IOException {
+
+		getTaskManagerProxy().activateLookupCacheEntries(channelIDs);
+	}
+
 	/**
 	 * Destroys all RPC stub objects attached to this instance.
 	 */
 	public synchronized void destroyProxies() {
 
+		LibraryDistributionTracker.get().removeInstance(this.instanceConnectionInfo);
+
 		destroyTaskManagerProxy();
 		destroyTaskManagerPluginProxy();
 
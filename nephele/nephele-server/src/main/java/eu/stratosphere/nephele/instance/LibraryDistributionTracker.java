@@ -0,0 +1,267 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.instance;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
+
+/**
+ * The library distribution tracker keeps track of which task managers hold a copy of which library in their library
+ * cache. When a task manager misses a library, the tracker assigns it a peer which already holds the library as a
+ * source, so libraries spread from task manager to task manager instead of being uploaded to every node by the job
+ * manager. Each source, including the job manager itself, serves only a limited number of transfers at a time, so
+ * the libraries are distributed along a tree whose fan-out is bounded by this limit.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LibraryDistributionTracker {
+
+	/**
+	 * The key to configure the maximum number of concurrent library transfers served by a single source.
+	 */
+	private static final String MAX_TRANSFERS_PER_SOURCE_KEY = "librarycache.distribution.fanout";
+
+	/**
+	 * The default maximum number of concurrent library transfers served by a single source.
+	 */
+	private static final int DEFAULT_MAX_TRANSFERS_PER_SOURCE = 2;
+
+	/**
+	 * The instance of the library distribution tracker accessible through a singleton pattern.
+	 */
+	private static LibraryDistributionTracker instance = null;
+
+	/**
+	 * Maps the name of a library to the set of task managers which hold the library.
+	 */
+	private final Map<String, Set<InstanceConnectionInfo>> holders = new HashMap<String, Set<InstanceConnectionInfo>>();
+
+	/**
+	 * Stores the number of transfers each task manager currently serves.
+	 */
+	private final Map<InstanceConnectionInfo, Integer> transfersPerSource =
+		new HashMap<InstanceConnectionInfo, Integer>();
+
+	/**
+	 * The maximum number of concurrent library transfers served by a single source.
+	 */
+	private final int maxTransfersPerSource;
+
+	/**
+	 * The number of transfers the job manager currently serves.
+	 */
+	private int jobManagerTransfers = 0;
+
+	/**
+	 * Returns the singleton instance of the library distribution tracker.
+	 * 
+	 * @return the singleton instance of the library distribution tracker
+	 */
+	public static synchronized LibraryDistributionTracker get() {
+
+		if (instance == null) {
+			instance = new LibraryDistributionTracker(GlobalConfiguration.getInteger(MAX_TRANSFERS_PER_SOURCE_KEY,
+				DEFAULT_MAX_TRANSFERS_PER_SOURCE));
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Constructs a new library distribution tracker.
+	 * 
+	 * @param maxTransfersPerSource
+	 *        the maximum number of concurrent library transfers served by a single source
+	 */
+	LibraryDistributionTracker(final int maxTransfersPerSource) {
+
+		if (maxTransfersPerSource < 1) {
+			throw new IllegalArgumentException("Maximum number of transfers per source must be at least 1");
+		}
+
+		this.maxTransfersPerSource = maxTransfersPerSource;
+	}
+
+	/**
+	 * Records that the given task manager holds the given library in its cache.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the library
+	 * @param holder
+	 *        the connection information of the task manager holding the library
+	 */
+	public synchronized void addHolder(final String libraryName, final InstanceConnectionInfo holder) {
+
+		Set<InstanceConnectionInfo> set = this.holders.get(libraryName);
+		if (set == null) {
+			set = new HashSet<InstanceConnectionInfo>();
+			this.holders.put(libraryName, set);
+		}
+
+		if (set.add(holder)) {
+			// A new source may have become available
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Removes the given task manager as a holder of any library, for example because the instance has been released.
+	 * 
+	 * @param holder
+	 *        the connection information of the task manager to remove
+	 */
+	public synchronized void removeInstance(final InstanceConnectionInfo holder) {
+
+		final Iterator<Set<InstanceConnectionInfo>> it = this.holders.values().iterator();
+		while (it.hasNext()) {
+			final Set<InstanceConnectionInfo> set = it.next();
+			set.remove(holder);
+			if (set.isEmpty()) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Selects the source the given task manager shall obtain the given library from. Among all task managers holding
+	 * the library, the one with the fewest ongoing transfers is selected. If no holder can take another transfer, the
+	 * job manager serves the library itself as long as it has capacity left. Otherwise the method blocks until a source
+	 * becomes available. Every successful call must be followed by a call to
+	 * {@link #releaseSource(String, InstanceConnectionInfo, InstanceConnectionInfo, boolean)}.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the library
+	 * @param requester
+	 *        the connection information of the task manager which misses the library
+	 * @return the connection information of the task manager to obtain the library from or <code>null</code> if the
+	 *         job manager shall upload the library itself
+	 * @throws InterruptedException
+	 *         thrown if the caller is interrupted while waiting for a source to become available
+	 */
+	public synchronized InstanceConnectionInfo acquireSource(final String libraryName,
+			final InstanceConnectionInfo requester) throws InterruptedException {
+
+		while (true) {
+
+			InstanceConnectionInfo source = null;
+			int sourceTransfers = this.maxTransfersPerSource;
+
+			final Set<InstanceConnectionInfo> set = this.holders.get(libraryName);
+			if (set != null) {
+				for (final InstanceConnectionInfo holder : set) {
+
+					if (holder.equals(requester)) {
+						continue;
+					}
+
+					final int transfers = getTransfers(holder);
+					if (transfers < sourceTransfers) {
+						source = holder;
+						sourceTransfers = transfers;
+					}
+				}
+			}
+
+			if (source != null) {
+				this.transfersPerSource.put(source, Integer.valueOf(sourceTransfers + 1));
+				return source;
+			}
+
+			if (this.jobManagerTransfers < this.maxTransfersPerSource) {
+				++this.jobManagerTransfers;
+				return null;
+			}
+
+			wait();
+		}
+	}
+
+	/**
+	 * Releases a source previously acquired through {@link #acquireSource(String, InstanceConnectionInfo)}.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the library
+	 * @param source
+	 *        the source returned by {@link #acquireSource(String, InstanceConnectionInfo)}
+	 * @param requester
+	 *        the connection information of the task manager which requested the library
+	 * @param success
+	 *        <code>true</code> if the requester now holds the library, <code>false</code> if the transfer failed
+	 */
+	public synchronized void releaseSource(final String libraryName, final InstanceConnectionInfo source,
+			final InstanceConnectionInfo requester, final boolean success) {
+
+		if (source == null) {
+			--this.jobManagerTransfers;
+		} else {
+			final int transfers = getTransfers(source) - 1;
+			if (transfers == 0) {
+				this.transfersPerSource.remove(source);
+			} else {
+				this.transfersPerSource.put(source, Integer.valueOf(transfers));
+			}
+		}
+
+		if (success) {
+			addHolder(libraryName, requester);
+		}
+
+		notifyAll();
+	}
+
+	/**
+	 * Removes the given task manager as a holder of the given library, for example because it failed to serve the
+	 * library.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the library
+	 * @param holder
+	 *        the connection information of the task manager to remove
+	 */
+	public synchronized void removeHolder(final String libraryName, final InstanceConnectionInfo holder) {
+
+		final Set<InstanceConnectionInfo> set = this.holders.get(libraryName);
+		if (set != null) {
+			set.remove(holder);
+			if (set.isEmpty()) {
+				this.holders.remove(libraryName);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of transfers the given task manager currently serves.
+	 * 
+	 * @param source
+	 *        the connection information of the task manager
+	 * @return the number of transfers the given task manager currently serves
+	 */
+	private int getTransfers(final InstanceConnectionInfo source) {
+
+		final Integer transfers = this.transfersPerSource.get(source);
+		if (transfers == null) {
+			return 0;
+		}
+
+		return transfers.intValue();
+	}
+}
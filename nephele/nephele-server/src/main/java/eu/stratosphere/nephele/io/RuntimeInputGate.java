@@ -296,7 +296,17 @@ public class RuntimeInputGate<T extends Record> extends AbstractGate<T> implemen
 	 */
 	public int waitForAnyChannelToBecomeAvailable() throws InterruptedException {
 
-		return this.availableChannels.take().intValue();
+		Integer channelIndex = this.availableChannels.poll();
+		if (channelIndex != null) {
+			return channelIndex.intValue();
+		}
+
+		// The task has to block, attribute the waiting time to the channel which eventually provides input
+		final long start = System.nanoTime();
+		channelIndex = this.availableChannels.take();
+		getInputChannel(channelIndex.intValue()).getChannelStatistics().addInputWaitTime(System.nanoTime() - start);
+
+		return channelIndex.intValue();
 	}
 
 	/**
@@ -36,6 +36,14 @@ public final class BufferFactory {
 		return new FileBuffer(bufferSize, offset, ownerID, fileBufferManager, distributed, false);
 	}
 
+	public static FileBuffer createFromCheckpointSegment(final int bufferSize, final long segmentOffset,
+			final int offsetInSegment, final AbstractID ownerID, final FileBufferManager fileBufferManager,
+			final boolean distributed) throws IOException {
+
+		return new FileBuffer(bufferSize, segmentOffset, offsetInSegment, ownerID, fileBufferManager, distributed,
+			false);
+	}
+
 	public static Buffer createFromMemory(final int bufferSize, final ByteBuffer byteBuffer,
 			final MemoryBufferPoolConnector bufferPoolConnector) {
 
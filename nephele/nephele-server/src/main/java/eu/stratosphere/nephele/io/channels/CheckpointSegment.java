@@ -0,0 +1,331 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.channels;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class defines the format of the segments in which checkpoints store the data of many small buffers. A segment
+ * starts with a header which holds the length of the segment's uncompressed data and the number of bytes stored for
+ * it. The stored data follows the header. It is compressed with a {@link Deflater}, unless compression does not reduce
+ * its size, in which case the data is stored as it is. Every segment is padded to a multiple of {@link #ALIGNMENT}
+ * bytes.
+ * <p>
+ * A buffer inside a segment is addressed by the offset of the segment in the file and the offset of the buffer's data
+ * inside the uncompressed segment. The uncompressed data of the segments read last is shared by all buffers of the
+ * segments, so each segment is decompressed only once while its buffers are read.
+ * <p>
+ * This class is thread-safe.
+ * 
+ */
+public final class CheckpointSegment {
+
+	/**
+	 * The maximum number of uncompressed bytes in a segment.
+	 */
+	public static final int MAXIMUM_DATA_SIZE = 1024 * 1024;
+
+	/**
+	 * The alignment in bytes of the segments' sizes.
+	 */
+	public static final int ALIGNMENT = 4096;
+
+	/**
+	 * The size of a segment's header in bytes.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/**
+	 * The number of uncompressed segments which are kept in memory.
+	 */
+	private static final int NUMBER_OF_CACHED_SEGMENTS = 4;
+
+	/**
+	 * The uncompressed data of the segments read last.
+	 */
+	private static final SegmentCache CACHE = new SegmentCache();
+
+	/**
+	 * Returns the size of a segment, including its header and its padding.
+	 * 
+	 * @param storedSize
+	 *        the number of bytes stored for the segment's data
+	 * @return the size of the segment in bytes
+	 */
+	public static int getSegmentSize(final int storedSize) {
+
+		return align(HEADER_SIZE + storedSize);
+	}
+
+	/**
+	 * Rounds the given size up to the next multiple of {@link #ALIGNMENT}.
+	 * 
+	 * @param size
+	 *        the size in bytes to round up
+	 * @return the given size rounded up to the next multiple of {@link #ALIGNMENT}
+	 */
+	public static int align(final int size) {
+
+		return ((size + ALIGNMENT - 1) / ALIGNMENT) * ALIGNMENT;
+	}
+
+	/**
+	 * Returns the size of the largest possible segment, i.e. the size of a segment whose data could not be compressed.
+	 * 
+	 * @return the size of the largest possible segment in bytes
+	 */
+	public static int getMaximumSegmentSize() {
+
+		return getSegmentSize(MAXIMUM_DATA_SIZE);
+	}
+
+	/**
+	 * Writes a segment holding the given data to the provided byte buffer. Afterwards, the byte buffer's position
+	 * points to the start of the segment and its limit to the end of the segment's padding.
+	 * 
+	 * @param data
+	 *        the array holding the segment's uncompressed data
+	 * @param length
+	 *        the number of bytes of uncompressed data
+	 * @param deflater
+	 *        the deflater to compress the data with, it is reset by this method
+	 * @param segment
+	 *        the array-backed byte buffer to write the segment to, it must have at least
+	 *        {@link #getMaximumSegmentSize()} bytes remaining
+	 */
+	public static void write(final byte[] data, final int length, final Deflater deflater, final ByteBuffer segment) {
+
+		if (length > MAXIMUM_DATA_SIZE) {
+			throw new IllegalArgumentException("Segment data of " + length + " bytes exceeds the maximum of "
+				+ MAXIMUM_DATA_SIZE + " bytes");
+		}
+
+		final byte[] target = segment.array();
+		final int start = segment.arrayOffset() + segment.position();
+		final int dataStart = start + HEADER_SIZE;
+
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+
+		// Give up as soon as the compressed data is not smaller than the uncompressed data
+		int storedSize = 0;
+		while (!deflater.finished() && storedSize < length) {
+			storedSize += deflater.deflate(target, dataStart + storedSize, length - storedSize);
+		}
+
+		if (!deflater.finished() || storedSize >= length) {
+			System.arraycopy(data, 0, target, dataStart, length);
+			storedSize = length;
+		}
+
+		final int segmentSize = getSegmentSize(storedSize);
+		Arrays.fill(target, dataStart + storedSize, start + segmentSize, (byte) 0);
+
+		final int position = segment.position();
+		segment.putInt(position, length);
+		segment.putInt(position + 4, storedSize);
+		segment.limit(position + segmentSize);
+	}
+
+	/**
+	 * Reads the segment at the given offset of the file channel and returns its uncompressed data.
+	 * 
+	 * @param fileChannel
+	 *        the file channel to read the segment from
+	 * @param offset
+	 *        the offset of the segment in the file
+	 * @return a byte buffer holding the segment's uncompressed data
+	 * @throws IOException
+	 *         thrown if an error occurs while reading the segment or the segment is corrupt
+	 */
+	public static ByteBuffer read(final FileChannel fileChannel, final long offset) throws IOException {
+
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(fileChannel, header, offset);
+		final int length = header.getInt(0);
+		final int storedSize = header.getInt(4);
+
+		if (length < 0 || length > MAXIMUM_DATA_SIZE || storedSize < 0 || storedSize > length) {
+			throw new IOException("Corrupt checkpoint segment at offset " + offset);
+		}
+
+		final ByteBuffer stored = ByteBuffer.allocate(storedSize);
+		readFully(fileChannel, stored, offset + HEADER_SIZE);
+
+		if (storedSize == length) {
+			stored.flip();
+			return stored;
+		}
+
+		final byte[] data = new byte[length];
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(stored.array(), 0, storedSize);
+			int inflated = 0;
+			while (inflated < length && !inflater.finished()) {
+				final int n = inflater.inflate(data, inflated, length - inflated);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += n;
+			}
+
+			if (inflated != length) {
+				throw new IOException("Corrupt checkpoint segment at offset " + offset + ": expected " + length
+					+ " bytes of data, but found " + inflated);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt checkpoint segment at offset " + offset + ": " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+
+		return ByteBuffer.wrap(data);
+	}
+
+	/**
+	 * Returns the uncompressed data of the segment at the given offset of the file channel. The data is shared with
+	 * all other callers which request the same segment, so it is only read and decompressed if it is not among the
+	 * segments read last.
+	 * 
+	 * @param fileChannel
+	 *        the file channel to read the segment from
+	 * @param offset
+	 *        the offset of the segment in the file
+	 * @return a read-only byte buffer holding the segment's uncompressed data
+	 * @throws IOException
+	 *         thrown if an error occurs while reading the segment or the segment is corrupt
+	 */
+	public static ByteBuffer readShared(final FileChannel fileChannel, final long offset) throws IOException {
+
+		final SegmentKey key = new SegmentKey(fileChannel, offset);
+
+		ByteBuffer data;
+		synchronized (CACHE) {
+			data = CACHE.get(key);
+		}
+
+		if (data == null) {
+			data = read(fileChannel, offset).asReadOnlyBuffer();
+			synchronized (CACHE) {
+				CACHE.put(key, data);
+			}
+		}
+
+		return data.duplicate();
+	}
+
+	/**
+	 * Fills the given byte buffer with data read from the file channel, starting at the given position.
+	 * 
+	 * @param fileChannel
+	 *        the file channel to read from
+	 * @param dst
+	 *        the byte buffer to fill
+	 * @param position
+	 *        the position in the file to start reading at
+	 * @throws IOException
+	 *         thrown if an error occurs while reading or the file ends before the buffer is full
+	 */
+	private static void readFully(final FileChannel fileChannel, final ByteBuffer dst, final long position)
+			throws IOException {
+
+		final int start = dst.position();
+		while (dst.hasRemaining()) {
+			if (fileChannel.read(dst, position + dst.position() - start) < 0) {
+				throw new EOFException("Unexpected end of checkpoint segment at offset " + position);
+			}
+		}
+	}
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private CheckpointSegment() {
+	}
+
+	/**
+	 * Identifies a segment by the file channel it is stored in and its offset in the file. Space in a file is never
+	 * reused while the file is open, so the key cannot refer to outdated data.
+	 */
+	private static final class SegmentKey {
+
+		private final FileChannel fileChannel;
+
+		private final long offset;
+
+		private SegmentKey(final FileChannel fileChannel, final long offset) {
+			this.fileChannel = fileChannel;
+			this.offset = offset;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+
+			if (!(obj instanceof SegmentKey)) {
+				return false;
+			}
+
+			final SegmentKey key = (SegmentKey) obj;
+
+			return (this.fileChannel == key.fileChannel && this.offset == key.offset);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+
+			return System.identityHashCode(this.fileChannel) * 31 + (int) (this.offset ^ (this.offset >>> 32));
+		}
+	}
+
+	/**
+	 * The segment cache keeps the uncompressed data of the {@link #NUMBER_OF_CACHED_SEGMENTS} segments accessed last.
+	 */
+	private static final class SegmentCache extends LinkedHashMap<SegmentKey, ByteBuffer> {
+
+		private static final long serialVersionUID = 7289475025216307340L;
+
+		private SegmentCache() {
+			super(NUMBER_OF_CACHED_SEGMENTS * 2, 0.75f, true);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<SegmentKey, ByteBuffer> eldest) {
+
+			return (size() > NUMBER_OF_CACHED_SEGMENTS);
+		}
+	}
+}
@@ -34,6 +34,17 @@ public final class FileBuffer extends Buffer {
 
 	private long offset;
 
+	/**
+	 * The offset of the buffer's data inside the uncompressed {@link CheckpointSegment} starting at
+	 * <code>offset</code> or <code>-1</code> if the buffer's data is stored in the file as it is.
+	 */
+	private final int offsetInSegment;
+
+	/**
+	 * The buffer's data, if it is part of a checkpoint segment. The data is looked up on first access.
+	 */
+	private ByteBuffer segmentData = null;
+
 	private int bufferSize;
 
 	private int totalBytesWritten;
@@ -53,9 +64,29 @@ public final class FileBuffer extends Buffer {
 			final FileBufferManager fileBufferManager, final boolean distributed, final boolean deleteOnClose)
 			throws IOException {
 
+		this(bufferSize, offset, -1, ownerID, fileBufferManager, distributed, deleteOnClose);
+	}
+
+	/**
+	 * Creates a file buffer for a chunk of data that is already in a file, either as it is or as part of a
+	 * {@link CheckpointSegment}.
+	 * 
+	 * @param bufferSize
+	 * @param offset
+	 *        the offset of the data or of the segment containing the data in the file
+	 * @param offsetInSegment
+	 *        the offset of the data inside the uncompressed segment or <code>-1</code> if the data is not part of a
+	 *        segment
+	 * @param ownerID
+	 */
+	FileBuffer(final int bufferSize, final long offset, final int offsetInSegment, final AbstractID ownerID,
+			final FileBufferManager fileBufferManager, final boolean distributed, final boolean deleteOnClose)
+			throws IOException {
+
 		this.ownerID = ownerID;
 		this.fileBufferManager = fileBufferManager;
 		this.offset = offset;
+		this.offsetInSegment = offsetInSegment;
 		this.bufferSize = bufferSize;
 		this.writeMode.set(false);
 
@@ -83,6 +114,7 @@ public final class FileBuffer extends Buffer {
 
 		this.fileChannel = cwp.getChannel();
 		this.offset = cwp.getOffset();
+		this.offsetInSegment = -1;
 	}
 
 	private FileBuffer(final FileBuffer toCopy) {
@@ -91,6 +123,8 @@ public final class FileBuffer extends Buffer {
 		this.fileBufferManager = toCopy.fileBufferManager;
 		this.fileChannel = toCopy.fileChannel;
 		this.offset = toCopy.offset;
+		this.offsetInSegment = toCopy.offsetInSegment;
+		this.segmentData = (toCopy.segmentData == null) ? null : toCopy.segmentData.duplicate();
 		this.bufferSize = toCopy.bufferSize;
 		this.totalBytesWritten = toCopy.totalBytesWritten;
 		this.totalBytesRead = toCopy.totalBytesRead;
@@ -111,6 +145,14 @@ public final class FileBuffer extends Buffer {
 			return -1;
 		}
 
+		if (this.offsetInSegment >= 0) {
+			final ByteBuffer src = getSegmentData();
+			src.position(this.totalBytesRead);
+			final int bytesRead = writableByteChannel.write(src);
+			this.totalBytesRead += bytesRead;
+			return bytesRead;
+		}
+
 		final long bytesRead = this.fileChannel.transferTo(this.offset + this.totalBytesRead,
 			this.bufferSize - this.totalBytesRead, writableByteChannel);
 		this.totalBytesRead += bytesRead;
@@ -143,6 +185,17 @@ public final class FileBuffer extends Buffer {
 
 	private final int readInternal(final ByteBuffer dst, final long position, final int numBytes) throws IOException {
 
+		if (this.offsetInSegment >= 0) {
+			final ByteBuffer src = getSegmentData();
+			src.position((int) (position - this.offset));
+			if (src.remaining() > dst.remaining()) {
+				src.limit(src.position() + dst.remaining());
+			}
+			final int bytesRead = src.remaining();
+			dst.put(src);
+			return bytesRead;
+		}
+
 		if (dst.remaining() > numBytes) {
 			final int excess = dst.remaining() - numBytes;
 			dst.limit(dst.limit() - excess);
@@ -332,6 +385,44 @@ public final class FileBuffer extends Buffer {
 		return this.offset;
 	}
 
+	/**
+	 * Returns the offset of the buffer's data inside the uncompressed {@link CheckpointSegment} which starts at
+	 * {@link #getOffset()}.
+	 * 
+	 * @return the offset of the buffer's data inside its segment or <code>-1</code> if the data is not part of a
+	 *         segment
+	 */
+	public int getOffsetInSegment() {
+
+		return this.offsetInSegment;
+	}
+
+	/**
+	 * Returns a view of the buffer's data inside its checkpoint segment. The segment's uncompressed data is shared with
+	 * the other buffers of the segment.
+	 * 
+	 * @return a byte buffer whose position is zero and whose limit is the size of this buffer
+	 * @throws IOException
+	 *         thrown if an error occurs while reading the segment
+	 */
+	private ByteBuffer getSegmentData() throws IOException {
+
+		if (this.segmentData == null) {
+			final ByteBuffer segment = CheckpointSegment.readShared(this.fileChannel, this.offset);
+			if (this.offsetInSegment + this.bufferSize > segment.limit()) {
+				throw new IOException("Checkpoint segment at offset " + this.offset + " does not contain "
+					+ this.bufferSize + " bytes at offset " + this.offsetInSegment);
+			}
+			segment.position(this.offsetInSegment);
+			segment.limit(this.offsetInSegment + this.bufferSize);
+			this.segmentData = segment.slice();
+		}
+
+		final ByteBuffer data = this.segmentData.duplicate();
+		data.clear();
+		return data;
+	}
+
 	/**
 	 * Gets this file buffer's owner id.
 	 * 
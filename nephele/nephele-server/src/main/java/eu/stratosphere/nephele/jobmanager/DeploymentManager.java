@@ -16,6 +16,7 @@
 package eu.stratosphere.nephele.jobmanager;
 
 import java.util.List;
+import java.util.Map;
 
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.instance.AbstractInstance;
@@ -32,14 +33,15 @@ import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
 public interface DeploymentManager {
 
 	/**
-	 * Deploys the list of vertices on the given {@link AbstractInstance}.
+	 * Deploys the given vertices in waves. The vertices of one wave are submitted to their {@link AbstractInstance}
+	 * objects concurrently, the next wave is only submitted once all instances of the previous wave have returned
+	 * from the submission.
 	 * 
 	 * @param jobID
 	 *        the ID of the job the vertices to be deployed belong to
-	 * @param instance
-	 *        the instance on which the vertices shall be deployed
 	 * @param verticesToBeDeployed
-	 *        the list of vertices to be deployed
+	 *        the waves of vertices to be deployed, each mapping the instances to the lists of vertices which shall be
+	 *        deployed on them
 	 */
-	void deploy(JobID jobID, AbstractInstance instance, List<ExecutionVertex> verticesToBeDeployed);
+	void deploy(JobID jobID, List<Map<AbstractInstance, List<ExecutionVertex>>> verticesToBeDeployed);
 }
@@ -15,14 +15,15 @@
 
 package eu.stratosphere.nephele.jobmanager;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.event.job.AbstractEvent;
 import eu.stratosphere.nephele.event.job.CheckpointStateChangeEvent;
 import eu.stratosphere.nephele.event.job.ExecutionStateChangeEvent;
@@ -57,8 +58,10 @@ import eu.stratosphere.nephele.topology.NetworkTopology;
 
 /**
  * The event collector collects events which occurred during the execution of a job and prepares them
- * for being fetched by a client. The collected events have an expiration time. In a configurable interval
- * the event collector removes all intervals which are older than the interval.
+ * for being fetched by a client. The events of each job are kept in a bounded, lock-free {@link JobEventBuffer}, so
+ * threads reporting events never block on each other or on clients fetching events. Clients may either fetch the
+ * events which are not older than the query interval or fetch the events incrementally by their sequence number. In a
+ * configurable interval the event collector removes the events of jobs which have stopped running.
  * <p>
  * This class is thread-safe.
  * 
@@ -296,28 +299,44 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 		}
 	}
 
+	/**
+	 * The key to configure the maximum number of events buffered per job.
+	 */
+	private static final String BUFFERED_EVENTS_KEY = "jobmanager.eventcollector.bufferedevents";
+
+	/**
+	 * The default maximum number of events buffered per job.
+	 */
+	private static final int DEFAULT_BUFFERED_EVENTS = 8192;
+
 	private final long timerTaskInterval;
 
 	/**
-	 * The map which stores all collected events until they are either
-	 * fetched by the client or discarded.
+	 * The maximum number of events buffered per job.
+	 */
+	private final int bufferedEventsPerJob;
+
+	/**
+	 * The map which stores the buffers with the collected events of each job until they are discarded.
 	 */
-	private final Map<JobID, List<AbstractEvent>> collectedEvents = new HashMap<JobID, List<AbstractEvent>>();
+	private final ConcurrentMap<JobID, JobEventBuffer> collectedEvents = new ConcurrentHashMap<JobID, JobEventBuffer>();
 
 	/**
 	 * Map of recently started jobs with the time stamp of the last received job event.
 	 */
-	private final Map<JobID, RecentJobEvent> recentJobs = new HashMap<JobID, RecentJobEvent>();
+	private final ConcurrentMap<JobID, RecentJobEvent> recentJobs = new ConcurrentHashMap<JobID, RecentJobEvent>();
 
 	/**
 	 * Map of management graphs belonging to recently started jobs with the time stamp of the last received job event.
 	 */
-	private final Map<JobID, ManagementGraph> recentManagementGraphs = new HashMap<JobID, ManagementGraph>();
+	private final ConcurrentMap<JobID, ManagementGraph> recentManagementGraphs =
+		new ConcurrentHashMap<JobID, ManagementGraph>();
 
 	/**
 	 * Map of network topologies belonging to recently started jobs with the time stamp of the last received job event.
 	 */
-	private final Map<JobID, NetworkTopology> recentNetworkTopologies = new HashMap<JobID, NetworkTopology>();
+	private final ConcurrentMap<JobID, NetworkTopology> recentNetworkTopologies =
+		new ConcurrentHashMap<JobID, NetworkTopology>();
 
 	/**
 	 * The timer used to trigger the cleanup routine.
@@ -336,12 +355,15 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 		this.timerTaskInterval = clientQueryInterval * 1000L * 2L; // Double the interval, clients will take care of
 		// duplicate notifications
 
+		this.bufferedEventsPerJob = GlobalConfiguration.getInteger(BUFFERED_EVENTS_KEY, DEFAULT_BUFFERED_EVENTS);
+
 		this.timer = new Timer();
 		this.timer.schedule(this, this.timerTaskInterval, this.timerTaskInterval);
 	}
 
 	/**
-	 * Retrieves and adds the collected events for the job with the given job ID to the provided list.
+	 * Retrieves and adds the collected events for the job with the given job ID which are not older than the query
+	 * interval to the provided list.
 	 * 
 	 * @param jobID
 	 *        the ID of the job to retrieve the events for
@@ -354,33 +376,43 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	public void getEventsForJob(final JobID jobID, final List<AbstractEvent> eventList,
 			final boolean includeManagementEvents) {
 
-		synchronized (this.collectedEvents) {
-
-			List<AbstractEvent> eventsForJob = this.collectedEvents.get(jobID);
-			if (eventsForJob != null) {
+		final JobEventBuffer buffer = this.collectedEvents.get(jobID);
+		if (buffer != null) {
+			buffer.get(0L, eventList, includeManagementEvents, System.currentTimeMillis() - this.timerTaskInterval);
+		}
+	}
 
-				final Iterator<AbstractEvent> it = eventsForJob.iterator();
-				while (it.hasNext()) {
+	/**
+	 * Retrieves and adds the collected events for the job with the given job ID to the provided list, starting with
+	 * the event with the given sequence number. If the event collector has already discarded some of the requested
+	 * events, the retrieval starts with the oldest event still available.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to retrieve the events for
+	 * @param sequenceNumber
+	 *        the sequence number of the first event to retrieve, as returned by the previous call of this method or
+	 *        <code>0</code> to retrieve all available events
+	 * @param eventList
+	 *        the list to which the events shall be added
+	 * @param includeManagementEvents
+	 *        <code>true</code> if {@link ManagementEvent} objects shall be added to the list as well,
+	 *        <code>false</code> otherwise
+	 * @return the sequence number to pass to the next call of this method to retrieve only new events
+	 */
+	public long getEventsForJob(final JobID jobID, final long sequenceNumber, final List<AbstractEvent> eventList,
+			final boolean includeManagementEvents) {
 
-					final AbstractEvent event = it.next();
-					final boolean isManagementEvent = (event instanceof ManagementEvent);
-					if (!isManagementEvent || includeManagementEvents) {
-						eventList.add(event);
-					}
-				}
-			}
+		final JobEventBuffer buffer = this.collectedEvents.get(jobID);
+		if (buffer == null) {
+			return sequenceNumber;
 		}
+
+		return buffer.get(sequenceNumber, eventList, includeManagementEvents, Long.MIN_VALUE);
 	}
 
 	public void getRecentJobs(List<RecentJobEvent> eventList) {
 
-		synchronized (this.recentJobs) {
-
-			final Iterator<RecentJobEvent> it = this.recentJobs.values().iterator();
-			while (it.hasNext()) {
-				eventList.add(it.next());
-			}
-		}
+		eventList.addAll(this.recentJobs.values());
 	}
 
 	/**
@@ -390,13 +422,9 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	public void shutdown() {
 
 		// Clear event map
-		synchronized (this.collectedEvents) {
-			this.collectedEvents.clear();
-		}
+		this.collectedEvents.clear();
 
-		synchronized (this.recentJobs) {
-			this.recentJobs.clear();
-		}
+		this.recentJobs.clear();
 
 		// Cancel the timer for the cleanup routine
 		this.timer.cancel();
@@ -410,18 +438,18 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	 * @param event
 	 *        the event to be added to the job's event list
 	 */
-	private void addEvent(JobID jobID, AbstractEvent event) {
-
-		synchronized (this.collectedEvents) {
-
-			List<AbstractEvent> eventList = this.collectedEvents.get(jobID);
-			if (eventList == null) {
-				eventList = new ArrayList<AbstractEvent>();
-				this.collectedEvents.put(jobID, eventList);
+	private void addEvent(final JobID jobID, final AbstractEvent event) {
+
+		JobEventBuffer buffer = this.collectedEvents.get(jobID);
+		if (buffer == null) {
+			buffer = new JobEventBuffer(this.bufferedEventsPerJob);
+			final JobEventBuffer previousBuffer = this.collectedEvents.putIfAbsent(jobID, buffer);
+			if (previousBuffer != null) {
+				buffer = previousBuffer;
 			}
-
-			eventList.add(event);
 		}
+
+		buffer.add(event);
 	}
 
 	/**
@@ -445,10 +473,7 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 		final RecentJobEvent recentJobEvent = new RecentJobEvent(jobID, jobName, jobStatus, isProfilingEnabled,
 			submissionTimestamp, currentTime);
 
-		synchronized (this.recentJobs) {
-
-			this.recentJobs.put(jobID, recentJobEvent);
-		}
+		this.recentJobs.put(jobID, recentJobEvent);
 	}
 
 	/**
@@ -499,61 +524,52 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 
 		final long currentTime = System.currentTimeMillis();
 
-		synchronized (this.collectedEvents) {
-
-			final Iterator<JobID> it = this.collectedEvents.keySet().iterator();
-			while (it.hasNext()) {
-
-				final JobID jobID = it.next();
-				final List<AbstractEvent> eventList = this.collectedEvents.get(jobID);
-				if (eventList == null) {
-					continue;
-				}
-
-				final Iterator<AbstractEvent> it2 = eventList.iterator();
-				while (it2.hasNext()) {
+		// Discard the events of jobs which have stopped running, the buffers of running jobs are bounded in size
+		final Iterator<Map.Entry<JobID, JobEventBuffer>> it = this.collectedEvents.entrySet().iterator();
+		while (it.hasNext()) {
 
-					final AbstractEvent event = it2.next();
-					// If the event is older than TIMERTASKINTERVAL, remove it
-					if ((event.getTimestamp() + this.timerTaskInterval) < currentTime) {
-						it2.remove();
-					}
-				}
+			final Map.Entry<JobID, JobEventBuffer> entry = it.next();
+			final RecentJobEvent recentJobEvent = this.recentJobs.get(entry.getKey());
+			if (recentJobEvent != null && !isTerminated(recentJobEvent.getJobStatus())) {
+				continue;
+			}
 
-				if (eventList.isEmpty()) {
-					it.remove();
-				}
+			if ((entry.getValue().getLastEventTimestamp() + this.timerTaskInterval) < currentTime) {
+				it.remove();
 			}
 		}
 
-		synchronized (this.recentJobs) {
-
-			final Iterator<Map.Entry<JobID, RecentJobEvent>> it = this.recentJobs.entrySet().iterator();
-			while (it.hasNext()) {
+		final Iterator<Map.Entry<JobID, RecentJobEvent>> it2 = this.recentJobs.entrySet().iterator();
+		while (it2.hasNext()) {
 
-				final Map.Entry<JobID, RecentJobEvent> entry = it.next();
-				final JobStatus jobStatus = entry.getValue().getJobStatus();
+			final Map.Entry<JobID, RecentJobEvent> entry = it2.next();
 
-				// Only remove jobs from the list which have stopped running
-				if (jobStatus != JobStatus.FINISHED && jobStatus != JobStatus.CANCELED
-					&& jobStatus != JobStatus.FINISHED) {
-					continue;
-				}
+			// Only remove jobs from the list which have stopped running
+			if (!isTerminated(entry.getValue().getJobStatus())) {
+				continue;
+			}
 
-				// Check time stamp of last job status update
-				if ((entry.getValue().getTimestamp() + this.timerTaskInterval) < currentTime) {
-					it.remove();
-					synchronized (this.recentManagementGraphs) {
-						this.recentManagementGraphs.remove(entry.getValue());
-					}
-					synchronized (this.recentNetworkTopologies) {
-						this.recentNetworkTopologies.remove(entry.getValue());
-					}
-				}
+			// Check time stamp of last job status update
+			if ((entry.getValue().getTimestamp() + this.timerTaskInterval) < currentTime) {
+				it2.remove();
+				this.recentManagementGraphs.remove(entry.getKey());
+				this.recentNetworkTopologies.remove(entry.getKey());
 			}
 		}
 	}
 
+	/**
+	 * Checks if the given job status indicates that the job has stopped running.
+	 * 
+	 * @param jobStatus
+	 *        the job status to check
+	 * @return <code>true</code> if the job has stopped running, <code>false</code> otherwise
+	 */
+	private static boolean isTerminated(final JobStatus jobStatus) {
+
+		return (jobStatus == JobStatus.FINISHED || jobStatus == JobStatus.CANCELED || jobStatus == JobStatus.FAILED);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -574,9 +590,7 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	 */
 	void addManagementGraph(final JobID jobID, final ManagementGraph managementGraph) {
 
-		synchronized (this.recentManagementGraphs) {
-			this.recentManagementGraphs.put(jobID, managementGraph);
-		}
+		this.recentManagementGraphs.put(jobID, managementGraph);
 	}
 
 	/**
@@ -589,9 +603,7 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	 */
 	public ManagementGraph getManagementGraph(final JobID jobID) {
 
-		synchronized (this.recentManagementGraphs) {
-			return this.recentManagementGraphs.get(jobID);
-		}
+		return this.recentManagementGraphs.get(jobID);
 	}
 
 	/**
@@ -604,20 +616,17 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	 */
 	private void updateManagementGraph(final JobID jobID, final VertexAssignmentEvent vertexAssignmentEvent) {
 
-		synchronized (this.recentManagementGraphs) {
-
-			final ManagementGraph managementGraph = this.recentManagementGraphs.get(jobID);
-			if (managementGraph == null) {
-				return;
-			}
-			final ManagementVertex vertex = managementGraph.getVertexByID(vertexAssignmentEvent.getVertexID());
-			if (vertex == null) {
-				return;
-			}
-
-			vertex.setInstanceName(vertexAssignmentEvent.getInstanceName());
-			vertex.setInstanceType(vertexAssignmentEvent.getInstanceType());
+		final ManagementGraph managementGraph = this.recentManagementGraphs.get(jobID);
+		if (managementGraph == null) {
+			return;
 		}
+		final ManagementVertex vertex = managementGraph.getVertexByID(vertexAssignmentEvent.getVertexID());
+		if (vertex == null) {
+			return;
+		}
+
+		vertex.setInstanceName(vertexAssignmentEvent.getInstanceName());
+		vertex.setInstanceType(vertexAssignmentEvent.getInstanceType());
 	}
 
 	/**
@@ -630,19 +639,16 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 	 */
 	private void updateManagementGraph(final JobID jobID, final ExecutionStateChangeEvent executionStateChangeEvent) {
 
-		synchronized (this.recentManagementGraphs) {
-
-			final ManagementGraph managementGraph = this.recentManagementGraphs.get(jobID);
-			if (managementGraph == null) {
-				return;
-			}
-			final ManagementVertex vertex = managementGraph.getVertexByID(executionStateChangeEvent.getVertexID());
-			if (vertex == null) {
-				return;
-			}
-
-			vertex.setExecutionState(executionStateChangeEvent.getNewExecutionState());
+		final ManagementGraph managementGraph = this.recentManagementGraphs.get(jobID);
+		if (managementGraph == null) {
+			return;
 		}
+		final ManagementVertex vertex = managementGraph.getVertexByID(executionStateChangeEvent.getVertexID());
+		if (vertex == null) {
+			return;
+		}
+
+		vertex.setExecutionState(executionStateChangeEvent.getNewExecutionState());
 	}
 
 	/**
@@ -0,0 +1,193 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.jobmanager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import eu.stratosphere.nephele.event.job.AbstractEvent;
+import eu.stratosphere.nephele.event.job.ManagementEvent;
+
+/**
+ * A job event buffer is a bounded ring buffer which stores the most recent events of a single job. Each event is
+ * assigned a sequence number reflecting the order in which it has been added to the buffer, so clients can fetch the
+ * events incrementally by passing the sequence number returned by their previous request. Once the buffer is full,
+ * new events overwrite the oldest ones.
+ * <p>
+ * Adding and retrieving events does not require any locks, so threads reporting events are never blocked by other
+ * reporting threads or by clients fetching events.
+ * <p>
+ * This class is thread-safe.
+ */
+final class JobEventBuffer {
+
+	/**
+	 * A slot of the ring buffer, storing an event together with its sequence number.
+	 */
+	private static final class Slot {
+
+		/**
+		 * The sequence number of the event.
+		 */
+		private final long sequenceNumber;
+
+		/**
+		 * The event stored in this slot.
+		 */
+		private final AbstractEvent event;
+
+		/**
+		 * Constructs a new slot.
+		 * 
+		 * @param sequenceNumber
+		 *        the sequence number of the event
+		 * @param event
+		 *        the event to be stored in this slot
+		 */
+		private Slot(final long sequenceNumber, final AbstractEvent event) {
+			this.sequenceNumber = sequenceNumber;
+			this.event = event;
+		}
+	}
+
+	/**
+	 * The slots of the ring buffer.
+	 */
+	private final AtomicReferenceArray<Slot> slots;
+
+	/**
+	 * The bit mask to translate a sequence number into the index of its slot.
+	 */
+	private final int mask;
+
+	/**
+	 * The sequence number which will be assigned to the next event.
+	 */
+	private final AtomicLong nextSequenceNumber = new AtomicLong(0L);
+
+	/**
+	 * The time stamp of the event added last.
+	 */
+	private volatile long lastEventTimestamp = System.currentTimeMillis();
+
+	/**
+	 * Constructs a new job event buffer.
+	 * 
+	 * @param capacity
+	 *        the minimum number of events the buffer shall be able to hold, rounded up to the next power of two
+	 */
+	JobEventBuffer(final int capacity) {
+
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Capacity of event buffer must be between 1 and 2^30");
+		}
+
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+
+		this.slots = new AtomicReferenceArray<Slot>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds an event to the buffer, possibly overwriting the oldest event in the buffer. If the buffer has wrapped
+	 * around while the event was being added, the event is dropped as if it had been overwritten.
+	 * 
+	 * @param event
+	 *        the event to be added
+	 */
+	void add(final AbstractEvent event) {
+
+		final long sequenceNumber = this.nextSequenceNumber.getAndIncrement();
+		final int index = (int) (sequenceNumber & this.mask);
+		final Slot slot = new Slot(sequenceNumber, event);
+
+		// A delayed writer must not overwrite a newer event which has already been stored in the same slot
+		while (true) {
+			final Slot current = this.slots.get(index);
+			if (current != null && current.sequenceNumber > sequenceNumber) {
+				break;
+			}
+			if (this.slots.compareAndSet(index, current, slot)) {
+				break;
+			}
+		}
+
+		this.lastEventTimestamp = event.getTimestamp();
+	}
+
+	/**
+	 * Adds the buffered events whose sequence number is equal to or larger than the given sequence number to the
+	 * provided list. Events which have already been overwritten are skipped. Retrieval stops at the first event which
+	 * has been assigned a sequence number but has not been stored yet, so no event is missed by subsequent calls.
+	 * 
+	 * @param sequenceNumber
+	 *        the sequence number of the first event to retrieve
+	 * @param eventList
+	 *        the list to which the events shall be added
+	 * @param includeManagementEvents
+	 *        <code>true</code> if {@link ManagementEvent} objects shall be added to the list as well,
+	 *        <code>false</code> otherwise
+	 * @param minimumTimestamp
+	 *        events with a time stamp smaller than this value are not added to the list
+	 * @return the sequence number to pass to the next call in order to retrieve only events which have not been
+	 *         retrieved by this call
+	 */
+	long get(final long sequenceNumber, final List<AbstractEvent> eventList, final boolean includeManagementEvents,
+			final long minimumTimestamp) {
+
+		final long end = this.nextSequenceNumber.get();
+		long current = Math.max(Math.max(sequenceNumber, end - this.slots.length()), 0L);
+
+		while (current < end) {
+
+			final Slot slot = this.slots.get((int) (current & this.mask));
+			if (slot == null || slot.sequenceNumber < current) {
+				// The event has not been stored yet, continue from here next time
+				break;
+			}
+
+			// A larger sequence number means the event has already been overwritten
+			if (slot.sequenceNumber == current) {
+
+				final AbstractEvent event = slot.event;
+				if ((includeManagementEvents || !(event instanceof ManagementEvent))
+					&& event.getTimestamp() >= minimumTimestamp) {
+					eventList.add(event);
+				}
+			}
+
+			++current;
+		}
+
+		return current;
+	}
+
+	/**
+	 * Returns the time stamp of the event added last or the creation time of the buffer if no event has been added
+	 * yet.
+	 * 
+	 * @return the time stamp of the event added last
+	 */
+	long getLastEventTimestamp() {
+
+		return this.lastEventTimestamp;
+	}
+}
@@ -37,12 +37,14 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -100,6 +102,7 @@ import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
 import eu.stratosphere.nephele.jobmanager.scheduler.SchedulingException;
 import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitManager;
 import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitWrapper;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.managementgraph.ManagementGraph;
 import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
 import eu.stratosphere.nephele.multicast.MulticastManager;
@@ -124,6 +127,7 @@ import eu.stratosphere.nephele.taskmanager.bytebuffered.ConnectionInfoLookupResp
 import eu.stratosphere.nephele.taskmanager.bytebuffered.RemoteReceiver;
 import eu.stratosphere.nephele.topology.NetworkTopology;
 import eu.stratosphere.nephele.types.IntegerRecord;
+import eu.stratosphere.nephele.types.LongRecord;
 import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.SerializableArrayList;
 import eu.stratosphere.nephele.util.StringUtils;
@@ -154,6 +158,8 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 
 	private final MulticastManager multicastManager;
 
+	private final ReceiverReadinessNotifier receiverReadinessNotifier;
+
 	private InstanceManager instanceManager;
 
 	private final Map<PluginID, JobManagerPlugin> jobManagerPlugins;
@@ -264,6 +270,9 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 		// Create multicastManager
 		this.multicastManager = new MulticastManager(this.scheduler);
 
+		// Create the notifier which pushes the readiness of receivers to the task managers
+		this.receiverReadinessNotifier = new ReceiverReadinessNotifier(this.scheduler, this.executorService);
+
 		// Load profiler if it should be used
 		if (GlobalConfiguration.getBoolean(ProfilingUtils.ENABLE_PROFILING_KEY, false)) {
 			final String profilerClassName = GlobalConfiguration.getString(ProfilingUtils.JOBMANAGER_CLASSNAME_KEY,
@@ -562,6 +571,9 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 			}
 		}
 
+		// Register job with the receiver readiness notifier
+		this.receiverReadinessNotifier.registerJob(eg);
+
 		// Register job with the dynamic input split assigner
 		this.inputSplitManager.registerJob(eg);
 
@@ -758,6 +770,24 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 		return new JobProgressResult(ReturnCode.SUCCESS, null, eventList);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JobProgressResult getJobProgress(final JobID jobID, final LongRecord sequenceNumber) throws IOException {
+
+		if (this.eventCollector == null) {
+			return new JobProgressResult(ReturnCode.ERROR, "JobManager does not support progress reports for jobs",
+				null);
+		}
+
+		final SerializableArrayList<AbstractEvent> eventList = new SerializableArrayList<AbstractEvent>();
+		final long nextSequenceNumber = this.eventCollector.getEventsForJob(jobID, sequenceNumber.getValue(),
+			eventList, false);
+
+		return new JobProgressResult(ReturnCode.SUCCESS, null, eventList, nextSequenceNumber);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -1141,25 +1171,7 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 			return;
 		}
 
-		final Set<AbstractInstance> allocatedInstance = new HashSet<AbstractInstance>();
-
-		final Iterator<ExecutionVertex> it = new ExecutionGraphIterator(eg, true);
-		while (it.hasNext()) {
-
-			final ExecutionVertex vertex = it.next();
-			final ExecutionState state = vertex.getExecutionState();
-			if (state == ExecutionState.RUNNING || state == ExecutionState.FINISHING) {
-				final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
-
-				if (instance instanceof DummyInstance) {
-					LOG.error("Found instance of type DummyInstance for vertex " + vertex.getName() + " (state "
-						+ state + ")");
-					continue;
-				}
-
-				allocatedInstance.add(instance);
-			}
-		}
+		final Set<AbstractInstance> allocatedInstance = getInstancesOfRunningVertices(eg);
 
 		// Send requests to task managers from separate thread
 		final Runnable requestRunnable = new Runnable() {
@@ -1188,23 +1200,80 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void deploy(final JobID jobID, final AbstractInstance instance,
-			final List<ExecutionVertex> verticesToBeDeployed) {
+	public List<ManagementEdgeStatistics> getChannelStatistics(final JobID jobID) throws IOException {
+
+		final List<ManagementEdgeStatistics> channelStatistics = new ArrayList<ManagementEdgeStatistics>();
+
+		final ExecutionGraph eg = this.scheduler.getExecutionGraphByID(jobID);
+		if (eg == null) {
+			return channelStatistics;
+		}
+
+		final Iterator<AbstractInstance> it = getInstancesOfRunningVertices(eg).iterator();
+		while (it.hasNext()) {
+			channelStatistics.addAll(it.next().getChannelStatistics(jobID));
+		}
+
+		return channelStatistics;
+	}
+
+	/**
+	 * Returns the set of instances which currently execute at least one vertex of the given execution graph.
+	 * 
+	 * @param eg
+	 *        the execution graph
+	 * @return the set of instances executing vertices of the given execution graph
+	 */
+	private Set<AbstractInstance> getInstancesOfRunningVertices(final ExecutionGraph eg) {
+
+		final Set<AbstractInstance> allocatedInstance = new HashSet<AbstractInstance>();
+
+		final Iterator<ExecutionVertex> it = new ExecutionGraphIterator(eg, true);
+		while (it.hasNext()) {
+
+			final ExecutionVertex vertex = it.next();
+			final ExecutionState state = vertex.getExecutionState();
+			if (state == ExecutionState.RUNNING || state == ExecutionState.FINISHING) {
+				final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
+
+				if (instance instanceof DummyInstance) {
+					LOG.error("Found instance of type DummyInstance for vertex " + vertex.getName() + " (state "
+						+ state + ")");
+					continue;
+				}
+
+				allocatedInstance.add(instance);
+			}
+		}
+
+		return allocatedInstance;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void deploy(final JobID jobID,
+			final List<Map<AbstractInstance, List<ExecutionVertex>>> verticesToBeDeployed) {
 
 		if (verticesToBeDeployed.isEmpty()) {
 			LOG.error("Method 'deploy' called but list of vertices to be deployed is empty");
 			return;
 		}
 
-		for (final ExecutionVertex vertex : verticesToBeDeployed) {
+		for (final Map<AbstractInstance, List<ExecutionVertex>> wave : verticesToBeDeployed) {
+			for (final List<ExecutionVertex> verticesOfInstance : wave.values()) {
+				for (final ExecutionVertex vertex : verticesOfInstance) {
 
-			// Check vertex state
-			if (vertex.getExecutionState() != ExecutionState.READY) {
-				LOG.error("Expected vertex " + vertex + " to be in state READY but it is in state "
-					+ vertex.getExecutionState());
-			}
+					// Check vertex state
+					if (vertex.getExecutionState() != ExecutionState.READY) {
+						LOG.error("Expected vertex " + vertex + " to be in state READY but it is in state "
+							+ vertex.getExecutionState());
+					}
 
-			vertex.updateExecutionState(ExecutionState.STARTING, null);
+					vertex.updateExecutionState(ExecutionState.STARTING, null);
+				}
+			}
 		}
 
 		// Create a new runnable and pass it the executor service
@@ -1216,67 +1285,140 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 			@Override
 			public void run() {
 
-				// Check if all required libraries are available on the instance
-				try {
-					instance.checkLibraryAvailability(jobID);
-				} catch (IOException ioe) {
-					LOG.error("Cannot check library availability: " + StringUtils.stringifyException(ioe));
+				for (final Map<AbstractInstance, List<ExecutionVertex>> wave : verticesToBeDeployed) {
+					if (!submitWave(jobID, wave)) {
+						return;
+					}
 				}
+			}
+		};
 
-				final List<TaskDeploymentDescriptor> submissionList = new SerializableArrayList<TaskDeploymentDescriptor>();
+		this.executorService.execute(deploymentRunnable);
+	}
 
-				// Check the consistency of the call
-				for (final ExecutionVertex vertex : verticesToBeDeployed) {
+	/**
+	 * Submits the vertices of one deployment wave to their instances and waits until all instances have returned
+	 * from the submission. The last instance of the wave is served by the calling thread.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the vertices to be deployed belong to
+	 * @param wave
+	 *        the vertices to be deployed, grouped by instance
+	 * @return <code>true</code> if all instances have returned from the submission, <code>false</code> if the calling
+	 *         thread has been interrupted while waiting for them
+	 */
+	private boolean submitWave(final JobID jobID, final Map<AbstractInstance, List<ExecutionVertex>> wave) {
 
-					submissionList.add(vertex.constructDeploymentDescriptor());
+		final CountDownLatch pendingSubmissions = new CountDownLatch(wave.size() - 1);
 
-					LOG.info("Starting task " + vertex + " on " + vertex.getAllocatedResource().getInstance());
-				}
+		final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it = wave.entrySet().iterator();
+		while (it.hasNext()) {
+
+			final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it.next();
+			if (!it.hasNext()) {
+				submitTasks(jobID, entry.getKey(), entry.getValue());
+				break;
+			}
 
-				List<TaskSubmissionResult> submissionResultList = null;
+			this.executorService.execute(new Runnable() {
 
-				try {
-					submissionResultList = instance.submitTasks(submissionList);
-				} catch (final IOException ioe) {
-					final String errorMsg = StringUtils.stringifyException(ioe);
-					for (final ExecutionVertex vertex : verticesToBeDeployed) {
-						vertex.updateExecutionStateAsynchronously(ExecutionState.FAILED, errorMsg);
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public void run() {
+
+					try {
+						submitTasks(jobID, entry.getKey(), entry.getValue());
+					} finally {
+						pendingSubmissions.countDown();
 					}
 				}
+			});
+		}
 
-				if (verticesToBeDeployed.size() != submissionResultList.size()) {
-					LOG.error("size of submission result list does not match size of list with vertices to be deployed");
-				}
+		try {
+			pendingSubmissions.await();
+		} catch (InterruptedException ie) {
+			LOG.error("Interrupted while waiting for the submission of tasks of job " + jobID);
+			return false;
+		}
 
-				int count = 0;
-				for (final TaskSubmissionResult tsr : submissionResultList) {
-
-					ExecutionVertex vertex = verticesToBeDeployed.get(count++);
-					if (!vertex.getID().equals(tsr.getVertexID())) {
-						LOG.error("Expected different order of objects in task result list");
-						vertex = null;
-						for (final ExecutionVertex candVertex : verticesToBeDeployed) {
-							if (tsr.getVertexID().equals(candVertex.getID())) {
-								vertex = candVertex;
-								break;
-							}
-						}
+		return true;
+	}
 
-						if (vertex == null) {
-							LOG.error("Cannot find execution vertex for vertex ID " + tsr.getVertexID());
-							continue;
-						}
-					}
+	/**
+	 * Submits the given list of vertices to the given instance and marks the vertices the instance could not start as
+	 * failed.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the vertices to be deployed belong to
+	 * @param instance
+	 *        the instance on which the vertices shall be deployed
+	 * @param verticesToBeDeployed
+	 *        the list of vertices to be deployed
+	 */
+	private void submitTasks(final JobID jobID, final AbstractInstance instance,
+			final List<ExecutionVertex> verticesToBeDeployed) {
 
-					if (tsr.getReturnCode() != AbstractTaskResult.ReturnCode.SUCCESS) {
-						// Change the execution state to failed and let the scheduler deal with the rest
-						vertex.updateExecutionStateAsynchronously(ExecutionState.FAILED, tsr.getDescription());
+		// Check if all required libraries are available on the instance
+		try {
+			instance.checkLibraryAvailability(jobID);
+		} catch (IOException ioe) {
+			LOG.error("Cannot check library availability: " + StringUtils.stringifyException(ioe));
+		}
+
+		final List<TaskDeploymentDescriptor> submissionList = new SerializableArrayList<TaskDeploymentDescriptor>();
+
+		// Check the consistency of the call
+		for (final ExecutionVertex vertex : verticesToBeDeployed) {
+
+			submissionList.add(vertex.constructDeploymentDescriptor());
+
+			LOG.info("Starting task " + vertex + " on " + vertex.getAllocatedResource().getInstance());
+		}
+
+		List<TaskSubmissionResult> submissionResultList = null;
+
+		try {
+			submissionResultList = instance.submitTasks(submissionList);
+		} catch (final IOException ioe) {
+			final String errorMsg = StringUtils.stringifyException(ioe);
+			for (final ExecutionVertex vertex : verticesToBeDeployed) {
+				vertex.updateExecutionStateAsynchronously(ExecutionState.FAILED, errorMsg);
+			}
+			return;
+		}
+
+		if (verticesToBeDeployed.size() != submissionResultList.size()) {
+			LOG.error("size of submission result list does not match size of list with vertices to be deployed");
+		}
+
+		int count = 0;
+		for (final TaskSubmissionResult tsr : submissionResultList) {
+
+			ExecutionVertex vertex = verticesToBeDeployed.get(count++);
+			if (!vertex.getID().equals(tsr.getVertexID())) {
+				LOG.error("Expected different order of objects in task result list");
+				vertex = null;
+				for (final ExecutionVertex candVertex : verticesToBeDeployed) {
+					if (tsr.getVertexID().equals(candVertex.getID())) {
+						vertex = candVertex;
+						break;
 					}
 				}
+
+				if (vertex == null) {
+					LOG.error("Cannot find execution vertex for vertex ID " + tsr.getVertexID());
+					continue;
+				}
 			}
-		};
 
-		this.executorService.execute(deploymentRunnable);
+			if (tsr.getReturnCode() != AbstractTaskResult.ReturnCode.SUCCESS) {
+				// Change the execution state to failed and let the scheduler deal with the rest
+				vertex.updateExecutionStateAsynchronously(ExecutionState.FAILED, tsr.getDescription());
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,313 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.execution.ExecutionListener;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.executiongraph.ExecutionEdge;
+import eu.stratosphere.nephele.executiongraph.ExecutionGate;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraphIterator;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.DummyInstance;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
+import eu.stratosphere.nephele.util.SerializableHashSet;
+import eu.stratosphere.nephele.util.StringUtils;
+
+/**
+ * The receiver readiness notifier pushes the readiness of receivers to the task managers. Task deployment descriptors
+ * already contain the locations of the connected tasks, so a task manager only has to learn when the receiver of a
+ * channel is running. As soon as a vertex is running, the notifier activates the corresponding entries in the lookup
+ * caches of the task managers its peers run on. All notifications which accumulate while a batch is sent to the task
+ * managers are combined into one call per instance.
+ * <p>
+ * Point-to-point network channels are deployed lazily, so the notifier also triggers the deployment of assigned
+ * receivers once their sender is running. The receiver lookup of the {@link JobManager} remains as a fallback.
+ * <p>
+ * This class is thread-safe.
+ */
+final class ReceiverReadinessNotifier {
+
+	/**
+	 * The log object used to report problems and errors.
+	 */
+	private static final Log LOG = LogFactory.getLog(ReceiverReadinessNotifier.class);
+
+	/**
+	 * The scheduler used to deploy assigned receivers.
+	 */
+	private final AbstractScheduler scheduler;
+
+	/**
+	 * The executor service used to send the notifications.
+	 */
+	private final ExecutorService executorService;
+
+	/**
+	 * The IDs of the source channels whose receivers are ready, grouped by the instance to be notified.
+	 */
+	private final Map<AbstractInstance, Set<ChannelID>> pendingNotifications = new HashMap<AbstractInstance, Set<ChannelID>>();
+
+	/**
+	 * Stores whether sending the pending notifications has already been scheduled. Protected by
+	 * <code>pendingNotifications</code>.
+	 */
+	private boolean sendScheduled = false;
+
+	/**
+	 * Constructs a new receiver readiness notifier.
+	 * 
+	 * @param scheduler
+	 *        the scheduler used to deploy assigned receivers
+	 * @param executorService
+	 *        the executor service used to send the notifications
+	 */
+	ReceiverReadinessNotifier(final AbstractScheduler scheduler, final ExecutorService executorService) {
+
+		this.scheduler = scheduler;
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Subscribes to the state changes of all vertices of the given execution graph.
+	 * 
+	 * @param executionGraph
+	 *        the execution graph to register
+	 */
+	void registerJob(final ExecutionGraph executionGraph) {
+
+		final Iterator<ExecutionVertex> it = new ExecutionGraphIterator(executionGraph, true);
+		while (it.hasNext()) {
+
+			final ExecutionVertex vertex = it.next();
+			vertex.registerExecutionListener(new ReadinessListener(vertex));
+		}
+	}
+
+	/**
+	 * Collects the notifications for the peers of the given vertex which has just switched to a running state.
+	 * 
+	 * @param vertex
+	 *        the vertex which is now running
+	 */
+	private void vertexRunning(final ExecutionVertex vertex) {
+
+		final List<ExecutionVertex> receiversToDeploy = new ArrayList<ExecutionVertex>();
+
+		synchronized (this.pendingNotifications) {
+
+			// The senders of the input channels can now send their data to the vertex
+			for (int i = 0; i < vertex.getNumberOfInputGates(); ++i) {
+
+				final ExecutionGate inputGate = vertex.getInputGate(i);
+				for (int j = 0; j < inputGate.getNumberOfEdges(); ++j) {
+
+					final ExecutionEdge edge = inputGate.getEdge(j);
+					if (isPointToPointNetworkEdge(edge)) {
+						addNotification(edge.getOutputGate().getVertex(), edge.getOutputChannelID());
+					}
+				}
+			}
+
+			// The receivers of the output channels can now send their events to the vertex
+			for (int i = 0; i < vertex.getNumberOfOutputGates(); ++i) {
+
+				final ExecutionGate outputGate = vertex.getOutputGate(i);
+				for (int j = 0; j < outputGate.getNumberOfEdges(); ++j) {
+
+					final ExecutionEdge edge = outputGate.getEdge(j);
+					if (!isPointToPointNetworkEdge(edge)) {
+						continue;
+					}
+
+					final ExecutionVertex receiver = edge.getInputGate().getVertex();
+					if (receiver.getExecutionState() == ExecutionState.ASSIGNED) {
+						receiversToDeploy.add(receiver);
+					} else {
+						addNotification(receiver, edge.getInputChannelID());
+					}
+				}
+			}
+
+			if (!this.sendScheduled && !this.pendingNotifications.isEmpty()) {
+				this.sendScheduled = true;
+				this.executorService.execute(new Runnable() {
+
+					/**
+					 * {@inheritDoc}
+					 */
+					@Override
+					public void run() {
+
+						sendNotifications();
+					}
+				});
+			}
+		}
+
+		if (!receiversToDeploy.isEmpty()) {
+			this.scheduler.deployAssignedVertices(receiversToDeploy);
+		}
+	}
+
+	/**
+	 * Adds a notification for the task manager the given peer runs on, if the peer is being or has been deployed. A
+	 * peer in state READY may already have its deployment descriptor built without the readiness of the vertex, so it
+	 * is notified as well. The task manager keeps activations which overtake the deployment until the task arrives.
+	 * 
+	 * @param peer
+	 *        the peer which has been told about the location of the running vertex
+	 * @param sourceChannelID
+	 *        the ID of the peer's channel whose receiver is ready
+	 */
+	private void addNotification(final ExecutionVertex peer, final ChannelID sourceChannelID) {
+
+		final ExecutionState state = peer.getExecutionState();
+		if (state != ExecutionState.READY && state != ExecutionState.STARTING && state != ExecutionState.RUNNING
+			&& state != ExecutionState.REPLAYING && state != ExecutionState.FINISHING) {
+			// The deployment descriptor of the peer will contain the current state
+			return;
+		}
+
+		final AllocatedResource allocatedResource = peer.getAllocatedResource();
+		if (allocatedResource == null || allocatedResource.getInstance() instanceof DummyInstance) {
+			return;
+		}
+
+		final AbstractInstance instance = allocatedResource.getInstance();
+		Set<ChannelID> channelIDs = this.pendingNotifications.get(instance);
+		if (channelIDs == null) {
+			channelIDs = new SerializableHashSet<ChannelID>();
+			this.pendingNotifications.put(instance, channelIDs);
+		}
+
+		channelIDs.add(sourceChannelID);
+	}
+
+	/**
+	 * Sends all pending notifications, one call per instance.
+	 */
+	private void sendNotifications() {
+
+		final Map<AbstractInstance, Set<ChannelID>> notifications;
+		synchronized (this.pendingNotifications) {
+			notifications = new HashMap<AbstractInstance, Set<ChannelID>>(this.pendingNotifications);
+			this.pendingNotifications.clear();
+			this.sendScheduled = false;
+		}
+
+		final Iterator<Map.Entry<AbstractInstance, Set<ChannelID>>> it = notifications.entrySet().iterator();
+		while (it.hasNext()) {
+
+			final Map.Entry<AbstractInstance, Set<ChannelID>> entry = it.next();
+			try {
+				entry.getKey().activateLookupCacheEntries(entry.getValue());
+			} catch (IOException ioe) {
+				// The task manager falls back to looking up the receivers
+				LOG.error(StringUtils.stringifyException(ioe));
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the given edge is a point-to-point network connection whose peers are announced in the
+	 * deployment descriptors.
+	 * 
+	 * @param edge
+	 *        the edge to check
+	 * @return <code>true</code> if the edge is a point-to-point network connection, <code>false</code> otherwise
+	 */
+	private static boolean isPointToPointNetworkEdge(final ExecutionEdge edge) {
+
+		return (edge.getChannelType() == ChannelType.NETWORK && !edge.isBroadcast());
+	}
+
+	/**
+	 * The readiness listener informs the notifier about vertices which switched to a running state.
+	 */
+	private final class ReadinessListener implements ExecutionListener {
+
+		/**
+		 * The vertex this listener belongs to.
+		 */
+		private final ExecutionVertex vertex;
+
+		/**
+		 * Constructs a new readiness listener.
+		 * 
+		 * @param vertex
+		 *        the vertex this listener belongs to
+		 */
+		private ReadinessListener(final ExecutionVertex vertex) {
+			this.vertex = vertex;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getPriority() {
+
+			return 30;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void executionStateChanged(final JobID jobID, final ExecutionVertexID vertexID,
+				final ExecutionState newExecutionState, final String optionalMessage) {
+
+			if (newExecutionState == ExecutionState.RUNNING || newExecutionState == ExecutionState.REPLAYING) {
+				vertexRunning(this.vertex);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void userThreadStarted(final JobID jobID, final ExecutionVertexID vertexID, final Thread userThread) {
+			// Nothing to do here
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void userThreadFinished(final JobID jobID, final ExecutionVertexID vertexID, final Thread userThread) {
+			// Nothing to do here
+		}
+	}
+}
@@ -17,7 +17,6 @@ package eu.stratosphere.nephele.jobmanager.scheduler;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -28,6 +27,7 @@ import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.executiongraph.CheckpointState;
 import eu.stratosphere.nephele.executiongraph.ExecutionEdge;
@@ -70,6 +70,16 @@ public abstract class AbstractScheduler implements InstanceListener {
 	 */
 	protected static final Log LOG = LogFactory.getLog(AbstractScheduler.class);
 
+	/**
+	 * The configuration key to enable the eager deployment of pipelined vertices.
+	 */
+	private static final String EAGER_DEPLOYMENT_KEY = "jobmanager.deployment.eager";
+
+	/**
+	 * By default, vertices connected through network channels are deployed lazily.
+	 */
+	private static final boolean DEFAULT_EAGER_DEPLOYMENT = false;
+
 	/**
 	 * The instance manager assigned to this scheduler.
 	 */
@@ -85,6 +95,13 @@ public abstract class AbstractScheduler implements InstanceListener {
 	 */
 	private final Map<ExecutionVertexID, ExecutionVertex> verticesToBeRestarted = new ConcurrentHashMap<ExecutionVertexID, ExecutionVertex>();
 
+	/**
+	 * Stores whether vertices connected through network channels are deployed together with their producers instead
+	 * of on the first lookup of their receivers.
+	 */
+	private final boolean eagerDeployment = GlobalConfiguration.getBoolean(EAGER_DEPLOYMENT_KEY,
+		DEFAULT_EAGER_DEPLOYMENT);
+
 	/**
 	 * Constructs a new abstract scheduler.
 	 * 
@@ -180,29 +197,30 @@ public abstract class AbstractScheduler implements InstanceListener {
 		}
 	}
 
-	void findVerticesToBeDeployed(final ExecutionVertex vertex,
-			final Map<AbstractInstance, List<ExecutionVertex>> verticesToBeDeployed,
+	/**
+	 * Collects the execution vertices with the state ASSIGNED which are reachable from the given vertex through
+	 * pipelined channels and switches them to the state READY. In-memory channels are always followed, network
+	 * channels only if eager deployment is enabled. The vertices of each instance are ordered sink-first, so the
+	 * receivers of a channel are submitted before its senders. The channels between different instances are recorded
+	 * in the deployment plan, so the instances hosting receivers can be submitted first as well.
+	 * 
+	 * @param vertex
+	 *        the vertex to start the search from
+	 * @param deploymentPlan
+	 *        the deployment plan to add the vertices to be deployed to
+	 * @param alreadyVisited
+	 *        the set of vertices which have already been visited
+	 */
+	void findVerticesToBeDeployed(final ExecutionVertex vertex, final DeploymentPlan deploymentPlan,
 			final Set<ExecutionVertex> alreadyVisited) {
 
 		if (!alreadyVisited.add(vertex)) {
 			return;
 		}
 
-		if (vertex.compareAndUpdateExecutionState(ExecutionState.ASSIGNED, ExecutionState.READY)) {
-			final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
-
-			if (instance instanceof DummyInstance) {
-				LOG.error("Inconsistency: Vertex " + vertex + " is about to be deployed on a DummyInstance");
-			}
-
-			List<ExecutionVertex> verticesForInstance = verticesToBeDeployed.get(instance);
-			if (verticesForInstance == null) {
-				verticesForInstance = new ArrayList<ExecutionVertex>();
-				verticesToBeDeployed.put(instance, verticesForInstance);
-			}
-
-			verticesForInstance.add(vertex);
-		}
+		final boolean deployVertex = vertex.compareAndUpdateExecutionState(ExecutionState.ASSIGNED,
+			ExecutionState.READY);
+		final AbstractInstance instance = deployVertex ? vertex.getAllocatedResource().getInstance() : null;
 
 		final int numberOfOutputGates = vertex.getNumberOfOutputGates();
 		for (int i = 0; i < numberOfOutputGates; ++i) {
@@ -215,7 +233,7 @@ public abstract class AbstractScheduler implements InstanceListener {
 				deployTarget = false;
 				break;
 			case NETWORK:
-				deployTarget = false;
+				deployTarget = this.eagerDeployment;
 				break;
 			case INMEMORY:
 				deployTarget = true;
@@ -230,10 +248,39 @@ public abstract class AbstractScheduler implements InstanceListener {
 				for (int j = 0; j < numberOfOutputChannels; ++j) {
 					final ExecutionEdge outputChannel = outputGate.getEdge(j);
 					final ExecutionVertex connectedVertex = outputChannel.getInputGate().getVertex();
-					findVerticesToBeDeployed(connectedVertex, verticesToBeDeployed, alreadyVisited);
+					findVerticesToBeDeployed(connectedVertex, deploymentPlan, alreadyVisited);
+					if (deployVertex) {
+						deploymentPlan.addChannel(instance, connectedVertex);
+					}
 				}
 			}
 		}
+
+		// Add the vertex after its receivers (post-order), so every instance's list is ordered sink-first
+		if (deployVertex) {
+
+			if (instance instanceof DummyInstance) {
+				LOG.error("Inconsistency: Vertex " + vertex + " is about to be deployed on a DummyInstance");
+			}
+
+			deploymentPlan.addVertex(vertex, instance);
+		}
+	}
+
+	/**
+	 * Passes the vertices of the given deployment plan to the deployment manager. The instances are handed over in
+	 * waves, so the instances hosting the receivers of a channel are submitted before the instance of its sender.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the vertices belong to
+	 * @param deploymentPlan
+	 *        the deployment plan containing the vertices to be deployed
+	 */
+	private void deploy(final JobID jobID, final DeploymentPlan deploymentPlan) {
+
+		if (!deploymentPlan.isEmpty()) {
+			this.deploymentManager.deploy(jobID, deploymentPlan.getWaves());
+		}
 	}
 
 	/**
@@ -247,23 +294,12 @@ public abstract class AbstractScheduler implements InstanceListener {
 
 		final JobID jobID = startVertex.getExecutionGraph().getJobID();
 
-		final Map<AbstractInstance, List<ExecutionVertex>> verticesToBeDeployed = new HashMap<AbstractInstance, List<ExecutionVertex>>();
+		final DeploymentPlan deploymentPlan = new DeploymentPlan();
 		final Set<ExecutionVertex> alreadyVisited = new HashSet<ExecutionVertex>();
 
-		findVerticesToBeDeployed(startVertex, verticesToBeDeployed, alreadyVisited);
-
-		if (!verticesToBeDeployed.isEmpty()) {
-
-			final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it2 = verticesToBeDeployed
-				.entrySet()
-				.iterator();
+		findVerticesToBeDeployed(startVertex, deploymentPlan, alreadyVisited);
 
-			while (it2.hasNext()) {
-
-				final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it2.next();
-				this.deploymentManager.deploy(jobID, entry.getKey(), entry.getValue());
-			}
-		}
+		deploy(jobID, deploymentPlan);
 	}
 
 	/**
@@ -277,26 +313,15 @@ public abstract class AbstractScheduler implements InstanceListener {
 
 		final JobID jobID = null;
 
-		final Map<AbstractInstance, List<ExecutionVertex>> verticesToBeDeployed = new HashMap<AbstractInstance, List<ExecutionVertex>>();
+		final DeploymentPlan deploymentPlan = new DeploymentPlan();
 		final Set<ExecutionVertex> alreadyVisited = new HashSet<ExecutionVertex>();
 
 		final Iterator<ExecutionVertex> it = pipeline.iterator();
 		while (it.hasNext()) {
-			findVerticesToBeDeployed(it.next(), verticesToBeDeployed, alreadyVisited);
+			findVerticesToBeDeployed(it.next(), deploymentPlan, alreadyVisited);
 		}
 
-		if (!verticesToBeDeployed.isEmpty()) {
-
-			final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it2 = verticesToBeDeployed
-				.entrySet()
-				.iterator();
-
-			while (it2.hasNext()) {
-
-				final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it2.next();
-				this.deploymentManager.deploy(jobID, entry.getKey(), entry.getValue());
-			}
-		}
+		deploy(jobID, deploymentPlan);
 	}
 
 	/**
@@ -310,7 +335,7 @@ public abstract class AbstractScheduler implements InstanceListener {
 
 		JobID jobID = null;
 
-		final Map<AbstractInstance, List<ExecutionVertex>> verticesToBeDeployed = new HashMap<AbstractInstance, List<ExecutionVertex>>();
+		final DeploymentPlan deploymentPlan = new DeploymentPlan();
 		final Set<ExecutionVertex> alreadyVisited = new HashSet<ExecutionVertex>();
 
 		for (final ExecutionVertex startVertex : startVertices) {
@@ -319,21 +344,10 @@ public abstract class AbstractScheduler implements InstanceListener {
 				jobID = startVertex.getExecutionGraph().getJobID();
 			}
 
-			findVerticesToBeDeployed(startVertex, verticesToBeDeployed, alreadyVisited);
+			findVerticesToBeDeployed(startVertex, deploymentPlan, alreadyVisited);
 		}
 
-		if (!verticesToBeDeployed.isEmpty()) {
-
-			final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it2 = verticesToBeDeployed
-				.entrySet()
-				.iterator();
-
-			while (it2.hasNext()) {
-
-				final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it2.next();
-				this.deploymentManager.deploy(jobID, entry.getKey(), entry.getValue());
-			}
-		}
+		deploy(jobID, deploymentPlan);
 	}
 
 	/**
@@ -345,7 +359,7 @@ public abstract class AbstractScheduler implements InstanceListener {
 	 */
 	public void deployAssignedInputVertices(final ExecutionGraph executionGraph) {
 
-		final Map<AbstractInstance, List<ExecutionVertex>> verticesToBeDeployed = new HashMap<AbstractInstance, List<ExecutionVertex>>();
+		final DeploymentPlan deploymentPlan = new DeploymentPlan();
 		final ExecutionStage executionStage = executionGraph.getCurrentExecutionStage();
 
 		final Set<ExecutionVertex> alreadyVisited = new HashSet<ExecutionVertex>();
@@ -359,22 +373,11 @@ public abstract class AbstractScheduler implements InstanceListener {
 
 			for (int j = 0; j < startVertex.getCurrentNumberOfGroupMembers(); ++j) {
 				final ExecutionVertex vertex = startVertex.getGroupMember(j);
-				findVerticesToBeDeployed(vertex, verticesToBeDeployed, alreadyVisited);
+				findVerticesToBeDeployed(vertex, deploymentPlan, alreadyVisited);
 			}
 		}
 
-		if (!verticesToBeDeployed.isEmpty()) {
-
-			final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it2 = verticesToBeDeployed
-				.entrySet()
-				.iterator();
-
-			while (it2.hasNext()) {
-
-				final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it2.next();
-				this.deploymentManager.deploy(executionGraph.getJobID(), entry.getKey(), entry.getValue());
-			}
-		}
+		deploy(executionGraph.getJobID(), deploymentPlan);
 	}
 
 	/**
@@ -0,0 +1,173 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+
+/**
+ * A deployment plan collects the vertices which have become ready for execution in one scheduling step, grouped by
+ * the instance they have been assigned to. In addition, it records which instances host the receivers of the
+ * channels leaving each instance, so the instances can be submitted in reverse topological order.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class DeploymentPlan {
+
+	/**
+	 * The vertices to be deployed, grouped by instance in the order the instances have been added.
+	 */
+	private final Map<AbstractInstance, List<ExecutionVertex>> verticesByInstance = new LinkedHashMap<AbstractInstance, List<ExecutionVertex>>();
+
+	/**
+	 * Maps each vertex to be deployed to the instance it has been assigned to.
+	 */
+	private final Map<ExecutionVertex, AbstractInstance> instanceOfVertex = new HashMap<ExecutionVertex, AbstractInstance>();
+
+	/**
+	 * Maps each instance to the other instances which host receivers of its vertices.
+	 */
+	private final Map<AbstractInstance, Set<AbstractInstance>> receiverInstances = new HashMap<AbstractInstance, Set<AbstractInstance>>();
+
+	/**
+	 * Adds the given vertex to the list of vertices to be deployed on the given instance. The vertices of an instance
+	 * are submitted in the order in which they have been added.
+	 * 
+	 * @param vertex
+	 *        the vertex to be deployed
+	 * @param instance
+	 *        the instance the vertex has been assigned to
+	 */
+	void addVertex(final ExecutionVertex vertex, final AbstractInstance instance) {
+
+		List<ExecutionVertex> verticesForInstance = this.verticesByInstance.get(instance);
+		if (verticesForInstance == null) {
+			verticesForInstance = new ArrayList<ExecutionVertex>();
+			this.verticesByInstance.put(instance, verticesForInstance);
+		}
+
+		verticesForInstance.add(vertex);
+		this.instanceOfVertex.put(vertex, instance);
+	}
+
+	/**
+	 * Records that a vertex on the given instance sends data to the given receiver. If the receiver has already been
+	 * added to this plan and runs on a different instance, the sender's instance will be submitted after the
+	 * receiver's instance.
+	 * 
+	 * @param senderInstance
+	 *        the instance of the sending vertex
+	 * @param receiver
+	 *        the receiving vertex
+	 */
+	void addChannel(final AbstractInstance senderInstance, final ExecutionVertex receiver) {
+
+		final AbstractInstance receiverInstance = this.instanceOfVertex.get(receiver);
+		if (receiverInstance == null || receiverInstance.equals(senderInstance)) {
+			return;
+		}
+
+		Set<AbstractInstance> receivers = this.receiverInstances.get(senderInstance);
+		if (receivers == null) {
+			receivers = new HashSet<AbstractInstance>();
+			this.receiverInstances.put(senderInstance, receivers);
+		}
+
+		receivers.add(receiverInstance);
+	}
+
+	/**
+	 * Checks whether this plan contains any vertices to be deployed.
+	 * 
+	 * @return <code>true</code> if this plan does not contain any vertices, <code>false</code> otherwise
+	 */
+	boolean isEmpty() {
+
+		return this.verticesByInstance.isEmpty();
+	}
+
+	/**
+	 * Splits the instances of this plan into waves. Every instance is placed in the first wave after all instances
+	 * hosting receivers of its vertices, so sinks come first and sources last. If the remaining instances send data
+	 * to each other in a cycle, they are put into a single wave.
+	 * 
+	 * @return the waves of this plan, each grouping its vertices by instance
+	 */
+	List<Map<AbstractInstance, List<ExecutionVertex>>> getWaves() {
+
+		final List<Map<AbstractInstance, List<ExecutionVertex>>> waves = new ArrayList<Map<AbstractInstance, List<ExecutionVertex>>>();
+		final Map<AbstractInstance, List<ExecutionVertex>> remaining = new LinkedHashMap<AbstractInstance, List<ExecutionVertex>>(
+			this.verticesByInstance);
+
+		while (!remaining.isEmpty()) {
+
+			final Map<AbstractInstance, List<ExecutionVertex>> wave = new LinkedHashMap<AbstractInstance, List<ExecutionVertex>>();
+			final Iterator<Map.Entry<AbstractInstance, List<ExecutionVertex>>> it = remaining.entrySet().iterator();
+			while (it.hasNext()) {
+
+				final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry = it.next();
+				if (!hasRemainingReceivers(entry.getKey(), remaining)) {
+					wave.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (wave.isEmpty()) {
+				// The remaining instances exchange data in a cycle, so submit them together
+				wave.putAll(remaining);
+			}
+
+			remaining.keySet().removeAll(wave.keySet());
+			waves.add(wave);
+		}
+
+		return waves;
+	}
+
+	/**
+	 * Checks whether any receiver of the given instance's vertices runs on one of the remaining instances.
+	 * 
+	 * @param instance
+	 *        the instance to check
+	 * @param remaining
+	 *        the instances which have not been assigned to a wave yet
+	 * @return <code>true</code> if at least one receiver runs on a remaining instance, <code>false</code> otherwise
+	 */
+	private boolean hasRemainingReceivers(final AbstractInstance instance,
+			final Map<AbstractInstance, List<ExecutionVertex>> remaining) {
+
+		final Set<AbstractInstance> receivers = this.receiverInstances.get(instance);
+		if (receivers == null) {
+			return false;
+		}
+
+		for (final AbstractInstance receiver : receivers) {
+			if (remaining.containsKey(receiver)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -24,12 +24,16 @@ import eu.stratosphere.nephele.execution.librarycache.LibraryCacheProfileRequest
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheProfileResponse;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheUpdate;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.protocols.VersionedProtocol;
 import eu.stratosphere.nephele.taskmanager.TaskCancelResult;
 import eu.stratosphere.nephele.taskmanager.TaskCheckpointResult;
 import eu.stratosphere.nephele.taskmanager.TaskKillResult;
 import eu.stratosphere.nephele.taskmanager.TaskSubmissionResult;
+import eu.stratosphere.nephele.types.StringRecord;
 
 /**
  * The task submission protocol is implemented by the task manager and allows the job manager
@@ -98,6 +102,33 @@ public interface TaskOperationProtocol extends VersionedProtocol {
 	 */
 	void updateLibraryCache(LibraryCacheUpdate update) throws IOException;
 
+	/**
+	 * Requests a library from the task manager's library cache. This method is called by other task managers which
+	 * obtain the library from a peer instead of the job manager.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the requested library
+	 * @return a {@link LibraryCacheUpdate} object used to transmit the library data
+	 * @throws IOException
+	 *         thrown if the library is not in the task manager's cache or an error occurs during this remote procedure
+	 *         call
+	 */
+	LibraryCacheUpdate requestLibrary(StringRecord libraryName) throws IOException;
+
+	/**
+	 * Instructs the task manager to fetch a library from the task manager at the given address and add it to its
+	 * library cache.
+	 * 
+	 * @param libraryName
+	 *        the cache name of the library to fetch
+	 * @param source
+	 *        the connection information of the task manager which holds the library
+	 * @throws IOException
+	 *         thrown if the library could not be obtained from the source or an error occurs during this remote
+	 *         procedure call
+	 */
+	void fetchLibrary(StringRecord libraryName, InstanceConnectionInfo source) throws IOException;
+
 	/**
 	 * Removes the checkpoints which are identified by the provided list of vertex IDs.
 	 * 
@@ -118,6 +149,17 @@ public interface TaskOperationProtocol extends VersionedProtocol {
 	 */
 	void invalidateLookupCacheEntries(Set<ChannelID> channelIDs) throws IOException;
 
+	/**
+	 * Activates the entries identified by the given channel IDs in the task manager's receiver lookup cache, i.e. the
+	 * receivers of these source channels which have been announced at deployment time are now running.
+	 * 
+	 * @param channelIDs
+	 *        the channel IDs identifying the cache entries to activate
+	 * @throws IOException
+	 *         thrown if an error occurs during this remote procedure call
+	 */
+	void activateLookupCacheEntries(Set<ChannelID> channelIDs) throws IOException;
+
 	/**
 	 * Triggers the task manager write the current utilization of its read and write buffers to its logs.
 	 * This method is primarily for debugging purposes.
@@ -127,6 +169,18 @@ public interface TaskOperationProtocol extends VersionedProtocol {
 	 */
 	void logBufferUtilization() throws IOException;
 
+	/**
+	 * Returns the current transfer statistics of all channels of the job with the given ID which are managed by the
+	 * task manager.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to return the channel statistics for
+	 * @return the current transfer statistics of the job's channels
+	 * @throws IOException
+	 *         thrown if an error occurs during this remote procedure call
+	 */
+	List<ManagementEdgeStatistics> getChannelStatistics(JobID jobID) throws IOException;
+
 	/**
 	 * Kills the task manager. This method is mainly intended to test and debug Nephele's fault tolerance mechanisms.
 	 * 
@@ -77,6 +77,8 @@ public class DefaultMemoryManager implements MemoryManager
 	
 	private final HashMap<AbstractInvokable, Set<DefaultMemorySegment>> allocatedSegments;
 	
+	private final HashMap<AbstractInvokable, Integer> reclaimablePages;	// pages released to their owners
+	
 	private final long roundingMask;		// mask used to round down sizes to multiples of the page size
 	
 	private final int pageSize;				// the page size, in bytes
@@ -136,7 +138,7 @@ public class DefaultMemoryManager implements MemoryManager
 		// initialize the free segments and allocated segments tracking structures
 		this.freeSegments = new ArrayDeque<byte[]>();
 		this.allocatedSegments = new HashMap<AbstractInvokable, Set<DefaultMemorySegment>>();
-
+		this.reclaimablePages = new HashMap<AbstractInvokable, Integer>();
 		
 		// add the full chunks
 		for (int i = 0; i < this.totalNumPages; i++) {
@@ -161,6 +163,7 @@ public class DefaultMemoryManager implements MemoryManager
 				// mark as shutdown and release memory
 				this.isShutDown = true;
 				this.freeSegments.clear();
+				this.reclaimablePages.clear();
 				
 				// go over all allocated segments and release them
 				for (Set<DefaultMemorySegment> segments : this.allocatedSegments.values()) {
@@ -226,22 +229,84 @@ public class DefaultMemoryManager implements MemoryManager
 					this.freeSegments.size() + " pages are remaining.");
 			}
 			
-			Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
-			if (segmentsForOwner == null) {
-				segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
-				this.allocatedSegments.put(owner, segmentsForOwner);
+			takePages(owner, target, numPages);
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.memorymanager.MemoryManager#allocatePages(eu.stratosphere.nephele.template.AbstractInvokable, java.util.List, int, int)
+	 */
+	@Override
+	public int allocatePages(AbstractInvokable owner, List<MemorySegment> target, int minPages, int maxPages)
+			throws MemoryAllocationException
+	{
+		// sanity check
+		if (owner == null) {
+			throw new IllegalAccessError("The memory owner must not be null.");
+		}
+		if (minPages < 0 || maxPages < minPages) {
+			throw new IllegalArgumentException("Invalid page range: " + minPages + " to " + maxPages + ".");
+		}
+		
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			if (this.isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+			
+			final int numFree = this.freeSegments.size();
+			if (minPages > numFree) {
+				throw new MemoryAllocationException("Could not allocate " + minPages + " pages. Only " + 
+					numFree + " pages are remaining.");
 			}
 			
-			for (int i = numPages; i > 0; i--) {
-				byte[] buffer = this.freeSegments.poll();
-				final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer, 0, this.pageSize);
-				target.add(segment);
-				segmentsForOwner.add(segment);
+			// the minimum consumes the reclaimable pages first, only the remaining ones may exceed it
+			final Integer reclaimable = this.reclaimablePages.get(owner);
+			final int numBeyondMin = reclaimable == null ? 0 : Math.max(0, reclaimable.intValue() - minPages);
+			final int numPages = minPages + Math.min(Math.min(maxPages - minPages, numBeyondMin), numFree - minPages);
+			
+			if (target instanceof ArrayList) {
+				((ArrayList<MemorySegment>) target).ensureCapacity(target.size() + numPages);
 			}
+			takePages(owner, target, numPages);
+			return numPages;
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
 	
+	/**
+	 * Takes the given number of pages from the free pages and assigns them to the owner. The pages are
+	 * deducted from the pages the owner may reclaim. Must be called while holding the lock and only after
+	 * checking that enough pages are free.
+	 */
+	private final void takePages(AbstractInvokable owner, List<MemorySegment> target, int numPages)
+	{
+		Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
+		if (segmentsForOwner == null) {
+			segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
+			this.allocatedSegments.put(owner, segmentsForOwner);
+		}
+		
+		for (int i = numPages; i > 0; i--) {
+			byte[] buffer = this.freeSegments.poll();
+			final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer, 0, this.pageSize);
+			target.add(segment);
+			segmentsForOwner.add(segment);
+		}
+		
+		final Integer reclaimable = this.reclaimablePages.get(owner);
+		if (reclaimable != null) {
+			final int remaining = reclaimable.intValue() - numPages;
+			if (remaining > 0) {
+				this.reclaimablePages.put(owner, Integer.valueOf(remaining));
+			} else {
+				this.reclaimablePages.remove(owner);
+			}
+		}
+	}
+	
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.memorymanager.MemoryManager#allocatePages(eu.stratosphere.nephele.template.AbstractInvokable, long)
 	 */
@@ -370,6 +435,66 @@ public class DefaultMemoryManager implements MemoryManager
 		// -------------------- END CRITICAL SECTION -------------------
 	}
 
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.memorymanager.MemoryManager#releaseToOwner(java.util.Collection)
+	 */
+	@Override
+	public <T extends MemorySegment> void releaseToOwner(Collection<T> segments)
+	{
+		// sanity checks
+		if (segments == null) {
+			return;
+		}
+		
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			if (this.isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+			
+			// credit the pages to their owners, before they are released
+			AbstractInvokable lastOwner = null;
+			int count = 0;
+			for (T seg : segments) {
+				if (seg.isFreed()) {
+					continue;
+				}
+				final AbstractInvokable owner = ((DefaultMemorySegment) seg).owner;
+				if (owner != lastOwner) {
+					addReclaimablePages(lastOwner, count);
+					lastOwner = owner;
+					count = 0;
+				}
+				count++;
+			}
+			addReclaimablePages(lastOwner, count);
+			
+			release(segments);
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+	
+	private final void addReclaimablePages(AbstractInvokable owner, int numPages)
+	{
+		if (owner != null && numPages > 0) {
+			final Integer previous = this.reclaimablePages.get(owner);
+			this.reclaimablePages.put(owner, Integer.valueOf(previous == null ? numPages : previous + numPages));
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.nephele.services.memorymanager.MemoryManager#getNumberOfReclaimablePages(eu.stratosphere.nephele.template.AbstractInvokable)
+	 */
+	@Override
+	public int getNumberOfReclaimablePages(AbstractInvokable owner)
+	{
+		synchronized (this.lock) {
+			final Integer reclaimable = this.reclaimablePages.get(owner);
+			return reclaimable == null ? 0 : reclaimable.intValue();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.memorymanager.MemoryManager#releaseAll(eu.stratosphere.nephele.template.AbstractInvokable)
 	 */
@@ -383,6 +508,9 @@ public class DefaultMemoryManager implements MemoryManager
 				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 			
+			// the owner is done, so it cannot reclaim anything any more
+			this.reclaimablePages.remove(owner);
+			
 			// get all segments
 			final Set<DefaultMemorySegment> segments = this.allocatedSegments.remove(owner);
 			
@@ -29,9 +29,14 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -68,6 +73,7 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.ipc.RPC;
 import eu.stratosphere.nephele.ipc.Server;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.plugins.PluginID;
 import eu.stratosphere.nephele.plugins.PluginManager;
@@ -79,6 +85,7 @@ import eu.stratosphere.nephele.protocols.InputSplitProviderProtocol;
 import eu.stratosphere.nephele.protocols.JobManagerProtocol;
 import eu.stratosphere.nephele.protocols.PluginCommunicationProtocol;
 import eu.stratosphere.nephele.protocols.TaskOperationProtocol;
+import eu.stratosphere.nephele.services.iomanager.ChannelPlacementPolicy;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
@@ -86,6 +93,7 @@ import eu.stratosphere.nephele.taskmanager.bytebuffered.ByteBufferedChannelManag
 import eu.stratosphere.nephele.taskmanager.bytebuffered.InsufficientResourcesException;
 import eu.stratosphere.nephele.taskmanager.runtime.EnvelopeConsumptionLog;
 import eu.stratosphere.nephele.taskmanager.runtime.RuntimeTask;
+import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.SerializableArrayList;
 import eu.stratosphere.nephele.util.StringUtils;
 
@@ -101,8 +109,24 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 
 	private static final Log LOG = LogFactory.getLog(TaskManager.class);
 
+	/**
+	 * Asynchronous proxy of the job manager. None of its methods waits for the job manager's response, errors are
+	 * reported through the futures of the calls.
+	 */
 	private final JobManagerProtocol jobManager;
 
+	/**
+	 * The future of the last heartbeat sent to the job manager.
+	 */
+	private Future<?> lastHeartbeat = null;
+
+	/**
+	 * The last state update sent to the job manager for each vertex. A vertex's next update is only sent once the
+	 * previous one has been processed, so the job manager observes the state changes in order.
+	 */
+	private final ConcurrentMap<ExecutionVertexID, PendingStateUpdate> pendingStateUpdates =
+		new ConcurrentHashMap<ExecutionVertexID, PendingStateUpdate>();
+
 	private final InputSplitProviderProtocol globalInputSplitProvider;
 
 	private final ChannelLookupProtocol lookupService;
@@ -213,7 +237,7 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 		// Try to create local stub for the job manager
 		JobManagerProtocol jobManager = null;
 		try {
-			jobManager = RPC.getProxy(JobManagerProtocol.class, jobManagerAddress, NetUtils.getSocketFactory());
+			jobManager = RPC.getAsyncProxy(JobManagerProtocol.class, jobManagerAddress, NetUtils.getSocketFactory());
 		} catch (IOException e) {
 			LOG.error(StringUtils.stringifyException(e));
 			throw new Exception("Failed to initialize connection to JobManager: " + e.getMessage(), e);
@@ -322,7 +346,12 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 			throw rte;
 		}
 
-		this.ioManager = new IOManager(tmpDirPaths);
+		final int ioThreadsPerDir = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_IO_THREADS_PER_DIR_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_IO_THREADS_PER_DIR);
+		final String placementPolicyClassName = GlobalConfiguration.getString(
+			ConfigConstants.TASK_MANAGER_TMP_PLACEMENT_POLICY_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_TMP_PLACEMENT_POLICY);
+		this.ioManager = new IOManager(tmpDirPaths, ioThreadsPerDir, loadPlacementPolicy(placementPolicyClassName));
 
 		// Load the plugins
 		this.taskManagerPlugins = PluginManager.getTaskManagerPlugins(this, configDir);
@@ -390,14 +419,13 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 			}
 
 			// Send heartbeat
-			try {
-				this.jobManager.sendHeartbeat(this.localInstanceConnectionInfo, this.hardwareDescription);
-			} catch (IOException e) {
-				LOG.debug("sending the heart beat caused on IO Exception");
-			}
+			sendHeartbeat();
 
 			// Check the status of the task threads to detect unexpected thread terminations
 			checkTaskExecution();
+
+			// Report failed state updates whose vertices have not changed their state since
+			checkPendingStateUpdates();
 		}
 
 		// Shutdown the individual components of the task manager
@@ -561,6 +589,9 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 				continue;
 			}
 
+			// Announce the receiver locations known to the job manager, so they do not have to be looked up
+			this.byteBufferedChannelManager.registerKnownReceivers(tdd);
+
 			submissionResultList.add(new TaskSubmissionResult(vertexID, AbstractTaskResult.ReturnCode.SUCCESS));
 			tasksToStart.add(task);
 		}
@@ -743,6 +774,51 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 		// Nothing to to here
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LibraryCacheUpdate requestLibrary(final StringRecord libraryName) throws IOException {
+
+		final String name = libraryName.toString();
+		if (LibraryCacheManager.contains(name) == null) {
+			throw new IOException("Library " + name + " is not in the library cache of "
+				+ this.localInstanceConnectionInfo);
+		}
+
+		return new LibraryCacheUpdate(name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void fetchLibrary(final StringRecord libraryName, final InstanceConnectionInfo source) throws IOException {
+
+		final String name = libraryName.toString();
+		if (LibraryCacheManager.contains(name) != null) {
+			return;
+		}
+
+		TaskOperationProtocol peer = null;
+		try {
+			peer = RPC.getProxy(TaskOperationProtocol.class,
+				new InetSocketAddress(source.getAddress(), source.getIPCPort()), NetUtils.getSocketFactory());
+
+			// The library data is verified and stored in the cache while the response is deserialized
+			peer.requestLibrary(libraryName);
+
+		} finally {
+			if (peer != null) {
+				RPC.stopProxy(peer);
+			}
+		}
+
+		if (LibraryCacheManager.contains(name) == null) {
+			throw new IOException("Cannot obtain library " + name + " from " + source);
+		}
+	}
+
 	public void executionStateChanged(final JobID jobID, final ExecutionVertexID id,
 			final ExecutionState newExecutionState, final String optionalDescription) {
 
@@ -757,29 +833,187 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 			// Unregister the task (free all buffers, remove all channels, task-specific class loaders, etc...)
 			unregisterTask(id);
 		}
-		// Get lock on the jobManager object and propagate the state change
-		synchronized (this.jobManager) {
-			try {
-				this.jobManager.updateTaskExecutionState(new TaskExecutionState(jobID, id, newExecutionState,
-					optionalDescription));
-			} catch (IOException e) {
-				LOG.error(StringUtils.stringifyException(e));
+		// Wait for the previous update of this vertex and propagate the state change
+		final PendingStateUpdate pendingStateUpdate = lockPendingStateUpdate(id);
+		try {
+			awaitJobManagerCall(pendingStateUpdate.future);
+			synchronized (this.jobManager) {
+				try {
+					this.jobManager.updateTaskExecutionState(new TaskExecutionState(jobID, id, newExecutionState,
+						optionalDescription));
+					pendingStateUpdate.future = RPC.getLastCallFuture();
+				} catch (IOException e) {
+					LOG.error(StringUtils.stringifyException(e));
+				}
 			}
+		} finally {
+			pendingStateUpdate.lock.unlock();
 		}
 	}
 
 	public void checkpointStateChanged(final JobID jobID, final ExecutionVertexID id,
 			final CheckpointState newCheckpointState) {
 
-		synchronized (this.jobManager) {
+		final PendingStateUpdate pendingStateUpdate = lockPendingStateUpdate(id);
+		try {
+			awaitJobManagerCall(pendingStateUpdate.future);
+			synchronized (this.jobManager) {
+				try {
+					this.jobManager.updateCheckpointState(new TaskCheckpointState(jobID, id, newCheckpointState));
+					pendingStateUpdate.future = RPC.getLastCallFuture();
+				} catch (IOException e) {
+					LOG.error(StringUtils.stringifyException(e));
+				}
+			}
+		} finally {
+			pendingStateUpdate.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the pending state update of the given vertex with its lock held. While the lock is held, no other thread
+	 * can send a state update for the vertex, so waiting for the previous update, sending the next one and recording
+	 * its future happens atomically per vertex.
+	 * 
+	 * @param id
+	 *        the ID of the vertex whose state is about to be updated
+	 * @return the locked pending state update of the vertex, the caller must release its lock
+	 */
+	private PendingStateUpdate lockPendingStateUpdate(final ExecutionVertexID id) {
+
+		while (true) {
+
+			PendingStateUpdate pendingStateUpdate = this.pendingStateUpdates.get(id);
+			if (pendingStateUpdate == null) {
+				pendingStateUpdate = new PendingStateUpdate();
+				final PendingStateUpdate existing = this.pendingStateUpdates.putIfAbsent(id, pendingStateUpdate);
+				if (existing != null) {
+					pendingStateUpdate = existing;
+				}
+			}
+
+			pendingStateUpdate.lock.lock();
+
+			// The entry may have been removed from the map while we were waiting for the lock
+			if (!pendingStateUpdate.removed) {
+				return pendingStateUpdate;
+			}
+
+			pendingStateUpdate.lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends a heartbeat to the job manager unless the previous one is still outstanding. Heartbeats are not queued
+	 * up while the job manager is unresponsive.
+	 */
+	private void sendHeartbeat() {
+
+		if (this.lastHeartbeat != null) {
+			if (!this.lastHeartbeat.isDone()) {
+				LOG.debug("Previous heartbeat is still outstanding, skipping heartbeat");
+				return;
+			}
+
 			try {
-				this.jobManager.updateCheckpointState(new TaskCheckpointState(jobID, id, newCheckpointState));
-			} catch (IOException e) {
-				LOG.error(StringUtils.stringifyException(e));
+				this.lastHeartbeat.get();
+			} catch (InterruptedException e) {
+				// Cannot happen, the call is already done
+			} catch (ExecutionException e) {
+				LOG.debug("sending the heart beat caused an exception: " + e.getCause().getMessage());
+			}
+		}
+
+		try {
+			this.jobManager.sendHeartbeat(this.localInstanceConnectionInfo, this.hardwareDescription);
+			this.lastHeartbeat = RPC.getLastCallFuture();
+		} catch (IOException e) {
+			LOG.debug("sending the heart beat caused on IO Exception");
+			this.lastHeartbeat = null;
+		}
+	}
+
+	/**
+	 * Removes the completed state updates from the map of pending state updates. Updates which are currently locked
+	 * by a thread sending a newer update are skipped.
+	 */
+	private void checkPendingStateUpdates() {
+
+		final Iterator<Map.Entry<ExecutionVertexID, PendingStateUpdate>> it = this.pendingStateUpdates.entrySet()
+			.iterator();
+		while (it.hasNext()) {
+
+			final Map.Entry<ExecutionVertexID, PendingStateUpdate> entry = it.next();
+			final PendingStateUpdate pendingStateUpdate = entry.getValue();
+			if (!pendingStateUpdate.lock.tryLock()) {
+				continue;
+			}
+
+			try {
+				if (pendingStateUpdate.future == null || pendingStateUpdate.future.isDone()) {
+					pendingStateUpdate.removed = true;
+					this.pendingStateUpdates.remove(entry.getKey(), pendingStateUpdate);
+				}
+			} finally {
+				pendingStateUpdate.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Waits for the given asynchronous call to the job manager to complete. Like synchronous calls, the wait is not
+	 * aborted by interrupts. The calls awaited here have no return value, so the RPC client already logs their errors.
+	 * 
+	 * @param future
+	 *        the future of the call, possibly <code>null</code>
+	 */
+	private static void awaitJobManagerCall(final Future<?> future) {
+
+		if (future == null) {
+			return;
+		}
+
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					future.get();
+					return;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			// Already logged by the RPC client
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
 			}
 		}
 	}
 
+	/**
+	 * The last state update sent to the job manager for a vertex, together with the lock which orders the vertex's
+	 * state updates.
+	 */
+	private static final class PendingStateUpdate {
+
+		/**
+		 * The lock which is held while a state update of the vertex is sent.
+		 */
+		private final Lock lock = new ReentrantLock();
+
+		/**
+		 * The future of the last state update sent for the vertex, protected by the lock.
+		 */
+		private Future<?> future = null;
+
+		/**
+		 * Set once this object has been removed from the map of pending state updates, protected by the lock.
+		 */
+		private boolean removed = false;
+	}
+
 	/**
 	 * Shuts the task manager down.
 	 */
@@ -912,6 +1146,18 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 		this.byteBufferedChannelManager.logBufferUtilization();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<ManagementEdgeStatistics> getChannelStatistics(final JobID jobID) throws IOException {
+
+		final List<ManagementEdgeStatistics> channelStatistics = new ArrayList<ManagementEdgeStatistics>();
+		this.byteBufferedChannelManager.collectChannelStatistics(jobID, channelStatistics);
+
+		return channelStatistics;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -941,6 +1187,15 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 		this.byteBufferedChannelManager.invalidateLookupCacheEntries(channelIDs);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void activateLookupCacheEntries(final Set<ChannelID> channelIDs) throws IOException {
+
+		this.byteBufferedChannelManager.activateLookupCacheEntries(channelIDs);
+	}
+
 	/**
 	 * Sends data from the plugin with the given ID to the respective component of the plugin running at the job
 	 * manager.
@@ -1042,4 +1297,35 @@ public class TaskManager implements TaskOperationProtocol, PluginCommunicationPr
 			}
 		}
 	}
+
+	/**
+	 * Instantiates the policy that places new spill channels in the temporary file directories.
+	 * 
+	 * @param className
+	 *        The name of the policy class, which must have a public nullary constructor.
+	 * @return The instantiated placement policy.
+	 * @throws Exception
+	 *         Thrown, if the class could not be found or instantiated.
+	 */
+	private static final ChannelPlacementPolicy loadPlacementPolicy(final String className) throws Exception {
+
+		final Class<?> clazz;
+		try {
+			clazz = Class.forName(className);
+		} catch (ClassNotFoundException e) {
+			throw new Exception("Cannot find channel placement policy class " + className + ".", e);
+		}
+
+		if (!ChannelPlacementPolicy.class.isAssignableFrom(clazz)) {
+			throw new Exception("Class " + className + " is not a channel placement policy.");
+		}
+
+		try {
+			return (ChannelPlacementPolicy) clazz.newInstance();
+		} catch (InstantiationException e) {
+			throw new Exception("Cannot create channel placement policy " + className + ".", e);
+		} catch (IllegalAccessException e) {
+			throw new Exception("Cannot create channel placement policy " + className + ".", e);
+		}
+	}
 }
@@ -17,7 +17,9 @@ package eu.stratosphere.nephele.taskmanager.bytebuffered;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +29,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.nephele.configuration.GlobalConfiguration;
+import eu.stratosphere.nephele.deployment.ChannelDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.GateDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.execution.Environment;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
 import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
@@ -34,9 +39,12 @@ import eu.stratosphere.nephele.io.AbstractID;
 import eu.stratosphere.nephele.io.GateID;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.FileBufferManager;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeID;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.protocols.ChannelLookupProtocol;
 import eu.stratosphere.nephele.taskmanager.Task;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProvider;
@@ -59,6 +67,17 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 	private static final boolean DEFAULT_MERGE_SPILLED_BUFFERS = true;
 
+	/**
+	 * The default time in milliseconds to wait for the activation of an announced receiver before it is looked up.
+	 */
+	private static final long DEFAULT_RECEIVER_ACTIVATION_TIMEOUT = 10000L;
+
+	/**
+	 * The default time in milliseconds after which an activation whose receiver list has not been announced is
+	 * discarded.
+	 */
+	private static final long DEFAULT_EARLY_ACTIVATION_EXPIRY = 60000L;
+
 	// TODO: Make this configurable
 	private static final int NUMBER_OF_CHANNELS_FOR_MULTICAST = 10;
 
@@ -78,6 +97,10 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 	private final boolean mergeSpilledBuffers;
 
+	private final long receiverActivationTimeout;
+
+	private final long earlyActivationExpiry;
+
 	private final boolean multicastEnabled = true;
 
 	/**
@@ -85,9 +108,46 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 	 */
 	private final Map<ChannelID, TransferEnvelopeReceiverList> receiverCache = new ConcurrentHashMap<ChannelID, TransferEnvelopeReceiverList>();
 
+	/**
+	 * This map stores the receiver lists announced at deployment time whose receivers have not been running yet.
+	 * Access to the map, including the activation of its entries, must be synchronized on the map.
+	 */
+	private final Map<ChannelID, PendingReceiver> pendingReceivers = new HashMap<ChannelID, PendingReceiver>();
+
+	/**
+	 * The IDs of source channels which have been activated before their receiver lists have been announced, mapped to
+	 * the time of their activation in insertion order. Protected by <code>pendingReceivers</code>.
+	 */
+	private final LinkedHashMap<ChannelID, Long> earlyActivations = new LinkedHashMap<ChannelID, Long>();
+
 	public ByteBufferedChannelManager(final ChannelLookupProtocol channelLookupService,
 			final InstanceConnectionInfo localInstanceConnectionInfo) throws IOException {
 
+		this(channelLookupService, localInstanceConnectionInfo, GlobalConfiguration.getLong(
+			"channel.network.receiverActivationTimeout", DEFAULT_RECEIVER_ACTIVATION_TIMEOUT),
+			GlobalConfiguration.getLong("channel.network.earlyActivationExpiry", DEFAULT_EARLY_ACTIVATION_EXPIRY));
+	}
+
+	/**
+	 * Constructs a byte buffered channel manager with the given timeouts for announced receivers.
+	 * 
+	 * @param channelLookupService
+	 *        the lookup service to determine the receivers of channels
+	 * @param localInstanceConnectionInfo
+	 *        the connection information of the local task manager
+	 * @param receiverActivationTimeout
+	 *        the time in milliseconds after the announcement of a receiver list to wait for its activation before the
+	 *        receiver is looked up
+	 * @param earlyActivationExpiry
+	 *        the time in milliseconds after which an activation whose receiver list has not been announced is
+	 *        discarded
+	 * @throws IOException
+	 *         thrown if the network connection manager cannot be started
+	 */
+	ByteBufferedChannelManager(final ChannelLookupProtocol channelLookupService,
+			final InstanceConnectionInfo localInstanceConnectionInfo, final long receiverActivationTimeout,
+			final long earlyActivationExpiry) throws IOException {
+
 		this.channelLookupService = channelLookupService;
 
 		this.localConnectionInfo = localInstanceConnectionInfo;
@@ -110,6 +170,10 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 		this.mergeSpilledBuffers = GlobalConfiguration.getBoolean("channel.network.mergeSpilledBuffers",
 			DEFAULT_MERGE_SPILLED_BUFFERS);
 
+		this.receiverActivationTimeout = receiverActivationTimeout;
+
+		this.earlyActivationExpiry = earlyActivationExpiry;
+
 		LOG.info("Initialized byte buffered channel manager with sender-side spilling "
 			+ (this.allowSenderSideSpilling ? "enabled" : "disabled")
 			+ (this.mergeSpilledBuffers ? " and spilled buffer merging enabled" : ""));
@@ -229,6 +293,7 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 			final ChannelContext context = this.registeredChannels.remove(outputChannelID);
 			if (context != null) {
 				context.destroy();
+				removeAnnouncedReceivers(context);
 			}
 			this.receiverCache.remove(outputChannelID);
 		}
@@ -241,6 +306,7 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 			final ChannelContext context = this.registeredChannels.remove(outputChannelID);
 			if (context != null) {
 				context.destroy();
+				removeAnnouncedReceivers(context);
 			}
 			this.receiverCache.remove(outputChannelID);
 		}
@@ -552,7 +618,7 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 	 * @throws IOException
 	 * @throws InterruptedExcption
 	 */
-	private TransferEnvelopeReceiverList getReceiverList(final JobID jobID, final ChannelID sourceChannelID)
+	TransferEnvelopeReceiverList getReceiverList(final JobID jobID, final ChannelID sourceChannelID)
 			throws IOException, InterruptedException {
 
 		TransferEnvelopeReceiverList receiverList = this.receiverCache.get(sourceChannelID);
@@ -561,6 +627,13 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 			return receiverList;
 		}
 
+		// Wait for the activation of a receiver announced at deployment time
+		receiverList = waitForAnnouncedReceiver(sourceChannelID);
+
+		if (receiverList != null) {
+			return receiverList;
+		}
+
 		while (true) {
 
 			if (Thread.currentThread().isInterrupted()) {
@@ -598,6 +671,10 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 			this.receiverCache.put(sourceChannelID, receiverList);
 
+			synchronized (this.pendingReceivers) {
+				this.pendingReceivers.remove(sourceChannelID);
+			}
+
 			if (LOG.isDebugEnabled()) {
 
 				final StringBuilder sb = new StringBuilder();
@@ -669,6 +746,53 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 		processEnvelope(transferEnvelope, freeSourceBuffer);
 	}
 
+	/**
+	 * Collects the transfer statistics of all channels registered with this channel manager which belong to the job
+	 * with the given ID.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to collect the channel statistics for
+	 * @param channelStatistics
+	 *        the list to add the collected statistics to
+	 */
+	public void collectChannelStatistics(final JobID jobID, final List<ManagementEdgeStatistics> channelStatistics) {
+
+		final long timestamp = System.currentTimeMillis();
+
+		// Envelopes of output channels are queued at the outgoing network connections
+		final Map<ChannelID, Integer> queuedEnvelopes = new HashMap<ChannelID, Integer>();
+		this.networkConnectionManager.countQueuedEnvelopes(queuedEnvelopes);
+
+		final Iterator<ChannelContext> it = this.registeredChannels.values().iterator();
+		while (it.hasNext()) {
+
+			final ChannelContext context = it.next();
+			if (!jobID.equals(context.getJobID())) {
+				continue;
+			}
+
+			final ChannelStatistics statistics = context.getChannelStatistics();
+			if (statistics == null) {
+				continue;
+			}
+
+			int numberOfQueuedEnvelopes = 0;
+			if (context.isInputChannel()) {
+				numberOfQueuedEnvelopes = ((InputChannelContext) context).getNumberOfQueuedEnvelopes();
+			} else {
+				final Integer number = queuedEnvelopes.get(context.getChannelID());
+				if (number != null) {
+					numberOfQueuedEnvelopes = number.intValue();
+				}
+			}
+
+			channelStatistics.add(new ManagementEdgeStatistics(new ManagementEdgeID(context.getChannelID()),
+				context.isInputChannel(), timestamp, statistics.getNumberOfRecords(), statistics.getNumberOfBytes(),
+				statistics.getNumberOfBuffers(), statistics.getBufferWaitTime() / 1000000L,
+				statistics.getInputWaitTime() / 1000000L, numberOfQueuedEnvelopes));
+		}
+	}
+
 	/**
 	 * Triggers the byte buffer channel manager write the current utilization of its read and write buffers to the logs.
 	 * This method is primarily for debugging purposes.
@@ -830,10 +954,252 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 	 */
 	public void invalidateLookupCacheEntries(final Set<ChannelID> channelIDs) {
 
-		final Iterator<ChannelID> it = channelIDs.iterator();
+		synchronized (this.pendingReceivers) {
+
+			final Iterator<ChannelID> it = channelIDs.iterator();
+			while (it.hasNext()) {
+
+				final ChannelID channelID = it.next();
+				this.receiverCache.remove(channelID);
+				this.pendingReceivers.remove(channelID);
+				this.earlyActivations.remove(channelID);
+			}
+
+			// Threads waiting for one of the invalidated entries must fall back to a lookup
+			this.pendingReceivers.notifyAll();
+		}
+	}
+
+	/**
+	 * Activates the receiver lists which have been announced for the given source channels at deployment time. Threads
+	 * waiting for one of these receiver lists are woken up.
+	 * 
+	 * @param channelIDs
+	 *        the IDs of the source channels whose receivers are now running
+	 */
+	public void activateLookupCacheEntries(final Set<ChannelID> channelIDs) {
+
+		synchronized (this.pendingReceivers) {
+
+			final long now = System.currentTimeMillis();
+			removeExpiredEarlyActivations(now);
+
+			final Iterator<ChannelID> it = channelIDs.iterator();
+			while (it.hasNext()) {
+
+				final ChannelID channelID = it.next();
+				final PendingReceiver pendingReceiver = this.pendingReceivers.remove(channelID);
+				if (pendingReceiver != null) {
+					this.receiverCache.put(channelID, pendingReceiver.receiverList);
+				} else if (!this.receiverCache.containsKey(channelID)) {
+					// The activation overtook the deployment of the task
+					this.earlyActivations.remove(channelID);
+					this.earlyActivations.put(channelID, Long.valueOf(now));
+				}
+			}
+
+			this.pendingReceivers.notifyAll();
+		}
+	}
+
+	/**
+	 * Registers the receiver locations which the job manager included in the given task deployment descriptor. Receiver
+	 * lists of running receivers are added to the receiver cache immediately, all others once they are activated.
+	 * Only point-to-point network channels carry the locations of their peers.
+	 * 
+	 * @param tdd
+	 *        the deployment descriptor of the task which has just been registered
+	 */
+	public void registerKnownReceivers(final TaskDeploymentDescriptor tdd) {
+
+		for (int i = 0; i < tdd.getNumberOfOutputGateDescriptors(); ++i) {
+
+			final GateDeploymentDescriptor gdd = tdd.getOutputGateDescriptor(i);
+			if (gdd.getChannelType() != ChannelType.NETWORK) {
+				continue;
+			}
+
+			for (int j = 0; j < gdd.getNumberOfChannelDescriptors(); ++j) {
+
+				final ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
+				if (cdd.getPeerConnectionInfo() != null) {
+					// Data is sent to the input channel
+					announceReceiver(cdd.getOutputChannelID(), createReceiverList(cdd, cdd.getInputChannelID()),
+						cdd.isPeerReady());
+				}
+			}
+		}
+
+		for (int i = 0; i < tdd.getNumberOfInputGateDescriptors(); ++i) {
+
+			final GateDeploymentDescriptor gdd = tdd.getInputGateDescriptor(i);
+			if (gdd.getChannelType() != ChannelType.NETWORK) {
+				continue;
+			}
+
+			for (int j = 0; j < gdd.getNumberOfChannelDescriptors(); ++j) {
+
+				final ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
+				if (cdd.getPeerConnectionInfo() != null) {
+					// Data arriving from the output channel is dispatched to the local input channel
+					announceReceiver(cdd.getOutputChannelID(),
+						new TransferEnvelopeReceiverList(cdd.getInputChannelID()), true);
+					// Events are sent to the output channel
+					announceReceiver(cdd.getInputChannelID(), createReceiverList(cdd, cdd.getOutputChannelID()),
+						cdd.isPeerReady());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the receiver list for the peer described by the given channel deployment descriptor.
+	 * 
+	 * @param cdd
+	 *        the channel deployment descriptor including the location of the peer
+	 * @param peerChannelID
+	 *        the ID of the peer's channel
+	 * @return the receiver list for the peer
+	 */
+	private TransferEnvelopeReceiverList createReceiverList(final ChannelDeploymentDescriptor cdd,
+			final ChannelID peerChannelID) {
+
+		final InstanceConnectionInfo ici = cdd.getPeerConnectionInfo();
+		if (ici.equals(this.localConnectionInfo)) {
+			// Receiver runs on the same task manager
+			return new TransferEnvelopeReceiverList(peerChannelID);
+		}
+
+		final InetSocketAddress isa = new InetSocketAddress(ici.getAddress(), ici.getDataPort());
+
+		return new TransferEnvelopeReceiverList(new RemoteReceiver(isa, cdd.getConnectionID()));
+	}
+
+	/**
+	 * Adds the given receiver list either to the receiver cache or to the pending receivers.
+	 * 
+	 * @param source
+	 *        the ID of the source channel
+	 * @param receiverList
+	 *        the receiver list announced for the source channel
+	 * @param receiverReady
+	 *        <code>true</code> if the receiver is already running, <code>false</code> otherwise
+	 */
+	void announceReceiver(final ChannelID source, final TransferEnvelopeReceiverList receiverList,
+			final boolean receiverReady) {
+
+		synchronized (this.pendingReceivers) {
+
+			final long now = System.currentTimeMillis();
+			removeExpiredEarlyActivations(now);
+
+			final boolean activated = (this.earlyActivations.remove(source) != null);
+
+			if (this.receiverCache.containsKey(source)) {
+				// Receiver has already been looked up or hinted
+				return;
+			}
+
+			if (receiverReady || activated) {
+				this.receiverCache.put(source, receiverList);
+			} else {
+				this.pendingReceivers.put(source, new PendingReceiver(receiverList, now
+					+ this.receiverActivationTimeout));
+			}
+		}
+	}
+
+	/**
+	 * Discards the early activations which are older than the expiry time. Their receiver lists are not announced
+	 * anymore, e.g. because the task has been deployed to another task manager or the job has been canceled. The
+	 * caller must hold the monitor of <code>pendingReceivers</code>.
+	 * 
+	 * @param now
+	 *        the current time in milliseconds
+	 */
+	private void removeExpiredEarlyActivations(final long now) {
+
+		// The activations are stored in the order of their time
+		final Iterator<Long> it = this.earlyActivations.values().iterator();
 		while (it.hasNext()) {
 
-			this.receiverCache.remove(it.next());
+			if (now - it.next().longValue() < this.earlyActivationExpiry) {
+				break;
+			}
+
+			it.remove();
+		}
+	}
+
+	/**
+	 * Returns the number of activations whose receiver lists have not been announced yet.
+	 * 
+	 * @return the number of early activations
+	 */
+	int getNumberOfEarlyActivations() {
+
+		synchronized (this.pendingReceivers) {
+			return this.earlyActivations.size();
+		}
+	}
+
+	/**
+	 * Waits until the receiver list announced for the given source channel is activated. The time to wait is counted
+	 * from the announcement of the receiver list, so the channels of a task which have been announced together do not
+	 * wait one after the other.
+	 * 
+	 * @param sourceChannelID
+	 *        the ID of the source channel
+	 * @return the activated receiver list or <code>null</code> if no receiver list has been announced for the source
+	 *         channel or the activation timed out
+	 * @throws InterruptedException
+	 *         thrown if the thread is interrupted while waiting for the activation
+	 */
+	private TransferEnvelopeReceiverList waitForAnnouncedReceiver(final ChannelID sourceChannelID)
+			throws InterruptedException {
+
+		synchronized (this.pendingReceivers) {
+
+			while (true) {
+
+				final PendingReceiver pendingReceiver = this.pendingReceivers.get(sourceChannelID);
+				if (pendingReceiver == null) {
+					break;
+				}
+
+				final long timeout = pendingReceiver.deadline - System.currentTimeMillis();
+				if (timeout <= 0L) {
+					LOG.warn("Receiver for source channel " + sourceChannelID + " has not been activated within "
+						+ this.receiverActivationTimeout + " ms, looking it up");
+					return null;
+				}
+
+				this.pendingReceivers.wait(timeout);
+			}
+
+			return this.receiverCache.get(sourceChannelID);
+		}
+	}
+
+	/**
+	 * Removes the receiver lists which have been announced for envelopes destined for the given channel.
+	 * 
+	 * @param context
+	 *        the context of the channel to be unregistered
+	 */
+	private void removeAnnouncedReceivers(final ChannelContext context) {
+
+		if (context.getType() != ChannelType.NETWORK) {
+			return;
+		}
+
+		final ChannelID connectedChannelID = context.getConnectedChannelID();
+		this.receiverCache.remove(connectedChannelID);
+
+		synchronized (this.pendingReceivers) {
+			this.pendingReceivers.remove(context.getChannelID());
+			this.earlyActivations.remove(context.getChannelID());
+			this.earlyActivations.remove(connectedChannelID);
 		}
 	}
 
@@ -847,4 +1213,34 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 		lbpo.reportAsynchronousEvent();
 	}
+
+	/**
+	 * A receiver list which has been announced at deployment time and waits for the activation of its receiver.
+	 * 
+	 */
+	private static final class PendingReceiver {
+
+		/**
+		 * The announced receiver list.
+		 */
+		private final TransferEnvelopeReceiverList receiverList;
+
+		/**
+		 * The time in milliseconds after which the receiver is looked up instead.
+		 */
+		private final long deadline;
+
+		/**
+		 * Constructs a new pending receiver.
+		 * 
+		 * @param receiverList
+		 *        the announced receiver list
+		 * @param deadline
+		 *        the time in milliseconds after which the receiver is looked up instead
+		 */
+		private PendingReceiver(final TransferEnvelopeReceiverList receiverList, final long deadline) {
+			this.receiverList = receiverList;
+			this.deadline = deadline;
+		}
+	}
 }
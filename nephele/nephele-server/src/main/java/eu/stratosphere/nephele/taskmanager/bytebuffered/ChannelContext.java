@@ -16,6 +16,7 @@
 package eu.stratosphere.nephele.taskmanager.bytebuffered;
 
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
@@ -33,6 +34,8 @@ public interface ChannelContext {
 	ChannelType getType();
 	
 	void queueTransferEnvelope(TransferEnvelope transferEnvelope);
+
+	ChannelStatistics getChannelStatistics();
 	
 	void destroy();
 }
@@ -20,4 +20,6 @@ import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProvider;
 public interface InputChannelContext extends ChannelContext, BufferProvider {
 
 	void logQueuedEnvelopes();
+
+	int getNumberOfQueuedEnvelopes();
 }
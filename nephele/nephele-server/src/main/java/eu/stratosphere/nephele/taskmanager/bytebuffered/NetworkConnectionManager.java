@@ -27,6 +27,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import eu.stratosphere.nephele.configuration.Configuration;
 import eu.stratosphere.nephele.configuration.GlobalConfiguration;
+import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
 
 /**
@@ -160,6 +161,20 @@ public final class NetworkConnectionManager {
 		}
 	}
 
+	/**
+	 * Adds the number of envelopes waiting for transmission per source channel to the given map.
+	 * 
+	 * @param queuedEnvelopes
+	 *        the map to add the number of queued envelopes per source channel to
+	 */
+	public void countQueuedEnvelopes(final Map<ChannelID, Integer> queuedEnvelopes) {
+
+		final Iterator<OutgoingConnection> it = this.outgoingConnections.values().iterator();
+		while (it.hasNext()) {
+			it.next().countQueuedEnvelopes(queuedEnvelopes);
+		}
+	}
+
 	public void logBufferUtilization() {
 
 		System.out.println("\tOutgoing connections:");
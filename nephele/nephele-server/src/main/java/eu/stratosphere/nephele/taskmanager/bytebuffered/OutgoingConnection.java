@@ -22,6 +22,7 @@ import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Queue;
 
 import org.apache.commons.logging.Log;
@@ -449,6 +450,26 @@ public class OutgoingConnection {
 		}
 	}
 
+	/**
+	 * Adds the number of queued {@link TransferEnvelope} objects per source channel to the given map.
+	 * 
+	 * @param queuedEnvelopes
+	 *        the map to add the number of queued transfer envelopes per source channel to
+	 */
+	public void countQueuedEnvelopes(final Map<ChannelID, Integer> queuedEnvelopes) {
+
+		synchronized (this.queuedEnvelopes) {
+
+			final Iterator<TransferEnvelope> it = this.queuedEnvelopes.iterator();
+			while (it.hasNext()) {
+
+				final ChannelID source = it.next().getSource();
+				final Integer number = queuedEnvelopes.get(source);
+				queuedEnvelopes.put(source, Integer.valueOf((number == null) ? 1 : number.intValue() + 1));
+			}
+		}
+	}
+
 	/**
 	 * Removes all queued {@link TransferEnvelope} objects from the transmission which match the given source channel
 	 * ID.
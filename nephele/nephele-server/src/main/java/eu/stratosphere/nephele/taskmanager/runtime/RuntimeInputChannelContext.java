@@ -27,6 +27,7 @@ import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.nephele.event.task.EventList;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedInputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
@@ -244,6 +245,11 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 				this.queuedEnvelopes.add(transferEnvelope);
 				this.lastReceivedEnvelope = sequenceNumber;
 
+				final Buffer buffer = transferEnvelope.getBuffer();
+				if (buffer != null) {
+					this.inputGateContext.getTaskStatistics().addBytesIn(buffer.size());
+				}
+
 				// Notify the channel about the new data
 				this.envelopeConsumptionLog.reportEnvelopeAvailability(this.byteBufferedInputChannel);
 			}
@@ -370,6 +376,26 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getNumberOfQueuedEnvelopes() {
+
+		synchronized (this.queuedEnvelopes) {
+			return this.queuedEnvelopes.size();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChannelStatistics getChannelStatistics() {
+
+		return this.byteBufferedInputChannel.getChannelStatistics();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
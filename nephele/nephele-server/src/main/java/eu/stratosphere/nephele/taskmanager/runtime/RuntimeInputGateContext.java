@@ -17,6 +17,7 @@ package eu.stratosphere.nephele.taskmanager.runtime;
 
 import java.io.IOException;
 
+import eu.stratosphere.nephele.checkpointing.TaskStatistics;
 import eu.stratosphere.nephele.io.GateID;
 import eu.stratosphere.nephele.io.InputGate;
 import eu.stratosphere.nephele.io.channels.AbstractInputChannel;
@@ -52,10 +53,13 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 
 	private final FileBufferManager fileBufferManager;
 
+	private final TaskStatistics taskStatistics;
+
 	private Decompressor decompressor = null;
 
 	RuntimeInputGateContext(final String taskName, final TransferEnvelopeDispatcher transferEnvelopeDispatcher,
-			final InputGate<? extends Record> inputGate, final EnvelopeConsumptionLog envelopeConsumptionLog) {
+			final InputGate<? extends Record> inputGate, final EnvelopeConsumptionLog envelopeConsumptionLog,
+			final TaskStatistics taskStatistics) {
 
 		this.taskName = taskName;
 		this.localBufferPool = new LocalBufferPool(1, false);
@@ -65,6 +69,17 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 		this.envelopeConsumptionLog = envelopeConsumptionLog;
 
 		this.fileBufferManager = FileBufferManager.getInstance();
+		this.taskStatistics = taskStatistics;
+	}
+
+	/**
+	 * Returns the runtime statistics of the task this gate belongs to.
+	 * 
+	 * @return the runtime statistics of the task this gate belongs to
+	 */
+	TaskStatistics getTaskStatistics() {
+
+		return this.taskStatistics;
 	}
 
 	/**
@@ -17,6 +17,7 @@ package eu.stratosphere.nephele.taskmanager.runtime;
 
 import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelStatistics;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedOutputChannel;
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -79,6 +80,15 @@ public final class RuntimeOutputChannelContext extends AbstractOutputChannelCont
 		return this.byteBufferedOutputChannel.getType();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChannelStatistics getChannelStatistics() {
+
+		return this.byteBufferedOutputChannel.getChannelStatistics();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.nephele.checkpointing.EphemeralCheckpoint;
+import eu.stratosphere.nephele.checkpointing.TaskStatistics;
 import eu.stratosphere.nephele.execution.RuntimeEnvironment;
 import eu.stratosphere.nephele.executiongraph.CheckpointState;
 import eu.stratosphere.nephele.io.AbstractID;
@@ -53,6 +54,8 @@ public final class RuntimeTaskContext implements BufferProvider, AsynchronousEve
 
 	private final EphemeralCheckpoint ephemeralCheckpoint;
 
+	private final TaskStatistics taskStatistics;
+
 	private final EnvelopeConsumptionLog envelopeConsumptionLog;
 
 	private CompressionBufferProvider compressionBufferProvider = null;
@@ -76,11 +79,12 @@ public final class RuntimeTaskContext implements BufferProvider, AsynchronousEve
 			}
 		}
 		this.numberOfOutputChannels = nooc;
+		this.taskStatistics = new TaskStatistics(environment);
 
 		if (initialCheckpointState == CheckpointState.NONE) {
 			this.ephemeralCheckpoint = null;
 		} else {
-			this.ephemeralCheckpoint = new EphemeralCheckpoint(task, this.numberOfOutputChannels,
+			this.ephemeralCheckpoint = new EphemeralCheckpoint(task, this.taskStatistics, this.numberOfOutputChannels,
 				initialCheckpointState == CheckpointState.UNDECIDED);
 			this.task.registerCheckpointDecisionRequester(this.ephemeralCheckpoint);
 		}
@@ -200,9 +204,8 @@ public final class RuntimeTaskContext implements BufferProvider, AsynchronousEve
 			return;
 		}
 
-		// TODO: Remove this and implement decision logic for ephemeral checkpoint
-		LOG.error("Checkpoint state of " + this.task.getRuntimeEnvironment().getTaskNameWithIndex() + " is UNDECIDED");
-		this.ephemeralCheckpoint.setCheckpointDecisionSynchronously(false);
+		// The queued envelopes of the undecided checkpoint hold the buffers, so the decision cannot be deferred
+		this.ephemeralCheckpoint.makeCheckpointDecision();
 
 	}
 
@@ -300,7 +303,7 @@ public final class RuntimeTaskContext implements BufferProvider, AsynchronousEve
 		}
 
 		return new RuntimeInputGateContext(re.getTaskNameWithIndex(), this.transferEnvelopeDispatcher, inputGate,
-			this.envelopeConsumptionLog);
+			this.envelopeConsumptionLog, this.taskStatistics);
 	}
 
 	public LocalBufferPool getLocalBufferPool() {
@@ -28,6 +28,8 @@ public final class CheckpointDeserializer extends AbstractDeserializer {
 
 	private static final int SIZE_OF_LONG = 8;
 
+	private static final int SIZE_OF_INT = 4;
+
 	private final AbstractID ownerID;
 
 	private final FileBufferManager fileBufferManager;
@@ -36,6 +38,11 @@ public final class CheckpointDeserializer extends AbstractDeserializer {
 
 	private boolean bufferDataSerializationStarted = false;
 
+	/**
+	 * Buffer for the reference to the buffer data, i.e. its offset in the file and its offset inside its segment.
+	 */
+	private final ByteBuffer referenceBuffer = ByteBuffer.allocate(SIZE_OF_LONG + SIZE_OF_INT);
+
 	public CheckpointDeserializer(final AbstractID ownerID, final boolean distributed) {
 		this.ownerID = ownerID;
 		this.fileBufferManager = FileBufferManager.getInstance();
@@ -48,7 +55,7 @@ public final class CheckpointDeserializer extends AbstractDeserializer {
 	@Override
 	protected boolean readBufferData(final ReadableByteChannel readableByteChannel) throws IOException {
 
-		final ByteBuffer tempBuffer = getTempBuffer();
+		final ByteBuffer tempBuffer = this.referenceBuffer;
 
 		if (!this.bufferDataSerializationStarted) {
 			tempBuffer.clear();
@@ -61,9 +68,16 @@ public final class CheckpointDeserializer extends AbstractDeserializer {
 		}
 
 		final long offset = byteBufferToLong(tempBuffer);
-
-		final Buffer fileBuffer = BufferFactory.createFromCheckpoint(getSizeOfBuffer(), offset, this.ownerID,
-			this.fileBufferManager, this.distributed);
+		final int offsetInSegment = tempBuffer.getInt(SIZE_OF_LONG);
+
+		final Buffer fileBuffer;
+		if (offsetInSegment < 0) {
+			fileBuffer = BufferFactory.createFromCheckpoint(getSizeOfBuffer(), offset, this.ownerID,
+				this.fileBufferManager, this.distributed);
+		} else {
+			fileBuffer = BufferFactory.createFromCheckpointSegment(getSizeOfBuffer(), offset, offsetInSegment,
+				this.ownerID, this.fileBufferManager, this.distributed);
+		}
 
 		setBuffer(fileBuffer);
 
@@ -26,7 +26,8 @@ import eu.stratosphere.nephele.io.channels.FileBuffer;
  * A checkpoint serializer is a special implementation of a transfer envelope serializer. Unlike the
  * {@link DefaultSerializer}, this implementation does not copy the actual buffer data into the byte stream. Instead,
  * since the buffer's data is expected to reside on disk anyway, it just inserts a reference to this data into the byte
- * stream.
+ * stream. The reference consists of the offset of the data in the file and, if the data is part of a
+ * {@link eu.stratosphere.nephele.io.channels.CheckpointSegment}, the offset of the data inside the segment.
  * 
  * @author warneke
  */
@@ -34,6 +35,8 @@ public class CheckpointSerializer extends AbstractSerializer {
 
 	private static final int SIZE_OF_LONG = 8;
 
+	private static final int SIZE_OF_INT = 4;
+
 	private boolean bufferDataSerializationStarted = false;
 
 	/**
@@ -63,6 +66,7 @@ public class CheckpointSerializer extends AbstractSerializer {
 
 			tempBuffer.clear();
 			longToByteBuffer(fileBuffer.getOffset(), tempBuffer);
+			intToByteBuffer(fileBuffer.getOffsetInSegment(), tempBuffer);
 
 			this.bufferDataSerializationStarted = true;
 		}
@@ -101,4 +105,21 @@ public class CheckpointSerializer extends AbstractSerializer {
 			byteBuffer.put((SIZE_OF_LONG - 1) - i, (byte) ((longToSerialize & (0xffL << shift)) >>> shift));
 		}
 	}
+
+	private void intToByteBuffer(int intToSerialize, ByteBuffer byteBuffer) throws IOException {
+
+		final int start = byteBuffer.limit();
+
+		if (start + SIZE_OF_INT > byteBuffer.capacity()) {
+			throw new IOException("Cannot convert int to byte buffer, buffer is too small (" + byteBuffer.capacity()
+				+ ", required " + (start + SIZE_OF_INT) + ")");
+		}
+
+		byteBuffer.limit(start + SIZE_OF_INT);
+
+		for (int i = 0; i < SIZE_OF_INT; ++i) {
+			final int shift = i << 3; // i * 8
+			byteBuffer.put(start + (SIZE_OF_INT - 1) - i, (byte) ((intToSerialize & (0xff << shift)) >>> shift));
+		}
+	}
 }
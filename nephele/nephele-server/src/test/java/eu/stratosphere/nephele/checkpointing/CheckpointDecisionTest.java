@@ -0,0 +1,76 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.checkpointing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class contains tests for the cost model of the dynamic checkpoint decision.
+ */
+public class CheckpointDecisionTest {
+
+	private static final int WRITE_COST = 10;
+
+	private static final int TRANSFER_COST = 8;
+
+	private static final long UNLIMITED_BUDGET = Long.MAX_VALUE;
+
+	/**
+	 * Tests that a selective task whose output is cheap to write compared to the work spent on it is checkpointed.
+	 */
+	@Test
+	public void testSelectiveTaskIsCheckpointed() {
+
+		// 1 GB in, 10 MB out, 20 s CPU time
+		assertTrue(CheckpointDecision.decide(1L << 30, 10L << 20, 20000000000L, UNLIMITED_BUDGET, WRITE_COST,
+			TRANSFER_COST));
+	}
+
+	/**
+	 * Tests that a task with a huge output-to-input ratio is not checkpointed because recomputing its output is
+	 * cheaper than writing it.
+	 */
+	@Test
+	public void testExpandingTaskIsNotCheckpointed() {
+
+		// 10 MB in, 10 GB out, 5 s CPU time
+		assertFalse(CheckpointDecision.decide(10L << 20, 10L << 30, 5000000000L, UNLIMITED_BUDGET, WRITE_COST,
+			TRANSFER_COST));
+	}
+
+	/**
+	 * Tests that no checkpoint is created if the disk budget is exhausted, no matter how expensive recomputation is.
+	 */
+	@Test
+	public void testDiskBudgetIsRespected() {
+
+		// 1 GB in, 10 MB out, 20 s CPU time, only 15 MB left
+		assertFalse(CheckpointDecision.decide(1L << 30, 10L << 20, 20000000000L, 15L << 20, WRITE_COST,
+			TRANSFER_COST));
+	}
+
+	/**
+	 * Tests that a task without output is always checkpointed since the checkpoint does not cost anything.
+	 */
+	@Test
+	public void testEmptyOutputIsCheckpointed() {
+
+		assertTrue(CheckpointDecision.decide(0L, 0L, 0L, 0L, WRITE_COST, TRANSFER_COST));
+	}
+}
@@ -0,0 +1,529 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.checkpointing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import org.junit.After;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.execution.ExecutionObserver;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.fs.Path;
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.CheckpointSegment;
+import eu.stratosphere.nephele.io.channels.FileBuffer;
+import eu.stratosphere.nephele.io.channels.FileBufferManager;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+import eu.stratosphere.nephele.io.channels.MemoryBufferPoolConnector;
+import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityListener;
+import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProvider;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.AbstractOutputChannelForwarder;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.OutputChannelForwardingChain;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.CheckpointDeserializer;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
+
+/**
+ * This class contains tests which write checkpoints with the {@link WriteThread} and replay them with the
+ * {@link ReplayThread}.
+ */
+public class CheckpointRoundTripTest {
+
+	/**
+	 * The number of envelopes written to the checkpoint.
+	 */
+	private static final int NUMBER_OF_ENVELOPES = 80;
+
+	/**
+	 * The sequence number of the envelope whose buffer exceeds the size of a segment.
+	 */
+	private static final int LARGE_ENVELOPE = 40;
+
+	/**
+	 * The size of the buffer which exceeds the size of a segment, deliberately not a multiple of the alignment.
+	 */
+	private static final int LARGE_BUFFER_SIZE = CheckpointSegment.MAXIMUM_DATA_SIZE + 1000;
+
+	private final ExecutionVertexID vertexID = new ExecutionVertexID();
+
+	private final ChannelID channelID = new ChannelID();
+
+	private final JobID jobID = new JobID();
+
+	/**
+	 * The number of memory buffers which have been returned to their pool.
+	 */
+	private final AtomicInteger recycledBuffers = new AtomicInteger(0);
+
+	private final MemoryBufferPoolConnector connector = new MemoryBufferPoolConnector() {
+
+		@Override
+		public void recycle(final ByteBuffer byteBuffer) {
+			recycledBuffers.incrementAndGet();
+		}
+	};
+
+	/**
+	 * Removes the checkpoint written by the test.
+	 */
+	@After
+	public void deleteCheckpoint() {
+
+		final String prefix = CheckpointUtils.getLocalCheckpointPath().toUri().getPath() + Path.SEPARATOR
+			+ CheckpointUtils.METADATA_PREFIX + "_" + this.vertexID;
+
+		new File(prefix + "_0").delete();
+		new File(prefix + "_part").delete();
+		new File(prefix + CheckpointUtils.COMPLETED_CHECKPOINT_SUFFIX).delete();
+
+		FileBufferManager.deleteFile(this.vertexID);
+	}
+
+	/**
+	 * Tests writing and replaying a checkpoint whose segments are compressed.
+	 */
+	@Test
+	public void testRoundTripWithCompressibleData() throws Exception {
+
+		final List<byte[]> data = writeCheckpoint(true, false);
+		final List<Buffer> buffers = readMetaData();
+
+		// The segments must actually be compressed
+		final FileBuffer last = (FileBuffer) buffers.get(NUMBER_OF_ENVELOPES - 1);
+		long uncompressedBytes = 0L;
+		for (int i = 0; i < NUMBER_OF_ENVELOPES - 1; ++i) {
+			uncompressedBytes += data.get(i).length;
+		}
+		assertTrue(last.getOffset() < uncompressedBytes / 2);
+
+		checkLayout(buffers);
+		replayAndCheck(data);
+	}
+
+	/**
+	 * Tests writing and replaying a checkpoint whose segments cannot be compressed and are therefore stored as they
+	 * are.
+	 */
+	@Test
+	public void testRoundTripWithIncompressibleData() throws Exception {
+
+		final List<byte[]> data = writeCheckpoint(false, false);
+		checkLayout(readMetaData());
+		replayAndCheck(data);
+	}
+
+	/**
+	 * Tests writing and replaying a checkpoint whose envelopes arrive while the write thread is running, so the write
+	 * thread repeatedly finds its queue empty and writes the meta data of small batches.
+	 */
+	@Test
+	public void testRoundTripWithRunningWriteThread() throws Exception {
+
+		final List<byte[]> data = writeCheckpoint(true, true);
+		readMetaData();
+		replayAndCheck(data);
+	}
+
+	/**
+	 * Tests that the uncompressed data of a segment is shared by all readers of the segment instead of being read and
+	 * decompressed for each of them.
+	 */
+	@Test
+	public void testSegmentDataIsShared() throws Exception {
+
+		final byte[] data = new byte[64 * 1024];
+		for (int i = 0; i < data.length; ++i) {
+			data[i] = (byte) (i / 100);
+		}
+
+		final ByteBuffer segment = ByteBuffer.allocate(CheckpointSegment.getMaximumSegmentSize());
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			CheckpointSegment.write(data, data.length, deflater, segment);
+		} finally {
+			deflater.end();
+		}
+
+		final File file = File.createTempFile("segment", null);
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			final FileChannel fileChannel = raf.getChannel();
+			final long offset = CheckpointSegment.ALIGNMENT;
+			fileChannel.write(segment, offset);
+
+			final ByteBuffer first = CheckpointSegment.readShared(fileChannel, offset);
+			assertEquals(data.length, first.remaining());
+
+			// Overwrite the segment on disk, the data must still be served from memory
+			final ByteBuffer zeros = ByteBuffer.allocate(CheckpointSegment.ALIGNMENT);
+			fileChannel.write(zeros, offset);
+
+			final ByteBuffer second = CheckpointSegment.readShared(fileChannel, offset);
+			final byte[] bytes = new byte[second.remaining()];
+			second.get(bytes);
+			assertArrayEquals(data, bytes);
+
+			// The readers do not interfere with each other's positions
+			assertEquals(data.length, first.remaining());
+
+			// Reading the segment from disk returns the overwritten, now empty segment
+			assertEquals(0, CheckpointSegment.read(fileChannel, offset).remaining());
+		} finally {
+			raf.close();
+			file.delete();
+		}
+	}
+
+	/**
+	 * Writes a checkpoint with the write thread.
+	 * 
+	 * @param compressible
+	 *        <code>true</code> to write data which can be compressed, <code>false</code> to write random data
+	 * @param startWriteThread
+	 *        <code>true</code> to start the write thread before the envelopes are queued, <code>false</code> to queue
+	 *        all envelopes first, so the write thread writes them in large batches
+	 * @return the data of the envelopes' buffers, indexed by the envelopes' sequence numbers
+	 */
+	private List<byte[]> writeCheckpoint(final boolean compressible, final boolean startWriteThread)
+			throws Exception {
+
+		final Random random = new Random(42L);
+		final List<byte[]> data = new ArrayList<byte[]>(NUMBER_OF_ENVELOPES);
+		final WriteThread writeThread = new WriteThread(FileBufferManager.getInstance(), this.vertexID, 1);
+		if (startWriteThread) {
+			writeThread.start();
+		}
+
+		for (int i = 0; i < NUMBER_OF_ENVELOPES; ++i) {
+
+			final int size = (i == LARGE_ENVELOPE) ? LARGE_BUFFER_SIZE : 1000 + random.nextInt(31 * 1024);
+			final byte[] bytes = new byte[size];
+			if (compressible) {
+				for (int j = 0; j < size; ++j) {
+					bytes[j] = (byte) (i + j / 128);
+				}
+			} else {
+				random.nextBytes(bytes);
+			}
+			data.add(bytes);
+
+			final TransferEnvelope transferEnvelope = new TransferEnvelope(i, this.jobID, this.channelID);
+			final Buffer buffer = BufferFactory.createFromMemory(size, ByteBuffer.allocate(size), this.connector);
+			buffer.write(ByteBuffer.wrap(bytes));
+			buffer.finishWritePhase();
+			transferEnvelope.setBuffer(buffer);
+
+			if (i == NUMBER_OF_ENVELOPES - 1) {
+				transferEnvelope.addEvent(new ByteBufferedChannelCloseEvent());
+			}
+
+			writeThread.write(transferEnvelope);
+		}
+
+		if (!startWriteThread) {
+			writeThread.start();
+		}
+		writeThread.join();
+
+		assertFalse(writeThread.hasDataLeft());
+		assertEquals(NUMBER_OF_ENVELOPES, this.recycledBuffers.get());
+		assertTrue(CheckpointUtils.hasCompleteCheckpointAvailable(this.vertexID));
+
+		return data;
+	}
+
+	/**
+	 * Reads the references to the buffers' data from the checkpoint's meta data.
+	 * 
+	 * @return the file buffers referring to the buffers' data, indexed by the envelopes' sequence numbers
+	 */
+	private List<Buffer> readMetaData() throws Exception {
+
+		final String metaDataFile = CheckpointUtils.getLocalCheckpointPath().toUri().getPath() + Path.SEPARATOR
+			+ CheckpointUtils.METADATA_PREFIX + "_" + this.vertexID + "_0";
+
+		final CheckpointDeserializer deserializer = new CheckpointDeserializer(this.vertexID, false);
+		final List<Buffer> buffers = new ArrayList<Buffer>(NUMBER_OF_ENVELOPES);
+		final FileChannel fileChannel = new FileInputStream(metaDataFile).getChannel();
+		try {
+			while (true) {
+				deserializer.read(fileChannel);
+				final TransferEnvelope transferEnvelope = deserializer.getFullyDeserializedTransferEnvelope();
+				if (transferEnvelope != null) {
+					assertEquals(buffers.size(), transferEnvelope.getSequenceNumber());
+					buffers.add(transferEnvelope.getBuffer());
+				}
+			}
+		} catch (EOFException e) {
+			// End of meta data reached
+		} finally {
+			fileChannel.close();
+		}
+
+		assertEquals(NUMBER_OF_ENVELOPES, buffers.size());
+
+		// Release the file buffers, the checks only require their offsets
+		for (final Buffer buffer : buffers) {
+			buffer.recycleBuffer();
+		}
+
+		return buffers;
+	}
+
+	/**
+	 * Checks that all segments are aligned, that segments hold the data of multiple envelopes and that the buffer which
+	 * exceeds the segment size is stored on its own.
+	 * 
+	 * @param buffers
+	 *        the file buffers referring to the buffers' data, indexed by the envelopes' sequence numbers
+	 */
+	private static void checkLayout(final List<Buffer> buffers) {
+
+		final Map<Long, Integer> envelopesPerSegment = new HashMap<Long, Integer>();
+		for (int i = 0; i < buffers.size(); ++i) {
+
+			final FileBuffer fileBuffer = (FileBuffer) buffers.get(i);
+			assertEquals(0L, fileBuffer.getOffset() % CheckpointSegment.ALIGNMENT);
+
+			if (i == LARGE_ENVELOPE) {
+				assertEquals(-1, fileBuffer.getOffsetInSegment());
+				assertEquals(LARGE_BUFFER_SIZE, fileBuffer.size());
+				continue;
+			}
+
+			assertTrue(fileBuffer.getOffsetInSegment() >= 0);
+			final Integer count = envelopesPerSegment.get(fileBuffer.getOffset());
+			envelopesPerSegment.put(fileBuffer.getOffset(), (count == null) ? 1 : count.intValue() + 1);
+		}
+
+		int maximumEnvelopesPerSegment = 0;
+		final Iterator<Integer> it = envelopesPerSegment.values().iterator();
+		while (it.hasNext()) {
+			maximumEnvelopesPerSegment = Math.max(maximumEnvelopesPerSegment, it.next().intValue());
+		}
+		assertTrue(maximumEnvelopesPerSegment > 1);
+	}
+
+	/**
+	 * Replays the checkpoint with the replay thread and checks the replayed envelopes.
+	 * 
+	 * @param data
+	 *        the data of the envelopes' buffers, indexed by the envelopes' sequence numbers
+	 */
+	private void replayAndCheck(final List<byte[]> data) throws Exception {
+
+		final CollectingForwarder collector = new CollectingForwarder();
+		final ReplayOutputChannelBroker broker = new ReplayOutputChannelBroker(new HeapBufferProvider(), collector);
+		broker.setForwardingChain(new OutputChannelForwardingChain(broker, collector));
+
+		final Map<ChannelID, ReplayOutputChannelBroker> brokers = new HashMap<ChannelID, ReplayOutputChannelBroker>();
+		brokers.put(this.channelID, broker);
+
+		final RecordingExecutionObserver observer = new RecordingExecutionObserver();
+		final ReplayThread replayThread = new ReplayThread(this.vertexID, observer, "Test task", true, true, brokers);
+		replayThread.start();
+		replayThread.join();
+
+		assertEquals(observer.message, ExecutionState.FINISHED, observer.state);
+		assertEquals(NUMBER_OF_ENVELOPES, collector.sequenceNumbers.size());
+
+		for (int i = 0; i < NUMBER_OF_ENVELOPES; ++i) {
+			assertEquals(i, collector.sequenceNumbers.get(i).intValue());
+			assertArrayEquals("Data of envelope " + i, data.get(i), collector.data.get(i));
+		}
+
+		assertTrue(collector.closeEventReceived);
+	}
+
+	/**
+	 * A forwarder which collects the envelopes replayed from the checkpoint.
+	 */
+	private static final class CollectingForwarder extends AbstractOutputChannelForwarder {
+
+		private final List<Integer> sequenceNumbers = new ArrayList<Integer>();
+
+		private final List<byte[]> data = new ArrayList<byte[]>();
+
+		private boolean closeEventReceived = false;
+
+		private CollectingForwarder() {
+			super(null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void push(final TransferEnvelope transferEnvelope) throws IOException, InterruptedException {
+
+			this.sequenceNumbers.add(Integer.valueOf(transferEnvelope.getSequenceNumber()));
+
+			final Buffer buffer = transferEnvelope.getBuffer();
+			assertNotNull(buffer);
+			final ByteBuffer bb = ((MemoryBuffer) buffer).getByteBuffer();
+			final byte[] bytes = new byte[bb.remaining()];
+			bb.get(bytes);
+			this.data.add(bytes);
+			buffer.recycleBuffer();
+
+			if (transferEnvelope.getEventList() != null) {
+				final Iterator<AbstractEvent> it = transferEnvelope.getEventList().iterator();
+				while (it.hasNext()) {
+					if (it.next() instanceof ByteBufferedChannelCloseEvent) {
+						this.closeEventReceived = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A buffer provider which allocates a new heap buffer of the requested size for each request.
+	 */
+	private static final class HeapBufferProvider implements BufferProvider {
+
+		private final MemoryBufferPoolConnector connector = new MemoryBufferPoolConnector() {
+
+			@Override
+			public void recycle(final ByteBuffer byteBuffer) {
+				// Nothing to do here
+			}
+		};
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Buffer requestEmptyBuffer(final int minimumSizeOfBuffer) throws IOException {
+
+			return BufferFactory.createFromMemory(minimumSizeOfBuffer, ByteBuffer.allocate(minimumSizeOfBuffer),
+				this.connector);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Buffer requestEmptyBufferBlocking(final int minimumSizeOfBuffer) throws IOException,
+				InterruptedException {
+
+			return requestEmptyBuffer(minimumSizeOfBuffer);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getMaximumBufferSize() {
+
+			return Integer.MAX_VALUE;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isShared() {
+
+			return false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void reportAsynchronousEvent() {
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean registerBufferAvailabilityListener(final BufferAvailabilityListener bufferAvailabilityListener) {
+
+			return false;
+		}
+	}
+
+	/**
+	 * An execution observer which records the last execution state of the replay thread.
+	 */
+	private static final class RecordingExecutionObserver implements ExecutionObserver {
+
+		private volatile ExecutionState state = null;
+
+		private volatile String message = null;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void executionStateChanged(final ExecutionState newExecutionState, final String optionalMessage) {
+
+			this.state = newExecutionState;
+			this.message = optionalMessage;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void userThreadStarted(final Thread userThread) {
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void userThreadFinished(final Thread userThread) {
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isCanceled() {
+
+			return false;
+		}
+	}
+}
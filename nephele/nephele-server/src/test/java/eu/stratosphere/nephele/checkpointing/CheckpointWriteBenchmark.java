@@ -0,0 +1,161 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.checkpointing;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.fs.Path;
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.FileBufferManager;
+import eu.stratosphere.nephele.io.channels.MemoryBufferPoolConnector;
+import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
+
+/**
+ * This benchmark measures the throughput of the {@link WriteThread} when writing checkpoints of compressible and of
+ * random data. The envelopes are taken from a bounded buffer pool like the ones of a task, so the producer is slowed
+ * down as soon as the checkpoint cannot keep up. It is not run as part of the regular test suite.
+ * 
+ */
+public class CheckpointWriteBenchmark {
+
+	private static final Log LOG = LogFactory.getLog(CheckpointWriteBenchmark.class);
+
+	/**
+	 * The size of the envelopes' buffers in bytes, which corresponds to the default network buffer size.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The number of buffers in the pool the envelopes' buffers are taken from.
+	 */
+	private static final int NUMBER_OF_BUFFERS = 128;
+
+	/**
+	 * The amount of data written to each checkpoint in megabytes.
+	 */
+	private static final int CHECKPOINT_SIZE = 512;
+
+	/**
+	 * The number of runs per type of data.
+	 */
+	private static final int NUMBER_OF_RUNS = 3;
+
+	@Test
+	public void benchmarkCompressibleData() throws Exception {
+
+		final byte[] data = new byte[BUFFER_SIZE];
+		for (int i = 0; i < data.length; ++i) {
+			data[i] = (byte) (i / 128);
+		}
+
+		benchmark("compressible", data);
+	}
+
+	@Test
+	public void benchmarkRandomData() throws Exception {
+
+		final byte[] data = new byte[BUFFER_SIZE];
+		new Random(42L).nextBytes(data);
+
+		benchmark("random", data);
+	}
+
+	private void benchmark(final String description, final byte[] data) throws Exception {
+
+		long totalTime = 0L;
+		for (int run = 0; run < NUMBER_OF_RUNS; ++run) {
+			totalTime += writeCheckpoint(data);
+		}
+
+		final double seconds = totalTime / (NUMBER_OF_RUNS * 1000000000.0);
+		LOG.info(String.format("Checkpoint throughput for %s data: %.1f MB/s", description, CHECKPOINT_SIZE
+			/ seconds));
+	}
+
+	/**
+	 * Writes a checkpoint consisting of the given data and deletes it afterwards.
+	 * 
+	 * @param data
+	 *        the data of each envelope's buffer
+	 * @return the time required to write the checkpoint in nanoseconds
+	 */
+	private long writeCheckpoint(final byte[] data) throws Exception {
+
+		final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<ByteBuffer>(NUMBER_OF_BUFFERS);
+		for (int i = 0; i < NUMBER_OF_BUFFERS; ++i) {
+			bufferPool.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+		}
+
+		final MemoryBufferPoolConnector connector = new MemoryBufferPoolConnector() {
+
+			@Override
+			public void recycle(final ByteBuffer byteBuffer) {
+				bufferPool.add(byteBuffer);
+			}
+		};
+
+		final ExecutionVertexID vertexID = new ExecutionVertexID();
+		final JobID jobID = new JobID();
+		final ChannelID channelID = new ChannelID();
+		final int numberOfEnvelopes = (CHECKPOINT_SIZE * 1024 * 1024) / BUFFER_SIZE;
+
+		final long start = System.nanoTime();
+
+		final WriteThread writeThread = new WriteThread(FileBufferManager.getInstance(), vertexID, 1);
+		writeThread.start();
+
+		for (int i = 0; i < numberOfEnvelopes; ++i) {
+
+			final Buffer buffer = BufferFactory.createFromMemory(BUFFER_SIZE, bufferPool.take(), connector);
+			buffer.write(ByteBuffer.wrap(data));
+			buffer.finishWritePhase();
+
+			final TransferEnvelope transferEnvelope = new TransferEnvelope(i, jobID, channelID);
+			transferEnvelope.setBuffer(buffer);
+			if (i == numberOfEnvelopes - 1) {
+				transferEnvelope.addEvent(new ByteBufferedChannelCloseEvent());
+			}
+
+			writeThread.write(transferEnvelope);
+		}
+
+		writeThread.join();
+
+		final long duration = System.nanoTime() - start;
+
+		final String prefix = CheckpointUtils.getLocalCheckpointPath().toUri().getPath() + Path.SEPARATOR
+			+ CheckpointUtils.METADATA_PREFIX + "_" + vertexID;
+		for (int i = 0; new File(prefix + "_" + i).delete(); ++i) {
+		}
+		new File(prefix + CheckpointUtils.COMPLETED_CHECKPOINT_SUFFIX).delete();
+		FileBufferManager.deleteFile(vertexID);
+
+		return duration;
+	}
+}
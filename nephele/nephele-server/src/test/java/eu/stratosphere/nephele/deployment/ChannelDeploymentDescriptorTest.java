@@ -17,12 +17,16 @@ package eu.stratosphere.nephele.deployment;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 
 import org.junit.Test;
 
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.util.ServerTestUtils;
 import eu.stratosphere.nephele.util.StringUtils;
@@ -110,4 +114,40 @@ public class ChannelDeploymentDescriptorTest {
 		assertEquals(orig.getOutputChannelID(), copy.getOutputChannelID());
 		assertEquals(orig.getInputChannelID(), copy.getInputChannelID());
 	}
+
+	/**
+	 * Tests the serialization/deserialization of the {@link ChannelDeploymentDescriptor} class including the location
+	 * of the peer.
+	 */
+	@Test
+	public void testSerializationWithPeerLocation() {
+
+		final ChannelID outputChannelID = new ChannelID();
+		final ChannelID inputChannelID = new ChannelID();
+		final InstanceConnectionInfo peerConnectionInfo = new InstanceConnectionInfo(
+			new InetSocketAddress("localhost", 6122).getAddress(), 6122, 6121);
+
+		final ChannelDeploymentDescriptor orig = new ChannelDeploymentDescriptor(outputChannelID, inputChannelID,
+			peerConnectionInfo, 42, true);
+
+		ChannelDeploymentDescriptor copy = null;
+		ChannelDeploymentDescriptor copyWithoutPeer = null;
+
+		try {
+			copy = ServerTestUtils.createCopy(orig);
+			copyWithoutPeer = ServerTestUtils.createCopy(new ChannelDeploymentDescriptor(outputChannelID,
+				inputChannelID));
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+
+		assertEquals(orig.getOutputChannelID(), copy.getOutputChannelID());
+		assertEquals(orig.getInputChannelID(), copy.getInputChannelID());
+		assertEquals(peerConnectionInfo, copy.getPeerConnectionInfo());
+		assertEquals(42, copy.getConnectionID());
+		assertTrue(copy.isPeerReady());
+
+		assertNull(copyWithoutPeer.getPeerConnectionInfo());
+		assertFalse(copyWithoutPeer.isPeerReady());
+	}
 }
@@ -0,0 +1,83 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.executiongraph;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.io.DistributionPattern;
+
+/**
+ * This class checks that the wire enumeration of the {@link DistributionPatternProvider} is consistent with
+ * {@link DistributionPatternProvider#createWire(DistributionPattern, int, int, int, int)}.
+ * 
+ */
+public class DistributionPatternProviderTest {
+
+	/**
+	 * The maximum number of subtasks per task to check.
+	 */
+	private static final int MAXIMUM_NUMBER_OF_SUBTASKS = 12;
+
+	@Test
+	public void testWireEnumeration() {
+
+		for (final DistributionPattern pattern : DistributionPattern.values()) {
+			for (int lower = 1; lower <= MAXIMUM_NUMBER_OF_SUBTASKS; ++lower) {
+				for (int upper = 1; upper <= MAXIMUM_NUMBER_OF_SUBTASKS; ++upper) {
+					checkWires(pattern, lower, upper);
+				}
+			}
+		}
+	}
+
+	private static void checkWires(final DistributionPattern pattern, final int sizeSetLowerStage,
+			final int sizeSetUpperStage) {
+
+		final int[] incomingWires = new int[sizeSetUpperStage];
+
+		for (int i = 0; i < sizeSetLowerStage; ++i) {
+
+			final int numberOfOutgoingWires = DistributionPatternProvider.getNumberOfOutgoingWires(pattern, i,
+				sizeSetLowerStage, sizeSetUpperStage);
+
+			int wire = 0;
+			for (int j = 0; j < sizeSetUpperStage; ++j) {
+
+				if (!DistributionPatternProvider.createWire(pattern, i, j, sizeSetLowerStage, sizeSetUpperStage)) {
+					continue;
+				}
+
+				// Outgoing wires are ordered by the index of the consuming subtask
+				assertEquals(j, DistributionPatternProvider.getTargetOfWire(pattern, i, wire++, sizeSetLowerStage,
+					sizeSetUpperStage));
+
+				// Incoming wires are ordered by the index of the producing subtask
+				assertEquals(incomingWires[j]++, DistributionPatternProvider.getIndexOfIncomingWire(pattern, i,
+					sizeSetLowerStage, sizeSetUpperStage));
+			}
+
+			assertEquals(wire, numberOfOutgoingWires);
+		}
+
+		for (int j = 0; j < sizeSetUpperStage; ++j) {
+			assertEquals(incomingWires[j], DistributionPatternProvider.getNumberOfIncomingWires(pattern, j,
+				sizeSetLowerStage, sizeSetUpperStage));
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.executiongraph;
+
+import java.io.File;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.fs.Path;
+import eu.stratosphere.nephele.io.DistributionPattern;
+import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionLevel;
+import eu.stratosphere.nephele.io.library.FileLineReader;
+import eu.stratosphere.nephele.io.library.FileLineWriter;
+import eu.stratosphere.nephele.jobgraph.JobFileInputVertex;
+import eu.stratosphere.nephele.jobgraph.JobFileOutputVertex;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.nephele.util.ServerTestUtils;
+
+/**
+ * This benchmark measures the time and the heap memory required to convert job graphs with several all-to-all edges
+ * into {@link ExecutionGraph} objects for increasing degrees of parallelism. It is not run as part of the regular
+ * test suite. Note that a degree of parallelism of 800 requires a heap of at least 1 GB.
+ * 
+ */
+public class ExecutionGraphConstructionBenchmark {
+
+	private static final Log LOG = LogFactory.getLog(ExecutionGraphConstructionBenchmark.class);
+
+	/**
+	 * The degrees of parallelism to benchmark.
+	 */
+	private static final int[] DEGREES_OF_PARALLELISM = { 50, 100, 200, 400, 800 };
+
+	/**
+	 * The number of runs per degree of parallelism.
+	 */
+	private static final int NUMBER_OF_RUNS = 3;
+
+	@Test
+	public void benchmarkGraphConstruction() throws Exception {
+
+		final File inputFile = ServerTestUtils.createInputFile(0);
+
+		try {
+			for (final int dop : DEGREES_OF_PARALLELISM) {
+
+				long totalTime = 0L;
+				long totalMemory = 0L;
+
+				for (int run = 0; run < NUMBER_OF_RUNS; ++run) {
+
+					final JobGraph jobGraph = createJobGraph(inputFile, dop);
+					LibraryCacheManager.register(jobGraph.getJobID(), new String[0]);
+
+					try {
+						final long memoryBefore = getUsedMemory();
+						final long start = System.nanoTime();
+
+						final ExecutionGraph eg = new ExecutionGraph(jobGraph, ExecutionGraphTest.INSTANCE_MANAGER);
+
+						totalTime += System.nanoTime() - start;
+						totalMemory += getUsedMemory() - memoryBefore;
+
+						// Keep the graph reachable until its memory has been measured
+						if (eg.getNumberOfStages() == 0) {
+							LOG.error("Execution graph for DOP " + dop + " has no stages");
+						}
+					} finally {
+						LibraryCacheManager.unregister(jobGraph.getJobID());
+					}
+				}
+
+				final String result = "DOP " + dop + ": " + (totalTime / NUMBER_OF_RUNS / 1000000L) + " ms, "
+					+ (totalMemory / NUMBER_OF_RUNS / (1024L * 1024L)) + " MB";
+				LOG.info(result);
+			}
+		} finally {
+			inputFile.delete();
+		}
+	}
+
+	/**
+	 * Creates a job graph input -> task 1 -> task 2 -> output whose task vertices are connected by all-to-all edges.
+	 * 
+	 * @param inputFile
+	 *        the input file to read from
+	 * @param dop
+	 *        the degree of parallelism of every vertex
+	 * @return the created job graph
+	 * @throws Exception
+	 *         thrown if an error occurs while creating the job graph
+	 */
+	private static JobGraph createJobGraph(final File inputFile, final int dop) throws Exception {
+
+		final JobGraph jg = new JobGraph("Benchmark " + dop);
+
+		final JobFileInputVertex i1 = new JobFileInputVertex("Input 1", jg);
+		i1.setFileInputClass(FileLineReader.class);
+		i1.setFilePath(new Path(inputFile.toURI()));
+		i1.setNumberOfSubtasks(dop);
+
+		final JobTaskVertex t1 = new JobTaskVertex("Task 1", jg);
+		t1.setTaskClass(ForwardTask1Input1Output.class);
+		t1.setNumberOfSubtasks(dop);
+
+		final JobTaskVertex t2 = new JobTaskVertex("Task 2", jg);
+		t2.setTaskClass(ForwardTask1Input1Output.class);
+		t2.setNumberOfSubtasks(dop);
+
+		final JobFileOutputVertex o1 = new JobFileOutputVertex("Output 1", jg);
+		o1.setFileOutputClass(FileLineWriter.class);
+		o1.setFilePath(new Path(new File(ServerTestUtils.getRandomFilename()).toURI()));
+		o1.setNumberOfSubtasks(dop);
+
+		i1.connectTo(t1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.BIPARTITE);
+		t1.connectTo(t2, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.BIPARTITE);
+		t2.connectTo(o1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+
+		return jg;
+	}
+
+	/**
+	 * Returns the amount of heap memory in use after a garbage collection.
+	 * 
+	 * @return the amount of heap memory in use in bytes
+	 */
+	private static long getUsedMemory() {
+
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -47,6 +47,7 @@ import eu.stratosphere.nephele.instance.InstanceType;
 import eu.stratosphere.nephele.instance.InstanceTypeDescription;
 import eu.stratosphere.nephele.instance.InstanceTypeFactory;
 import eu.stratosphere.nephele.io.DistributionPattern;
+import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.compression.CompressionLevel;
 import eu.stratosphere.nephele.io.library.FileLineReader;
@@ -206,7 +207,7 @@ public class ExecutionGraphTest {
 
 	}
 
-	private static final InstanceManager INSTANCE_MANAGER = new TestInstanceManager();
+	static final InstanceManager INSTANCE_MANAGER = new TestInstanceManager();
 
 	/*
 	 * input1 -> task1 -> output1
@@ -1143,4 +1144,194 @@ public class ExecutionGraphTest {
 			}
 		}
 	}
+
+	/**
+	 * Checks that the channel IDs of all execution edges can be resolved by the execution graph and that the edges
+	 * are correctly positioned within their gates.
+	 */
+	@Test
+	public void testChannelIDLookup() {
+
+		File inputFile = null;
+		JobID jobID = null;
+
+		try {
+
+			inputFile = ServerTestUtils.createInputFile(0);
+
+			// create job graph
+			final JobGraph jg = new JobGraph("Channel ID Lookup Test Job");
+			jobID = jg.getJobID();
+
+			final JobFileInputVertex i1 = new JobFileInputVertex("Input 1", jg);
+			i1.setFileInputClass(FileLineReader.class);
+			i1.setFilePath(new Path(inputFile.toURI()));
+			i1.setNumberOfSubtasks(5);
+
+			final JobTaskVertex t1 = new JobTaskVertex("Task 1", jg);
+			t1.setTaskClass(ForwardTask1Input1Output.class);
+			t1.setNumberOfSubtasks(3);
+
+			final JobFileOutputVertex o1 = new JobFileOutputVertex("Output 1", jg);
+			o1.setFileOutputClass(FileLineWriter.class);
+			o1.setFilePath(new Path(new File(ServerTestUtils.getRandomFilename()).toURI()));
+			o1.setNumberOfSubtasks(7);
+
+			i1.connectTo(t1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.BIPARTITE);
+			t1.connectTo(o1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+
+			LibraryCacheManager.register(jobID, new String[0]);
+
+			final ExecutionGraph eg = new ExecutionGraph(jg, INSTANCE_MANAGER);
+
+			int numberOfEdges = 0;
+			final ExecutionGraphIterator it = new ExecutionGraphIterator(eg, true);
+			while (it.hasNext()) {
+
+				final ExecutionVertex ev = it.next();
+				for (int i = 0; i < ev.getNumberOfOutputGates(); ++i) {
+
+					final ExecutionGate outputGate = ev.getOutputGate(i);
+					for (int j = 0; j < outputGate.getNumberOfEdges(); ++j) {
+
+						final ExecutionEdge edge = outputGate.getEdge(j);
+						assertEquals(j, edge.getOutputGateIndex());
+						assertEquals(edge, edge.getInputGate().getEdge(edge.getInputGateIndex()));
+						assertFalse(edge.getOutputChannelID().equals(edge.getInputChannelID()));
+						assertSame(edge.getOutputChannelID(), edge.getOutputChannelID());
+
+						assertEquals(edge, eg.getEdgeByID(edge.getOutputChannelID()));
+						assertEquals(edge, eg.getEdgeByID(edge.getInputChannelID()));
+						assertSame(ev, eg.getVertexByChannelID(edge.getOutputChannelID()));
+						assertSame(edge.getInputGate().getVertex(), eg.getVertexByChannelID(edge.getInputChannelID()));
+
+						++numberOfEdges;
+					}
+				}
+			}
+
+			assertEquals(5 * 3 + 7, numberOfEdges);
+			assertNull(eg.getEdgeByID(new ChannelID()));
+			assertNull(eg.getVertexByChannelID(new ChannelID()));
+
+		} catch (GraphConversionException e) {
+			fail(e.getMessage());
+		} catch (JobGraphDefinitionException e) {
+			fail(e.getMessage());
+		} catch (IOException ioe) {
+			fail(ioe.getMessage());
+		} finally {
+			if (inputFile != null) {
+				inputFile.delete();
+			}
+			if (jobID != null) {
+				try {
+					LibraryCacheManager.unregister(jobID);
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the edges of a large all-to-all connection, which the gates create on demand, connect the right
+	 * vertices and gates in both directions.
+	 */
+	@Test
+	public void testAllToAllEdges() {
+
+		final int dop = 500;
+		File inputFile = null;
+		JobID jobID = null;
+
+		try {
+
+			inputFile = ServerTestUtils.createInputFile(0);
+
+			// create job graph
+			final JobGraph jg = new JobGraph("All-To-All Edges Test Job");
+			jobID = jg.getJobID();
+
+			final JobFileInputVertex i1 = new JobFileInputVertex("Input 1", jg);
+			i1.setFileInputClass(FileLineReader.class);
+			i1.setFilePath(new Path(inputFile.toURI()));
+			i1.setNumberOfSubtasks(dop);
+
+			final JobTaskVertex t1 = new JobTaskVertex("Task 1", jg);
+			t1.setTaskClass(ForwardTask1Input1Output.class);
+			t1.setNumberOfSubtasks(dop + 1);
+
+			final JobFileOutputVertex o1 = new JobFileOutputVertex("Output 1", jg);
+			o1.setFileOutputClass(FileLineWriter.class);
+			o1.setFilePath(new Path(new File(ServerTestUtils.getRandomFilename()).toURI()));
+			o1.setNumberOfSubtasks(dop + 1);
+
+			i1.connectTo(t1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.BIPARTITE);
+			t1.connectTo(o1, ChannelType.INMEMORY, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+
+			LibraryCacheManager.register(jobID, new String[0]);
+
+			final ExecutionGraph eg = new ExecutionGraph(jg, INSTANCE_MANAGER);
+
+			final ExecutionGroupVertex source = eg.getInputVertex(0).getGroupVertex();
+			final ExecutionGroupVertex target = source.getForwardEdge(0).getTargetVertex();
+			assertEquals(dop, source.getCurrentNumberOfGroupMembers());
+			assertEquals(dop + 1, target.getCurrentNumberOfGroupMembers());
+
+			for (int i = 0; i < dop; i += 7) {
+
+				final ExecutionVertex sourceVertex = source.getGroupMember(i);
+				final ExecutionGate outputGate = sourceVertex.getOutputGate(0);
+				assertEquals(dop + 1, outputGate.getNumberOfEdges());
+
+				for (int j = 0; j < dop + 1; j += 11) {
+
+					final ExecutionEdge edge = outputGate.getEdge(j);
+					final ExecutionVertex targetVertex = target.getGroupMember(j);
+					final ExecutionGate inputGate = targetVertex.getInputGate(0);
+
+					assertSame(outputGate, edge.getOutputGate());
+					assertSame(inputGate, edge.getInputGate());
+					assertEquals(dop, inputGate.getNumberOfEdges());
+					assertEquals(i, edge.getInputGateIndex());
+
+					// The same edge seen from the input gate
+					final ExecutionEdge inputEdge = inputGate.getEdge(i);
+					assertEquals(edge, inputEdge);
+					assertEquals(edge.hashCode(), inputEdge.hashCode());
+					assertSame(outputGate, inputEdge.getOutputGate());
+					assertEquals(j, inputEdge.getOutputGateIndex());
+					assertEquals(edge.getOutputChannelID(), inputEdge.getOutputChannelID());
+					assertEquals(edge.getInputChannelID(), inputEdge.getInputChannelID());
+
+					assertSame(sourceVertex, eg.getVertexByChannelID(edge.getOutputChannelID()));
+					assertSame(targetVertex, eg.getVertexByChannelID(edge.getInputChannelID()));
+				}
+			}
+
+			try {
+				source.getGroupMember(0).getOutputGate(0).getEdge(dop + 1);
+				fail("Edge beyond the number of edges of the gate was returned");
+			} catch (IndexOutOfBoundsException e) {
+				// expected
+			}
+
+		} catch (GraphConversionException e) {
+			fail(e.getMessage());
+		} catch (JobGraphDefinitionException e) {
+			fail(e.getMessage());
+		} catch (IOException ioe) {
+			fail(ioe.getMessage());
+		} finally {
+			if (inputFile != null) {
+				inputFile.delete();
+			}
+			if (jobID != null) {
+				try {
+					LibraryCacheManager.unregister(jobID);
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
 }
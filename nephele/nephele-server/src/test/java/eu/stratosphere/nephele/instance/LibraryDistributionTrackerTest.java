@@ -0,0 +1,151 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link LibraryDistributionTracker}.
+ */
+public class LibraryDistributionTrackerTest {
+
+	/**
+	 * The name of the library used throughout the tests.
+	 */
+	private static final String LIBRARY = "0123456789abcdef0123456789abcdef01234567.jar";
+
+	/**
+	 * Creates connection information for a task manager with the given IPC port.
+	 * 
+	 * @param port
+	 *        the IPC port of the task manager
+	 * @return the connection information
+	 * @throws UnknownHostException
+	 *         thrown if the loopback address cannot be resolved
+	 */
+	private static InstanceConnectionInfo createInstance(final int port) throws UnknownHostException {
+
+		return new InstanceConnectionInfo(InetAddress.getByName("127.0.0.1"), port, port + 1);
+	}
+
+	/**
+	 * Checks that the job manager only serves the first transfers and holders take over afterwards.
+	 */
+	@Test
+	public void testPeersServeLibrary() throws Exception {
+
+		final LibraryDistributionTracker tracker = new LibraryDistributionTracker(2);
+
+		final InstanceConnectionInfo first = createInstance(1000);
+		final InstanceConnectionInfo second = createInstance(2000);
+		final InstanceConnectionInfo third = createInstance(3000);
+		final InstanceConnectionInfo fourth = createInstance(4000);
+
+		// Nobody holds the library yet, so the job manager has to upload it
+		assertNull(tracker.acquireSource(LIBRARY, first));
+		tracker.releaseSource(LIBRARY, null, first, true);
+
+		// From now on, the first instance serves the library, up to the configured fan-out
+		assertEquals(first, tracker.acquireSource(LIBRARY, second));
+		assertEquals(first, tracker.acquireSource(LIBRARY, third));
+		tracker.releaseSource(LIBRARY, first, second, true);
+
+		// The second instance has no ongoing transfers and is therefore preferred
+		assertEquals(second, tracker.acquireSource(LIBRARY, fourth));
+
+		tracker.releaseSource(LIBRARY, first, third, true);
+		tracker.releaseSource(LIBRARY, second, fourth, true);
+
+		// A holder is never selected as its own source
+		final InstanceConnectionInfo source = tracker.acquireSource(LIBRARY, first);
+		assertTrue(source != null && !source.equals(first));
+		tracker.releaseSource(LIBRARY, source, first, true);
+	}
+
+	/**
+	 * Checks that failed transfers and removed instances are not used as sources.
+	 */
+	@Test
+	public void testFailedTransfers() throws Exception {
+
+		final LibraryDistributionTracker tracker = new LibraryDistributionTracker(1);
+
+		final InstanceConnectionInfo first = createInstance(1000);
+		final InstanceConnectionInfo second = createInstance(2000);
+
+		assertNull(tracker.acquireSource(LIBRARY, first));
+		tracker.releaseSource(LIBRARY, null, first, false);
+
+		// The first transfer failed, so the job manager is asked again
+		assertNull(tracker.acquireSource(LIBRARY, second));
+		tracker.releaseSource(LIBRARY, null, second, true);
+
+		tracker.removeInstance(second);
+		assertNull(tracker.acquireSource(LIBRARY, first));
+		tracker.releaseSource(LIBRARY, null, first, true);
+
+		tracker.removeHolder(LIBRARY, first);
+		assertNull(tracker.acquireSource(LIBRARY, second));
+		tracker.releaseSource(LIBRARY, null, second, true);
+	}
+
+	/**
+	 * Checks that requests wait for a source if all sources are busy.
+	 */
+	@Test
+	public void testWaitForSource() throws Exception {
+
+		final LibraryDistributionTracker tracker = new LibraryDistributionTracker(1);
+
+		final InstanceConnectionInfo first = createInstance(1000);
+		final InstanceConnectionInfo second = createInstance(2000);
+
+		assertNull(tracker.acquireSource(LIBRARY, first));
+
+		final InstanceConnectionInfo[] result = new InstanceConnectionInfo[1];
+		final Thread waiter = new Thread() {
+
+			@Override
+			public void run() {
+
+				try {
+					result[0] = tracker.acquireSource(LIBRARY, second);
+				} catch (InterruptedException e) {
+					// Leave the result empty
+				}
+			}
+		};
+
+		waiter.start();
+		waiter.join(200L);
+		assertTrue(waiter.isAlive());
+
+		// Once the first transfer has finished, the first instance can serve the second one
+		tracker.releaseSource(LIBRARY, null, first, true);
+		waiter.join(10000L);
+		assertFalse(waiter.isAlive());
+		assertEquals(first, result[0]);
+	}
+}
@@ -0,0 +1,154 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.jobmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.event.job.AbstractEvent;
+import eu.stratosphere.nephele.event.job.ExecutionStateChangeEvent;
+import eu.stratosphere.nephele.event.job.JobEvent;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.jobgraph.JobStatus;
+import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
+
+/**
+ * Tests for the {@link JobEventBuffer}.
+ */
+public class JobEventBufferTest {
+
+	/**
+	 * Checks that events can be fetched incrementally and management events can be filtered.
+	 */
+	@Test
+	public void testIncrementalRetrieval() {
+
+		final JobEventBuffer buffer = new JobEventBuffer(16);
+
+		final JobEvent first = new JobEvent(1L, JobStatus.SCHEDULED, null);
+		final ExecutionStateChangeEvent second = new ExecutionStateChangeEvent(2L, new ManagementVertexID(),
+			ExecutionState.RUNNING);
+		final JobEvent third = new JobEvent(3L, JobStatus.RUNNING, null);
+
+		buffer.add(first);
+		buffer.add(second);
+
+		final List<AbstractEvent> events = new ArrayList<AbstractEvent>();
+		long sequenceNumber = buffer.get(0L, events, true, Long.MIN_VALUE);
+		assertEquals(2L, sequenceNumber);
+		assertEquals(2, events.size());
+		assertSame(first, events.get(0));
+		assertSame(second, events.get(1));
+
+		// Nothing new
+		events.clear();
+		assertEquals(2L, buffer.get(sequenceNumber, events, true, Long.MIN_VALUE));
+		assertTrue(events.isEmpty());
+
+		buffer.add(third);
+		sequenceNumber = buffer.get(sequenceNumber, events, true, Long.MIN_VALUE);
+		assertEquals(3L, sequenceNumber);
+		assertEquals(1, events.size());
+		assertSame(third, events.get(0));
+
+		// Filter management events and old events
+		events.clear();
+		buffer.get(0L, events, false, Long.MIN_VALUE);
+		assertEquals(2, events.size());
+		events.clear();
+		buffer.get(0L, events, true, 2L);
+		assertEquals(2, events.size());
+		assertSame(second, events.get(0));
+	}
+
+	/**
+	 * Checks that the buffer keeps only the most recent events once it is full.
+	 */
+	@Test
+	public void testOverwrite() {
+
+		final JobEventBuffer buffer = new JobEventBuffer(4);
+
+		for (int i = 0; i < 10; ++i) {
+			buffer.add(new JobEvent(i, JobStatus.RUNNING, null));
+		}
+
+		final List<AbstractEvent> events = new ArrayList<AbstractEvent>();
+		assertEquals(10L, buffer.get(2L, events, true, Long.MIN_VALUE));
+		assertEquals(4, events.size());
+		for (int i = 0; i < 4; ++i) {
+			assertEquals(6L + i, events.get(i).getTimestamp());
+		}
+	}
+
+	/**
+	 * Checks that concurrently added events are all retrieved exactly once by an incremental reader.
+	 */
+	@Test
+	public void testConcurrentAccess() throws Exception {
+
+		final int numberOfThreads = 4;
+		final int eventsPerThread = 10000;
+
+		final JobEventBuffer buffer = new JobEventBuffer(numberOfThreads * eventsPerThread);
+
+		final Thread[] writers = new Thread[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; ++i) {
+
+			final int offset = i * eventsPerThread;
+			writers[i] = new Thread() {
+
+				@Override
+				public void run() {
+
+					for (int j = 0; j < eventsPerThread; ++j) {
+						buffer.add(new JobEvent(offset + j, JobStatus.RUNNING, null));
+					}
+				}
+			};
+			writers[i].start();
+		}
+
+		final Set<Long> timestamps = new HashSet<Long>();
+		final List<AbstractEvent> events = new ArrayList<AbstractEvent>();
+		long sequenceNumber = 0L;
+		boolean writersAlive = true;
+		while (writersAlive) {
+
+			writersAlive = false;
+			for (int i = 0; i < numberOfThreads; ++i) {
+				writersAlive |= writers[i].isAlive();
+			}
+
+			events.clear();
+			sequenceNumber = buffer.get(sequenceNumber, events, true, Long.MIN_VALUE);
+			for (final AbstractEvent event : events) {
+				assertTrue(timestamps.add(Long.valueOf(event.getTimestamp())));
+			}
+		}
+
+		assertEquals(numberOfThreads * eventsPerThread, timestamps.size());
+	}
+}
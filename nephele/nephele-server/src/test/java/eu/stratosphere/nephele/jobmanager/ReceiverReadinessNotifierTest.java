@@ -0,0 +1,293 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.fs.Path;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.AllocationID;
+import eu.stratosphere.nephele.instance.InstanceManager;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.io.DistributionPattern;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionLevel;
+import eu.stratosphere.nephele.io.library.FileLineReader;
+import eu.stratosphere.nephele.io.library.FileLineWriter;
+import eu.stratosphere.nephele.jobgraph.JobFileInputVertex;
+import eu.stratosphere.nephele.jobgraph.JobFileOutputVertex;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
+import eu.stratosphere.nephele.util.ServerTestUtils;
+
+/**
+ * This class contains tests for the {@link ReceiverReadinessNotifier}. The tests use a job with two subtasks per
+ * vertex which are connected point-to-point by network channels. Every group vertex runs on its own instance.
+ */
+public class ReceiverReadinessNotifierTest {
+
+	/**
+	 * The number of subtasks of each vertex.
+	 */
+	private static final int DOP = 2;
+
+	/**
+	 * The states a vertex passes on its way to running.
+	 */
+	private static final ExecutionState[] STATES = { ExecutionState.SCHEDULED, ExecutionState.ASSIGNED,
+		ExecutionState.READY, ExecutionState.STARTING, ExecutionState.RUNNING };
+
+	private File inputFile;
+
+	private JobGraph jobGraph;
+
+	private ExecutionGroupVertex inputVertex;
+
+	private ExecutionGroupVertex taskVertex;
+
+	private ExecutionGroupVertex outputVertex;
+
+	private AbstractInstance inputInstance;
+
+	private AbstractInstance taskInstance;
+
+	private AbstractInstance outputInstance;
+
+	private AbstractScheduler scheduler;
+
+	private ExecutorService executorService;
+
+	private ReceiverReadinessNotifier notifier;
+
+	/**
+	 * Creates the execution graph of the test job and assigns its vertices to mocked instances.
+	 * 
+	 * @throws Exception
+	 *         thrown if the execution graph cannot be created
+	 */
+	@Before
+	public void createExecutionGraph() throws Exception {
+
+		this.inputFile = ServerTestUtils.createInputFile(0);
+
+		this.jobGraph = new JobGraph("Receiver Readiness Test Job");
+
+		final JobFileInputVertex i1 = new JobFileInputVertex("Input 1", this.jobGraph);
+		i1.setFileInputClass(FileLineReader.class);
+		i1.setFilePath(new Path(this.inputFile.toURI()));
+		i1.setNumberOfSubtasks(DOP);
+
+		final JobTaskVertex t1 = new JobTaskVertex("Task 1", this.jobGraph);
+		t1.setTaskClass(ForwardTask.class);
+		t1.setNumberOfSubtasks(DOP);
+
+		final JobFileOutputVertex o1 = new JobFileOutputVertex("Output 1", this.jobGraph);
+		o1.setFileOutputClass(FileLineWriter.class);
+		o1.setFilePath(new Path(new File(ServerTestUtils.getRandomFilename()).toURI()));
+		o1.setNumberOfSubtasks(DOP);
+
+		i1.connectTo(t1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+		t1.connectTo(o1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+
+		LibraryCacheManager.register(this.jobGraph.getJobID(), new String[0]);
+
+		final InstanceType instanceType = InstanceTypeFactory.construct("test", 1, 1, 1024, 50, 10);
+		final InstanceManager instanceManager = mock(InstanceManager.class);
+		when(instanceManager.getDefaultInstanceType()).thenReturn(instanceType);
+
+		final ExecutionGraph eg = new ExecutionGraph(this.jobGraph, instanceManager);
+
+		this.inputVertex = eg.getInputVertex(0).getGroupVertex();
+		this.taskVertex = this.inputVertex.getForwardEdge(0).getTargetVertex();
+		this.outputVertex = this.taskVertex.getForwardEdge(0).getTargetVertex();
+
+		this.inputInstance = assignInstance(this.inputVertex, instanceType);
+		this.taskInstance = assignInstance(this.taskVertex, instanceType);
+		this.outputInstance = assignInstance(this.outputVertex, instanceType);
+
+		this.scheduler = mock(AbstractScheduler.class);
+		this.executorService = mock(ExecutorService.class);
+		this.notifier = new ReceiverReadinessNotifier(this.scheduler, this.executorService);
+		this.notifier.registerJob(eg);
+	}
+
+	/**
+	 * Removes the input file and unregisters the job from the library cache.
+	 * 
+	 * @throws Exception
+	 *         thrown if the job cannot be unregistered
+	 */
+	@After
+	public void cleanUp() throws Exception {
+
+		if (this.inputFile != null) {
+			this.inputFile.delete();
+		}
+
+		if (this.jobGraph != null) {
+			LibraryCacheManager.unregister(this.jobGraph.getJobID());
+		}
+	}
+
+	/**
+	 * Tests that the notifications of vertices which start running while a batch is pending are sent with one call
+	 * per instance.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while verifying the notifications
+	 */
+	@Test
+	public void testNotificationsAreBatched() throws IOException {
+
+		for (int i = 0; i < DOP; ++i) {
+			moveTo(this.inputVertex.getGroupMember(i), ExecutionState.RUNNING);
+			moveTo(this.outputVertex.getGroupMember(i), ExecutionState.STARTING);
+		}
+
+		for (int i = 0; i < DOP; ++i) {
+			moveTo(this.taskVertex.getGroupMember(i), ExecutionState.RUNNING);
+		}
+
+		// Only one batch has been scheduled for all running vertices
+		final ArgumentCaptor<Runnable> runnable = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.executorService, times(1)).execute(runnable.capture());
+		runnable.getValue().run();
+
+		final Set<ChannelID> inputChannelIDs = new HashSet<ChannelID>();
+		final Set<ChannelID> outputChannelIDs = new HashSet<ChannelID>();
+		for (int i = 0; i < DOP; ++i) {
+			final ExecutionVertex task = this.taskVertex.getGroupMember(i);
+			inputChannelIDs.add(task.getInputGate(0).getEdge(0).getOutputChannelID());
+			outputChannelIDs.add(task.getOutputGate(0).getEdge(0).getInputChannelID());
+		}
+
+		verify(this.inputInstance, times(1)).activateLookupCacheEntries(inputChannelIDs);
+		verify(this.outputInstance, times(1)).activateLookupCacheEntries(outputChannelIDs);
+		verify(this.taskInstance, never()).activateLookupCacheEntries(any(Set.class));
+		verify(this.scheduler, never()).deployAssignedVertices(any(Collection.class));
+
+		// The next running vertex schedules a new batch
+		moveTo(this.outputVertex.getGroupMember(0), ExecutionState.RUNNING);
+		verify(this.executorService, times(2)).execute(any(Runnable.class));
+	}
+
+	/**
+	 * Tests that peers in state READY are notified because their deployment descriptors may have been built before
+	 * the vertex was running.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while verifying the notifications
+	 */
+	@Test
+	public void testReadyPeersAreNotified() throws IOException {
+
+		final ExecutionVertex task = this.taskVertex.getGroupMember(0);
+		final ExecutionVertex output = this.outputVertex.getGroupMember(0);
+
+		moveTo(output, ExecutionState.READY);
+		moveTo(task, ExecutionState.RUNNING);
+
+		final ArgumentCaptor<Runnable> runnable = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.executorService).execute(runnable.capture());
+		runnable.getValue().run();
+
+		verify(this.outputInstance).activateLookupCacheEntries(
+			new HashSet<ChannelID>(Arrays.asList(task.getOutputGate(0).getEdge(0).getInputChannelID())));
+
+		// The input vertex has not been deployed yet, so its deployment descriptor will contain the readiness
+		verify(this.inputInstance, never()).activateLookupCacheEntries(any(Set.class));
+	}
+
+	/**
+	 * Tests that assigned receivers are deployed instead of notified once their sender is running.
+	 */
+	@Test
+	public void testAssignedReceiversAreDeployed() {
+
+		final ExecutionVertex task = this.taskVertex.getGroupMember(0);
+		final ExecutionVertex output = this.outputVertex.getGroupMember(0);
+
+		moveTo(output, ExecutionState.ASSIGNED);
+		moveTo(task, ExecutionState.RUNNING);
+
+		verify(this.scheduler).deployAssignedVertices(Arrays.asList(output));
+		verify(this.executorService, never()).execute(any(Runnable.class));
+	}
+
+	/**
+	 * Assigns the members of the given group vertex to a new mocked instance.
+	 * 
+	 * @param groupVertex
+	 *        the group vertex whose members shall be assigned
+	 * @param instanceType
+	 *        the type of the instance
+	 * @return the mocked instance
+	 */
+	private static AbstractInstance assignInstance(final ExecutionGroupVertex groupVertex,
+			final InstanceType instanceType) {
+
+		final AbstractInstance instance = mock(AbstractInstance.class);
+		for (int i = 0; i < groupVertex.getCurrentNumberOfGroupMembers(); ++i) {
+			groupVertex.getGroupMember(i).setAllocatedResource(
+				new AllocatedResource(instance, instanceType, new AllocationID()));
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Moves the given vertex through the states of a regular deployment up to the given state.
+	 * 
+	 * @param vertex
+	 *        the vertex to move
+	 * @param targetState
+	 *        the state the vertex shall be in afterwards
+	 */
+	private static void moveTo(final ExecutionVertex vertex, final ExecutionState targetState) {
+
+		int i = Arrays.asList(STATES).indexOf(vertex.getExecutionState());
+		while (vertex.getExecutionState() != targetState) {
+			vertex.updateExecutionState(STATES[++i]);
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.fs.Path;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.AllocationID;
+import eu.stratosphere.nephele.instance.InstanceManager;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.io.DistributionPattern;
+import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionLevel;
+import eu.stratosphere.nephele.io.library.FileLineReader;
+import eu.stratosphere.nephele.io.library.FileLineWriter;
+import eu.stratosphere.nephele.jobgraph.JobFileInputVertex;
+import eu.stratosphere.nephele.jobgraph.JobFileOutputVertex;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.nephele.jobmanager.DeploymentManager;
+import eu.stratosphere.nephele.jobmanager.ForwardTask;
+import eu.stratosphere.nephele.util.ServerTestUtils;
+
+/**
+ * This class contains tests for the order in which the {@link AbstractScheduler} hands the vertices of a job to the
+ * {@link DeploymentManager}. The tests use a job with two subtasks per vertex which are connected point-to-point by
+ * network channels and deploy it eagerly.
+ */
+public class AbstractSchedulerTest {
+
+	/**
+	 * The number of subtasks of each vertex.
+	 */
+	private static final int DOP = 2;
+
+	private File inputFile;
+
+	private JobGraph jobGraph;
+
+	private ExecutionGraph executionGraph;
+
+	private ExecutionGroupVertex inputVertex;
+
+	private ExecutionGroupVertex taskVertex;
+
+	private ExecutionGroupVertex outputVertex;
+
+	private InstanceType instanceType;
+
+	private DeploymentManager deploymentManager;
+
+	private AbstractScheduler scheduler;
+
+	/**
+	 * Creates the execution graph of the test job and a scheduler with eager deployment.
+	 * 
+	 * @throws Exception
+	 *         thrown if the execution graph cannot be created
+	 */
+	@Before
+	public void createExecutionGraph() throws Exception {
+
+		this.inputFile = ServerTestUtils.createInputFile(0);
+
+		this.jobGraph = new JobGraph("Abstract Scheduler Test Job");
+
+		final JobFileInputVertex i1 = new JobFileInputVertex("Input 1", this.jobGraph);
+		i1.setFileInputClass(FileLineReader.class);
+		i1.setFilePath(new Path(this.inputFile.toURI()));
+		i1.setNumberOfSubtasks(DOP);
+
+		final JobTaskVertex t1 = new JobTaskVertex("Task 1", this.jobGraph);
+		t1.setTaskClass(ForwardTask.class);
+		t1.setNumberOfSubtasks(DOP);
+
+		final JobFileOutputVertex o1 = new JobFileOutputVertex("Output 1", this.jobGraph);
+		o1.setFileOutputClass(FileLineWriter.class);
+		o1.setFilePath(new Path(new File(ServerTestUtils.getRandomFilename()).toURI()));
+		o1.setNumberOfSubtasks(DOP);
+
+		i1.connectTo(t1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+		t1.connectTo(o1, ChannelType.NETWORK, CompressionLevel.NO_COMPRESSION, DistributionPattern.POINTWISE);
+
+		LibraryCacheManager.register(this.jobGraph.getJobID(), new String[0]);
+
+		this.instanceType = InstanceTypeFactory.construct("test", 1, 1, 1024, 50, 10);
+		final InstanceManager instanceManager = mock(InstanceManager.class);
+		when(instanceManager.getDefaultInstanceType()).thenReturn(this.instanceType);
+
+		this.executionGraph = new ExecutionGraph(this.jobGraph, instanceManager);
+
+		this.inputVertex = this.executionGraph.getInputVertex(0).getGroupVertex();
+		this.taskVertex = this.inputVertex.getForwardEdge(0).getTargetVertex();
+		this.outputVertex = this.taskVertex.getForwardEdge(0).getTargetVertex();
+
+		this.deploymentManager = mock(DeploymentManager.class);
+
+		setEagerDeployment(true);
+		try {
+			this.scheduler = new AbstractScheduler(this.deploymentManager, instanceManager) {
+
+				@Override
+				public void schedulJob(final ExecutionGraph executionGraph) {
+				}
+
+				@Override
+				public ExecutionGraph getExecutionGraphByID(final JobID jobID) {
+					return null;
+				}
+
+				@Override
+				public void shutdown() {
+				}
+			};
+		} finally {
+			setEagerDeployment(false);
+		}
+	}
+
+	/**
+	 * Removes the input file and unregisters the job from the library cache.
+	 * 
+	 * @throws Exception
+	 *         thrown if the job cannot be unregistered
+	 */
+	@After
+	public void cleanUp() throws Exception {
+
+		if (this.inputFile != null) {
+			this.inputFile.delete();
+		}
+
+		if (this.jobGraph != null) {
+			LibraryCacheManager.unregister(this.jobGraph.getJobID());
+		}
+	}
+
+	/**
+	 * Tests that every instance is deployed in a wave after the instances hosting its receivers.
+	 */
+	@Test
+	public void testInstancesAreDeployedSinkFirst() {
+
+		final AbstractInstance inputInstance = assignInstance(this.inputVertex);
+		final AbstractInstance taskInstance = assignInstance(this.taskVertex);
+		final AbstractInstance outputInstance = assignInstance(this.outputVertex);
+
+		final List<Map<AbstractInstance, List<ExecutionVertex>>> waves = deployInputVertices();
+
+		assertEquals(3, waves.size());
+		assertEquals(wave(outputInstance, members(this.outputVertex)), waves.get(0));
+		assertEquals(wave(taskInstance, members(this.taskVertex)), waves.get(1));
+		assertEquals(wave(inputInstance, members(this.inputVertex)), waves.get(2));
+	}
+
+	/**
+	 * Tests that the vertices sharing an instance are deployed together, ordered sink-first along each pipeline.
+	 */
+	@Test
+	public void testSharedInstanceIsDeployedInOneWave() {
+
+		final AbstractInstance inputInstance = assignInstance(this.inputVertex);
+		final AbstractInstance sharedInstance = assignInstance(this.taskVertex);
+		for (int i = 0; i < DOP; ++i) {
+			assign(this.outputVertex.getGroupMember(i), sharedInstance);
+		}
+
+		final List<Map<AbstractInstance, List<ExecutionVertex>>> waves = deployInputVertices();
+
+		assertEquals(2, waves.size());
+		assertEquals(wave(sharedInstance, Arrays.asList(this.outputVertex.getGroupMember(0),
+			this.taskVertex.getGroupMember(0), this.outputVertex.getGroupMember(1), this.taskVertex.getGroupMember(1))),
+			waves.get(0));
+		assertEquals(wave(inputInstance, members(this.inputVertex)), waves.get(1));
+	}
+
+	/**
+	 * Tests that instances which send data to each other in a cycle are deployed in the same wave.
+	 */
+	@Test
+	public void testCyclicInstancesAreDeployedInOneWave() {
+
+		final AbstractInstance outerInstance = assignInstance(this.inputVertex);
+		final AbstractInstance taskInstance = assignInstance(this.taskVertex);
+		for (int i = 0; i < DOP; ++i) {
+			assign(this.outputVertex.getGroupMember(i), outerInstance);
+		}
+
+		final List<Map<AbstractInstance, List<ExecutionVertex>>> waves = deployInputVertices();
+
+		assertEquals(1, waves.size());
+		assertEquals(2, waves.get(0).size());
+		assertEquals(members(this.taskVertex), waves.get(0).get(taskInstance));
+		assertEquals(Arrays.asList(this.outputVertex.getGroupMember(0), this.inputVertex.getGroupMember(0),
+			this.outputVertex.getGroupMember(1), this.inputVertex.getGroupMember(1)), waves.get(0).get(outerInstance));
+	}
+
+	/**
+	 * Deploys the input vertices of the test job and returns the waves passed to the deployment manager.
+	 * 
+	 * @return the waves passed to the deployment manager
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Map<AbstractInstance, List<ExecutionVertex>>> deployInputVertices() {
+
+		this.scheduler.deployAssignedInputVertices(this.executionGraph);
+
+		final ArgumentCaptor<List> waves = ArgumentCaptor.forClass(List.class);
+		verify(this.deploymentManager).deploy(eq(this.jobGraph.getJobID()), waves.capture());
+
+		return waves.getValue();
+	}
+
+	/**
+	 * Assigns the members of the given group vertex to a new mocked instance.
+	 * 
+	 * @param groupVertex
+	 *        the group vertex whose members shall be assigned
+	 * @return the mocked instance
+	 */
+	private AbstractInstance assignInstance(final ExecutionGroupVertex groupVertex) {
+
+		final AbstractInstance instance = mock(AbstractInstance.class);
+		for (int i = 0; i < groupVertex.getCurrentNumberOfGroupMembers(); ++i) {
+			assign(groupVertex.getGroupMember(i), instance);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Assigns the given vertex to the given instance and switches it to the state ASSIGNED.
+	 * 
+	 * @param vertex
+	 *        the vertex to assign
+	 * @param instance
+	 *        the instance to assign the vertex to
+	 */
+	private void assign(final ExecutionVertex vertex, final AbstractInstance instance) {
+
+		vertex.setAllocatedResource(new AllocatedResource(instance, this.instanceType, new AllocationID()));
+		vertex.updateExecutionState(ExecutionState.SCHEDULED);
+		vertex.updateExecutionState(ExecutionState.ASSIGNED);
+	}
+
+	/**
+	 * Returns the members of the given group vertex.
+	 * 
+	 * @param groupVertex
+	 *        the group vertex
+	 * @return the members of the group vertex
+	 */
+	private static List<ExecutionVertex> members(final ExecutionGroupVertex groupVertex) {
+
+		final ExecutionVertex[] members = new ExecutionVertex[groupVertex.getCurrentNumberOfGroupMembers()];
+		for (int i = 0; i < members.length; ++i) {
+			members[i] = groupVertex.getGroupMember(i);
+		}
+
+		return Arrays.asList(members);
+	}
+
+	/**
+	 * Creates a wave deploying the given vertices on the given instance.
+	 * 
+	 * @param instance
+	 *        the instance
+	 * @param vertices
+	 *        the vertices to be deployed on the instance
+	 * @return the wave
+	 */
+	private static Map<AbstractInstance, List<ExecutionVertex>> wave(final AbstractInstance instance,
+			final List<ExecutionVertex> vertices) {
+
+		final Map<AbstractInstance, List<ExecutionVertex>> wave = new LinkedHashMap<AbstractInstance, List<ExecutionVertex>>();
+		wave.put(instance, vertices);
+
+		return wave;
+	}
+
+	/**
+	 * Enables or disables the eager deployment of vertices connected through network channels. The setting is read
+	 * when the scheduler is constructed.
+	 * 
+	 * @param eagerDeployment
+	 *        <code>true</code> to enable eager deployment, <code>false</code> to disable it
+	 */
+	private static void setEagerDeployment(final boolean eagerDeployment) {
+
+		final Configuration conf = new Configuration();
+		conf.setBoolean("jobmanager.deployment.eager", eagerDeployment);
+		GlobalConfiguration.includeConfiguration(conf);
+	}
+}
@@ -0,0 +1,274 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.services.memorymanager.DefaultMemoryManagerTest.DummyInvokable;
+import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+
+/**
+ * Tests the placement of channels across multiple directories for temporary files, which are all created
+ * in the same temp directory of this machine.
+ */
+public class ChannelPlacementTest
+{
+	private static final int NUM_DIRS = 3;
+	
+	private String[] paths;
+	
+	private DefaultMemoryManager memoryManager;
+	
+	// ------------------------------------------------------------------------
+	//                           Setup & Shutdown
+	// ------------------------------------------------------------------------
+	
+	@Before
+	public void beforeTest()
+	{
+		final File tempDir = new File(System.getProperty("java.io.tmpdir"));
+		final String prefix = "placement-" + System.nanoTime() + "-";
+		
+		this.paths = new String[NUM_DIRS];
+		for (int i = 0; i < NUM_DIRS; i++) {
+			final File dir = new File(tempDir, prefix + i);
+			Assert.assertTrue("Could not create temp directory " + dir, dir.mkdir());
+			this.paths[i] = dir.getAbsolutePath();
+		}
+		
+		this.memoryManager = new DefaultMemoryManager(8 * 1024 * 1024);
+	}
+	
+	@After
+	public void afterTest()
+	{
+		for (int i = 0; i < this.paths.length; i++) {
+			final File dir = new File(this.paths[i]);
+			final File[] files = dir.listFiles();
+			if (files != null) {
+				for (int k = 0; k < files.length; k++) {
+					files[k].delete();
+				}
+			}
+			dir.delete();
+		}
+		
+		Assert.assertTrue("Not all memory was returned to the memory manager in the test.",
+			this.memoryManager.verifyEmpty());
+		this.memoryManager.shutdown();
+		this.memoryManager = null;
+	}
+	
+	// ------------------------------------------------------------------------
+	//                           Test Methods
+	// ------------------------------------------------------------------------
+	
+	@Test
+	public void roundRobinPlacement()
+	{
+		final IOManager ioManager = new IOManager(this.paths, 1, new RoundRobinPlacementPolicy());
+		try {
+			for (int i = 0; i < 3 * NUM_DIRS; i++) {
+				assertInDirectory(ioManager.createChannel(), i % NUM_DIRS);
+			}
+		} finally {
+			shutdown(ioManager);
+		}
+	}
+	
+	@Test
+	public void leastLoadedStripesAcrossIdleDirectories()
+	{
+		final IOManager ioManager = new IOManager(this.paths);
+		try {
+			final Channel.Enumerator enumerator = ioManager.createChannelEnumerator();
+			final int[] counts = new int[NUM_DIRS];
+			for (int i = 0; i < 10 * NUM_DIRS; i++) {
+				counts[dirOf(enumerator.next())]++;
+			}
+			
+			for (int i = 0; i < NUM_DIRS; i++) {
+				Assert.assertEquals("Channels are not striped evenly across idle directories.", 10, counts[i]);
+			}
+		} finally {
+			shutdown(ioManager);
+		}
+	}
+	
+	@Test
+	public void leastLoadedAvoidsBusyDirectory()
+	{
+		final TempDirectoryStatistics[] stats = createStatistics();
+		final RequestQueue<Object> busyQueue = new RequestQueue<Object>();
+		stats[1].addRequestQueue(busyQueue);
+		for (int i = 0; i < 10; i++) {
+			busyQueue.add(new Object());
+		}
+		
+		final ChannelPlacementPolicy policy = new LeastLoadedPlacementPolicy(0);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue("A channel was placed in the busy directory.", policy.selectDirectory(stats) != 1);
+		}
+		
+		// once the requests are served, the directory is used again
+		busyQueue.clear();
+		boolean used = false;
+		for (int i = 0; i < NUM_DIRS; i++) {
+			used |= policy.selectDirectory(stats) == 1;
+		}
+		Assert.assertTrue("The idle directory was not used.", used);
+	}
+	
+	@Test
+	public void leastLoadedPrefersFasterDirectory()
+	{
+		final TempDirectoryStatistics[] stats = createStatistics();
+		final RequestQueue<Object> queue = new RequestQueue<Object>();
+		stats[2].addRequestQueue(queue);
+		
+		stats[0].recordTransfer(1024 * 1024, 100 * 1000 * 1000);
+		stats[1].recordTransfer(1024 * 1024, 100 * 1000 * 1000);
+		stats[2].recordTransfer(1024 * 1024, 10 * 1000 * 1000);
+		
+		final ChannelPlacementPolicy policy = new LeastLoadedPlacementPolicy(0);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("The faster directory was not selected.", 2, policy.selectDirectory(stats));
+		}
+		
+		// with enough outstanding requests, the faster directory is expected to be slower than the others
+		for (int i = 0; i < 20; i++) {
+			queue.add(new Object());
+		}
+		Assert.assertTrue("The overloaded directory was selected.", policy.selectDirectory(stats) != 2);
+	}
+	
+	@Test
+	public void leastLoadedFallsBackIfAllDevicesAreFull()
+	{
+		final TempDirectoryStatistics[] stats = createStatistics();
+		final ChannelPlacementPolicy policy = new LeastLoadedPlacementPolicy(Long.MAX_VALUE);
+		
+		final int[] counts = new int[NUM_DIRS];
+		for (int i = 0; i < 3 * NUM_DIRS; i++) {
+			counts[policy.selectDirectory(stats)]++;
+		}
+		for (int i = 0; i < NUM_DIRS; i++) {
+			Assert.assertEquals(3, counts[i]);
+		}
+	}
+	
+	/**
+	 * Writes and re-reads multiple channels, which are placed across the directories, and checks that the
+	 * bandwidth of the written directories is observed.
+	 */
+	@Test
+	public void channelReadWriteAcrossDirectories() throws Exception
+	{
+		final int NUM_CHANNELS = 2 * NUM_DIRS;
+		final int NUM_BLOCKS = 64;
+		
+		final IOManager ioManager = new IOManager(this.paths);
+		try {
+			final Channel.Enumerator enumerator = ioManager.createChannelEnumerator();
+			final Channel.ID[] channels = new Channel.ID[NUM_CHANNELS];
+			final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), 4);
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				channels[c] = enumerator.next();
+				final BlockChannelWriter writer = ioManager.createBlockChannelWriter(channels[c]);
+				for (int i = 0; i < NUM_BLOCKS; i++) {
+					final MemorySegment seg = memory.isEmpty() ? writer.getNextReturnedSegment() : memory.remove(0);
+					for (int pos = 0; pos < seg.size(); pos += 4) {
+						seg.putInt(pos, c * NUM_BLOCKS + i);
+					}
+					writer.writeBlock(seg);
+				}
+				writer.close();
+				while (memory.size() < 4) {
+					memory.add(writer.getNextReturnedSegment());
+				}
+			}
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				final BlockChannelReader reader = ioManager.createBlockChannelReader(channels[c]);
+				for (int i = 0; i < NUM_BLOCKS; i++) {
+					reader.readBlock(memory.remove(0));
+					final MemorySegment seg = reader.getNextReturnedSegment();
+					for (int pos = 0; pos < seg.size(); pos += 4) {
+						if (seg.getInt(pos) != c * NUM_BLOCKS + i) {
+							Assert.fail("Read memory segment contains invalid data.");
+						}
+					}
+					memory.add(seg);
+				}
+				reader.closeAndDelete();
+			}
+			
+			this.memoryManager.release(memory);
+			
+			final TempDirectoryStatistics[] stats = ioManager.getDirectoryStatistics();
+			for (int i = 0; i < NUM_DIRS; i++) {
+				Assert.assertEquals(this.paths[i], stats[i].getPath());
+				Assert.assertTrue("No bandwidth was observed for " + stats[i], stats[i].getBandwidth() > 0.0);
+				Assert.assertEquals(0, stats[i].getNumOutstandingRequests());
+			}
+		} finally {
+			shutdown(ioManager);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	private TempDirectoryStatistics[] createStatistics()
+	{
+		final TempDirectoryStatistics[] stats = new TempDirectoryStatistics[NUM_DIRS];
+		for (int i = 0; i < NUM_DIRS; i++) {
+			stats[i] = new TempDirectoryStatistics(this.paths[i]);
+		}
+		return stats;
+	}
+	
+	private int dirOf(Channel.ID channel)
+	{
+		final String parent = new File(channel.getPath()).getParent();
+		for (int i = 0; i < this.paths.length; i++) {
+			if (this.paths[i].equals(parent)) {
+				return i;
+			}
+		}
+		Assert.fail("Channel " + channel + " is not in any of the temp directories.");
+		return -1;
+	}
+	
+	private void assertInDirectory(Channel.ID channel, int dir)
+	{
+		Assert.assertEquals("Channel is in the wrong directory.", dir, dirOf(channel));
+	}
+	
+	private static void shutdown(IOManager ioManager)
+	{
+		ioManager.shutdown();
+		Assert.assertTrue("IO Manager has not properly shut down.", ioManager.isProperlyShutDown());
+	}
+}
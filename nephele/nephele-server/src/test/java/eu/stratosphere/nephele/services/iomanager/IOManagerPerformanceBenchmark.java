@@ -67,6 +67,12 @@ public class IOManagerPerformanceBenchmark
 	
 	private static final int NUM_INTS_WRITTEN = 100000000;
 	
+	private static final int[] NUM_THREADS_PER_PATH = { 1, 2, 4 };
+	
+	private static final int NUM_PARALLEL_CHANNELS = 4;
+	
+	private static final int NUM_SEGMENTS_PER_PARALLEL_CHANNEL = 8;
+	
 	
 	private static final AbstractInvokable memoryOwner = new DefaultMemoryManagerTest.DummyInvokable();
 	
@@ -165,6 +171,109 @@ public class IOManagerPerformanceBenchmark
 		}
 	}
 
+	@Test
+	public void speedTestIOManagerParallelChannels() throws Exception
+	{
+		LOG.info("Starting speed test with IO Manager and multiple threads per path...");
+		
+		for (int numThreads : NUM_THREADS_PER_PATH) {
+			final IOManager ioMan = new IOManager(new String[] { System.getProperty("java.io.tmpdir") }, numThreads);
+			try {
+				testParallelChannels(ioMan, numThreads);
+			}
+			finally {
+				ioMan.shutdown();
+			}
+		}
+	}
+	
+	private final void testParallelChannels(final IOManager ioMan, int numThreads) throws Exception
+	{
+		final Channel.ID[] channels = new Channel.ID[NUM_PARALLEL_CHANNELS];
+		final int[] numBlocks = new int[NUM_PARALLEL_CHANNELS];
+		final Throwable[] errors = new Throwable[1];
+		
+		// write all channels concurrently, each from its own thread
+		final Thread[] threads = new Thread[NUM_PARALLEL_CHANNELS];
+		for (int i = 0; i < NUM_PARALLEL_CHANNELS; i++) {
+			final int num = i;
+			channels[i] = ioMan.createChannel();
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						final List<MemorySegment> memory = memManager.allocatePages(memoryOwner,
+							NUM_SEGMENTS_PER_PARALLEL_CHANNEL);
+						final BlockChannelWriter writer = ioMan.createBlockChannelWriter(channels[num]);
+						final ChannelWriterOutputView out = new ChannelWriterOutputView(writer, memory,
+							memManager.getPageSize());
+						
+						int valsLeft = NUM_INTS_WRITTEN / NUM_PARALLEL_CHANNELS;
+						while (valsLeft-- > 0) {
+							out.writeInt(valsLeft);
+						}
+						memManager.release(out.close());
+						numBlocks[num] = out.getBlockCount();
+						writer.close();
+					}
+					catch (Throwable t) {
+						errors[0] = t;
+					}
+				}
+			};
+		}
+		final long writeElapsed = runAll(threads);
+		
+		// read all channels concurrently
+		for (int i = 0; i < NUM_PARALLEL_CHANNELS; i++) {
+			final int num = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						final List<MemorySegment> memory = memManager.allocatePages(memoryOwner,
+							NUM_SEGMENTS_PER_PARALLEL_CHANNEL);
+						final BlockChannelReader reader = ioMan.createBlockChannelReader(channels[num]);
+						final ChannelReaderInputView in = new ChannelReaderInputView(reader, memory,
+							numBlocks[num], false);
+						
+						int valsLeft = NUM_INTS_WRITTEN / NUM_PARALLEL_CHANNELS;
+						while (valsLeft-- > 0) {
+							if (in.readInt() != valsLeft) {
+								throw new IOException("Read wrong value.");
+							}
+						}
+						memManager.release(in.close());
+						reader.closeAndDelete();
+					}
+					catch (Throwable t) {
+						errors[0] = t;
+					}
+				}
+			};
+		}
+		final long readElapsed = runAll(threads);
+		
+		if (errors[0] != null) {
+			throw new Exception("Parallel channel test failed: " + errors[0].getMessage(), errors[0]);
+		}
+		
+		LOG.info("IOManager with " + numThreads + " threads per path and " + NUM_PARALLEL_CHANNELS +
+			" parallel channels: write " + writeElapsed + " msecs, read " + readElapsed + " msecs.");
+	}
+	
+	private static final long runAll(Thread[] threads) throws InterruptedException
+	{
+		final long start = System.currentTimeMillis();
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		return System.currentTimeMillis() - start;
+	}
+
 //	@Test
 //	public void speedTestRandomAccessFile() throws IOException {
 //		LOG.info("Starting speed test with java random access file ...");
@@ -190,6 +190,78 @@ public class IOManagerTest
 		}
 	}
 
+	/**
+	 * Writes and re-reads multiple channels through an I/O manager with multiple threads per path. Each writer
+	 * and reader has many requests in flight, such that consecutive blocks are coalesced. The blocks must be
+	 * returned in the order in which they were requested.
+	 */
+	@Test
+	public void channelReadWriteMultipleThreadsPerPath()
+	{
+		final int NUM_CHANNELS = 5;
+		final int NUM_IOS = 500;
+		final int NUM_SEGS = 16;
+		
+		final IOManager ioMan = new IOManager(new String[] {System.getProperty("java.io.tmpdir")}, 3);
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_SEGS);
+			final Channel.ID[] channelIDs = new Channel.ID[NUM_CHANNELS];
+			final BlockChannelWriter[] writers = new BlockChannelWriter[NUM_CHANNELS];
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				channelIDs[c] = ioMan.createChannel();
+				writers[c] = ioMan.createBlockChannelWriter(channelIDs[c]);
+			}
+			
+			// distribute the segments among the writers, then write the blocks of all channels interleaved
+			final int segsPerChannel = NUM_SEGS / NUM_CHANNELS;
+			for (int i = 0; i < NUM_IOS; i++) {
+				for (int c = 0; c < NUM_CHANNELS; c++) {
+					final MemorySegment memSeg = i < segsPerChannel ? memSegs.remove(0) :
+						writers[c].getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						memSeg.putInt(pos, i * NUM_CHANNELS + c);
+					}
+					writers[c].writeBlock(memSeg);
+				}
+			}
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				writers[c].close();
+				while (!writers[c].getReturnQueue().isEmpty()) {
+					memSegs.add(writers[c].getNextReturnedSegment());
+				}
+			}
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				final BlockChannelReader reader = ioMan.createBlockChannelReader(channelIDs[c]);
+				for (int i = 0; i < NUM_SEGS; i++) {
+					reader.readBlock(memSegs.remove(0));
+				}
+				
+				for (int i = 0; i < NUM_IOS; i++) {
+					final MemorySegment memSeg = reader.getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						if (memSeg.getInt(pos) != i * NUM_CHANNELS + c) {
+							Assert.fail("Read memory segment contains invalid data.");
+						}
+					}
+					reader.readBlock(memSeg);
+				}
+				
+				reader.closeAndDelete();
+				while (memSegs.size() < NUM_SEGS) {
+					memSegs.add(reader.getNextReturnedSegment());
+				}
+			}
+			
+			this.memoryManager.release(memSegs);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception: " + ex.getMessage());
+		} finally {
+			ioMan.shutdown();
+		}
+	}
+
 	// ============================================================================================
 	
 	final class FailingSegmentReadRequest implements ReadRequest
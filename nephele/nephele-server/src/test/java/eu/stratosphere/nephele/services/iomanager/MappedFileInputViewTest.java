@@ -0,0 +1,169 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the reading of channels through a {@link MappedFileInputView}, with regions so small that most
+ * values span the boundary between two regions.
+ */
+public class MappedFileInputViewTest
+{
+	private static final int NUM_RECORDS = 500;
+	
+	private static final int REGION_SIZE = 13;
+	
+	private IOManager ioManager;
+	
+	private Channel.ID channel;
+	
+	private long length;
+	
+	// ------------------------------------------------------------------------
+	//                           Setup & Shutdown
+	// ------------------------------------------------------------------------
+	
+	@Before
+	public void beforeTest() throws IOException
+	{
+		this.ioManager = new IOManager();
+		this.channel = this.ioManager.createChannel();
+		
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+			new FileOutputStream(this.channel.getPath())));
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			writeRecord(out, i);
+		}
+		this.length = out.size();
+		
+		// some trailing bytes that are not part of the readable data
+		out.writeLong(-1);
+		out.close();
+	}
+
+	@After
+	public void afterTest()
+	{
+		new File(this.channel.getPath()).delete();
+		
+		this.ioManager.shutdown();
+		Assert.assertTrue("IO Manager has not properly shut down.", this.ioManager.isProperlyShutDown());
+	}
+
+	// ------------------------------------------------------------------------
+	//                           Test Methods
+	// ------------------------------------------------------------------------
+	
+	@Test
+	public void readAcrossRegions() throws IOException
+	{
+		final MappedFileInputView view = new MappedFileInputView(this.channel, this.length, REGION_SIZE);
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			verifyRecord(view, i);
+		}
+		Assert.assertEquals(this.length, view.getReadPosition());
+		
+		try {
+			view.readByte();
+			Assert.fail("The view did not signal the end of the readable data.");
+		} catch (EOFException eofex) {}
+		
+		view.close();
+		Assert.assertTrue(view.isClosed());
+	}
+	
+	@Test
+	public void rewindAndSkip() throws IOException
+	{
+		final MappedFileInputView view = new MappedFileInputView(this.channel, this.length, REGION_SIZE);
+		
+		// read the data multiple times, starting each pass from the beginning
+		for (int pass = 0; pass < 3; pass++) {
+			view.setReadPosition(0);
+			for (int i = 0; i < NUM_RECORDS; i++) {
+				verifyRecord(view, i);
+			}
+		}
+		
+		// skip over every other record
+		view.setReadPosition(0);
+		for (int i = 0; i < NUM_RECORDS; i += 2) {
+			verifyRecord(view, i);
+			if (i + 1 < NUM_RECORDS) {
+				view.skipBytesToRead(recordLength(i + 1));
+			}
+		}
+		
+		Assert.assertEquals(0, view.skipBytes(10));
+		try {
+			view.setReadPosition(view.getLength() - 1);
+			view.skipBytesToRead(2);
+			Assert.fail("The view skipped beyond the end of the readable data.");
+		} catch (EOFException eofex) {}
+		
+		view.close();
+	}
+	
+	@Test
+	public void readWithDefaultRegionSize() throws IOException
+	{
+		final MappedFileInputView view = new MappedFileInputView(this.channel, this.length);
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			verifyRecord(view, i);
+		}
+		view.close();
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	private static void writeRecord(DataOutputStream out, int i) throws IOException
+	{
+		out.writeInt(i);
+		out.writeLong(((long) i) << 33 | i);
+		out.writeShort(i);
+		out.writeBoolean(i % 2 == 0);
+		out.writeDouble(i / 3.0);
+		out.writeUTF("record-" + i);
+		out.write(new byte[i % 7]);
+	}
+	
+	private static int recordLength(int i) {
+		return 4 + 8 + 2 + 1 + 8 + 2 + ("record-" + i).length() + i % 7;
+	}
+	
+	private static void verifyRecord(MappedFileInputView view, int i) throws IOException
+	{
+		Assert.assertEquals(i, view.readInt());
+		Assert.assertEquals(((long) i) << 33 | i, view.readLong());
+		Assert.assertEquals((short) i, view.readShort());
+		Assert.assertEquals(i % 2 == 0, view.readBoolean());
+		Assert.assertEquals(i / 3.0, view.readDouble());
+		Assert.assertEquals("record-" + i, view.readUTF());
+		view.readFully(new byte[i % 7]);
+	}
+}
@@ -161,6 +161,93 @@ public class DefaultMemoryManagerTest
 		}
 	}
 	
+	@Test
+	public void reclaimReleasedPages()
+	{
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			final List<MemorySegment> first = this.memoryManager.allocatePages(mockInvoke, 64);
+			final List<MemorySegment> second = new ArrayList<MemorySegment>();
+			
+			// without released pages, only the minimum is allocated
+			Assert.assertEquals(16, this.memoryManager.allocatePages(mockInvoke, second, 16, 100));
+			
+			this.memoryManager.releaseToOwner(first);
+			Assert.assertEquals(64, this.memoryManager.getNumberOfReclaimablePages(mockInvoke));
+			
+			// the minimum consumes the released pages first, the rest can go beyond the minimum
+			Assert.assertEquals(40, this.memoryManager.allocatePages(mockInvoke, second, 8, 40));
+			Assert.assertEquals(24, this.memoryManager.getNumberOfReclaimablePages(mockInvoke));
+			Assert.assertEquals(24, this.memoryManager.allocatePages(mockInvoke, second, 0, 100));
+			Assert.assertEquals(0, this.memoryManager.allocatePages(mockInvoke, second, 0, 100));
+			Assert.assertEquals(80, second.size());
+			
+			this.memoryManager.release(second);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void regularAllocationConsumesReleasedPages()
+	{
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			this.memoryManager.releaseToOwner(this.memoryManager.allocatePages(mockInvoke, 32));
+			
+			final List<MemorySegment> segs = this.memoryManager.allocatePages(mockInvoke, 20);
+			Assert.assertEquals(12, this.memoryManager.getNumberOfReclaimablePages(mockInvoke));
+			
+			// plain releases do not add to the pages that can be reclaimed
+			this.memoryManager.release(segs);
+			Assert.assertEquals(12, this.memoryManager.getNumberOfReclaimablePages(mockInvoke));
+			
+			this.memoryManager.releaseAll(mockInvoke);
+			Assert.assertEquals(0, this.memoryManager.getNumberOfReclaimablePages(mockInvoke));
+			Assert.assertEquals(0, this.memoryManager.allocatePages(mockInvoke, segs, 0, 10));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void reclaimOnlyFreePages()
+	{
+		try {
+			final AbstractInvokable first = new DummyInvokable();
+			final AbstractInvokable second = new DummyInvokable();
+			
+			this.memoryManager.releaseToOwner(this.memoryManager.allocatePages(first, NUM_PAGES));
+			
+			// another owner took most of the memory in the meantime
+			final List<MemorySegment> others = this.memoryManager.allocatePages(second, NUM_PAGES - 10);
+			Assert.assertEquals(0, this.memoryManager.getNumberOfReclaimablePages(second));
+			
+			final List<MemorySegment> segs = new ArrayList<MemorySegment>();
+			Assert.assertEquals(10, this.memoryManager.allocatePages(first, segs, 0, NUM_PAGES));
+			
+			try {
+				this.memoryManager.allocatePages(first, segs, 1, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			Assert.assertTrue("The previously allocated segments were not valid any more.",
+																	allMemorySegmentsValid(others));
+			this.memoryManager.releaseAll(first);
+			this.memoryManager.releaseAll(second);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+	}
+	
 	private boolean allMemorySegmentsValid(List<MemorySegment> memSegs)
 	{
 		for (MemorySegment seg : memSegs) {
@@ -0,0 +1,265 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bytebuffered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.protocols.ChannelLookupProtocol;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelopeReceiverList;
+
+/**
+ * This class contains tests for the handling of the receiver lists which the job manager announces at deployment time
+ * and activates once the receivers are running.
+ */
+public class ByteBufferedChannelManagerTest {
+
+	/**
+	 * The time in milliseconds to wait for the activation of an announced receiver.
+	 */
+	private static final long ACTIVATION_TIMEOUT = 1000L;
+
+	/**
+	 * The time in milliseconds after which early activations expire.
+	 */
+	private static final long EXPIRY = 500L;
+
+	private final JobID jobID = new JobID();
+
+	private ChannelLookupProtocol lookupService;
+
+	private ByteBufferedChannelManager channelManager;
+
+	/**
+	 * Creates a channel manager with a mocked lookup service on a free data port.
+	 * 
+	 * @throws IOException
+	 *         thrown if the channel manager cannot be created
+	 */
+	@Before
+	public void startChannelManager() throws IOException {
+
+		final ServerSocket serverSocket = new ServerSocket(0);
+		final int dataPort = serverSocket.getLocalPort();
+		serverSocket.close();
+
+		final InstanceConnectionInfo ici = new InstanceConnectionInfo(InetAddress.getLocalHost(), dataPort - 1,
+			dataPort);
+
+		this.lookupService = mock(ChannelLookupProtocol.class);
+		this.channelManager = new ByteBufferedChannelManager(this.lookupService, ici, ACTIVATION_TIMEOUT, EXPIRY);
+	}
+
+	/**
+	 * Shuts down the channel manager.
+	 */
+	@After
+	public void stopChannelManager() {
+
+		if (this.channelManager != null) {
+			this.channelManager.shutdown();
+		}
+	}
+
+	/**
+	 * Tests that a thread waiting for an announced receiver is woken up by the activation and uses the announced
+	 * receiver list without a lookup.
+	 * 
+	 * @throws Exception
+	 *         thrown if an error occurs during the test
+	 */
+	@Test
+	public void testActivationOfAnnouncedReceiver() throws Exception {
+
+		final ChannelID source = new ChannelID();
+		final TransferEnvelopeReceiverList receiverList = new TransferEnvelopeReceiverList(new ChannelID());
+
+		this.channelManager.announceReceiver(source, receiverList, false);
+
+		final Thread activator = new Thread() {
+
+			@Override
+			public void run() {
+
+				try {
+					Thread.sleep(100L);
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				channelManager.activateLookupCacheEntries(Collections.singleton(source));
+			}
+		};
+
+		final long start = System.currentTimeMillis();
+		activator.start();
+
+		assertSame(receiverList, this.channelManager.getReceiverList(this.jobID, source));
+		assertTrue(System.currentTimeMillis() - start < ACTIVATION_TIMEOUT);
+		activator.join();
+
+		verify(this.lookupService, never()).lookupConnectionInfo(any(InstanceConnectionInfo.class),
+			any(JobID.class), any(ChannelID.class));
+	}
+
+	/**
+	 * Tests that announced receivers of ready peers are usable immediately.
+	 * 
+	 * @throws Exception
+	 *         thrown if an error occurs during the test
+	 */
+	@Test
+	public void testAnnouncementOfReadyReceiver() throws Exception {
+
+		final ChannelID source = new ChannelID();
+		final TransferEnvelopeReceiverList receiverList = new TransferEnvelopeReceiverList(new ChannelID());
+
+		this.channelManager.announceReceiver(source, receiverList, true);
+
+		assertSame(receiverList, this.channelManager.getReceiverList(this.jobID, source));
+		verify(this.lookupService, never()).lookupConnectionInfo(any(InstanceConnectionInfo.class),
+			any(JobID.class), any(ChannelID.class));
+	}
+
+	/**
+	 * Tests that an activation which arrives before the announcement of the receiver list is kept and consumed by the
+	 * announcement.
+	 * 
+	 * @throws Exception
+	 *         thrown if an error occurs during the test
+	 */
+	@Test
+	public void testEarlyActivation() throws Exception {
+
+		final ChannelID notReady = new ChannelID();
+		final ChannelID ready = new ChannelID();
+		final TransferEnvelopeReceiverList receiverList = new TransferEnvelopeReceiverList(new ChannelID());
+
+		final Set<ChannelID> activations = new HashSet<ChannelID>();
+		activations.add(notReady);
+		activations.add(ready);
+		this.channelManager.activateLookupCacheEntries(activations);
+		assertEquals(2, this.channelManager.getNumberOfEarlyActivations());
+
+		// The peer has been announced as not ready, but the activation has overtaken the deployment
+		this.channelManager.announceReceiver(notReady, receiverList, false);
+		assertEquals(1, this.channelManager.getNumberOfEarlyActivations());
+
+		final long start = System.currentTimeMillis();
+		assertSame(receiverList, this.channelManager.getReceiverList(this.jobID, notReady));
+		assertTrue(System.currentTimeMillis() - start < ACTIVATION_TIMEOUT);
+
+		// Announcements of ready peers consume the early activation as well
+		this.channelManager.announceReceiver(ready, new TransferEnvelopeReceiverList(new ChannelID()), true);
+		assertEquals(0, this.channelManager.getNumberOfEarlyActivations());
+
+		verify(this.lookupService, never()).lookupConnectionInfo(any(InstanceConnectionInfo.class),
+			any(JobID.class), any(ChannelID.class));
+	}
+
+	/**
+	 * Tests that early activations whose receiver lists are never announced are discarded after the expiry time.
+	 * 
+	 * @throws Exception
+	 *         thrown if an error occurs during the test
+	 */
+	@Test
+	public void testEarlyActivationsExpire() throws Exception {
+
+		this.channelManager.activateLookupCacheEntries(Collections.singleton(new ChannelID()));
+		assertEquals(1, this.channelManager.getNumberOfEarlyActivations());
+
+		Thread.sleep(EXPIRY + 100L);
+
+		final ChannelID source = new ChannelID();
+		this.channelManager.activateLookupCacheEntries(Collections.singleton(source));
+		assertEquals(1, this.channelManager.getNumberOfEarlyActivations());
+
+		// An expired activation does not activate a later announcement
+		Thread.sleep(EXPIRY + 100L);
+		this.channelManager.announceReceiver(source, new TransferEnvelopeReceiverList(new ChannelID()), false);
+		assertEquals(0, this.channelManager.getNumberOfEarlyActivations());
+
+		final ChannelID target = new ChannelID();
+		when(this.lookupService.lookupConnectionInfo(any(InstanceConnectionInfo.class), any(JobID.class),
+				any(ChannelID.class))).thenReturn(ConnectionInfoLookupResponse.createReceiverFoundAndReady(target));
+
+		final long start = System.currentTimeMillis();
+		final TransferEnvelopeReceiverList receiverList = this.channelManager.getReceiverList(this.jobID, source);
+		assertTrue(System.currentTimeMillis() - start >= ACTIVATION_TIMEOUT - 50L);
+		assertEquals(target, receiverList.getLocalReceivers().get(0));
+	}
+
+	/**
+	 * Tests that the receivers of channels which are not activated in time are looked up and that channels announced
+	 * together share the time to wait for the activation.
+	 * 
+	 * @throws Exception
+	 *         thrown if an error occurs during the test
+	 */
+	@Test
+	public void testTimeoutFallsBackToLookup() throws Exception {
+
+		final ChannelID source1 = new ChannelID();
+		final ChannelID source2 = new ChannelID();
+		final ChannelID target = new ChannelID();
+
+		when(this.lookupService.lookupConnectionInfo(any(InstanceConnectionInfo.class), any(JobID.class),
+				any(ChannelID.class))).thenReturn(ConnectionInfoLookupResponse.createReceiverFoundAndReady(target));
+
+		this.channelManager.announceReceiver(source1, new TransferEnvelopeReceiverList(new ChannelID()), false);
+		this.channelManager.announceReceiver(source2, new TransferEnvelopeReceiverList(new ChannelID()), false);
+
+		final long start = System.currentTimeMillis();
+
+		final TransferEnvelopeReceiverList receiverList1 = this.channelManager.getReceiverList(this.jobID, source1);
+		assertTrue(System.currentTimeMillis() - start >= ACTIVATION_TIMEOUT - 50L);
+		assertEquals(target, receiverList1.getLocalReceivers().get(0));
+
+		final TransferEnvelopeReceiverList receiverList2 = this.channelManager.getReceiverList(this.jobID, source2);
+		assertTrue(System.currentTimeMillis() - start < 2L * ACTIVATION_TIMEOUT);
+		assertEquals(target, receiverList2.getLocalReceivers().get(0));
+
+		verify(this.lookupService, times(2)).lookupConnectionInfo(any(InstanceConnectionInfo.class),
+			any(JobID.class), any(ChannelID.class));
+
+		// Looked up receivers are cached
+		assertSame(receiverList1, this.channelManager.getReceiverList(this.jobID, source1));
+		verify(this.lookupService, times(2)).lookupConnectionInfo(any(InstanceConnectionInfo.class),
+			any(JobID.class), any(ChannelID.class));
+	}
+}
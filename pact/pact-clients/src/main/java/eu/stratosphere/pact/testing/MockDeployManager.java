@@ -16,6 +16,7 @@ package eu.stratosphere.pact.testing;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 
@@ -39,8 +40,8 @@ public class MockDeployManager implements DeploymentManager {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void deploy(final JobID jobID, final AbstractInstance instance,
-			final List<ExecutionVertex> verticesToBeDeployed) {
+	public void deploy(final JobID jobID,
+			final List<Map<AbstractInstance, List<ExecutionVertex>>> verticesToBeDeployed) {
 		// final Iterator<ExecutionVertex> it = verticesToBeDeployed.iterator();
 		// while (it.hasNext()) {
 		//
@@ -62,8 +63,10 @@ public class MockDeployManager implements DeploymentManager {
 		// }
 		//
 
-		for (final ExecutionVertex vertex : verticesToBeDeployed)
-			vertex.updateExecutionState(ExecutionState.STARTING, null);
+		for (final Map<AbstractInstance, List<ExecutionVertex>> wave : verticesToBeDeployed)
+			for (final List<ExecutionVertex> verticesOfInstance : wave.values())
+				for (final ExecutionVertex vertex : verticesOfInstance)
+					vertex.updateExecutionState(ExecutionState.STARTING, null);
 
 		// Create a new runnable and pass it the executor service
 		final Runnable deploymentRunnable = new Runnable() {
@@ -73,44 +76,51 @@ public class MockDeployManager implements DeploymentManager {
 			 */
 			@Override
 			public void run() {
-				final List<TaskDeploymentDescriptor> submissionList =
-					new SerializableArrayList<TaskDeploymentDescriptor>();
+				// the waves are submitted one instance after the other, so the receivers are always submitted first
+				for (final Map<AbstractInstance, List<ExecutionVertex>> wave : verticesToBeDeployed)
+					for (final Map.Entry<AbstractInstance, List<ExecutionVertex>> entry : wave.entrySet())
+						submitTasks(entry.getKey(), entry.getValue());
+			}
+		};
+
+		ConcurrentUtil.invokeLater(deploymentRunnable);
+	}
 
-				// Check the consistency of the call
-				for (final ExecutionVertex vertex : verticesToBeDeployed) {
-					// RuntimeEnvironment environment = vertex.getEnvironment();
-					// environment.setExecutionObserver(new MockInputSplitProvider(vertex));
+	private void submitTasks(final AbstractInstance instance, final List<ExecutionVertex> verticesToBeDeployed) {
+		final List<TaskDeploymentDescriptor> submissionList =
+			new SerializableArrayList<TaskDeploymentDescriptor>();
 
-					submissionList.add(vertex.constructDeploymentDescriptor());
+		// Check the consistency of the call
+		for (final ExecutionVertex vertex : verticesToBeDeployed) {
+			// RuntimeEnvironment environment = vertex.getEnvironment();
+			// environment.setExecutionObserver(new MockInputSplitProvider(vertex));
 
-					// new TaskDeploymentDescriptor(vertex.getID(), environment, vertex
-					// .getExecutionGraph().getJobConfiguration(), CheckpointState.NONE, vertex
-					// .constructInitialActiveOutputChannelsSet()));
-				}
+			submissionList.add(vertex.constructDeploymentDescriptor());
 
-				List<TaskSubmissionResult> submissionResultList = null;
+			// new TaskDeploymentDescriptor(vertex.getID(), environment, vertex
+			// .getExecutionGraph().getJobConfiguration(), CheckpointState.NONE, vertex
+			// .constructInitialActiveOutputChannelsSet()));
+		}
 
-				try {
-					submissionResultList = instance.submitTasks(submissionList);
-				} catch (final IOException ioe) {
-					for (final ExecutionVertex vertex : verticesToBeDeployed)
-						Assert.fail(ioe.getMessage() + " @ " + vertex);
-					return;
-				}
+		List<TaskSubmissionResult> submissionResultList = null;
 
-				int count = 0;
-				for (final TaskSubmissionResult tsr : submissionResultList) {
+		try {
+			submissionResultList = instance.submitTasks(submissionList);
+		} catch (final IOException ioe) {
+			for (final ExecutionVertex vertex : verticesToBeDeployed)
+				Assert.fail(ioe.getMessage() + " @ " + vertex);
+			return;
+		}
 
-					ExecutionVertex vertex = verticesToBeDeployed.get(count++);
+		int count = 0;
+		for (final TaskSubmissionResult tsr : submissionResultList) {
 
-					if (tsr.getReturnCode() != AbstractTaskResult.ReturnCode.SUCCESS)
-						// Change the execution state to failed and let the scheduler deal with the rest
-						vertex.updateExecutionState(ExecutionState.FAILED, tsr.getDescription());
-				}
-			}
-		};
+			ExecutionVertex vertex = verticesToBeDeployed.get(count++);
 
-		ConcurrentUtil.invokeLater(deploymentRunnable);
+			if (tsr.getReturnCode() != AbstractTaskResult.ReturnCode.SUCCESS)
+				// Change the execution state to failed and let the scheduler deal with the rest
+				vertex.updateExecutionState(ExecutionState.FAILED, tsr.getDescription());
+		}
 	}
 
 }
@@ -16,6 +16,7 @@
 package eu.stratosphere.pact.testing;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
@@ -40,9 +41,11 @@ import eu.stratosphere.nephele.execution.librarycache.LibraryCacheUpdate;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitManager;
+import eu.stratosphere.nephele.managementgraph.ManagementEdgeStatistics;
 import eu.stratosphere.nephele.protocols.TaskOperationProtocol;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
@@ -53,6 +56,7 @@ import eu.stratosphere.nephele.taskmanager.TaskCheckpointResult;
 import eu.stratosphere.nephele.taskmanager.TaskKillResult;
 import eu.stratosphere.nephele.taskmanager.TaskSubmissionResult;
 import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.nephele.types.StringRecord;
 import eu.stratosphere.nephele.util.SerializableArrayList;
 import eu.stratosphere.nephele.util.StringUtils;
 
@@ -177,6 +181,14 @@ class MockTaskManager implements TaskOperationProtocol {
 	public void invalidateLookupCacheEntries(Set<ChannelID> channelIDs) throws IOException {
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see eu.stratosphere.nephele.protocols.TaskOperationProtocol#activateLookupCacheEntries(java.util.Set)
+	 */
+	@Override
+	public void activateLookupCacheEntries(Set<ChannelID> channelIDs) throws IOException {
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see eu.stratosphere.nephele.protocols.TaskOperationProtocol#killTask(eu.stratosphere.nephele.executiongraph.
@@ -225,6 +237,11 @@ class MockTaskManager implements TaskOperationProtocol {
 	public void logBufferUtilization() throws IOException {
 	}
 
+	@Override
+	public List<ManagementEdgeStatistics> getChannelStatistics(final JobID jobID) throws IOException {
+		return new ArrayList<ManagementEdgeStatistics>();
+	}
+
 	@Override
 	public void removeCheckpoints(List<ExecutionVertexID> listOfVertexIDs) throws IOException {
 	}
@@ -290,6 +307,15 @@ class MockTaskManager implements TaskOperationProtocol {
 	public void updateLibraryCache(final LibraryCacheUpdate update) throws IOException {
 	}
 
+	@Override
+	public LibraryCacheUpdate requestLibrary(final StringRecord libraryName) throws IOException {
+		return new LibraryCacheUpdate(libraryName.toString());
+	}
+
+	@Override
+	public void fetchLibrary(final StringRecord libraryName, final InstanceConnectionInfo source) throws IOException {
+	}
+
 	/**
 	 * @author Arvid Heise
 	 */
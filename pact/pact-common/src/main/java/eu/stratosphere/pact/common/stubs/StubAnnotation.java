@@ -241,6 +241,31 @@ public class StubAnnotation
 		int upperBound();
 	}
 	
+	/**
+	 * Specifies the inputs of a {@link CoGroupStub} whose records are processed independently of each other.
+	 * For such an input, calling the stub once with all records of a key gives the same output as calling it 
+	 * once for each of these records alone, each time together with all records of the other input for that key.
+	 * 
+	 * Outer, semi, and anti joins typically have this property for the input whose records are preserved. 
+	 * It allows the optimizer to keep the other input in a hash table and to stream the declared input
+	 * against it, instead of sorting both inputs.
+	 * 
+	 * <b>
+	 * It is very important to follow a conservative strategy when specifying such inputs.
+	 * Only inputs for which the property holds regardless of values and stub calls may be declared! 
+	 * Otherwise, the correct execution of a PACT program can not be guaranteed.
+	 * So if in doubt, do not declare an input.
+	 * </b>
+	 * 
+	 * Valid input numbers are <code>0</code> for the first and <code>1</code> for the second input.
+	 */
+	@Target(ElementType.TYPE)
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface RecordWiseInputs
+	{
+		int[] inputs();
+	}
+	
 	/**
 	 * Private constructor to prevent instantiation. This class is intended only as a container.
 	 */
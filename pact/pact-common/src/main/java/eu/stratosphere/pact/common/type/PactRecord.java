@@ -1025,6 +1025,57 @@ public final class PactRecord implements Value
 		}
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	//                             Binary Field Access
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the array that holds the binary representation of this record. Together with
+	 * {@link #getBinaryFieldOffset(int)} and {@link #getBinaryFieldLength(int)}, this allows to inspect the
+	 * serialized form of individual fields without deserializing them, for example to compare keys in place.
+	 * The returned array is only valid until the record is modified or read again.
+	 * 
+	 * @return The array holding the binary representation of this record.
+	 */
+	public byte[] getBinaryData()
+	{
+		updateBinaryRepresenation();
+		return this.binaryData;
+	}
+	
+	/**
+	 * Gets the position of the given field's serialized form in the array returned by {@link #getBinaryData()}.
+	 * 
+	 * @param fieldNum The position of the field.
+	 * @return The offset of the field in the binary representation, or -1, if the field is null.
+	 */
+	public int getBinaryFieldOffset(int fieldNum)
+	{
+		// range check
+		if (fieldNum < 0 || fieldNum >= this.numFields)
+			throw new IndexOutOfBoundsException();
+		
+		updateBinaryRepresenation();
+		final int offset = this.offsets[fieldNum];
+		return offset == NULL_INDICATOR_OFFSET ? -1 : offset;
+	}
+	
+	/**
+	 * Gets the number of bytes of the given field's serialized form.
+	 * 
+	 * @param fieldNum The position of the field.
+	 * @return The length of the field in the binary representation, or -1, if the field is null.
+	 */
+	public int getBinaryFieldLength(int fieldNum)
+	{
+		// range check
+		if (fieldNum < 0 || fieldNum >= this.numFields)
+			throw new IndexOutOfBoundsException();
+		
+		updateBinaryRepresenation();
+		return this.offsets[fieldNum] == NULL_INDICATOR_OFFSET ? -1 : this.lengths[fieldNum];
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                             Serialization
 	// --------------------------------------------------------------------------------------------
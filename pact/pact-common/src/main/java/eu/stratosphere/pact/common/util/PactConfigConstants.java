@@ -57,6 +57,12 @@ public final class PactConfigConstants {
 	 */
 	public static final String FS_STREAM_OPENING_TIMEOUT_KEY = "pact.runtime.fs_timeout";
 	
+	/**
+	 * The key for the config parameter defining whether the spilled inner side of a nested-loops cross is
+	 * read back through a memory mapping of the spill file.
+	 */
+	public static final String SPILLING_MAPPED_READS_KEY = "pact.runtime.spilling.mappedreads";
+	
 	// ----------------------------- Web Frontend -----------------------------
 
 	/**
@@ -128,6 +134,11 @@ public final class PactConfigConstants {
 	 */
 	public static final int DEFAULT_FS_STREAM_OPENING_TIMEOUT = 10000;
 	
+	/**
+	 * By default, the spilled inner side of a nested-loops cross is read through a memory mapping.
+	 */
+	public static final boolean DEFAULT_SPILLING_MAPPED_READS = true;
+	
 	// ----------------------------- Web Frontend -----------------------------
 
 	/**
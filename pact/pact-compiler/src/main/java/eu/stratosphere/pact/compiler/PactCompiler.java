@@ -203,6 +203,17 @@ public class PactCompiler {
 	 * @see #HINT_LOCAL_STRATEGY
 	 */
 	public static final String HINT_LOCAL_STRATEGY_MERGE = "LOCAL_STRATEGY_MERGE";
+	
+	/**
+	 * Value for the local strategy compiler hint that enforces a <b>partitioned sort based</b> local strategy.
+	 * Both inputs are hash-partitioned into buckets on disk, and each pair of buckets is sorted and merged
+	 * independently. For example, a <i>Match</i> contract with two very large inputs will use this strategy
+	 * to find pairs of matching keys without sorting each input as a whole.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_PARTITIONED_SORT_BOTH_MERGE = 
+																"LOCAL_STRATEGY_PARTITIONED_SORT_BOTH_MERGE";
 
 	/**
 	 * Value for the local strategy compiler hint that enforces a <b>sort based</b> local strategy with self crossing.
@@ -1258,6 +1269,18 @@ public class PactCompiler {
 			case Cogroup:
 				inConnIdx = conn.getTargetPact().getIncomingConnections().indexOf(conn);
 				switch (conn.getTargetPact().getLocalStrategy()) {
+				case HYBRIDHASH_COGROUP_FIRST:
+					// first input is build side
+					if (inConnIdx == 1)
+						return true;
+
+					return false;
+				case HYBRIDHASH_COGROUP_SECOND:
+					// second input is build side
+					if (inConnIdx == 0)
+						return true;
+
+					return false;
 				case SORT_FIRST_MERGE:
 					// first input is sorted
 					if (inConnIdx == 1)
@@ -1339,6 +1362,7 @@ public class PactCompiler {
 				int inConnIdx = conn.getTargetPact().getIncomingConnections().indexOf(conn);
 				switch (conn.getTargetPact().getLocalStrategy()) {
 				case SORT_BOTH_MERGE:
+				case PARTITIONED_SORT_BOTH_MERGE:
 					// sort reads everything before processing
 					return true;
 				case SORT_FIRST_MERGE:
@@ -1437,6 +1461,20 @@ public class PactCompiler {
 						return true;
 					// input is NOT sorted
 					return false;
+				case HYBRIDHASH_COGROUP_FIRST:
+					if (inConnIdx == 0)
+						// input is put into hashtable
+						return true;
+
+					// input is NOT put into hashtable
+					return false;
+				case HYBRIDHASH_COGROUP_SECOND:
+					if (inConnIdx == 1)
+						// input is put into hashtable
+						return true;
+
+					// input is NOT put into hashtable
+					return false;
 				}
 			default:
 				return false;
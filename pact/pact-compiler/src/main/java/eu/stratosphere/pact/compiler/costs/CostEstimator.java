@@ -145,6 +145,7 @@ public abstract class CostEstimator {
 			getLocalSortCost(n, primConn, locCost);
 			break;
 		case SORT_BOTH_MERGE:
+		case PARTITIONED_SORT_BOTH_MERGE:
 			getLocalDoubleSortMergeCost(n, primConn, secConn, locCost);
 			break;
 		case SORT_FIRST_MERGE:
@@ -168,6 +169,12 @@ public abstract class CostEstimator {
 		case HYBRIDHASH_SECOND:
 			getHybridHashCosts(n, secConn, primConn, locCost);
 			break;
+		case HYBRIDHASH_COGROUP_FIRST:
+			getHybridHashCosts(n, primConn, secConn, locCost);
+			break;
+		case HYBRIDHASH_COGROUP_SECOND:
+			getHybridHashCosts(n, secConn, primConn, locCost);
+			break;
 		case MMHASH_FIRST:
 			getMainMemHashCosts(n, primConn, secConn, locCost);
 			break;
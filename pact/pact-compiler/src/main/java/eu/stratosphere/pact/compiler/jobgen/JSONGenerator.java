@@ -284,6 +284,12 @@ public class JSONGenerator implements Visitor<OptimizerNode> {
 			case HYBRIDHASH_SECOND:
 				locString = "Hybrid Hash (build: " + child2name + ")";
 				break;
+			case HYBRIDHASH_COGROUP_FIRST:
+				locString = "Hybrid Hash CoGroup (build: " + child1name + ")";
+				break;
+			case HYBRIDHASH_COGROUP_SECOND:
+				locString = "Hybrid Hash CoGroup (build: " + child2name + ")";
+				break;
 			case MMHASH_FIRST:
 				locString = "Main-Memory Hash (build: " + child1name + ")";
 				break;
@@ -314,6 +320,9 @@ public class JSONGenerator implements Visitor<OptimizerNode> {
 			case MERGE:
 				locString = "Merge";
 				break;
+			case PARTITIONED_SORT_BOTH_MERGE:
+				locString = "Partitioned-Sort-Both-Merge";
+				break;
 			case SORT:
 				locString = "Sort";
 				break;
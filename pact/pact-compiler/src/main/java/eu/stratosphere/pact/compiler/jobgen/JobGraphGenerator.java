@@ -26,6 +26,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.io.DistributionPattern;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.compression.CompressionLevel;
@@ -51,6 +52,7 @@ import eu.stratosphere.pact.common.contract.ReduceContract;
 import eu.stratosphere.pact.common.plan.Visitor;
 import eu.stratosphere.pact.common.type.Key;
 import eu.stratosphere.pact.common.util.FieldList;
+import eu.stratosphere.pact.common.util.PactConfigConstants;
 import eu.stratosphere.pact.compiler.CompilerException;
 import eu.stratosphere.pact.compiler.PactCompiler;
 import eu.stratosphere.pact.compiler.plan.CoGroupNode;
@@ -76,6 +78,7 @@ import eu.stratosphere.pact.runtime.task.MapDriver;
 import eu.stratosphere.pact.runtime.task.MatchDriver;
 import eu.stratosphere.pact.runtime.task.ReduceDriver;
 import eu.stratosphere.pact.runtime.task.RegularPactTask;
+import eu.stratosphere.pact.runtime.task.SelfMatchDriver;
 import eu.stratosphere.pact.runtime.task.TempDriver;
 import eu.stratosphere.pact.runtime.task.chaining.ChainedCombineDriver;
 import eu.stratosphere.pact.runtime.task.chaining.ChainedDriver;
@@ -112,12 +115,16 @@ public class JobGraphGenerator implements Visitor<OptimizerNode> {
 
 	private AbstractJobVertex maxDegreeVertex; // the vertex with the highest degree of parallelism
 	
+	private final boolean spillingMappedReads; // flag whether spilled inner sides of crosses are read mapped
+	
 	// ------------------------------------------------------------------------
 
 	/**
 	 * Creates a new job graph generator that uses the default values for its resource configuration.
 	 */
 	public JobGraphGenerator() {
+		this.spillingMappedReads = GlobalConfiguration.getBoolean(PactConfigConstants.SPILLING_MAPPED_READS_KEY,
+			PactConfigConstants.DEFAULT_SPILLING_MAPPED_READS);
 	}
 
 	/**
@@ -604,6 +611,10 @@ public class JobGraphGenerator implements Visitor<OptimizerNode> {
 			matchConfig.setDriver(MatchDriver.class);
 			matchConfig.setLocalStrategy(LocalStrategy.MERGE);
 			break;
+		case PARTITIONED_SORT_BOTH_MERGE:
+			matchConfig.setDriver(MatchDriver.class);
+			matchConfig.setLocalStrategy(LocalStrategy.PARTITIONED_SORT_BOTH_MERGE);
+			break;
 		case HYBRIDHASH_FIRST:
 			matchConfig.setDriver(MatchDriver.class);
 			matchConfig.setLocalStrategy(LocalStrategy.HYBRIDHASH_FIRST);
@@ -620,14 +631,14 @@ public class JobGraphGenerator implements Visitor<OptimizerNode> {
 			matchConfig.setDriver(MatchDriver.class);
 			matchConfig.setLocalStrategy(LocalStrategy.MMHASH_SECOND);
 			break;
-//		case SORT_SELF_NESTEDLOOP:
-//			matchVertex.setTaskClass(SelfMatchTask.class);
-//			matchConfig.setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//			break;
-//		case SELF_NESTEDLOOP:
-//			matchVertex.setTaskClass(SelfMatchTask.class);
-//			matchConfig.setLocalStrategy(LocalStrategy.SELF_NESTEDLOOP);
-//			break;
+		case SORT_SELF_NESTEDLOOP:
+			matchConfig.setDriver(SelfMatchDriver.class);
+			matchConfig.setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
+			break;
+		case SELF_NESTEDLOOP:
+			matchConfig.setDriver(SelfMatchDriver.class);
+			matchConfig.setLocalStrategy(LocalStrategy.SELF_NESTEDLOOP);
+			break;
 		default:
 			throw new CompilerException("Invalid local strategy for 'Match' (" + matchNode.getName() + "): "
 				+ matchNode.getLocalStrategy());
@@ -681,6 +692,9 @@ public class JobGraphGenerator implements Visitor<OptimizerNode> {
 		}
 
 		assignMemory(crossConfig, crossNode.getMemoryPerTask());
+		
+		// the inner side is read once per outer record (or block), so read it through a mapping if it spills
+		crossConfig.setSpillingMappedReads(this.spillingMappedReads);
 
 		// forward stub parameters to task and stub
 		crossConfig.setStubParameters(crossNode.getPactContract().getParameters());
@@ -749,6 +763,12 @@ public class JobGraphGenerator implements Visitor<OptimizerNode> {
 		case MERGE:
 			coGroupConfig.setLocalStrategy(LocalStrategy.MERGE);
 			break;
+		case HYBRIDHASH_COGROUP_FIRST:
+			coGroupConfig.setLocalStrategy(LocalStrategy.HYBRIDHASH_COGROUP_FIRST);
+			break;
+		case HYBRIDHASH_COGROUP_SECOND:
+			coGroupConfig.setLocalStrategy(LocalStrategy.HYBRIDHASH_COGROUP_SECOND);
+			break;
 		default:
 			throw new CompilerException("Invalid local strategy for 'CoGroup' (" + coGroupNode.getName() + "): "
 				+ coGroupNode.getLocalStrategy());
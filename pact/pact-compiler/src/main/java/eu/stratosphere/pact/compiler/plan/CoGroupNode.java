@@ -25,6 +25,7 @@ import eu.stratosphere.pact.common.contract.CompilerHints;
 import eu.stratosphere.pact.common.contract.Contract;
 import eu.stratosphere.pact.common.contract.Order;
 import eu.stratosphere.pact.common.contract.Ordering;
+import eu.stratosphere.pact.common.stubs.StubAnnotation.RecordWiseInputs;
 import eu.stratosphere.pact.common.util.FieldList;
 import eu.stratosphere.pact.common.util.FieldSet;
 import eu.stratosphere.pact.compiler.CompilerException;
@@ -71,6 +72,18 @@ public class CoGroupNode extends TwoInputNode {
 				setLocalStrategy(LocalStrategy.SORT_SECOND_MERGE);
 			} else if (PactCompiler.HINT_LOCAL_STRATEGY_MERGE.equals(localStrategy)) {
 				setLocalStrategy(LocalStrategy.MERGE);
+			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST.equals(localStrategy)) {
+				if (!isHashCoGroupApplicable(1)) {
+					throw new CompilerException("Local strategy hint '" + localStrategy + "' requires the " +
+						"CoGroup stub to declare its second input as record-wise and to have no group order.");
+				}
+				setLocalStrategy(LocalStrategy.HYBRIDHASH_COGROUP_FIRST);
+			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND.equals(localStrategy)) {
+				if (!isHashCoGroupApplicable(0)) {
+					throw new CompilerException("Local strategy hint '" + localStrategy + "' requires the " +
+						"CoGroup stub to declare its first input as record-wise and to have no group order.");
+				}
+				setLocalStrategy(LocalStrategy.HYBRIDHASH_COGROUP_SECOND);
 			} else {
 				throw new CompilerException("Invalid local strategy hint for match contract: " + localStrategy);
 			}
@@ -137,6 +150,8 @@ public class CoGroupNode extends TwoInputNode {
 			case SORT_SECOND_MERGE: return 1 + (getPactContract().getGroupOrderForInputOne() == null ? 0 : 1);
 			case MERGE:             return 0 + (getPactContract().getGroupOrderForInputOne() == null ? 0 : 1)
 			                                 + (getPactContract().getGroupOrderForInputTwo() == null ? 0 : 1);
+			case HYBRIDHASH_COGROUP_FIRST:  return 1;
+			case HYBRIDHASH_COGROUP_SECOND: return 1;
 			default:	            return 0;
 		}
 	}
@@ -530,6 +545,14 @@ public class CoGroupNode extends TwoInputNode {
 			}
 		}
 
+		if (getLocalStrategy() == LocalStrategy.HYBRIDHASH_COGROUP_FIRST ||
+				getLocalStrategy() == LocalStrategy.HYBRIDHASH_COGROUP_SECOND)
+		{
+			// hash strategy was set with compiler hint
+			createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp1, 0, getLocalStrategy(), estimator);
+			createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp2, 1, getLocalStrategy(), estimator);
+			return;
+		}
 		
 		int[] keyColumns1 = getPactContract().getKeyColumnNumbers(0);
 		
@@ -627,6 +650,97 @@ public class CoGroupNode extends TwoInputNode {
 		estimator.costOperator(n);
 
 		target.add(n);
+		
+		if (getLocalStrategy() == LocalStrategy.NONE) {
+			// local strategy was NOT set with compiler hint
+			
+			// the hash strategies are only valid if the stub processes the probe side record by record.
+			// they save the sorts, but lose the order, so the cost model decides between them
+			if (isHashCoGroupApplicable(1)) {
+				createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp1, 0,
+					LocalStrategy.HYBRIDHASH_COGROUP_FIRST, estimator);
+				createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp2, 1,
+					LocalStrategy.HYBRIDHASH_COGROUP_FIRST, estimator);
+			}
+			if (isHashCoGroupApplicable(0)) {
+				createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp1, 0,
+					LocalStrategy.HYBRIDHASH_COGROUP_SECOND, estimator);
+				createHashCoGroupAlternative(target, subPlan1, subPlan2, ss1, ss2, gp2, 1,
+					LocalStrategy.HYBRIDHASH_COGROUP_SECOND, estimator);
+			}
+		}
+	}
+
+	/**
+	 * Private utility method that generates a CoGroup node with a hash-based local strategy. The node's
+	 * output is neither grouped nor ordered.
+	 * 
+	 * @param target
+	 *        The list to put the alternative in.
+	 * @param subPlan1
+	 *        The subplan for the first input.
+	 * @param subPlan2
+	 *        The subplan for the second input.
+	 * @param ss1
+	 *        The shipping strategy for the first input.
+	 * @param ss2
+	 *        The shipping strategy for the second input.
+	 * @param gp
+	 *        The global properties of the input whose partitioning is adopted for the output.
+	 * @param input
+	 *        The index of the input whose partitioning is adopted for the output.
+	 * @param ls
+	 *        The hash-based local strategy.
+	 * @param estimator
+	 *        The cost estimator.
+	 */
+	private void createHashCoGroupAlternative(List<OptimizerNode> target, OptimizerNode subPlan1,
+			OptimizerNode subPlan2, ShipStrategy ss1, ShipStrategy ss2, GlobalProperties gp, int input,
+			LocalStrategy ls, CostEstimator estimator)
+	{
+		GlobalProperties outGp = new GlobalProperties();
+		outGp.setPartitioning(gp.getPartitioning(), gp.getPartitionedFields());
+		
+		CoGroupNode n = new CoGroupNode(this, subPlan1, subPlan2, this.input1, this.input2, outGp,
+			new LocalProperties());
+		n.input1.setShipStrategy(ss1);
+		n.input2.setShipStrategy(ss2);
+		n.setLocalStrategy(ls);
+		
+		// compute, which of the properties survive, depending on the output contract
+		n.getGlobalProperties().filterByNodesConstantSet(this, input);
+		
+		// compute the costs
+		estimator.costOperator(n);
+
+		target.add(n);
+	}
+
+	/**
+	 * Checks whether a hash-based local strategy may be used that streams the given input against a hash table
+	 * built from the other input. That is the case, if the stub declares the given input as record-wise
+	 * (see {@link RecordWiseInputs}) and none of the inputs has a group order.
+	 * 
+	 * @param probeInput
+	 *        The index of the input that would be the probe side.
+	 * @return True, if the hash-based strategy is applicable, false otherwise.
+	 */
+	private boolean isHashCoGroupApplicable(int probeInput) {
+		if (getPactContract().getGroupOrderForInputOne() != null ||
+				getPactContract().getGroupOrderForInputTwo() != null) {
+			return false;
+		}
+		
+		RecordWiseInputs recordWise = getPactContract().getUserCodeClass().getAnnotation(RecordWiseInputs.class);
+		if (recordWise == null) {
+			return false;
+		}
+		for (int input : recordWise.inputs()) {
+			if (input == probeInput) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -71,6 +71,8 @@ public class MatchNode extends TwoInputNode {
 				setLocalStrategy(LocalStrategy.SORT_SECOND_MERGE);
 			} else if (PactCompiler.HINT_LOCAL_STRATEGY_MERGE.equals(localStrategy)) {
 				setLocalStrategy(LocalStrategy.MERGE);
+			} else if (PactCompiler.HINT_LOCAL_STRATEGY_PARTITIONED_SORT_BOTH_MERGE.equals(localStrategy)) {
+				setLocalStrategy(LocalStrategy.PARTITIONED_SORT_BOTH_MERGE);
 			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST.equals(localStrategy)) {
 				setLocalStrategy(LocalStrategy.HYBRIDHASH_FIRST);
 			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND.equals(localStrategy)) {
@@ -148,6 +150,7 @@ public class MatchNode extends TwoInputNode {
 			case SORT_FIRST_MERGE:     return 1;
 			case SORT_SECOND_MERGE:    return 1;
 			case MERGE:                return 1;
+			case PARTITIONED_SORT_BOTH_MERGE: return 2;
 			case HYBRIDHASH_FIRST:     return 1;
 			case HYBRIDHASH_SECOND:    return 1;
 			case MMHASH_FIRST:         return 1;
@@ -165,6 +168,34 @@ public class MatchNode extends TwoInputNode {
 	@Override
 	public void setInputs(Map<Contract, OptimizerNode> contractToNode) {
 		super.setInputs(contractToNode);
+
+		List<OptimizerNode> allPreds1 = new ArrayList<OptimizerNode>();
+		for (Contract c : getPactContract().getFirstInputs()) {
+			allPreds1.add(contractToNode.get(c));
+		}
+		List<OptimizerNode> allPreds2 = new ArrayList<OptimizerNode>();
+		for (Contract c : getPactContract().getSecondInputs()) {
+			allPreds2.add(contractToNode.get(c));
+		}
+		// the self-match strategies read only the first input, so they are only valid if the second one is the same
+		if (isSelfMatchStrategy(getLocalStrategy())
+			&& !(areBranchesEqual(allPreds1, allPreds2) && this.keySet1.equals(this.keySet2))) {
+			throw new CompilerException("Local strategy hint '" + getLocalStrategy().name() + "' for match contract '"
+				+ getPactContract().getName() + "' requires both inputs to come from the same contracts "
+				+ "and to use the same key fields.");
+		}
+	}
+
+	/**
+	 * Checks whether the given local strategy is one of the self-match strategies, which evaluate the match
+	 * on the first input alone.
+	 * 
+	 * @param ls
+	 *        The local strategy to check.
+	 * @return True, if the strategy is a self-match strategy, false otherwise.
+	 */
+	private static boolean isSelfMatchStrategy(LocalStrategy ls) {
+		return ls == LocalStrategy.SELF_NESTEDLOOP || ls == LocalStrategy.SORT_SELF_NESTEDLOOP;
 	}
 
 	/*
@@ -175,8 +206,7 @@ public class MatchNode extends TwoInputNode {
 	public List<PactConnection> getIncomingConnections() {
 		ArrayList<PactConnection> inputs = new ArrayList<PactConnection>(2);
 		inputs.add(input1);
-		if(this.localStrategy != LocalStrategy.SELF_NESTEDLOOP && this.localStrategy != LocalStrategy.SORT_SELF_NESTEDLOOP) {
-		// check for self match
+		if (!isSelfMatchStrategy(this.localStrategy)) {
 			inputs.add(input2);
 		}
 		return inputs;
@@ -267,6 +297,13 @@ public class MatchNode extends TwoInputNode {
 	protected void computeValidPlanAlternatives(List<? extends OptimizerNode> altSubPlans1,
 			List<? extends OptimizerNode> altSubPlans2, CostEstimator estimator, List<OptimizerNode> outputPlans)
 	{
+		if (isSelfMatchStrategy(getLocalStrategy())) {
+			// the second input carries the same data as the first one and is not read
+			for (OptimizerNode subPlan1 : altSubPlans1) {
+				computeSelfMatchAlternatives(subPlan1, estimator, outputPlans);
+			}
+			return;
+		}
 
 		for(OptimizerNode subPlan1 : altSubPlans1) {
 			for(OptimizerNode subPlan2 : altSubPlans2) {
@@ -280,40 +317,6 @@ public class MatchNode extends TwoInputNode {
 				ShipStrategy ss1 = this.input1.getShipStrategy();
 				ShipStrategy ss2 = this.input2.getShipStrategy();
 
-				// check for self match
-//				if (areBranchesEqual(subPlan1, subPlan2)) {
-//					// we have a self match
-//					
-//					if(ss1 != ShipStrategy.NONE && ss2 != ShipStrategy.NONE && ss1.equals(ss2)) {
-//						// ShipStrategy is forced on both inputs
-//						createLocalAlternatives(outputPlans, subPlan1, subPlan2, ss1, ss1, estimator);
-//					} else if (ss1 != ShipStrategy.NONE && ss2 == ShipStrategy.NONE) {
-//						// ShipStrategy is forced on first input
-//						createLocalAlternatives(outputPlans, subPlan1, subPlan2, ss1, ss1, estimator);
-//					} else if (ss1 == ShipStrategy.NONE && ss2 != ShipStrategy.NONE) {
-//						// ShipStrategy is forced on second input
-//						createLocalAlternatives(outputPlans, subPlan1, subPlan2, ss2, ss2, estimator);
-//					} else if(ss1 != ShipStrategy.NONE && ss2 != ShipStrategy.NONE && !ss1.equals(ss2)) {
-//						// incompatible ShipStrategies enforced
-//						continue;
-//					}
-//					
-//					GlobalProperties gp;
-//					gp = subPlan1.getGlobalProperties();
-//										
-//					if(!partitioningIsOnRightFields(gp, 0) || gp.getPartitioning().equals(PartitionProperty.NONE)) {
-//						// we need to partition
-//						// TODO: include range partitioning
-//						createLocalAlternatives(outputPlans, subPlan1, subPlan2, ShipStrategy.PARTITION_HASH, ShipStrategy.PARTITION_HASH, estimator);
-//					} else {
-//						// input is already partitioned
-//						createLocalAlternatives(outputPlans, subPlan1, subPlan2, ShipStrategy.FORWARD, ShipStrategy.FORWARD, estimator);
-//					}
-//					
-//					// check next alternative
-//					continue;
-//				}
-
 				GlobalProperties gp1;
 				GlobalProperties gp2;
 
@@ -564,6 +567,52 @@ public class MatchNode extends TwoInputNode {
 		}
 	}
 
+	/**
+	 * Private utility method that generates the alternative Match nodes for a self-match strategy. Since the
+	 * strategy pairs the records of the first input with each other, every key must be processed by exactly
+	 * one instance. The first input must therefore be partitioned on the key, broadcasting it would produce
+	 * every result once per instance.
+	 * 
+	 * @param subPlan1
+	 *        The predecessor node for the first input.
+	 * @param estimator
+	 *        The cost estimator.
+	 * @param outputPlans
+	 *        The list to put the alternatives in.
+	 */
+	private void computeSelfMatchAlternatives(OptimizerNode subPlan1, CostEstimator estimator,
+			List<OptimizerNode> outputPlans)
+	{
+		ShipStrategy ss1 = this.input1.getShipStrategy();
+		GlobalProperties gp1;
+
+		switch (ss1.type()) {
+		case NONE:
+			gp1 = subPlan1.getGlobalPropertiesForParent(this);
+			if (partitioningIsOnRightFields(gp1, 0) && gp1.getPartitioning().isComputablyPartitioned()) {
+				ss1 = new ForwardSS();
+			} else {
+				ss1 = new PartitionHashSS(this.keySet1);
+			}
+			break;
+		case FORWARD:
+			gp1 = PactConnection.getGlobalPropertiesAfterConnection(subPlan1, this, 0, ss1);
+			if (!partitioningIsOnRightFields(gp1, 0) || !gp1.getPartitioning().isComputablyPartitioned()) {
+				throw new CompilerException("Forward shipping strategy for the self match '"
+					+ getPactContract().getName() + "' requires an input that is partitioned on the key.");
+			}
+			break;
+		case PARTITION_HASH:
+		case PARTITION_RANGE:
+			break;
+		default:
+			throw new CompilerException("Invalid shipping strategy '" + ss1.name() + "' for the self match '"
+				+ getPactContract().getName() + "'.");
+		}
+
+		createLocalAlternatives(outputPlans, subPlan1, null, ss1, null, estimator);
+	}
+
 	/**
 	 * Private utility method that generates the alternative Match nodes, given fixed shipping strategies
 	 * for the inputs.
@@ -589,7 +638,7 @@ public class MatchNode extends TwoInputNode {
 		LocalProperties lp2;
 
 		lp1 = PactConnection.getLocalPropertiesAfterConnection(subPlan1, this, ss1);
-		lp2 = PactConnection.getLocalPropertiesAfterConnection(subPlan2, this, ss2);
+		lp2 = subPlan2 == null ? null : PactConnection.getLocalPropertiesAfterConnection(subPlan2, this, ss2);
 
 		// create alternatives for different local strategies
 		LocalStrategy ls = getLocalStrategy();
@@ -602,6 +651,9 @@ public class MatchNode extends TwoInputNode {
 				|| ls == LocalStrategy.SORT_SECOND_MERGE || ls == LocalStrategy.MERGE) {
 				
 				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, ls, Order.ASCENDING, true, null, estimator);
+			} else if (ls == LocalStrategy.PARTITIONED_SORT_BOTH_MERGE) {
+				// every key falls into a single bucket, so the output is grouped, but not sorted
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, ls, Order.NONE, true, null, estimator);
 			} else if (ls == LocalStrategy.HYBRIDHASH_FIRST || ls == LocalStrategy.HYBRIDHASH_SECOND
 				|| ls == LocalStrategy.MMHASH_FIRST || ls == LocalStrategy.MMHASH_SECOND) {
 
@@ -618,72 +670,55 @@ public class MatchNode extends TwoInputNode {
 			}
 
 		} else {
-//			if (!areBranchesEqual(subPlan1, subPlan2) || !this.keySet1.equals(this.keySet2)) {
-				// this is not a self match
-			
-				// create the hash strategies only, if we have estimates for the input sized
-				if (haveValidOutputEstimates(subPlan1) && haveValidOutputEstimates(subPlan2))
-				{
-					// create the hybrid-hash strategy where the first input is the building side
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.HYBRIDHASH_FIRST, Order.NONE, false,
-						null, estimator);
+			// Self matches are not detected here. The cost formulas of the self-match strategies assume a fixed
+			// key group size, while the nested loops are quadratic in the actual group size. Picked by costs, they
+			// would win against the sort-merge strategies even for skewed keys, so they must be requested by a hint.
+
+			// create the hash strategies only, if we have estimates for the input sized
+			if (haveValidOutputEstimates(subPlan1) && haveValidOutputEstimates(subPlan2))
+			{
+				// create the hybrid-hash strategy where the first input is the building side
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.HYBRIDHASH_FIRST, Order.NONE, false,
+					null, estimator);
 		
-					// create the hybrid-hash strategy where the second input is the building side
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.HYBRIDHASH_SECOND, Order.NONE, false,
-						null, estimator);
-				}
+				// create the hybrid-hash strategy where the second input is the building side
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.HYBRIDHASH_SECOND, Order.NONE, false,
+					null, estimator);
+			}
 	
-				// create sort merge strategy depending on pre-existing orders
-				
-				int[] keyColumns = getPactContract().getKeyColumnNumbers(0);
-				Ordering ordering1 = new Ordering();
-				for (int keyColumn : keyColumns) {
-					ordering1.appendOrdering(keyColumn, null, Order.ASCENDING);
-				}
+			// create sort merge strategy depending on pre-existing orders
+			
+			int[] keyColumns = getPactContract().getKeyColumnNumbers(0);
+			Ordering ordering1 = new Ordering();
+			for (int keyColumn : keyColumns) {
+				ordering1.appendOrdering(keyColumn, null, Order.ASCENDING);
+			}
+			
+			keyColumns = getPactContract().getKeyColumnNumbers(1);
+			Ordering ordering2 = new Ordering();
+			for (int keyColumn : keyColumns) {
+				ordering2.appendOrdering(keyColumn, null, Order.ASCENDING);
+			}
+			
+			
+			// set local strategy according to pre-existing ordering
+			if (ordering1.isMetBy(lp1.getOrdering()) && ordering2.isMetBy(lp2.getOrdering())) {
+				// both inputs have ascending order
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.MERGE, Order.ASCENDING, true, null, estimator);
 				
-				keyColumns = getPactContract().getKeyColumnNumbers(1);
-				Ordering ordering2 = new Ordering();
-				for (int keyColumn : keyColumns) {
-					ordering2.appendOrdering(keyColumn, null, Order.ASCENDING);
-				}
+			} else if (!ordering1.isMetBy(lp1.getOrdering()) && ordering2.isMetBy(lp2.getOrdering())) {
+				// input 2 has ascending order, input 1 does not
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_FIRST_MERGE, Order.ASCENDING, true, null, estimator);
 				
+			} else if (ordering1.isMetBy(lp1.getOrdering()) && !ordering2.isMetBy(lp2.getOrdering())) {
+				// input 1 has ascending order, input 2 does not
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_SECOND_MERGE, Order.ASCENDING, true, null, estimator);
 				
-				// set local strategy according to pre-existing ordering
-				if (ordering1.isMetBy(lp1.getOrdering()) && ordering2.isMetBy(lp2.getOrdering())) {
-					// both inputs have ascending order
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.MERGE, Order.ASCENDING, true, null, estimator);
-					
-				} else if (!ordering1.isMetBy(lp1.getOrdering()) && ordering2.isMetBy(lp2.getOrdering())) {
-					// input 2 has ascending order, input 1 does not
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_FIRST_MERGE, Order.ASCENDING, true, null, estimator);
-					
-				} else if (ordering1.isMetBy(lp1.getOrdering()) && !ordering2.isMetBy(lp2.getOrdering())) {
-					// input 1 has ascending order, input 2 does not
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_SECOND_MERGE, Order.ASCENDING, true, null, estimator);
-					
-				} else {
-					// none of the inputs has ascending order
-					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_BOTH_MERGE, Order.ASCENDING, true, null, estimator);
-					
-				}
+			} else {
+				// none of the inputs has ascending order
+				createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_BOTH_MERGE, Order.ASCENDING, true, null, estimator);
 				
-//			} else {
-//				// this is a self match
-//				FieldSet keyFields = new FieldSet(getPactContract().getKeyColumnNumbers(0));
-//				if(lp1.isGrouped() && keyFields.equals(lp1.getGroupedFields())) {
-//					// output will have order of input
-//					LocalProperties outLp = new LocalProperties();
-//					outLp.setOrdering(lp1.getOrdering());
-//					outLp.setGrouped(true, lp1.getGroupedFields());
-//					// self match without sorting
-//					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SELF_NESTEDLOOP, Order.ANY, true, outLp, estimator);
-//				} else {
-//					// output will be ascendingly sorted
-//					// self match with sorting
-//					createMatchAlternative(target, subPlan1, subPlan2, ss1, ss2, LocalStrategy.SORT_SELF_NESTEDLOOP, Order.ASCENDING, true, null, estimator);
-//				}
-//				
-//			}
+			}
 		}
 	}
 
@@ -703,7 +738,6 @@ public class MatchNode extends TwoInputNode {
 	 * 
 	 * @return	{@code true} if branches are equal, {@code false} otherwise.
 	 */
-	@SuppressWarnings("unused")
 	private boolean areBranchesEqual(List<OptimizerNode> allPreds1, List<OptimizerNode> allPreds2) {
 		final int size1 = allPreds1.size();
 		final int size2 = allPreds2.size();
@@ -720,7 +754,7 @@ public class MatchNode extends TwoInputNode {
 		for(int i = 0; i < copy1.size(); ++i) {
 			OptimizerNode nodeToTest = copy1.get(i);
 			
-			for(int j = i + i; j < copy2.size(); ++j) {
+			for(int j = 0; j < copy2.size(); ++j) {
 				if(nodeToTest.equals(copy2.get(j))) {
 					copy1.remove(i);
 					--i;
@@ -733,9 +767,7 @@ public class MatchNode extends TwoInputNode {
 			return false;
 		}
 		
-		assert (copy1.size() == 0 && copy2.size() == 0);
-		
-		return true;
+		return copy2.isEmpty();
 	}
 	
 	/**
@@ -894,7 +926,7 @@ public class MatchNode extends TwoInputNode {
 			outGp.setPartitioning(gp1.getPartitioning(), gp1.getPartitionedFields());
 			outGp.setOrdering(gp1.getOrdering());
 			
-			LocalProperties outLp = null;
+			LocalProperties outLp = outLpp;
 			if (outLpp == null) {
 				outLp = new LocalProperties();
 				if (order != Order.NONE) {
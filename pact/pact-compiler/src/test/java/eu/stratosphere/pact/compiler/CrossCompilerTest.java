@@ -0,0 +1,136 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.configuration.GlobalConfiguration;
+import eu.stratosphere.nephele.instance.HardwareDescription;
+import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.instance.InstanceTypeDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.pact.common.contract.CrossContract;
+import eu.stratosphere.pact.common.contract.FileDataSink;
+import eu.stratosphere.pact.common.contract.FileDataSource;
+import eu.stratosphere.pact.common.plan.Plan;
+import eu.stratosphere.pact.common.util.PactConfigConstants;
+import eu.stratosphere.pact.compiler.costs.FixedSizeClusterCostEstimator;
+import eu.stratosphere.pact.compiler.jobgen.JobGraphGenerator;
+import eu.stratosphere.pact.compiler.plan.OptimizedPlan;
+import eu.stratosphere.pact.compiler.util.DummyCrossStub;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+
+/**
+ * Tests the configuration of the nested-loops cross tasks generated from a compiled plan.
+ */
+public class CrossCompilerTest {
+
+	private static final String IN_FILE = "file:///test/file";
+
+	private static final String OUT_FILE = "file:///test/output";
+
+	private static final String CROSS_NAME = "Cross";
+
+	private static final int defaultParallelism = 8;
+
+	// ------------------------------------------------------------------------
+
+	private PactCompiler compiler;
+
+	private InstanceTypeDescription instanceType;
+
+	// ------------------------------------------------------------------------
+
+	@Before
+	public void setup()
+	{
+		try {
+			InetSocketAddress dummyAddress = new InetSocketAddress(InetAddress.getLocalHost(), 12345);
+			this.compiler = new PactCompiler(new DataStatistics(), new FixedSizeClusterCostEstimator(), dummyAddress);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test setup failed.");
+		}
+
+		// create the instance type description
+		InstanceType iType = InstanceTypeFactory.construct("standard", 6, 2, 4096, 100, 0);
+		HardwareDescription hDesc = HardwareDescriptionFactory.construct(2, 4096 * 1024 * 1024, 2000 * 1024 * 1024);
+		this.instanceType = InstanceTypeDescriptionFactory.construct(iType, hDesc, defaultParallelism * 2);
+	}
+
+	@Test
+	public void testSpillingMappedReadsByDefault() {
+		Assert.assertTrue(getCrossConfig(new JobGraphGenerator()).getSpillingMappedReads());
+	}
+
+	@Test
+	public void testSpillingMappedReadsDisabled() {
+		setSpillingMappedReads(false);
+		try {
+			Assert.assertFalse(getCrossConfig(new JobGraphGenerator()).getSpillingMappedReads());
+		} finally {
+			setSpillingMappedReads(PactConfigConstants.DEFAULT_SPILLING_MAPPED_READS);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private TaskConfig getCrossConfig(JobGraphGenerator jobGen) {
+		FileDataSource sourceA = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		FileDataSource sourceB = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		CrossContract cross = CrossContract.builder(DummyCrossStub.class)
+			.input1(sourceA)
+			.input2(sourceB)
+			.name(CROSS_NAME)
+			.build();
+		FileDataSink sink = new FileDataSink(DummyOutputFormat.class, OUT_FILE, cross);
+
+		OptimizedPlan oPlan = this.compiler.compile(new Plan(sink, "Cross"), this.instanceType);
+		JobGraph jobGraph = jobGen.compileJobGraph(oPlan);
+
+		Iterator<JobTaskVertex> vertices = jobGraph.getTaskVertices();
+		while (vertices.hasNext()) {
+			JobTaskVertex vertex = vertices.next();
+			if (CROSS_NAME.equals(vertex.getName())) {
+				return new TaskConfig(vertex.getConfiguration());
+			}
+		}
+
+		Assert.fail("The job graph contains no cross task.");
+		return null;
+	}
+
+	private static void setSpillingMappedReads(boolean mappedReads) {
+		Configuration conf = new Configuration();
+		conf.setBoolean(PactConfigConstants.SPILLING_MAPPED_READS_KEY, mappedReads);
+		GlobalConfiguration.includeConfiguration(conf);
+	}
+}
@@ -0,0 +1,230 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.instance.HardwareDescription;
+import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.instance.InstanceTypeDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.pact.common.contract.FileDataSink;
+import eu.stratosphere.pact.common.contract.FileDataSource;
+import eu.stratosphere.pact.common.contract.MatchContract;
+import eu.stratosphere.pact.common.plan.Plan;
+import eu.stratosphere.pact.common.plan.Visitor;
+import eu.stratosphere.pact.common.type.base.PactInteger;
+import eu.stratosphere.pact.compiler.costs.FixedSizeClusterCostEstimator;
+import eu.stratosphere.pact.compiler.jobgen.JobGraphGenerator;
+import eu.stratosphere.pact.compiler.plan.MatchNode;
+import eu.stratosphere.pact.compiler.plan.OptimizedPlan;
+import eu.stratosphere.pact.compiler.plan.OptimizerNode;
+import eu.stratosphere.pact.compiler.plan.PactConnection;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategy.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
+
+/**
+ * Tests the compilation of matches that carry one of the self-match local strategy hints.
+ */
+public class SelfMatchCompilerTest {
+
+	private static final String IN_FILE = "file:///test/file";
+
+	private static final String OUT_FILE = "file:///test/output";
+
+	private static final int defaultParallelism = 8;
+
+	// ------------------------------------------------------------------------
+
+	private PactCompiler compiler;
+
+	private InstanceTypeDescription instanceType;
+
+	// ------------------------------------------------------------------------
+
+	@Before
+	public void setup()
+	{
+		try {
+			InetSocketAddress dummyAddress = new InetSocketAddress(InetAddress.getLocalHost(), 12345);
+			this.compiler = new PactCompiler(new DataStatistics(), new FixedSizeClusterCostEstimator(), dummyAddress);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test setup failed.");
+		}
+
+		// create the instance type description
+		InstanceType iType = InstanceTypeFactory.construct("standard", 6, 2, 4096, 100, 0);
+		HardwareDescription hDesc = HardwareDescriptionFactory.construct(2, 4096 * 1024 * 1024, 2000 * 1024 * 1024);
+		this.instanceType = InstanceTypeDescriptionFactory.construct(iType, hDesc, defaultParallelism * 2);
+	}
+
+	@Test
+	public void testSelfNestedLoopHint() {
+		FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 0)
+			.input1(source)
+			.input2(source)
+			.build();
+		mat.getParameters().setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_SELF_NESTEDLOOP);
+
+		checkSelfMatchPlan(compile(mat), LocalStrategy.SELF_NESTEDLOOP);
+	}
+
+	@Test
+	public void testSortSelfNestedLoopHint() {
+		FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 0)
+			.input1(source)
+			.input2(source)
+			.build();
+		mat.getParameters().setString(PactCompiler.HINT_LOCAL_STRATEGY,
+			PactCompiler.HINT_LOCAL_STRATEGY_SORT_SELF_NESTEDLOOP);
+
+		checkSelfMatchPlan(compile(mat), LocalStrategy.SORT_SELF_NESTEDLOOP);
+	}
+
+	@Test
+	public void testSelfMatchHintOnDifferentInputs() {
+		FileDataSource sourceA = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		FileDataSource sourceB = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 0)
+			.input1(sourceA)
+			.input2(sourceB)
+			.build();
+		mat.getParameters().setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_SELF_NESTEDLOOP);
+
+		try {
+			compile(mat);
+			Assert.fail("Self-match hint on a match of two different inputs was accepted.");
+		} catch (CompilerException cex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSelfMatchHintOnDifferentKeys() {
+		FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 1)
+			.input1(source)
+			.input2(source)
+			.build();
+		mat.getParameters().setString(PactCompiler.HINT_LOCAL_STRATEGY,
+			PactCompiler.HINT_LOCAL_STRATEGY_SORT_SELF_NESTEDLOOP);
+
+		try {
+			compile(mat);
+			Assert.fail("Self-match hint on a match with different keys was accepted.");
+		} catch (CompilerException cex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSelfMatchHintWithBroadcast() {
+		FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 0)
+			.input1(source)
+			.input2(source)
+			.build();
+		mat.getParameters().setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_SELF_NESTEDLOOP);
+		mat.getParameters().setString(PactCompiler.HINT_SHIP_STRATEGY_FIRST_INPUT,
+			PactCompiler.HINT_SHIP_STRATEGY_BROADCAST);
+
+		try {
+			compile(mat);
+			Assert.fail("Self-match hint on a broadcast input was accepted.");
+		} catch (CompilerException cex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSelfMatchWithoutHint() {
+		FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE);
+		MatchContract mat = MatchContract.builder(DummyMatchStub.class, PactInteger.class, 0, 0)
+			.input1(source)
+			.input2(source)
+			.build();
+
+		// without a hint, a self-join is compiled like any other match
+		compile(mat).accept(new Visitor<OptimizerNode>() {
+			@Override
+			public boolean preVisit(OptimizerNode visitable) {
+				if (visitable instanceof MatchNode) {
+					Assert.assertEquals(2, visitable.getIncomingConnections().size());
+					Assert.assertTrue(visitable.getLocalStrategy() != LocalStrategy.SELF_NESTEDLOOP
+						&& visitable.getLocalStrategy() != LocalStrategy.SORT_SELF_NESTEDLOOP);
+					return false;
+				}
+				return true;
+			}
+
+			@Override
+			public void postVisit(OptimizerNode visitable) {
+				// DO NOTHING
+			}
+		});
+	}
+
+	// ------------------------------------------------------------------------
+
+	private OptimizedPlan compile(MatchContract mat) {
+		FileDataSink sink = new FileDataSink(DummyOutputFormat.class, OUT_FILE, mat);
+		OptimizedPlan oPlan = this.compiler.compile(new Plan(sink, "Self Match"), this.instanceType);
+
+		// compile the job graph to verify that no error is thrown
+		new JobGraphGenerator().compileJobGraph(oPlan);
+		return oPlan;
+	}
+
+	private void checkSelfMatchPlan(OptimizedPlan oPlan, final LocalStrategy expected) {
+		oPlan.accept(new Visitor<OptimizerNode>() {
+			@Override
+			public boolean preVisit(OptimizerNode visitable) {
+				if (visitable instanceof MatchNode) {
+					Assert.assertEquals(expected, visitable.getLocalStrategy());
+					Assert.assertEquals("A self match reads a single input.", 1,
+						visitable.getIncomingConnections().size());
+
+					// every key must be processed by a single match instance
+					PactConnection inConn = visitable.getIncomingConnections().get(0);
+					Assert.assertTrue(inConn.getShipStrategy().type() == ShipStrategyType.PARTITION_HASH
+						|| inConn.getShipStrategy().type() == ShipStrategyType.PARTITION_RANGE);
+					return false;
+				}
+				return true;
+			}
+
+			@Override
+			public void postVisit(OptimizerNode visitable) {
+				// DO NOTHING
+			}
+		});
+	}
+}
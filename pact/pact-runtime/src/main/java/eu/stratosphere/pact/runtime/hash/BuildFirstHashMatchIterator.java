@@ -181,6 +181,11 @@ public final class BuildFirstHashMatchIterator<V1, V2, O> implements MatchTaskIt
 		totalMemory = memManager.roundDownToPageSizeMultiple(totalMemory);
 		final int numPages = (int) (totalMemory / memManager.getPageSize());
 		final List<MemorySegment> memorySegments = memManager.allocatePages(ownerTask, numPages);
-		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		final MutableHashTable<BT, PT> table = new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer,
+			buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		
+		// let the table grow into memory that other consumers of the task are done with, before spilling
+		table.setMemoryToReclaim(memManager, ownerTask);
+		return table;
 	}
 }
@@ -0,0 +1,67 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.util.Iterator;
+
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.pact.common.generic.types.TypeComparator;
+import eu.stratosphere.pact.common.generic.types.TypePairComparator;
+import eu.stratosphere.pact.common.generic.types.TypeSerializer;
+import eu.stratosphere.pact.common.util.MutableObjectIterator;
+import eu.stratosphere.pact.runtime.task.util.CoGroupTaskIterator;
+
+/**
+ * An implementation of the {@link CoGroupTaskIterator} that uses a hybrid hash table internally. The build side
+ * of the hash table is the second input of the CoGroup, the first input is probed record by record.
+ * 
+ * @see HashCoGroupIterator
+ */
+public final class BuildSecondHashCoGroupIterator<T1, T2> extends HashCoGroupIterator<T2, T1>
+	implements CoGroupTaskIterator<T1, T2>
+{
+	public BuildSecondHashCoGroupIterator(MutableObjectIterator<T1> firstInput, MutableObjectIterator<T2> secondInput,
+			TypeSerializer<T1> serializer1, TypeComparator<T1> comparator1,
+			TypeSerializer<T2> serializer2, TypeComparator<T2> comparator2,
+			TypePairComparator<T1, T2> pairComparator,
+			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory)
+	throws MemoryAllocationException
+	{
+		super(secondInput, firstInput, serializer2, comparator2, serializer1, comparator1, pairComparator,
+			memManager, ioManager, ownerTask, totalMemory);
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.CoGroupTaskIterator#getValues1()
+	 */
+	@Override
+	public Iterator<T1> getValues1()
+	{
+		return getProbeSideValues();
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.CoGroupTaskIterator#getValues2()
+	 */
+	@Override
+	public Iterator<T2> getValues2()
+	{
+		return getBuildSideValues();
+	}
+}
@@ -0,0 +1,257 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.pact.common.generic.types.TypeComparator;
+import eu.stratosphere.pact.common.generic.types.TypePairComparator;
+import eu.stratosphere.pact.common.generic.types.TypeSerializer;
+import eu.stratosphere.pact.common.util.MutableObjectIterator;
+import eu.stratosphere.pact.runtime.util.EmptyIterator;
+
+/**
+ * Base class for the hash-based local strategies of the CoGroup contract. The build side is put into a hybrid
+ * hash table and the probe side is streamed against it record by record: every probe-side record forms a group
+ * of its own, together with all build-side records that share its key. After the probe side is consumed, the
+ * build-side records that were never matched are handed out in groups of equal keys, with an empty probe side.
+ * <p>
+ * The result equals that of the sort-merge strategies only for stubs that treat the records of the probe side
+ * independently of each other, as declared through
+ * {@link eu.stratosphere.pact.common.stubs.StubAnnotation.RecordWiseInputs}. Outer, semi, and anti joins
+ * are examples for such stubs.
+ *
+ * @param <BT> The type of the build-side records.
+ * @param <PT> The type of the probe-side records.
+ */
+public abstract class HashCoGroupIterator<BT, PT>
+{
+	private final MutableHashTable<BT, PT> hashTable;
+	
+	private final MemoryManager memManager;
+	
+	private final MutableObjectIterator<BT> buildInput;
+	
+	private final MutableObjectIterator<PT> probeInput;
+	
+	private final BuildSideValues<BT> buildSideValues;
+	
+	private final SingleValueIterator<PT> probeSideValue;
+	
+	private Iterator<PT> probeSideReturn;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	protected HashCoGroupIterator(MutableObjectIterator<BT> buildInput, MutableObjectIterator<PT> probeInput,
+			TypeSerializer<BT> buildSerializer, TypeComparator<BT> buildComparator,
+			TypeSerializer<PT> probeSerializer, TypeComparator<PT> probeComparator,
+			TypePairComparator<PT, BT> pairComparator,
+			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory)
+	throws MemoryAllocationException
+	{
+		this.memManager = memManager;
+		this.buildInput = buildInput;
+		this.probeInput = probeInput;
+		
+		this.buildSideValues = new BuildSideValues<BT>(buildSerializer.createInstance());
+		this.probeSideValue = new SingleValueIterator<PT>();
+		
+		this.hashTable = BuildFirstHashMatchIterator.getHashJoin(buildSerializer, buildComparator,
+			probeSerializer, probeComparator, pairComparator, memManager, ioManager, ownerTask, totalMemory);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Builds the hash table from the build side. The call blocks until the build side is consumed.
+	 */
+	public void open() throws IOException, MemoryAllocationException, InterruptedException
+	{
+		this.hashTable.open(this.buildInput, this.probeInput, true);
+	}
+	
+	/**
+	 * Closes the hash table and releases its memory.
+	 */
+	public void close()
+	{
+		this.hashTable.close();
+		this.memManager.release(this.hashTable.getFreedMemory());
+	}
+	
+	/**
+	 * Moves to the next group, which is either a single probe-side record with its matching build-side
+	 * records, or a group of unmatched build-side records with an empty probe side.
+	 * 
+	 * @return True, if there is another group, false otherwise.
+	 * @throws IOException Thrown, if the hash table encountered an I/O problem.
+	 */
+	public boolean next() throws IOException
+	{
+		// all matches of the previous probe-side record must be visited, or they would count as unmatched
+		this.buildSideValues.skipRemaining();
+		
+		if (!this.hashTable.nextRecord()) {
+			return false;
+		}
+		
+		final PT probeRecord = this.hashTable.getCurrentProbeRecord();
+		if (probeRecord != null) {
+			this.probeSideValue.set(probeRecord);
+			this.probeSideReturn = this.probeSideValue;
+			this.buildSideValues.set(this.hashTable.getBuildSideIterator());
+		} else {
+			this.probeSideReturn = EmptyIterator.get();
+			this.buildSideValues.set(this.hashTable.getUnmatchedBuildSideIterator());
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the build-side records of the current group.
+	 * 
+	 * @return An iterator over the build-side records of the current group.
+	 */
+	protected final Iterator<BT> getBuildSideValues()
+	{
+		return this.buildSideValues;
+	}
+	
+	/**
+	 * Gets the probe-side records of the current group, which is either exactly one or none.
+	 * 
+	 * @return An iterator over the probe-side records of the current group.
+	 */
+	protected final Iterator<PT> getProbeSideValues()
+	{
+		return this.probeSideReturn;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class BuildSideValues<T> implements Iterator<T>
+	{
+		private final T instance;
+		
+		private MutableObjectIterator<T> source;
+		
+		private boolean staged;
+		
+		private BuildSideValues(T instance)
+		{
+			this.instance = instance;
+		}
+		
+		private void set(MutableObjectIterator<T> source)
+		{
+			this.source = source;
+			this.staged = false;
+		}
+		
+		private void skipRemaining() throws IOException
+		{
+			if (this.source != null) {
+				while (this.source.next(this.instance));
+				this.source = null;
+			}
+			this.staged = false;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (this.staged) {
+				return true;
+			}
+			if (this.source == null) {
+				return false;
+			}
+			
+			try {
+				if (this.source.next(this.instance)) {
+					this.staged = true;
+					return true;
+				} else {
+					this.source = null;
+					return false;
+				}
+			}
+			catch (IOException ioex) {
+				throw new RuntimeException("An error occurred while reading the next record from the hash table: " + 
+					ioex.getMessage(), ioex);
+			}
+		}
+
+		@Override
+		public T next()
+		{
+			if (this.staged || hasNext()) {
+				this.staged = false;
+				return this.instance;
+			} else {
+				throw new NoSuchElementException();
+			}
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	private static final class SingleValueIterator<T> implements Iterator<T>
+	{
+		private T value;
+		
+		private boolean available;
+		
+		private void set(T value)
+		{
+			this.value = value;
+			this.available = true;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.available;
+		}
+
+		@Override
+		public T next()
+		{
+			if (this.available) {
+				this.available = false;
+				return this.value;
+			} else {
+				throw new NoSuchElementException();
+			}
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
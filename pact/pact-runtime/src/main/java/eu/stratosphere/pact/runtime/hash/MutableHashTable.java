@@ -30,8 +30,11 @@ import eu.stratosphere.nephele.services.iomanager.Channel;
 import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
 import eu.stratosphere.nephele.services.iomanager.HeaderlessChannelReaderInputView;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
 import eu.stratosphere.nephele.services.memorymanager.SeekableDataOutputView;
+import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.pact.common.generic.types.TypeComparator;
 import eu.stratosphere.pact.common.generic.types.TypePairComparator;
 import eu.stratosphere.pact.common.generic.types.TypeSerializer;
@@ -60,7 +63,7 @@ import eu.stratosphere.pact.runtime.util.MathUtils;
  * <pre>
  * +----------------------------- Bucket x ----------------------------
  * |Partition (1 byte) | Status (1 byte) | element count (2 bytes) |
- * | next-bucket-in-chain-pointer (8 bytes) | reserved (4 bytes) |
+ * | next-bucket-in-chain-pointer (8 bytes) | probed flags (2 bytes) | reserved (2 bytes) |
  * |
  * |hashCode 1 (4 bytes) | hashCode 2 (4 bytes) | hashCode 3 (4 bytes) |
  * | ... hashCode n-1 (4 bytes) | hashCode n (4 bytes)
@@ -70,7 +73,7 @@ import eu.stratosphere.pact.runtime.util.MathUtils;
  * |
  * +---------------------------- Bucket x + 1--------------------------
  * |Partition (1 byte) | Status (1 byte) | element count (2 bytes) |
- * | next-bucket-in-chain-pointer (8 bytes) | reserved (4 bytes) |
+ * | next-bucket-in-chain-pointer (8 bytes) | probed flags (2 bytes) | reserved (2 bytes) |
  * |
  * |hashCode 1 (4 bytes) | hashCode 2 (4 bytes) | hashCode 3 (4 bytes) |
  * | ... hashCode n-1 (4 bytes) | hashCode n (4 bytes)
@@ -82,6 +85,10 @@ import eu.stratosphere.pact.runtime.util.MathUtils;
  * |
  * </pre>
  * 
+ * The probed flags are only maintained if the table was opened to track build-side matches. Bit <i>i</i> is set
+ * once the <i>i</i>-th entry of the bucket was returned as a match for a probe-side record, so that the entries
+ * without any match can be enumerated after the probe side of a partition is consumed.
+ * 
  * @author Stephan Ewen (stephan.ewen@tu-berlin.de)
  * 
  * @param <BT> The type of records from the build side that are stored in the hash table.
@@ -111,6 +118,12 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	 */
 	private static final int MAX_NUM_PARTITIONS = Byte.MAX_VALUE;
 	
+	/**
+	 * The maximum number of memory segments that the table reclaims at once from the memory that other
+	 * consumers released to the owner, when it runs out of memory.
+	 */
+	private static final int MAX_NUM_SEGMENTS_PER_GROWTH = 16;
+	
 	/**
 	 * The default record width that is used when no width is given. The record width is
 	 * used to determine the ratio of the number of memory segments intended for partition
@@ -181,6 +194,12 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	 */
 	private static final int HEADER_FORWARD_OFFSET = 4;	
 	
+	/**
+	 * Offset of the field in the bucket header that holds the flags marking the entries that found a match
+	 * on the probe side.
+	 */
+	private static final int HEADER_PROBED_FLAGS_OFFSET = 12;
+	
 	/**
 	 * Constant for the forward pointer, indicating that the pointer is not set. 
 	 */
@@ -243,10 +262,20 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	 */
 	private final int segmentSize;
 	
+	/**
+	 * The memory manager from which the hash join reclaims memory released to its owner, or null.
+	 */
+	private MemoryManager memManager;
+	
+	/**
+	 * The owner for which the hash join reclaims memory.
+	 */
+	private AbstractInvokable memoryOwner;
+	
 	/**
 	 * The total number of memory segments available to the hash join.
 	 */
-	private final int totalNumBuffers;
+	private int totalNumBuffers;
 	
 	/**
 	 * The number of write-behind buffers used.
@@ -290,6 +319,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	
 	private LazyHashBucketIterator<BT, PT> lazyBucketIterator;
 	
+	/**
+	 * Iterator over the build-side records that found no match, if build-side matches are tracked.
+	 */
+	private UnmatchedBuildIterator<BT, PT> unmatchedBuildIterator;
+	
 	/**
 	 * Iterator over the elements from the probe side.
 	 */
@@ -332,6 +366,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	 */
 	private int currentRecursionDepth;
 	
+	/**
+	 * Flag indicating that the probe side of the current table is consumed.
+	 */
+	private boolean probeSideConsumed;
+	
 	/**
 	 * Flag indicating that the closing logic has been invoked.
 	 */
@@ -402,6 +441,21 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	}
 	
 	
+	/**
+	 * Lets the hash join grow into memory that other consumers of the given owner released through
+	 * {@link MemoryManager#releaseToOwner(java.util.Collection)}, such as a sorter that is done. The join
+	 * tries to reclaim such memory whenever it runs out of memory, before spilling a partition. The reclaimed
+	 * memory is part of the memory returned by {@link #getFreedMemory()}.
+	 * 
+	 * @param memManager The memory manager to reclaim the memory from.
+	 * @param owner The owner of the hash join's memory.
+	 */
+	public void setMemoryToReclaim(MemoryManager memManager, AbstractInvokable owner)
+	{
+		this.memManager = memManager;
+		this.memoryOwner = owner;
+	}
+	
 	// ------------------------------------------------------------------------
 	//                              Life-Cycle
 	// ------------------------------------------------------------------------
@@ -414,6 +468,25 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	 */
 	public void open(final MutableObjectIterator<BT> buildSide, final MutableObjectIterator<PT> probeSide)
 	throws IOException
+	{
+		open(buildSide, probeSide, false);
+	}
+	
+	/**
+	 * Opens the hash join. This method reads the build-side input and constructs the initial
+	 * hash table, gradually spilling partitions that do not fit into memory.
+	 * <p>
+	 * If build-side matches are tracked, {@link #nextRecord()} returns, after the probe side of every table
+	 * is consumed, the groups of build-side records that did not match any probe-side record. For those,
+	 * {@link #getCurrentProbeRecord()} returns <tt>null</tt> and {@link #getUnmatchedBuildSideIterator()}
+	 * iterates over the records of the group.
+	 * 
+	 * @param trackBuildSideMatches Flag indicating whether to remember which build-side records were matched.
+	 * @throws IOException Thrown, if an I/O problem occurs while spilling a partition.
+	 */
+	public void open(final MutableObjectIterator<BT> buildSide, final MutableObjectIterator<PT> probeSide,
+			boolean trackBuildSideMatches)
+	throws IOException
 	{
 		// sanity checks
 		if (!this.closed) {
@@ -434,9 +507,14 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 		// the first prober is the probe-side input
 		this.probeIterator = new ProbeIterator<PT>(probeSide, this.probeSideSerializer.createInstance());
 		
+		this.probeSideConsumed = false;
+		
 		// the bucket iterator can remain constant over the time
-		this.bucketIterator = new HashBucketIterator<BT, PT>(this.buildSideSerializer, this.recordComparator);
+		this.bucketIterator = new HashBucketIterator<BT, PT>(this.buildSideSerializer, this.recordComparator,
+			trackBuildSideMatches);
 		this.lazyBucketIterator = new LazyHashBucketIterator<BT, PT>(this.recordComparator);
+		this.unmatchedBuildIterator = trackBuildSideMatches ? 
+			new UnmatchedBuildIterator<BT, PT>(this.buildSideSerializer, this.buildSideComparator.duplicate()) : null;
 	}
 	
 	/**
@@ -449,7 +527,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 		final TypeComparator<PT> probeAccessors = this.probeSideComparator;
 		
 		PT next;
-		while ((next = probeIter.next()) != null)
+		while (!this.probeSideConsumed && (next = probeIter.next()) != null)
 		{
 			final int hash = hash(probeAccessors.hash(next), this.currentRecursionDepth);
 			final int posHashCode = hash % this.numBuckets;
@@ -474,6 +552,21 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 			}
 		}
 		
+		// -------------- probe side done, hand out the unmatched build side ---------------
+		
+		if (this.unmatchedBuildIterator != null) {
+			if (!this.probeSideConsumed) {
+				this.unmatchedBuildIterator.set(this.buckets, this.numBuckets, this.bucketsPerSegmentBits,
+					this.bucketsPerSegmentMask, this.partitionsBeingBuilt);
+			}
+			this.probeSideConsumed = true;
+			
+			if (this.unmatchedBuildIterator.nextGroup()) {
+				return true;
+			}
+		}
+		this.probeSideConsumed = true;
+		
 		// -------------- partition done ---------------
 		
 		// finalize and cleanup the partitions of the current table
@@ -512,6 +605,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 			ChannelReaderInputViewIterator<PT> probeReader = new ChannelReaderInputViewIterator<PT>(this.currentSpilledProbeSide, 
 				returnQueue, memory, this.availableMemory, this.probeSideSerializer, p.getProbeSideBlockCount());
 			this.probeIterator.set(probeReader);
+			this.probeSideConsumed = false;
 			
 			// unregister the pending partition
 			this.partitionsPending.remove(0);
@@ -579,11 +673,14 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	}
 	
 	/**
-	 * @return
+	 * Gets the probe-side record that the last successful call to {@link #nextRecord()} moved to.
+	 * 
+	 * @return The current probe-side record, or <tt>null</tt>, if the call moved to a group of unmatched
+	 *         build-side records.
 	 */
 	public PT getCurrentProbeRecord()
 	{
-		return this.probeIterator.getCurrent();
+		return this.probeSideConsumed ? null : this.probeIterator.getCurrent();
 	}
 	
 	/**
@@ -594,6 +691,17 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 		return this.bucketIterator;
 	}
 	
+	/**
+	 * Gets the iterator over the group of unmatched build-side records that the last successful call to
+	 * {@link #nextRecord()} moved to. Only valid, if the table was opened to track build-side matches.
+	 * 
+	 * @return The iterator over the current group of unmatched build-side records.
+	 */
+	public UnmatchedBuildIterator<BT, PT> getUnmatchedBuildSideIterator()
+	{
+		return this.unmatchedBuildIterator;
+	}
+	
 	/**
 	 * Closes the hash table. This effectively releases all internal structures and closes all
 	 * open files and removes them. The call to this method is valid both as a cleanup after the
@@ -612,6 +720,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 		// clear the iterators, so the next call to next() will notice
 		this.bucketIterator = null;
 		this.probeIterator = null;
+		this.unmatchedBuildIterator = null;
 		
 		// release the table structure
 		releaseTable();
@@ -952,6 +1061,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 			
 			// set the count to one
 			overflowSeg.putShort(overflowBucketOffset + HEADER_COUNT_OFFSET, (short) 1); 
+			overflowSeg.putShort(overflowBucketOffset + HEADER_PROBED_FLAGS_OFFSET, (short) 0);
 		}
 	}
 	
@@ -1028,6 +1138,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 				seg.put(bucketOffset + HEADER_STATUS_OFFSET, BUCKET_STATUS_IN_MEMORY);
 				seg.putShort(bucketOffset + HEADER_COUNT_OFFSET, (short) 0);
 				seg.putLong(bucketOffset + HEADER_FORWARD_OFFSET, BUCKET_FORWARD_POINTER_NOT_SET);
+				seg.putShort(bucketOffset + HEADER_PROBED_FLAGS_OFFSET, (short) 0);
 			}
 			
 			table[i] = seg;
@@ -1158,12 +1269,40 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 			
 			return toReturn;
 		}
+		else if (this.memManager != null) {
+			// try to grow into memory released by other consumers, otherwise the caller has to spill
+			return reclaimBuffer();
+		}
 		else {
 			// no memory available
 			return null;
 		}
 	}
 	
+	/**
+	 * Reclaims memory that other consumers released to the owner of the hash join.
+	 * 
+	 * @return The next buffer to be used by the hash-table, or null, if nothing could be reclaimed.
+	 */
+	private final MemorySegment reclaimBuffer()
+	{
+		final int numReclaimed;
+		try {
+			numReclaimed = this.memManager.allocatePages(this.memoryOwner, this.availableMemory, 0,
+				MAX_NUM_SEGMENTS_PER_GROWTH);
+		}
+		catch (MemoryAllocationException maex) {
+			// cannot happen without a minimum
+			return null;
+		}
+		
+		if (numReclaimed == 0) {
+			return null;
+		}
+		this.totalNumBuffers += numReclaimed;
+		return this.availableMemory.remove(this.availableMemory.size() - 1);
+	}
+	
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.pact.runtime.io.MemorySegmentSource#nextSegment()
 	 */
@@ -1290,12 +1429,14 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 	/**
 	 *
 	 */
-	public static class HashBucketIterator<BT, PT>
+	public static class HashBucketIterator<BT, PT> implements MutableObjectIterator<BT>
 	{
 		private final TypeSerializer<BT> accessor;
 		
 		private final TypePairComparator<PT, BT> comparator;
 		
+		private final boolean markMatches;
+		
 		private MemorySegment bucket;
 		
 		private MemorySegment[] overflowSegments;
@@ -1319,10 +1460,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 		private long lastPointer;
 		
 		
-		HashBucketIterator(TypeSerializer<BT> accessor, TypePairComparator<PT, BT> comparator)
+		HashBucketIterator(TypeSerializer<BT> accessor, TypePairComparator<PT, BT> comparator, boolean markMatches)
 		{
 			this.accessor = accessor;
 			this.comparator = comparator;
+			this.markMatches = markMatches;
 		}
 		
 		
@@ -1366,6 +1508,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 							this.accessor.deserialize(target, this.partition);
 							if (this.comparator.equalToReference(target)) {
 								this.lastPointer = pointer;
+								if (this.markMatches) {
+									final int flagsPos = this.bucketInSegmentOffset + HEADER_PROBED_FLAGS_OFFSET;
+									final int flags = this.bucket.getShort(flagsPos);
+									this.bucket.putShort(flagsPos, (short) (flags | (0x1 << (this.numInSegment - 1))));
+								}
 								return true;
 							}
 						}
@@ -1413,6 +1560,191 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource
 
 	} // end HashBucketIterator
 	
+	
+	// ======================================================================================================
+	
+	/**
+	 * Iterates over the build-side records of the current table that were not matched by any probe-side record.
+	 * The records are handed out in groups of equal keys: {@link #nextGroup()} moves to the next group, and
+	 * {@link #next(Object)} returns the records of the current group. Records of the same key always reside in
+	 * the same chain of buckets, so only one chain at a time needs to be examined.
+	 */
+	public static final class UnmatchedBuildIterator<BT, PT> implements MutableObjectIterator<BT>
+	{
+		private final TypeSerializer<BT> serializer;
+		
+		private final TypeComparator<BT> comparator;
+		
+		private final BT reference;
+		
+		private final BT skipped;
+		
+		private MemorySegment[] buckets;
+		
+		private List<HashPartition<BT, PT>> partitions;
+		
+		private HashPartition<BT, PT> partition;
+		
+		private int numBuckets;
+		
+		private int bucketsPerSegmentBits;
+		
+		private int bucketsPerSegmentMask;
+		
+		private int nextBucket;
+		
+		private int[] hashCodes = new int[NUM_ENTRIES_PER_BUCKET];
+		
+		private long[] pointers = new long[NUM_ENTRIES_PER_BUCKET];
+		
+		private int numEntries;
+		
+		private int groupStart;
+		
+		private int groupPos;
+		
+		private int groupHashCode;
+		
+		
+		UnmatchedBuildIterator(TypeSerializer<BT> serializer, TypeComparator<BT> comparator)
+		{
+			this.serializer = serializer;
+			this.comparator = comparator;
+			this.reference = serializer.createInstance();
+			this.skipped = serializer.createInstance();
+		}
+		
+		void set(MemorySegment[] buckets, int numBuckets, int bucketsPerSegmentBits, int bucketsPerSegmentMask,
+				List<HashPartition<BT, PT>> partitions)
+		{
+			this.buckets = buckets;
+			this.numBuckets = numBuckets;
+			this.bucketsPerSegmentBits = bucketsPerSegmentBits;
+			this.bucketsPerSegmentMask = bucketsPerSegmentMask;
+			this.partitions = partitions;
+			this.nextBucket = 0;
+			this.numEntries = 0;
+			this.groupStart = 0;
+			this.groupPos = 0;
+		}
+		
+		/**
+		 * Moves to the next group of unmatched build-side records. Records of the previous group that
+		 * were not consumed are skipped.
+		 * 
+		 * @return True, if there is another group, false otherwise.
+		 * @throws IOException Thrown, if a record could not be deserialized.
+		 */
+		boolean nextGroup() throws IOException
+		{
+			// skip what remains of the previous group
+			while (next(this.skipped));
+			
+			while (true) {
+				final long[] pointers = this.pointers;
+				while (this.groupStart < this.numEntries && pointers[this.groupStart] == -1) {
+					this.groupStart++;
+				}
+				
+				if (this.groupStart < this.numEntries) {
+					this.partition.setReadPosition(pointers[this.groupStart]);
+					this.serializer.deserialize(this.reference, this.partition);
+					this.comparator.setReference(this.reference);
+					this.groupHashCode = this.hashCodes[this.groupStart];
+					this.groupPos = this.groupStart;
+					return true;
+				}
+				
+				if (!collectNextBucketChain()) {
+					return false;
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see eu.stratosphere.pact.common.util.MutableObjectIterator#next(java.lang.Object)
+		 */
+		@Override
+		public boolean next(BT target) throws IOException
+		{
+			final long[] pointers = this.pointers;
+			while (this.groupPos < this.numEntries) {
+				final int pos = this.groupPos++;
+				if (pointers[pos] != -1 && this.hashCodes[pos] == this.groupHashCode) {
+					this.partition.setReadPosition(pointers[pos]);
+					this.serializer.deserialize(target, this.partition);
+					if (this.comparator.equalToReference(target)) {
+						pointers[pos] = -1;
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Collects the hash codes and pointers of the unmatched entries in the next chain of buckets that
+		 * belongs to an in-memory partition and has at least one unmatched entry.
+		 */
+		private boolean collectNextBucketChain()
+		{
+			while (this.nextBucket < this.numBuckets) {
+				final int bucketNum = this.nextBucket++;
+				MemorySegment bucket = this.buckets[bucketNum >> this.bucketsPerSegmentBits];
+				int bucketOffset = (bucketNum & this.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
+				
+				final HashPartition<BT, PT> p = this.partitions.get(bucket.get(bucketOffset + HEADER_PARTITION_OFFSET));
+				if (!p.isInMemory()) {
+					continue;
+				}
+				
+				this.partition = p;
+				this.numEntries = 0;
+				this.groupStart = 0;
+				this.groupPos = 0;
+				
+				while (true) {
+					final int count = bucket.getShort(bucketOffset + HEADER_COUNT_OFFSET);
+					final int probed = bucket.getShort(bucketOffset + HEADER_PROBED_FLAGS_OFFSET);
+					
+					for (int i = 0; i < count; i++) {
+						if ((probed & (0x1 << i)) == 0) {
+							addEntry(bucket.getInt(bucketOffset + BUCKET_HEADER_LENGTH + (i * HASH_CODE_LEN)),
+								bucket.getLong(bucketOffset + BUCKET_POINTER_START_OFFSET + (i * POINTER_LEN)));
+						}
+					}
+					
+					final long forwardPointer = bucket.getLong(bucketOffset + HEADER_FORWARD_OFFSET);
+					if (forwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
+						break;
+					}
+					bucket = p.overflowSegments[(int) (forwardPointer >>> 32)];
+					bucketOffset = (int) (forwardPointer & 0xffffffff);
+				}
+				
+				if (this.numEntries > 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private void addEntry(int hashCode, long pointer)
+		{
+			if (this.numEntries == this.pointers.length) {
+				final int[] newCodes = new int[this.numEntries * 2];
+				final long[] newPointers = new long[this.numEntries * 2];
+				System.arraycopy(this.hashCodes, 0, newCodes, 0, this.numEntries);
+				System.arraycopy(this.pointers, 0, newPointers, 0, this.numEntries);
+				this.hashCodes = newCodes;
+				this.pointers = newPointers;
+			}
+			this.hashCodes[this.numEntries] = hashCode;
+			this.pointers[this.numEntries] = pointer;
+			this.numEntries++;
+		}
+	} // end UnmatchedBuildIterator
+	
 
 	// ======================================================================================================
 	
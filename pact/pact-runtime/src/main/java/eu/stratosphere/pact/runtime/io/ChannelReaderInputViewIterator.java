@@ -81,6 +81,11 @@ public class ChannelReaderInputViewIterator<E> implements MutableObjectIterator<
 	@Override
 	public boolean next(E target) throws IOException
 	{
+		// the view is closed once the end has been reached. callers such as the sorter's reading
+		// thread may ask again after the first false, so this must not close the view a second time
+		if (this.inView.isClosed()) {
+			return false;
+		}
 		try {
 			this.accessors.deserialize(target, this.inView);
 			return true;
@@ -72,6 +72,17 @@ public class RandomAccessInputView extends AbstractPagedInputView implements See
 		seekInput(this.segments.get(bufferNum), offset, bufferNum < this.segments.size() - 1 ? this.segmentSize : this.limitInLastSegment);
 	}
 
+	/**
+	 * Gets the current read position, counted in bytes from the beginning of the first segment. The returned
+	 * value can be used with {@link #setReadPosition(long)} to return to this position.
+	 * 
+	 * @return The current read position.
+	 */
+	public long getReadPosition()
+	{
+		return (((long) this.currentSegmentIndex) << this.segmentSizeBits) + getCurrentPositionInSegment();
+	}
+
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView#nextSegment(eu.stratosphere.nephele.services.memorymanager.MemorySegment)
 	 */
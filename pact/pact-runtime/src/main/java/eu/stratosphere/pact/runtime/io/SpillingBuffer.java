@@ -23,6 +23,7 @@ import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
 import eu.stratosphere.nephele.services.iomanager.HeaderlessChannelReaderInputView;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.iomanager.MappedFileInputView;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
 import eu.stratosphere.nephele.services.memorymanager.DataInputView;
 import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
@@ -31,6 +32,15 @@ import eu.stratosphere.nephele.services.memorymanager.MemorySegmentSource;
 
 /**
  * An output view that buffers written data in memory pages and spills them when they are full.
+ * <p>
+ * If the buffer has spilled, the data is read back either through the buffer's memory pages, or, if the
+ * buffer was created to map spilled data, through a read-only memory mapping of the spill file (see
+ * {@link MappedFileInputView}). The latter avoids copying the data into the pages for every pass and lets
+ * repeated passes be served from the operating system's page cache.
+ * <p>
+ * Note that the regions of a memory mapping outlive {@link #close()}: they are only unmapped once they are garbage
+ * collected. Until then, they keep their share of the address space, and the disk space of the deleted spill file
+ * is not released by the operating system.
  *
  * @author Stephan Ewen
  */
@@ -46,8 +56,12 @@ public class SpillingBuffer extends AbstractPagedOutputView
 	
 	private HeaderlessChannelReaderInputView externalInView;
 	
+	private MappedFileInputView mappedInView;
+	
 	private final IOManager ioManager;
 	
+	private final boolean mapSpilledData;
+	
 	private int blockCount;
 	
 	private int numBytesInLastSegment;
@@ -56,12 +70,28 @@ public class SpillingBuffer extends AbstractPagedOutputView
 
 
 	public SpillingBuffer(IOManager ioManager, MemorySegmentSource memSource, int segmentSize)
+	{
+		this(ioManager, memSource, segmentSize, false);
+	}
+	
+	/**
+	 * Creates a new spilling buffer that takes its memory from the given source.
+	 * 
+	 * @param ioManager The I/O manager used to spill the data.
+	 * @param memSource The source of the memory pages.
+	 * @param segmentSize The size of the memory pages.
+	 * @param mapSpilledData Flag indicating whether spilled data is read back through a memory mapping
+	 *                       of the spill file, rather than through the memory pages. The mapping is not
+	 *                       released before it is garbage collected, see the class comment.
+	 */
+	public SpillingBuffer(IOManager ioManager, MemorySegmentSource memSource, int segmentSize, boolean mapSpilledData)
 	{
 		super(memSource.nextSegment(), segmentSize, 0);
 		
 		this.fullSegments = new ArrayList<MemorySegment>(16);
 		this.memorySource = memSource;
 		this.ioManager = ioManager;
+		this.mapSpilledData = mapSpilledData;
 	}
 	
 	/* (non-Javadoc)
@@ -132,6 +162,15 @@ public class SpillingBuffer extends AbstractPagedOutputView
 			// in memory
 			this.inMemInView.setReadPosition(0);
 			return this.inMemInView;
+		} else if (this.mapSpilledData) {
+			// read the spill file through a mapping. it is created once and rewound for subsequent passes
+			if (this.mappedInView == null) {
+				final long numBytes = (this.blockCount - 1) * ((long) this.segmentSize) + this.numBytesInLastSegment;
+				this.mappedInView = new MappedFileInputView(this.writer.getChannelID(), numBytes);
+			} else {
+				this.mappedInView.setReadPosition(0);
+			}
+			return this.mappedInView;
 		} else {
 			// recollect memory from a previous view
 			if (this.externalInView != null) {
@@ -145,6 +184,56 @@ public class SpillingBuffer extends AbstractPagedOutputView
 	}
 	
 	/**
+	 * Takes the memory pages that are not needed to read back the spilled data out of this buffer. The buffer
+	 * keeps the given number of pages for its reads, or none, if the spilled data is read through a memory
+	 * mapping. This method may only be called after the buffer has spilled and has been flipped. The view
+	 * returned by the previous flip is closed, so the buffer has to be flipped again before it is read.
+	 * 
+	 * @param numSegmentsToKeep The number of pages to keep for reading the spilled data through the pages.
+	 * @return The memory pages that are not needed by this buffer any more.
+	 * @throws IOException Thrown, if the view of the previous flip could not be closed.
+	 */
+	public List<MemorySegment> releaseExcessMemory(int numSegmentsToKeep) throws IOException
+	{
+		if (this.writer == null || getCurrentSegment() != null) {
+			throw new IllegalStateException("Memory can only be released after the buffer has spilled and was flipped.");
+		}
+		if (numSegmentsToKeep < 1) {
+			throw new IllegalArgumentException("At least one page must be kept to read the spilled data.");
+		}
+		
+		// collect the memory from the reader of the previous view
+		if (this.externalInView != null) {
+			if (!this.externalInView.isClosed()) {
+				this.externalInView.close();
+			}
+			this.externalInView = null;
+		}
+		
+		final int numToKeep = this.mapSpilledData ? 0 : numSegmentsToKeep;
+		final ArrayList<MemorySegment> excess = new ArrayList<MemorySegment>(
+			Math.max(this.fullSegments.size() - numToKeep, 0));
+		while (this.fullSegments.size() > numToKeep) {
+			excess.add(this.fullSegments.remove(this.fullSegments.size() - 1));
+		}
+		return excess;
+	}
+	
+	/**
+	 * Checks whether all data written to this buffer is held in memory, i.e. the buffer has not spilled.
+	 * 
+	 * @return True, if the buffer has not spilled to disk, false otherwise.
+	 */
+	public boolean isInMemory()
+	{
+		return this.writer == null;
+	}
+	
+	/**
+	 * Closes the buffer and deletes its spill file. If the spilled data was read through a memory mapping, the
+	 * mapped regions are not accessed any more, but they stay mapped (and keep the deleted file's disk space)
+	 * until they are garbage collected.
+	 * 
 	 * @return A list with all memory segments that have been taken from the memory segment source.
 	 */
 	public List<MemorySegment> close() throws IOException
@@ -160,6 +249,12 @@ public class SpillingBuffer extends AbstractPagedOutputView
 		moveAll(this.fullSegments, segments);
 		this.fullSegments.clear();
 		
+		// close the mapped view before the spill file is deleted
+		if (this.mappedInView != null) {
+			this.mappedInView.close();
+			this.mappedInView = null;
+		}
+		
 		// clean up the writer
 		if (this.writer != null) {
 			// closing before the first flip, collect the memory in the writer
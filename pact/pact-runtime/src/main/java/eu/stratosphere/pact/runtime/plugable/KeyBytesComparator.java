@@ -0,0 +1,202 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.plugable;
+
+import eu.stratosphere.pact.common.type.Key;
+import eu.stratosphere.pact.common.type.base.PactDouble;
+import eu.stratosphere.pact.common.type.base.PactInteger;
+import eu.stratosphere.pact.common.type.base.PactLong;
+import eu.stratosphere.pact.common.type.base.PactString;
+
+/**
+ * Compares two keys directly on their serialized form, as written by the keys' <code>write</code> methods. The
+ * comparison yields the same order as the keys' <code>compareTo</code> methods, but neither requires the keys to be
+ * deserialized nor any key objects to be materialized.
+ * <p>
+ * Specialized comparators exist for {@link PactInteger}, {@link PactLong}, {@link PactDouble}, and {@link PactString}.
+ */
+abstract class KeyBytesComparator
+{
+	/**
+	 * Compares two serialized keys.
+	 * 
+	 * @param bytes1 The array holding the first key.
+	 * @param offset1 The offset of the first key in its array.
+	 * @param len1 The number of bytes of the first key.
+	 * @param bytes2 The array holding the second key.
+	 * @param offset2 The offset of the second key in its array.
+	 * @param len2 The number of bytes of the second key.
+	 * @return A negative integer, zero, or a positive integer as the first key is less than, equal to,
+	 *         or greater than the second key.
+	 */
+	abstract int compare(byte[] bytes1, int offset1, int len1, byte[] bytes2, int offset2, int len2);
+	
+	/**
+	 * Gets a comparator working on the serialized form of the given key type.
+	 * 
+	 * @param keyType The key type.
+	 * @return The comparator for the serialized key type, or null, if the type is not supported. Subclasses of the
+	 *         supported types are not supported, because they may override the comparison.
+	 */
+	static KeyBytesComparator forKeyType(Class<? extends Key> keyType)
+	{
+		if (keyType == PactInteger.class) {
+			return new IntKeyBytesComparator();
+		} else if (keyType == PactLong.class) {
+			return new LongKeyBytesComparator();
+		} else if (keyType == PactDouble.class) {
+			return new DoubleKeyBytesComparator();
+		} else if (keyType == PactString.class) {
+			return new StringKeyBytesComparator();
+		} else {
+			return null;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	static final int readInt(byte[] bytes, int offset)
+	{
+		return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16) |
+				((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+	}
+	
+	static final long readLong(byte[] bytes, int offset)
+	{
+		return (((long) readInt(bytes, offset)) << 32) | (readInt(bytes, offset + 4) & 0xffffffffL);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Comparator for serialized {@link PactInteger}s, which are four bytes in big endian order.
+	 */
+	static final class IntKeyBytesComparator extends KeyBytesComparator
+	{
+		@Override
+		int compare(byte[] bytes1, int offset1, int len1, byte[] bytes2, int offset2, int len2)
+		{
+			final int v1 = readInt(bytes1, offset1);
+			final int v2 = readInt(bytes2, offset2);
+			return v1 < v2 ? -1 : v1 > v2 ? 1 : 0;
+		}
+	}
+	
+	/**
+	 * Comparator for serialized {@link PactLong}s, which are eight bytes in big endian order.
+	 */
+	static final class LongKeyBytesComparator extends KeyBytesComparator
+	{
+		@Override
+		int compare(byte[] bytes1, int offset1, int len1, byte[] bytes2, int offset2, int len2)
+		{
+			final long v1 = readLong(bytes1, offset1);
+			final long v2 = readLong(bytes2, offset2);
+			return v1 < v2 ? -1 : v1 > v2 ? 1 : 0;
+		}
+	}
+	
+	/**
+	 * Comparator for serialized {@link PactDouble}s, which are the eight bytes of the IEEE 754 bit pattern. The
+	 * values are compared as doubles, not as bit patterns, to retain the semantics of {@link PactDouble#compareTo(Key)}
+	 * for negative numbers, signed zeros, and NaN.
+	 */
+	static final class DoubleKeyBytesComparator extends KeyBytesComparator
+	{
+		@Override
+		int compare(byte[] bytes1, int offset1, int len1, byte[] bytes2, int offset2, int len2)
+		{
+			final double v1 = Double.longBitsToDouble(readLong(bytes1, offset1));
+			final double v2 = Double.longBitsToDouble(readLong(bytes2, offset2));
+			return v1 < v2 ? -1 : v1 > v2 ? 1 : 0;
+		}
+	}
+	
+	/**
+	 * Comparator for serialized {@link PactString}s, which consist of the variable length encoded number of
+	 * characters, followed by the variable length encoded characters. The characters are decoded one at a time
+	 * and compared lexicographically, stopping at the first difference.
+	 */
+	static final class StringKeyBytesComparator extends KeyBytesComparator
+	{
+		private static final int HIGH_BIT = 0x1 << 7;
+		
+		@Override
+		int compare(byte[] bytes1, int offset1, int len1, byte[] bytes2, int offset2, int len2)
+		{
+			int pos1 = offset1;
+			int pos2 = offset2;
+			
+			// decode the lengths
+			int strLen1 = bytes1[pos1++] & 0xff;
+			if (strLen1 >= HIGH_BIT) {
+				int shift = 7;
+				int curr;
+				strLen1 = strLen1 & 0x7f;
+				while ((curr = bytes1[pos1++] & 0xff) >= HIGH_BIT) {
+					strLen1 |= (curr & 0x7f) << shift;
+					shift += 7;
+				}
+				strLen1 |= curr << shift;
+			}
+			
+			int strLen2 = bytes2[pos2++] & 0xff;
+			if (strLen2 >= HIGH_BIT) {
+				int shift = 7;
+				int curr;
+				strLen2 = strLen2 & 0x7f;
+				while ((curr = bytes2[pos2++] & 0xff) >= HIGH_BIT) {
+					strLen2 |= (curr & 0x7f) << shift;
+					shift += 7;
+				}
+				strLen2 |= curr << shift;
+			}
+			
+			// compare the characters
+			final int n = Math.min(strLen1, strLen2);
+			for (int k = 0; k < n; k++) {
+				int c1 = bytes1[pos1++] & 0xff;
+				if (c1 >= HIGH_BIT) {
+					int shift = 7;
+					int curr;
+					c1 = c1 & 0x7f;
+					while ((curr = bytes1[pos1++] & 0xff) >= HIGH_BIT) {
+						c1 |= (curr & 0x7f) << shift;
+						shift += 7;
+					}
+					c1 |= curr << shift;
+				}
+				
+				int c2 = bytes2[pos2++] & 0xff;
+				if (c2 >= HIGH_BIT) {
+					int shift = 7;
+					int curr;
+					c2 = c2 & 0x7f;
+					while ((curr = bytes2[pos2++] & 0xff) >= HIGH_BIT) {
+						c2 |= (curr & 0x7f) << shift;
+						shift += 7;
+					}
+					c2 |= curr << shift;
+				}
+				
+				if (c1 != c2) {
+					return c1 - c2;
+				}
+			}
+			return strLen1 - strLen2;
+		}
+	}
+}
@@ -39,6 +39,8 @@ public final class PactRecordComparator implements TypeComparator<PactRecord>
 	
 	private final Key[] keyHolders, transientKeyHolders;
 	
+	private final KeyBytesComparator[] keyBytesComparators;
+	
 	private final PactRecord temp1, temp2;
 	
 	private final boolean[] ascending;
@@ -86,6 +88,12 @@ public final class PactRecordComparator implements TypeComparator<PactRecord>
 			this.transientKeyHolders[i] = InstantiationUtil.instantiate(keyTypes[i], Key.class);
 		}
 		
+		// set up the comparators working on the serialized keys, where available
+		this.keyBytesComparators = new KeyBytesComparator[keyTypes.length];
+		for (int i = 0; i < keyTypes.length; i++) {
+			this.keyBytesComparators[i] = KeyBytesComparator.forKeyType(keyTypes[i]);
+		}
+		
 		// set up auxiliary fields for normalized key support
 		this.normalizedKeyLengths = new int[keyFields.length];
 		int nKeys = 0;
@@ -157,6 +165,8 @@ public final class PactRecordComparator implements TypeComparator<PactRecord>
 			throw new RuntimeException("Could not instantiate key classes when duplicating PactRecordComparator.", ex);
 		}
 		
+		// the comparators for serialized keys are stateless and can be shared
+		this.keyBytesComparators = toCopy.keyBytesComparators;
 		this.normalizedKeyLengths = toCopy.normalizedKeyLengths;
 		this.numLeadingNormalizableKeys = toCopy.numLeadingNormalizableKeys;
 		this.normalizableKeyPrefixLen = toCopy.normalizableKeyPrefixLen;
@@ -241,17 +251,36 @@ public final class PactRecordComparator implements TypeComparator<PactRecord>
 	@Override
 	public int compare(DataInputView source1, DataInputView source2) throws IOException
 	{
+		// reading the records only copies their bytes and decodes the header with the field offsets,
+		// the fields themselves are not deserialized
 		this.temp1.read(source1);
 		this.temp2.read(source2);
 		
 		for (int i = 0; i < this.keyFields.length; i++) {
-			final Key k1 = this.temp1.getField(this.keyFields[i], this.keyHolders[i]);
-			final Key k2 = this.temp2.getField(this.keyFields[i], this.transientKeyHolders[i]);
+			final int comp;
+			final KeyBytesComparator bytesComparator = this.keyBytesComparators[i];
 			
-			if (k1 == null || k2 == null)
-				throw new NullKeyFieldException(this.keyFields[i]);
+			if (bytesComparator != null) {
+				// compare the keys in place on their serialized form
+				final int offset1 = this.temp1.getBinaryFieldOffset(this.keyFields[i]);
+				final int offset2 = this.temp2.getBinaryFieldOffset(this.keyFields[i]);
+				
+				if (offset1 < 0 || offset2 < 0)
+					throw new NullKeyFieldException(this.keyFields[i]);
+				
+				comp = bytesComparator.compare(this.temp1.getBinaryData(), offset1,
+					this.temp1.getBinaryFieldLength(this.keyFields[i]), this.temp2.getBinaryData(), offset2,
+					this.temp2.getBinaryFieldLength(this.keyFields[i]));
+			} else {
+				final Key k1 = this.temp1.getField(this.keyFields[i], this.keyHolders[i]);
+				final Key k2 = this.temp2.getField(this.keyFields[i], this.transientKeyHolders[i]);
+				
+				if (k1 == null || k2 == null)
+					throw new NullKeyFieldException(this.keyFields[i]);
+				
+				comp = k1.compareTo(k2);
+			}
 			
-			final int comp = k1.compareTo(k2);
 			if (comp != 0)
 				return this.ascending[i] ? comp : -comp;
 		}
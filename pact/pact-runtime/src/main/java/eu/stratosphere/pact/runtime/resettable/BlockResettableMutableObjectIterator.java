@@ -53,6 +53,10 @@ implements ResettableMutableObjectIterator<T>
 	
 	private final T leftOverRecord;
 	
+	private long markedReadPosition;
+	
+	private int markedNumRecordsReturned;
+	
 	// ------------------------------------------------------------------------
 	
 	public BlockResettableMutableObjectIterator(MemoryManager memoryManager,
@@ -116,6 +120,40 @@ implements ResettableMutableObjectIterator<T>
 		super.reset();
 	}
 	
+	/**
+	 * Marks the current position in the block, such that the iterator can later return to it via
+	 * {@link #resetToMark()}. This method may only be called in the read phase, i.e. after the block
+	 * has been reset at least once.
+	 */
+	public void mark()
+	{
+		this.markedReadPosition = this.readView.getReadPosition();
+		this.markedNumRecordsReturned = this.numRecordsReturned;
+	}
+	
+	/**
+	 * Returns to the position that was last marked via {@link #mark()}.
+	 */
+	public void resetToMark()
+	{
+		if (this.closed) {
+			throw new IllegalStateException("Iterator was closed.");
+		}
+		
+		this.readView.setReadPosition(this.markedReadPosition);
+		this.numRecordsReturned = this.markedNumRecordsReturned;
+	}
+	
+	/**
+	 * Gets the number of serialized bytes that have been read since the position was last marked.
+	 * 
+	 * @return The number of bytes read since the last mark.
+	 */
+	public long getNumBytesReadSinceMark()
+	{
+		return this.readView.getReadPosition() - this.markedReadPosition;
+	}
+	
 	/* (non-Javadoc)
 	 * @see eu.stratosphere.pact.runtime.task.util.MemoryBlockIterator#nextBlock()
 	 */
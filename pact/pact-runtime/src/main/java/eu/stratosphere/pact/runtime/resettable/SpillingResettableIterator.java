@@ -78,18 +78,33 @@ public class SpillingResettableIterator<T> implements ResettableIterator<T>
 			long availableMemory, AbstractInvokable parentTask)
 	throws MemoryAllocationException
 	{
-		this(input, serializer, memoryManager, ioManager, memoryManager.allocatePages(parentTask, availableMemory), true);
+		this(input, serializer, memoryManager, ioManager, availableMemory, parentTask, false);
+	}
+	
+	/**
+	 * Creates a new iterator that allocates the given amount of memory for buffering its input.
+	 * 
+	 * @param mapSpilledData Flag indicating whether the iterator reads spilled data back through a memory
+	 *                       mapping of the spill file (see {@link SpillingBuffer}).
+	 */
+	public SpillingResettableIterator(Iterator<T> input, TypeSerializer<T> serializer,
+			MemoryManager memoryManager, IOManager ioManager,
+			long availableMemory, AbstractInvokable parentTask, boolean mapSpilledData)
+	throws MemoryAllocationException
+	{
+		this(input, serializer, memoryManager, ioManager, memoryManager.allocatePages(parentTask, availableMemory),
+			true, mapSpilledData);
 	}
 	
 	public SpillingResettableIterator(Iterator<T> input, TypeSerializer<T> serializer,
 			MemoryManager memoryManager, IOManager ioManager, List<MemorySegment> memory)
 	{
-		this(input, serializer, memoryManager, ioManager, memory, false);
+		this(input, serializer, memoryManager, ioManager, memory, false, false);
 	}
 	
 	private SpillingResettableIterator(Iterator<T> input, TypeSerializer<T> serializer,
 			MemoryManager memoryManager, IOManager ioManager,
-			List<MemorySegment> memory, boolean releaseMemOnClose)
+			List<MemorySegment> memory, boolean releaseMemOnClose, boolean mapSpilledData)
 	{
 		this.memoryManager = memoryManager;
 		this.input = input;
@@ -101,7 +116,8 @@ public class SpillingResettableIterator<T> implements ResettableIterator<T>
 		if (LOG.isDebugEnabled())
 			LOG.debug("Creating spilling resettable iterator with " + memory.size() + " pages of memory.");
 		
-		this.buffer = new SpillingBuffer(ioManager, new ListMemorySegmentSource(memory), memoryManager.getPageSize());
+		this.buffer = new SpillingBuffer(ioManager, new ListMemorySegmentSource(memory), memoryManager.getPageSize(),
+			mapSpilledData);
 	}
 
 	
@@ -74,19 +74,34 @@ public class SpillingResettableMutableObjectIterator<T> implements ResettableMut
 			long availableMemory, AbstractInvokable parentTask)
 	throws MemoryAllocationException
 	{
-		this(input, serializer, memoryManager, ioManager, memoryManager.allocatePages(parentTask, availableMemory), true);
+		this(input, serializer, memoryManager, ioManager, availableMemory, parentTask, false);
+	}
+	
+	/**
+	 * Creates a new iterator that allocates the given amount of memory for buffering its input.
+	 * 
+	 * @param mapSpilledData Flag indicating whether the iterator reads spilled data back through a memory
+	 *                       mapping of the spill file (see {@link SpillingBuffer}).
+	 */
+	public SpillingResettableMutableObjectIterator(MutableObjectIterator<T> input, TypeSerializer<T> serializer,
+			MemoryManager memoryManager, IOManager ioManager,
+			long availableMemory, AbstractInvokable parentTask, boolean mapSpilledData)
+	throws MemoryAllocationException
+	{
+		this(input, serializer, memoryManager, ioManager, memoryManager.allocatePages(parentTask, availableMemory),
+			true, mapSpilledData);
 	}
 	
 	public SpillingResettableMutableObjectIterator(MutableObjectIterator<T> input, TypeSerializer<T> serializer,
 			MemoryManager memoryManager, IOManager ioManager,
 			List<MemorySegment> memory)
 	{
-		this(input, serializer, memoryManager, ioManager, memory, false);
+		this(input, serializer, memoryManager, ioManager, memory, false, false);
 	}
 	
 	private SpillingResettableMutableObjectIterator(MutableObjectIterator<T> input, TypeSerializer<T> serializer,
 			MemoryManager memoryManager, IOManager ioManager,
-			List<MemorySegment> memory, boolean releaseMemOnClose)
+			List<MemorySegment> memory, boolean releaseMemOnClose, boolean mapSpilledData)
 	{
 		this.memoryManager = memoryManager;
 		this.input = input;
@@ -97,7 +112,8 @@ public class SpillingResettableMutableObjectIterator<T> implements ResettableMut
 		if (LOG.isDebugEnabled())
 			LOG.debug("Creating spilling resettable iterator with " + memory.size() + " pages of memory.");
 		
-		this.buffer = new SpillingBuffer(ioManager, new ListMemorySegmentSource(memory), memoryManager.getPageSize());
+		this.buffer = new SpillingBuffer(ioManager, new ListMemorySegmentSource(memory), memoryManager.getPageSize(),
+			mapSpilledData);
 	}
 
 	public void open() throws IOException
@@ -132,6 +148,43 @@ public class SpillingResettableMutableObjectIterator<T> implements ResettableMut
 		}
 	}
 
+	/**
+	 * Checks whether the records consumed so far are held in memory. If that is the case, all
+	 * passes after the first one re-read the records from memory rather than from disk.
+	 * 
+	 * @return True, if the records are held in memory, false if they were spilled to disk.
+	 */
+	public boolean isInMemory()
+	{
+		return this.buffer.isInMemory();
+	}
+	
+	/**
+	 * Releases the memory that is not needed to re-read spilled records to the memory manager. The iterator
+	 * keeps the given number of pages for its reads, or none, if the spilled records are read through a
+	 * memory mapping. This method may only be called on an iterator that allocated its own memory, after the
+	 * records have been spilled and the iterator has been reset. It resets the iterator again.
+	 * 
+	 * @param numPagesToKeep The number of pages to keep for re-reading the spilled records.
+	 * @return The number of pages that were released.
+	 * @throws IOException Thrown, if the iterator could not be reset.
+	 */
+	public int releaseExcessMemory(int numPagesToKeep) throws IOException
+	{
+		if (!this.releaseMemoryOnClose) {
+			throw new IllegalStateException("The memory of the iterator was provided by the caller.");
+		}
+		
+		final List<MemorySegment> excess = this.buffer.releaseExcessMemory(numPagesToKeep);
+		this.memoryManager.release(excess);
+		reset();
+		
+		if (LOG.isDebugEnabled())
+			LOG.debug("Spilling Resettable Iterator released " + excess.size() + " pages of memory.");
+		
+		return excess.size();
+	}
+
 	@Override
 	public boolean next(T target) throws IOException
 	{
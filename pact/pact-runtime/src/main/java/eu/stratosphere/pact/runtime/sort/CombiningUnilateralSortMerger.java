@@ -246,10 +246,12 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E>
 					iterators.add(cached.buffer.getIterator());
 				}
 				
-				// release the remaining sort-buffers
+				// release the remaining sort-buffers and the write buffers, which are not needed
 				if (LOG.isDebugEnabled())
 					LOG.debug("Releasing unused sort-buffer memory.");
 				disposeSortBuffers(true);
+				this.memManager.releaseToOwner(this.writeMemory);
+				this.writeMemory.clear();
 				
 				// set lazy iterator
 				MutableObjectIterator<E> resIter = iterators.isEmpty() ? EmptyMutableObjectIterator.<E>get() :
@@ -383,7 +385,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E>
 			}
 			
 			// from here on, we won't write again
-			this.memManager.release(this.writeMemory);
+			this.memManager.releaseToOwner(this.writeMemory);
 			this.writeMemory.clear();
 			
 			// check if we have spilled some data at all
@@ -16,7 +16,6 @@
 package eu.stratosphere.pact.runtime.sort;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.List;
 
 import eu.stratosphere.pact.common.generic.types.TypeComparator;
@@ -26,47 +25,82 @@ import eu.stratosphere.pact.common.util.MutableObjectIterator;
 /**
  * An iterator that returns a sorted merge of the sequences of elements from a
  * set of iterators, assuming those sequences are ordered themselves.
- * The iterators to be merged are kept internally as a heap, making each access
- * to the next smallest element logarithmic in complexity, with respect to the
+ * The iterators to be merged are kept internally as a tournament tree of losers, making each access
+ * to the next smallest element take exactly one comparison per tree level, with respect to the
  * number of streams to be merged.
- * The order among the elements is established using the methods from the
- * {@link TypeSerializer} class, specifically {@link TypeSerializer#setReference(Object)}
- * and {@link TypeSerializer#compareToReference(TypeSerializer)}.
+ * <p>
+ * If the comparator supports normalized keys, the iterator caches a prefix of up to eight bytes of the
+ * normalized key of every stream's head element. Most comparisons are decided on that prefix alone and only
+ * ties on a prefix that does not fully determine the order fall back to the methods
+ * {@link TypeComparator#setReference(Object)} and {@link TypeComparator#compareToReference(TypeComparator)}.
  * 
- * @see TypeSerializer
- * @see TypeSerializer#setReference(Object)
- * @see TypeSerializer#compareToReference(TypeSerializer)
+ * @see TypeComparator
+ * @see TypeComparator#setReference(Object)
+ * @see TypeComparator#compareToReference(TypeComparator)
  * 
  * @author Erik Nijkamp
  * @author Stephan Ewen
  */
 public class MergeIterator<E> implements MutableObjectIterator<E>
 {
-	private final PartialOrderPriorityQueue<HeadStream<E>> heap;	// heap over the head elements of the stream
+	private static final int MAX_CACHED_KEY_BYTES = 8;
+	
+	private final HeadStream<E>[] streams;		// the streams, addressed by their leaf index
+	
+	private final int[] tree;					// the loser tree; tree[0] holds the index of the overall winner
 	
 	private final TypeSerializer<E> serializer;
 	
+	private final int numKeyBytes;				// the number of normalized key bytes cached per head, zero if none
+	
+	private final boolean keyPrefixDetermines;	// flag whether equal cached prefixes imply equal keys
+	
+	private final boolean invertKeys;			// flag whether the normalized key order is inverted
+	
 	/**
-	 * @param iterators
-	 * @param accessors The accessors used to establish an order among the elements.
-	 *                  The accessors will not be used directly, but a duplicate will be used.
-	 * @throws IOException
+	 * @param iterators The sorted iterators whose elements are to be merged.
+	 * @param serializer The serializer used to create head elements and copy them to the target.
+	 * @param comparator The comparator used to establish an order among the elements.
+	 *                   The comparator will not be used directly, but a duplicate per stream will be used.
+	 * @throws IOException Thrown, if the first element of one of the iterators could not be read.
 	 */
+	@SuppressWarnings("unchecked")
 	public MergeIterator(List<MutableObjectIterator<E>> iterators,
 			TypeSerializer<E> serializer, TypeComparator<E> comparator)
 	throws IOException
 	{
-		this.heap = new PartialOrderPriorityQueue<HeadStream<E>>(new HeadStreamComparator<E>(), iterators.size());
 		this.serializer = serializer;
 		
-		for (MutableObjectIterator<E> iterator : iterators) {
-			this.heap.add(new HeadStream<E>(iterator, serializer, comparator.duplicate()));
+		if (comparator.supportsNormalizedKey()) {
+			this.numKeyBytes = Math.min(comparator.getNormalizeKeyLen(), MAX_CACHED_KEY_BYTES);
+			this.keyPrefixDetermines = !comparator.isNormalizedKeyPrefixOnly(this.numKeyBytes);
+			this.invertKeys = comparator.invertNormalizedKey();
+		} else {
+			this.numKeyBytes = 0;
+			this.keyPrefixDetermines = false;
+			this.invertKeys = false;
+		}
+		
+		final int num = iterators.size();
+		this.streams = new HeadStream[num];
+		for (int i = 0; i < num; i++) {
+			this.streams[i] = new HeadStream<E>(iterators.get(i), serializer, comparator.duplicate(), this.numKeyBytes);
+		}
+		
+		// build the tree: all inner nodes start with a virtual minimal element that is pushed
+		// out of the tree while the leaves are played in
+		this.tree = new int[Math.max(num, 1)];
+		for (int i = 0; i < this.tree.length; i++) {
+			this.tree[i] = -1;
+		}
+		for (int i = num - 1; i >= 0; i--) {
+			replay(i);
 		}
 	}
 
 	/**
 	 * Gets the next smallest element, with respect to the definition of order implied by
-	 * the {@link TypeSerializer} provided to this iterator.
+	 * the {@link TypeComparator} provided to this iterator.
 	 * 
 	 * @param target The object into which the result is put. The contents of the target object
 	 *               is only valid after this method, if the method returned true. Otherwise
@@ -78,22 +112,79 @@ public class MergeIterator<E> implements MutableObjectIterator<E>
 	@Override
 	public boolean next(E target) throws IOException
 	{
-		if (this.heap.size() > 0) {
-			// get the smallest element
-			final HeadStream<E> top = this.heap.peek();
-			this.serializer.copyTo(top.getHead(), target);
-			
-			// read an element
-			if (!top.nextHead()) {
-				this.heap.poll();
-			} else {
-				this.heap.adjustTop();
+		final int winner = this.tree[0];
+		if (winner < 0) {
+			return false;
+		}
+		
+		final HeadStream<E> top = this.streams[winner];
+		if (top.exhausted) {
+			// the winner is exhausted only if all streams are
+			return false;
+		}
+		
+		this.serializer.copyTo(top.head, target);
+		top.nextHead();
+		replay(winner);
+		return true;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Plays the matches along the path from the given leaf to the root, leaving the losers in the inner
+	 * nodes and the overall winner in {@code tree[0]}.
+	 * 
+	 * @param leaf The index of the stream whose head changed.
+	 */
+	private final void replay(int leaf)
+	{
+		final int[] tree = this.tree;
+		int winner = leaf;
+		for (int node = (leaf + this.streams.length) >>> 1; node > 0; node >>>= 1) {
+			final int opponent = tree[node];
+			if (beats(opponent, winner)) {
+				tree[node] = winner;
+				winner = opponent;
 			}
+		}
+		tree[0] = winner;
+	}
+	
+	/**
+	 * Checks whether the head of the first stream is strictly smaller than that of the second.
+	 * The index -1 denotes the virtual minimal element used while building the tree.
+	 */
+	private final boolean beats(int first, int second)
+	{
+		if (first < 0) {
 			return true;
 		}
-		else {
+		if (second < 0) {
+			return false;
+		}
+		
+		final HeadStream<E> s1 = this.streams[first];
+		final HeadStream<E> s2 = this.streams[second];
+		if (s1.exhausted) {
 			return false;
 		}
+		if (s2.exhausted) {
+			return true;
+		}
+		
+		if (this.numKeyBytes > 0) {
+			final long k1 = s1.keyPrefix;
+			final long k2 = s2.keyPrefix;
+			if (k1 != k2) {
+				// unsigned comparison of the big-endian packed bytes
+				return ((k1 + Long.MIN_VALUE) < (k2 + Long.MIN_VALUE)) != this.invertKeys;
+			}
+			if (this.keyPrefixDetermines) {
+				return false;
+			}
+		}
+		return s2.comparator.compareToReference(s1.comparator) < 0;
 	}
 
 	// ============================================================================================
@@ -107,42 +198,43 @@ public class MergeIterator<E> implements MutableObjectIterator<E>
 		private final TypeComparator<E> comparator;
 		
 		private final E head;
+		
+		private final byte[] keyBytes;
+		
+		private long keyPrefix;
+		
+		private boolean exhausted;
 
-		public HeadStream(MutableObjectIterator<E> iterator, TypeSerializer<E> serializer, TypeComparator<E> comparator)
+		public HeadStream(MutableObjectIterator<E> iterator, TypeSerializer<E> serializer,
+				TypeComparator<E> comparator, int numKeyBytes)
 		throws IOException
 		{
 			this.iterator = iterator;
 			this.comparator = comparator;
 			this.head = serializer.createInstance();
+			this.keyBytes = numKeyBytes > 0 ? new byte[numKeyBytes] : null;
 			
-			if (!nextHead())
-				throw new IllegalStateException();
+			nextHead();
 		}
 
-		public E getHead() {
-			return this.head;
-		}
-
-		public boolean nextHead() throws IOException
+		public void nextHead() throws IOException
 		{
 			if (this.iterator.next(this.head)) {
 				this.comparator.setReference(this.head);
-				return true;
+				
+				final byte[] bytes = this.keyBytes;
+				if (bytes != null) {
+					this.comparator.putNormalizedKey(this.head, bytes, 0, bytes.length);
+					long prefix = 0;
+					for (int i = 0; i < bytes.length; i++) {
+						prefix = (prefix << 8) | (bytes[i] & 0xff);
+					}
+					this.keyPrefix = prefix << ((MAX_CACHED_KEY_BYTES - bytes.length) << 3);
+				}
 			}
 			else {
-				return false;
+				this.exhausted = true;
 			}
 		}
 	}
-
-	// --------------------------------------------------------------------------------------------
-	
-	private static final class HeadStreamComparator<E> implements Comparator<HeadStream<E>>
-	{		
-		@Override
-		public int compare(HeadStream<E> o1, HeadStream<E> o2)
-		{
-			return o2.comparator.compareToReference(o1.comparator);
-		}
-	}
 }
@@ -0,0 +1,447 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
+import eu.stratosphere.nephele.services.iomanager.ChannelWriterOutputView;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.pact.common.generic.GenericMatcher;
+import eu.stratosphere.pact.common.generic.types.TypeComparator;
+import eu.stratosphere.pact.common.generic.types.TypePairComparator;
+import eu.stratosphere.pact.common.generic.types.TypeSerializer;
+import eu.stratosphere.pact.common.stubs.Collector;
+import eu.stratosphere.pact.common.util.MutableObjectIterator;
+import eu.stratosphere.pact.runtime.hash.MutableHashTable;
+import eu.stratosphere.pact.runtime.io.ChannelReaderInputViewIterator;
+import eu.stratosphere.pact.runtime.task.util.MatchTaskIterator;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
+
+
+/**
+ * An implementation of the {@link eu.stratosphere.pact.runtime.task.util.MatchTaskIterator} that realizes the
+ * matching through a partitioned (Grace-style) sort-merge join. Both inputs are first hash-partitioned on their
+ * keys into buckets on disk. Afterwards, each pair of buckets is sorted and merged independently. The memory for
+ * the sorts of a bucket pair is divided among both sides in proportion to the bucket sizes observed during the
+ * partitioning, such that the sorts of the smaller buckets typically happen fully in memory.
+ * <p>
+ * The two sides of a bucket pair are sorted concurrently by their sorters' threads. Pairs of buckets where one side
+ * is empty cannot produce matches and are skipped without being read. Because every key falls into exactly one
+ * bucket, the output is grouped by key, but not globally sorted.
+ */
+public class PartitionedSortMergeMatchIterator<T1, T2, O> implements MatchTaskIterator<T1, T2, O>
+{
+	private static final Log LOG = LogFactory.getLog(PartitionedSortMergeMatchIterator.class);
+	
+	/**
+	 * The maximal number of buckets the inputs are partitioned into.
+	 */
+	private static final int MAX_NUM_PARTITIONS = 32;
+	
+	/**
+	 * The number of write buffers for each bucket during the partitioning.
+	 */
+	private static final int NUM_WRITE_BUFFERS_PER_PARTITION = 2;
+	
+	/**
+	 * The number of read buffers for each side of the bucket pair that is sorted.
+	 */
+	private static final int NUM_READ_BUFFERS_PER_SIDE = 2;
+	
+	/**
+	 * The fraction of the memory reserved for the block-nested-loops of the merge step.
+	 */
+	private static final float MERGE_MEMORY_SHARE_RATIO = 0.05f;
+	
+	/**
+	 * The minimal number of pages a sorter for one side of a bucket pair must get.
+	 */
+	private static final int MIN_NUM_SORT_PAGES = UnilateralSortMerger.MIN_NUM_SORT_MEM_SEGMENTS + 
+												UnilateralSortMerger.MIN_NUM_WRITE_BUFFERS;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final MutableObjectIterator<T1> reader1;
+	
+	private final MutableObjectIterator<T2> reader2;
+	
+	private final TypeSerializer<T1> serializer1;
+	
+	private final TypeSerializer<T2> serializer2;
+	
+	private final TypeComparator<T1> comparator1;
+	
+	private final TypeComparator<T2> comparator2;
+	
+	private final TypePairComparator<T1, T2> pairComparator;
+	
+	private final MemoryManager memoryManager;
+	
+	private final IOManager ioManager;
+	
+	private final AbstractInvokable parentTask;
+	
+	private final long mergeMemory;
+	
+	private final long sortMemory;
+	
+	private final int maxNumFileHandles;
+	
+	private final float spillingThreshold;
+	
+	private final int numPartitions;
+	
+	private final Bucket[] buckets1;
+	
+	private final Bucket[] buckets2;
+	
+	private int currentBucket;
+	
+	private Sorter<T1> currentSorter1;
+	
+	private Sorter<T2> currentSorter2;
+	
+	private ChannelReaderInputView currentInView1;
+	
+	private ChannelReaderInputView currentInView2;
+	
+	private List<MemorySegment> currentReadMemory;
+	
+	private SortMergeMatchIterator<T1, T2, O> currentMatcher;
+	
+	private volatile boolean closed;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public PartitionedSortMergeMatchIterator(MutableObjectIterator<T1> reader1, MutableObjectIterator<T2> reader2,
+			TypeSerializer<T1> serializer1, TypeComparator<T1> comparator1,
+			TypeSerializer<T2> serializer2, TypeComparator<T2> comparator2, TypePairComparator<T1, T2> pairComparator,
+			MemoryManager memoryManager, IOManager ioManager,
+			long memory, int maxNumFileHandles, float spillingThreshold, AbstractInvokable parentTask)
+	{
+		this.reader1 = reader1;
+		this.reader2 = reader2;
+		this.serializer1 = serializer1;
+		this.serializer2 = serializer2;
+		this.comparator1 = comparator1;
+		this.comparator2 = comparator2;
+		this.pairComparator = pairComparator;
+		this.memoryManager = memoryManager;
+		this.ioManager = ioManager;
+		this.parentTask = parentTask;
+		this.maxNumFileHandles = maxNumFileHandles;
+		this.spillingThreshold = spillingThreshold;
+		
+		// the memory is used for the partitioning first, and then for the sort-merge of each bucket pair
+		final int pageSize = memoryManager.getPageSize();
+		this.mergeMemory = Math.max((long) (memory * MERGE_MEMORY_SHARE_RATIO), 2 * pageSize);
+		this.sortMemory = memory - this.mergeMemory - 2 * NUM_READ_BUFFERS_PER_SIDE * pageSize;
+		if (this.sortMemory < 2 * MIN_NUM_SORT_PAGES * pageSize) {
+			throw new IllegalArgumentException("Too little memory for the partitioned sort-merge match: " + memory +
+				" bytes. The sorters require at least " + (2 * MIN_NUM_SORT_PAGES * pageSize) + " bytes.");
+		}
+		
+		final int numPages = memoryManager.computeNumberOfPages(memory);
+		this.numPartitions = Math.min(MAX_NUM_PARTITIONS, numPages / NUM_WRITE_BUFFERS_PER_PARTITION);
+		this.buckets1 = new Bucket[this.numPartitions];
+		this.buckets2 = new Bucket[this.numPartitions];
+		this.currentBucket = -1;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.MatchTaskIterator#open()
+	 */
+	@Override
+	public void open() throws IOException, MemoryAllocationException, InterruptedException
+	{
+		final List<MemorySegment> writeMemory = this.memoryManager.allocatePages(this.parentTask,
+			this.numPartitions * NUM_WRITE_BUFFERS_PER_PARTITION);
+		try {
+			final Channel.Enumerator enumerator = this.ioManager.createChannelEnumerator();
+			partitionInput(this.reader1, this.serializer1, this.comparator1, this.buckets1, enumerator, writeMemory);
+			partitionInput(this.reader2, this.serializer2, this.comparator2, this.buckets2, enumerator, writeMemory);
+		} finally {
+			this.memoryManager.release(writeMemory);
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			long bytes1 = 0, bytes2 = 0;
+			for (int i = 0; i < this.numPartitions; i++) {
+				bytes1 += this.buckets1[i].bytes;
+				bytes2 += this.buckets2[i].bytes;
+			}
+			LOG.debug("Partitioned " + bytes1 + " bytes of the first and " + bytes2 + " bytes of the second input " +
+				"into " + this.numPartitions + " buckets.");
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.MatchTaskIterator#close()
+	 */
+	@Override
+	public void close()
+	{
+		this.closed = true;
+		closeCurrentBucket();
+		
+		// delete the files of all buckets that have not been processed
+		for (int i = Math.max(this.currentBucket + 1, 0); i < this.numPartitions; i++) {
+			deleteBucket(this.buckets1[i]);
+			deleteBucket(this.buckets2[i]);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.MatchTaskIterator#abort()
+	 */
+	@Override
+	public void abort()
+	{
+		close();
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.util.MatchTaskIterator#callWithNextKey(eu.stratosphere.pact.common.generic.GenericMatcher, eu.stratosphere.pact.common.stubs.Collector)
+	 */
+	@Override
+	public boolean callWithNextKey(GenericMatcher<T1, T2, O> matchFunction, Collector<O> collector)
+	throws Exception
+	{
+		while (!this.closed) {
+			if (this.currentMatcher != null && this.currentMatcher.callWithNextKey(matchFunction, collector)) {
+				return true;
+			}
+			
+			// current bucket pair is exhausted
+			closeCurrentBucket();
+			if (!openNextBucket()) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Hash-partitions the given input into the given buckets.
+	 */
+	private <T> void partitionInput(MutableObjectIterator<T> input, TypeSerializer<T> serializer,
+			TypeComparator<T> comparator, Bucket[] buckets, Channel.Enumerator enumerator,
+			List<MemorySegment> writeMemory)
+	throws IOException
+	{
+		final int pageSize = this.memoryManager.getPageSize();
+		final ChannelWriterOutputView[] views = new ChannelWriterOutputView[buckets.length];
+		
+		for (int i = 0; i < buckets.length; i++) {
+			final Channel.ID channel = enumerator.next();
+			final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channel);
+			final List<MemorySegment> memory = new ArrayList<MemorySegment>(NUM_WRITE_BUFFERS_PER_PARTITION);
+			for (int k = 0; k < NUM_WRITE_BUFFERS_PER_PARTITION; k++) {
+				memory.add(writeMemory.remove(writeMemory.size() - 1));
+			}
+			views[i] = new ChannelWriterOutputView(writer, memory, pageSize);
+			buckets[i] = new Bucket(channel);
+		}
+		
+		try {
+			final T record = serializer.createInstance();
+			while (!this.closed && input.next(record)) {
+				final int bucket = MutableHashTable.hash(comparator.hash(record), 0) % buckets.length;
+				serializer.serialize(record, views[bucket]);
+				buckets[bucket].numRecords++;
+			}
+		} finally {
+			// close the writers and return their memory
+			for (int i = 0; i < views.length; i++) {
+				buckets[i].bytes = views[i].getBytesWritten();
+				writeMemory.addAll(views[i].close());
+				buckets[i].numBlocks = views[i].getBlockCount();
+			}
+		}
+	}
+	
+	/**
+	 * Sets up the sorters and the merge for the next pair of buckets of which neither side is empty.
+	 * 
+	 * @return True, if a next bucket pair was opened, false if all buckets have been processed.
+	 */
+	private boolean openNextBucket() throws IOException, MemoryAllocationException, InterruptedException
+	{
+		while (++this.currentBucket < this.numPartitions) {
+			final Bucket b1 = this.buckets1[this.currentBucket];
+			final Bucket b2 = this.buckets2[this.currentBucket];
+			
+			if (b1.numRecords == 0 || b2.numRecords == 0) {
+				// no matches are possible
+				deleteBucket(b1);
+				deleteBucket(b2);
+				continue;
+			}
+			
+			// divide the memory among the two sorters in proportion to the observed bucket sizes
+			final long minSortMemory = MIN_NUM_SORT_PAGES * this.memoryManager.getPageSize();
+			final double fraction1 = b1.bytes / ((double) (b1.bytes + b2.bytes));
+			long sortMemory1 = Math.max(minSortMemory, (long) (this.sortMemory * fraction1));
+			long sortMemory2 = this.sortMemory - sortMemory1;
+			if (sortMemory2 < minSortMemory) {
+				sortMemory2 = minSortMemory;
+				sortMemory1 = this.sortMemory - minSortMemory;
+			}
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Sort-merging bucket " + this.currentBucket + " (" + b1.bytes + " / " + b2.bytes + 
+					" bytes) with " + sortMemory1 + " / " + sortMemory2 + " bytes of sort memory.");
+			}
+			
+			final int fileHandles = Math.max(2, this.maxNumFileHandles / 2);
+			this.currentReadMemory = this.memoryManager.allocatePages(this.parentTask, 2 * NUM_READ_BUFFERS_PER_SIDE);
+			
+			// instantiate both sorters before waiting for either of them, so they sort concurrently
+			this.currentInView1 = openBucket(b1, this.currentReadMemory.subList(0, NUM_READ_BUFFERS_PER_SIDE));
+			this.currentSorter1 = new UnilateralSortMerger<T1>(this.memoryManager, this.ioManager,
+				new ChannelReaderInputViewIterator<T1>(this.currentInView1, null, this.serializer1), this.parentTask,
+				this.serializer1, this.comparator1.duplicate(), sortMemory1, fileHandles, this.spillingThreshold);
+			
+			this.currentInView2 = openBucket(b2, this.currentReadMemory.subList(NUM_READ_BUFFERS_PER_SIDE,
+				2 * NUM_READ_BUFFERS_PER_SIDE));
+			this.currentSorter2 = new UnilateralSortMerger<T2>(this.memoryManager, this.ioManager,
+				new ChannelReaderInputViewIterator<T2>(this.currentInView2, null, this.serializer2), this.parentTask,
+				this.serializer2, this.comparator2.duplicate(), sortMemory2, fileHandles, this.spillingThreshold);
+			
+			this.currentMatcher = new SortMergeMatchIterator<T1, T2, O>(
+				this.currentSorter1.getIterator(), this.currentSorter2.getIterator(),
+				this.serializer1, this.comparator1, this.serializer2, this.comparator2, this.pairComparator,
+				this.memoryManager, this.ioManager, this.mergeMemory, fileHandles, this.spillingThreshold, 1.0f,
+				LocalStrategy.MERGE, this.parentTask);
+			this.currentMatcher.open();
+			return true;
+		}
+		return false;
+	}
+	
+	private ChannelReaderInputView openBucket(Bucket bucket, List<MemorySegment> readMemory) throws IOException
+	{
+		final BlockChannelReader reader = this.ioManager.createBlockChannelReader(bucket.channel);
+		return new ChannelReaderInputView(reader, new ArrayList<MemorySegment>(readMemory), bucket.numBlocks, false);
+	}
+	
+	/**
+	 * Releases all resources held for the current bucket pair and deletes its files.
+	 */
+	private void closeCurrentBucket()
+	{
+		if (this.currentMatcher != null) {
+			this.currentMatcher.close();
+			this.currentMatcher = null;
+		}
+		if (this.currentSorter1 != null) {
+			try {
+				this.currentSorter1.close();
+			} catch (Throwable t) {
+				LOG.error("Error closing sort/merger for first input: " + t.getMessage(), t);
+			}
+			this.currentSorter1 = null;
+		}
+		if (this.currentSorter2 != null) {
+			try {
+				this.currentSorter2.close();
+			} catch (Throwable t) {
+				LOG.error("Error closing sort/merger for second input: " + t.getMessage(), t);
+			}
+			this.currentSorter2 = null;
+		}
+		closeView(this.currentInView1);
+		closeView(this.currentInView2);
+		this.currentInView1 = null;
+		this.currentInView2 = null;
+		
+		if (this.currentReadMemory != null) {
+			this.memoryManager.release(this.currentReadMemory);
+			this.currentReadMemory = null;
+		}
+		if (this.currentBucket >= 0 && this.currentBucket < this.numPartitions) {
+			deleteBucket(this.buckets1[this.currentBucket]);
+			deleteBucket(this.buckets2[this.currentBucket]);
+		}
+	}
+	
+	private void closeView(ChannelReaderInputView view)
+	{
+		if (view != null && !view.isClosed()) {
+			try {
+				view.close();
+			} catch (Throwable t) {
+				LOG.error("Error closing bucket reader: " + t.getMessage(), t);
+			}
+		}
+	}
+	
+	private void deleteBucket(Bucket bucket)
+	{
+		if (bucket != null && !bucket.deleted) {
+			bucket.deleted = true;
+			try {
+				final File f = new File(bucket.channel.getPath());
+				if (f.exists()) {
+					f.delete();
+				}
+			} catch (Throwable t) {
+				LOG.error("Error deleting bucket file: " + t.getMessage(), t);
+			}
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * The bookkeeping information of one bucket.
+	 */
+	private static final class Bucket
+	{
+		private final Channel.ID channel;
+		
+		private long numRecords;
+		
+		private long bytes;
+		
+		private int numBlocks;
+		
+		private boolean deleted;
+		
+		private Bucket(Channel.ID channel) {
+			this.channel = channel;
+		}
+	}
+}
@@ -19,9 +19,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -484,10 +486,11 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 		finally {
 			
 			// RELEASE ALL MEMORY. If the threads and channels are still running, this should cause
-			// exceptions, because their memory segments are freed
+			// exceptions, because their memory segments are freed. The memory is released to the parent
+			// task, such that other consumers of the task can grow into it
 			try {
 				if (!this.writeMemory.isEmpty()) {
-					this.memoryManager.release(this.writeMemory);
+					this.memoryManager.releaseToOwner(this.writeMemory);
 				}
 				this.writeMemory.clear();
 			}
@@ -495,7 +498,7 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 			
 			try {
 				if (!this.sortReadMemory.isEmpty()) {
-					this.memoryManager.release(this.sortReadMemory);
+					this.memoryManager.releaseToOwner(this.sortReadMemory);
 				}
 				this.sortReadMemory.clear();
 			}
@@ -1264,10 +1267,12 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 					iterators.add(cached.buffer.getIterator());
 				}
 				
-				// release the remaining sort-buffers
+				// release the remaining sort-buffers and the write buffers, which are not needed
 				if (LOG.isDebugEnabled())
 					LOG.debug("Releasing unused sort-buffer memory.");
 				disposeSortBuffers(true);
+				this.memManager.releaseToOwner(this.writeMemory);
+				this.writeMemory.clear();
 				
 				// set lazy iterator
 				setResultIterator(iterators.isEmpty() ? EmptyMutableObjectIterator.<E>get() :
@@ -1350,7 +1355,7 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 			}
 			
 			// from here on, we won't write again
-			this.memManager.release(this.writeMemory);
+			this.memManager.releaseToOwner(this.writeMemory);
 			this.writeMemory.clear();
 			
 			// check if we have spilled some data at all
@@ -1386,7 +1391,7 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 					final NormalizedKeySorter<?> sorter = this.queues.empty.take().buffer;
 					final List<MemorySegment> sorterMem = sorter.dispose();
 					if (releaseMemory) {
-						this.memManager.release(sorterMem);
+						this.memManager.releaseToOwner(sorterMem);
 					}
 				}
 				catch (InterruptedException iex) {
@@ -1454,50 +1459,48 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 		}
 
 		/**
-		 * Merges the given sorted runs to a smaller number of sorted runs. 
+		 * Merges the given sorted runs to a smaller number of sorted runs, such that at most as many runs as
+		 * file handles remain for the final merge. The runs to merge are picked Huffman-style: every step merges
+		 * the currently smallest runs, and the first step merges just as many runs that all following steps can
+		 * merge the full fan-in. That minimizes the total number of blocks written and read again.
 		 * 
 		 * @param channelIDs The IDs of the sorted runs that need to be merged.
+		 * @param allReadBuffers The buffers to be divided among the readers of each merge step.
 		 * @param writeBuffers The buffers to be used by the writers.
-		 * @param writeBufferSize The size of the write buffers.
-		 * @param  readMemorySize The amount of memory dedicated to the readers.
 		 * @return A list of the IDs of the merged channels.
 		 * @throws IOException Thrown, if the readers or writers encountered an I/O problem.
-		 * @throws MemoryAllocationException Thrown, if the specified memory is insufficient to merge the channels
-		 *                                   or if the memory manager could not provide the requested memory.
 		 */
 		protected final List<ChannelWithBlockCount> mergeChannelList(final List<ChannelWithBlockCount> channelIDs,
 					final List<MemorySegment> allReadBuffers, final List<MemorySegment> writeBuffers)
 		throws IOException
 		{
-			final double numMerges = Math.ceil(channelIDs.size() / ((double) this.maxNumFileHandles));
-			final int channelsToMergePerStep = (int) Math.ceil(channelIDs.size() / numMerges);
+			final int maxFanIn = this.maxNumFileHandles;
 			
-			// allocate the memory for the merging step
-			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMergePerStep);
-			getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMergePerStep);
+			final PriorityQueue<ChannelWithBlockCount> runs = new PriorityQueue<ChannelWithBlockCount>(
+								channelIDs.size(), ChannelWithBlockCount.BLOCK_COUNT_ORDER);
+			runs.addAll(channelIDs);
 			
-			// the list containing the IDs of the merged channels
-			final ArrayList<ChannelWithBlockCount> mergedChannelIDs = new ArrayList<ChannelWithBlockCount>((int) (numMerges + 1));
-
-			final ArrayList<ChannelWithBlockCount> channelsToMergeThisStep = new ArrayList<ChannelWithBlockCount>(channelsToMergePerStep);
-			int channelNum = 0;
-			while (isRunning() && channelNum < channelIDs.size()) {
+			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(maxFanIn);
+			final List<ChannelWithBlockCount> channelsToMergeThisStep = new ArrayList<ChannelWithBlockCount>(maxFanIn);
+			
+			// the first merge takes only as many runs as needed to make all later merges use the full fan-in
+			int fanIn = runs.size() > maxFanIn ? ((runs.size() - 2) % (maxFanIn - 1)) + 2 : 0;
+			
+			while (isRunning() && runs.size() > maxFanIn) {
 				channelsToMergeThisStep.clear();
-
-				for (int i = 0; i < channelsToMergePerStep && channelNum < channelIDs.size(); i++, channelNum++) {
-					channelsToMergeThisStep.add(channelIDs.get(channelNum));
+				for (int i = 0; i < fanIn; i++) {
+					channelsToMergeThisStep.add(runs.poll());
 				}
 				
-				// merge only, if there is more than one channel
-				if (channelsToMergeThisStep.size() < 2)  {
-					mergedChannelIDs.addAll(channelsToMergeThisStep);
-				}
-				else {
-					mergedChannelIDs.add(mergeChannels(channelsToMergeThisStep, readBuffers, writeBuffers));
-				}
+				// allocate the memory for the merging step
+				readBuffers.clear();
+				getSegmentsForReaders(readBuffers, allReadBuffers, fanIn);
+				
+				runs.add(mergeChannels(channelsToMergeThisStep, readBuffers, writeBuffers));
+				fanIn = maxFanIn;
 			}
 			
-			return mergedChannelIDs;
+			return new ArrayList<ChannelWithBlockCount>(runs);
 		}
 
 		/**
@@ -1791,6 +1794,16 @@ public class UnilateralSortMerger<E> implements Sorter<E>
 	
 	protected static final class ChannelWithBlockCount
 	{
+		/**
+		 * Orders channels ascending by their number of blocks.
+		 */
+		static final Comparator<ChannelWithBlockCount> BLOCK_COUNT_ORDER = new Comparator<ChannelWithBlockCount>() {
+			@Override
+			public int compare(ChannelWithBlockCount o1, ChannelWithBlockCount o2) {
+				return o1.blockCount < o2.blockCount ? -1 : o1.blockCount == o2.blockCount ? 0 : 1;
+			}
+		};
+		
 		private final Channel.ID channel;
 		private final int blockCount;
 		
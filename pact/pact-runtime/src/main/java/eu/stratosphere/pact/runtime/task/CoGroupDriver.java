@@ -27,6 +27,8 @@ import eu.stratosphere.pact.common.generic.types.TypeSerializer;
 import eu.stratosphere.pact.common.stubs.Collector;
 import eu.stratosphere.pact.common.util.InstantiationUtil;
 import eu.stratosphere.pact.common.util.MutableObjectIterator;
+import eu.stratosphere.pact.runtime.hash.BuildFirstHashCoGroupIterator;
+import eu.stratosphere.pact.runtime.hash.BuildSecondHashCoGroupIterator;
 import eu.stratosphere.pact.runtime.plugable.PactRecordPairComparatorFactory;
 import eu.stratosphere.pact.runtime.sort.SortMergeCoGroupIterator;
 import eu.stratosphere.pact.runtime.task.util.CoGroupTaskIterator;
@@ -117,6 +119,8 @@ public class CoGroupDriver<IT1, IT2, OT> implements PactDriver<GenericCoGrouper<
 				break;
 			case SORT_FIRST_MERGE: 
 			case SORT_SECOND_MERGE: 
+			case HYBRIDHASH_COGROUP_FIRST:
+			case HYBRIDHASH_COGROUP_SECOND:
 				strategyMinMem = MIN_REQUIRED_MEMORY;
 				break;
 			case MERGE: 
@@ -186,12 +190,25 @@ public class CoGroupDriver<IT1, IT2, OT> implements PactDriver<GenericCoGrouper<
 					pairComparatorFactory.createComparator12(groupComparator1, groupComparator2),
 					availableMemory, maxFileHandles, spillThreshold, ls, this.taskContext.getOwningNepheleTask());
 			break;
+		case HYBRIDHASH_COGROUP_FIRST:
+			this.coGroupIterator = new BuildFirstHashCoGroupIterator<IT1, IT2>(in1, in2, serializer1, groupComparator1,
+					serializer2, groupComparator2,
+					pairComparatorFactory.createComparator21(groupComparator1, groupComparator2),
+					memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
+			break;
+		case HYBRIDHASH_COGROUP_SECOND:
+			this.coGroupIterator = new BuildSecondHashCoGroupIterator<IT1, IT2>(in1, in2, serializer1, groupComparator1,
+					serializer2, groupComparator2,
+					pairComparatorFactory.createComparator12(groupComparator1, groupComparator2),
+					memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
+			break;
 			default:
 				throw new Exception("Unsupported local strategy for CoGropuTask: " + ls.name());
 		}
 		
 		
-		// open CoGroupTaskIterator - this triggers the sorting and blocks until the iterator is ready
+		// open CoGroupTaskIterator - this triggers the sorting or hash-table building
+		// and blocks until the iterator is ready
 		this.coGroupIterator.open();
 		
 		if (LOG.isDebugEnabled())
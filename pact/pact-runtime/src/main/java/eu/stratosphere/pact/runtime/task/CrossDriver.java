@@ -15,6 +15,8 @@
 
 package eu.stratosphere.pact.runtime.task;
 
+import java.io.IOException;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -35,6 +37,15 @@ import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
  * <p>
  * The CrossTask builds the Cartesian product of the pairs of its two inputs. Each element (pair of pairs) is handed to
  * the <code>cross()</code> method of the CrossStub.
+ * <p>
+ * For the block-nested-loops strategies, the inner side is fully materialized before the first block of the outer side
+ * is read, and it stays in memory if it fits into its share of the memory. In that case, the outer block is crossed in
+ * sub-blocks that fit into the processor's cache (see {@link TaskConfig#getCrossCacheBlockSize()}), such that the
+ * outer records stay cache-resident while the inner side is scanned from memory. If the inner side was spilled, the
+ * whole outer block is crossed with every pass over the inner side, to minimize the number of passes over the file.
+ * Since the spilled inner side needs only a few pages to be read, the rest of its share is handed to the outer block.
+ * These passes read the spilled inner side through a memory mapping of the file, if so configured
+ * (see {@link TaskConfig#getSpillingMappedReads()}).
  * 
  * @see eu.stratosphere.pact.common.stubs.CrossStub
  * 
@@ -47,6 +58,10 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 
 	private static final long MIN_NUM_PAGES = 2;		// the minimal amount of memory for the task to operate
 	
+	private static final float INNER_SIDE_MEMORY_FRACTION = 0.5f;	// memory share of the inner side for blocked loops
+	
+	private static final int SPILLED_INNER_SIDE_READ_PAGES = 2;	// pages kept for reading a spilled inner side
+	
 	
 	private PactTaskContext<GenericCrosser<T1, T2, OT>, OT> taskContext;
 	
@@ -59,6 +74,10 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 	private long memForBlockSide;
 	
 	private long memForSpillingSide;
+	
+	private long cacheBlockSize;
+	
+	private boolean mapSpilledInnerSide;
 
 	private boolean blocked;
 	
@@ -137,6 +156,7 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		}
 		
 		this.memManager = this.taskContext.getMemoryManager();
+		this.mapSpilledInnerSide = config.getSpillingMappedReads();
 		final long totalAvailableMemory = config.getMemorySize();
 		final int numPages = this.memManager.computeNumberOfPages(totalAvailableMemory);
 		
@@ -150,12 +170,12 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 			this.memForSpillingSide = totalAvailableMemory;
 			this.memForBlockSide = 0;
 		} else {
-			if (numPages > 32) {
-				this.memForSpillingSide = 2 * this.memManager.getPageSize();
-			} else {
-				this.memForSpillingSide =  this.memManager.getPageSize();
-			}
+			// the inner side gets a large enough share to stay in memory where possible. if it does not fit,
+			// the share is handed back to the outer block to keep the number of passes over the inner side low
+			this.memForSpillingSide = Math.max(this.memManager.getPageSize(),
+				this.memManager.roundDownToPageSizeMultiple((long) (totalAvailableMemory * INNER_SIDE_MEMORY_FRACTION)));
 			this.memForBlockSide = totalAvailableMemory - this.memForSpillingSide;
+			this.cacheBlockSize = config.getCrossCacheBlockSize();
 		}
 	}
 
@@ -217,14 +237,9 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		final TypeSerializer<T1> serializer1 = this.taskContext.getInputSerializer(0);
 		final TypeSerializer<T2> serializer2 = this.taskContext.getInputSerializer(1);
 		
-		final BlockResettableMutableObjectIterator<T1> blockVals = 
-				new BlockResettableMutableObjectIterator<T1>(this.memManager, in1, serializer1, this.memForBlockSide,
-							this.taskContext.getOwningNepheleTask());
-		this.blockIter = blockVals;
-		
 		final SpillingResettableMutableObjectIterator<T2> spillVals = new SpillingResettableMutableObjectIterator<T2>(
 				in2, serializer2, this.memManager, this.taskContext.getIOManager(), this.memForSpillingSide,
-				this.taskContext.getOwningNepheleTask());
+				this.taskContext.getOwningNepheleTask(), this.mapSpilledInnerSide);
 		this.spillIter = spillVals;
 		
 		final T1 val1 = serializer1.createInstance();
@@ -234,18 +249,36 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		final GenericCrosser<T1, T2, OT> crosser = this.taskContext.getStub();
 		final Collector<OT> collector = this.taskContext.getOutputCollector();
 		
+		// materialize the spilling side before the first block is read
+		if (!materializeSpillingSide(spillVals, val2)) {
+			return;
+		}
+		final long subBlockSize = spillVals.isInMemory() ? this.cacheBlockSize : Long.MAX_VALUE;
+		
+		final BlockResettableMutableObjectIterator<T1> blockVals = 
+				new BlockResettableMutableObjectIterator<T1>(this.memManager, in1, serializer1,
+							getMemoryForBlockSide(spillVals), this.taskContext.getOwningNepheleTask());
+		this.blockIter = blockVals;
+		
 		// for all blocks
 		do {
-			// for all values from the spilling side
-			while (this.running && spillVals.next(val2)) {
-				// for all values in the block
-				while (blockVals.next(val1)) {
-					serializer2.copyTo(val2, val2Copy);
-					crosser.cross(val1, val2Copy, collector);
+			fillBlock(blockVals, val1);
+			
+			// for all sub-blocks of the block
+			int numInSubBlock;
+			while (this.running && (numInSubBlock = nextSubBlock(blockVals, val1, subBlockSize)) > 0) {
+				// for all values from the spilling side
+				while (this.running && spillVals.next(val2)) {
+					// for all values in the sub-block
+					blockVals.resetToMark();
+					for (int i = 0; i < numInSubBlock; i++) {
+						blockVals.next(val1);
+						serializer2.copyTo(val2, val2Copy);
+						crosser.cross(val1, val2Copy, collector);
+					}
 				}
-				blockVals.reset();
+				spillVals.reset();
 			}
-			spillVals.reset();
 		}
 		while (this.running && blockVals.nextBlock());
 	}
@@ -265,14 +298,9 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		
 		final SpillingResettableMutableObjectIterator<T1> spillVals = new SpillingResettableMutableObjectIterator<T1>(
 				in1, serializer1, this.memManager, this.taskContext.getIOManager(), this.memForSpillingSide,
-				this.taskContext.getOwningNepheleTask());
+				this.taskContext.getOwningNepheleTask(), this.mapSpilledInnerSide);
 		this.spillIter = spillVals;
 		
-		final BlockResettableMutableObjectIterator<T2> blockVals = 
-				new BlockResettableMutableObjectIterator<T2>(this.memManager, in2, serializer2, this.memForBlockSide,
-						this.taskContext.getOwningNepheleTask());
-		this.blockIter = blockVals;
-		
 		final T1 val1 = serializer1.createInstance();
 		final T1 val1Copy = serializer1.createInstance();
 		final T2 val2 = serializer2.createInstance();
@@ -280,18 +308,36 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		final GenericCrosser<T1, T2, OT> crosser = this.taskContext.getStub();
 		final Collector<OT> collector = this.taskContext.getOutputCollector();
 		
+		// materialize the spilling side before the first block is read
+		if (!materializeSpillingSide(spillVals, val1)) {
+			return;
+		}
+		final long subBlockSize = spillVals.isInMemory() ? this.cacheBlockSize : Long.MAX_VALUE;
+		
+		final BlockResettableMutableObjectIterator<T2> blockVals = 
+				new BlockResettableMutableObjectIterator<T2>(this.memManager, in2, serializer2,
+						getMemoryForBlockSide(spillVals), this.taskContext.getOwningNepheleTask());
+		this.blockIter = blockVals;
+		
 		// for all blocks
 		do {
-			// for all values from the spilling side
-			while (this.running && spillVals.next(val1)) {
-				// for all values in the block
-				while (this.running && blockVals.next(val2)) {
-					serializer1.copyTo(val1, val1Copy);
-					crosser.cross(val1Copy, val2, collector);
+			fillBlock(blockVals, val2);
+			
+			// for all sub-blocks of the block
+			int numInSubBlock;
+			while (this.running && (numInSubBlock = nextSubBlock(blockVals, val2, subBlockSize)) > 0) {
+				// for all values from the spilling side
+				while (this.running && spillVals.next(val1)) {
+					// for all values in the sub-block
+					blockVals.resetToMark();
+					for (int i = 0; i < numInSubBlock; i++) {
+						blockVals.next(val2);
+						serializer1.copyTo(val1, val1Copy);
+						crosser.cross(val1Copy, val2, collector);
+					}
 				}
-				blockVals.reset();
+				spillVals.reset();
 			}
-			spillVals.reset();
 		}
 		while (this.running && blockVals.nextBlock());
 	}
@@ -311,7 +357,7 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		
 		final SpillingResettableMutableObjectIterator<T2> spillVals = new SpillingResettableMutableObjectIterator<T2>(
 				in2, serializer2, this.memManager, this.taskContext.getIOManager(), this.memForSpillingSide,
-				this.taskContext.getOwningNepheleTask());
+				this.taskContext.getOwningNepheleTask(), this.mapSpilledInnerSide);
 		this.spillIter = spillVals;
 		
 		final T1 val1 = serializer1.createInstance();
@@ -346,7 +392,7 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 		
 		final SpillingResettableMutableObjectIterator<T1> spillVals = new SpillingResettableMutableObjectIterator<T1>(
 				in1, serializer1, this.memManager, this.taskContext.getIOManager(), this.memForSpillingSide,
-				this.taskContext.getOwningNepheleTask());
+				this.taskContext.getOwningNepheleTask(), this.mapSpilledInnerSide);
 		this.spillIter = spillVals;
 		
 		final T1 val1 = serializer1.createInstance();
@@ -366,4 +412,69 @@ public class CrossDriver<T1, T2, OT> implements PactDriver<GenericCrosser<T1, T2
 			spillVals.reset();
 		}
 	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Reads the complete spilling side into its buffer and resets it for the following passes.
+	 * 
+	 * @return True, if the spilling side contains at least one record, false otherwise.
+	 */
+	private <T> boolean materializeSpillingSide(SpillingResettableMutableObjectIterator<T> spillVals, T reuse)
+	throws Exception
+	{
+		boolean nonEmpty = false;
+		while (this.running && spillVals.next(reuse)) {
+			nonEmpty = true;
+		}
+		spillVals.reset();
+		return nonEmpty;
+	}
+	
+	/**
+	 * Determines the memory for the blocking side once the spilling side has been materialized. If the spilling
+	 * side did not fit into its share, the memory it does not need for reading the spilled records is released
+	 * and added to the blocking side, such that the blocks get larger and the spilled side is read less often.
+	 * 
+	 * @return The amount of memory for the blocking side.
+	 */
+	private long getMemoryForBlockSide(SpillingResettableMutableObjectIterator<?> spillVals) throws IOException
+	{
+		if (spillVals.isInMemory()) {
+			return this.memForBlockSide;
+		}
+		
+		final int numReleased = spillVals.releaseExcessMemory(SPILLED_INNER_SIDE_READ_PAGES);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Inner side of Cross was spilled, handing " + numReleased +
+					" pages of its memory to the outer side."));
+		}
+		return this.memForBlockSide + ((long) numReleased) * this.memManager.getPageSize();
+	}
+	
+	/**
+	 * Reads the next block of records into memory and switches the block iterator to its read phase.
+	 */
+	private <T> void fillBlock(BlockResettableMutableObjectIterator<T> blockVals, T reuse) throws Exception
+	{
+		while (this.running && blockVals.next(reuse));
+		blockVals.reset();
+	}
+	
+	/**
+	 * Marks the start of the next sub-block in the current block and determines its extent. The sub-block holds
+	 * records up to the given number of serialized bytes, but at least one record.
+	 * 
+	 * @return The number of records in the sub-block, or zero, if the block is exhausted.
+	 */
+	private static <T> int nextSubBlock(BlockResettableMutableObjectIterator<T> blockVals, T reuse, long subBlockSize)
+	throws Exception
+	{
+		blockVals.mark();
+		int num = 0;
+		while (blockVals.getNumBytesReadSinceMark() < subBlockSize && blockVals.next(reuse)) {
+			num++;
+		}
+		return num;
+	}
 }
@@ -32,6 +32,7 @@ import eu.stratosphere.pact.common.util.MutableObjectIterator;
 import eu.stratosphere.pact.runtime.hash.BuildFirstHashMatchIterator;
 import eu.stratosphere.pact.runtime.hash.BuildSecondHashMatchIterator;
 import eu.stratosphere.pact.runtime.plugable.PactRecordPairComparatorFactory;
+import eu.stratosphere.pact.runtime.sort.PartitionedSortMergeMatchIterator;
 import eu.stratosphere.pact.runtime.sort.SortMergeMatchIterator;
 import eu.stratosphere.pact.runtime.task.util.MatchTaskIterator;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
@@ -118,6 +119,7 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericMatcher<IT1,
 		
 		switch (ls) {
 			case SORT_BOTH_MERGE:
+			case PARTITIONED_SORT_BOTH_MERGE:
 				strategyMinMem = MIN_REQUIRED_MEMORY * 2;
 				break;
 			case SORT_FIRST_MERGE: 
@@ -180,6 +182,12 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericMatcher<IT1,
 					memoryManager, ioManager, availableMemory, maxFileHandles, spillThreshold, ls,
 					this.taskContext.getOwningNepheleTask());
 			break;
+		case PARTITIONED_SORT_BOTH_MERGE:
+			this.matchIterator = new PartitionedSortMergeMatchIterator<IT1, IT2, OT>(in1, in2, serializer1, comparator1,
+					serializer2, comparator2, pairComparatorFactory.createComparator12(comparator1, comparator2),
+					memoryManager, ioManager, availableMemory, maxFileHandles, spillThreshold,
+					this.taskContext.getOwningNepheleTask());
+			break;
 		case HYBRIDHASH_FIRST:
 			this.matchIterator = new BuildFirstHashMatchIterator<IT1, IT2, OT>(in1, in2, serializer1, comparator1,
 				serializer2, comparator2, pairComparatorFactory.createComparator21(comparator1, comparator2),
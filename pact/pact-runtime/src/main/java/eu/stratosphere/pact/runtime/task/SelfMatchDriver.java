@@ -0,0 +1,431 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
+import eu.stratosphere.pact.common.generic.GenericMatcher;
+import eu.stratosphere.pact.common.generic.types.TypeComparator;
+import eu.stratosphere.pact.common.generic.types.TypeSerializer;
+import eu.stratosphere.pact.common.stubs.Collector;
+import eu.stratosphere.pact.common.stubs.MatchStub;
+import eu.stratosphere.pact.common.util.MutableObjectIterator;
+import eu.stratosphere.pact.runtime.resettable.SpillingResettableMutableObjectIterator;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger;
+import eu.stratosphere.pact.runtime.task.util.CloseableInputProvider;
+import eu.stratosphere.pact.runtime.task.util.SimpleCloseableInputProvider;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
+import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
+
+/**
+ * SelfMatch task which is executed by a Nephele task manager. The task has a single input and one or multiple
+ * outputs. It is provided with a MatchStub implementation.
+ * <p>
+ * The SelfMatch task matches a data set with itself. It reads its input only once, groups it by key and hands
+ * the pairs of records within each group to the <code>match()</code> method of the MatchStub. Depending on the
+ * {@link CrossMode}, all ordered pairs are enumerated, which is the same as a regular Match of the input with
+ * itself, or only the pairs <i>(i, j)</i> with <i>i &lt;= j</i> or <i>i &lt; j</i>, where <i>i</i> and <i>j</i>
+ * are the positions of the records in the group.
+ * <p>
+ * The pairs are enumerated block-wise: A block of records is held in memory and paired with itself and with all
+ * records that follow it in the group. Records beyond the first block are kept in a spilling resettable buffer,
+ * which is re-scanned once per block, such that groups of arbitrary size can be processed.
+ * 
+ * @see MatchStub
+ */
+public class SelfMatchDriver<IT, OT> implements PactDriver<GenericMatcher<IT, IT, OT>, OT>
+{
+	private static final Log LOG = LogFactory.getLog(SelfMatchDriver.class);
+	
+	/**
+	 * The key of the stub parameter that holds the cross mode. The value is the name of one of the
+	 * constants of {@link CrossMode}. If it is not set, {@link CrossMode#FULL_CROSS} is used.
+	 */
+	public static final String SELFMATCH_CROSS_MODE_KEY = "selfMatch.crossMode";
+	
+	/**
+	 * The modes that determine which pairs of records of a group are enumerated.
+	 */
+	public static enum CrossMode {
+		/**
+		 * All ordered pairs, including each record paired with itself.
+		 */
+		FULL_CROSS,
+		/**
+		 * Each unordered pair once, including each record paired with itself.
+		 */
+		TRIANGLE_CROSS_INCL_DIAG,
+		/**
+		 * Each unordered pair of distinct records once.
+		 */
+		TRIANGLE_CROSS_EXCL_DIAG
+	}
+	
+	private static final long MIN_REQUIRED_MEMORY = 3 * 1024 * 1024;	// minimal memory for the task to operate
+	
+	private static final float SORT_MEMORY_FRACTION = 0.8f;				// fraction of the memory for the sorter
+	
+	private static final int BLOCK_SIZE = 256;							// number of records held in a block
+	
+	
+	private PactTaskContext<GenericMatcher<IT, IT, OT>, OT> taskContext;
+	
+	private CloseableInputProvider<IT> input;
+	
+	private List<MemorySegment> spillingMemory;
+	
+	private TypeSerializer<IT> serializer;
+	
+	private TypeComparator<IT> comparator;
+	
+	private CrossMode crossMode;
+	
+	private IT[] block;
+	
+	private IT copy1;
+	
+	private IT copy2;
+	
+	private volatile boolean running;
+	
+	// ------------------------------------------------------------------------
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.PactDriver#setup(eu.stratosphere.pact.runtime.task.PactTaskContext)
+	 */
+	@Override
+	public void setup(PactTaskContext<GenericMatcher<IT, IT, OT>, OT> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#getNumberOfInputs()
+	 */
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#getStubType()
+	 */
+	@Override
+	public Class<GenericMatcher<IT, IT, OT>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericMatcher<IT, IT, OT>> clazz = (Class<GenericMatcher<IT, IT, OT>>) (Class<?>) GenericMatcher.class;
+		return clazz;
+	}
+	
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#requiresComparatorOnInput()
+	 */
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#prepare()
+	 */
+	@Override
+	public void prepare() throws Exception
+	{
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		
+		// set up memory and I/O parameters
+		final long availableMemory = config.getMemorySize();
+		final int maxFileHandles = config.getNumFilehandles();
+		final float spillThreshold = config.getSortSpillingTreshold();
+		
+		// test minimum memory requirements
+		final LocalStrategy ls = config.getLocalStrategy();
+		long strategyMinMem = 0;
+		
+		switch (ls) {
+			case SORT_SELF_NESTEDLOOP:
+				strategyMinMem = MIN_REQUIRED_MEMORY * 2;
+				break;
+			case SELF_NESTEDLOOP:
+				strategyMinMem = MIN_REQUIRED_MEMORY;
+				break;
+		}
+		if (availableMemory < strategyMinMem) {
+			throw new Exception("The SelfMatch task was initialized with too little memory for local strategy " +
+					ls.name() + ": " + availableMemory + " bytes. Required is at least " + strategyMinMem + " bytes.");
+		}
+		
+		final String crossModeName = config.getStubParameter(SELFMATCH_CROSS_MODE_KEY, null);
+		try {
+			this.crossMode = crossModeName == null ? CrossMode.FULL_CROSS : CrossMode.valueOf(crossModeName);
+		} catch (IllegalArgumentException iaex) {
+			throw new Exception("Invalid cross mode for SelfMatch task: " + crossModeName);
+		}
+		
+		final MemoryManager memoryManager = this.taskContext.getMemoryManager();
+		final IOManager ioManager = this.taskContext.getIOManager();
+		
+		final MutableObjectIterator<IT> in = this.taskContext.getInput(0);
+		this.serializer = this.taskContext.getInputSerializer(0);
+		this.comparator = this.taskContext.getInputComparator(0);
+		
+		// obtain grouped iterator defined by local strategy
+		final long spillingMemorySize;
+		switch (ls) {
+		case SELF_NESTEDLOOP:
+			// input is already grouped, an iterator that wraps the reader is created and returned
+			this.input = new SimpleCloseableInputProvider<IT>(in);
+			spillingMemorySize = availableMemory;
+			break;
+		case SORT_SELF_NESTEDLOOP:
+			// the input is grouped using a sort-merge strategy
+			final long sortMemory = (long) (availableMemory * SORT_MEMORY_FRACTION);
+			this.input = new UnilateralSortMerger<IT>(memoryManager, ioManager, in,
+				this.taskContext.getOwningNepheleTask(), this.serializer, this.comparator.duplicate(),
+				sortMemory, maxFileHandles, spillThreshold);
+			spillingMemorySize = availableMemory - sortMemory;
+			break;
+		default:
+			throw new Exception("Invalid local strategy provided for SelfMatch task: " + ls.name());
+		}
+		
+		// the memory for the buffer that holds large groups for re-scanning
+		this.spillingMemory = memoryManager.allocatePages(this.taskContext.getOwningNepheleTask(), spillingMemorySize);
+		
+		@SuppressWarnings("unchecked")
+		final IT[] block = (IT[]) new Object[BLOCK_SIZE];
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+			block[i] = this.serializer.createInstance();
+		}
+		this.block = block;
+		this.copy1 = this.serializer.createInstance();
+		this.copy2 = this.serializer.createInstance();
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#run()
+	 */
+	@Override
+	public void run() throws Exception
+	{
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("SelfMatch preprocessing done. Running SelfMatch code."));
+		}
+		
+		final KeyGroupedIterator<IT> iter = new KeyGroupedIterator<IT>(
+				this.input.getIterator(), this.serializer, this.comparator);
+		
+		// cache references on the stack
+		final GenericMatcher<IT, IT, OT> stub = this.taskContext.getStub();
+		final Collector<OT> output = this.taskContext.getOutputCollector();
+		
+		while (this.running && iter.nextKey()) {
+			matchGroup(iter.getValues(), stub, output);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.AbstractPactTask#cleanup()
+	 */
+	@Override
+	public void cleanup() throws Exception
+	{
+		if (this.input != null) {
+			this.input.close();
+			this.input = null;
+		}
+		if (this.spillingMemory != null) {
+			this.taskContext.getMemoryManager().release(this.spillingMemory);
+			this.spillingMemory = null;
+		}
+		this.block = null;
+	}
+
+	/* (non-Javadoc)
+	 * @see eu.stratosphere.pact.runtime.task.PactDriver#cancel()
+	 */
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Enumerates the pairs of records of one group, according to the cross mode.
+	 * <p>
+	 * The first block is filled directly from the group. The remaining records are paired with the first block
+	 * while they are written to the spilling buffer. Afterwards, each further block is read from the buffer and
+	 * paired with itself and with the records that follow it in the buffer. Hence, every pair is enumerated
+	 * exactly once, with the earlier record as the first and the later record as the second element.
+	 * 
+	 * @param values The records of the group.
+	 * @param stub The stub to hand the pairs to.
+	 * @param output The collector for the stub's results.
+	 * @throws Exception Thrown, if the stub or the spilling buffer caused an exception.
+	 */
+	private final void matchGroup(final Iterator<IT> values, final GenericMatcher<IT, IT, OT> stub,
+			final Collector<OT> output)
+	throws Exception
+	{
+		final IT[] block = this.block;
+		
+		int blockSize = 0;
+		while (blockSize < block.length && values.hasNext()) {
+			this.serializer.copyTo(values.next(), block[blockSize++]);
+		}
+		matchWithinBlock(blockSize, stub, output);
+		
+		if (!values.hasNext()) {
+			return;
+		}
+		
+		// the group does not fit into a single block. pair the first block with the remaining records,
+		// while writing them to the spilling buffer for the further blocks
+		final SpillingResettableMutableObjectIterator<IT> remaining =
+			new SpillingResettableMutableObjectIterator<IT>(new ValuesReader(values), this.serializer,
+				this.taskContext.getMemoryManager(), this.taskContext.getIOManager(), this.spillingMemory);
+		
+		try {
+			final IT record = this.serializer.createInstance();
+			int numRemaining = 0;
+			while (this.running && remaining.next(record)) {
+				matchBlockWithRecord(blockSize, record, stub, output);
+				numRemaining++;
+			}
+			
+			// process the remaining records block by block
+			int numProcessed = 0;
+			while (this.running && numProcessed < numRemaining) {
+				remaining.reset();
+				for (int i = 0; i < numProcessed; i++) {
+					remaining.next(record);
+				}
+				
+				blockSize = 0;
+				while (blockSize < block.length && remaining.next(block[blockSize])) {
+					blockSize++;
+				}
+				numProcessed += blockSize;
+				matchWithinBlock(blockSize, stub, output);
+				
+				while (this.running && remaining.next(record)) {
+					matchBlockWithRecord(blockSize, record, stub, output);
+				}
+			}
+		}
+		finally {
+			this.spillingMemory = remaining.close();
+		}
+	}
+	
+	/**
+	 * Enumerates the pairs among the records in the block.
+	 */
+	private final void matchWithinBlock(final int blockSize, final GenericMatcher<IT, IT, OT> stub,
+			final Collector<OT> output)
+	throws Exception
+	{
+		final IT[] block = this.block;
+		final boolean diagonal = this.crossMode != CrossMode.TRIANGLE_CROSS_EXCL_DIAG;
+		
+		for (int i = 0; i < blockSize && this.running; i++) {
+			if (diagonal) {
+				match(block[i], block[i], stub, output);
+			}
+			for (int j = i + 1; j < blockSize; j++) {
+				matchPair(block[i], block[j], stub, output);
+			}
+		}
+	}
+	
+	/**
+	 * Enumerates the pairs of the records in the block with a record that follows the block in the group.
+	 */
+	private final void matchBlockWithRecord(final int blockSize, final IT record,
+			final GenericMatcher<IT, IT, OT> stub, final Collector<OT> output)
+	throws Exception
+	{
+		final IT[] block = this.block;
+		for (int i = 0; i < blockSize; i++) {
+			matchPair(block[i], record, stub, output);
+		}
+	}
+	
+	/**
+	 * Hands the pair of an earlier and a later record of the group to the stub. In the full cross mode,
+	 * the pair is handed over in both orders.
+	 */
+	private final void matchPair(final IT earlier, final IT later, final GenericMatcher<IT, IT, OT> stub,
+			final Collector<OT> output)
+	throws Exception
+	{
+		match(earlier, later, stub, output);
+		if (this.crossMode == CrossMode.FULL_CROSS) {
+			match(later, earlier, stub, output);
+		}
+	}
+	
+	/**
+	 * Calls the stub with copies of the records, such that modifications by the stub do not affect the buffered
+	 * records.
+	 */
+	private final void match(final IT first, final IT second, final GenericMatcher<IT, IT, OT> stub,
+			final Collector<OT> output)
+	throws Exception
+	{
+		this.serializer.copyTo(first, this.copy1);
+		this.serializer.copyTo(second, this.copy2);
+		stub.match(this.copy1, this.copy2, output);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Reads the values of a group as a {@link MutableObjectIterator}.
+	 */
+	private final class ValuesReader implements MutableObjectIterator<IT>
+	{
+		private final Iterator<IT> values;
+		
+		private ValuesReader(Iterator<IT> values) {
+			this.values = values;
+		}
+
+		/* (non-Javadoc)
+		 * @see eu.stratosphere.pact.common.util.MutableObjectIterator#next(java.lang.Object)
+		 */
+		@Override
+		public boolean next(IT target) throws IOException {
+			if (SelfMatchDriver.this.running && this.values.hasNext()) {
+				SelfMatchDriver.this.serializer.copyTo(this.values.next(), target);
+				return true;
+			} else {
+				return false;
+			}
+		}
+	}
+}
@@ -57,6 +57,8 @@ public class TaskConfig
 		SORT_SECOND_MERGE,
 		// both (already sorted) inputs are merged
 		MERGE,
+		// both inputs are hash-partitioned into buckets, the pairs of buckets are sorted and merged
+		PARTITIONED_SORT_BOTH_MERGE,
 		// input is sorted, within a key values are crossed in a nested loop fashion
 		SORT_SELF_NESTEDLOOP,
 		// already grouped input, within a key values are crossed in a nested loop fashion
@@ -73,6 +75,12 @@ public class TaskConfig
 		MMHASH_FIRST,
 		// the second input is build side, the first side is probe side of an in-memory hash table
 		MMHASH_SECOND,
+		// the first input is build side of a hybrid hash table, the second side is probed record by record and
+		// the unmatched build side records are grouped after probing
+		HYBRIDHASH_COGROUP_FIRST,
+		// the second input is build side of a hybrid hash table, the first side is probed record by record and
+		// the unmatched build side records are grouped after probing
+		HYBRIDHASH_COGROUP_SECOND,
 		// the second input is inner loop, the first input is outer loop and block-wise processed
 		NESTEDLOOP_BLOCKED_OUTER_FIRST,
 		// the first input is inner loop, the second input is outer loop and block-wise processed
@@ -145,6 +153,10 @@ public class TaskConfig
 	private static final String NUM_FILEHANDLES = "pact.filehandles.num";
 	
 	private static final String SORT_SPILLING_THRESHOLD = "pact.sort.spillthreshold";
+	
+	private static final String CROSS_CACHE_BLOCK_SIZE = "pact.cross.cacheblocksize";
+	
+	private static final String SPILLING_MAPPED_READS = "pact.spilling.mappedreads";
 
 	// --------------------------------------------------------------------------------------------
 	
@@ -531,6 +543,31 @@ public class TaskConfig
 		this.config.setFloat(SORT_SPILLING_THRESHOLD, threshold);
 	}
 	
+	/**
+	 * Sets the size of the blocks (in serialized bytes) into which the nested-loops cross splits the records of
+	 * its outer side, if the inner side is held in memory. The blocks should fit into the processor's cache.
+	 * 
+	 * @param blockSize The block size in bytes.
+	 */
+	public void setCrossCacheBlockSize(long blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		
+		this.config.setLong(CROSS_CACHE_BLOCK_SIZE, blockSize);
+	}
+	
+	/**
+	 * Sets whether data that was spilled to disk in order to be read multiple times (such as the inner side of a
+	 * nested-loops cross) is read back through a memory mapping of the spill file. The job graph generator sets
+	 * this flag for all cross tasks, according to the option <code>pact.runtime.spilling.mappedreads</code>.
+	 * 
+	 * @param mappedReads True, if spilled data should be read through a memory mapping, false otherwise.
+	 */
+	public void setSpillingMappedReads(boolean mappedReads) {
+		this.config.setBoolean(SPILLING_MAPPED_READS, mappedReads);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -564,6 +601,28 @@ public class TaskConfig
 		return this.config.getFloat(SORT_SPILLING_THRESHOLD, 0.7f);
 	}
 	
+	/**
+	 * Gets the size of the blocks (in serialized bytes) into which the nested-loops cross splits the records of
+	 * its outer side, if the inner side is held in memory.
+	 * <p>
+	 * If the value is not set, this method returns a default value of <code>256 KiBytes</code>.
+	 * 
+	 * @return The size of the cache-resident blocks in bytes.
+	 */
+	public long getCrossCacheBlockSize() {
+		return this.config.getLong(CROSS_CACHE_BLOCK_SIZE, 256 * 1024);
+	}
+	
+	/**
+	 * Checks whether data that was spilled to disk in order to be read multiple times is read back through a
+	 * memory mapping of the spill file. If the value is not set, this method returns <code>false</code>.
+	 * 
+	 * @return True, if spilled data is read through a memory mapping, false otherwise.
+	 */
+	public boolean getSpillingMappedReads() {
+		return this.config.getBoolean(SPILLING_MAPPED_READS, false);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                    Parameters for Stub Chaining
 	// --------------------------------------------------------------------------------------------
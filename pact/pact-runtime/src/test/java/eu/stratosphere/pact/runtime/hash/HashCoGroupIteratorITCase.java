@@ -0,0 +1,244 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.pact.common.generic.types.TypeComparator;
+import eu.stratosphere.pact.common.generic.types.TypePairComparator;
+import eu.stratosphere.pact.common.generic.types.TypeSerializer;
+import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.pact.runtime.plugable.PactRecordComparator;
+import eu.stratosphere.pact.runtime.plugable.PactRecordPairComparator;
+import eu.stratosphere.pact.runtime.plugable.PactRecordSerializer;
+import eu.stratosphere.pact.runtime.task.util.CoGroupTaskIterator;
+import eu.stratosphere.pact.runtime.test.util.DummyInvokable;
+import eu.stratosphere.pact.runtime.test.util.TestData;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.KeyMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.ValueMode;
+
+/**
+ * Tests the hash-based CoGroup iterators. Since the probe side is streamed record by record, the expected
+ * result is one group per probe side record, paired with all build side records of its key, plus one group
+ * with an empty probe side for every key that occurs only on the build side.
+ */
+public class HashCoGroupIteratorITCase
+{
+	private static final int MEMORY_SIZE = 16000000;		// total memory
+
+	private static final int INPUT_1_SIZE = 20000;
+	private static final int INPUT_2_SIZE = 1000;
+
+	private static final long SEED1 = 561349061987311L;
+	private static final long SEED2 = 231434613412342L;
+	
+	private final AbstractTask parentTask = new DummyInvokable();
+
+	private IOManager ioManager;
+	private MemoryManager memoryManager;
+	
+	private TypeSerializer<PactRecord> serializer;
+	private TypeComparator<PactRecord> comparator1;
+	private TypeComparator<PactRecord> comparator2;
+	private TypePairComparator<PactRecord, PactRecord> pairComparator;
+
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void beforeTest()
+	{
+		this.serializer = PactRecordSerializer.get();
+		this.comparator1 = new PactRecordComparator(new int[] {0}, new Class[] {TestData.Key.class});
+		this.comparator2 = new PactRecordComparator(new int[] {0}, new Class[] {TestData.Key.class});
+		this.pairComparator = new PactRecordPairComparator(new int[] {0}, new int[] {0}, new Class[] {TestData.Key.class});
+		
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE);
+		this.ioManager = new IOManager();
+	}
+
+	@After
+	public void afterTest()
+	{
+		if (this.ioManager != null) {
+			this.ioManager.shutdown();
+			if (!this.ioManager.isProperlyShutDown()) {
+				Assert.fail("I/O manager failed to properly shut down.");
+			}
+			this.ioManager = null;
+		}
+		
+		if (this.memoryManager != null) {
+			Assert.assertTrue("Memory Leak: Not all memory has been returned to the memory manager.",
+				this.memoryManager.verifyEmpty());
+			this.memoryManager.shutdown();
+			this.memoryManager = null;
+		}
+	}
+
+	@Test
+	public void testBuildFirstWithSpilling()
+	{
+		try {
+			// the first input does not fit into memory, so the hash table spills partitions
+			Generator generator1 = new Generator(SEED1, 500, 4096, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			Generator generator2 = new Generator(SEED2, 600, 2048, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			
+			final Map<TestData.Key, Collection<TestData.Value>> buildValues = collectData(generator1, INPUT_1_SIZE);
+			final Map<TestData.Key, Collection<TestData.Value>> probeValues = collectData(generator2, INPUT_2_SIZE);
+			generator1.reset();
+			generator2.reset();
+			
+			BuildFirstHashCoGroupIterator<PactRecord, PactRecord> iterator = 
+				new BuildFirstHashCoGroupIterator<PactRecord, PactRecord>(
+					new TestData.GeneratorIterator(generator1, INPUT_1_SIZE),
+					new TestData.GeneratorIterator(generator2, INPUT_2_SIZE),
+					this.serializer, this.comparator1, this.serializer, this.comparator2, this.pairComparator,
+					this.memoryManager, this.ioManager, this.parentTask, MEMORY_SIZE);
+			
+			iterator.open();
+			checkGroups(iterator, true, buildValues, probeValues);
+			iterator.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("An exception occurred during the test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testBuildSecondInMemory()
+	{
+		try {
+			Generator generator1 = new Generator(SEED1, 600, 2048, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			Generator generator2 = new Generator(SEED2, 500, 1024, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			
+			final Map<TestData.Key, Collection<TestData.Value>> probeValues = collectData(generator1, INPUT_1_SIZE);
+			final Map<TestData.Key, Collection<TestData.Value>> buildValues = collectData(generator2, INPUT_2_SIZE);
+			generator1.reset();
+			generator2.reset();
+			
+			BuildSecondHashCoGroupIterator<PactRecord, PactRecord> iterator = 
+				new BuildSecondHashCoGroupIterator<PactRecord, PactRecord>(
+					new TestData.GeneratorIterator(generator1, INPUT_1_SIZE),
+					new TestData.GeneratorIterator(generator2, INPUT_2_SIZE),
+					this.serializer, this.comparator1, this.serializer, this.comparator2, this.pairComparator,
+					this.memoryManager, this.ioManager, this.parentTask, MEMORY_SIZE);
+			
+			iterator.open();
+			checkGroups(iterator, false, buildValues, probeValues);
+			iterator.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("An exception occurred during the test: " + e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void checkGroups(CoGroupTaskIterator<PactRecord, PactRecord> iterator, boolean buildFirst,
+			Map<TestData.Key, Collection<TestData.Value>> buildValues,
+			Map<TestData.Key, Collection<TestData.Value>> probeValues)
+	throws Exception
+	{
+		final Set<TestData.Key> buildOnlyKeys = new HashSet<TestData.Key>(buildValues.keySet());
+		buildOnlyKeys.removeAll(probeValues.keySet());
+		
+		final TestData.Key key = new TestData.Key();
+		while (iterator.next())
+		{
+			final Iterator<PactRecord> buildIter = buildFirst ? iterator.getValues1() : iterator.getValues2();
+			final Iterator<PactRecord> probeIter = buildFirst ? iterator.getValues2() : iterator.getValues1();
+			
+			if (probeIter.hasNext()) {
+				// exactly one probe side record, together with the complete build side group of its key
+				PactRecord rec = probeIter.next();
+				rec.getFieldInto(0, key);
+				Assert.assertTrue("Unexpected probe side record for key " + key,
+					probeValues.get(key).remove(rec.getField(1, TestData.Value.class)));
+				Assert.assertFalse("More than one probe side record in a group.", probeIter.hasNext());
+				
+				Collection<TestData.Value> expected = buildValues.get(key);
+				assertSameValues(key, expected == null ? new ArrayList<TestData.Value>() : expected, buildIter);
+			}
+			else {
+				// a build side group without any probe side record
+				Assert.assertTrue("Group with empty build and probe side.", buildIter.hasNext());
+				PactRecord rec = buildIter.next();
+				rec.getFieldInto(0, key);
+				Assert.assertTrue("Unmatched build side group for key " + key + " returned wrongly or twice.",
+					buildOnlyKeys.remove(key));
+				
+				Collection<TestData.Value> expected = new ArrayList<TestData.Value>(buildValues.get(key));
+				Assert.assertTrue(expected.remove(rec.getField(1, TestData.Value.class)));
+				assertSameValues(key, expected, buildIter);
+			}
+		}
+		
+		for (Entry<TestData.Key, Collection<TestData.Value>> entry : probeValues.entrySet()) {
+			Assert.assertTrue("Probe side records for key " + entry.getKey() + " were not returned.",
+				entry.getValue().isEmpty());
+		}
+		Assert.assertTrue("Unmatched build side groups were not returned: " + buildOnlyKeys, buildOnlyKeys.isEmpty());
+	}
+	
+	private static void assertSameValues(TestData.Key key, Collection<TestData.Value> expected,
+			Iterator<PactRecord> actual)
+	{
+		final List<TestData.Value> remaining = new ArrayList<TestData.Value>(expected);
+		while (actual.hasNext()) {
+			TestData.Value value = actual.next().getField(1, TestData.Value.class);
+			Assert.assertTrue("Unexpected build side value for key " + key, remaining.remove(value));
+		}
+		Assert.assertTrue("Build side values missing for key " + key, remaining.isEmpty());
+	}
+	
+	private static Map<TestData.Key, Collection<TestData.Value>> collectData(Generator iter, int num)
+	throws Exception
+	{
+		Map<TestData.Key, Collection<TestData.Value>> map = new HashMap<TestData.Key, Collection<TestData.Value>>();
+		PactRecord pair = new PactRecord();
+		
+		for (int i = 0; i < num; i++) {
+			iter.next(pair);
+			TestData.Key key = pair.getField(0, TestData.Key.class);
+			
+			if (!map.containsKey(key)) {
+				map.put(new TestData.Key(key.getKey()), new ArrayList<TestData.Value>());
+			}
+			map.get(key).add(new TestData.Value(pair.getField(1, TestData.Value.class).getValue()));
+		}
+		return map;
+	}
+}
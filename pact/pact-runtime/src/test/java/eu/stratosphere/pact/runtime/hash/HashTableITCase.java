@@ -727,6 +727,50 @@ public class HashTableITCase
 		this.memManager.release(join.getFreedMemory());
 	}
 	
+	/*
+	 * Builds a table whose memory is too small for the build side, while other consumers of the owner
+	 * have released memory to it. The table must grow into that memory.
+	 */
+	@Test
+	public void testGrowIntoReleasedMemory() throws IOException, MemoryAllocationException
+	{
+		final int NUM_KEYS = 100000;
+		final int NUM_RELEASED_PAGES = 832;
+		
+		// simulate a consumer that is done with its memory
+		this.memManager.releaseToOwner(this.memManager.allocatePages(MEM_OWNER, NUM_RELEASED_PAGES));
+		
+		// the regular allocation takes its pages out of the released ones
+		final List<MemorySegment> memSegments = this.memManager.allocatePages(MEM_OWNER, 64);
+		final MutableHashTable<PactRecord, PactRecord> join = new MutableHashTable<PactRecord, PactRecord>(
+				this.recordBuildSideAccesssor, this.recordProbeSideAccesssor, 
+				this.recordBuildSideComparator, this.recordProbeSideComparator, this.pactRecordComparator,
+				memSegments, ioManager);
+		join.setMemoryToReclaim(this.memManager, MEM_OWNER);
+		join.open(new UniformPactRecordGenerator(NUM_KEYS, 1, false),
+			new UniformPactRecordGenerator(NUM_KEYS, 1, true));
+		
+		final PactRecord record = new PactRecord();
+		int numRecordsInJoinResult = 0;
+		while (join.nextRecord()) {
+			HashBucketIterator<PactRecord, PactRecord> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(record)) {
+				numRecordsInJoinResult++;
+			}
+		}
+		Assert.assertEquals("Wrong number of records in join result.", NUM_KEYS, numRecordsInJoinResult);
+		
+		join.close();
+		
+		final int numReclaimed = join.getFreedMemory().size() - 64;
+		Assert.assertTrue("The table did not grow into the released memory.", numReclaimed > 0);
+		Assert.assertEquals("The table reclaimed memory that was not released to its owner.",
+			NUM_RELEASED_PAGES - 64 - numReclaimed, this.memManager.getNumberOfReclaimablePages(MEM_OWNER));
+		
+		this.memManager.release(join.getFreedMemory());
+		this.memManager.releaseAll(MEM_OWNER);
+	}
+	
 	// ============================================================================================
 	//                                 Integer Pairs based Tests
 	// ============================================================================================
@@ -0,0 +1,173 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2012 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.plugable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.services.memorymanager.MemorySegment;
+import eu.stratosphere.pact.common.type.Key;
+import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.pact.common.type.base.PactDouble;
+import eu.stratosphere.pact.common.type.base.PactInteger;
+import eu.stratosphere.pact.common.type.base.PactLong;
+import eu.stratosphere.pact.common.type.base.PactString;
+import eu.stratosphere.pact.runtime.io.RandomAccessInputView;
+import eu.stratosphere.pact.runtime.io.RandomAccessOutputView;
+
+/**
+ * Tests that the comparison of serialized records in {@link PactRecordComparator} yields the same order as the
+ * comparison of the deserialized keys.
+ */
+public class PactRecordComparatorTest
+{
+	private static final long SEED = 0x1234567890abcdefL;
+	
+	private static final int NUM_RECORDS = 2000;
+	
+	private static final int SEGMENT_SIZE = 64 * 1024;
+	
+	private static final int INT_FIELD = 0;
+	
+	private static final int STRING_FIELD = 1;
+	
+	private static final int LONG_FIELD = 2;
+	
+	private static final int DOUBLE_FIELD = 3;
+	
+	
+	private final MemorySegment segment1 = new MemorySegment(new byte[SEGMENT_SIZE], 0, SEGMENT_SIZE);
+	
+	private final MemorySegment segment2 = new MemorySegment(new byte[SEGMENT_SIZE], 0, SEGMENT_SIZE);
+	
+	@Test
+	public void testIntKeys() throws IOException
+	{
+		checkOrder(new int[] {INT_FIELD}, new Class[] {PactInteger.class}, null);
+	}
+	
+	@Test
+	public void testLongKeys() throws IOException
+	{
+		checkOrder(new int[] {LONG_FIELD}, new Class[] {PactLong.class}, null);
+	}
+	
+	@Test
+	public void testDoubleKeys() throws IOException
+	{
+		checkOrder(new int[] {DOUBLE_FIELD}, new Class[] {PactDouble.class}, null);
+	}
+	
+	@Test
+	public void testStringKeys() throws IOException
+	{
+		checkOrder(new int[] {STRING_FIELD}, new Class[] {PactString.class}, null);
+	}
+	
+	@Test
+	public void testCompositeKeysWithSortDirection() throws IOException
+	{
+		checkOrder(new int[] {STRING_FIELD, INT_FIELD, DOUBLE_FIELD},
+			new Class[] {PactString.class, PactInteger.class, PactDouble.class}, new boolean[] {false, true, false});
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void checkOrder(int[] keyFields, @SuppressWarnings("rawtypes") Class[] keyTypes, boolean[] ascending)
+	throws IOException
+	{
+		final PactRecordComparator comparator = new PactRecordComparator(keyFields, keyTypes, ascending);
+		final Random rnd = new Random(SEED);
+		
+		PactRecord previous = createRecord(rnd);
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			// every now and then compare a record with itself to cover equal keys
+			final PactRecord current = (i % 10 == 0) ? previous.createCopy() : createRecord(rnd);
+			
+			final int expected = compareKeys(previous, current, keyFields, keyTypes, ascending);
+			final int actual = comparator.compare(serialize(previous, this.segment1), serialize(current, this.segment2));
+			Assert.assertEquals("Wrong comparison result for records " + i + " and " + (i + 1),
+				Integer.signum(expected), Integer.signum(actual));
+			
+			previous = current;
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static int compareKeys(PactRecord rec1, PactRecord rec2, int[] keyFields,
+			@SuppressWarnings("rawtypes") Class[] keyTypes, boolean[] ascending)
+	{
+		for (int i = 0; i < keyFields.length; i++) {
+			final Key k1 = rec1.getField(keyFields[i], (Class<? extends Key>) keyTypes[i]);
+			final Key k2 = rec2.getField(keyFields[i], (Class<? extends Key>) keyTypes[i]);
+			final int comp = k1.compareTo(k2);
+			if (comp != 0) {
+				return ascending == null || ascending[i] ? comp : -comp;
+			}
+		}
+		return 0;
+	}
+	
+	private static RandomAccessInputView serialize(PactRecord record, MemorySegment segment) throws IOException
+	{
+		final RandomAccessOutputView out = new RandomAccessOutputView(new MemorySegment[] {segment}, SEGMENT_SIZE);
+		record.serialize(out);
+		
+		final ArrayList<MemorySegment> segments = new ArrayList<MemorySegment>(1);
+		segments.add(segment);
+		return new RandomAccessInputView(segments, SEGMENT_SIZE, out.getCurrentPositionInSegment());
+	}
+	
+	private static PactRecord createRecord(Random rnd)
+	{
+		final PactRecord record = new PactRecord(4);
+		record.setField(INT_FIELD, new PactInteger(rnd.nextInt(64) - 32));
+		record.setField(STRING_FIELD, new PactString(createString(rnd)));
+		record.setField(LONG_FIELD, new PactLong(rnd.nextBoolean() ? rnd.nextLong() : rnd.nextInt(16) - 8));
+		
+		final double d;
+		switch (rnd.nextInt(6)) {
+		case 0:
+			d = 0.0;
+			break;
+		case 1:
+			d = -0.0;
+			break;
+		case 2:
+			d = Double.NEGATIVE_INFINITY;
+			break;
+		default:
+			d = (rnd.nextDouble() - 0.5) * 1000;
+		}
+		record.setField(DOUBLE_FIELD, new PactDouble(d));
+		return record;
+	}
+	
+	private static String createString(Random rnd)
+	{
+		// short strings from a small alphabet, so that many strings share prefixes,
+		// with some characters that need two or three bytes in the variable length encoding
+		final char[] alphabet = {'a', 'b', 'z', '\u00e4', '\u00ff', '\u4e2d', '\uffee'};
+		final char[] chars = new char[rnd.nextInt(6)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = alphabet[rnd.nextInt(alphabet.length)];
+		}
+		return new String(chars);
+	}
+}
@@ -129,6 +129,93 @@ public class SpillingResettableMutableObjectIteratorTest
 		}
 	}
 
+	/**
+	 * Tests the resettable iterator with too little memory, so that the data has to be written to disk,
+	 * and reads the spilled data back through a memory mapping of the spill file.
+	 */
+	@Test
+	public void testResettableIteratorMapped()
+	{
+		try {
+			final AbstractInvokable memOwner = new DummyInvokable();
+	
+			// create the resettable Iterator
+			SpillingResettableMutableObjectIterator<PactRecord> iterator = new SpillingResettableMutableObjectIterator<PactRecord>(
+				this.reader, this.serializer, this.memman, this.ioman, 2 * 32 * 1024, memOwner, true);
+			iterator.open();
+			
+			// now test walking through the iterator
+			int count = 0;
+			PactRecord target = new PactRecord();
+			while (iterator.next(target))
+				Assert.assertEquals("In initial run, element " + count + " does not match expected value!", count++,
+					target.getField(0, PactInteger.class).getValue());
+			Assert.assertEquals("Too few elements were deserialzied in initial run!", NUM_TESTRECORDS, count);
+			// test resetting the iterator a few times
+			for (int j = 0; j < 10; ++j) {
+				count = 0;
+				iterator.reset();
+				// now we should get the same results
+				while (iterator.next(target))
+					Assert.assertEquals("After reset nr. " + j + 1 + " element " + count
+						+ " does not match expected value!", count++, target.getField(0, PactInteger.class).getValue());
+				Assert.assertEquals("Too few elements were deserialzied after reset nr. " + j + 1 + "!", NUM_TESTRECORDS,
+					count);
+			}
+			// close the iterator
+			iterator.close();
+		} catch (Exception ex)  {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception.");
+		}
+	}
+
+	/**
+	 * Tests that the resettable iterator hands back the memory it does not need for reading after the data
+	 * was written to disk, and that the data can still be read completely afterwards.
+	 */
+	@Test
+	public void testResettableIteratorReleaseExcessMemory()
+	{
+		try {
+			final AbstractInvokable memOwner = new DummyInvokable();
+	
+			// create the resettable Iterator
+			SpillingResettableMutableObjectIterator<PactRecord> iterator = new SpillingResettableMutableObjectIterator<PactRecord>(
+				this.reader, this.serializer, this.memman, this.ioman, 8 * 32 * 1024, memOwner);
+			iterator.open();
+			
+			// walk through the iterator once to spill the data
+			int count = 0;
+			PactRecord target = new PactRecord();
+			while (iterator.next(target))
+				count++;
+			Assert.assertEquals("Too few elements were deserialzied in initial run!", NUM_TESTRECORDS, count);
+			Assert.assertFalse("The data was not spilled.", iterator.isInMemory());
+			
+			iterator.reset();
+			Assert.assertEquals("Wrong number of released pages.", 6, iterator.releaseExcessMemory(2));
+			
+			// test reading with the remaining memory a few times
+			for (int j = 0; j < 3; ++j) {
+				count = 0;
+				if (j > 0) {
+					iterator.reset();
+				}
+				while (iterator.next(target))
+					Assert.assertEquals("After reset nr. " + j + 1 + " element " + count
+						+ " does not match expected value!", count++, target.getField(0, PactInteger.class).getValue());
+				Assert.assertEquals("Too few elements were deserialzied after reset nr. " + j + 1 + "!", NUM_TESTRECORDS,
+					count);
+			}
+			// close the iterator
+			iterator.close();
+		} catch (Exception ex)  {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception.");
+		}
+	}
+
 	/**
 	 * Tests the resettable iterator with enough memory so that all data is kept locally in memory.
 	 */
@@ -16,8 +16,11 @@
 package eu.stratosphere.pact.runtime.sort;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -26,6 +29,7 @@ import org.junit.Test;
 import eu.stratosphere.pact.common.generic.types.TypeComparator;
 import eu.stratosphere.pact.common.generic.types.TypeSerializer;
 import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.pact.common.type.base.PactString;
 import eu.stratosphere.pact.common.util.MutableObjectIterator;
 import eu.stratosphere.pact.runtime.plugable.PactRecordComparator;
 import eu.stratosphere.pact.runtime.plugable.PactRecordSerializer;
@@ -208,4 +212,92 @@ public class MergeIteratorTest
 		
 		Assert.assertTrue("Merge must have returned a wrong result", violationFound);
 	}
+	
+	@Test
+	public void testMergeOfUnevenAndEmptyStreams() throws Exception
+	{
+		final Random rnd = new Random(4356234L);
+		
+		// seven streams, two of them empty, with descending order
+		@SuppressWarnings("unchecked")
+		final TypeComparator<PactRecord> descending = new PactRecordComparator(new int[] {0},
+					new Class[] { TestData.Key.class}, new boolean[] {false});
+		
+		final List<MutableObjectIterator<PactRecord>> iterators = new ArrayList<MutableObjectIterator<PactRecord>>();
+		final List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 7; i++) {
+			final int num = (i == 2 || i == 5) ? 0 : rnd.nextInt(200);
+			final int[] keys = new int[num];
+			final String[] values = new String[num];
+			for (int k = 0; k < num; k++) {
+				keys[k] = rnd.nextInt(100) - 50;
+				values[k] = String.valueOf(i);
+			}
+			Arrays.sort(keys);
+			for (int lo = 0, hi = num - 1; lo < hi; lo++, hi--) {
+				final int tmp = keys[lo];
+				keys[lo] = keys[hi];
+				keys[hi] = tmp;
+			}
+			for (int k = 0; k < num; k++) {
+				expected.add(keys[k]);
+			}
+			iterators.add(newIterator(keys, values));
+		}
+		Collections.sort(expected, Collections.reverseOrder());
+		
+		final MutableObjectIterator<PactRecord> iterator = 
+			new MergeIterator<PactRecord>(iterators, this.serializer, descending);
+		final PactRecord rec = new PactRecord();
+		
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertTrue("Too few elements returned from stream.", iterator.next(rec));
+			Assert.assertEquals(expected.get(i).intValue(), rec.getField(0, TestData.Key.class).getKey());
+		}
+		Assert.assertFalse("Too many elements returned from stream.", iterator.next(rec));
+	}
+	
+	@Test
+	public void testMergeOfStringKeysWithCommonPrefixes() throws Exception
+	{
+		@SuppressWarnings("unchecked")
+		final TypeComparator<PactRecord> stringComparator = new PactRecordComparator(new int[] {0},
+					new Class[] { PactString.class});
+		
+		final String[][] streams = new String[][] {
+			{ "aaaaaaaaaa", "aaaaaaaaac", "aaaaaaaaae", "b" },
+			{ "aaaaaaaaab", "aaaaaaaaad", "aaaaaaaaaz" },
+			{ "", "aaaaaaaa", "aaaaaaaaab", "zz" }
+		};
+		
+		final List<MutableObjectIterator<PactRecord>> iterators = new ArrayList<MutableObjectIterator<PactRecord>>();
+		final List<String> expected = new ArrayList<String>();
+		for (final String[] stream : streams) {
+			expected.addAll(Arrays.asList(stream));
+			iterators.add(new MutableObjectIterator<PactRecord>() {
+				private int current = 0;
+				
+				@Override
+				public boolean next(PactRecord target) {
+					if (this.current < stream.length) {
+						target.setField(0, new PactString(stream[this.current++]));
+						return true;
+					} else {
+						return false;
+					}
+				}
+			});
+		}
+		Collections.sort(expected);
+		
+		final MutableObjectIterator<PactRecord> iterator = 
+			new MergeIterator<PactRecord>(iterators, this.serializer, stringComparator);
+		final PactRecord rec = new PactRecord();
+		
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertTrue("Too few elements returned from stream.", iterator.next(rec));
+			Assert.assertEquals(expected.get(i), rec.getField(0, PactString.class).getValue());
+		}
+		Assert.assertFalse("Too many elements returned from stream.", iterator.next(rec));
+	}
 }
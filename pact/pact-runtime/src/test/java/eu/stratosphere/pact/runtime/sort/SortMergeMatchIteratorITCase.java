@@ -312,6 +312,64 @@ public class SortMergeMatchIteratorITCase
 		}
 	}
 	
+	@Test
+	public void testPartitionedSortBothMerge() {
+		testPartitionedSortBothMerge(MEMORY_SIZE);
+	}
+	
+	@Test
+	public void testPartitionedSortBothMergeLowMemory() {
+		// little memory, such that the buckets of the larger input need to be sorted externally
+		testPartitionedSortBothMerge(MEMORY_SIZE / 4);
+	}
+	
+	private void testPartitionedSortBothMerge(long memory) {
+		try {
+			final TestData.Generator generator1 = new Generator(SEED1, 500, 4096, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			final TestData.Generator generator2 = new Generator(SEED2, 500, 2048, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+
+			final TestData.GeneratorIterator input1 = new TestData.GeneratorIterator(generator1, INPUT_1_SIZE);
+			final TestData.GeneratorIterator input2 = new TestData.GeneratorIterator(generator2, INPUT_2_SIZE);
+			
+			// collect expected data
+			final Map<TestData.Key, Collection<Match>> expectedMatchesMap = matchValues(
+				collectData(input1),
+				collectData(input2));
+			
+			final MatchStub matcher = new MatchRemovingMatcher(expectedMatchesMap);
+			
+			final Collector<PactRecord> collector = new DiscardingOutputCollector();
+	
+			// reset the generators
+			generator1.reset();
+			generator2.reset();
+			input1.reset();
+			input2.reset();
+	
+			// compare with iterator values
+			PartitionedSortMergeMatchIterator<PactRecord, PactRecord, PactRecord> iterator = 
+					new PartitionedSortMergeMatchIterator<PactRecord, PactRecord, PactRecord>(
+						input1, input2, this.serializer1, this.comparator1, this.serializer2, this.comparator2,
+						this.pairComparator, this.memoryManager, this.ioManager, 
+						memory, 64, 0.7f, this.parentTask);
+	
+			iterator.open();
+			
+			while (iterator.callWithNextKey(matcher, collector));
+			
+			iterator.close();
+	
+			// assert that each expected match was seen
+			for (Entry<TestData.Key, Collection<Match>> entry : expectedMatchesMap.entrySet()) {
+				Assert.assertTrue("Collection for key " + entry.getKey() + " is not empty", entry.getValue().isEmpty());
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("An exception occurred during the test: " + e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testMergeWithHighNumberOfCommonKeys()
 	{
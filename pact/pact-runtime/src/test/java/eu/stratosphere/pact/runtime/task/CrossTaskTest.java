@@ -16,7 +16,9 @@
 package eu.stratosphere.pact.runtime.task;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -28,6 +30,7 @@ import eu.stratosphere.pact.common.generic.GenericCrosser;
 import eu.stratosphere.pact.common.stubs.Collector;
 import eu.stratosphere.pact.common.stubs.CrossStub;
 import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.pact.common.type.base.PactInteger;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
 import eu.stratosphere.pact.runtime.test.util.DelayingInfinitiveInputIterator;
 import eu.stratosphere.pact.runtime.test.util.DriverTestBase;
@@ -108,6 +111,97 @@ public class CrossTaskTest extends DriverTestBase<GenericCrosser<PactRecord, Pac
 		
 	}
 	
+	@Test
+	public void testBlockCacheSubBlocksOuterFirstCrossTask() {
+		testBlockCacheSubBlocks(LocalStrategy.NESTEDLOOP_BLOCKED_OUTER_FIRST, 5000, 7);
+	}
+	
+	@Test
+	public void testBlockCacheSubBlocksOuterSecondCrossTask() {
+		testBlockCacheSubBlocks(LocalStrategy.NESTEDLOOP_BLOCKED_OUTER_SECOND, 7, 5000);
+	}
+	
+	private void testBlockCacheSubBlocks(LocalStrategy strategy, int keyCnt1, int keyCnt2) {
+		// two pages of memory: the outer side needs multiple blocks, the inner side stays in memory
+		super.addInput(new UniformPactRecordGenerator(keyCnt1, 1, false));
+		super.addInput(new UniformPactRecordGenerator(keyCnt2, 1, false));
+		super.addOutput(this.outList);
+		
+		CrossDriver<PactRecord, PactRecord, PactRecord> testTask = new CrossDriver<PactRecord, PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(strategy);
+		super.getTaskConfig().setMemorySize(64 * 1024);
+		super.getTaskConfig().setCrossCacheBlockSize(256);
+		
+		try {
+			testDriver(testTask, MockPairCrossStub.class);
+		} catch (Exception e) {
+			LOG.debug(e);
+			Assert.fail("Invoke method caused exception.");
+		}
+		
+		Assert.assertEquals("Wrong result set size.", keyCnt1 * keyCnt2, this.outList.size());
+		
+		final Set<Long> pairs = new HashSet<Long>();
+		for (PactRecord record : this.outList) {
+			final long key1 = record.getField(0, PactInteger.class).getValue();
+			final long key2 = record.getField(1, PactInteger.class).getValue();
+			Assert.assertTrue("Duplicate pair (" + key1 + ", " + key2 + ")", pairs.add(key1 * keyCnt2 + key2));
+		}
+		
+		this.outList.clear();
+	}
+	
+	@Test
+	public void testBlockSpilledInnerCrossTask() {
+		int keyCnt1 = 4000;
+		int keyCnt2 = 4000;
+		
+		// two pages of memory: the inner side is spilled and the outer side needs multiple blocks
+		super.addInput(new UniformPactRecordGenerator(keyCnt1, 1, false));
+		super.addInput(new UniformPactRecordGenerator(keyCnt2, 1, false));
+		super.addOutput(this.outList);
+		
+		CrossDriver<PactRecord, PactRecord, PactRecord> testTask = new CrossDriver<PactRecord, PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(LocalStrategy.NESTEDLOOP_BLOCKED_OUTER_SECOND);
+		super.getTaskConfig().setMemorySize(64 * 1024);
+		
+		MockCountingCrossStub.count = 0;
+		try {
+			testDriver(testTask, MockCountingCrossStub.class);
+		} catch (Exception e) {
+			LOG.debug(e);
+			Assert.fail("Invoke method caused exception.");
+		}
+		
+		Assert.assertEquals("Wrong number of crossed pairs.", ((long) keyCnt1) * keyCnt2, MockCountingCrossStub.count);
+	}
+	
+	@Test
+	public void testBlockSpilledInnerMappedCrossTask() {
+		int keyCnt1 = 4000;
+		int keyCnt2 = 4000;
+		
+		// as above, but the passes over the spilled inner side read the spill file through a mapping
+		super.addInput(new UniformPactRecordGenerator(keyCnt1, 1, false));
+		super.addInput(new UniformPactRecordGenerator(keyCnt2, 1, false));
+		super.addOutput(this.outList);
+		
+		CrossDriver<PactRecord, PactRecord, PactRecord> testTask = new CrossDriver<PactRecord, PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(LocalStrategy.NESTEDLOOP_BLOCKED_OUTER_FIRST);
+		super.getTaskConfig().setMemorySize(64 * 1024);
+		super.getTaskConfig().setSpillingMappedReads(true);
+		
+		MockCountingCrossStub.count = 0;
+		try {
+			testDriver(testTask, MockCountingCrossStub.class);
+		} catch (Exception e) {
+			LOG.debug(e);
+			Assert.fail("Invoke method caused exception.");
+		}
+		
+		Assert.assertEquals("Wrong number of crossed pairs.", ((long) keyCnt1) * keyCnt2, MockCountingCrossStub.count);
+	}
+	
 	@Test
 	public void testFailingBlockCrossTask() {
 
@@ -529,6 +623,28 @@ public class CrossTaskTest extends DriverTestBase<GenericCrosser<PactRecord, Pac
 		}
 	}
 	
+	public static class MockPairCrossStub extends CrossStub {
+
+		private final PactRecord result = new PactRecord(2);
+		
+		@Override
+		public void cross(PactRecord record1, PactRecord record2, Collector<PactRecord> out) {
+			this.result.setField(0, record1.getField(0, PactInteger.class));
+			this.result.setField(1, record2.getField(0, PactInteger.class));
+			out.collect(this.result);
+		}
+	}
+	
+	public static class MockCountingCrossStub extends CrossStub {
+
+		static long count;
+		
+		@Override
+		public void cross(PactRecord record1, PactRecord record2, Collector<PactRecord> out) {
+			count++;
+		}
+	}
+	
 	public static class MockFailingCrossStub extends CrossStub {
 
 		int cnt = 0;
@@ -15,397 +15,265 @@
 
 package eu.stratosphere.pact.runtime.task;
 
-//import java.util.ArrayList;
-//import java.util.HashMap;
-//import java.util.List;
-//
-//import junit.framework.Assert;
-//
-//import org.apache.commons.logging.Log;
-//import org.apache.commons.logging.LogFactory;
-//import org.junit.Test;
-//
-//import eu.stratosphere.pact.common.stubs.Collector;
-//import eu.stratosphere.pact.common.stubs.MatchStub;
-//import eu.stratosphere.pact.common.type.PactRecord;
-//import eu.stratosphere.pact.common.type.base.PactInteger;
-//import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
-//import eu.stratosphere.pact.runtime.test.util.DelayingInfinitiveInputIterator;
-//import eu.stratosphere.pact.runtime.test.util.NirvanaOutputList;
-//import eu.stratosphere.pact.runtime.test.util.UniformPactRecordGenerator;
-//import eu.stratosphere.pact.runtime.test.util.TaskCancelThread;
-import eu.stratosphere.pact.runtime.test.util.TaskTestBase;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import junit.framework.Assert;
 
-public class SelfMatchTaskTest extends TaskTestBase
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import eu.stratosphere.pact.common.generic.GenericMatcher;
+import eu.stratosphere.pact.common.stubs.Collector;
+import eu.stratosphere.pact.common.stubs.MatchStub;
+import eu.stratosphere.pact.common.type.Key;
+import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.pact.common.type.base.PactInteger;
+import eu.stratosphere.pact.runtime.plugable.PactRecordComparator;
+import eu.stratosphere.pact.runtime.task.SelfMatchDriver.CrossMode;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig.LocalStrategy;
+import eu.stratosphere.pact.runtime.test.util.DelayingInfinitiveInputIterator;
+import eu.stratosphere.pact.runtime.test.util.DriverTestBase;
+import eu.stratosphere.pact.runtime.test.util.NirvanaOutputList;
+import eu.stratosphere.pact.runtime.test.util.TaskCancelThread;
+import eu.stratosphere.pact.runtime.test.util.UniformPactRecordGenerator;
+
+
+public class SelfMatchTaskTest extends DriverTestBase<GenericMatcher<PactRecord, PactRecord, PactRecord>>
 {
-//	private static final Log LOG = LogFactory.getLog(SelfMatchTaskTest.class);
-//	
-//	private final List<PactRecord> outList = new ArrayList<PactRecord>();
-//
-//	@Test
-//	public void testSortFullSelfMatchTask() {
-//
-//		int keyCnt = 10;
-//		int valCnt = 40;
-//				
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false), 1);
-//		super.addOutput(this.outList);
-//		
-//		SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//				
-//		super.registerTask(testTask, MockMatchStub.class);
-//		
-//		try {
-//			testTask.invoke();
-//		} catch (Exception e) {
-//			LOG.debug(e);
-//			e.printStackTrace();
-//			Assert.fail("Invoke method caused exception.");
-//		}
-//		
-//		int expCnt = keyCnt*(valCnt*valCnt);
-//				
-//		Assert.assertTrue("Resultset size was "+this.outList.size()+". Expected was "+expCnt, this.outList.size() == expCnt);
-//		
-//		HashMap<Integer,Integer> keyValCntMap = new HashMap<Integer, Integer>(keyCnt);
-//		for(PactRecord record : this.outList) {
-//			Integer key = record.getField(0, PactInteger.class).getValue();
-//			if(!keyValCntMap.containsKey(key)) {
-//				keyValCntMap.put(key,1);
-//			} else {
-//				keyValCntMap.put(key, keyValCntMap.get(key)+1);
-//			}
-//		}
-//		
-//		for(Integer key : keyValCntMap.keySet()) {
-//			Assert.assertTrue("Invalid value count for key: "+key+". Value count was: "+keyValCntMap.get(key)+
-//				" Expected was: "+(valCnt*valCnt), keyValCntMap.get(key).intValue() == (valCnt*valCnt));
-//		}
-//		
-//		this.outList.clear();
-//	}
-//	
-//	@Test
-//	public void testSortInclSelfMatchTask() {
-//
-//		int keyCnt = 10;
-//		int valCnt = 40;
-//				
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false), 0);
-//		super.addOutput(this.outList);
-//		
-//		SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		super.getTaskConfig().getStubParameters().setString(SelfMatchTask.SELFMATCH_CROSS_MODE_KEY, SelfMatchTask.CrossMode.TRIANGLE_CROSS_INCL_DIAG.toString());
-//				
-//		super.registerTask(testTask, MockMatchStub.class);
-//		
-//		try {
-//			testTask.invoke();
-//		} catch (Exception e) {
-//			LOG.debug(e);
-//			e.printStackTrace();
-//			Assert.fail("Invoke method caused exception.");
-//		}
-//		
-//		int expValCnt = (int)((valCnt+1) * (valCnt/2.0f));
-//		int expTotCnt = (keyCnt*expValCnt);
-//				
-//		Assert.assertTrue("Resultset size was "+this.outList.size()+". Expected was "+expTotCnt, this.outList.size() == expTotCnt);
-//		
-//		HashMap<Integer,Integer> keyValCntMap = new HashMap<Integer, Integer>(keyCnt);
-//		for(PactRecord record : this.outList) {
-//			
-//			Integer key = record.getField(0, PactInteger.class).getValue();
-//			if(!keyValCntMap.containsKey(key)) {
-//				keyValCntMap.put(key,1);
-//			} else {
-//				keyValCntMap.put(key, keyValCntMap.get(key)+1);
-//			}
-//		}
-//		
-//		for(Integer key : keyValCntMap.keySet()) {
-//			Assert.assertTrue("Invalid value count for key: "+key+". Value count was: "+keyValCntMap.get(key)+
-//				" Expected was: "+expValCnt, keyValCntMap.get(key).intValue() == expValCnt);
-//		}
-//		
-//		this.outList.clear();
-//	}
-//	
-//	@Test
-//	public void testSortExclSelfMatchTask() {
-//
-//		int keyCnt = 10;
-//		int valCnt = 40;
-//				
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false), 0);
-//		super.addOutput(this.outList);
-//		
-//		SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		super.getTaskConfig().getStubParameters().setString(SelfMatchTask.SELFMATCH_CROSS_MODE_KEY, SelfMatchTask.CrossMode.TRIANGLE_CROSS_EXCL_DIAG.toString());
-//				
-//		super.registerTask(testTask, MockMatchStub.class);
-//		
-//		try {
-//			testTask.invoke();
-//		} catch (Exception e) {
-//			LOG.debug(e);
-//			e.printStackTrace();
-//			Assert.fail("Invoke method caused exception.");
-//		}
-//		
-//		int expValCnt = (int)((valCnt) * ((valCnt-1.0f)/2.0f));
-//		int expTotCnt = (keyCnt*expValCnt);
-//				
-//		Assert.assertTrue("Resultset size was "+this.outList.size()+". Expected was "+expTotCnt, this.outList.size() == expTotCnt);
-//		
-//		HashMap<Integer,Integer> keyValCntMap = new HashMap<Integer, Integer>(keyCnt);
-//		for(PactRecord record : this.outList) {
-//			
-//			Integer key = record.getField(0, PactInteger.class).getValue();
-//			if(!keyValCntMap.containsKey(key)) {
-//				keyValCntMap.put(key,1);
-//			} else {
-//				keyValCntMap.put(key, keyValCntMap.get(key)+1);
-//			}
-//		}
-//		
-//		for(Integer key : keyValCntMap.keySet()) {
-//			Assert.assertTrue("Invalid value count for key: "+key+". Value count was: "+keyValCntMap.get(key)+
-//				" Expected was: "+(expValCnt), keyValCntMap.get(key).intValue() == expValCnt);
-//		}
-//		
-//		this.outList.clear();
-//	}
-//	
-//	
-//	@Test
-//	public void testNoneSelfMatchTask() {
-//
-//		int keyCnt = 100;
-//		int valCnt = 5;
-//				
-//		super.initEnvironment(3 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, true), 1);
-//		super.addOutput(this.outList);
-//		
-//		SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SELF_NESTEDLOOP);
-//		
-//		super.getTaskConfig().setMemorySize(3 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		
-//		super.registerTask(testTask, MockMatchStub.class);
-//		
-//		try {
-//			testTask.invoke();
-//		} catch (Exception e) {
-//			LOG.debug(e);
-//			Assert.fail("Invoke method caused exception.");
-//		}
-//		
-//		int expCnt = keyCnt*(valCnt*valCnt);
-//				
-//		Assert.assertTrue("Resultset size was "+this.outList.size()+". Expected was "+expCnt, this.outList.size() == expCnt);
-//		
-//		HashMap<Integer,Integer> keyValCntMap = new HashMap<Integer, Integer>(keyCnt);
-//		for(PactRecord record : this.outList) {
-//			
-//			Integer key = record.getField(0, PactInteger.class).getValue();
-//			
-//			if(!keyValCntMap.containsKey(key)) {
-//				keyValCntMap.put(key,1);
-//			} else {
-//				keyValCntMap.put(key, keyValCntMap.get(key)+1);
-//			}
-//		}
-//		for(Integer key : keyValCntMap.keySet()) {
-//			Assert.assertTrue("Invalid value count. Value count was: "+keyValCntMap.get(key)+
-//				" Expected was "+(valCnt*valCnt), keyValCntMap.get(key) == (valCnt*valCnt));
-//		}
-//		
-//		this.outList.clear();
-//		
-//	}
-//	
-//	@Test
-//	public void testFailingSortSelfMatchTask() {
-//
-//		int keyCnt = 20;
-//		int valCnt = 20;
-//		
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false), 1);
-//		super.addOutput(this.outList);
-//		
-//		SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		
-//		super.registerTask(testTask, MockFailingMatchStub.class);
-//		
-//		boolean stubFailed = false;
-//		
-//		try {
-//			testTask.invoke();
-//		} catch (Exception e) {
-//			stubFailed = true;
-//		}
-//		
-//		Assert.assertTrue("Stub exception was not forwarded.", stubFailed);
-//		
-//		this.outList.clear();
-//		
-//	}
-//	
-//	@Test
-//	public void testCancelSelfMatchTaskWhileSorting() {
-//		
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new DelayingInfinitiveInputIterator(100), 1);
-//		super.addOutput(new NirvanaOutputList());
-//		
-//		final SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		
-//		super.registerTask(testTask, MockMatchStub.class);
-//		
-//		Thread taskRunner = new Thread() {
-//			@Override
-//			public void run() {
-//				try {
-//					testTask.invoke();
-//				} catch (Exception ie) {
-//					ie.printStackTrace();
-//					Assert.fail("Task threw exception although it was properly canceled");
-//				}
-//			}
-//		};
-//		taskRunner.start();
-//		
-//		TaskCancelThread tct = new TaskCancelThread(1, taskRunner, testTask);
-//		tct.start();
-//		
-//		try {
-//			tct.join();
-//			taskRunner.join();		
-//		} catch(InterruptedException ie) {
-//			Assert.fail("Joining threads failed");
-//		}
-//	}
-//	
-//	@Test
-//	public void testCancelSelfMatchTaskWhileMatching() {
-//		
-//		int keyCnt = 20;
-//		int valCnt = 20;
-//		
-//		super.initEnvironment(6 * 1024 * 1024);
-//		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false), 1);
-//		super.addOutput(new NirvanaOutputList());
-//		
-//		final SelfMatchTask testTask = new SelfMatchTask();
-//		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
-//		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
-//		super.getTaskConfig().setNumFilehandles(4);
-//		super.getTaskConfig().setLocalStrategyKeyTypes(0, new int[]{0});
-//		super.getTaskConfig().setLocalStrategyKeyTypes(new Class[]{ PactInteger.class });
-//		
-//		super.registerTask(testTask, MockDelayingMatchStub.class);
-//		
-//		Thread taskRunner = new Thread() {
-//			@Override
-//			public void run() {
-//				try {
-//					testTask.invoke();
-//				} catch (Exception ie) {
-//					ie.printStackTrace();
-//					Assert.fail("Task threw exception although it was properly canceled");
-//				}
-//			}
-//		};
-//		taskRunner.start();
-//		
-//		TaskCancelThread tct = new TaskCancelThread(1, taskRunner, testTask);
-//		tct.start();
-//		
-//		try {
-//			tct.join();
-//			taskRunner.join();		
-//		} catch(InterruptedException ie) {
-//			Assert.fail("Joining threads failed");
-//		}
-//		
-//	}
-//	
-//	public static class MockMatchStub extends MatchStub {
-//
-//		@Override
-//		public void match(PactRecord value1, PactRecord value2, Collector out) throws Exception { 
-//			out.collect(value1);
-//		}
-//		
-//	}
-//	
-//	public static class MockFailingMatchStub extends MatchStub {
-//
-//		int cnt = 0;
-//		
-//		@Override
-//		public void match(PactRecord value1, PactRecord value2, Collector out) throws Exception {
-//			if(++this.cnt>=10) {
-//				throw new RuntimeException("Expected Test Exception");
-//			}
-//			
-//			out.collect(value1);
-//			
-//		}
-//		
-//	}
-//	
-//	
-//	public static class MockDelayingMatchStub extends MatchStub {
-//
-//		@Override
-//		public void match(PactRecord value1, PactRecord value2, Collector out)
-//				throws Exception {
-//			
-//			try {
-//				Thread.sleep(100);
-//			} catch (InterruptedException e) { }
-//			
-//		}
-//		
-//	}
+	private static final Log LOG = LogFactory.getLog(SelfMatchTaskTest.class);
+	
+	private final List<PactRecord> outList = new ArrayList<PactRecord>();
+	
+	
+	public SelfMatchTaskTest() {
+		super(6*1024*1024);
+	}
+	
+	@Test
+	public void testSortFullSelfMatchTask() {
+		runSelfMatch(LocalStrategy.SORT_SELF_NESTEDLOOP, null, 10, 40, false);
+		checkPairs(CrossMode.FULL_CROSS, 10, 40);
+	}
+	
+	@Test
+	public void testSortInclSelfMatchTask() {
+		runSelfMatch(LocalStrategy.SORT_SELF_NESTEDLOOP, CrossMode.TRIANGLE_CROSS_INCL_DIAG, 10, 40, false);
+		checkPairs(CrossMode.TRIANGLE_CROSS_INCL_DIAG, 10, 40);
+	}
+	
+	@Test
+	public void testSortExclSelfMatchTask() {
+		runSelfMatch(LocalStrategy.SORT_SELF_NESTEDLOOP, CrossMode.TRIANGLE_CROSS_EXCL_DIAG, 10, 40, false);
+		checkPairs(CrossMode.TRIANGLE_CROSS_EXCL_DIAG, 10, 40);
+	}
+	
+	@Test
+	public void testNoneSelfMatchTask() {
+		runSelfMatch(LocalStrategy.SELF_NESTEDLOOP, null, 100, 5, true);
+		checkPairs(CrossMode.FULL_CROSS, 100, 5);
+	}
+	
+	@Test
+	public void testLargeGroupsExclSelfMatchTask() {
+		// the groups span multiple blocks, which are re-read from the spilling buffer
+		runSelfMatch(LocalStrategy.SELF_NESTEDLOOP, CrossMode.TRIANGLE_CROSS_EXCL_DIAG, 2, 600, true);
+		checkPairs(CrossMode.TRIANGLE_CROSS_EXCL_DIAG, 2, 600);
+	}
+	
+	@Test
+	public void testLargeGroupsFullSelfMatchTask() {
+		runSelfMatch(LocalStrategy.SORT_SELF_NESTEDLOOP, CrossMode.FULL_CROSS, 3, 300, false);
+		checkPairs(CrossMode.FULL_CROSS, 3, 300);
+	}
+	
+	@Test
+	public void testFailingSortSelfMatchTask() {
+		int keyCnt = 20;
+		int valCnt = 20;
+		
+		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, false));
+		super.addOutput(this.outList);
+		
+		SelfMatchDriver<PactRecord, PactRecord> testTask = new SelfMatchDriver<PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
+		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
+		super.getTaskConfig().setNumFilehandles(4);
+		addKeyComparator();
+		
+		boolean stubFailed = false;
+		try {
+			testDriver(testTask, MockFailingMatchStub.class);
+		} catch (Exception e) {
+			stubFailed = true;
+		}
+		
+		Assert.assertTrue("Stub exception was not forwarded.", stubFailed);
+		
+		this.outList.clear();
+	}
 	
+	@Test
+	public void testCancelSelfMatchTaskWhileSorting() {
+		super.addInput(new DelayingInfinitiveInputIterator(100));
+		super.addOutput(new NirvanaOutputList());
+		
+		final SelfMatchDriver<PactRecord, PactRecord> testTask = new SelfMatchDriver<PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
+		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
+		super.getTaskConfig().setNumFilehandles(4);
+		addKeyComparator();
+		
+		runAndCancel(testTask, MockPairMatchStub.class);
+	}
+	
+	@Test
+	public void testCancelSelfMatchTaskWhileMatching() {
+		super.addInput(new UniformPactRecordGenerator(20, 20, false));
+		super.addOutput(new NirvanaOutputList());
+		
+		final SelfMatchDriver<PactRecord, PactRecord> testTask = new SelfMatchDriver<PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(LocalStrategy.SORT_SELF_NESTEDLOOP);
+		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
+		super.getTaskConfig().setNumFilehandles(4);
+		addKeyComparator();
+		
+		runAndCancel(testTask, MockDelayingMatchStub.class);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void runSelfMatch(LocalStrategy ls, CrossMode mode, int keyCnt, int valCnt, boolean grouped) {
+		super.addInput(new UniformPactRecordGenerator(keyCnt, valCnt, grouped));
+		super.addOutput(this.outList);
+		
+		SelfMatchDriver<PactRecord, PactRecord> testTask = new SelfMatchDriver<PactRecord, PactRecord>();
+		super.getTaskConfig().setLocalStrategy(ls);
+		super.getTaskConfig().setMemorySize(6 * 1024 * 1024);
+		super.getTaskConfig().setNumFilehandles(4);
+		if (mode != null) {
+			super.getTaskConfig().setStubParameter(SelfMatchDriver.SELFMATCH_CROSS_MODE_KEY, mode.name());
+		}
+		addKeyComparator();
+		
+		try {
+			testDriver(testTask, MockPairMatchStub.class);
+		} catch (Exception e) {
+			LOG.debug(e);
+			e.printStackTrace();
+			Assert.fail("Invoke method caused exception.");
+		}
+	}
+	
+	private void checkPairs(CrossMode mode, int keyCnt, int valCnt) {
+		final int expPerKey;
+		switch (mode) {
+		case FULL_CROSS:
+			expPerKey = valCnt * valCnt;
+			break;
+		case TRIANGLE_CROSS_INCL_DIAG:
+			expPerKey = valCnt * (valCnt + 1) / 2;
+			break;
+		default:
+			expPerKey = valCnt * (valCnt - 1) / 2;
+		}
+		
+		Assert.assertEquals("Wrong result set size.", keyCnt * expPerKey, this.outList.size());
+		
+		// each pair must occur exactly once. for the triangle modes, a pair must not occur in both orders
+		final Set<Long> pairs = new HashSet<Long>();
+		for (PactRecord record : this.outList) {
+			long key = record.getField(0, PactInteger.class).getValue();
+			int v1 = record.getField(1, PactInteger.class).getValue();
+			int v2 = record.getField(2, PactInteger.class).getValue();
+			
+			if (mode != CrossMode.FULL_CROSS && v1 > v2) {
+				int tmp = v1;
+				v1 = v2;
+				v2 = tmp;
+			}
+			if (mode == CrossMode.TRIANGLE_CROSS_EXCL_DIAG) {
+				Assert.assertTrue("Record was matched with itself.", v1 != v2);
+			}
+			Assert.assertTrue("Duplicate pair (" + v1 + ", " + v2 + ") for key " + key,
+				pairs.add((key * valCnt + v1) * valCnt + v2));
+		}
+		
+		this.outList.clear();
+	}
+	
+	private void addKeyComparator() {
+		final int[] keyPos = new int[]{0};
+		@SuppressWarnings("unchecked")
+		final Class<? extends Key>[] keyClasses = (Class<? extends Key>[]) new Class[]{ PactInteger.class };
+		addInputComparator(new PactRecordComparator(keyPos, keyClasses));
+	}
+	
+	private void runAndCancel(final SelfMatchDriver<PactRecord, PactRecord> testTask,
+			final Class<? extends MatchStub> stubClass)
+	{
+		Thread taskRunner = new Thread() {
+			@Override
+			public void run() {
+				try {
+					testDriver(testTask, stubClass);
+				} catch (Exception ie) {
+					ie.printStackTrace();
+					Assert.fail("Task threw exception although it was properly canceled");
+				}
+			}
+		};
+		taskRunner.start();
+		
+		TaskCancelThread tct = new TaskCancelThread(1, taskRunner, this);
+		tct.start();
+		
+		try {
+			tct.join();
+			taskRunner.join();		
+		} catch(InterruptedException ie) {
+			Assert.fail("Joining threads failed");
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static class MockPairMatchStub extends MatchStub {
+
+		private final PactRecord result = new PactRecord(3);
+		
+		@Override
+		public void match(PactRecord record1, PactRecord record2, Collector<PactRecord> out) throws Exception {
+			this.result.setField(0, record1.getField(0, PactInteger.class));
+			this.result.setField(1, record1.getField(1, PactInteger.class));
+			this.result.setField(2, record2.getField(1, PactInteger.class));
+			out.collect(this.result);
+		}
+	}
+	
+	public static class MockFailingMatchStub extends MatchStub {
+
+		int cnt = 0;
+		
+		@Override
+		public void match(PactRecord record1, PactRecord record2, Collector<PactRecord> out) {
+			if (++this.cnt >= 10) {
+				throw new RuntimeException("Expected Test Exception");
+			}
+			out.collect(record1);
+		}
+	}
+	
+	public static class MockDelayingMatchStub extends MatchStub {
+
+		@Override
+		public void match(PactRecord record1, PactRecord record2, Collector<PactRecord> out) {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) { }
+		}
+	}
 }
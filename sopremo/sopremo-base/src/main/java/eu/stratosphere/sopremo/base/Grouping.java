@@ -1,14 +1,20 @@
 package eu.stratosphere.sopremo.base;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
+import eu.stratosphere.pact.common.contract.ReduceContract.Combinable;
 import eu.stratosphere.sopremo.EvaluationContext;
+import eu.stratosphere.sopremo.expressions.AggregationExpression;
+import eu.stratosphere.sopremo.expressions.ArrayAccess;
 import eu.stratosphere.sopremo.expressions.CachingExpression;
 import eu.stratosphere.sopremo.expressions.ConstantExpression;
 import eu.stratosphere.sopremo.expressions.EvaluationExpression;
 import eu.stratosphere.sopremo.expressions.InputSelection;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.function.Aggregation;
 import eu.stratosphere.sopremo.operator.CompositeOperator;
 import eu.stratosphere.sopremo.operator.ElementaryOperator;
 import eu.stratosphere.sopremo.operator.ElementarySopremoModule;
@@ -20,7 +26,9 @@ import eu.stratosphere.sopremo.operator.OutputCardinality;
 import eu.stratosphere.sopremo.operator.Property;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoCoGroup;
+import eu.stratosphere.sopremo.pact.SopremoMap;
 import eu.stratosphere.sopremo.pact.SopremoReduce;
+import eu.stratosphere.sopremo.type.ArrayNode;
 import eu.stratosphere.sopremo.type.IArrayNode;
 import eu.stratosphere.sopremo.type.IJsonNode;
 import eu.stratosphere.sopremo.type.JsonUtil;
@@ -54,9 +62,21 @@ public class Grouping extends CompositeOperator<Grouping> {
 		case 0:
 			throw new IllegalStateException("No input given for grouping");
 		case 1:
-			output = new GroupProjection(this.resultProjection.remove(InputSelection.class)).
-				withKeyExpression(0, getGroupingKey(0)).
-				withInputs(Arrays.asList(module.getInputs()));
+			final EvaluationExpression projection = this.resultProjection.remove(InputSelection.class);
+			final PartialAggregationRewriter rewriter = PartialAggregationRewriter.rewrite(projection);
+			if (rewriter == null)
+				output = new GroupProjection(projection).
+					withKeyExpression(0, getGroupingKey(0)).
+					withInputs(Arrays.asList(module.getInputs()));
+			else {
+				// pre-aggregate each element, such that the partial aggregates can be combined before shipping
+				final PartialAggregation partialAggregation =
+					new PartialAggregation(getGroupingKey(0), rewriter.getAggregations()).
+						withInputs(Arrays.asList(module.getInputs()));
+				output = new CombinableGroupProjection(rewriter.getAggregations(), rewriter.getFinalProjection()).
+					withKeyExpression(0, PartialAggregation.GROUPING_KEY).
+					withInputs(partialAggregation);
+			}
 			break;
 		case 2:
 			output = new CoGroupProjection(this.resultProjection).
@@ -229,4 +249,125 @@ public class Grouping extends CompositeOperator<Grouping> {
 			}
 		}
 	}
+
+	/**
+	 * Transforms each element into an array of the grouping key followed by the aggregators of all given
+	 * {@link AggregationExpression}s after aggregating the element.
+	 */
+	@InputCardinality(1)
+	public static class PartialAggregation extends ElementaryOperator<PartialAggregation> {
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = -3284318546286317154L;
+
+		/**
+		 * The key expression of the partial aggregates. It is wrapped in a path, such that the schema of the plan
+		 * is not restricted to arrays.
+		 */
+		static final EvaluationExpression GROUPING_KEY = new PathExpression(new ArrayAccess(0));
+
+		private final EvaluationExpression groupingKey;
+
+		private final ArrayList<AggregationExpression> aggregations;
+
+		public PartialAggregation(final EvaluationExpression groupingKey,
+				final ArrayList<AggregationExpression> aggregations) {
+			this.groupingKey = groupingKey;
+			this.aggregations = aggregations;
+		}
+
+		public static class Implementation extends SopremoMap {
+			private EvaluationExpression groupingKey;
+
+			private ArrayList<AggregationExpression> aggregations;
+
+			private transient IArrayNode partialAggregate = new ArrayNode();
+
+			@Override
+			protected void map(final IJsonNode value, final JsonCollector out) {
+				final EvaluationContext context = this.getContext();
+				this.partialAggregate.set(0, this.groupingKey.evaluate(value, this.partialAggregate.get(0), context));
+				for (int index = 0; index < this.aggregations.size(); index++) {
+					final AggregationExpression aggregation = this.aggregations.get(index);
+					final Aggregation<IJsonNode, IJsonNode> function = aggregation.getFunction();
+					final IJsonNode aggregator = function.initialize(reusableAggregator(this.partialAggregate, index + 1));
+					final IJsonNode element = aggregation.getPreprocessing().evaluate(value, null, context);
+					this.partialAggregate.set(index + 1, function.aggregate(element, aggregator, context));
+				}
+				out.collect(this.partialAggregate);
+			}
+		}
+	}
+
+	/**
+	 * Returns the aggregator at the given index that may be reused or null, if the aggregator has not been initialized
+	 * yet.
+	 */
+	static IJsonNode reusableAggregator(final IArrayNode aggregators, final int index) {
+		final IJsonNode aggregator = aggregators.get(index);
+		return aggregator.isMissing() ? null : aggregator;
+	}
+
+	/**
+	 * Combines the partial aggregates of {@link PartialAggregation} and evaluates the projection on the array of final
+	 * aggregates.
+	 */
+	@InputCardinality(1)
+	public static class CombinableGroupProjection extends ElementaryOperator<CombinableGroupProjection> {
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 4391652745387937702L;
+
+		private final ArrayList<AggregationExpression> aggregations;
+
+		@SuppressWarnings("unused")
+		private final EvaluationExpression projection;
+
+		public CombinableGroupProjection(final ArrayList<AggregationExpression> aggregations,
+				final EvaluationExpression projection) {
+			this.aggregations = aggregations;
+			this.projection = projection;
+		}
+
+		@Combinable
+		public static class Implementation extends SopremoReduce {
+			private ArrayList<AggregationExpression> aggregations;
+
+			private CachingExpression<IJsonNode> projection;
+
+			private transient IArrayNode aggregators = new ArrayNode(), finalAggregates = new ArrayNode();
+
+			@Override
+			protected void combine(final IArrayNode values, final JsonCollector out) {
+				this.aggregate(values);
+				out.collect(this.aggregators);
+			}
+
+			@Override
+			protected void reduce(final IArrayNode values, final JsonCollector out) {
+				this.aggregate(values);
+				for (int index = 0; index < this.aggregations.size(); index++)
+					this.finalAggregates.set(index, this.aggregations.get(index).getFunction().
+						getFinalAggregate(this.aggregators.get(index + 1), this.finalAggregates.get(index)));
+				out.collect(this.projection.evaluate(this.finalAggregates, this.getContext()));
+			}
+
+			private void aggregate(final IArrayNode partialAggregates) {
+				final EvaluationContext context = this.getContext();
+				for (int index = 0; index < this.aggregations.size(); index++)
+					this.aggregators.set(index + 1,
+						this.aggregations.get(index).getFunction().initialize(reusableAggregator(this.aggregators, index + 1)));
+
+				for (final IJsonNode partialAggregate : partialAggregates) {
+					final IArrayNode partials = (IArrayNode) partialAggregate;
+					this.aggregators.set(0, partials.get(0));
+					for (int index = 0; index < this.aggregations.size(); index++)
+						this.aggregators.set(index + 1, this.aggregations.get(index).getFunction().
+							combine(partials.get(index + 1), this.aggregators.get(index + 1), context));
+				}
+			}
+		}
+	}
 }
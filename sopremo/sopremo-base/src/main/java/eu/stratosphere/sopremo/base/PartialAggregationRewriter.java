@@ -0,0 +1,237 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.sopremo.EvaluationContext;
+import eu.stratosphere.sopremo.expressions.AggregationExpression;
+import eu.stratosphere.sopremo.expressions.ArithmeticExpression;
+import eu.stratosphere.sopremo.expressions.ArrayAccess;
+import eu.stratosphere.sopremo.expressions.ArrayCreation;
+import eu.stratosphere.sopremo.expressions.ArrayProjection;
+import eu.stratosphere.sopremo.expressions.CachingExpression;
+import eu.stratosphere.sopremo.expressions.ConstantExpression;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.FunctionCall;
+import eu.stratosphere.sopremo.expressions.InputSelection;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.CopyFields;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.FieldAssignment;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.Mapping;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.function.Aggregation;
+import eu.stratosphere.sopremo.function.AggregationFunction;
+import eu.stratosphere.sopremo.function.TransitiveAggregationFunction;
+import eu.stratosphere.sopremo.type.IJsonNode;
+import eu.stratosphere.sopremo.type.MissingNode;
+
+/**
+ * Splits the projection of a group into {@link Aggregation}s, which are computed incrementally on each element of the
+ * group, and a final projection, which is evaluated on the array of the final aggregates.<br>
+ * The rewriting succeeds only if all aggregations are {@link Aggregation#isCombinable() combinable} and the group is
+ * not accessed in any other way. Besides aggregations, the first element of the group may be accessed with
+ * <code>$[0]</code>.
+ */
+final class PartialAggregationRewriter {
+	/**
+	 * Retains the first element of a group. The aggregator is missing until the first element has been aggregated.
+	 */
+	static final Aggregation<IJsonNode, IJsonNode> FIRST_ELEMENT =
+		new TransitiveAggregationFunction<IJsonNode, IJsonNode>("<first element>", MissingNode.getInstance()) {
+			/**
+			 *
+			 */
+			private static final long serialVersionUID = 5478155232049298741L;
+
+			@Override
+			public IJsonNode aggregate(final IJsonNode node, final IJsonNode aggregator, final EvaluationContext context) {
+				return aggregator.isMissing() ? node : aggregator;
+			}
+		};
+
+	private final ArrayList<AggregationExpression> aggregations = new ArrayList<AggregationExpression>();
+
+	private EvaluationExpression finalProjection;
+
+	private PartialAggregationRewriter() {
+	}
+
+	/**
+	 * Rewrites the given projection of a group.
+	 *
+	 * @param projection
+	 *        the projection which is evaluated on the array of all elements of a group
+	 * @return the rewritten projection or null if the projection cannot be computed incrementally
+	 */
+	public static PartialAggregationRewriter rewrite(final EvaluationExpression projection) {
+		final PartialAggregationRewriter rewriter = new PartialAggregationRewriter();
+		rewriter.finalProjection = rewriter.rewriteExpression(projection);
+		if (rewriter.finalProjection == null || rewriter.aggregations.isEmpty())
+			return null;
+		return rewriter;
+	}
+
+	/**
+	 * Returns the aggregations that must be computed for each group. The preprocessing of each
+	 * {@link AggregationExpression} is applied to the single elements.
+	 *
+	 * @return the aggregations
+	 */
+	public ArrayList<AggregationExpression> getAggregations() {
+		return this.aggregations;
+	}
+
+	/**
+	 * Returns the projection that is evaluated on the array of the final aggregates.
+	 *
+	 * @return the final projection
+	 */
+	public EvaluationExpression getFinalProjection() {
+		return this.finalProjection;
+	}
+
+	private EvaluationExpression addAggregation(final Aggregation<?, ?> aggregation,
+			final EvaluationExpression preprocessing) {
+		if (!aggregation.isCombinable())
+			return null;
+		this.aggregations.add(new AggregationExpression(aggregation, preprocessing));
+		return new ArrayAccess(this.aggregations.size() - 1);
+	}
+
+	/**
+	 * Returns the expression that is applied on each element of the group to retrieve the values of the aggregation or
+	 * null if the given parameter of an aggregation function is not supported.
+	 */
+	private static EvaluationExpression getElementExpression(EvaluationExpression parameter) {
+		parameter = unwrap(parameter);
+		if (parameter == EvaluationExpression.VALUE || parameter instanceof InputSelection)
+			return EvaluationExpression.VALUE;
+		if (parameter instanceof ArrayProjection)
+			return ((ArrayProjection) parameter).getExpression();
+		return null;
+	}
+
+	private static boolean isFirstElementAccess(final EvaluationExpression expression) {
+		if (!(expression instanceof ArrayAccess))
+			return false;
+		final ArrayAccess arrayAccess = (ArrayAccess) expression;
+		return !arrayAccess.isSelectingAll() && !arrayAccess.isSelectingRange() && arrayAccess.getStartIndex() == 0;
+	}
+
+	private static EvaluationExpression unwrap(EvaluationExpression expression) {
+		if (expression instanceof CachingExpression<?>)
+			expression = ((CachingExpression<?>) expression).getInnerExpression();
+		if (expression instanceof PathExpression && ((PathExpression) expression).getDepth() == 1)
+			expression = unwrap(((PathExpression) expression).getFragment(0));
+		return expression;
+	}
+
+	private EvaluationExpression rewriteExpression(EvaluationExpression expression) {
+		expression = unwrap(expression);
+
+		if (expression instanceof ConstantExpression)
+			return expression;
+		if (expression instanceof AggregationExpression) {
+			final AggregationExpression aggregation = (AggregationExpression) expression;
+			return this.addAggregation(aggregation.getFunction(), aggregation.getPreprocessing());
+		}
+		if (isFirstElementAccess(expression))
+			return this.addAggregation(FIRST_ELEMENT, EvaluationExpression.VALUE);
+		if (expression instanceof PathExpression)
+			return this.rewritePath((PathExpression) expression);
+		if (expression instanceof FunctionCall)
+			return this.rewriteFunctionCall((FunctionCall) expression);
+		if (expression instanceof ObjectCreation)
+			return this.rewriteObjectCreation((ObjectCreation) expression);
+		if (expression instanceof ArrayCreation) {
+			final List<EvaluationExpression> elements = this.rewriteAll(((ArrayCreation) expression).getChildren());
+			return elements == null ? null : new ArrayCreation(elements);
+		}
+		if (expression instanceof ArithmeticExpression) {
+			final ArithmeticExpression arithmetic = (ArithmeticExpression) expression;
+			final EvaluationExpression firstOperand = this.rewriteExpression(arithmetic.getFirstOperand());
+			final EvaluationExpression secondOperand = this.rewriteExpression(arithmetic.getSecondOperand());
+			if (firstOperand == null || secondOperand == null)
+				return null;
+			return new ArithmeticExpression(firstOperand, arithmetic.getOperator(), secondOperand);
+		}
+
+		// the expression may access the group in an unknown way
+		return null;
+	}
+
+	private List<EvaluationExpression> rewriteAll(final List<? extends EvaluationExpression> expressions) {
+		final List<EvaluationExpression> rewrittenExpressions = new ArrayList<EvaluationExpression>();
+		for (final EvaluationExpression expression : expressions) {
+			final EvaluationExpression rewrittenExpression = this.rewriteExpression(expression);
+			if (rewrittenExpression == null)
+				return null;
+			rewrittenExpressions.add(rewrittenExpression);
+		}
+		return rewrittenExpressions;
+	}
+
+	private EvaluationExpression rewritePath(final PathExpression path) {
+		final List<EvaluationExpression> fragments = new ArrayList<EvaluationExpression>(path.getFragments());
+		// only the first fragment is evaluated on the group, all others on the result of the previous fragment
+		final EvaluationExpression head = unwrap(fragments.get(0));
+		if (isFirstElementAccess(head))
+			return this.addAggregation(FIRST_ELEMENT, PathExpression.wrapIfNecessary(fragments.subList(1,
+				fragments.size())));
+
+		final EvaluationExpression rewrittenHead = this.rewriteExpression(head);
+		if (rewrittenHead == null)
+			return null;
+		fragments.set(0, rewrittenHead);
+		return new PathExpression(fragments);
+	}
+
+	private EvaluationExpression rewriteFunctionCall(final FunctionCall call) {
+		if (call.getFunction() instanceof AggregationFunction) {
+			if (call.getChildren().size() != 1)
+				return null;
+			final EvaluationExpression elementExpression = getElementExpression(call.getChildren().get(0));
+			if (elementExpression == null)
+				return null;
+			return this.addAggregation(((AggregationFunction) call.getFunction()).getAggregation(), elementExpression);
+		}
+
+		// other functions are evaluated on the final aggregates
+		final List<EvaluationExpression> parameters = this.rewriteAll(call.getChildren());
+		if (parameters == null)
+			return null;
+		final FunctionCall rewrittenCall = call.clone();
+		rewrittenCall.setChildren(parameters);
+		return rewrittenCall;
+	}
+
+	private EvaluationExpression rewriteObjectCreation(final ObjectCreation objectCreation) {
+		final ObjectCreation rewrittenObjectCreation = new ObjectCreation();
+		for (final Mapping<?> mapping : objectCreation.getMappings()) {
+			final EvaluationExpression expression = this.rewriteExpression(mapping.getExpression());
+			if (expression == null)
+				return null;
+			if (mapping.getClass() == CopyFields.class)
+				rewrittenObjectCreation.addMapping(new CopyFields(expression));
+			else if (mapping.getClass() == FieldAssignment.class)
+				rewrittenObjectCreation.addMapping(((FieldAssignment) mapping).getTarget(), expression);
+			else
+				return null;
+		}
+		return rewrittenObjectCreation;
+	}
+}
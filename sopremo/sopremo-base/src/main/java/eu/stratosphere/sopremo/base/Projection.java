@@ -2,6 +2,8 @@ package eu.stratosphere.sopremo.base;
 
 import eu.stratosphere.pact.common.plan.PactModule;
 import eu.stratosphere.sopremo.EvaluationContext;
+import eu.stratosphere.sopremo.base.rewrite.ProjectionMerge;
+import eu.stratosphere.sopremo.base.rewrite.ProjectionPruning;
 import eu.stratosphere.sopremo.expressions.EvaluationExpression;
 import eu.stratosphere.sopremo.operator.ElementaryOperator;
 import eu.stratosphere.sopremo.operator.InputCardinality;
@@ -9,11 +11,13 @@ import eu.stratosphere.sopremo.operator.Name;
 import eu.stratosphere.sopremo.operator.OutputCardinality;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoMap;
+import eu.stratosphere.sopremo.rewrite.OptimizerRules;
 import eu.stratosphere.sopremo.type.IJsonNode;
 
 @InputCardinality(1)
 @OutputCardinality(1)
 @Name(verb = "transform")
+@OptimizerRules({ ProjectionMerge.class, ProjectionPruning.class })
 public class Projection extends ElementaryOperator<Projection> {
 	/**
 	 * 
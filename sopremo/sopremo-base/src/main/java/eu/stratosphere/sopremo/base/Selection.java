@@ -1,6 +1,7 @@
 package eu.stratosphere.sopremo.base;
 
 import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.sopremo.base.rewrite.SelectionPushdown;
 import eu.stratosphere.sopremo.expressions.BooleanExpression;
 import eu.stratosphere.sopremo.expressions.ConstantExpression;
 import eu.stratosphere.sopremo.expressions.EvaluationExpression;
@@ -12,11 +13,13 @@ import eu.stratosphere.sopremo.operator.Name;
 import eu.stratosphere.sopremo.operator.Property;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoMap;
+import eu.stratosphere.sopremo.rewrite.OptimizerRules;
 import eu.stratosphere.sopremo.type.BooleanNode;
 import eu.stratosphere.sopremo.type.IJsonNode;
 
 @Name(verb = "filter")
 @InputCardinality(1)
+@OptimizerRules(SelectionPushdown.class)
 public class Selection extends ElementaryOperator<Selection> {
 	/**
 	 * 
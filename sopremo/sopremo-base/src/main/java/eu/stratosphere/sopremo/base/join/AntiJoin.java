@@ -1,5 +1,6 @@
 package eu.stratosphere.sopremo.base.join;
 
+import eu.stratosphere.pact.common.stubs.StubAnnotation.RecordWiseInputs;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoCoGroup;
 import eu.stratosphere.sopremo.type.ArrayNode;
@@ -18,6 +19,7 @@ public class AntiJoin extends TwoSourceJoinBase<AntiJoin> {
 		this.setKeyExpressions(1, ALL_KEYS);
 	}
 
+	@RecordWiseInputs(inputs = 0)
 	public static class Implementation extends SopremoCoGroup {
 		private IArrayNode result = new ArrayNode(NullNode.getInstance());
 
@@ -1,5 +1,6 @@
 package eu.stratosphere.sopremo.base.join;
 
+import eu.stratosphere.pact.common.stubs.StubAnnotation.RecordWiseInputs;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoCoGroup;
 import eu.stratosphere.sopremo.type.ArrayNode;
@@ -8,6 +9,7 @@ import eu.stratosphere.sopremo.type.IArrayNode;
 public class FullOuterJoin extends TwoSourceJoinBase<FullOuterJoin> {
 	private static final long serialVersionUID = -1552767865297597839L;
 
+	@RecordWiseInputs(inputs = { 0, 1 })
 	public static class Implementation extends SopremoCoGroup {
 		private final IArrayNode result = new ArrayNode();
 
@@ -1,5 +1,6 @@
 package eu.stratosphere.sopremo.base.join;
 
+import eu.stratosphere.pact.common.stubs.StubAnnotation.RecordWiseInputs;
 import eu.stratosphere.sopremo.pact.JsonCollector;
 import eu.stratosphere.sopremo.pact.SopremoCoGroup;
 import eu.stratosphere.sopremo.type.ArrayNode;
@@ -8,6 +9,7 @@ import eu.stratosphere.sopremo.type.IArrayNode;
 public class LeftOuterJoin extends TwoSourceJoinBase<LeftOuterJoin> {
 	private static final long serialVersionUID = -6681491514521111751L;
 
+	@RecordWiseInputs(inputs = 0)
 	public static class Implementation extends SopremoCoGroup {
 		private final IArrayNode result = new ArrayNode();
 
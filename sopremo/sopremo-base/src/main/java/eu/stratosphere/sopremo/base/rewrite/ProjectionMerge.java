@@ -0,0 +1,48 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import eu.stratosphere.sopremo.base.Projection;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.rewrite.OptimizerRule;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
+
+/**
+ * Merges a {@link Projection} with a preceding projection that has no other consumers. Field accesses are substituted
+ * with the expressions of the preceding projection, such that the intermediate object is not created.
+ */
+public class ProjectionMerge implements OptimizerRule {
+	@Override
+	public boolean apply(final Operator<?> operator, final SopremoOptimizer optimizer) {
+		final Projection projection = (Projection) operator;
+		final Operator<?> input = projection.getInput(0).getSource().getOperator();
+		if (projection.getClass() != Projection.class || input.getClass() != Projection.class
+			|| !optimizer.hasSingleConsumer(input))
+			return false;
+
+		final EvaluationExpression inputProjection = ((Projection) input).getResultProjection();
+		EvaluationExpression mergedProjection =
+			new ProjectionSubstitution(inputProjection, true).rewrite(projection.getResultProjection());
+		if (mergedProjection == null)
+			mergedProjection = PathExpression.wrapIfNecessary(inputProjection.clone(),
+				projection.getResultProjection().clone());
+
+		projection.setResultProjection(mergedProjection);
+		optimizer.setInput(projection, 0, input.getInput(0));
+		return true;
+	}
+}
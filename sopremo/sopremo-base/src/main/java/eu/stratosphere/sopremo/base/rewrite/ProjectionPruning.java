@@ -0,0 +1,86 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import eu.stratosphere.sopremo.base.Projection;
+import eu.stratosphere.sopremo.base.Selection;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.FieldAssignment;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.Mapping;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.rewrite.OptimizerRule;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
+import eu.stratosphere.sopremo.rewrite.ValueAccessRewriter;
+
+/**
+ * Removes the field assignments of a {@link Projection} that are not accessed by any consumer. The rule only applies
+ * if all consumers are projections or selections with a result projection, so that no consumer emits the projected
+ * objects unchanged.
+ */
+public class ProjectionPruning implements OptimizerRule {
+	@Override
+	public boolean apply(final Operator<?> operator, final SopremoOptimizer optimizer) {
+		final Projection projection = (Projection) operator;
+		if (projection.getClass() != Projection.class
+			|| projection.getResultProjection().getClass() != ObjectCreation.class
+			|| optimizer.getConsumers(projection).isEmpty())
+			return false;
+
+		final AccessedFieldCollector collector = new AccessedFieldCollector();
+		for (final Operator<?> consumer : optimizer.getConsumers(projection))
+			if (consumer.getClass() == Projection.class) {
+				if (collector.rewrite(((Projection) consumer).getResultProjection()) == null)
+					return false;
+			} else if (consumer.getClass() == Selection.class) {
+				final Selection selection = (Selection) consumer;
+				if (selection.getResultProjection() == EvaluationExpression.VALUE
+					|| collector.rewrite(selection.getCondition()) == null
+					|| collector.rewrite(selection.getResultProjection()) == null)
+					return false;
+			} else
+				return false;
+
+		final ObjectCreation prunedProjection = new ObjectCreation();
+		for (final Mapping<?> mapping : ((ObjectCreation) projection.getResultProjection()).getMappings())
+			if (mapping.getClass() != FieldAssignment.class
+				|| collector.fields.contains(((FieldAssignment) mapping).getTarget()))
+				prunedProjection.addMapping(mapping);
+		if (prunedProjection.getMappingSize() == ((ObjectCreation) projection.getResultProjection()).getMappingSize())
+			return false;
+
+		projection.setResultProjection(prunedProjection);
+		return true;
+	}
+
+	/**
+	 * Collects the accessed fields and fails if the value is accessed in any other way.
+	 */
+	private static class AccessedFieldCollector extends ValueAccessRewriter {
+		private final Set<String> fields = new HashSet<String>();
+
+		@Override
+		protected EvaluationExpression rewriteAccess(final EvaluationExpression access) {
+			if (!(access instanceof ObjectAccess))
+				return null;
+			this.fields.add(((ObjectAccess) access).getField());
+			return access;
+		}
+	}
+}
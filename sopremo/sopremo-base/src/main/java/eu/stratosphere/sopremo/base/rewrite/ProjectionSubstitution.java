@@ -0,0 +1,88 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import java.util.List;
+
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.FieldAssignment;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.Mapping;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.rewrite.ValueAccessRewriter;
+
+/**
+ * Rewrites an expression that is evaluated on the result of a projection into an expression that is evaluated on the
+ * input of the projection. Field accesses are replaced with the expressions of the corresponding
+ * {@link FieldAssignment}s. All other accesses are either evaluated on the result of the complete projection or, if
+ * the projection should not be evaluated twice, prevent the rewriting.
+ */
+final class ProjectionSubstitution extends ValueAccessRewriter {
+	private final EvaluationExpression projection;
+
+	private final boolean evaluateProjection;
+
+	/**
+	 * Initializes ProjectionSubstitution.
+	 * 
+	 * @param projection
+	 *        the projection that computes the value on which the rewritten expressions are evaluated
+	 * @param evaluateProjection
+	 *        true if accesses that cannot be substituted should be evaluated on the result of the projection
+	 */
+	ProjectionSubstitution(final EvaluationExpression projection, final boolean evaluateProjection) {
+		this.projection = projection;
+		this.evaluateProjection = evaluateProjection;
+	}
+
+	@Override
+	protected EvaluationExpression rewriteAccess(final EvaluationExpression access) {
+		if (this.projection == EvaluationExpression.VALUE)
+			return access.clone();
+		if (access instanceof ObjectAccess && this.projection.getClass() == ObjectCreation.class) {
+			final EvaluationExpression fieldExpression =
+				getFieldExpression((ObjectCreation) this.projection, ((ObjectAccess) access).getField());
+			if (fieldExpression != null)
+				return fieldExpression.clone();
+		}
+		if (!this.evaluateProjection)
+			return null;
+		return PathExpression.wrapIfNecessary(this.projection.clone(), access.clone());
+	}
+
+	/**
+	 * Returns the expression that determines the value of the given field in the result of the object creation or
+	 * null if the value cannot be determined statically.
+	 * 
+	 * @param objectCreation
+	 *        the object creation
+	 * @param field
+	 *        the name of the field
+	 * @return the expression of the last assignment to the field or null
+	 */
+	static EvaluationExpression getFieldExpression(final ObjectCreation objectCreation, final String field) {
+		final List<Mapping<?>> mappings = objectCreation.getMappings();
+		for (int index = mappings.size() - 1; index >= 0; index--) {
+			final Mapping<?> mapping = mappings.get(index);
+			// copied fields may overwrite previous assignments
+			if (mapping.getClass() != FieldAssignment.class)
+				return null;
+			if (((FieldAssignment) mapping).getTarget().equals(field))
+				return mapping.getExpression();
+		}
+		return null;
+	}
+}
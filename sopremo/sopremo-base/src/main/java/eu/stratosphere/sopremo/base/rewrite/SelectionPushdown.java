@@ -0,0 +1,195 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import eu.stratosphere.sopremo.base.Join;
+import eu.stratosphere.sopremo.base.Projection;
+import eu.stratosphere.sopremo.base.Selection;
+import eu.stratosphere.sopremo.base.SetOperation;
+import eu.stratosphere.sopremo.base.UnionAll;
+import eu.stratosphere.sopremo.expressions.AndExpression;
+import eu.stratosphere.sopremo.expressions.ArrayAccess;
+import eu.stratosphere.sopremo.expressions.BooleanExpression;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.InputSelection;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.rewrite.OptimizerRule;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
+import eu.stratosphere.sopremo.rewrite.ValueAccessRewriter;
+
+/**
+ * Pushes the conjuncts of the condition of a {@link Selection} below its input operator, such that fewer elements are
+ * processed by the input operator.<br>
+ * A conjunct is pushed
+ * <ul>
+ * <li>below a {@link Projection} by substituting the accessed fields with the projected expressions,
+ * <li>below all inputs of a {@link UnionAll} and a {@link SetOperation}, and
+ * <li>below the input of a {@link Join} from which all accessed fields originate, if the join does not preserve the
+ * elements of any other input.
+ * </ul>
+ * The input operator must not have other consumers. Conjuncts that cannot be pushed remain in the selection.
+ */
+public class SelectionPushdown implements OptimizerRule {
+	@Override
+	public boolean apply(final Operator<?> operator, final SopremoOptimizer optimizer) {
+		final Selection selection = (Selection) operator;
+		if (selection.getResultProjection() != EvaluationExpression.VALUE)
+			return false;
+		final Operator<?> input = selection.getInput(0).getSource().getOperator();
+		if (!optimizer.hasSingleConsumer(input))
+			return false;
+
+		final int numInputs = input.getInputs().size();
+		final List<List<BooleanExpression>> pushedConditions = new ArrayList<List<BooleanExpression>>();
+		for (int index = 0; index < numInputs; index++)
+			pushedConditions.add(new ArrayList<BooleanExpression>());
+		final List<BooleanExpression> remainingConditions = new ArrayList<BooleanExpression>();
+
+		for (final BooleanExpression conjunct : getConjuncts(selection.getCondition())) {
+			final BooleanExpression[] pushedConjuncts = this.pushConjunct(conjunct, input);
+			if (pushedConjuncts == null)
+				remainingConditions.add(conjunct);
+			else
+				for (int index = 0; index < numInputs; index++)
+					if (pushedConjuncts[index] != null)
+						pushedConditions.get(index).add(pushedConjuncts[index]);
+		}
+		if (remainingConditions.size() == getConjuncts(selection.getCondition()).size())
+			return false;
+
+		for (int index = 0; index < numInputs; index++) {
+			final List<BooleanExpression> conditions = pushedConditions.get(index);
+			if (!conditions.isEmpty()) {
+				final Selection pushedSelection = new Selection().
+					withCondition(conjoin(conditions)).
+					withInputs(input.getInput(index));
+				optimizer.setInput(input, index, pushedSelection);
+			}
+		}
+
+		if (remainingConditions.isEmpty())
+			optimizer.replace(selection, input);
+		else
+			selection.setCondition(conjoin(remainingConditions));
+		return true;
+	}
+
+	/**
+	 * Returns the conjuncts that should be applied to the respective inputs of the given operator or null if the
+	 * conjunct cannot be pushed below the operator.
+	 */
+	private BooleanExpression[] pushConjunct(final BooleanExpression conjunct, final Operator<?> input) {
+		final int numInputs = input.getInputs().size();
+		if (input.getClass() == Projection.class) {
+			final EvaluationExpression rewritten =
+				new ProjectionSubstitution(((Projection) input).getResultProjection(), false).rewrite(conjunct);
+			return rewritten == null ? null :
+				new BooleanExpression[] { BooleanExpression.ensureBooleanExpression(rewritten) };
+		}
+
+		if (input instanceof UnionAll || input instanceof SetOperation<?>) {
+			final BooleanExpression[] conjuncts = new BooleanExpression[numInputs];
+			for (int index = 0; index < numInputs; index++)
+				conjuncts[index] = (BooleanExpression) conjunct.clone();
+			return conjuncts;
+		}
+
+		if (input.getClass() == Join.class) {
+			final Join join = (Join) input;
+			if (join.getResultProjection().getClass() != ObjectCreation.class)
+				return null;
+			final JoinSubstitution substitution = new JoinSubstitution((ObjectCreation) join.getResultProjection());
+			final EvaluationExpression rewritten = substitution.rewrite(conjunct);
+			final int inputIndex = substitution.inputIndex;
+			if (rewritten == null || inputIndex == -1)
+				return null;
+			// elements of other preserved inputs would not be filtered
+			for (final int outerJoinIndex : join.getOuterJoinIndices())
+				if (outerJoinIndex != inputIndex)
+					return null;
+			final BooleanExpression[] conjuncts = new BooleanExpression[numInputs];
+			conjuncts[inputIndex] = BooleanExpression.ensureBooleanExpression(rewritten);
+			return conjuncts;
+		}
+
+		return null;
+	}
+
+	private static List<BooleanExpression> getConjuncts(final EvaluationExpression condition) {
+		if (condition instanceof AndExpression)
+			return ((AndExpression) condition).getExpressions();
+		return Collections.singletonList(BooleanExpression.ensureBooleanExpression(condition));
+	}
+
+	private static BooleanExpression conjoin(final List<BooleanExpression> conditions) {
+		if (conditions.size() == 1)
+			return conditions.get(0);
+		return new AndExpression(conditions);
+	}
+
+	/**
+	 * Rewrites an expression on the result of a join into an expression on a single input of the join. All accessed
+	 * fields must be assigned to paths of the same input.
+	 */
+	private static class JoinSubstitution extends ValueAccessRewriter {
+		private final ObjectCreation resultProjection;
+
+		private int inputIndex = -1;
+
+		public JoinSubstitution(final ObjectCreation resultProjection) {
+			this.resultProjection = resultProjection;
+		}
+
+		@Override
+		protected EvaluationExpression rewriteAccess(final EvaluationExpression access) {
+			if (!(access instanceof ObjectAccess))
+				return null;
+			final EvaluationExpression fieldExpression =
+				ProjectionSubstitution.getFieldExpression(this.resultProjection, ((ObjectAccess) access).getField());
+
+			final List<EvaluationExpression> fragments;
+			if (fieldExpression instanceof PathExpression)
+				fragments = ((PathExpression) fieldExpression).getFragments();
+			else if (fieldExpression != null)
+				fragments = Arrays.asList(fieldExpression);
+			else
+				return null;
+
+			if (!(fragments.get(0) instanceof InputSelection))
+				return null;
+			final int index = ((InputSelection) fragments.get(0)).getIndex();
+			if (this.inputIndex != -1 && this.inputIndex != index)
+				return null;
+			this.inputIndex = index;
+
+			final List<EvaluationExpression> path = new ArrayList<EvaluationExpression>();
+			for (final EvaluationExpression fragment : fragments.subList(1, fragments.size())) {
+				// other fragments might refer to other inputs
+				if (!(fragment instanceof ObjectAccess) && !(fragment instanceof ArrayAccess))
+					return null;
+				path.add(fragment.clone());
+			}
+			return PathExpression.wrapIfNecessary(path);
+		}
+	}
+}
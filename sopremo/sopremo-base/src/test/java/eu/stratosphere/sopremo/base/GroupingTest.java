@@ -2,10 +2,14 @@ package eu.stratosphere.sopremo.base;
 
 import static eu.stratosphere.sopremo.type.JsonUtil.createPath;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 
 import eu.stratosphere.sopremo.CoreFunctions;
+import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.SopremoTest;
+import eu.stratosphere.sopremo.expressions.AggregationExpression;
 import eu.stratosphere.sopremo.expressions.ArrayAccess;
 import eu.stratosphere.sopremo.expressions.BatchAggregationExpression;
 import eu.stratosphere.sopremo.expressions.ConstantExpression;
@@ -13,6 +17,7 @@ import eu.stratosphere.sopremo.expressions.InputSelection;
 import eu.stratosphere.sopremo.expressions.ObjectAccess;
 import eu.stratosphere.sopremo.expressions.ObjectCreation;
 import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.operator.ElementaryOperator;
 import eu.stratosphere.sopremo.testing.SopremoTestPlan;
 import eu.stratosphere.sopremo.type.JsonUtil;
 
@@ -156,6 +161,61 @@ public class GroupingTest extends SopremoTest<Grouping> {
 		sopremoPlan.run();
 	}
 
+	@Test
+	public void shouldPreAggregateTransitiveAggregations() {
+		final SopremoTestPlan sopremoPlan = new SopremoTestPlan(1, 1);
+		sopremoPlan.getEvaluationContext().getFunctionRegistry().put(CoreFunctions.class);
+
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("d", new PathExpression(new ArrayAccess(0), new ObjectAccess("dept")));
+		transformation.addMapping("total", new AggregationExpression(CoreFunctions.SUM, new ObjectAccess("income")));
+		transformation.addMapping("count", CoreFunctions.COUNT.asExpression());
+		transformation.addMapping("min", new AggregationExpression(CoreFunctions.MIN, new ObjectAccess("id")));
+		transformation.addMapping("max", new AggregationExpression(CoreFunctions.MAX, new ObjectAccess("id")));
+		transformation.addMapping("avg", new AggregationExpression(CoreFunctions.AVERAGE, new ObjectAccess("id")));
+
+		final Grouping aggregation = new Grouping().withResultProjection(transformation);
+		aggregation.setInputs(sopremoPlan.getInputOperator(0));
+		aggregation.setGroupingKey(0, createPath("dept"));
+
+		boolean combinable = false;
+		for (final ElementaryOperator<?> operator : aggregation.asElementaryOperators(
+			sopremoPlan.getEvaluationContext()).getReachableNodes())
+			combinable |= operator instanceof Grouping.CombinableGroupProjection;
+		Assert.assertTrue(combinable);
+
+		sopremoPlan.getOutputOperator(0).setInputs(aggregation);
+		sopremoPlan.getInput(0).
+			addObject("id", 1, "dept", 1, "income", 12000).
+			addObject("id", 2, "dept", 1, "income", 13000).
+			addObject("id", 3, "dept", 2, "income", 15000).
+			addObject("id", 4, "dept", 1, "income", 10000).
+			addObject("id", 5, "dept", 3, "income", 8000).
+			addObject("id", 6, "dept", 2, "income", 5000).
+			addObject("id", 8, "dept", 1, "income", 24000);
+		sopremoPlan.getExpectedOutput(0).
+			addObject("d", 1, "total", 59000, "count", 4, "min", 1, "max", 8, "avg", 15.0/4).
+			addObject("d", 2, "total", 20000, "count", 2, "min", 3, "max", 6, "avg", 4.5).
+			addObject("d", 3, "total", 8000, "count", 1, "min", 5, "max", 5, "avg", 5.0);
+
+		sopremoPlan.run();
+	}
+
+	@Test
+	public void shouldNotPreAggregateMaterializingAggregations() {
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("total", new AggregationExpression(CoreFunctions.SUM, new ObjectAccess("income")));
+		transformation.addMapping("all", CoreFunctions.ALL.asExpression());
+
+		final Grouping aggregation = new Grouping().withResultProjection(transformation);
+		aggregation.setInputs(new SopremoTestPlan(1, 1).getInputOperator(0));
+		aggregation.setGroupingKey(0, createPath("dept"));
+
+		for (final ElementaryOperator<?> operator : aggregation.asElementaryOperators(new EvaluationContext())
+			.getReachableNodes())
+			Assert.assertFalse(operator instanceof Grouping.CombinableGroupProjection);
+	}
+
 	@Test
 	public void shouldPerformSimpleGroupBy() {
 		final SopremoTestPlan sopremoPlan = new SopremoTestPlan(1, 1);
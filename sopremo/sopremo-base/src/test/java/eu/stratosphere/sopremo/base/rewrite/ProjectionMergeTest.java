@@ -0,0 +1,112 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import static eu.stratosphere.sopremo.base.rewrite.SelectionPushdownTest.getInputOperator;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.sopremo.base.Projection;
+import eu.stratosphere.sopremo.expressions.ArithmeticExpression;
+import eu.stratosphere.sopremo.expressions.ArithmeticExpression.ArithmeticOperator;
+import eu.stratosphere.sopremo.expressions.ConstantExpression;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.operator.SopremoModule;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
+import eu.stratosphere.sopremo.testing.SopremoTestPlan;
+
+public class ProjectionMergeTest {
+	@Test
+	public void shouldMergeAdjacentProjections() {
+		final SopremoModule module = new SopremoModule("test", 1, 1);
+		final ObjectCreation renaming = new ObjectCreation();
+		renaming.addMapping("name", new ObjectAccess("fullName"));
+		renaming.addMapping("income", new ObjectAccess("salary"));
+		final Projection first = new Projection().
+			withResultProjection(renaming).
+			withInputs(module.getInput(0));
+		final ObjectCreation raise = new ObjectCreation();
+		raise.addMapping("name", new ObjectAccess("name"));
+		raise.addMapping("income", new ArithmeticExpression(new ObjectAccess("income"), ArithmeticOperator.MULTIPLICATION,
+			new ConstantExpression(2)));
+		final Projection second = new Projection().
+			withResultProjection(raise).
+			withInputs(first);
+		module.getOutput(0).setInput(0, second);
+
+		new SopremoOptimizer().optimize(module);
+
+		Assert.assertSame(second, getInputOperator(module.getOutput(0), 0));
+		Assert.assertSame(module.getInput(0), getInputOperator(second, 0));
+		final ObjectCreation expected = new ObjectCreation();
+		expected.addMapping("name", new ObjectAccess("fullName"));
+		expected.addMapping("income", new ArithmeticExpression(new ObjectAccess("salary"),
+			ArithmeticOperator.MULTIPLICATION, new ConstantExpression(2)));
+		Assert.assertEquals(expected, second.getResultProjection());
+	}
+
+	@Test
+	public void shouldPruneUnusedFields() {
+		final SopremoModule module = new SopremoModule("test", 1, 2);
+		final ObjectCreation renaming = new ObjectCreation();
+		renaming.addMapping("name", new ObjectAccess("fullName"));
+		renaming.addMapping("income", new ObjectAccess("salary"));
+		renaming.addMapping("department", new ObjectAccess("dept"));
+		final Projection projection = new Projection().
+			withResultProjection(renaming).
+			withInputs(module.getInput(0));
+		for (final String field : new String[] { "name", "income" }) {
+			final ObjectCreation selection = new ObjectCreation();
+			selection.addMapping(field, new ObjectAccess(field));
+			module.getOutput(field.equals("name") ? 0 : 1).setInput(0,
+				new Projection().withResultProjection(selection).withInputs(projection));
+		}
+
+		new SopremoOptimizer().optimize(module);
+
+		final ObjectCreation expected = new ObjectCreation();
+		expected.addMapping("name", new ObjectAccess("fullName"));
+		expected.addMapping("income", new ObjectAccess("salary"));
+		Assert.assertEquals(expected, projection.getResultProjection());
+	}
+
+	@Test
+	public void shouldRetainResultOfMergedProjections() {
+		final SopremoTestPlan sopremoPlan = new SopremoTestPlan(1, 1);
+		final ObjectCreation renaming = new ObjectCreation();
+		renaming.addMapping("name", new ObjectAccess("fullName"));
+		renaming.addMapping("income", new ObjectAccess("salary"));
+		final ObjectCreation raise = new ObjectCreation();
+		raise.addMapping("name", new ObjectAccess("name"));
+		raise.addMapping("income", new ArithmeticExpression(new ObjectAccess("income"), ArithmeticOperator.MULTIPLICATION,
+			new ConstantExpression(2)));
+		sopremoPlan.getOutputOperator(0).setInputs(new Projection().
+			withResultProjection(raise).
+			withInputs(new Projection().
+				withResultProjection(renaming).
+				withInputs(sopremoPlan.getInputOperator(0))));
+
+		sopremoPlan.getInput(0).
+			addObject("fullName", "Jon Doe", "salary", 20000).
+			addObject("fullName", "Jane Dean", "salary", 72000);
+		sopremoPlan.getExpectedOutput(0).
+			addObject("name", "Jon Doe", "income", 40000).
+			addObject("name", "Jane Dean", "income", 144000);
+
+		sopremoPlan.run();
+	}
+}
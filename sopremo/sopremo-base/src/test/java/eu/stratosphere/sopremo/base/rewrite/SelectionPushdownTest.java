@@ -0,0 +1,220 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.base.rewrite;
+
+import static eu.stratosphere.sopremo.type.JsonUtil.createPath;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.sopremo.base.Join;
+import eu.stratosphere.sopremo.base.Projection;
+import eu.stratosphere.sopremo.base.Selection;
+import eu.stratosphere.sopremo.base.UnionAll;
+import eu.stratosphere.sopremo.expressions.AndExpression;
+import eu.stratosphere.sopremo.expressions.ComparativeExpression;
+import eu.stratosphere.sopremo.expressions.ComparativeExpression.BinaryOperator;
+import eu.stratosphere.sopremo.expressions.ConstantExpression;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.OrExpression;
+import eu.stratosphere.sopremo.operator.JsonStream;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.operator.SopremoModule;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
+import eu.stratosphere.sopremo.testing.SopremoTestPlan;
+
+public class SelectionPushdownTest {
+	@Test
+	public void shouldPushSelectionBelowProjection() {
+		final SopremoModule module = new SopremoModule("test", 1, 1);
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("name", new ObjectAccess("fullName"));
+		transformation.addMapping("income", new ObjectAccess("salary"));
+		final Projection projection = new Projection().
+			withResultProjection(transformation).
+			withInputs(module.getInput(0));
+		final Selection selection = new Selection().
+			withCondition(incomeGreaterThan(new ObjectAccess("income"), 30000)).
+			withInputs(projection);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(1, new SopremoOptimizer().optimize(module));
+
+		Assert.assertSame(projection, getInputOperator(module.getOutput(0), 0));
+		final Selection pushedSelection = (Selection) getInputOperator(projection, 0);
+		Assert.assertSame(module.getInput(0), getInputOperator(pushedSelection, 0));
+		Assert.assertEquals(incomeGreaterThan(new ObjectAccess("salary"), 30000), pushedSelection.getCondition());
+	}
+
+	@Test
+	public void shouldKeepConjunctsOnUnassignedFields() {
+		final SopremoModule module = new SopremoModule("test", 1, 1);
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("income", new ObjectAccess("salary"));
+		final Projection projection = new Projection().
+			withResultProjection(transformation).
+			withInputs(module.getInput(0));
+		final Selection selection = new Selection().
+			withCondition(new AndExpression(incomeGreaterThan(new ObjectAccess("income"), 30000),
+				incomeGreaterThan(new ObjectAccess("bonus"), 1000))).
+			withInputs(projection);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(1, new SopremoOptimizer().optimize(module));
+
+		Assert.assertSame(selection, getInputOperator(module.getOutput(0), 0));
+		Assert.assertEquals(incomeGreaterThan(new ObjectAccess("bonus"), 1000), selection.getCondition());
+		Assert.assertSame(projection, getInputOperator(selection, 0));
+		Assert.assertEquals(Selection.class, getInputOperator(projection, 0).getClass());
+	}
+
+	@Test
+	public void shouldNotPushSelectionBelowSharedOperator() {
+		final SopremoModule module = new SopremoModule("test", 1, 2);
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("income", new ObjectAccess("salary"));
+		final Projection projection = new Projection().
+			withResultProjection(transformation).
+			withInputs(module.getInput(0));
+		final Selection selection = new Selection().
+			withCondition(incomeGreaterThan(new ObjectAccess("income"), 30000)).
+			withInputs(projection);
+		module.getOutput(0).setInput(0, selection);
+		module.getOutput(1).setInput(0, projection);
+
+		Assert.assertEquals(0, new SopremoOptimizer().optimize(module));
+	}
+
+	@Test
+	public void shouldPushSelectionBelowUnion() {
+		final SopremoModule module = new SopremoModule("test", 2, 1);
+		final UnionAll union = new UnionAll().withInputs(module.getInput(0), module.getInput(1));
+		final Selection selection = new Selection().
+			withCondition(incomeGreaterThan(new ObjectAccess("income"), 30000)).
+			withInputs(union);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(1, new SopremoOptimizer().optimize(module));
+
+		Assert.assertSame(union, getInputOperator(module.getOutput(0), 0));
+		for (int index = 0; index < 2; index++) {
+			final Selection pushedSelection = (Selection) getInputOperator(union, index);
+			Assert.assertSame(module.getInput(index), getInputOperator(pushedSelection, 0));
+			Assert.assertEquals(selection.getCondition(), pushedSelection.getCondition());
+		}
+	}
+
+	@Test
+	public void shouldPushSelectionIntoJoinInput() {
+		final SopremoModule module = new SopremoModule("test", 2, 1);
+		final Join join = createJoin(module);
+		final Selection selection = new Selection().
+			withCondition(incomeGreaterThan(new ObjectAccess("income"), 30000)).
+			withInputs(join);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(1, new SopremoOptimizer().optimize(module));
+
+		Assert.assertSame(join, getInputOperator(module.getOutput(0), 0));
+		Assert.assertSame(module.getInput(0), getInputOperator(join, 0));
+		final Selection pushedSelection = (Selection) getInputOperator(join, 1);
+		Assert.assertEquals(incomeGreaterThan(new ObjectAccess("salary"), 30000), pushedSelection.getCondition());
+	}
+
+	@Test
+	public void shouldNotPushSelectionBelowOtherPreservedInput() {
+		final SopremoModule module = new SopremoModule("test", 2, 1);
+		final Join join = createJoin(module).withOuterJoinIndices(0);
+		final Selection selection = new Selection().
+			withCondition(incomeGreaterThan(new ObjectAccess("income"), 30000)).
+			withInputs(join);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(0, new SopremoOptimizer().optimize(module));
+	}
+
+	@Test
+	public void shouldNotPushSelectionOnFieldsOfSeveralJoinInputs() {
+		final SopremoModule module = new SopremoModule("test", 2, 1);
+		final Join join = createJoin(module);
+		final Selection selection = new Selection().
+			withCondition(new OrExpression(incomeGreaterThan(new ObjectAccess("income"), 30000),
+				new ComparativeExpression(new ObjectAccess("name"), BinaryOperator.EQUAL,
+					new ConstantExpression("Jon Doe")))).
+			withInputs(join);
+		module.getOutput(0).setInput(0, selection);
+
+		Assert.assertEquals(0, new SopremoOptimizer().optimize(module));
+	}
+
+	@Test
+	public void shouldRetainResultOfPushedSelection() {
+		final SopremoTestPlan sopremoPlan = new SopremoTestPlan(2, 1);
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("name", createPath("0", "name"));
+		transformation.addMapping("income", createPath("1", "salary"));
+		final Join join = new Join().
+			withJoinCondition(new ComparativeExpression(createPath("0", "id"), BinaryOperator.EQUAL,
+				createPath("1", "userid"))).
+			withResultProjection(transformation).
+			withInputs(sopremoPlan.getInputOperators(0, 2));
+		final ObjectCreation renaming = new ObjectCreation();
+		renaming.addMapping("employee", new ObjectAccess("name"));
+		renaming.addMapping("income", new ObjectAccess("income"));
+		final Projection projection = new Projection().
+			withResultProjection(renaming).
+			withInputs(join);
+		sopremoPlan.getOutputOperator(0).setInputs(new Selection().
+			withCondition(new AndExpression(incomeGreaterThan(new ObjectAccess("income"), 30000),
+				new ComparativeExpression(new ObjectAccess("employee"), BinaryOperator.NOT_EQUAL,
+					new ConstantExpression("Jane Dean")))).
+			withInputs(projection));
+
+		sopremoPlan.getInput(0).
+			addObject("id", 1, "name", "Jon Doe").
+			addObject("id", 2, "name", "Vince Wayne").
+			addObject("id", 3, "name", "Jane Dean");
+		sopremoPlan.getInput(1).
+			addObject("userid", 1, "salary", 20000).
+			addObject("userid", 2, "salary", 32500).
+			addObject("userid", 3, "salary", 72000);
+		sopremoPlan.getExpectedOutput(0).
+			addObject("employee", "Vince Wayne", "income", 32500);
+
+		sopremoPlan.run();
+	}
+
+	private static Join createJoin(final SopremoModule module) {
+		final ObjectCreation transformation = new ObjectCreation();
+		transformation.addMapping("name", createPath("0", "name"));
+		transformation.addMapping("income", createPath("1", "salary"));
+		return new Join().
+			withJoinCondition(new ComparativeExpression(createPath("0", "id"), BinaryOperator.EQUAL,
+				createPath("1", "userid"))).
+			withResultProjection(transformation).
+			withInputs(module.getInput(0), module.getInput(1));
+	}
+
+	static Operator<?> getInputOperator(final Operator<?> operator, final int index) {
+		final JsonStream input = operator.getInput(index);
+		return input.getSource().getOperator();
+	}
+
+	private static ComparativeExpression incomeGreaterThan(final EvaluationExpression income, final int threshold) {
+		return new ComparativeExpression(income, BinaryOperator.GREATER, new ConstantExpression(threshold));
+	}
+}
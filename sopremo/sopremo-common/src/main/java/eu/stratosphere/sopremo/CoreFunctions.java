@@ -53,6 +53,14 @@ public class CoreFunctions implements BuiltinProvider {
 				textTarget.setValue(aggregator.getTextValue());
 				return textTarget;
 			}
+
+			/**
+			 * The {@link AppendableTextNode} cannot be shipped as a partial aggregate.
+			 */
+			@Override
+			public boolean isCombinable() {
+				return false;
+			}
 		};
 
 	/**
@@ -84,6 +92,11 @@ public class CoreFunctions implements BuiltinProvider {
 		public IntNode aggregate(IJsonNode node, IntNode aggregationTarget, EvaluationContext context) {
 			return (IntNode) ArithmeticOperator.ADDITION.evaluate(IntNode.ONE, aggregationTarget, aggregationTarget);
 		}
+
+		@Override
+		public IntNode combine(IntNode partial, IntNode aggregationTarget, EvaluationContext context) {
+			return (IntNode) ArithmeticOperator.ADDITION.evaluate(partial, aggregationTarget, aggregationTarget);
+		}
 	};
 
 	@Name(noun = "first")
@@ -142,6 +155,21 @@ public class CoreFunctions implements BuiltinProvider {
 			return avgState;
 		}
 
+		@Override
+		public boolean isCombinable() {
+			return true;
+		}
+
+		@Override
+		public ArrayNode combine(ArrayNode partial, ArrayNode avgState, EvaluationContext context) {
+			INumericNode sum = (INumericNode) avgState.get(0);
+			sum = ArithmeticOperator.ADDITION.evaluate((INumericNode) partial.get(0), sum, sum);
+			avgState.set(0, sum);
+			IntNode count = (IntNode) avgState.get(1);
+			count.setValue(count.getIntValue() + ((IntNode) partial.get(1)).getIntValue());
+			return avgState;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see
@@ -37,4 +37,15 @@ public class SopremoConstants {
 	public static final int DEFAULT_SOPREMO_SERVER_IPC_PORT = 6201;
 
 	public static final String SOPREMO_SERVER_HANDLER_COUNT_KEY = "sopremo.rpc.numhandler";
+
+	/**
+	 * The key for the config parameter defining the number of compiled plans that are cached by the sopremo server. A
+	 * value of 0 disables the cache.
+	 */
+	public static final String SOPREMO_SERVER_PLAN_CACHE_SIZE_KEY = "sopremo.plancache.size";
+
+	/**
+	 * The default number of compiled plans that are cached by the sopremo server.
+	 */
+	public static final int DEFAULT_SOPREMO_SERVER_PLAN_CACHE_SIZE = 64;
 }
@@ -28,6 +28,15 @@ public class ArrayProjection extends EvaluationExpression {
 		this.expression = expression;
 	}
 
+	/**
+	 * Returns the expression which is applied to each element.
+	 * 
+	 * @return the expression
+	 */
+	public EvaluationExpression getExpression() {
+		return this.expression;
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		if (!super.equals(obj))
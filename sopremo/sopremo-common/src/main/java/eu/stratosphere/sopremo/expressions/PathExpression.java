@@ -243,7 +243,7 @@ public class PathExpression extends ContainerExpression implements Cloneable {
 			return EvaluationExpression.VALUE;
 
 		case 1:
-			return expressions.get(0);
+			return normalized.get(0);
 
 		default:
 			return new PathExpression(normalized);
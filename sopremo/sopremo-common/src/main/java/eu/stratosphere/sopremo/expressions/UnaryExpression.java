@@ -64,6 +64,24 @@ public class UnaryExpression extends BooleanExpression {
 		return result;
 	}
 
+	/**
+	 * Returns the expression which evaluates to the boolean value that is represented by this expression.
+	 * 
+	 * @return the inner expression
+	 */
+	public EvaluationExpression getExpr() {
+		return this.expr;
+	}
+
+	/**
+	 * Returns true if the result of the inner expression is negated.
+	 * 
+	 * @return the negate-flag
+	 */
+	public boolean isNegate() {
+		return this.negate;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
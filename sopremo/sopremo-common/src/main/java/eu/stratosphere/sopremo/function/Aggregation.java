@@ -19,6 +19,35 @@ public abstract class Aggregation<ElementType extends IJsonNode, AggregatorType
 
 	public abstract AggregatorType aggregate(ElementType node, AggregatorType aggregator, EvaluationContext context);
 
+	/**
+	 * Returns whether partial aggregates of this function can be merged with
+	 * {@link #combine(IJsonNode, IJsonNode, EvaluationContext)}. Only then, the aggregation may be computed
+	 * incrementally, for example, by a combiner before the values are shipped.
+	 * 
+	 * @return true if partial aggregates can be combined
+	 */
+	public boolean isCombinable() {
+		return false;
+	}
+
+	/**
+	 * Merges a partial aggregate that has been computed on a subset of the values into the given aggregator.
+	 * 
+	 * @param partial
+	 *        the partial aggregate
+	 * @param aggregator
+	 *        the aggregator which holds the aggregate of the other values
+	 * @param context
+	 *        the context in which the aggregation is performed
+	 * @return the aggregator
+	 * @throws UnsupportedOperationException
+	 *         if the aggregation is not {@link #isCombinable() combinable}
+	 */
+	public AggregatorType combine(final AggregatorType partial, final AggregatorType aggregator,
+			final EvaluationContext context) {
+		throw new UnsupportedOperationException(String.format("%s cannot combine partial aggregates", this.name));
+	}
+
 	/**
 	 * Creates an {@link AggregationExpression} for this function
 	 * 
@@ -41,6 +41,15 @@ public class AggregationFunction extends SopremoFunction {
 		this.aggregation = (Aggregation<IJsonNode, IJsonNode>) aggregation;
 	}
 
+	/**
+	 * Returns the aggregation.
+	 * 
+	 * @return the aggregation
+	 */
+	public Aggregation<IJsonNode, IJsonNode> getAggregation() {
+		return this.aggregation;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see eu.stratosphere.sopremo.function.Callable#call(java.lang.Object, java.lang.Object,
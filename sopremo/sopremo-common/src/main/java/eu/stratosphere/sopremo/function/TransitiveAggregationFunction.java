@@ -1,5 +1,6 @@
 package eu.stratosphere.sopremo.function;
 
+import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.pact.SopremoUtil;
 import eu.stratosphere.sopremo.type.IJsonNode;
 
@@ -16,6 +17,23 @@ public abstract class TransitiveAggregationFunction<ElementType extends IJsonNod
 		this.initialAggregate = initialAggregate;
 	}
 
+	/**
+	 * Returns true since the aggregator has the same semantic as the aggregated elements.
+	 */
+	@Override
+	public boolean isCombinable() {
+		return true;
+	}
+
+	/**
+	 * Aggregates the partial aggregate as if it was a regular element.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public AggregatorType combine(AggregatorType partial, AggregatorType aggregator, EvaluationContext context) {
+		return this.aggregate((ElementType) partial, aggregator, context);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
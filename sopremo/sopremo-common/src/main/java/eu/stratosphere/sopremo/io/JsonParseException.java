@@ -7,4 +7,20 @@ public class JsonParseException extends JsonProcessingException {
 
 	private static final long serialVersionUID = -200084994943556971L;
 
+	public JsonParseException() {
+		super();
+	}
+
+	/**
+	 * Initializes a JsonParseException for an error at the given position of the input.
+	 * 
+	 * @param message
+	 *        the description of the error
+	 * @param position
+	 *        the byte position in the input at which the error has been detected
+	 */
+	public JsonParseException(final String message, final long position) {
+		super(message + " at position " + position);
+	}
+
 }
\ No newline at end of file
@@ -9,4 +9,12 @@ public class JsonProcessingException extends IOException {
 
 	private static final long serialVersionUID = -794115145360667900L;
 
+	public JsonProcessingException() {
+		super();
+	}
+
+	public JsonProcessingException(final String message) {
+		super(message);
+	}
+
 }
\ No newline at end of file
@@ -14,9 +14,13 @@
  **********************************************************************************************************************/
 package eu.stratosphere.sopremo.io;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,6 +41,8 @@ import eu.stratosphere.sopremo.expressions.ArrayAccess;
 import eu.stratosphere.sopremo.expressions.EvaluationExpression;
 import eu.stratosphere.sopremo.expressions.ObjectAccess;
 import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.pact.CompressedOutputStream;
+import eu.stratosphere.sopremo.pact.IOConstants;
 import eu.stratosphere.sopremo.pact.SopremoUtil;
 import eu.stratosphere.sopremo.serialization.Schema;
 import eu.stratosphere.sopremo.type.ArrayNode;
@@ -60,6 +66,8 @@ public class JsonToCsv {
 
 	private String separator = ";";
 
+	private boolean compressed = false;
+
 	public EvaluationContext getContext() {
 		return this.context;
 	}
@@ -75,6 +83,25 @@ public class JsonToCsv {
 		this.separator = separator;
 	}
 
+	/**
+	 * Returns whether the csv file is gzip compressed.
+	 * 
+	 * @return true if the output is compressed
+	 */
+	public boolean isCompressed() {
+		return this.compressed;
+	}
+
+	/**
+	 * Sets whether the csv file should be gzip compressed.
+	 * 
+	 * @param compressed
+	 *        true if the output should be compressed
+	 */
+	public void setCompressed(final boolean compressed) {
+		this.compressed = compressed;
+	}
+
 	public List<EvaluationExpression> getExtractionExpressions() {
 		return this.extractionExpressions;
 	}
@@ -106,16 +133,43 @@ public class JsonToCsv {
 		jsonToString.setInput(source);
 
 		final FileDataSink target = new FileDataSink(StringOutputFormat.class, targetFile);
+		SopremoUtil.serialize(target.getParameters(), IOConstants.COMPRESSION, jsonToCsv.isCompressed());
 		target.setInput(jsonToString);
 
 		return target;
 	}
 
 	public static class StringOutputFormat extends DelimitedOutputFormat {
-		private final Charset cs = Charset.defaultCharset();
+		private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
 
 		private final PactString string = new PactString();
 
+		private boolean compressed;
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * eu.stratosphere.pact.common.io.DelimitedOutputFormat#configure(eu.stratosphere.nephele.configuration.Configuration
+		 * )
+		 */
+		@Override
+		public void configure(final Configuration config) {
+			super.configure(config);
+			this.compressed = Boolean.TRUE.equals(SopremoUtil.deserialize(config, IOConstants.COMPRESSION,
+				Boolean.class));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see eu.stratosphere.pact.common.io.DelimitedOutputFormat#open(int)
+		 */
+		@Override
+		public void open(final int taskNumber) throws IOException {
+			super.open(taskNumber);
+			if (this.compressed)
+				this.stream = new CompressedOutputStream(this.stream, Utf8JsonGenerator.DEFAULT_BUFFER_SIZE);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see
@@ -125,15 +179,17 @@ public class JsonToCsv {
 		@Override
 		public int serializeRecord(final PactRecord record, final byte[] target) throws Exception {
 			record.getFieldInto(0, this.string);
-			final ByteBuffer line = this.cs.encode(this.string.getValue());
-
-			final int length = line.limit() + 1;
-			if (length > target.length)
-				return -length;
 
-			line.get(target);
-			target[length - 1] = '\n';
-			return length;
+			// encode directly into the target array and request a larger one if it does not fit
+			final ByteBuffer line = ByteBuffer.wrap(target);
+			this.encoder.reset();
+			final CoderResult result = this.encoder.encode(CharBuffer.wrap(this.string), line, true);
+			if (result.isOverflow())
+				return -(int) (this.string.length() * this.encoder.maxBytesPerChar());
+			if (result.isError())
+				result.throwException();
+			this.encoder.flush(line);
+			return line.position();
 		}
 	}
 
@@ -151,6 +207,8 @@ public class JsonToCsv {
 
 		private final PactRecord resultRecord = new PactRecord(this.resultString);
 
+		private final StringBuilder string = new StringBuilder();
+
 		private Schema schema;
 
 		/*
@@ -176,16 +234,17 @@ public class JsonToCsv {
 		 */
 		@Override
 		public void map(final PactRecord record, final Collector<PactRecord> out) throws Exception {
-			final StringBuilder string = new StringBuilder();
+			final StringBuilder string = this.string;
+			string.setLength(0);
 
 			this.node = this.schema.recordToJson(record, this.node);
 			if (this.extractionExpressions.isEmpty())
 				this.discoverEntries(this.node, new LinkedList<EvaluationExpression>());
 			for (final EvaluationExpression expr : this.extractionExpressions)
-				string.append(expr.evaluate(this.node, null, this.context)).append(this.separator);
+				expr.evaluate(this.node, null, this.context).toString(string).append(this.separator);
 
-			string.setLength(string.length() - 1);
-			this.resultString.setValue(string.toString());
+			string.setLength(string.length() - this.separator.length());
+			this.resultString.setValue(CharBuffer.wrap(string));
 
 			out.collect(this.resultRecord);
 		}
@@ -1,5 +1,10 @@
 package eu.stratosphere.sopremo.io;
 
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 import eu.stratosphere.pact.common.contract.FileDataSink;
 import eu.stratosphere.pact.common.io.FileOutputFormat;
 import eu.stratosphere.pact.common.plan.PactModule;
@@ -26,6 +31,14 @@ public class Sink extends ElementaryOperator<Sink> {
 
 	private Class<? extends FileOutputFormat> outputFormat;
 
+	private final Map<String, Object> parameters = new HashMap<String, Object>();
+
+	/**
+	 * The parameter that allows the Sink to write with more than one task. The output path then denotes a directory
+	 * containing one file per task.
+	 */
+	public static final String PARALLEL = "sink.parallel";
+
 	/**
 	 * Initializes a Sink with the given {@link FileOutputFormat} and the given name.
 	 * 
@@ -89,9 +102,12 @@ public class Sink extends ElementaryOperator<Sink> {
 		final PactModule pactModule = new PactModule(this.toString(), 1, 0);
 		final FileDataSink contract = new FileDataSink(this.outputFormat, this.outputPath, this.outputPath);
 		contract.setInput(pactModule.getInput(0));
+		for (final Entry<String, Object> parameter : this.parameters.entrySet())
+			if (parameter.getValue() instanceof Serializable)
+				SopremoUtil.serialize(contract.getParameters(), parameter.getKey(), (Serializable) parameter.getValue());
 		SopremoUtil.serialize(contract.getParameters(), SopremoUtil.CONTEXT, context);
-		// if(this.outputFormat == JsonOutputFormat.class)
-		contract.setDegreeOfParallelism(1);
+		if (!Boolean.TRUE.equals(this.parameters.get(PARALLEL)))
+			contract.setDegreeOfParallelism(1);
 		pactModule.addInternalOutput(contract);
 		return pactModule;
 	}
@@ -105,6 +121,27 @@ public class Sink extends ElementaryOperator<Sink> {
 		return module;
 	}
 
+	/**
+	 * Returns the parameters of this Sink.
+	 * 
+	 * @return the parameters
+	 */
+	public Map<String, Object> getParameters() {
+		return this.parameters;
+	}
+
+	/**
+	 * Sets a new parameter entry for this Sink.
+	 * 
+	 * @param key
+	 *        the key of the new parameter
+	 * @param value
+	 *        the new parameter
+	 */
+	public void setParameter(final String key, final Object value) {
+		this.parameters.put(key, value);
+	}
+
 	/**
 	 * Returns the name of this Sink.
 	 * 
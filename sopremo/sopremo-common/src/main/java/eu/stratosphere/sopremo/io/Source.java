@@ -173,7 +173,8 @@ public class Source extends ElementaryOperator<Source> {
 			contract = new FileDataSource(this.inputFormat, inputPath, name);
 		}
 		final PactModule pactModule = new PactModule(this.toString(), 0, 1);
-		if (this.inputFormat == JsonInputFormat.class)
+		if (this.inputFormat == JsonInputFormat.class
+			&& !Boolean.TRUE.equals(this.parameters.get(JsonInputFormat.LINE_DELIMITED)))
 			contract.setDegreeOfParallelism(1);
 
 		for (final Entry<String, Object> parameter : this.parameters.entrySet())
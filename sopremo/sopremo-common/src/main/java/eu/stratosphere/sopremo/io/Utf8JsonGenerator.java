@@ -0,0 +1,311 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import eu.stratosphere.sopremo.pact.SopremoUtil;
+import eu.stratosphere.sopremo.type.BooleanNode;
+import eu.stratosphere.sopremo.type.IArrayNode;
+import eu.stratosphere.sopremo.type.IJsonNode;
+import eu.stratosphere.sopremo.type.IObjectNode;
+import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.LongNode;
+import eu.stratosphere.sopremo.type.NullNode;
+import eu.stratosphere.sopremo.type.TextNode;
+
+/**
+ * Writes the UTF-8 encoded json representation of {@link IJsonNode}s to an {@link OutputStream}. In contrast to the
+ * {@link JsonGenerator}, the nodes are encoded directly into a reusable byte buffer, which is written to the stream
+ * only when it is full or when the generator is flushed. Hence, the stream receives few but large writes.<br>
+ * Strings are escaped according to the json specification; apart from that, the output is equal to the
+ * {@link IJsonNode#toString()} representation.
+ */
+public class Utf8JsonGenerator {
+	/**
+	 * The default size of the write buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' }, TRUE = { 't', 'r', 'u', 'e' },
+			FALSE = { 'f', 'a', 'l', 's', 'e' }, HEX = "0123456789abcdef".getBytes();
+
+	private final OutputStream stream;
+
+	private final byte[] buffer;
+
+	private int position;
+
+	private final byte[] digits = new byte[20];
+
+	private final StringBuilder builder = new StringBuilder();
+
+	private boolean isFirst = true;
+
+	/**
+	 * Initializes a Utf8JsonGenerator that writes to the given stream with the {@link #DEFAULT_BUFFER_SIZE}.
+	 *
+	 * @param stream
+	 *        the stream that should be used as a sink
+	 */
+	public Utf8JsonGenerator(final OutputStream stream) {
+		this(stream, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Initializes a Utf8JsonGenerator that writes to the given stream.
+	 *
+	 * @param stream
+	 *        the stream that should be used as a sink
+	 * @param bufferSize
+	 *        the number of bytes that are collected before they are written to the stream
+	 */
+	public Utf8JsonGenerator(final OutputStream stream, final int bufferSize) {
+		if (bufferSize < 64)
+			throw new IllegalArgumentException("buffer size too small: " + bufferSize);
+		this.stream = stream;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Writes the start-array-token.
+	 *
+	 * @throws IOException
+	 */
+	public void writeStartArray() throws IOException {
+		this.writeByte('[');
+	}
+
+	/**
+	 * Writes the end-array-token.
+	 *
+	 * @throws IOException
+	 */
+	public void writeEndArray() throws IOException {
+		this.writeByte(']');
+	}
+
+	/**
+	 * Writes the given {@link IJsonNode}. The representations of multiple invocations are separated by a comma.
+	 *
+	 * @param node
+	 *        the node that should be written
+	 * @throws IOException
+	 */
+	public void writeTree(final IJsonNode node) throws IOException {
+		if (node != null) {
+			if (!this.isFirst)
+				this.writeByte(',');
+			this.writeValue(node);
+			this.isFirst = false;
+		}
+	}
+
+	/**
+	 * Writes the given {@link IJsonNode} without any separator.
+	 *
+	 * @param node
+	 *        the node that should be written
+	 * @throws IOException
+	 */
+	public void writeValue(IJsonNode node) throws IOException {
+		node = SopremoUtil.unwrap(node);
+		if (node instanceof IObjectNode)
+			this.writeObject((IObjectNode) node);
+		else if (node instanceof IArrayNode)
+			this.writeArray((IArrayNode) node);
+		else if (node instanceof TextNode)
+			this.writeString(((TextNode) node).getTextValue());
+		else if (node instanceof IntNode)
+			this.writeLong(((IntNode) node).getIntValue());
+		else if (node instanceof LongNode)
+			this.writeLong(((LongNode) node).getLongValue());
+		else if (node instanceof BooleanNode)
+			this.writeBytes(node == BooleanNode.TRUE ? TRUE : FALSE);
+		else if (node instanceof NullNode)
+			this.writeBytes(NULL);
+		else {
+			// decimals and all unknown nodes use their string representation
+			this.builder.setLength(0);
+			node.toString(this.builder);
+			this.writeChars(this.builder);
+		}
+	}
+
+	/**
+	 * Writes a single byte.
+	 *
+	 * @param b
+	 *        the byte to write
+	 * @throws IOException
+	 */
+	public void writeByte(final int b) throws IOException {
+		if (this.position == this.buffer.length)
+			this.flushBuffer();
+		this.buffer[this.position++] = (byte) b;
+	}
+
+	/**
+	 * Writes all buffered bytes to the stream and flushes the stream.
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		this.flushBuffer();
+		this.stream.flush();
+	}
+
+	/**
+	 * Writes all buffered bytes and closes the stream.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		this.flushBuffer();
+		this.stream.close();
+	}
+
+	private void writeObject(final IObjectNode object) throws IOException {
+		this.writeByte('{');
+		boolean first = true;
+		for (final Entry<String, IJsonNode> entry : object) {
+			if (!first)
+				this.writeByte(',');
+			first = false;
+			this.writeString(entry.getKey());
+			this.writeByte(':');
+			this.writeValue(entry.getValue());
+		}
+		this.writeByte('}');
+	}
+
+	private void writeArray(final IArrayNode array) throws IOException {
+		this.writeByte('[');
+		final Iterator<IJsonNode> iterator = array.iterator();
+		for (boolean first = true; iterator.hasNext(); first = false) {
+			if (!first)
+				this.writeByte(',');
+			this.writeValue(iterator.next());
+		}
+		this.writeByte(']');
+	}
+
+	private void writeString(final CharSequence string) throws IOException {
+		this.writeByte('"');
+		final int length = string.length();
+		for (int index = 0; index < length; index++) {
+			final char ch = string.charAt(index);
+			switch (ch) {
+			case '"':
+			case '\\':
+				this.writeByte('\\');
+				this.writeByte(ch);
+				break;
+			case '\n':
+				this.writeByte('\\');
+				this.writeByte('n');
+				break;
+			case '\r':
+				this.writeByte('\\');
+				this.writeByte('r');
+				break;
+			case '\t':
+				this.writeByte('\\');
+				this.writeByte('t');
+				break;
+			default:
+				if (ch < 0x20) {
+					this.writeByte('\\');
+					this.writeByte('u');
+					this.writeByte('0');
+					this.writeByte('0');
+					this.writeByte(HEX[ch >> 4]);
+					this.writeByte(HEX[ch & 0xf]);
+				} else
+					index = this.writeChar(string, index, ch);
+			}
+		}
+		this.writeByte('"');
+	}
+
+	private void writeChars(final CharSequence chars) throws IOException {
+		final int length = chars.length();
+		for (int index = 0; index < length; index++)
+			index = this.writeChar(chars, index, chars.charAt(index));
+	}
+
+	/**
+	 * Encodes the character at the given index and returns the index of the last consumed character.
+	 */
+	private int writeChar(final CharSequence chars, final int index, final char ch) throws IOException {
+		if (ch < 0x80)
+			this.writeByte(ch);
+		else if (ch < 0x800) {
+			this.writeByte(0xc0 | ch >> 6);
+			this.writeByte(0x80 | ch & 0x3f);
+		} else if (Character.isHighSurrogate(ch) && index + 1 < chars.length()
+			&& Character.isLowSurrogate(chars.charAt(index + 1))) {
+			final int codePoint = Character.toCodePoint(ch, chars.charAt(index + 1));
+			this.writeByte(0xf0 | codePoint >> 18);
+			this.writeByte(0x80 | codePoint >> 12 & 0x3f);
+			this.writeByte(0x80 | codePoint >> 6 & 0x3f);
+			this.writeByte(0x80 | codePoint & 0x3f);
+			return index + 1;
+		} else {
+			this.writeByte(0xe0 | ch >> 12);
+			this.writeByte(0x80 | ch >> 6 & 0x3f);
+			this.writeByte(0x80 | ch & 0x3f);
+		}
+		return index;
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			this.writeChars(String.valueOf(value));
+			return;
+		}
+		if (value < 0) {
+			this.writeByte('-');
+			value = -value;
+		}
+		int start = this.digits.length;
+		do {
+			this.digits[--start] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		this.writeBytes(this.digits, start, this.digits.length - start);
+	}
+
+	private void writeBytes(final byte[] bytes) throws IOException {
+		this.writeBytes(bytes, 0, bytes.length);
+	}
+
+	private void writeBytes(final byte[] bytes, final int offset, final int length) throws IOException {
+		if (this.buffer.length - this.position < length)
+			this.flushBuffer();
+		System.arraycopy(bytes, offset, this.buffer, this.position, length);
+		this.position += length;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (this.position > 0) {
+			this.stream.write(this.buffer, 0, this.position);
+			this.position = 0;
+		}
+	}
+}
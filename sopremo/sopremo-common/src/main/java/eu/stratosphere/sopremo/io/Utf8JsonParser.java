@@ -0,0 +1,698 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import eu.stratosphere.sopremo.type.ArrayNode;
+import eu.stratosphere.sopremo.type.BigIntegerNode;
+import eu.stratosphere.sopremo.type.BooleanNode;
+import eu.stratosphere.sopremo.type.DecimalNode;
+import eu.stratosphere.sopremo.type.IJsonNode;
+import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.LongNode;
+import eu.stratosphere.sopremo.type.NullNode;
+import eu.stratosphere.sopremo.type.ObjectNode;
+import eu.stratosphere.sopremo.type.TextNode;
+
+/**
+ * Parses UTF-8 encoded json directly from the bytes of an {@link InputStream} without decoding the input through a
+ * {@link java.io.Reader} first.<br>
+ * Values are parsed into a given target node whenever the type of the target matches, such that repeatedly parsing
+ * records of the same structure does not create new nodes. Fields of top-level objects that are not contained in the
+ * projection are skipped without being materialized.<br>
+ * Unlike {@link JsonParser}, this parser does not unwrap top-level arrays itself; the caller decides with
+ * {@link #peek()} and {@link #consume()} how the values of the stream are delimited.
+ */
+public class Utf8JsonParser {
+	/**
+	 * The default size of the read buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final int KEY_CACHE_SIZE = 256;
+
+	private static final Charset ASCII = Charset.forName("US-ASCII"), UTF8 = Charset.forName("UTF-8");
+
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' }, TRUE = { 't', 'r', 'u', 'e' },
+			FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+	private final InputStream stream;
+
+	private byte[] buffer;
+
+	private int position, limit;
+
+	/**
+	 * The number of bytes that have been discarded from the buffer.
+	 */
+	private long offset;
+
+	private boolean endOfStream = false;
+
+	private char[] chars = new char[256];
+
+	private CharBuffer charBuffer = CharBuffer.wrap(this.chars);
+
+	private int charCount;
+
+	private final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+	private Set<String> projection;
+
+	private final List<Set<String>> seenKeys = new ArrayList<Set<String>>();
+
+	private final List<String> staleKeys = new ArrayList<String>();
+
+	private int depth;
+
+	/**
+	 * Initializes a Utf8JsonParser that reads the input-data from the given stream with the
+	 * {@link #DEFAULT_BUFFER_SIZE}.
+	 *
+	 * @param stream
+	 *        the stream that provides the data
+	 */
+	public Utf8JsonParser(final InputStream stream) {
+		this(stream, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Initializes a Utf8JsonParser that reads the input-data from the given stream.
+	 *
+	 * @param stream
+	 *        the stream that provides the data
+	 * @param bufferSize
+	 *        the number of bytes that are read at once from the stream
+	 */
+	public Utf8JsonParser(final InputStream stream, final int bufferSize) {
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("buffer size too small: " + bufferSize);
+		this.stream = stream;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Restricts the fields of top-level objects to the given names. All other fields are skipped.
+	 *
+	 * @param fieldNames
+	 *        the names of the fields that should be parsed or <code>null</code> if all fields should be parsed
+	 */
+	public void setProjection(final Collection<String> fieldNames) {
+		this.projection = fieldNames == null ? null : new HashSet<String>(fieldNames);
+	}
+
+	/**
+	 * Returns the names of the fields of top-level objects that are parsed.
+	 *
+	 * @return the projection or <code>null</code> if all fields are parsed
+	 */
+	public Set<String> getProjection() {
+		return this.projection;
+	}
+
+	/**
+	 * Returns the number of bytes that have been consumed from the stream so far.
+	 *
+	 * @return the position relative to the start of the stream
+	 */
+	public long getPosition() {
+		return this.offset + this.position;
+	}
+
+	/**
+	 * Skips all whitespaces and returns the next byte without consuming it.
+	 *
+	 * @return the next non-whitespace byte or -1 if the end of the stream has been reached
+	 * @throws IOException
+	 *         if an I/O error occurred
+	 */
+	public int peek() throws IOException {
+		while (true) {
+			while (this.position < this.limit) {
+				final byte ch = this.buffer[this.position];
+				if (ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t')
+					return ch;
+				this.position++;
+			}
+			if (!this.fill())
+				return -1;
+		}
+	}
+
+	/**
+	 * Consumes the next byte.
+	 *
+	 * @throws IOException
+	 *         if an I/O error occurred
+	 */
+	public void consume() throws IOException {
+		if (this.position == this.limit && !this.fill())
+			throw new JsonParseException("Unexpected end of json stream", this.getPosition());
+		this.position++;
+	}
+
+	/**
+	 * Skips all bytes up to and including the next line feed.
+	 *
+	 * @return true if a line feed has been found before the end of the stream has been reached
+	 * @throws IOException
+	 *         if an I/O error occurred
+	 */
+	public boolean skipLine() throws IOException {
+		while (true) {
+			while (this.position < this.limit)
+				if (this.buffer[this.position++] == '\n')
+					return true;
+			if (!this.fill())
+				return false;
+		}
+	}
+
+	/**
+	 * Parses the next value of the stream. If the type of the given target matches the type of the parsed value, the
+	 * target is reused. Nested values of the target are reused in the same way; thus, the target must not share nodes
+	 * with other nodes.
+	 *
+	 * @param target
+	 *        the node that should be reused or <code>null</code>
+	 * @return the parsed value
+	 * @throws IOException
+	 *         if an I/O error occurred or the input is not valid json
+	 */
+	public IJsonNode readValue(final IJsonNode target) throws IOException {
+		this.depth = 0;
+		return this.parseValue(target);
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException
+	 *         if an I/O error occurred
+	 */
+	public void close() throws IOException {
+		this.stream.close();
+	}
+
+	private IJsonNode parseValue(final IJsonNode target) throws IOException {
+		switch (this.peek()) {
+		case -1:
+			throw new JsonParseException("Unexpected end of json stream", this.getPosition());
+		case '{':
+			return this.parseObject(target);
+		case '[':
+			return this.parseArray(target);
+		case '"':
+			this.position++;
+			this.parseString();
+			if (target instanceof TextNode && target != TextNode.EMPTY_STRING_NODE) {
+				((TextNode) target).setValue(this.charBuffer());
+				return target;
+			}
+			final TextNode textNode = new TextNode();
+			textNode.setValue(this.charBuffer());
+			return textNode;
+		default:
+			return this.parseLiteral(target);
+		}
+	}
+
+	private IJsonNode parseObject(final IJsonNode target) throws IOException {
+		this.position++;
+		final ObjectNode object = target instanceof ObjectNode ? (ObjectNode) target : new ObjectNode();
+		final Set<String> projection = this.depth == 0 ? this.projection : null;
+		final Set<String> seenKeys = this.seenKeys(this.depth++);
+
+		int ch = this.peek();
+		if (ch == '}')
+			this.position++;
+		else
+			while (true) {
+				if (ch != '"')
+					throw new JsonParseException("Expected field name", this.getPosition());
+				this.position++;
+				final String key = this.parseKey();
+				if (this.peek() != ':')
+					throw new JsonParseException("Expected ':' after field name " + key, this.getPosition());
+				this.position++;
+
+				if (projection != null && !projection.contains(key))
+					this.skipValue();
+				else {
+					seenKeys.add(key);
+					final IJsonNode previous = object.get(key);
+					final IJsonNode value = this.parseValue(previous.isMissing() ? null : previous);
+					if (value != previous)
+						object.put(key, value);
+				}
+
+				ch = this.peek();
+				this.position++;
+				if (ch == '}')
+					break;
+				if (ch != ',')
+					throw new JsonParseException("Expected ',' or '}' in object", this.getPosition());
+				ch = this.peek();
+			}
+
+		// remove fields of the reused target that do not occur in the current value
+		if (object.size() != seenKeys.size()) {
+			final Iterator<String> fieldNames = object.getFieldNames();
+			while (fieldNames.hasNext()) {
+				final String fieldName = fieldNames.next();
+				if (!seenKeys.contains(fieldName))
+					this.staleKeys.add(fieldName);
+			}
+			for (final String staleKey : this.staleKeys)
+				object.remove(staleKey);
+			this.staleKeys.clear();
+		}
+		seenKeys.clear();
+		this.depth--;
+		return object;
+	}
+
+	private Set<String> seenKeys(final int level) {
+		while (this.seenKeys.size() <= level)
+			this.seenKeys.add(new HashSet<String>());
+		return this.seenKeys.get(level);
+	}
+
+	private IJsonNode parseArray(final IJsonNode target) throws IOException {
+		this.position++;
+		final ArrayNode array = target instanceof ArrayNode ? (ArrayNode) target : new ArrayNode();
+		final int previousSize = array.size();
+		int index = 0;
+		this.depth++;
+
+		int ch = this.peek();
+		if (ch == ']')
+			this.position++;
+		else
+			while (true) {
+				if (index < previousSize) {
+					final IJsonNode previous = array.get(index);
+					final IJsonNode value = this.parseValue(previous);
+					if (value != previous)
+						array.set(index, value);
+				} else
+					array.add(this.parseValue(null));
+				index++;
+
+				ch = this.peek();
+				this.position++;
+				if (ch == ']')
+					break;
+				if (ch != ',')
+					throw new JsonParseException("Expected ',' or ']' in array", this.getPosition());
+			}
+
+		for (int remaining = previousSize; remaining > index; remaining--)
+			array.remove(remaining - 1);
+		this.depth--;
+		return array;
+	}
+
+	/**
+	 * Parses null, booleans, numbers, and for compatibility with {@link JsonParser} unquoted text.
+	 */
+	private IJsonNode parseLiteral(final IJsonNode target) throws IOException {
+		final int start = this.scanLiteral();
+		final int length = this.position - start;
+		if (length == 0)
+			throw new JsonParseException("Expected value", this.getPosition());
+
+		if (this.matches(start, length, NULL))
+			return NullNode.getInstance();
+		if (this.matches(start, length, TRUE))
+			return BooleanNode.TRUE;
+		if (this.matches(start, length, FALSE))
+			return BooleanNode.FALSE;
+
+		final IJsonNode number = this.parseNumber(start, length, target);
+		if (number != null)
+			return number;
+
+		final String text = new String(this.buffer, start, length, UTF8);
+		if (target instanceof TextNode && target != TextNode.EMPTY_STRING_NODE) {
+			((TextNode) target).setValue(text);
+			return target;
+		}
+		return new TextNode(text);
+	}
+
+	private IJsonNode parseNumber(final int start, final int length, final IJsonNode target) {
+		int index = start;
+		final int end = start + length;
+		final boolean negative = this.buffer[index] == '-';
+		if (negative || this.buffer[index] == '+')
+			index++;
+		if (index == end)
+			return null;
+
+		// fast path for integral numbers that fit into a long
+		long value = 0;
+		boolean overflow = false, decimal = false;
+		int digits = 0;
+		for (; index < end; index++) {
+			final byte ch = this.buffer[index];
+			if (ch >= '0' && ch <= '9') {
+				digits++;
+				if (value > (Long.MAX_VALUE - 9) / 10)
+					overflow = true;
+				else
+					value = value * 10 + ch - '0';
+			} else if (ch == '.' || ch == 'e' || ch == 'E' || ch == '-' || ch == '+')
+				decimal = true;
+			else
+				return null;
+		}
+
+		if (!decimal && digits > 0 && !overflow) {
+			if (negative)
+				value = -value;
+			if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+				if (target instanceof IntNode) {
+					((IntNode) target).setValue((int) value);
+					return target;
+				}
+				return new IntNode((int) value);
+			}
+			if (target instanceof LongNode) {
+				((LongNode) target).setValue(value);
+				return target;
+			}
+			return new LongNode(value);
+		}
+
+		final String text = new String(this.buffer, start, length, ASCII);
+		try {
+			final BigDecimal bigDecimal = new BigDecimal(text);
+			if (decimal)
+				return new DecimalNode(bigDecimal);
+			final BigInteger bigInteger = bigDecimal.toBigIntegerExact();
+			if (bigInteger.bitLength() <= 63)
+				return new LongNode(bigInteger.longValue());
+			return new BigIntegerNode(bigInteger);
+		} catch (final NumberFormatException e) {
+			return null;
+		} catch (final ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private boolean matches(final int start, final int length, final byte[] literal) {
+		if (length != literal.length)
+			return false;
+		for (int index = 0; index < length; index++)
+			if (this.buffer[start + index] != literal[index])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Advances the position to the end of the current literal while keeping the literal contiguous in the buffer.
+	 *
+	 * @return the start of the literal in the buffer
+	 */
+	private int scanLiteral() throws IOException {
+		int start = this.position;
+		while (true) {
+			while (this.position < this.limit) {
+				switch (this.buffer[this.position]) {
+				case ',':
+				case ']':
+				case '}':
+				case ':':
+				case ' ':
+				case '\n':
+				case '\r':
+				case '\t':
+					return start;
+				default:
+					this.position++;
+				}
+			}
+			this.compact(start);
+			start = 0;
+			if (!this.readMore())
+				return start;
+		}
+	}
+
+	/**
+	 * Decodes the current string into the character buffer. The opening quote has already been consumed.
+	 */
+	private void parseString() throws IOException {
+		this.charCount = 0;
+		while (true) {
+			// fast path for ASCII characters
+			while (this.position < this.limit) {
+				final byte ch = this.buffer[this.position];
+				if (ch == '"') {
+					this.position++;
+					return;
+				}
+				if (ch == '\\' || ch < 0)
+					break;
+				this.appendChar((char) ch);
+				this.position++;
+			}
+
+			final int ch = this.read();
+			if (ch == -1)
+				throw new JsonParseException("Unterminated string", this.getPosition());
+			if (ch == '"')
+				return;
+			if (ch == '\\')
+				this.parseEscape();
+			else if (ch < 0x80)
+				this.appendChar((char) ch);
+			else
+				this.parseMultiByteCharacter(ch);
+		}
+	}
+
+	private void parseEscape() throws IOException {
+		final int ch = this.read();
+		switch (ch) {
+		case '"':
+		case '\\':
+		case '/':
+			this.appendChar((char) ch);
+			break;
+		case 'b':
+			this.appendChar('\b');
+			break;
+		case 'f':
+			this.appendChar('\f');
+			break;
+		case 'n':
+			this.appendChar('\n');
+			break;
+		case 'r':
+			this.appendChar('\r');
+			break;
+		case 't':
+			this.appendChar('\t');
+			break;
+		case 'u':
+			int value = 0;
+			for (int index = 0; index < 4; index++)
+				value = (value << 4) | this.hexValue(this.read());
+			this.appendChar((char) value);
+			break;
+		default:
+			throw new JsonParseException("Invalid escape sequence \\" + (char) ch, this.getPosition());
+		}
+	}
+
+	private int hexValue(final int ch) throws JsonParseException {
+		if (ch >= '0' && ch <= '9')
+			return ch - '0';
+		if (ch >= 'a' && ch <= 'f')
+			return ch - 'a' + 10;
+		if (ch >= 'A' && ch <= 'F')
+			return ch - 'A' + 10;
+		throw new JsonParseException("Invalid unicode escape", this.getPosition());
+	}
+
+	private void parseMultiByteCharacter(final int first) throws IOException {
+		int codePoint, remaining;
+		if ((first & 0xe0) == 0xc0) {
+			codePoint = first & 0x1f;
+			remaining = 1;
+		} else if ((first & 0xf0) == 0xe0) {
+			codePoint = first & 0x0f;
+			remaining = 2;
+		} else if ((first & 0xf8) == 0xf0) {
+			codePoint = first & 0x07;
+			remaining = 3;
+		} else
+			throw new JsonParseException("Invalid UTF-8 start byte", this.getPosition());
+
+		for (; remaining > 0; remaining--) {
+			final int next = this.read();
+			if ((next & 0xc0) != 0x80)
+				throw new JsonParseException("Invalid UTF-8 continuation byte", this.getPosition());
+			codePoint = (codePoint << 6) | (next & 0x3f);
+		}
+
+		if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			this.appendChar(Character.highSurrogate(codePoint));
+			this.appendChar(Character.lowSurrogate(codePoint));
+		} else
+			this.appendChar((char) codePoint);
+	}
+
+	/**
+	 * Parses a field name and returns a cached String instance if the same name occurred before.
+	 */
+	private String parseKey() throws IOException {
+		this.parseString();
+		int hash = 0;
+		for (int index = 0; index < this.charCount; index++)
+			hash = 31 * hash + this.chars[index];
+		final int slot = (hash ^ hash >>> 16) & KEY_CACHE_SIZE - 1;
+
+		final String cached = this.keyCache[slot];
+		if (cached != null && cached.length() == this.charCount) {
+			boolean equal = true;
+			for (int index = 0; equal && index < this.charCount; index++)
+				equal = cached.charAt(index) == this.chars[index];
+			if (equal)
+				return cached;
+		}
+		return this.keyCache[slot] = new String(this.chars, 0, this.charCount);
+	}
+
+	/**
+	 * Skips the next value without materializing it.
+	 */
+	private void skipValue() throws IOException {
+		int nesting = 0;
+		boolean inString = false;
+		final int first = this.peek();
+		if (first != '{' && first != '[' && first != '"') {
+			if (this.scanLiteral() == this.position)
+				throw new JsonParseException("Expected value", this.getPosition());
+			return;
+		}
+
+		int ch;
+		while ((ch = this.read()) != -1) {
+			if (inString) {
+				if (ch == '\\')
+					this.read();
+				else if (ch == '"') {
+					inString = false;
+					if (nesting == 0)
+						return;
+				}
+			} else if (ch == '"')
+				inString = true;
+			else if (ch == '{' || ch == '[')
+				nesting++;
+			else if (ch == '}' || ch == ']') {
+				if (--nesting == 0)
+					return;
+			}
+		}
+		throw new JsonParseException("Unexpected end of json stream", this.getPosition());
+	}
+
+	private void appendChar(final char ch) {
+		if (this.charCount == this.chars.length) {
+			final char[] newChars = new char[this.chars.length * 2];
+			System.arraycopy(this.chars, 0, newChars, 0, this.charCount);
+			this.chars = newChars;
+			this.charBuffer = CharBuffer.wrap(newChars);
+		}
+		this.chars[this.charCount++] = ch;
+	}
+
+	private CharBuffer charBuffer() {
+		this.charBuffer.clear();
+		this.charBuffer.limit(this.charCount);
+		return this.charBuffer;
+	}
+
+	private int read() throws IOException {
+		if (this.position == this.limit && !this.fill())
+			return -1;
+		return this.buffer[this.position++] & 0xff;
+	}
+
+	/**
+	 * Moves the bytes starting at the given index to the beginning of the buffer and enlarges the buffer if it is
+	 * completely occupied afterwards.
+	 */
+	private void compact(final int start) {
+		final int length = this.limit - start;
+		if (start == 0 && length == this.buffer.length) {
+			final byte[] newBuffer = new byte[this.buffer.length * 2];
+			System.arraycopy(this.buffer, 0, newBuffer, 0, length);
+			this.buffer = newBuffer;
+		} else
+			System.arraycopy(this.buffer, start, this.buffer, 0, length);
+		this.offset += start;
+		this.position -= start;
+		this.limit = length;
+	}
+
+	/**
+	 * Reads more bytes from the stream. If the buffer has been completely consumed, it is reused from the beginning.
+	 *
+	 * @return true if at least one byte has been read
+	 */
+	private boolean fill() throws IOException {
+		if (this.endOfStream)
+			return false;
+		if (this.position == this.limit) {
+			this.offset += this.limit;
+			this.position = this.limit = 0;
+		}
+		return this.readMore();
+	}
+
+	/**
+	 * Appends more bytes from the stream to the buffer without discarding consumed bytes.
+	 *
+	 * @return true if at least one byte has been read
+	 */
+	private boolean readMore() throws IOException {
+		if (this.endOfStream)
+			return false;
+		final int read = this.stream.read(this.buffer, this.limit, this.buffer.length - this.limit);
+		if (read <= 0) {
+			this.endOfStream = read == -1;
+			return false;
+		}
+		this.limit += read;
+		return true;
+	}
+}
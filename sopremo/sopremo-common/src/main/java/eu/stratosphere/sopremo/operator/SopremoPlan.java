@@ -12,6 +12,7 @@ import eu.stratosphere.pact.common.plan.Plan;
 import eu.stratosphere.sopremo.CoreFunctions;
 import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.io.Sink;
+import eu.stratosphere.sopremo.rewrite.SopremoOptimizer;
 import eu.stratosphere.sopremo.serialization.NaiveSchemaFactory;
 import eu.stratosphere.sopremo.serialization.Schema;
 import eu.stratosphere.sopremo.serialization.SchemaFactory;
@@ -35,6 +36,8 @@ public class SopremoPlan implements Serializable {
 
 	private List<String> requiredPackages = new ArrayList<String>();
 
+	private transient SopremoOptimizer optimizer;
+
 	public SopremoPlan() {
 		this.module = new SopremoModule("plan", 0, 0);
 		this.context.getFunctionRegistry().put(CoreFunctions.class);
@@ -107,12 +110,37 @@ public class SopremoPlan implements Serializable {
 	 * @return a list of Pact sinks
 	 */
 	public Collection<Contract> assemblePact() {
+		this.getOptimizer().optimize(this.module);
 		final ElementarySopremoModule elementaryModule = this.module.asElementary(this.context);
 		elementaryModule.inferSchema(this.schemaFactory);
 		this.context.setSchema(elementaryModule.getSchema());
 		return elementaryModule.assemblePact(this.context);
 	}
 
+	/**
+	 * Returns the optimizer that rewrites the operators of this plan before the plan is assembled.
+	 * 
+	 * @return the optimizer
+	 */
+	public SopremoOptimizer getOptimizer() {
+		if (this.optimizer == null)
+			this.optimizer = new SopremoOptimizer();
+		return this.optimizer;
+	}
+
+	/**
+	 * Sets the optimizer that rewrites the operators of this plan before the plan is assembled.
+	 * 
+	 * @param optimizer
+	 *        the optimizer
+	 */
+	public void setOptimizer(final SopremoOptimizer optimizer) {
+		if (optimizer == null)
+			throw new NullPointerException("optimizer must not be null");
+
+		this.optimizer = optimizer;
+	}
+
 	/**
 	 * Returns all operators that are either (internal) {@link Sink}s or
 	 * included in the reference graph.
@@ -0,0 +1,78 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.pact;
+
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import eu.stratosphere.nephele.fs.FSDataOutputStream;
+
+/**
+ * Compresses all data written to a {@link FSDataOutputStream} in the gzip format. Each write is compressed at once;
+ * thus, writers should hand over large blocks of data.
+ */
+public class CompressedOutputStream extends FSDataOutputStream {
+	private final GZIPOutputStream compressor;
+
+	/**
+	 * Initializes CompressedOutputStream.
+	 * 
+	 * @param stream
+	 *        the stream that receives the compressed data
+	 * @param bufferSize
+	 *        the size of the output buffer of the compressor
+	 * @throws IOException
+	 *         if the gzip header cannot be written
+	 */
+	public CompressedOutputStream(final FSDataOutputStream stream, final int bufferSize) throws IOException {
+		this.compressor = new GZIPOutputStream(stream, bufferSize);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#write(int)
+	 */
+	@Override
+	public void write(final int b) throws IOException {
+		this.compressor.write(b);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		this.compressor.write(b, off, len);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#flush()
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.compressor.flush();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		this.compressor.close();
+	}
+}
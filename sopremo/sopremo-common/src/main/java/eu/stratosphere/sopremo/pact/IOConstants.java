@@ -40,4 +40,14 @@ public interface IOConstants {
 	 * Constant to define which field delimiter is used
 	 */
 	public static final String FIELD_DELIMITER = "fieldDelimiter";
+
+	/**
+	 * Constant to define whether the data is gzip compressed
+	 */
+	public static final String COMPRESSION = "io.compression";
+
+	/**
+	 * Constant to define the size of the buffer that collects the output before it is written to the file system
+	 */
+	public static final String WRITE_BUFFER_SIZE = "io.writeBufferSize";
 }
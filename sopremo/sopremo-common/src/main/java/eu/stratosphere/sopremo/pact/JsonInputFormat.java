@@ -14,11 +14,15 @@
  **********************************************************************************************************************/
 package eu.stratosphere.sopremo.pact;
 
+import static eu.stratosphere.sopremo.pact.IOConstants.COMPRESSION;
 import static eu.stratosphere.sopremo.pact.IOConstants.ENCODING;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
 
 import eu.stratosphere.nephele.configuration.Configuration;
 import eu.stratosphere.nephele.fs.FileInputSplit;
@@ -28,38 +32,94 @@ import eu.stratosphere.pact.common.type.PactRecord;
 import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.io.JsonParseException;
 import eu.stratosphere.sopremo.io.JsonParser;
+import eu.stratosphere.sopremo.io.Utf8JsonParser;
+import eu.stratosphere.sopremo.serialization.ObjectSchema;
 import eu.stratosphere.sopremo.serialization.Schema;
+import eu.stratosphere.sopremo.type.IJsonNode;
 
 /**
- * Reads json files with Jackson. The resulting key/value pair consists of an id and a {@link PactJsonObject}. The id is
- * an auto-incremented {@link PactLong}.
+ * Reads json files. UTF-8 encoded files are tokenized directly on the bytes of the input stream with a
+ * {@link Utf8JsonParser}; the values are parsed into the nodes of the previous record. All other encodings are decoded
+ * with the {@link JsonParser}.<br>
+ * The file either contains a top-level array whose elements are the records or a sequence of json values. If the
+ * values are separated by line feeds and {@link #LINE_DELIMITED} is set, UTF-8 and ASCII files can be read in parallel
+ * splits. Files in other encodings or that are gzip compressed ({@link IOConstants#COMPRESSION}) are always read as a
+ * whole.
  * 
  * @author Arvid Heise
  */
 public class JsonInputFormat extends FileInputFormat {
 
-	// private boolean array;
+	/**
+	 * The configuration key to declare that each line of the input contains exactly one json value. Only such files
+	 * can be read in parallel.
+	 */
+	public static final String LINE_DELIMITED = "json-format.lineDelimited";
+
+	/**
+	 * The configuration key to skip all fields of the records that are not mapped explicitly by the output
+	 * {@link ObjectSchema}. The skipped fields are not available to subsequent operators.
+	 */
+	public static final String SKIP_UNMAPPED_FIELDS = "json-format.skipUnmapped";
+
+	/**
+	 * The configuration key for the size of the read buffer of the {@link Utf8JsonParser}.
+	 */
+	public static final String BUFFER_SIZE = "json-format.bufferSize";
+
+	private static final Charset UTF8 = Charset.forName("utf-8"), ASCII = Charset.forName("us-ascii");
 
 	private boolean end;
 
 	private JsonParser parser;
 
+	private BufferedReader lineReader;
+
+	private String nextLine;
+
+	private Utf8JsonParser utf8Parser;
+
+	private boolean array, lineDelimited, skipUnmappedFields, compressed;
+
+	private long parserOffset, splitEnd;
+
+	private int bufferSize;
+
+	private IJsonNode node;
+
 	private Charset encoding;
 
 	private EvaluationContext context;
 
 	private Schema schema;
 
-	private void checkEnd() {
-		// if (this.array && this.parser.nextToken() == JsonToken.END_ARRAY || !this.array
-		// && this.parser.nextToken() == null)
-		this.end = this.parser.checkEnd();
+	private void checkEnd() throws IOException {
+		if (this.lineReader != null) {
+			this.end = this.nextLine == null;
+			return;
+		}
+		if (this.utf8Parser == null) {
+			this.end = this.parser.checkEnd();
+			return;
+		}
+
+		final int next = this.utf8Parser.peek();
+		if (next == -1)
+			this.end = true;
+		else if (this.lineDelimited && !this.compressed)
+			// a record belongs to the split in which it starts
+			this.end = this.parserOffset + this.utf8Parser.getPosition() >= this.splitEnd;
 	}
 
 	@Override
 	public void close() throws IOException {
 		super.close();
-		this.parser.close();
+		if (this.utf8Parser != null)
+			this.utf8Parser.close();
+		else if (this.lineReader != null)
+			this.lineReader.close();
+		else if (this.parser != null)
+			this.parser.close();
 	}
 
 	@Override
@@ -71,6 +131,11 @@ public class JsonInputFormat extends FileInputFormat {
 		if (this.schema == null)
 			throw new IllegalStateException("Could not deserialize output schema");
 		this.encoding = Charset.forName(parameters.getString(ENCODING, "utf-8"));
+		this.lineDelimited = Boolean.TRUE.equals(SopremoUtil.deserialize(parameters, LINE_DELIMITED, Boolean.class));
+		this.skipUnmappedFields =
+			Boolean.TRUE.equals(SopremoUtil.deserialize(parameters, SKIP_UNMAPPED_FIELDS, Boolean.class));
+		this.bufferSize = parameters.getInteger(BUFFER_SIZE, Utf8JsonParser.DEFAULT_BUFFER_SIZE);
+		this.compressed = Boolean.TRUE.equals(SopremoUtil.deserialize(parameters, COMPRESSION, Boolean.class));
 	}
 
 	/*
@@ -80,9 +145,19 @@ public class JsonInputFormat extends FileInputFormat {
 	@Override
 	public boolean nextRecord(final PactRecord record) throws IOException {
 		if (!this.end) {
-			PactRecord result = this.schema.jsonToRecord(this.parser.readValueAsTree(), record, this.context);
+			final IJsonNode value;
+			if (this.utf8Parser != null)
+				value = this.node = this.utf8Parser.readValue(this.node);
+			else if (this.lineReader != null) {
+				value = new JsonParser(this.nextLine).readValueAsTree();
+				this.readNextLine();
+			} else
+				value = this.parser.readValueAsTree();
+			final PactRecord result = this.schema.jsonToRecord(value, record, this.context);
 			if (result != record)
 				result.copyTo(record);
+			if (this.array)
+				this.skipArrayDelimiter();
 			this.checkEnd();
 			return true;
 		}
@@ -90,20 +165,79 @@ public class JsonInputFormat extends FileInputFormat {
 		return false;
 	}
 
+	/**
+	 * Reads the next non-blank line of a line-delimited file that is decoded with the {@link JsonParser}.
+	 */
+	private void readNextLine() throws IOException {
+		do
+			this.nextLine = this.lineReader.readLine();
+		while (this.nextLine != null && this.nextLine.trim().isEmpty());
+	}
+
+	private void skipArrayDelimiter() throws IOException {
+		final int next = this.utf8Parser.peek();
+		this.utf8Parser.consume();
+		if (next == ']')
+			this.end = true;
+		else if (next != ',')
+			throw new JsonParseException("Expected ',' or ']' after array element", this.utf8Parser.getPosition());
+	}
+
 	@Override
 	public void open(final FileInputSplit split) throws JsonParseException, IOException {
 		super.open(split);
 
 		this.end = false;
-		if (this.encoding != null)
-			this.parser = new JsonParser(new InputStreamReader(this.stream, this.encoding));
-		else
-			this.parser = new JsonParser(this.stream);
-		// this.parser.setCodec(JsonUtil.OBJECT_MAPPER);
-		// this.parser.enable(eu.stratosphere.sopremo.io.Feature.ALLOW_UNQUOTED_CONTROL_CHARS);
-		// this.parser.enable(eu.stratosphere.sopremo.io.Feature.INTERN_FIELD_NAMES);
-		// if (this.array = this.parser.nextToken() == JsonToken.START_ARRAY)
-		// this.parser.clearCurrentToken();
+		this.array = false;
+		this.node = null;
+		this.utf8Parser = null;
+		this.lineReader = null;
+		this.splitEnd = this.splitStart + this.splitLength;
+		// compressed files, json documents, and files that are decoded by the JsonParser cannot be split; the first
+		// split reads the complete file
+		final boolean utf8OrAscii = this.encoding.equals(UTF8) || this.encoding.equals(ASCII);
+		final boolean splittable = this.lineDelimited && !this.compressed && utf8OrAscii;
+		if (this.splitStart > 0 && !splittable) {
+			this.end = true;
+			return;
+		}
+
+		final InputStream input = this.compressed ? new GZIPInputStream(this.stream, this.bufferSize) : this.stream;
+		if (!utf8OrAscii) {
+			// the JsonParser reads either a single value or an array, so each line is parsed separately
+			if (this.lineDelimited) {
+				this.lineReader = new BufferedReader(new InputStreamReader(input, this.encoding));
+				this.readNextLine();
+			} else
+				this.parser = new JsonParser(new InputStreamReader(input, this.encoding));
+			this.checkEnd();
+			return;
+		}
+
+		if (this.splitStart > 0) {
+			// skip the partial record at the beginning of the split
+			this.stream.seek(this.splitStart - 1);
+			this.parserOffset = this.splitStart - 1;
+			this.utf8Parser = new Utf8JsonParser(input, this.bufferSize);
+			if (!this.utf8Parser.skipLine()) {
+				this.end = true;
+				return;
+			}
+		} else {
+			this.parserOffset = 0;
+			this.utf8Parser = new Utf8JsonParser(input, this.bufferSize);
+			if (!this.lineDelimited && this.utf8Parser.peek() == '[') {
+				this.array = true;
+				this.utf8Parser.consume();
+				if (this.utf8Parser.peek() == ']') {
+					this.end = true;
+					return;
+				}
+			}
+		}
+
+		if (this.skipUnmappedFields && this.schema instanceof ObjectSchema)
+			this.utf8Parser.setProjection(((ObjectSchema) this.schema).getMappings());
 		this.checkEnd();
 	}
 
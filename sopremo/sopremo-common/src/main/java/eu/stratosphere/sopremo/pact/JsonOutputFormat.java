@@ -15,7 +15,9 @@
 
 package eu.stratosphere.sopremo.pact;
 
+import static eu.stratosphere.sopremo.pact.IOConstants.COMPRESSION;
 import static eu.stratosphere.sopremo.pact.IOConstants.ENCODING;
+import static eu.stratosphere.sopremo.pact.IOConstants.WRITE_BUFFER_SIZE;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -26,11 +28,17 @@ import eu.stratosphere.pact.common.io.FileOutputFormat;
 import eu.stratosphere.pact.common.type.PactRecord;
 import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.io.JsonGenerator;
+import eu.stratosphere.sopremo.io.Utf8JsonGenerator;
 import eu.stratosphere.sopremo.serialization.Schema;
 import eu.stratosphere.sopremo.type.IJsonNode;
 
 /**
- * Writes json files with Jackson. The incoming key/value pair consists of {@link PactNull} and a {@link IJsonNode} .
+ * Writes json files. UTF-8 encoded files are written with a {@link Utf8JsonGenerator}, which encodes the records into
+ * a reusable buffer and writes it in large chunks to the file; all other encodings are written with a
+ * {@link JsonGenerator}.<br>
+ * By default, all records are written into one json array. If {@link JsonInputFormat#LINE_DELIMITED} is set, each
+ * record is written into a separate line, such that the file can be read in parallel again. If
+ * {@link IOConstants#COMPRESSION} is set, the file is gzip compressed.
  * 
  * @author Arvid Heise
  */
@@ -38,18 +46,30 @@ public class JsonOutputFormat extends FileOutputFormat {
 
 	private JsonGenerator generator;
 
+	private Utf8JsonGenerator utf8Generator;
+
 	private IJsonNode node;
 
 	private Schema schema;
-	
+
 	private EvaluationContext context;
 
 	private Charset encoding;
 
+	private boolean lineDelimited, compressed;
+
+	private int bufferSize;
+
 	@Override
 	public void close() throws IOException {
-		this.generator.writeEndArray();
-		this.generator.close();
+		if (this.utf8Generator != null) {
+			if (!this.lineDelimited)
+				this.utf8Generator.writeEndArray();
+			this.utf8Generator.close();
+		} else {
+			this.generator.writeEndArray();
+			this.generator.close();
+		}
 		super.close();
 	}
 
@@ -66,14 +86,28 @@ public class JsonOutputFormat extends FileOutputFormat {
 		if (this.schema == null)
 			throw new IllegalStateException("Could not deserialize input schema");
 		this.encoding = Charset.forName(parameters.getString(ENCODING, "utf-8"));
+		this.lineDelimited =
+			Boolean.TRUE.equals(SopremoUtil.deserialize(parameters, JsonInputFormat.LINE_DELIMITED, Boolean.class));
+		this.compressed = Boolean.TRUE.equals(SopremoUtil.deserialize(parameters, COMPRESSION, Boolean.class));
+		this.bufferSize = parameters.getInteger(WRITE_BUFFER_SIZE, Utf8JsonGenerator.DEFAULT_BUFFER_SIZE);
 	}
 
 	@Override
 	public void open(final int taskNumber) throws IOException {
 		super.open(taskNumber);
 
-		this.generator = new JsonGenerator(new OutputStreamWriter(this.stream, this.encoding));
-		this.generator.writeStartArray();
+		if (this.compressed)
+			this.stream = new CompressedOutputStream(this.stream, this.bufferSize);
+
+		this.utf8Generator = null;
+		if (this.encoding.equals(Charset.forName("utf-8"))) {
+			this.utf8Generator = new Utf8JsonGenerator(this.stream, this.bufferSize);
+			if (!this.lineDelimited)
+				this.utf8Generator.writeStartArray();
+		} else {
+			this.generator = new JsonGenerator(new OutputStreamWriter(this.stream, this.encoding));
+			this.generator.writeStartArray();
+		}
 	}
 
 	/*
@@ -82,7 +116,14 @@ public class JsonOutputFormat extends FileOutputFormat {
 	 */
 	@Override
 	public void writeRecord(final PactRecord record) throws IOException {
-		this.generator.writeTree(this.node = this.schema.recordToJson(record, this.node));
+		this.node = this.schema.recordToJson(record, this.node);
+		if (this.utf8Generator == null)
+			this.generator.writeTree(this.node);
+		else if (this.lineDelimited) {
+			this.utf8Generator.writeValue(this.node);
+			this.utf8Generator.writeByte('\n');
+		} else
+			this.utf8Generator.writeTree(this.node);
 	}
 
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.pact.common.contract.ReduceContract;
 import eu.stratosphere.pact.common.stubs.Collector;
 import eu.stratosphere.pact.common.stubs.ReduceStub;
 import eu.stratosphere.pact.common.type.PactRecord;
@@ -59,6 +60,21 @@ public abstract class SopremoReduce extends ReduceStub {
 	 */
 	protected abstract void reduce(IArrayNode values, JsonCollector out);
 
+	/**
+	 * This method may be overridden to pre-aggregate elements before they are shipped to the reducer. It is only
+	 * invoked if the implementing class is annotated with {@link ReduceContract.Combinable}. In contrast to
+	 * {@link #reduce(IArrayNode, JsonCollector)}, the values are not necessarily all elements of the key and the
+	 * output is again the input of the reducer.
+	 * 
+	 * @param values
+	 *        an {@link IArrayNode} that holds a subset of the elements that belong to the same key
+	 * @param out
+	 *        a collector that collects all output nodes
+	 */
+	protected void combine(final IArrayNode values, final JsonCollector out) {
+		this.reduce(values, out);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see eu.stratosphere.pact.common.stubs.ReduceStub#reduce(java.util.Iterator,
@@ -66,6 +82,20 @@ public abstract class SopremoReduce extends ReduceStub {
 	 */
 	@Override
 	public void reduce(final Iterator<PactRecord> records, final Collector<PactRecord> out) throws Exception {
+		this.process(records, out, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see eu.stratosphere.pact.common.stubs.ReduceStub#combine(java.util.Iterator,
+	 * eu.stratosphere.pact.common.stubs.Collector)
+	 */
+	@Override
+	public void combine(final Iterator<PactRecord> records, final Collector<PactRecord> out) throws Exception {
+		this.process(records, out, true);
+	}
+
+	private void process(final Iterator<PactRecord> records, final Collector<PactRecord> out, final boolean combine) {
 		this.context.increaseInputCounter();
 		this.collector.configure(out, this.context);
 		this.cachedIterator.setIterator(records);
@@ -80,7 +110,10 @@ public abstract class SopremoReduce extends ReduceStub {
 
 		final ArrayNode array = JsonUtil.wrapWithNode(this.needsResettableIterator(values), values);
 		try {
-			this.reduce(array, this.collector);
+			if (combine)
+				this.combine(array, this.collector);
+			else
+				this.reduce(array, this.collector);
 		} catch (final RuntimeException e) {
 			SopremoUtil.LOG.error(String.format("Error occurred @ %s with %s: %s", this.getContext().operatorTrace(),
 				array, e));
@@ -0,0 +1,35 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.rewrite;
+
+import eu.stratosphere.sopremo.operator.Operator;
+
+/**
+ * A rule of the {@link SopremoOptimizer} that rewrites a part of a Sopremo plan into an equivalent but cheaper form.
+ * Rules are registered at the {@link Operator}s to which they apply with the {@link OptimizerRules} annotation.<br>
+ * Implementations must be stateless and provide a default constructor.
+ */
+public interface OptimizerRule {
+	/**
+	 * Tries to rewrite the plan around the given operator.
+	 * 
+	 * @param operator
+	 *        the operator that is annotated with this rule
+	 * @param optimizer
+	 *        the optimizer that provides information about and modifications of the plan
+	 * @return true if the plan has been modified
+	 */
+	public boolean apply(Operator<?> operator, SopremoOptimizer optimizer);
+}
@@ -0,0 +1,211 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.rewrite;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.sopremo.operator.JsonStream;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.operator.SopremoModule;
+import eu.stratosphere.util.reflect.ReflectUtil;
+
+/**
+ * Rewrites a {@link SopremoModule} with the {@link OptimizerRule}s of the contained operators before the module is
+ * translated into elementary operators and Pact contracts.<br>
+ * The rules of an operator are specified with the {@link OptimizerRules} annotation. The optimizer repeatedly applies
+ * the rules of all reachable operators until no rule modifies the plan anymore or {@link #getMaxRewrites()} rewrites
+ * have been performed.
+ */
+public class SopremoOptimizer {
+	/**
+	 * The default maximum number of rewrites per module.
+	 */
+	public static final int DEFAULT_MAX_REWRITES = 1000;
+
+	private static final Log LOG = LogFactory.getLog(SopremoOptimizer.class);
+
+	private final Map<Class<?>, List<OptimizerRule>> rules = new HashMap<Class<?>, List<OptimizerRule>>();
+
+	/**
+	 * The consumers of each output of each operator. Operators are compared by identity because their hash codes
+	 * change when their properties are modified.
+	 */
+	private final Map<Operator<?>, List<List<Operator<?>>>> consumers =
+		new IdentityHashMap<Operator<?>, List<List<Operator<?>>>>();
+
+	private int maxRewrites = DEFAULT_MAX_REWRITES;
+
+	/**
+	 * Returns the maximum number of rewrites per module.
+	 * 
+	 * @return the maximum number of rewrites
+	 */
+	public int getMaxRewrites() {
+		return this.maxRewrites;
+	}
+
+	/**
+	 * Sets the maximum number of rewrites per module. A value of 0 disables the optimizer.
+	 * 
+	 * @param maxRewrites
+	 *        the maximum number of rewrites
+	 */
+	public void setMaxRewrites(final int maxRewrites) {
+		if (maxRewrites < 0)
+			throw new IllegalArgumentException("maxRewrites must not be negative");
+
+		this.maxRewrites = maxRewrites;
+	}
+
+	/**
+	 * Optimizes the given module in place.
+	 * 
+	 * @param module
+	 *        the module to optimize
+	 * @return the number of performed rewrites
+	 */
+	public int optimize(final SopremoModule module) {
+		int rewrites = 0;
+		while (rewrites < this.maxRewrites && this.applyNextRule(module))
+			rewrites++;
+		this.consumers.clear();
+
+		if (LOG.isTraceEnabled() && rewrites > 0)
+			LOG.trace(String.format("Optimized plan with %d rewrites\n%s", rewrites, module));
+		return rewrites;
+	}
+
+	/**
+	 * Returns all operators that consume the given stream. An operator that consumes the stream several times is
+	 * contained several times.
+	 * 
+	 * @param stream
+	 *        the stream
+	 * @return the consumers of the stream
+	 */
+	public List<Operator<?>> getConsumers(final JsonStream stream) {
+		final List<List<Operator<?>>> outputConsumers = this.consumers.get(stream.getSource().getOperator());
+		final int index = stream.getSource().getIndex();
+		if (outputConsumers == null || outputConsumers.size() <= index)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(outputConsumers.get(index));
+	}
+
+	/**
+	 * Returns true if the given operator has exactly one output, which is consumed exactly once.
+	 * 
+	 * @param operator
+	 *        the operator
+	 * @return whether the output of the operator can be modified without affecting other operators
+	 */
+	public boolean hasSingleConsumer(final Operator<?> operator) {
+		return operator.getOutputs().size() == 1 && this.getConsumers(operator).size() == 1;
+	}
+
+	/**
+	 * Replaces the input of the given consumer.
+	 * 
+	 * @param consumer
+	 *        the consuming operator
+	 * @param index
+	 *        the index of the input
+	 * @param input
+	 *        the new input
+	 */
+	public void setInput(final Operator<?> consumer, final int index, final JsonStream input) {
+		this.removeConsumer(consumer.getInput(index), consumer);
+		consumer.setInput(index, input);
+		this.addConsumer(input, consumer);
+	}
+
+	/**
+	 * Replaces all usages of the given stream with the replacement.
+	 * 
+	 * @param stream
+	 *        the stream to replace
+	 * @param replacement
+	 *        the replacing stream
+	 */
+	public void replace(final JsonStream stream, final JsonStream replacement) {
+		for (final Operator<?> consumer : new ArrayList<Operator<?>>(this.getConsumers(stream))) {
+			final List<JsonStream> inputs = consumer.getInputs();
+			for (int index = 0; index < inputs.size(); index++)
+				if (inputs.get(index).getSource().equals(stream.getSource()))
+					this.setInput(consumer, index, replacement);
+		}
+	}
+
+	private void addConsumer(final JsonStream input, final Operator<?> consumer) {
+		final Operator<?> operator = input.getSource().getOperator();
+		List<List<Operator<?>>> outputConsumers = this.consumers.get(operator);
+		if (outputConsumers == null)
+			this.consumers.put(operator, outputConsumers = new ArrayList<List<Operator<?>>>(1));
+		while (outputConsumers.size() <= input.getSource().getIndex())
+			outputConsumers.add(new ArrayList<Operator<?>>(1));
+		outputConsumers.get(input.getSource().getIndex()).add(consumer);
+	}
+
+	private void removeConsumer(final JsonStream input, final Operator<?> consumer) {
+		final List<Operator<?>> streamConsumers =
+			this.consumers.get(input.getSource().getOperator()).get(input.getSource().getIndex());
+		for (int index = 0; index < streamConsumers.size(); index++)
+			if (streamConsumers.get(index) == consumer) {
+				streamConsumers.remove(index);
+				return;
+			}
+	}
+
+	private boolean applyNextRule(final SopremoModule module) {
+		final List<Operator<?>> operators = new ArrayList<Operator<?>>();
+		for (final Operator<?> operator : module.getReachableNodes())
+			operators.add(operator);
+
+		this.consumers.clear();
+		for (final Operator<?> operator : operators)
+			for (final JsonStream input : operator.getInputs())
+				if (input != null)
+					this.addConsumer(input, operator);
+
+		for (final Operator<?> operator : operators)
+			for (final OptimizerRule rule : this.getRules(operator.getClass()))
+				if (rule.apply(operator, this)) {
+					if (LOG.isDebugEnabled())
+						LOG.debug(String.format("Applied %s on %s", rule.getClass().getSimpleName(), operator));
+					return true;
+				}
+		return false;
+	}
+
+	private List<OptimizerRule> getRules(final Class<?> operatorClass) {
+		List<OptimizerRule> operatorRules = this.rules.get(operatorClass);
+		if (operatorRules == null) {
+			operatorRules = new ArrayList<OptimizerRule>();
+			final OptimizerRules annotation = operatorClass.getAnnotation(OptimizerRules.class);
+			if (annotation != null)
+				for (final Class<? extends OptimizerRule> ruleClass : annotation.value())
+					operatorRules.add(ReflectUtil.newInstance(ruleClass));
+			this.rules.put(operatorClass, operatorRules);
+		}
+		return operatorRules;
+	}
+}
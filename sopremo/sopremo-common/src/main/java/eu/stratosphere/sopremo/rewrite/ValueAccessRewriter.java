@@ -0,0 +1,187 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.rewrite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.sopremo.expressions.AndExpression;
+import eu.stratosphere.sopremo.expressions.ArithmeticExpression;
+import eu.stratosphere.sopremo.expressions.ArrayAccess;
+import eu.stratosphere.sopremo.expressions.ArrayCreation;
+import eu.stratosphere.sopremo.expressions.BooleanExpression;
+import eu.stratosphere.sopremo.expressions.CachingExpression;
+import eu.stratosphere.sopremo.expressions.ComparativeExpression;
+import eu.stratosphere.sopremo.expressions.ConstantExpression;
+import eu.stratosphere.sopremo.expressions.ElementInSetExpression;
+import eu.stratosphere.sopremo.expressions.EvaluationExpression;
+import eu.stratosphere.sopremo.expressions.FunctionCall;
+import eu.stratosphere.sopremo.expressions.InputSelection;
+import eu.stratosphere.sopremo.expressions.ObjectAccess;
+import eu.stratosphere.sopremo.expressions.ObjectCreation;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.CopyFields;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.FieldAssignment;
+import eu.stratosphere.sopremo.expressions.ObjectCreation.Mapping;
+import eu.stratosphere.sopremo.expressions.OrExpression;
+import eu.stratosphere.sopremo.expressions.PathExpression;
+import eu.stratosphere.sopremo.expressions.TernaryExpression;
+import eu.stratosphere.sopremo.expressions.UnaryExpression;
+
+/**
+ * Rewrites all accesses of an expression to the value on which the expression is evaluated. A value access is an
+ * {@link ObjectAccess}, {@link ArrayAccess}, {@link InputSelection}, or {@link EvaluationExpression#VALUE} that is
+ * evaluated directly on the value, for example, the first fragment of a {@link PathExpression}.<br>
+ * Only a well-known set of expressions is traversed. If an expression contains any other expression, the expression
+ * may access the value in an unknown way and cannot be rewritten.
+ */
+public abstract class ValueAccessRewriter {
+	/**
+	 * Rewrites the given expression without modifying it.
+	 * 
+	 * @param expression
+	 *        the expression to rewrite
+	 * @return the rewritten expression or null if the expression cannot be rewritten
+	 */
+	public EvaluationExpression rewrite(EvaluationExpression expression) {
+		if (expression instanceof CachingExpression<?>)
+			expression = ((CachingExpression<?>) expression).getInnerExpression();
+
+		if (expression == EvaluationExpression.VALUE || expression instanceof ObjectAccess
+			|| expression instanceof ArrayAccess || expression instanceof InputSelection)
+			return this.rewriteAccess(expression);
+		if (expression instanceof ConstantExpression)
+			return expression;
+		if (expression instanceof PathExpression)
+			return this.rewritePath((PathExpression) expression);
+		if (expression instanceof ComparativeExpression) {
+			final ComparativeExpression comparison = (ComparativeExpression) expression;
+			final EvaluationExpression expr1 = this.rewrite(comparison.getExpr1());
+			final EvaluationExpression expr2 = this.rewrite(comparison.getExpr2());
+			if (expr1 == null || expr2 == null)
+				return null;
+			return new ComparativeExpression(expr1, comparison.getBinaryOperator(), expr2);
+		}
+		if (expression instanceof AndExpression) {
+			final List<BooleanExpression> expressions = this.rewriteBooleans(((AndExpression) expression)
+				.getExpressions());
+			return expressions == null ? null : new AndExpression(expressions);
+		}
+		if (expression instanceof OrExpression) {
+			final List<BooleanExpression> expressions = this.rewriteBooleans(((OrExpression) expression)
+				.getExpressions());
+			return expressions == null ? null : new OrExpression(expressions);
+		}
+		if (expression instanceof UnaryExpression) {
+			final UnaryExpression unary = (UnaryExpression) expression;
+			final EvaluationExpression expr = this.rewrite(unary.getExpr());
+			return expr == null ? null : new UnaryExpression(expr, unary.isNegate());
+		}
+		if (expression instanceof ElementInSetExpression) {
+			final ElementInSetExpression elementInSet = (ElementInSetExpression) expression;
+			final EvaluationExpression elementExpr = this.rewrite(elementInSet.getElementExpr());
+			final EvaluationExpression setExpr = this.rewrite(elementInSet.getSetExpr());
+			if (elementExpr == null || setExpr == null)
+				return null;
+			return new ElementInSetExpression(elementExpr, elementInSet.getQuantor(), setExpr);
+		}
+		if (expression instanceof ArithmeticExpression) {
+			final ArithmeticExpression arithmetic = (ArithmeticExpression) expression;
+			final EvaluationExpression firstOperand = this.rewrite(arithmetic.getFirstOperand());
+			final EvaluationExpression secondOperand = this.rewrite(arithmetic.getSecondOperand());
+			if (firstOperand == null || secondOperand == null)
+				return null;
+			return new ArithmeticExpression(firstOperand, arithmetic.getOperator(), secondOperand);
+		}
+		if (expression instanceof TernaryExpression) {
+			final TernaryExpression ternary = (TernaryExpression) expression;
+			final EvaluationExpression ifClause = this.rewrite(ternary.getIfClause());
+			final EvaluationExpression ifExpression = this.rewrite(ternary.getIfExpression());
+			final EvaluationExpression thenExpression = this.rewrite(ternary.getThenExpression());
+			if (ifClause == null || ifExpression == null || thenExpression == null)
+				return null;
+			return new TernaryExpression(ifClause, ifExpression, thenExpression);
+		}
+		if (expression instanceof ArrayCreation) {
+			final List<EvaluationExpression> elements = this.rewriteAll(((ArrayCreation) expression).getChildren());
+			return elements == null ? null : new ArrayCreation(elements);
+		}
+		if (expression instanceof FunctionCall) {
+			final List<EvaluationExpression> parameters = this.rewriteAll(((FunctionCall) expression).getChildren());
+			if (parameters == null)
+				return null;
+			final FunctionCall call = ((FunctionCall) expression).clone();
+			call.setChildren(parameters);
+			return call;
+		}
+		if (expression != null && expression.getClass() == ObjectCreation.class)
+			return this.rewriteObjectCreation((ObjectCreation) expression);
+
+		// the expression may access the value in an unknown way
+		return null;
+	}
+
+	/**
+	 * Rewrites an access to the value.
+	 * 
+	 * @param access
+	 *        an {@link ObjectAccess}, {@link ArrayAccess}, {@link InputSelection}, or {@link EvaluationExpression#VALUE}
+	 * @return the rewritten access or null if the access cannot be rewritten
+	 */
+	protected abstract EvaluationExpression rewriteAccess(EvaluationExpression access);
+
+	private List<EvaluationExpression> rewriteAll(final List<? extends EvaluationExpression> expressions) {
+		final List<EvaluationExpression> rewrittenExpressions = new ArrayList<EvaluationExpression>();
+		for (final EvaluationExpression expression : expressions) {
+			final EvaluationExpression rewrittenExpression = this.rewrite(expression);
+			if (rewrittenExpression == null)
+				return null;
+			rewrittenExpressions.add(rewrittenExpression);
+		}
+		return rewrittenExpressions;
+	}
+
+	private List<BooleanExpression> rewriteBooleans(final List<BooleanExpression> expressions) {
+		final List<EvaluationExpression> rewrittenExpressions = this.rewriteAll(expressions);
+		return rewrittenExpressions == null ? null : BooleanExpression.ensureBooleanExpressions(rewrittenExpressions);
+	}
+
+	private EvaluationExpression rewritePath(final PathExpression path) {
+		final List<EvaluationExpression> fragments = new ArrayList<EvaluationExpression>();
+		// only the first fragment is evaluated on the value, all others on the result of the previous fragment
+		final EvaluationExpression head = this.rewrite(path.getFragment(0));
+		if (head == null)
+			return null;
+		fragments.add(head);
+		for (int index = 1; index < path.getDepth(); index++)
+			fragments.add(path.getFragment(index).clone());
+		return PathExpression.wrapIfNecessary(fragments);
+	}
+
+	private EvaluationExpression rewriteObjectCreation(final ObjectCreation objectCreation) {
+		final ObjectCreation rewrittenObjectCreation = new ObjectCreation();
+		for (final Mapping<?> mapping : objectCreation.getMappings()) {
+			final EvaluationExpression expression = this.rewrite(mapping.getExpression());
+			if (expression == null)
+				return null;
+			if (mapping.getClass() == CopyFields.class)
+				rewrittenObjectCreation.addMapping(new CopyFields(expression));
+			else if (mapping.getClass() == FieldAssignment.class)
+				rewrittenObjectCreation.addMapping(((FieldAssignment) mapping).getTarget(), expression);
+			else
+				return null;
+		}
+		return rewrittenObjectCreation;
+	}
+}
@@ -5,6 +5,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.CharBuffer;
 
 import eu.stratosphere.pact.common.type.base.PactString;
 import eu.stratosphere.sopremo.pact.SopremoUtil;
@@ -77,6 +78,17 @@ public class TextNode extends AbstractJsonNode implements IPrimitiveNode {
 		this.value.setValue(value);
 	}
 
+	/**
+	 * Sets the value to the characters between the position and the limit of the given buffer without creating an
+	 * intermediate String.
+	 * 
+	 * @param buffer
+	 *        the buffer that contains the characters
+	 */
+	public void setValue(final CharBuffer buffer) {
+		this.value.setValue(buffer);
+	}
+
 	@Override
 	public StringBuilder toString(final StringBuilder sb) {
 		appendQuoted(sb, this.value.toString());
@@ -1,7 +1,9 @@
 package eu.stratosphere.util.dag;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,14 +21,17 @@ public class OneTimeTraverser extends AbstractGraphTraverser {
 	public <Node> Iterable<Node> getReachableNodes(final Iterator<? extends Node> startNodes,
 			final ConnectionNavigator<Node> navigator) {
 		final Map<Node, Object> visitedNodes = new IdentityHashMap<Node, Object>();
+		// keep the traversal order, so that the result is independent of the identity hash codes
+		final List<Node> reachableNodes = new ArrayList<Node>();
 
 		this.visitNodes(startNodes, navigator, new GraphTraverseListener<Node>() {
 			@Override
 			public void nodeTraversed(final Node node) {
+				reachableNodes.add(node);
 			}
 		}, visitedNodes);
 
-		return visitedNodes.keySet();
+		return reachableNodes;
 	}
 
 	@Override
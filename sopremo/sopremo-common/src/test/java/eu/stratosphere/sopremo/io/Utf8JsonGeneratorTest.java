@@ -0,0 +1,71 @@
+package eu.stratosphere.sopremo.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.sopremo.type.ArrayNode;
+import eu.stratosphere.sopremo.type.BooleanNode;
+import eu.stratosphere.sopremo.type.DecimalNode;
+import eu.stratosphere.sopremo.type.IJsonNode;
+import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.LongNode;
+import eu.stratosphere.sopremo.type.NullNode;
+import eu.stratosphere.sopremo.type.ObjectNode;
+import eu.stratosphere.sopremo.type.TextNode;
+
+/**
+ * Tests {@link Utf8JsonGenerator}.
+ */
+public class Utf8JsonGeneratorTest {
+	private static final Charset UTF8 = Charset.forName("utf-8");
+
+	private static String write(final IJsonNode... nodes) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		// use the smallest buffer to test flushing
+		final Utf8JsonGenerator generator = new Utf8JsonGenerator(output, 64);
+		generator.writeStartArray();
+		for (final IJsonNode node : nodes)
+			generator.writeTree(node);
+		generator.writeEndArray();
+		generator.close();
+		return new String(output.toByteArray(), UTF8);
+	}
+
+	@Test
+	public void shouldWriteLikeToString() throws IOException {
+		final IJsonNode object = new ObjectNode().put("id", IntNode.valueOf(-42)).put("name", TextNode.valueOf("a"))
+			.put("values", new ArrayNode(LongNode.valueOf(Long.MIN_VALUE), DecimalNode.valueOf(BigDecimal.ONE),
+				BooleanNode.TRUE, BooleanNode.FALSE, NullNode.getInstance()));
+		Assert.assertEquals("[" + object + "," + IntNode.valueOf(0) + "]", write(object, IntNode.valueOf(0)));
+	}
+
+	@Test
+	public void shouldEscapeStrings() throws IOException {
+		Assert.assertEquals("[\"a \\\"quoted\\\"\\n\\\\text\\u0001\"]",
+			write(TextNode.valueOf("a \"quoted\"\n\\text\u0001")));
+	}
+
+	@Test
+	public void shouldBeReadableByParser() throws IOException {
+		final StringBuilder longText = new StringBuilder();
+		for (int index = 0; index < 100; index++)
+			longText.append("ä€𝄞\"");
+		final IJsonNode expected = new ObjectNode().put("text", TextNode.valueOf(longText.toString()))
+			.put("array", new ArrayNode(IntNode.valueOf(1), new ObjectNode()));
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final Utf8JsonGenerator generator = new Utf8JsonGenerator(output, 64);
+		generator.writeValue(expected);
+		generator.close();
+
+		final Utf8JsonParser parser = new Utf8JsonParser(new ByteArrayInputStream(output.toByteArray()));
+		Assert.assertEquals(expected, parser.readValue(null));
+	}
+}
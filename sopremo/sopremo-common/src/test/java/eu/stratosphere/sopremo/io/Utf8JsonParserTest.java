@@ -0,0 +1,137 @@
+package eu.stratosphere.sopremo.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.sopremo.type.ArrayNode;
+import eu.stratosphere.sopremo.type.BigIntegerNode;
+import eu.stratosphere.sopremo.type.BooleanNode;
+import eu.stratosphere.sopremo.type.DecimalNode;
+import eu.stratosphere.sopremo.type.IJsonNode;
+import eu.stratosphere.sopremo.type.IObjectNode;
+import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.LongNode;
+import eu.stratosphere.sopremo.type.NullNode;
+import eu.stratosphere.sopremo.type.ObjectNode;
+import eu.stratosphere.sopremo.type.TextNode;
+
+/**
+ * Tests {@link Utf8JsonParser}.
+ */
+public class Utf8JsonParserTest {
+
+	private static Utf8JsonParser parser(final String json) {
+		// use the smallest buffer to test values that span several buffer fills
+		return new Utf8JsonParser(new ByteArrayInputStream(json.getBytes(Charset.forName("utf-8"))), 16);
+	}
+
+	private static IJsonNode parse(final String json) throws IOException {
+		return parser(json).readValue(null);
+	}
+
+	@Test
+	public void shouldParsePrimitives() throws IOException {
+		Assert.assertEquals(IntNode.valueOf(42), parse(" 42 "));
+		Assert.assertEquals(IntNode.valueOf(-42), parse("-42"));
+		Assert.assertEquals(NullNode.getInstance(), parse("null"));
+		Assert.assertEquals(BooleanNode.TRUE, parse("true"));
+		Assert.assertEquals(BooleanNode.FALSE, parse("false"));
+		Assert.assertEquals(DecimalNode.valueOf(BigDecimal.valueOf(42.42)), parse("42.42"));
+		Assert.assertEquals(LongNode.valueOf(Long.valueOf(Integer.MAX_VALUE) + 1),
+			parse(String.valueOf(Long.valueOf(Integer.MAX_VALUE) + 1)));
+		Assert.assertEquals(LongNode.valueOf(Long.MIN_VALUE), parse(String.valueOf(Long.MIN_VALUE)));
+		final BigInteger bigInteger = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+		Assert.assertEquals(BigIntegerNode.valueOf(bigInteger), parse(bigInteger.toString()));
+		Assert.assertEquals(TextNode.valueOf("42shadh34634"), parse("42shadh34634"));
+	}
+
+	@Test
+	public void shouldParseStrings() throws IOException {
+		Assert.assertEquals(TextNode.valueOf("Test"), parse("\"Test\""));
+		Assert.assertEquals(TextNode.valueOf(""), parse("\"\""));
+		Assert.assertEquals(TextNode.valueOf("a \"quoted\"\n\\text/"), parse("\"a \\\"quoted\\\"\\n\\\\text\\/\""));
+		Assert.assertEquals(TextNode.valueOf("\u00e4\u20ac\ud834\udd1e"), parse("\"\u00e4\u20ac\ud834\udd1e\""));
+		Assert.assertEquals(TextNode.valueOf("\u00e4"), parse("\"\\u00E4\""));
+		final char[] longText = new char[1000];
+		Arrays.fill(longText, 'x');
+		Assert.assertEquals(TextNode.valueOf(new String(longText)), parse("\"" + new String(longText) + "\""));
+	}
+
+	@Test
+	public void shouldParseNestedValues() throws IOException {
+		final IJsonNode expected = new ObjectNode().put("id", IntNode.valueOf(1)).
+			put("names", new ArrayNode(TextNode.valueOf("a"), TextNode.valueOf("b"))).
+			put("empty", new ObjectNode()).put("none", new ArrayNode());
+		Assert.assertEquals(expected,
+			parse("{\"id\": 1, \"names\" : [\"a\",\"b\"], \"empty\":{}, \"none\": [ ]}"));
+	}
+
+	@Test
+	public void shouldReuseTarget() throws IOException {
+		final Utf8JsonParser parser = parser("{\"id\": 1, \"name\": \"a\", \"tags\": [1, 2]}\n"
+			+ "{\"id\": 2, \"tags\": [3]}\n");
+		final IJsonNode first = parser.readValue(null);
+		final IJsonNode id = ((IObjectNode) first).get("id");
+		final IJsonNode second = parser.readValue(first);
+
+		Assert.assertSame(first, second);
+		Assert.assertSame(id, ((IObjectNode) second).get("id"));
+		Assert.assertEquals(new ObjectNode().put("id", IntNode.valueOf(2)).put("tags", new ArrayNode(IntNode.valueOf(3))),
+			second);
+		Assert.assertEquals(-1, parser.peek());
+	}
+
+	@Test
+	public void shouldSkipFieldsOutsideOfProjection() throws IOException {
+		final Utf8JsonParser parser = parser("{\"id\": 1, \"skipped\": {\"a\": [1, \"}\"]}, \"name\": \"a\","
+			+ " \"other\": 42}");
+		parser.setProjection(Arrays.asList("id", "name"));
+		Assert.assertEquals(new ObjectNode().put("id", IntNode.valueOf(1)).put("name", TextNode.valueOf("a")),
+			parser.readValue(null));
+	}
+
+	@Test
+	public void shouldTrackPositionAcrossLines() throws IOException {
+		final Utf8JsonParser parser = parser("{\"id\": 1}\n{\"id\": 2}\n");
+		Assert.assertTrue(parser.skipLine());
+		Assert.assertEquals(10, parser.getPosition());
+		Assert.assertEquals(new ObjectNode().put("id", IntNode.valueOf(2)), parser.readValue(null));
+		Assert.assertEquals(-1, parser.peek());
+		Assert.assertFalse(parser.skipLine());
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void shouldFailOnUnterminatedObject() throws IOException {
+		parse("{\"id\": 1");
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void shouldFailOnTrailingComma() throws IOException {
+		parse("[1,]");
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void shouldFailOnMissingValue() throws IOException {
+		parse("{\"a\":}");
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void shouldFailOnMissingSkippedValue() throws IOException {
+		final Utf8JsonParser parser = parser("{\"id\": 1, \"skipped\": }");
+		parser.setProjection(Arrays.asList("id"));
+		parser.readValue(null);
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void shouldFailOnStrayDelimiter() throws IOException {
+		parse(",,");
+	}
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.BitSet;
 
 import junit.framework.Assert;
 
@@ -11,16 +12,20 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.fs.FileInputSplit;
+import eu.stratosphere.pact.common.io.FileInputFormat;
 import eu.stratosphere.pact.common.io.FormatUtil;
 import eu.stratosphere.pact.common.type.PactRecord;
 import eu.stratosphere.sopremo.EvaluationContext;
 import eu.stratosphere.sopremo.io.Source;
 import eu.stratosphere.sopremo.serialization.DirectSchema;
+import eu.stratosphere.sopremo.serialization.ObjectSchema;
 import eu.stratosphere.sopremo.testing.SopremoTestPlan;
 import eu.stratosphere.sopremo.type.IArrayNode;
 import eu.stratosphere.sopremo.type.IJsonNode;
 import eu.stratosphere.sopremo.type.IObjectNode;
 import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.TextNode;
 
 /**
  * Tests {@link JsonInputFormat}.
@@ -136,4 +141,123 @@ public class JsonInputFormatTest {
 				((IntNode) ((IObjectNode) ((IArrayNode) arrayNode).get(index - 1)).get("id")).getIntValue());
 		}
 	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldReadLineDelimitedSplits() throws IOException {
+		final File file = File.createTempFile("jsonInputFormatTest", null);
+		file.delete();
+		final OutputStreamWriter jsonWriter = new OutputStreamWriter(new FileOutputStream(file));
+		final int numRecords = 1000;
+		for (int index = 0; index < numRecords; index++)
+			jsonWriter.write("{\"id\": " + index + ", \"text\": \"record " + index + "\"}\n");
+		jsonWriter.close();
+
+		Configuration config = new Configuration();
+		final EvaluationContext context = new EvaluationContext();
+		context.setSchema(SCHEMA);
+		SopremoUtil.serialize(config, SopremoUtil.CONTEXT, context);
+		SopremoUtil.serialize(config, JsonInputFormat.LINE_DELIMITED, Boolean.TRUE);
+		config.setString(FileInputFormat.FILE_PARAMETER_KEY, file.toURI().toString());
+		config.setInteger(JsonInputFormat.BUFFER_SIZE, 100);
+
+		final JsonInputFormat inputFormat = new JsonInputFormat();
+		inputFormat.configure(config);
+		final FileInputSplit[] splits = inputFormat.createInputSplits(7);
+		Assert.assertTrue("file should be split", splits.length > 1);
+
+		final BitSet readIds = new BitSet();
+		int count = 0;
+		final PactRecord record = new PactRecord();
+		for (final FileInputSplit split : splits) {
+			inputFormat.open(split);
+			while (!inputFormat.reachedEnd() && inputFormat.nextRecord(record)) {
+				readIds.set(((IntNode) ((IObjectNode) SCHEMA.recordToJson(record, null)).get("id")).getIntValue());
+				count++;
+			}
+			inputFormat.close();
+		}
+
+		Assert.assertEquals(numRecords, count);
+		Assert.assertEquals(numRecords, readIds.cardinality());
+		file.delete();
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldReadLineDelimitedNonUtf8FileOnce() throws IOException {
+		final File file = File.createTempFile("jsonInputFormatTest", null);
+		file.delete();
+		final OutputStreamWriter jsonWriter = new OutputStreamWriter(new FileOutputStream(file), "ISO-8859-1");
+		final int numRecords = 1000;
+		for (int index = 0; index < numRecords; index++)
+			jsonWriter.write("{\"id\": " + index + ", \"text\": \"caf\u00e9 " + index + "\"}\n");
+		jsonWriter.close();
+
+		Configuration config = new Configuration();
+		final EvaluationContext context = new EvaluationContext();
+		context.setSchema(SCHEMA);
+		SopremoUtil.serialize(config, SopremoUtil.CONTEXT, context);
+		SopremoUtil.serialize(config, JsonInputFormat.LINE_DELIMITED, Boolean.TRUE);
+		config.setString(IOConstants.ENCODING, "ISO-8859-1");
+		config.setString(FileInputFormat.FILE_PARAMETER_KEY, file.toURI().toString());
+
+		final JsonInputFormat inputFormat = new JsonInputFormat();
+		inputFormat.configure(config);
+		final FileInputSplit[] splits = inputFormat.createInputSplits(7);
+		Assert.assertTrue("file should be split", splits.length > 1);
+
+		final BitSet readIds = new BitSet();
+		int count = 0;
+		final PactRecord record = new PactRecord();
+		for (final FileInputSplit split : splits) {
+			inputFormat.open(split);
+			while (!inputFormat.reachedEnd() && inputFormat.nextRecord(record)) {
+				final IObjectNode object = (IObjectNode) SCHEMA.recordToJson(record, null);
+				final int id = ((IntNode) object.get("id")).getIntValue();
+				Assert.assertEquals(TextNode.valueOf("caf\u00e9 " + id), object.get("text"));
+				readIds.set(id);
+				count++;
+			}
+			inputFormat.close();
+		}
+
+		Assert.assertEquals(numRecords, count);
+		Assert.assertEquals(numRecords, readIds.cardinality());
+		file.delete();
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldSkipUnmappedFields() throws IOException {
+		final File file = File.createTempFile("jsonInputFormatTest", null);
+		file.delete();
+		final OutputStreamWriter jsonWriter = new OutputStreamWriter(new FileOutputStream(file));
+		jsonWriter.write("[{\"id\": 1, \"payload\": [1, 2, 3]}, {\"id\": 2, \"payload\": {\"a\": 1}}]");
+		jsonWriter.close();
+
+		final ObjectSchema schema = new ObjectSchema("id");
+		Configuration config = new Configuration();
+		final EvaluationContext context = new EvaluationContext();
+		context.setSchema(schema);
+		SopremoUtil.serialize(config, SopremoUtil.CONTEXT, context);
+		SopremoUtil.serialize(config, JsonInputFormat.SKIP_UNMAPPED_FIELDS, Boolean.TRUE);
+		final JsonInputFormat inputFormat =
+			FormatUtil.openInput(JsonInputFormat.class, file.toURI().toString(), config);
+		final PactRecord record = new PactRecord();
+		for (int index = 1; index <= 2; index++) {
+			Assert.assertFalse("more records expected @ " + index, inputFormat.reachedEnd());
+			Assert.assertTrue("valid record expected @ " + index, inputFormat.nextRecord(record));
+			final IObjectNode object = (IObjectNode) schema.recordToJson(record, null);
+			Assert.assertEquals(index, ((IntNode) object.get("id")).getIntValue());
+			Assert.assertEquals(1, object.size());
+		}
+		Assert.assertTrue(inputFormat.reachedEnd());
+	}
 }
@@ -0,0 +1,88 @@
+package eu.stratosphere.sopremo.pact;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.pact.common.io.FormatUtil;
+import eu.stratosphere.pact.common.type.PactRecord;
+import eu.stratosphere.sopremo.EvaluationContext;
+import eu.stratosphere.sopremo.serialization.DirectSchema;
+import eu.stratosphere.sopremo.type.IObjectNode;
+import eu.stratosphere.sopremo.type.IntNode;
+import eu.stratosphere.sopremo.type.ObjectNode;
+import eu.stratosphere.sopremo.type.TextNode;
+
+/**
+ * Tests {@link JsonOutputFormat}.
+ */
+public class JsonOutputFormatTest {
+	private static final DirectSchema SCHEMA = new DirectSchema();
+
+	private void writeAndRead(final boolean lineDelimited, final boolean compressed) throws IOException {
+		final File file = File.createTempFile("jsonOutputFormatTest", null);
+		file.delete();
+
+		final Configuration config = new Configuration();
+		final EvaluationContext context = new EvaluationContext();
+		context.setSchema(SCHEMA);
+		SopremoUtil.serialize(config, SopremoUtil.CONTEXT, context);
+		SopremoUtil.serialize(config, JsonInputFormat.LINE_DELIMITED, lineDelimited);
+		SopremoUtil.serialize(config, IOConstants.COMPRESSION, compressed);
+		config.setInteger(IOConstants.WRITE_BUFFER_SIZE, 128);
+
+		final JsonOutputFormat outputFormat =
+			FormatUtil.openOutput(JsonOutputFormat.class, file.toURI().toString(), config);
+		final int numRecords = 100;
+		PactRecord record = null;
+		for (int index = 0; index < numRecords; index++) {
+			record = SCHEMA.jsonToRecord(
+				new ObjectNode().put("id", IntNode.valueOf(index)).put("text", TextNode.valueOf("\"" + index)),
+				record, context);
+			outputFormat.writeRecord(record);
+		}
+		outputFormat.close();
+
+		final JsonInputFormat inputFormat =
+			FormatUtil.openInput(JsonInputFormat.class, file.toURI().toString(), config);
+		for (int index = 0; index < numRecords; index++) {
+			Assert.assertFalse("more records expected @ " + index, inputFormat.reachedEnd());
+			Assert.assertTrue("valid record expected @ " + index, inputFormat.nextRecord(record));
+			final IObjectNode object = (IObjectNode) SCHEMA.recordToJson(record, null);
+			Assert.assertEquals(IntNode.valueOf(index), object.get("id"));
+			Assert.assertEquals(TextNode.valueOf("\"" + index), object.get("text"));
+		}
+		Assert.assertTrue(inputFormat.reachedEnd());
+		inputFormat.close();
+		file.delete();
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldWriteArray() throws IOException {
+		this.writeAndRead(false, false);
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldWriteLineDelimited() throws IOException {
+		this.writeAndRead(true, false);
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	public void shouldWriteCompressed() throws IOException {
+		this.writeAndRead(false, true);
+		this.writeAndRead(true, true);
+	}
+}
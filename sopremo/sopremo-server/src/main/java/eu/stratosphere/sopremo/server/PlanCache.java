@@ -0,0 +1,281 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.pact.common.contract.FileDataSink;
+import eu.stratosphere.pact.common.contract.FileDataSource;
+import eu.stratosphere.pact.common.io.FileInputFormat;
+import eu.stratosphere.pact.common.io.FileOutputFormat;
+import eu.stratosphere.pact.compiler.PactCompiler;
+import eu.stratosphere.pact.compiler.jobgen.JobGraphGenerator;
+import eu.stratosphere.pact.compiler.plan.DataSinkNode;
+import eu.stratosphere.pact.compiler.plan.DataSourceNode;
+import eu.stratosphere.pact.compiler.plan.OptimizedPlan;
+import eu.stratosphere.sopremo.io.Sink;
+import eu.stratosphere.sopremo.io.Source;
+import eu.stratosphere.sopremo.operator.Operator;
+import eu.stratosphere.sopremo.operator.SopremoPlan;
+import eu.stratosphere.sopremo.pact.SopremoUtil;
+
+/**
+ * Caches the optimized Pact plans of {@link SopremoPlan}s that differ only in the paths of their sources and sinks.
+ * <br>
+ * A plan is normalized by replacing all paths with placeholders; the serialized normalized plan together with the
+ * checksum-based names of the required libraries forms the key of the cache. The cached template is re-parameterized
+ * with the paths of each request, so that only the cheap translation to a {@link JobGraph} is performed for repeated
+ * queries. The template retains the decisions of the Pact compiler for the first request, including the estimates
+ * that are based on the sizes of the first inputs.<br>
+ * The least recently used templates are evicted when the capacity is exceeded.
+ */
+public class PlanCache {
+	private static final Log LOG = LogFactory.getLog(PlanCache.class);
+
+	private final Map<Key, Template> templates;
+
+	private int hits, misses;
+
+	/**
+	 * Initializes a PlanCache that holds up to the given number of templates.
+	 * 
+	 * @param capacity
+	 *        the maximum number of cached templates
+	 */
+	public PlanCache(final int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+
+		this.templates = new LinkedHashMap<Key, Template>(16, 0.75f, true) {
+			private static final long serialVersionUID = -4353389209327342744L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Template> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns a new {@link JobGraph} for the given plan. The plan is only translated and compiled if no template for
+	 * an equivalent plan is cached.
+	 * 
+	 * @param plan
+	 *        the plan to translate
+	 * @param compiler
+	 *        the compiler that is used if no template is cached
+	 * @return the job graph of the plan
+	 */
+	public JobGraph getJobGraph(final SopremoPlan plan, final PactCompiler compiler) {
+		final List<String> paths = new ArrayList<String>();
+		final Key key = new Key(normalize(plan, paths), plan.getRequiredPackages());
+
+		Template template;
+		synchronized (this.templates) {
+			template = this.templates.get(key);
+			if (template == null)
+				this.misses++;
+			else
+				this.hits++;
+		}
+
+		if (template == null) {
+			final OptimizedPlan optimizedPlan = compiler.compile(plan.asPactPlan());
+			template = Template.create(optimizedPlan, paths);
+			if (template == null) {
+				LOG.debug("Cannot cache plan with unknown file paths");
+				return new JobGraphGenerator().compileJobGraph(optimizedPlan);
+			}
+			synchronized (this.templates) {
+				this.templates.put(key, template);
+			}
+		}
+
+		return template.instantiate(paths);
+	}
+
+	/**
+	 * Returns the number of requests that have been answered with a cached template.
+	 * 
+	 * @return the number of hits
+	 */
+	public int getHits() {
+		synchronized (this.templates) {
+			return this.hits;
+		}
+	}
+
+	/**
+	 * Returns the number of requests that required a compilation.
+	 * 
+	 * @return the number of misses
+	 */
+	public int getMisses() {
+		synchronized (this.templates) {
+			return this.misses;
+		}
+	}
+
+	/**
+	 * Returns the number of cached templates.
+	 * 
+	 * @return the number of templates
+	 */
+	public int size() {
+		synchronized (this.templates) {
+			return this.templates.size();
+		}
+	}
+
+	/**
+	 * Serializes the plan with placeholders instead of the paths of the sources and sinks and collects the distinct
+	 * paths in the order of the placeholders. The placeholders are reused for equal paths, such that plans that read
+	 * the same file twice are distinguished from plans that read two different files.
+	 */
+	static byte[] normalize(final SopremoPlan plan, final List<String> paths) {
+		final List<Operator<?>> operators = new ArrayList<Operator<?>>();
+		for (final Operator<?> operator : plan.getContainedOperators())
+			if (operator instanceof Sink || operator instanceof Source && !((Source) operator).isAdhoc())
+				operators.add(operator);
+
+		final List<String> originalPaths = new ArrayList<String>();
+		for (final Operator<?> operator : operators) {
+			final String path = getPath(operator);
+			originalPaths.add(path);
+			int index = paths.indexOf(path);
+			if (index == -1) {
+				index = paths.size();
+				paths.add(path);
+			}
+			setPath(operator, "path" + index);
+		}
+		try {
+			return SopremoUtil.serializableToByteArray(plan);
+		} finally {
+			for (int index = 0; index < operators.size(); index++)
+				setPath(operators.get(index), originalPaths.get(index));
+		}
+	}
+
+	private static String getPath(final Operator<?> operator) {
+		if (operator instanceof Sink)
+			return ((Sink) operator).getOutputPath();
+		return ((Source) operator).getInputPath();
+	}
+
+	private static void setPath(final Operator<?> operator, final String path) {
+		if (operator instanceof Sink)
+			((Sink) operator).setOutputPath(path);
+		else
+			((Source) operator).setInputPath(path);
+	}
+
+	/**
+	 * The normalized plan and the names of the required libraries.
+	 */
+	private static class Key {
+		private final byte[] normalizedPlan;
+
+		private final List<String> requiredPackages;
+
+		private final int hashCode;
+
+		public Key(final byte[] normalizedPlan, final List<String> requiredPackages) {
+			this.normalizedPlan = normalizedPlan;
+			this.requiredPackages = new ArrayList<String>(requiredPackages);
+			this.hashCode = 31 * Arrays.hashCode(normalizedPlan) + this.requiredPackages.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || this.getClass() != obj.getClass())
+				return false;
+			final Key other = (Key) obj;
+			return this.hashCode == other.hashCode && Arrays.equals(this.normalizedPlan, other.normalizedPlan)
+				&& this.requiredPackages.equals(other.requiredPackages);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+	/**
+	 * An optimized plan and the file parameters of its sources and sinks.
+	 */
+	private static class Template {
+		private final OptimizedPlan optimizedPlan;
+
+		private final List<Configuration> fileParameters = new ArrayList<Configuration>();
+
+		private final List<String> fileParameterKeys = new ArrayList<String>();
+
+		private final List<Integer> pathIndices = new ArrayList<Integer>();
+
+		private Template(final OptimizedPlan optimizedPlan) {
+			this.optimizedPlan = optimizedPlan;
+		}
+
+		/**
+		 * Creates a template of the optimized plan or returns null if a source or sink uses an unknown path.
+		 */
+		public static Template create(final OptimizedPlan optimizedPlan, final List<String> paths) {
+			final Template template = new Template(optimizedPlan);
+			for (final DataSourceNode source : optimizedPlan.getDataSources())
+				if (source.getPactContract() instanceof FileDataSource
+					&& !template.addFileParameter(source.getPactContract().getParameters(),
+						FileInputFormat.FILE_PARAMETER_KEY, paths))
+					return null;
+			for (final DataSinkNode sink : optimizedPlan.getDataSinks())
+				if (sink.getPactContract() instanceof FileDataSink
+					&& !template.addFileParameter(sink.getPactContract().getParameters(),
+						FileOutputFormat.FILE_PARAMETER_KEY, paths))
+					return null;
+			return template;
+		}
+
+		/**
+		 * Sets the paths of the sources and sinks and translates the optimized plan.
+		 */
+		public synchronized JobGraph instantiate(final List<String> paths) {
+			for (int index = 0; index < this.fileParameters.size(); index++)
+				this.fileParameters.get(index).setString(this.fileParameterKeys.get(index),
+					paths.get(this.pathIndices.get(index)));
+			return new JobGraphGenerator().compileJobGraph(this.optimizedPlan);
+		}
+
+		private boolean addFileParameter(final Configuration parameters, final String key, final List<String> paths) {
+			final int pathIndex = paths.indexOf(parameters.getString(key, null));
+			if (pathIndex == -1)
+				return false;
+			this.fileParameters.add(parameters);
+			this.fileParameterKeys.add(key);
+			this.pathIndices.add(pathIndex);
+			return true;
+		}
+	}
+}
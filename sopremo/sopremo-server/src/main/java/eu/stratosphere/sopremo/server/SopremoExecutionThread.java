@@ -45,6 +45,8 @@ public class SopremoExecutionThread implements Runnable {
 
 	private final InetSocketAddress jobManagerAddress;
 
+	private PlanCache planCache;
+
 	/**
 	 * The logging object used for debugging.
 	 */
@@ -55,6 +57,16 @@ public class SopremoExecutionThread implements Runnable {
 		this.jobManagerAddress = jobManagerAddress;
 	}
 
+	/**
+	 * Sets the cache that is used to retrieve compiled plans. If the cache is null, each plan is compiled anew.
+	 * 
+	 * @param planCache
+	 *        the plan cache or null
+	 */
+	public void setPlanCache(PlanCache planCache) {
+		this.planCache = planCache;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Runnable#run()
@@ -107,11 +119,12 @@ public class SopremoExecutionThread implements Runnable {
 	}
 
 	private long executePlan(SopremoPlan plan) {
-		final Plan pactPlan = plan.asPactPlan();
-
 		JobGraph jobGraph;
 		try {
-			jobGraph = getJobGraph(pactPlan);
+			if (this.planCache == null)
+				jobGraph = getJobGraph(plan.asPactPlan());
+			else
+				jobGraph = this.planCache.getJobGraph(plan, createCompiler());
 		} catch (Exception e) {
 			LOG.error("Could not generate job graph " + this.jobInfo.getJobId(), e);
 			this.jobInfo.setStatusAndDetail(ExecutionState.ERROR, "Could not generate job graph: "
@@ -153,12 +166,13 @@ public class SopremoExecutionThread implements Runnable {
 	}
 
 	JobGraph getJobGraph(final Plan pactPlan) {
-		PactCompiler compiler =
-			new PactCompiler(new DataStatistics(), new FixedSizeClusterCostEstimator(), this.jobManagerAddress);
-
-		final OptimizedPlan optPlan = compiler.compile(pactPlan);
+		final OptimizedPlan optPlan = createCompiler().compile(pactPlan);
 		JobGraphGenerator gen = new JobGraphGenerator();
 		return gen.compileJobGraph(optPlan);
 	}
 
+	private PactCompiler createCompiler() {
+		return new PactCompiler(new DataStatistics(), new FixedSizeClusterCostEstimator(), this.jobManagerAddress);
+	}
+
 }
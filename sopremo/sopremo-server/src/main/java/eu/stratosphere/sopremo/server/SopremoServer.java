@@ -68,6 +68,8 @@ public class SopremoServer implements SopremoExecutionProtocol, Closeable {
 
 	private LibraryTransferAgent libraryTransferAgent = new LibraryTransferAgent();
 
+	private final PlanCache planCache;
+
 	private static final Log LOG = LogFactory.getLog(SopremoServer.class);
 
 	private final static int SLEEPINTERVAL = 1000;
@@ -78,6 +80,9 @@ public class SopremoServer implements SopremoExecutionProtocol, Closeable {
 
 	public SopremoServer(Configuration configuration) {
 		this.configuration = configuration;
+		final int planCacheSize = configuration.getInteger(SopremoConstants.SOPREMO_SERVER_PLAN_CACHE_SIZE_KEY,
+			SopremoConstants.DEFAULT_SOPREMO_SERVER_PLAN_CACHE_SIZE);
+		this.planCache = planCacheSize > 0 ? new PlanCache(planCacheSize) : null;
 	}
 
 	/*
@@ -103,7 +108,9 @@ public class SopremoServer implements SopremoExecutionProtocol, Closeable {
 		LOG.info("Receive execution request for job " + jobId);
 		final SopremoJobInfo info = new SopremoJobInfo(jobId, request, this.configuration);
 		this.meteorInfo.put(jobId, info);
-		this.executorService.submit(new SopremoExecutionThread(info, getJobManagerAddress()));
+		final SopremoExecutionThread executionThread = new SopremoExecutionThread(info, getJobManagerAddress());
+		executionThread.setPlanCache(this.planCache);
+		this.executorService.submit(executionThread);
 		return this.getState(jobId);
 	}
 
@@ -125,6 +132,15 @@ public class SopremoServer implements SopremoExecutionProtocol, Closeable {
 		return this.libraryTransferAgent.getLibraryCacheProfile(request);
 	}
 
+	/**
+	 * Returns the cache of compiled plans or null if plans are not cached.
+	 * 
+	 * @return the plan cache
+	 */
+	public PlanCache getPlanCache() {
+		return this.planCache;
+	}
+
 	public InetSocketAddress getServerAddress() {
 		InetSocketAddress serverAddress = this.serverAddress;
 		if (serverAddress == null) {
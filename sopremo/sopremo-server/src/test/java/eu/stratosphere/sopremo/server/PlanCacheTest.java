@@ -0,0 +1,158 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.sopremo.server;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.configuration.Configuration;
+import eu.stratosphere.nephele.instance.HardwareDescription;
+import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.instance.InstanceTypeDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.jobgraph.AbstractJobInputVertex;
+import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.pact.common.io.FileInputFormat;
+import eu.stratosphere.pact.common.plan.Plan;
+import eu.stratosphere.pact.compiler.DataStatistics;
+import eu.stratosphere.pact.compiler.PactCompiler;
+import eu.stratosphere.pact.compiler.costs.FixedSizeClusterCostEstimator;
+import eu.stratosphere.pact.compiler.plan.OptimizedPlan;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.sopremo.base.UnionAll;
+import eu.stratosphere.sopremo.io.Sink;
+import eu.stratosphere.sopremo.io.Source;
+import eu.stratosphere.sopremo.operator.SopremoPlan;
+
+public class PlanCacheTest {
+	private PactCompiler compiler;
+
+	private PlanCache planCache;
+
+	@Before
+	public void setup() {
+		InstanceType iType = InstanceTypeFactory.construct("standard", 6, 2, 4096, 100, 0);
+		HardwareDescription hDesc = HardwareDescriptionFactory.construct(2, 4096L * 1024 * 1024, 2000L * 1024 * 1024);
+		final InstanceTypeDescription instanceType = InstanceTypeDescriptionFactory.construct(iType, hDesc, 2);
+		this.compiler = new PactCompiler(new DataStatistics(), new FixedSizeClusterCostEstimator(),
+			new InetSocketAddress(0)) {
+			@Override
+			public OptimizedPlan compile(Plan pactPlan) {
+				return this.compile(pactPlan, instanceType);
+			}
+		};
+		this.planCache = new PlanCache(2);
+	}
+
+	@Test
+	public void shouldReuseTemplateForDifferentPaths() {
+		final JobGraph first = this.planCache.getJobGraph(createPlan("input1", "input2"), this.compiler);
+		final JobGraph second = this.planCache.getJobGraph(createPlan("input3", "input4"), this.compiler);
+
+		Assert.assertEquals(1, this.planCache.getMisses());
+		Assert.assertEquals(1, this.planCache.getHits());
+		Assert.assertFalse(first.getJobID().equals(second.getJobID()));
+		Assert.assertEquals(Arrays.asList("file:///tmp/input1", "file:///tmp/input2"), getInputPaths(first));
+		Assert.assertEquals(Arrays.asList("file:///tmp/input3", "file:///tmp/input4"), getInputPaths(second));
+	}
+
+	@Test
+	public void shouldDistinguishRepeatedPaths() {
+		this.planCache.getJobGraph(createPlan("input1", "input2"), this.compiler);
+		final JobGraph jobGraph = this.planCache.getJobGraph(createPlan("input1", "input1"), this.compiler);
+
+		Assert.assertEquals(2, this.planCache.getMisses());
+		Assert.assertEquals(Arrays.asList("file:///tmp/input1", "file:///tmp/input1"), getInputPaths(jobGraph));
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedTemplate() {
+		this.planCache.getJobGraph(createPlan("input1", "input2"), this.compiler);
+		this.planCache.getJobGraph(createPlan("input1", "input1"), this.compiler);
+		final SopremoPlan plan = createPlan("input1", "input2");
+		plan.addRequiredPackage("library");
+		this.planCache.getJobGraph(plan, this.compiler);
+		this.planCache.getJobGraph(createPlan("input3", "input4"), this.compiler);
+
+		Assert.assertEquals(4, this.planCache.getMisses());
+		Assert.assertEquals(2, this.planCache.size());
+	}
+
+	@Test
+	public void shouldTranslateCachedPlanRepeatedly() {
+		final JobGraph first = this.planCache.getJobGraph(createPlan("input1", "input2"), this.compiler);
+		this.planCache.getJobGraph(createPlan("input3", "input4"), this.compiler);
+		final JobGraph third = this.planCache.getJobGraph(createPlan("input1", "input2"), this.compiler);
+
+		Assert.assertEquals(1, this.planCache.getMisses());
+		Assert.assertEquals(2, this.planCache.getHits());
+		// the translations of the cached optimized plan must neither accumulate state nor modify earlier job graphs
+		Assert.assertEquals(first.getNumberOfVertices(), third.getNumberOfVertices());
+		Assert.assertEquals(describe(first), describe(third));
+		Assert.assertEquals(Arrays.asList("file:///tmp/input1", "file:///tmp/input2"), getInputPaths(first));
+	}
+
+	private static SopremoPlan createPlan(final String input1, final String input2) {
+		final SopremoPlan plan = new SopremoPlan();
+		final UnionAll union = new UnionAll().withInputs(
+			new Source("file:///tmp/" + input1),
+			new Source("file:///tmp/" + input2));
+		plan.setSinks(new Sink("file:///tmp/output").withInputs(union));
+		return plan;
+	}
+
+	private static ArrayList<String> getInputPaths(final JobGraph jobGraph) {
+		final ArrayList<String> paths = new ArrayList<String>();
+		final Iterator<AbstractJobInputVertex> inputVertices = jobGraph.getInputVertices();
+		while (inputVertices.hasNext())
+			paths.add(new TaskConfig(inputVertices.next().getConfiguration()).getStubParameters().getString(
+				FileInputFormat.FILE_PARAMETER_KEY, null));
+		// the order of the input vertices is not defined
+		Collections.sort(paths);
+		return paths;
+	}
+
+	/**
+	 * Describes the vertices of the job graph with their connections and configurations, independent of the order of
+	 * the vertices and of their IDs.
+	 */
+	private static List<String> describe(final JobGraph jobGraph) {
+		final List<String> descriptions = new ArrayList<String>();
+		for (final AbstractJobVertex vertex : jobGraph.getAllJobVertices()) {
+			final Configuration configuration = vertex.getConfiguration();
+			final Map<String, String> entries = new TreeMap<String, String>();
+			for (final String key : configuration.keySet())
+				entries.put(key, configuration.getString(key, null));
+			descriptions.add(String.format("%s %d %d %d %s", vertex.getName(), vertex.getNumberOfSubtasks(),
+				vertex.getNumberOfForwardConnections(), vertex.getNumberOfBackwardConnections(), entries));
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+}